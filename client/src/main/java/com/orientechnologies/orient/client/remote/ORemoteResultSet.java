@@ -0,0 +1,270 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.orientechnologies.orient.client.remote;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.sql.query.OBasicResultSet;
+
+import java.io.IOException;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Result set of a query cursor opened on the server. Records are read from the server one page at a time, when the result set is
+ * browsed past the records already read. The cursor on the server is closed as soon as the last page is read, call
+ * {@link #close()} to close it before.
+ * <p>
+ * Browsing the result set with {@link #iterator()} keeps only the current page in memory: the records of a page are released as
+ * soon as the next page is read, so the result set can be browsed only once. Methods which need the whole result as a
+ * {@link List}, like {@link #get(int)}, {@link #contains(Object)} or {@link #toArray()}, read and keep all the remaining pages
+ * first, and cannot be used anymore once some records have been released. {@link #size()} is always available.
+ *
+ * @see OStorageRemote#openQueryCursor(com.orientechnologies.orient.core.command.OCommandRequestText, int)
+ */
+public class ORemoteResultSet<T> extends OBasicResultSet<T> {
+  private final OStorageRemote storage;
+  private final int            cursorId;
+  private final int            pageSize;
+  private final List<ORecord>  temporaryRecords = new ArrayList<ORecord>();
+  private volatile boolean     hasMore          = true;
+  private int                  released;
+
+  public ORemoteResultSet(final OStorageRemote storage, final int cursorId, final int pageSize) {
+    this.storage = storage;
+    this.cursorId = cursorId;
+    this.pageSize = pageSize;
+    setTemporaryRecordCache(temporaryRecords);
+  }
+
+  public int getCursorId() {
+    return cursorId;
+  }
+
+  /**
+   * @return true if all the records have been read from the server
+   */
+  public boolean isCompleted() {
+    return !hasMore;
+  }
+
+  /**
+   * Reads the next page of records from the server.
+   *
+   * @return false if there are no more records to read
+   */
+  public synchronized boolean fetchNextPage() {
+    if (!hasMore)
+      return false;
+
+    final List<OIdentifiable> page = new ArrayList<OIdentifiable>();
+    addPage(page, storage.fetchQueryCursor(cursorId, pageSize, page, temporaryRecords));
+    return true;
+  }
+
+  /**
+   * Reads all the remaining records from the server.
+   */
+  public void fetchAll() {
+    while (fetchNextPage())
+      ;
+  }
+
+  /**
+   * Closes the cursor on the server, records not read yet are discarded.
+   */
+  public synchronized void close() {
+    if (hasMore) {
+      hasMore = false;
+      storage.closeQueryCursor(cursorId);
+    }
+  }
+
+  @Override
+  public int size() {
+    fetchAll();
+    return released + super.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    while (underlying.isEmpty() && fetchNextPage())
+      ;
+    return released == 0 && underlying.isEmpty();
+  }
+
+  @Override
+  public boolean contains(final Object o) {
+    loadAll();
+    return super.contains(o);
+  }
+
+  @Override
+  public boolean containsAll(final Collection<?> c) {
+    loadAll();
+    return super.containsAll(c);
+  }
+
+  @Override
+  public int indexOf(final Object o) {
+    loadAll();
+    return super.indexOf(o);
+  }
+
+  @Override
+  public int lastIndexOf(final Object o) {
+    loadAll();
+    return super.lastIndexOf(o);
+  }
+
+  /**
+   * Browses the records reading them from the server one page at a time. The browsed records are released when the next page is
+   * read.
+   */
+  @Override
+  public Iterator<T> iterator() {
+    return new Iterator<T>() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        while (index >= underlying.size()) {
+          if (!hasMore)
+            return false;
+
+          releaseBrowsedRecords();
+          index = 0;
+          fetchNextPage();
+        }
+        return true;
+      }
+
+      @Override
+      public T next() {
+        if (!hasNext())
+          throw new NoSuchElementException("Error on browsing at element " + index + ": no more records in the resultset");
+
+        return underlying.get(index++);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException("ORemoteResultSet.iterator.remove()");
+      }
+    };
+  }
+
+  @Override
+  public Object[] toArray() {
+    loadAll();
+    return super.toArray();
+  }
+
+  @Override
+  public <T1> T1[] toArray(final T1[] a) {
+    loadAll();
+    return super.toArray(a);
+  }
+
+  @Override
+  public T get(final int index) {
+    if (index < released)
+      throw new IllegalStateException("Record " + index + " of query cursor " + cursorId + " has been already browsed and released");
+
+    while (index - released >= underlying.size() && fetchNextPage())
+      ;
+    return super.get(index - released);
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    loadAll();
+    return super.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    loadAll();
+    return super.hashCode();
+  }
+
+  @Override
+  public ListIterator<T> listIterator() {
+    loadAll();
+    return super.listIterator();
+  }
+
+  @Override
+  public ListIterator<T> listIterator(final int index) {
+    loadAll();
+    return super.listIterator(index);
+  }
+
+  @Override
+  public List<T> subList(final int fromIndex, final int toIndex) {
+    loadAll();
+    return super.subList(fromIndex, toIndex);
+  }
+
+  @Override
+  public OBasicResultSet<T> copy() {
+    loadAll();
+    return super.copy();
+  }
+
+  @Override
+  public void writeExternal(final ObjectOutput out) throws IOException {
+    loadAll();
+    super.writeExternal(out);
+  }
+
+  /**
+   * Reads all the remaining records from the server, checking the records read before are all still available.
+   */
+  private void loadAll() {
+    if (released > 0)
+      throw new IllegalStateException("The first " + released + " records of query cursor " + cursorId
+          + " have been already browsed and released, the whole result is not available anymore");
+    fetchAll();
+  }
+
+  private synchronized void releaseBrowsedRecords() {
+    released += underlying.size();
+    underlying.clear();
+  }
+
+  protected List<ORecord> getTemporaryRecords() {
+    return temporaryRecords;
+  }
+
+  @SuppressWarnings("unchecked")
+  protected void addPage(final List<OIdentifiable> page, final boolean hasMore) {
+    for (OIdentifiable record : page)
+      underlying.add((T) record);
+    this.hasMore = hasMore;
+  }
+}
@@ -59,9 +59,11 @@ import com.orientechnologies.orient.core.security.OSecurityManager;
 import com.orientechnologies.orient.core.serialization.OSerializableStream;
 import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerSchemaAware2CSV;
 import com.orientechnologies.orient.core.serialization.serializer.stream.OStreamSerializerAnyStreamable;
+import com.orientechnologies.orient.core.sql.OSQLPreparedStatement;
 import com.orientechnologies.orient.core.sql.query.OBasicResultSet;
 import com.orientechnologies.orient.core.sql.query.OLiveQuery;
 import com.orientechnologies.orient.core.sql.query.OLiveResultListener;
+import com.orientechnologies.orient.core.sql.query.OSQLPreparedQuery;
 import com.orientechnologies.orient.core.storage.*;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.ORecordSerializationContext;
 import com.orientechnologies.orient.core.tx.OTransaction;
@@ -1170,6 +1172,9 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
 
     if (!(iCommand instanceof OSerializableStream))
       throw new OCommandExecutionException("Cannot serialize the command to be executed to the server side.");
+    if (iCommand instanceof OSQLPreparedQuery && ((OSQLPreparedQuery<?>) iCommand).getPreparedStatement() != null)
+      return executePreparedQuery((OSQLPreparedQuery<?>) iCommand);
+
     final boolean live = iCommand instanceof OLiveQuery;
     final ODatabaseDocument database = ODatabaseRecordThreadLocal.INSTANCE.get();
 
@@ -1289,6 +1294,106 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
     }, "Error on executing command: " + iCommand);
   }
 
+  /**
+   * Executes a prepared statement on the server. The statement is prepared the first time it is executed by the session on the
+   * server, then only its handle and the parameters of the execution are sent, so the server reuses the indexes chosen by the
+   * previous executions.
+   */
+  public Object executePreparedQuery(final OSQLPreparedQuery<?> iCommand) {
+    final OSQLPreparedStatement statement = iCommand.getPreparedStatement();
+    final ODatabaseDocument database = ODatabaseRecordThreadLocal.INSTANCE.get();
+
+    return networkOperation(new OStorageRemoteOperation<Object>() {
+      @Override
+      public Object execute(final OChannelBinaryAsynchClient network, OStorageRemoteSession session) throws IOException {
+        if (network.getSrvProtocolVersion() < OChannelBinaryProtocol.PROTOCOL_VERSION_38)
+          throw new OStorageException("Prepared statements are not supported by the server " + network.getServerURL());
+
+        final OStorageRemoteNodeSession nodeSession = session.getOrCreateServerSession(network.getServerURL());
+        Integer statementId = nodeSession.getPreparedStatementId(statement);
+        if (statementId == null) {
+          statementId = prepareStatement(network, session, statement.getText());
+          nodeSession.setPreparedStatementId(statement, statementId);
+        }
+
+        session.commandExecuting = true;
+        try {
+          try {
+            beginRequest(network, OChannelBinaryProtocol.REQUEST_STATEMENT_EXECUTE, session);
+            network.writeInt(statementId);
+            network.writeBytes(OStreamSerializerAnyStreamable.INSTANCE.toStream(iCommand));
+          } finally {
+            endRequest(network);
+          }
+
+          try {
+            beginResponse(network, session);
+
+            final List<ORecord> temporaryResults = new ArrayList<ORecord>();
+            final Object result = readSynchResult(network, database, temporaryResults);
+            if (!temporaryResults.isEmpty() && result instanceof OBasicResultSet<?>)
+              ((OBasicResultSet<?>) result).setTemporaryRecordCache(temporaryResults);
+            return result;
+          } finally {
+            endResponse(network);
+          }
+        } finally {
+          session.commandExecuting = false;
+          if (iCommand.getResultListener() != null)
+            iCommand.getResultListener().end();
+        }
+      }
+    }, "Error on executing prepared statement: " + statement);
+  }
+
+  /**
+   * Closes a prepared statement on the server the current session is connected to. The statement can still be executed, it is
+   * prepared again by the next execution.
+   */
+  public void closePreparedStatement(final OSQLPreparedStatement statement) {
+    networkOperation(new OStorageRemoteOperation<Void>() {
+      @Override
+      public Void execute(final OChannelBinaryAsynchClient network, OStorageRemoteSession session) throws IOException {
+        final OStorageRemoteNodeSession nodeSession = session.getOrCreateServerSession(network.getServerURL());
+        final Integer statementId = nodeSession.getPreparedStatementId(statement);
+        if (statementId == null)
+          return null;
+
+        nodeSession.setPreparedStatementId(statement, null);
+        try {
+          beginRequest(network, OChannelBinaryProtocol.REQUEST_STATEMENT_CLOSE, session);
+          network.writeInt(statementId);
+        } finally {
+          endRequest(network);
+        }
+
+        try {
+          beginResponse(network, session);
+          return null;
+        } finally {
+          endResponse(network);
+        }
+      }
+    }, "Error on closing prepared statement: " + statement);
+  }
+
+  private int prepareStatement(final OChannelBinaryAsynchClient network, final OStorageRemoteSession session, final String text)
+      throws IOException {
+    try {
+      beginRequest(network, OChannelBinaryProtocol.REQUEST_STATEMENT_PREPARE, session);
+      network.writeString(text);
+    } finally {
+      endRequest(network);
+    }
+
+    try {
+      beginResponse(network, session);
+      return network.readInt();
+    } finally {
+      endResponse(network);
+    }
+  }
+
   protected Object readSynchResult(final OChannelBinaryAsynchClient network, final ODatabaseDocument database,
       List<ORecord> temporaryResults) throws IOException {
 
@@ -1364,6 +1469,138 @@ public class OStorageRemote extends OStorageAbstract implements OStorageProxy {
     return result;
   }
 
+  /**
+   * Executes a query on the server with the default page size.
+   *
+   * @see #openQueryCursor(OCommandRequestText, int)
+   */
+  public <T> ORemoteResultSet<T> openQueryCursor(final OCommandRequestText iCommand) {
+    return openQueryCursor(iCommand, OGlobalConfiguration.NETWORK_BINARY_CURSOR_PAGE_SIZE.getValueAsInteger());
+  }
+
+  /**
+   * Executes a query on the server keeping the results in a server side cursor. Only the first page of records is returned by this
+   * call, the next pages are read while the returned result set is browsed. The server executes the query only as far as needed to
+   * fill the next page.
+   *
+   * @param iCommand
+   *          SELECT query to execute
+   * @param pageSize
+   *          Maximum number of records read from the server by each request
+   */
+  public <T> ORemoteResultSet<T> openQueryCursor(final OCommandRequestText iCommand, final int pageSize) {
+    if (!(iCommand instanceof OSerializableStream))
+      throw new OCommandExecutionException("Cannot serialize the command to be executed to the server side.");
+    if (pageSize < 1)
+      throw new IllegalArgumentException("Invalid page size " + pageSize);
+
+    final ODatabaseDocument database = ODatabaseRecordThreadLocal.INSTANCE.get();
+
+    return networkOperation(new OStorageRemoteOperation<ORemoteResultSet<T>>() {
+      @Override
+      public ORemoteResultSet<T> execute(final OChannelBinaryAsynchClient network, OStorageRemoteSession session)
+          throws IOException {
+        if (network.getSrvProtocolVersion() < OChannelBinaryProtocol.PROTOCOL_VERSION_37)
+          throw new OStorageException("Query cursors are not supported by the server " + network.getServerURL());
+
+        try {
+          beginRequest(network, OChannelBinaryProtocol.REQUEST_QUERY_CURSOR_OPEN, session);
+          network.writeInt(pageSize);
+          network.writeBytes(OStreamSerializerAnyStreamable.INSTANCE.toStream(iCommand));
+        } finally {
+          endRequest(network);
+        }
+
+        try {
+          beginResponse(network, session);
+
+          final ORemoteResultSet<T> resultSet = new ORemoteResultSet<T>(OStorageRemote.this, network.readInt(), pageSize);
+          final List<OIdentifiable> page = new ArrayList<OIdentifiable>();
+          final boolean hasMore = readQueryCursorPage(network, database, page, resultSet.getTemporaryRecords());
+          resultSet.addPage(page, hasMore);
+          return resultSet;
+        } finally {
+          endResponse(network);
+        }
+      }
+    }, "Error on executing query: " + iCommand);
+  }
+
+  /**
+   * Reads the next page of records of a query cursor.
+   *
+   * @return true if the cursor can have more records after the read ones
+   */
+  public boolean fetchQueryCursor(final int cursorId, final int pageSize, final List<OIdentifiable> page,
+      final List<ORecord> temporaryRecords) {
+    final ODatabaseDocument database = ODatabaseRecordThreadLocal.INSTANCE.get();
+
+    return networkOperation(new OStorageRemoteOperation<Boolean>() {
+      @Override
+      public Boolean execute(final OChannelBinaryAsynchClient network, OStorageRemoteSession session) throws IOException {
+        try {
+          beginRequest(network, OChannelBinaryProtocol.REQUEST_QUERY_CURSOR_FETCH, session);
+          network.writeInt(cursorId);
+          network.writeInt(pageSize);
+        } finally {
+          endRequest(network);
+        }
+
+        try {
+          beginResponse(network, session);
+          return readQueryCursorPage(network, database, page, temporaryRecords);
+        } finally {
+          endResponse(network);
+        }
+      }
+    }, "Error on reading query cursor " + cursorId);
+  }
+
+  /**
+   * Closes a query cursor before all its records are read, stopping the query on the server.
+   */
+  public void closeQueryCursor(final int cursorId) {
+    networkOperation(new OStorageRemoteOperation<Void>() {
+      @Override
+      public Void execute(final OChannelBinaryAsynchClient network, OStorageRemoteSession session) throws IOException {
+        try {
+          beginRequest(network, OChannelBinaryProtocol.REQUEST_QUERY_CURSOR_CLOSE, session);
+          network.writeInt(cursorId);
+        } finally {
+          endRequest(network);
+        }
+
+        try {
+          beginResponse(network, session);
+          return null;
+        } finally {
+          endResponse(network);
+        }
+      }
+    }, "Error on closing query cursor " + cursorId);
+  }
+
+  private boolean readQueryCursorPage(final OChannelBinaryAsynchClient network, final ODatabaseDocument database,
+      final List<OIdentifiable> page, final List<ORecord> temporaryRecords) throws IOException {
+    byte status;
+    while ((status = network.readByte()) > 0) {
+      final OIdentifiable record = OChannelBinaryProtocol.readIdentifiable(network);
+      if (record == null)
+        continue;
+
+      if (record instanceof ORecord)
+        // PUT IN THE CLIENT LOCAL CACHE
+        database.getLocalCache().updateRecord((ORecord) record);
+
+      if (status == 1)
+        page.add(record);
+      else if (status == 2 && record.getIdentity().getClusterId() == -2)
+        temporaryRecords.add((ORecord) record);
+    }
+
+    return network.readByte() == 1;
+  }
+
   public List<ORecordOperation> commit(final OTransaction iTx, final Runnable callback) {
     networkOperation(new OStorageRemoteOperation<Void>() {
       @Override
@@ -1,5 +1,10 @@
 package com.orientechnologies.orient.client.remote;
 
+import com.orientechnologies.orient.core.sql.OSQLPreparedStatement;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
 /**
  * Created by tglman on 12/04/16.
  */
@@ -8,6 +13,8 @@ public class OStorageRemoteNodeSession {
   private Integer sessionId = -1;
   private byte[]  token     = null;
 
+  private final Map<OSQLPreparedStatement, Integer> preparedStatements = new WeakHashMap<OSQLPreparedStatement, Integer>();
+
   public OStorageRemoteNodeSession(String serverURL, Integer uniqueClientSessionId) {
     this.serverURL = serverURL;
     this.sessionId = uniqueClientSessionId;
@@ -26,6 +33,10 @@ public class OStorageRemoteNodeSession {
   }
 
   public void setSession(Integer sessionId, byte[] token) {
+    if (this.sessionId != null && !this.sessionId.equals(sessionId))
+      // PREPARED STATEMENTS BELONG TO THE PREVIOUS SESSION ON THE SERVER
+      clearPreparedStatements();
+
     this.sessionId = sessionId;
     this.token = token;
   }
@@ -33,4 +44,22 @@ public class OStorageRemoteNodeSession {
   public boolean isValid() {
     return this.sessionId >= 0;
   }
+
+  /**
+   * @return the handle of the statement prepared on the server by this session, or <code>null</code> if it is not prepared yet
+   */
+  public synchronized Integer getPreparedStatementId(final OSQLPreparedStatement statement) {
+    return preparedStatements.get(statement);
+  }
+
+  public synchronized void setPreparedStatementId(final OSQLPreparedStatement statement, final Integer id) {
+    if (id == null)
+      preparedStatements.remove(statement);
+    else
+      preparedStatements.put(statement, id);
+  }
+
+  public synchronized void clearPreparedStatements() {
+    preparedStatements.clear();
+  }
 }
@@ -0,0 +1,117 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.common.collection;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Double ended queue of primitive longs backed by a growable ring buffer. Not thread safe.
+ */
+public class OLongArrayDeque {
+  private long[] elements;
+  private int    head;
+  private int    size;
+
+  public OLongArrayDeque() {
+    this(16);
+  }
+
+  public OLongArrayDeque(final int expectedSize) {
+    elements = new long[Integer.highestOneBit(Math.max(expectedSize, 8) - 1) << 1];
+  }
+
+  public void addFirst(final long value) {
+    if (size == elements.length)
+      grow();
+    head = (head - 1) & (elements.length - 1);
+    elements[head] = value;
+    size++;
+  }
+
+  public void addLast(final long value) {
+    if (size == elements.length)
+      grow();
+    elements[(head + size) & (elements.length - 1)] = value;
+    size++;
+  }
+
+  /**
+   * @throws NoSuchElementException if the deque is empty
+   */
+  public long removeFirst() {
+    if (size == 0)
+      throw new NoSuchElementException();
+    final long value = elements[head];
+    head = (head + 1) & (elements.length - 1);
+    size--;
+    return value;
+  }
+
+  /**
+   * @throws NoSuchElementException if the deque is empty
+   */
+  public long removeLast() {
+    if (size == 0)
+      throw new NoSuchElementException();
+    size--;
+    return elements[(head + size) & (elements.length - 1)];
+  }
+
+  /**
+   * @throws NoSuchElementException if the deque is empty
+   */
+  public long peekFirst() {
+    if (size == 0)
+      throw new NoSuchElementException();
+    return elements[head];
+  }
+
+  /**
+   * @return the element at the position, starting from the head of the deque
+   */
+  public long get(final int index) {
+    if (index < 0 || index >= size)
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    return elements[(head + index) & (elements.length - 1)];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    head = 0;
+    size = 0;
+  }
+
+  private void grow() {
+    final long[] newElements = new long[elements.length << 1];
+    final int firstPart = elements.length - head;
+    System.arraycopy(elements, head, newElements, 0, firstPart);
+    System.arraycopy(elements, 0, newElements, firstPart, head);
+    elements = newElements;
+    head = 0;
+  }
+}
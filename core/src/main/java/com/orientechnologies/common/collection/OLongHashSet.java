@@ -0,0 +1,175 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.common.collection;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive longs with open addressing and linear probing. Values are kept in a single array, without boxing them and
+ * without an entry object per value, so it takes about 16 bytes per value instead of the 60 and more of a {@link java.util.HashSet}
+ * of {@link Long}. The value 0 marks free slots, so it is kept apart. Not thread safe.
+ *
+ * @see com.orientechnologies.orient.core.id.ORecordId#toLong(com.orientechnologies.orient.core.id.ORID)
+ */
+public class OLongHashSet {
+  private static final float LOAD_FACTOR = 0.5f;
+
+  private long[]  values;
+  private int     mask;
+  private int     size;
+  private int     resizeThreshold;
+  private boolean containsZero;
+
+  public OLongHashSet() {
+    this(16);
+  }
+
+  public OLongHashSet(final int expectedSize) {
+    allocate(OLongHashing.capacity(expectedSize, LOAD_FACTOR));
+  }
+
+  /**
+   * @return true if the value was not in the set
+   */
+  public boolean add(final long value) {
+    if (value == 0) {
+      if (containsZero)
+        return false;
+      containsZero = true;
+      size++;
+      return true;
+    }
+
+    int slot = OLongHashing.hash(value) & mask;
+    while (values[slot] != 0) {
+      if (values[slot] == value)
+        return false;
+      slot = (slot + 1) & mask;
+    }
+
+    values[slot] = value;
+    if (++size > resizeThreshold)
+      rehash(values.length << 1);
+    return true;
+  }
+
+  public boolean contains(final long value) {
+    if (value == 0)
+      return containsZero;
+
+    int slot = OLongHashing.hash(value) & mask;
+    while (values[slot] != 0) {
+      if (values[slot] == value)
+        return true;
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  /**
+   * @return true if the value was in the set
+   */
+  public boolean remove(final long value) {
+    if (value == 0) {
+      if (!containsZero)
+        return false;
+      containsZero = false;
+      size--;
+      return true;
+    }
+
+    int slot = OLongHashing.hash(value) & mask;
+    while (values[slot] != 0) {
+      if (values[slot] == value) {
+        shiftBack(slot);
+        size--;
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(values, 0);
+    containsZero = false;
+    size = 0;
+  }
+
+  /**
+   * @return the values of the set, in no particular order
+   */
+  public long[] toArray() {
+    final long[] result = new long[size];
+    int i = 0;
+    if (containsZero)
+      result[i++] = 0;
+    for (long value : values)
+      if (value != 0)
+        result[i++] = value;
+    return result;
+  }
+
+  /**
+   * Moves back the values which follow a removed one in the same cluster of slots, so lookups do not need tombstones.
+   */
+  private void shiftBack(int slot) {
+    int next = (slot + 1) & mask;
+    while (values[next] != 0) {
+      final int home = OLongHashing.hash(values[next]) & mask;
+      // THE VALUE CAN FILL THE HOLE ONLY IF ITS HOME SLOT IS NOT BETWEEN THE HOLE AND ITS CURRENT SLOT
+      if (((next - home) & mask) >= ((next - slot) & mask)) {
+        values[slot] = values[next];
+        slot = next;
+      }
+      next = (next + 1) & mask;
+    }
+    values[slot] = 0;
+  }
+
+  private void rehash(final int capacity) {
+    final long[] oldValues = values;
+    allocate(capacity);
+
+    for (long value : oldValues) {
+      if (value != 0) {
+        int slot = OLongHashing.hash(value) & mask;
+        while (values[slot] != 0)
+          slot = (slot + 1) & mask;
+        values[slot] = value;
+      }
+    }
+  }
+
+  private void allocate(final int capacity) {
+    values = new long[capacity];
+    mask = capacity - 1;
+    resizeThreshold = (int) (capacity * LOAD_FACTOR);
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.common.collection;
+
+/**
+ * Hashing shared by the collections of primitive longs.
+ */
+final class OLongHashing {
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private OLongHashing() {
+  }
+
+  /**
+   * Spreads the bits of the value, so values which differ only in the high bits, like record ids of the same position in different
+   * clusters, do not end in the same slot.
+   */
+  static int hash(final long value) {
+    long h = value * 0x9E3779B97F4A7C15L;
+    h ^= h >>> 32;
+    return (int) (h ^ (h >>> 16));
+  }
+
+  /**
+   * @return the smallest power of two able to keep the expected values below the load factor
+   */
+  static int capacity(final int expectedSize, final float loadFactor) {
+    final long needed = (long) Math.ceil(Math.max(expectedSize, 2) / loadFactor);
+    if (needed >= MAX_CAPACITY)
+      return MAX_CAPACITY;
+    return Integer.highestOneBit((int) needed - 1) << 1;
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.common.collection;
+
+import java.util.Arrays;
+
+/**
+ * Map from primitive longs to primitive longs with open addressing and linear probing. Keys and values are kept in two parallel
+ * arrays, without boxing them and without an entry object per mapping. The key 0 marks free slots, so its value is kept apart. Not
+ * thread safe.
+ *
+ * @see OLongHashSet
+ */
+public class OLongLongHashMap {
+  private static final float LOAD_FACTOR = 0.5f;
+
+  private long[]  keys;
+  private long[]  values;
+  private int     mask;
+  private int     size;
+  private int     resizeThreshold;
+  private boolean containsZeroKey;
+  private long    zeroKeyValue;
+
+  public OLongLongHashMap() {
+    this(16);
+  }
+
+  public OLongLongHashMap(final int expectedSize) {
+    allocate(OLongHashing.capacity(expectedSize, LOAD_FACTOR));
+  }
+
+  /**
+   * @return the value mapped to the key, or defaultValue if the key is not in the map
+   */
+  public long get(final long key, final long defaultValue) {
+    if (key == 0)
+      return containsZeroKey ? zeroKeyValue : defaultValue;
+
+    int slot = OLongHashing.hash(key) & mask;
+    while (keys[slot] != 0) {
+      if (keys[slot] == key)
+        return values[slot];
+      slot = (slot + 1) & mask;
+    }
+    return defaultValue;
+  }
+
+  public boolean containsKey(final long key) {
+    if (key == 0)
+      return containsZeroKey;
+
+    int slot = OLongHashing.hash(key) & mask;
+    while (keys[slot] != 0) {
+      if (keys[slot] == key)
+        return true;
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  /**
+   * @return true if the key was not in the map
+   */
+  public boolean put(final long key, final long value) {
+    if (key == 0) {
+      zeroKeyValue = value;
+      if (containsZeroKey)
+        return false;
+      containsZeroKey = true;
+      size++;
+      return true;
+    }
+
+    int slot = OLongHashing.hash(key) & mask;
+    while (keys[slot] != 0) {
+      if (keys[slot] == key) {
+        values[slot] = value;
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size > resizeThreshold)
+      rehash(keys.length << 1);
+    return true;
+  }
+
+  /**
+   * @return true if the key was in the map
+   */
+  public boolean remove(final long key) {
+    if (key == 0) {
+      if (!containsZeroKey)
+        return false;
+      containsZeroKey = false;
+      zeroKeyValue = 0;
+      size--;
+      return true;
+    }
+
+    int slot = OLongHashing.hash(key) & mask;
+    while (keys[slot] != 0) {
+      if (keys[slot] == key) {
+        shiftBack(slot);
+        size--;
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, 0);
+    containsZeroKey = false;
+    zeroKeyValue = 0;
+    size = 0;
+  }
+
+  /**
+   * @return the keys of the map, in no particular order
+   */
+  public long[] keys() {
+    final long[] result = new long[size];
+    int i = 0;
+    if (containsZeroKey)
+      result[i++] = 0;
+    for (long key : keys)
+      if (key != 0)
+        result[i++] = key;
+    return result;
+  }
+
+  private void shiftBack(int slot) {
+    int next = (slot + 1) & mask;
+    while (keys[next] != 0) {
+      final int home = OLongHashing.hash(keys[next]) & mask;
+      if (((next - home) & mask) >= ((next - slot) & mask)) {
+        keys[slot] = keys[next];
+        values[slot] = values[next];
+        slot = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[slot] = 0;
+  }
+
+  private void rehash(final int capacity) {
+    final long[] oldKeys = keys;
+    final long[] oldValues = values;
+    allocate(capacity);
+
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        int slot = OLongHashing.hash(oldKeys[i]) & mask;
+        while (keys[slot] != 0)
+          slot = (slot + 1) & mask;
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(final int capacity) {
+    keys = new long[capacity];
+    values = new long[capacity];
+    mask = capacity - 1;
+    resizeThreshold = (int) (capacity * LOAD_FACTOR);
+  }
+}
@@ -103,6 +103,38 @@ public class OUnsafeByteArrayComparator implements Comparator<byte[]> {
     return 0;
   }
 
+  /**
+   * Compares parts of byte arrays in lexicographical order. Unlike {@link #compare(byte[], byte[])} lengths of parts are not
+   * compared first, so part which is prefix of the other one is smaller than the other one. Such order is used to compare keys
+   * which are converted in binary comparable form.
+   */
+  public int compareLexicographically(byte[] arrayOne, int offsetOne, int lengthOne, byte[] arrayTwo, int offsetTwo,
+      int lengthTwo) {
+    final int length = Math.min(lengthOne, lengthTwo);
+    final int WORDS = length / LONG_SIZE;
+
+    for (int i = 0; i < WORDS * LONG_SIZE; i += LONG_SIZE) {
+      final long wOne = unsafe.getLong(arrayOne, (long) (BYTE_ARRAY_OFFSET + offsetOne + i));
+      final long wTwo = unsafe.getLong(arrayTwo, (long) (BYTE_ARRAY_OFFSET + offsetTwo + i));
+
+      if (wOne == wTwo)
+        continue;
+
+      if (littleEndian)
+        return lessThanUnsigned(Long.reverseBytes(wOne), Long.reverseBytes(wTwo)) ? -1 : 1;
+
+      return lessThanUnsigned(wOne, wTwo) ? -1 : 1;
+    }
+
+    for (int i = WORDS * LONG_SIZE; i < length; i++) {
+      int diff = compareUnsignedByte(arrayOne[offsetOne + i], arrayTwo[offsetTwo + i]);
+      if (diff != 0)
+        return diff;
+    }
+
+    return lengthOne - lengthTwo;
+  }
+
   private static boolean lessThanUnsigned(long longOne, long longTwo) {
     return (longOne + Long.MIN_VALUE) < (longTwo + Long.MIN_VALUE);
   }
@@ -19,7 +19,9 @@
  */
 package com.orientechnologies.orient.core.cache;
 
+import com.orientechnologies.orient.core.hook.ORecordHook;
 import com.orientechnologies.orient.core.metadata.security.OSecurityUser;
+import com.orientechnologies.orient.core.record.ORecord;
 
 import java.util.Set;
 
@@ -92,6 +94,18 @@ public interface OCommandCache {
    */
   void invalidateResultsOfCluster(final String iCluster);
 
+  /**
+   * Invalidates the results affected by a record created, updated or deleted.
+   *
+   * @param iRecord
+   *          Record changed
+   * @param iCluster
+   *          Name of the cluster of the record
+   * @param iType
+   *          Type of change, one of AFTER_CREATE, AFTER_UPDATE and AFTER_DELETE
+   */
+  void invalidateResultsOfRecord(final ORecord iRecord, final String iCluster, final ORecordHook.TYPE iType);
+
   int getMaxResultsetSize();
 
   STRATEGY getEvictStrategy();
@@ -51,7 +51,7 @@ public class OCommandCacheHook extends ORecordHookAbstract implements ORecordHoo
     if (cmdCache == null)
       return;
 
-    invalidateCache(iRecord);
+    invalidateCache(iRecord, TYPE.AFTER_CREATE);
   }
 
   @Override
@@ -59,7 +59,7 @@ public class OCommandCacheHook extends ORecordHookAbstract implements ORecordHoo
     if (cmdCache == null)
       return;
 
-    invalidateCache(iRecord);
+    invalidateCache(iRecord, TYPE.AFTER_UPDATE);
   }
 
   @Override
@@ -67,14 +67,11 @@ public class OCommandCacheHook extends ORecordHookAbstract implements ORecordHoo
     if (cmdCache == null)
       return;
 
-    invalidateCache(iRecord);
+    invalidateCache(iRecord, TYPE.AFTER_DELETE);
   }
 
-  protected void invalidateCache(final ORecord iRecord) {
-    if (cmdCache.getEvictStrategy() == OCommandCacheSoftRefs.STRATEGY.PER_CLUSTER)
-      cmdCache.invalidateResultsOfCluster(database.getClusterNameById(iRecord.getIdentity().getClusterId()));
-    else
-      cmdCache.invalidateResultsOfCluster(null);
+  protected void invalidateCache(final ORecord iRecord, final TYPE iType) {
+    cmdCache.invalidateResultsOfRecord(iRecord, database.getClusterNameById(iRecord.getIdentity().getClusterId()), iType);
   }
 
   @Override
@@ -0,0 +1,440 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.cache;
+
+import com.orientechnologies.common.collection.OMultiValue;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.profiler.OProfiler;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.command.OBasicCommandContext;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.hook.ORecordHook;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.security.OSecurityUser;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandExecutorSQLSelect;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilter;
+import com.orientechnologies.orient.core.sql.query.OResultSet;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command cache implementation that invalidates only the results affected by a change. For every cached SELECT on classes, whose
+ * condition and projections only read fields of the browsed records, it keeps the WHERE condition and the identities of the
+ * returned records. A created record invalidates a result only if it satisfies the condition, an updated or deleted record only if
+ * it satisfies the condition or it was returned. Other results are invalidated by any change to their clusters, like the
+ * {@link OCommandCache.STRATEGY#PER_CLUSTER} strategy does.
+ * <p>
+ * The memory used by the results is limited to {@link OGlobalConfiguration#COMMAND_CACHE_MAX_SIZE} bytes, estimated on the
+ * serialized size of the records. The least recently used results are evicted first.
+ *
+ * @see OCommandCacheHook
+ */
+public class OCommandCachePredicateAware implements OCommandCache {
+  private static final int ENTRY_OVERHEAD = 64;
+
+  private static final class OCachedResult {
+    private final String      key;
+    private final Object      result;
+    private final long        size;
+    private final Set<String> involvedClusters;
+    private final boolean     predicateAware;
+    private final OSQLFilter  predicate;
+    private final Set<ORID>   identities;
+
+    private OCachedResult(final String key, final Object result, final long size, final Set<String> involvedClusters,
+        final boolean predicateAware, final OSQLFilter predicate, final Set<ORID> identities) {
+      this.key = key;
+      this.result = result;
+      this.size = size;
+      this.involvedClusters = involvedClusters;
+      this.predicateAware = predicateAware;
+      this.predicate = predicate;
+      this.identities = identities;
+    }
+  }
+
+  private final String                           databaseName;
+  private final Map<String, OCachedResult>       cache            = new LinkedHashMap<String, OCachedResult>(16, 0.75f, true);
+  private final Map<String, List<OCachedResult>> clusters         = new HashMap<String, List<OCachedResult>>();
+  private volatile boolean                       enable           = OGlobalConfiguration.COMMAND_CACHE_ENABLED.getValueAsBoolean();
+  private int                                    minExecutionTime = OGlobalConfiguration.COMMAND_CACHE_MIN_EXECUTION_TIME
+      .getValueAsInteger();
+  private int                                    maxResultsetSize = OGlobalConfiguration.COMMAND_CACHE_MAX_RESULSET_SIZE
+      .getValueAsInteger();
+  private long                                   maxSize          = OGlobalConfiguration.COMMAND_CACHE_MAX_SIZE.getValueAsLong();
+  private long                                   usedSize;
+
+  public OCommandCachePredicateAware(final String iDatabaseName) {
+    databaseName = iDatabaseName;
+  }
+
+  @Override
+  public void startup() {
+  }
+
+  @Override
+  public void shutdown() {
+    clear();
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enable;
+  }
+
+  @Override
+  public OCommandCachePredicateAware enable() {
+    enable = true;
+    return this;
+  }
+
+  @Override
+  public OCommandCachePredicateAware disable() {
+    enable = false;
+    clear();
+    return this;
+  }
+
+  @Override
+  public Object get(final OSecurityUser iUser, final String queryText, final int iLimit) {
+    if (!enable)
+      return null;
+
+    OCachedResult result;
+
+    synchronized (this) {
+      result = cache.get(getKey(iUser, queryText, iLimit));
+
+      if (result != null) {
+        // SERIALIZE ALL THE RECORDS IN LOCK TO AVOID CONCURRENT ACCESS. ONCE SERIALIZED CAN ARE THREAD-SAFE
+        if (result.result instanceof ORecord)
+          ((ORecord) result.result).toStream();
+        else if (OMultiValue.isMultiValue(result.result)) {
+          for (Object rc : OMultiValue.getMultiValueIterable(result.result)) {
+            if (rc instanceof ORecord)
+              ((ORecord) rc).toStream();
+          }
+        }
+      }
+    }
+
+    final OProfiler profiler = Orient.instance().getProfiler();
+    if (profiler.isRecording()) {
+      // UPDATE PROFILER
+      if (result != null)
+        profiler.updateCounter(profiler.getDatabaseMetric(databaseName, "queryCache.hit"), "Results returned by Query Cache", +1);
+      else
+        profiler.updateCounter(profiler.getDatabaseMetric(databaseName, "queryCache.miss"), "Results not returned by Query Cache",
+            +1);
+    }
+
+    return result != null ? result.result : null;
+  }
+
+  @Override
+  public void put(final OSecurityUser iUser, final String queryText, final Object iResult, final int iLimit,
+      final Set<String> iInvolvedClusters, final long iExecutionTime) {
+    if (queryText == null || iResult == null || iResult instanceof Iterator<?> || !enable)
+      // SKIP IT
+      return;
+
+    if (iExecutionTime < minExecutionTime)
+      // TOO FAST: AVOIDING CACHING IT
+      return;
+
+    if (iResult instanceof OResultSet && ((OResultSet) iResult).size() > maxResultsetSize)
+      // TOO BIG RESULTSET, SKIP IT
+      return;
+
+    final String key = getKey(iUser, queryText, iLimit);
+
+    final long size = key.length() * 2 + getSize(iResult);
+    if (size > maxSize)
+      return;
+
+    // PARSE THE QUERY AGAIN: THE CONDITION OF THE EXECUTED QUERY HAS BEEN CHANGED IF INDEXES HAVE BEEN USED
+    final OCommandExecutorSQLSelect select = parseSelect(queryText);
+    final boolean predicateAware = select != null && select.dependsOnlyOnTargetRecords();
+
+    final OCachedResult value = new OCachedResult(key, iResult, size, iInvolvedClusters, predicateAware,
+        predicateAware ? select.getCompiledFilter() : null, predicateAware ? getIdentities(iResult) : null);
+
+    synchronized (this) {
+      final OCachedResult old = cache.remove(key);
+      if (old != null)
+        unregister(old);
+
+      if (OLogManager.instance().isDebugEnabled())
+        OLogManager.instance().debug(this, "Storing resultset in cache size=%d bytes, predicate aware=%s", size, predicateAware);
+
+      cache.put(key, value);
+      usedSize += size;
+
+      if (iInvolvedClusters == null || iInvolvedClusters.isEmpty())
+        register(null, value);
+      else
+        for (String cluster : iInvolvedClusters)
+          register(cluster.toLowerCase(), value);
+
+      // EVICT THE LEAST RECENTLY USED RESULTS
+      for (Iterator<OCachedResult> it = cache.values().iterator(); usedSize > maxSize && it.hasNext();) {
+        final OCachedResult eldest = it.next();
+        it.remove();
+        unregister(eldest);
+      }
+    }
+  }
+
+  @Override
+  public void remove(final OSecurityUser iUser, final String queryText, final int iLimit) {
+    if (!enable)
+      return;
+
+    synchronized (this) {
+      final OCachedResult old = cache.remove(getKey(iUser, queryText, iLimit));
+      if (old != null)
+        unregister(old);
+    }
+  }
+
+  @Override
+  public OCommandCachePredicateAware clear() {
+    synchronized (this) {
+      cache.clear();
+      clusters.clear();
+      usedSize = 0;
+    }
+    return this;
+  }
+
+  @Override
+  public int size() {
+    synchronized (this) {
+      return cache.size();
+    }
+  }
+
+  @Override
+  public void invalidateResultsOfCluster(final String iCluster) {
+    if (!enable)
+      return;
+
+    synchronized (this) {
+      if (cache.isEmpty())
+        return;
+
+      if (iCluster == null) {
+        clear();
+        return;
+      }
+
+      evict(clusters.get(null), null, null, null);
+      evict(clusters.get(iCluster.toLowerCase()), null, null, null);
+    }
+  }
+
+  @Override
+  public void invalidateResultsOfRecord(final ORecord iRecord, final String iCluster, final ORecordHook.TYPE iType) {
+    if (!enable)
+      return;
+
+    synchronized (this) {
+      if (cache.isEmpty())
+        return;
+
+      evict(clusters.get(null), null, null, null);
+      if (iCluster != null)
+        evict(clusters.get(iCluster.toLowerCase()), iRecord, iType, new OBasicCommandContext());
+    }
+  }
+
+  @Override
+  public int getMaxResultsetSize() {
+    return maxResultsetSize;
+  }
+
+  public OCommandCachePredicateAware setMaxResultsetSize(final int maxResultsetSize) {
+    this.maxResultsetSize = maxResultsetSize;
+    return this;
+  }
+
+  public int getMinExecutionTime() {
+    return minExecutionTime;
+  }
+
+  public OCommandCachePredicateAware setMinExecutionTime(final int minExecutionTime) {
+    this.minExecutionTime = minExecutionTime;
+    return this;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public OCommandCachePredicateAware setMaxSize(final long maxSize) {
+    this.maxSize = maxSize;
+    return this;
+  }
+
+  /**
+   * Returns the estimated size in bytes of the cached results.
+   */
+  public synchronized long getUsedSize() {
+    return usedSize;
+  }
+
+  @Override
+  public STRATEGY getEvictStrategy() {
+    return STRATEGY.PER_CLUSTER;
+  }
+
+  protected String getKey(final OSecurityUser iUser, final String queryText, final int iLimit) {
+    if (iUser == null)
+      return "<nouser>." + queryText + "." + iLimit;
+
+    return iUser + "." + queryText + "." + iLimit;
+  }
+
+  private void evict(final List<OCachedResult> results, final ORecord iRecord, final ORecordHook.TYPE iType,
+      final OBasicCommandContext iContext) {
+    if (results == null)
+      return;
+
+    int evicted = 0;
+    for (OCachedResult result : new ArrayList<OCachedResult>(results)) {
+      if (iRecord == null || isAffected(result, iRecord, iType, iContext)) {
+        cache.remove(result.key);
+        unregister(result);
+        evicted++;
+      }
+    }
+
+    if (evicted > 0 && OLogManager.instance().isDebugEnabled())
+      OLogManager.instance().debug(this, "Invalidated %d cached results", evicted);
+  }
+
+  private boolean isAffected(final OCachedResult result, final ORecord iRecord, final ORecordHook.TYPE iType,
+      final OBasicCommandContext iContext) {
+    if (!result.predicateAware || !(iRecord instanceof ODocument))
+      return true;
+
+    if (iType != ORecordHook.TYPE.AFTER_CREATE && (result.identities == null || result.identities
+        .contains(iRecord.getIdentity())))
+      // THE RECORD COULD BE PART OF THE RESULT
+      return true;
+
+    if (result.predicate == null || result.predicate.getRootCondition() == null)
+      return true;
+
+    try {
+      return !Boolean.FALSE.equals(result.predicate.evaluate(iRecord, (ODocument) iRecord, iContext));
+    } catch (Exception e) {
+      OLogManager.instance().debug(this, "Error on evaluating the condition of a cached result, the result is invalidated", e);
+      return true;
+    }
+  }
+
+  private void register(final String iCluster, final OCachedResult result) {
+    List<OCachedResult> results = clusters.get(iCluster);
+    if (results == null) {
+      results = new ArrayList<OCachedResult>();
+      clusters.put(iCluster, results);
+    }
+    results.add(result);
+  }
+
+  private void unregister(final OCachedResult result) {
+    usedSize -= result.size;
+
+    if (result.involvedClusters == null || result.involvedClusters.isEmpty())
+      unregister(null, result);
+    else
+      for (String cluster : result.involvedClusters)
+        unregister(cluster.toLowerCase(), result);
+  }
+
+  private void unregister(final String iCluster, final OCachedResult result) {
+    final List<OCachedResult> results = clusters.get(iCluster);
+    if (results != null) {
+      results.remove(result);
+      if (results.isEmpty())
+        clusters.remove(iCluster);
+    }
+  }
+
+  private static OCommandExecutorSQLSelect parseSelect(final String queryText) {
+    final String text = queryText.trim();
+    if (!text.regionMatches(true, 0, OCommandExecutorSQLSelect.KEYWORD_SELECT + " ", 0,
+        OCommandExecutorSQLSelect.KEYWORD_SELECT.length() + 1))
+      return null;
+
+    try {
+      final OCommandExecutorSQLSelect select = new OCommandExecutorSQLSelect();
+      select.setContext(new OBasicCommandContext());
+      select.parse(new OSQLSynchQuery<Object>(text));
+      return select;
+    } catch (Exception e) {
+      OLogManager.instance().debug(OCommandCachePredicateAware.class, "Cannot parse the cached query '%s'", e, text);
+      return null;
+    }
+  }
+
+  private static Set<ORID> getIdentities(final Object iResult) {
+    final Set<ORID> identities = new HashSet<ORID>();
+
+    for (Object o : OMultiValue.getMultiValueIterable(iResult)) {
+      if (!(o instanceof OIdentifiable))
+        return null;
+
+      final ORID identity = ((OIdentifiable) o).getIdentity();
+      if (!identity.isPersistent())
+        // PROJECTIONS: THE RECORDS OF THE RESULT ARE NOT KNOWN
+        return null;
+
+      identities.add(identity);
+    }
+
+    return identities;
+  }
+
+  private static long getSize(final Object iResult) {
+    long size = ENTRY_OVERHEAD;
+
+    for (Object o : OMultiValue.getMultiValueIterable(iResult)) {
+      size += ENTRY_OVERHEAD;
+      if (o instanceof ORecord)
+        size += ((ORecord) o).toStream().length;
+    }
+
+    return size;
+  }
+}
@@ -28,6 +28,7 @@ import com.orientechnologies.common.profiler.OProfiler;
 import com.orientechnologies.orient.core.Orient;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.exception.OConfigurationException;
+import com.orientechnologies.orient.core.hook.ORecordHook;
 import com.orientechnologies.orient.core.metadata.security.OSecurityUser;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.impl.ODocument;
@@ -386,6 +387,11 @@ public class OCommandCacheSoftRefs implements OCommandCache {
     }
   }
 
+  @Override
+  public void invalidateResultsOfRecord(final ORecord iRecord, final String iCluster, final ORecordHook.TYPE iType) {
+    invalidateResultsOfCluster(evictStrategy == STRATEGY.PER_CLUSTER ? iCluster : null);
+  }
+
   public int getMinExecutionTime() {
     return minExecutionTime;
   }
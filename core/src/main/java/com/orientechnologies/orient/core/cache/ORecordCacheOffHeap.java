@@ -0,0 +1,476 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.cache;
+
+import com.orientechnologies.common.directmemory.OByteBufferPool;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.ORecordSerializerBinary;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Local record cache which keeps serialized content of documents out of heap. Records which are still referenced by application
+ * are returned as the same instances by weak references, so identity of records inside of session is preserved. Once record
+ * instance is collected by GC it is restored from its serialized content which is read by {@link ORecordSerializerBinary} lazily
+ * when fields of document are accessed.
+ * <p>
+ * Serialized records are indexed by (cluster id, cluster position) pair packed into single <code>long</code> key and are stored in
+ * slabs which are acquired from {@link OByteBufferPool}. Amount of slabs is limited by
+ * {@link OGlobalConfiguration#CACHE_LOCAL_OFFHEAP_SIZE}, if all of them are filled the whole slab is evicted using clock
+ * algorithm, slabs which were read since last pass of clock hand get second chance.
+ *
+ * @see OGlobalConfiguration#CACHE_LOCAL_IMPL
+ */
+public class ORecordCacheOffHeap extends ORecordCacheWeakRefs {
+  private static final int  CLUSTER_ID_BITS = 16;
+  private static final int  POSITION_BITS   = Long.SIZE - CLUSTER_ID_BITS;
+  private static final long MAX_POSITION    = (1L << POSITION_BITS) - 1;
+  private static final int  MAX_CLUSTER_ID  = (1 << CLUSTER_ID_BITS) - 1;
+  private static final int  INITIAL_ENTRIES = 1024;
+  private static final int  NO_SLAB         = -1;
+
+  private final OByteBufferPool bufferPool;
+  private final int             slabSize;
+  private final int             maxSlabs;
+
+  // slabs
+  private ByteBuffer[] slabs;
+  private int[]        slabWritePosition;
+  private int[]        slabLiveBytes;
+  private boolean[]    slabReferenced;
+  private int          slabsCount;
+  private int          currentSlab = NO_SLAB;
+  private int          clockHand;
+
+  // entries, index of entry is stored in hash table
+  private long[] entryKey;
+  private int[]  entrySlab;
+  private int[]  entryOffset;
+  private int[]  entryLength;
+  private int[]  entryVersion;
+  private int[]  freeEntries;
+  private int    freeEntriesCount;
+  private int    entriesCount;
+  private int    entriesSize;
+
+  // open addressing hash table with linear probing, value is index of entry plus one, zero marks empty bucket
+  private long[] tableKeys;
+  private int[]  tableValues;
+
+  public ORecordCacheOffHeap() {
+    this(OByteBufferPool.instance(), OGlobalConfiguration.CACHE_LOCAL_OFFHEAP_SIZE.getValueAsLong() * 1024 * 1024);
+  }
+
+  public ORecordCacheOffHeap(OByteBufferPool bufferPool, long maxMemory) {
+    this.bufferPool = bufferPool;
+    this.slabSize = bufferPool.getBufferSize();
+    this.maxSlabs = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxMemory / slabSize));
+
+    initSlabs();
+    initEntries();
+  }
+
+  @Override
+  public ORecord get(final ORID rid) {
+    if (!isEnabled())
+      return null;
+
+    final ORecord record = super.get(rid);
+    if (record != null)
+      return record;
+
+    final int entry = findEntry(rid);
+    if (entry < 0)
+      return null;
+
+    final byte[] content = new byte[entryLength[entry]];
+    final ByteBuffer slab = slabs[entrySlab[entry]];
+    slab.position(entryOffset[entry]);
+    slab.get(content);
+
+    slabReferenced[entrySlab[entry]] = true;
+
+    final ODocument document = new ODocument();
+    ORecordInternal.fill(document, rid, entryVersion[entry], content, false);
+    ORecordInternal.setRecordSerializer(document, ORecordSerializerBinary.INSTANCE);
+
+    super.put(document);
+    return document;
+  }
+
+  @Override
+  public ORecord put(final ORecord record) {
+    if (!isEnabled())
+      return null;
+
+    final ORecord previous = super.put(record);
+
+    final ORID rid = record.getIdentity();
+    if (!isPackable(rid))
+      return previous;
+
+    final long key = pack(rid);
+    removeEntry(key);
+
+    if (isStorable(record)) {
+      final byte[] content = record.toStream();
+      if (content != null && content.length > 0 && content.length <= slabSize)
+        addEntry(key, record.getVersion(), content);
+    }
+
+    return previous;
+  }
+
+  @Override
+  public ORecord remove(final ORID rid) {
+    if (!isEnabled())
+      return null;
+
+    if (isPackable(rid))
+      removeEntry(pack(rid));
+
+    return super.remove(rid);
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+
+    for (int i = 0; i < slabsCount; i++) {
+      slabWritePosition[i] = 0;
+      slabLiveBytes[i] = 0;
+      slabReferenced[i] = false;
+    }
+
+    currentSlab = NO_SLAB;
+    initEntries();
+  }
+
+  @Override
+  public void shutdown() {
+    super.shutdown();
+
+    for (int i = 0; i < slabsCount; i++) {
+      slabs[i].position(0);
+      bufferPool.release(slabs[i]);
+    }
+
+    initSlabs();
+    initEntries();
+  }
+
+  @Override
+  public int size() {
+    return keys().size();
+  }
+
+  @Override
+  public Collection<ORID> keys() {
+    final Set<ORID> keys = new HashSet<ORID>(super.keys());
+
+    for (int i = 0; i < entriesSize; i++) {
+      if (entrySlab[i] != NO_SLAB)
+        keys.add(unpack(entryKey[i]));
+    }
+
+    return keys;
+  }
+
+  /**
+   * @return Amount of records which content is stored out of heap.
+   */
+  public int getOffHeapSize() {
+    return entriesCount;
+  }
+
+  /**
+   * @return Amount of off-heap memory acquired by cache in bytes.
+   */
+  public long getOffHeapMemory() {
+    return (long) slabsCount * slabSize;
+  }
+
+  private static boolean isPackable(ORID rid) {
+    final int clusterId = rid.getClusterId();
+    final long clusterPosition = rid.getClusterPosition();
+
+    return clusterId >= 0 && clusterId <= MAX_CLUSTER_ID && clusterPosition >= 0 && clusterPosition <= MAX_POSITION;
+  }
+
+  private static long pack(ORID rid) {
+    return ((long) rid.getClusterId() << POSITION_BITS) | rid.getClusterPosition();
+  }
+
+  private static ORID unpack(long key) {
+    return new ORecordId((int) (key >>> POSITION_BITS), key & MAX_POSITION);
+  }
+
+  /**
+   * Only documents serialized by {@link ORecordSerializerBinary} are stored out of heap, so their serialized content can be reused
+   * without additional serialization.
+   */
+  private static boolean isStorable(ORecord record) {
+    if (!(record instanceof ODocument) || record.getClass() != ODocument.class || record.isDirty())
+      return false;
+
+    final ODatabaseDocumentInternal database = ODatabaseRecordThreadLocal.INSTANCE.getIfDefined();
+    return database != null && database.getSerializer() instanceof ORecordSerializerBinary;
+  }
+
+  private void initSlabs() {
+    final int capacity = Math.min(maxSlabs, 16);
+
+    slabs = new ByteBuffer[capacity];
+    slabWritePosition = new int[capacity];
+    slabLiveBytes = new int[capacity];
+    slabReferenced = new boolean[capacity];
+    slabsCount = 0;
+    currentSlab = NO_SLAB;
+    clockHand = 0;
+  }
+
+  private void initEntries() {
+    entryKey = new long[INITIAL_ENTRIES];
+    entrySlab = new int[INITIAL_ENTRIES];
+    entryOffset = new int[INITIAL_ENTRIES];
+    entryLength = new int[INITIAL_ENTRIES];
+    entryVersion = new int[INITIAL_ENTRIES];
+    freeEntries = new int[INITIAL_ENTRIES];
+    freeEntriesCount = 0;
+    entriesCount = 0;
+    entriesSize = 0;
+
+    tableKeys = new long[2 * INITIAL_ENTRIES];
+    tableValues = new int[2 * INITIAL_ENTRIES];
+  }
+
+  private int findEntry(ORID rid) {
+    if (!isPackable(rid))
+      return -1;
+
+    final long key = pack(rid);
+    final int mask = tableKeys.length - 1;
+
+    int bucket = hash(key) & mask;
+    while (tableValues[bucket] != 0) {
+      if (tableKeys[bucket] == key)
+        return tableValues[bucket] - 1;
+
+      bucket = (bucket + 1) & mask;
+    }
+
+    return -1;
+  }
+
+  private void addEntry(long key, int version, byte[] content) {
+    final int slab = allocate(content.length);
+    final int offset = slabWritePosition[slab];
+
+    final ByteBuffer buffer = slabs[slab];
+    buffer.position(offset);
+    buffer.put(content);
+
+    slabWritePosition[slab] += content.length;
+    slabLiveBytes[slab] += content.length;
+
+    final int entry = newEntry();
+    entryKey[entry] = key;
+    entrySlab[entry] = slab;
+    entryOffset[entry] = offset;
+    entryLength[entry] = content.length;
+    entryVersion[entry] = version;
+    entriesCount++;
+
+    if (2 * entriesCount > tableKeys.length)
+      resizeTable(2 * tableKeys.length);
+
+    final int mask = tableKeys.length - 1;
+    int bucket = hash(key) & mask;
+    while (tableValues[bucket] != 0)
+      bucket = (bucket + 1) & mask;
+
+    tableKeys[bucket] = key;
+    tableValues[bucket] = entry + 1;
+  }
+
+  private void removeEntry(long key) {
+    final int mask = tableKeys.length - 1;
+
+    int bucket = hash(key) & mask;
+    while (tableValues[bucket] != 0) {
+      if (tableKeys[bucket] == key) {
+        freeEntry(tableValues[bucket] - 1);
+        deleteBucket(bucket);
+        return;
+      }
+
+      bucket = (bucket + 1) & mask;
+    }
+  }
+
+  /**
+   * Removes bucket from hash table shifting back buckets of the same cluster of collisions, so no tombstones are needed.
+   */
+  private void deleteBucket(int bucket) {
+    final int mask = tableKeys.length - 1;
+
+    int hole = bucket;
+    int next = (hole + 1) & mask;
+    while (tableValues[next] != 0) {
+      final int home = hash(tableKeys[next]) & mask;
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        tableKeys[hole] = tableKeys[next];
+        tableValues[hole] = tableValues[next];
+        hole = next;
+      }
+
+      next = (next + 1) & mask;
+    }
+
+    tableValues[hole] = 0;
+  }
+
+  private void resizeTable(int newCapacity) {
+    final long[] oldKeys = tableKeys;
+    final int[] oldValues = tableValues;
+
+    tableKeys = new long[newCapacity];
+    tableValues = new int[newCapacity];
+
+    final int mask = newCapacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] == 0)
+        continue;
+
+      int bucket = hash(oldKeys[i]) & mask;
+      while (tableValues[bucket] != 0)
+        bucket = (bucket + 1) & mask;
+
+      tableKeys[bucket] = oldKeys[i];
+      tableValues[bucket] = oldValues[i];
+    }
+  }
+
+  private int newEntry() {
+    if (freeEntriesCount > 0)
+      return freeEntries[--freeEntriesCount];
+
+    if (entriesSize == entryKey.length) {
+      final int newLength = entryKey.length << 1;
+
+      entryKey = Arrays.copyOf(entryKey, newLength);
+      entrySlab = Arrays.copyOf(entrySlab, newLength);
+      entryOffset = Arrays.copyOf(entryOffset, newLength);
+      entryLength = Arrays.copyOf(entryLength, newLength);
+      entryVersion = Arrays.copyOf(entryVersion, newLength);
+      freeEntries = Arrays.copyOf(freeEntries, newLength);
+    }
+
+    return entriesSize++;
+  }
+
+  private void freeEntry(int entry) {
+    final int slab = entrySlab[entry];
+
+    slabLiveBytes[slab] -= entryLength[entry];
+    if (slabLiveBytes[slab] == 0)
+      slabWritePosition[slab] = 0;
+
+    entrySlab[entry] = NO_SLAB;
+    freeEntries[freeEntriesCount++] = entry;
+    entriesCount--;
+  }
+
+  /**
+   * @return Index of slab which has enough free space to store content of given length.
+   */
+  private int allocate(int length) {
+    if (currentSlab != NO_SLAB && slabSize - slabWritePosition[currentSlab] >= length)
+      return currentSlab;
+
+    if (slabsCount < maxSlabs) {
+      if (slabsCount == slabs.length) {
+        final int newLength = Math.min(maxSlabs, slabs.length << 1);
+
+        slabs = Arrays.copyOf(slabs, newLength);
+        slabWritePosition = Arrays.copyOf(slabWritePosition, newLength);
+        slabLiveBytes = Arrays.copyOf(slabLiveBytes, newLength);
+        slabReferenced = Arrays.copyOf(slabReferenced, newLength);
+      }
+
+      slabs[slabsCount] = bufferPool.acquireDirect(false);
+      currentSlab = slabsCount;
+      slabsCount++;
+
+      return currentSlab;
+    }
+
+    while (true) {
+      final int slab = clockHand;
+      clockHand = (clockHand + 1) % slabsCount;
+
+      // the most recently filled slab is evicted only if there are no other slabs
+      if (slab == currentSlab && slabsCount > 1)
+        continue;
+
+      if (slabWritePosition[slab] == 0) {
+        currentSlab = slab;
+        return slab;
+      }
+
+      if (slabReferenced[slab]) {
+        slabReferenced[slab] = false;
+        continue;
+      }
+
+      evictSlab(slab);
+
+      currentSlab = slab;
+      return slab;
+    }
+  }
+
+  private void evictSlab(int slab) {
+    for (int i = 0; i < entriesSize && slabLiveBytes[slab] > 0; i++) {
+      if (entrySlab[i] == slab)
+        removeEntry(entryKey[i]);
+    }
+
+    slabWritePosition[slab] = 0;
+    slabReferenced[slab] = false;
+  }
+
+  private static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
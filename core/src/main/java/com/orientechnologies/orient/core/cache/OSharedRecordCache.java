@@ -0,0 +1,281 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.cache;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.storage.ORawBuffer;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Second level record cache which is shared by all sessions opened on the same storage. Cache keeps content of records as it is
+ * stored in clusters, so records are still deserialized by each session but are not read from storage again. Size of cache is
+ * limited by amount of memory occupied by content of records, least recently used records are evicted once limit is reached.
+ * <p>
+ * Storage has to call {@link #invalidate(ORID)} once new version of record becomes visible for other threads. Because record may
+ * be read from cluster concurrently with its update, record is cached only if it was not invalidated after the moment when
+ * {@link #stamp(ORID)} was taken for it, so stale content is never put back into the cache.
+ *
+ * @see OGlobalConfiguration#STORAGE_RECORD_CACHE_SIZE
+ */
+public class OSharedRecordCache {
+  /**
+   * Approximate amount of memory occupied by cache entry in addition to content of record.
+   */
+  private static final int ENTRY_OVERHEAD = 96;
+
+  private final Segment[] segments;
+  private final int       segmentMask;
+  private final long      maxMemory;
+
+  private final AtomicLong hits      = new AtomicLong();
+  private final AtomicLong misses    = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * @param maxMemory Maximum amount of memory in bytes which is occupied by cached records.
+   */
+  public OSharedRecordCache(long maxMemory) {
+    this.maxMemory = maxMemory;
+
+    int segmentsCount = 1;
+    while (segmentsCount < Runtime.getRuntime().availableProcessors() * 4)
+      segmentsCount <<= 1;
+
+    segments = new Segment[segmentsCount];
+    segmentMask = segmentsCount - 1;
+
+    for (int i = 0; i < segmentsCount; i++)
+      segments[i] = new Segment(Math.max(maxMemory / segmentsCount, 1));
+  }
+
+  /**
+   * @return Copy of cached content of record or <code>null</code> if record is absent in cache.
+   */
+  public ORawBuffer get(ORID rid) {
+    final ORawBuffer buffer = segment(rid).get(rid);
+
+    if (buffer == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+
+    hits.incrementAndGet();
+    return buffer;
+  }
+
+  /**
+   * Has to be called before record is read from cluster.
+   *
+   * @return Stamp which should be passed to {@link #put(ORID, ORawBuffer, long)} once record is read.
+   */
+  public long stamp(ORID rid) {
+    return segment(rid).stamp();
+  }
+
+  /**
+   * Puts content of record into the cache if record was not invalidated since passed in stamp was taken.
+   */
+  public void put(ORID rid, ORawBuffer buffer, long stamp) {
+    if (buffer == null || buffer.buffer == null)
+      return;
+
+    evictions.addAndGet(segment(rid).put(rid, buffer, stamp));
+  }
+
+  /**
+   * Removes record from the cache. Has to be called after new version of record is committed.
+   */
+  public void invalidate(ORID rid) {
+    segment(rid).invalidate(rid);
+  }
+
+  /**
+   * Removes all records of given cluster, used when cluster is truncated or dropped.
+   */
+  public void invalidateCluster(int clusterId) {
+    for (Segment segment : segments)
+      segment.invalidateCluster(clusterId);
+  }
+
+  public void clear() {
+    for (Segment segment : segments)
+      segment.clear();
+  }
+
+  public long getMaxMemory() {
+    return maxMemory;
+  }
+
+  public long getMemory() {
+    long memory = 0;
+    for (Segment segment : segments)
+      memory += segment.getMemory();
+
+    return memory;
+  }
+
+  public int getSize() {
+    int size = 0;
+    for (Segment segment : segments)
+      size += segment.getSize();
+
+    return size;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  private Segment segment(ORID rid) {
+    int hash = rid.hashCode();
+    hash ^= (hash >>> 20) ^ (hash >>> 12);
+    hash ^= (hash >>> 7) ^ (hash >>> 4);
+
+    return segments[hash & segmentMask];
+  }
+
+  private static final class Entry {
+    private final byte[] content;
+    private final int    version;
+    private final byte   recordType;
+
+    private Entry(byte[] content, int version, byte recordType) {
+      this.content = content;
+      this.version = version;
+      this.recordType = recordType;
+    }
+
+    private long size() {
+      return content.length + ENTRY_OVERHEAD;
+    }
+  }
+
+  private static final class Segment {
+    private final LinkedHashMap<ORID, Entry> entries = new LinkedHashMap<ORID, Entry>(16, 0.75f, true);
+    private final long maxMemory;
+
+    private long memory;
+    private long invalidations;
+
+    private Segment(long maxMemory) {
+      this.maxMemory = maxMemory;
+    }
+
+    private synchronized ORawBuffer get(ORID rid) {
+      final Entry entry = entries.get(rid);
+      if (entry == null)
+        return null;
+
+      // content is copied because records may change their content in place
+      return new ORawBuffer(copy(entry.content), entry.version, entry.recordType);
+    }
+
+    private synchronized long stamp() {
+      return invalidations;
+    }
+
+    private synchronized int put(ORID rid, ORawBuffer buffer, long stamp) {
+      if (stamp != invalidations)
+        return 0;
+
+      final Entry entry = new Entry(copy(buffer.buffer), buffer.version, buffer.recordType);
+      if (entry.size() > maxMemory / 4)
+        return 0;
+
+      final Entry oldEntry = entries.get(rid);
+      if (oldEntry != null) {
+        if (oldEntry.version >= entry.version)
+          return 0;
+
+        memory -= oldEntry.size();
+      }
+
+      entries.put(rid.copy(), entry);
+      memory += entry.size();
+
+      int evicted = 0;
+      final Iterator<Map.Entry<ORID, Entry>> iterator = entries.entrySet().iterator();
+      while (memory > maxMemory && iterator.hasNext()) {
+        final Map.Entry<ORID, Entry> eldest = iterator.next();
+        memory -= eldest.getValue().size();
+        iterator.remove();
+        evicted++;
+      }
+
+      return evicted;
+    }
+
+    private synchronized void invalidate(ORID rid) {
+      invalidations++;
+
+      final Entry entry = entries.remove(rid);
+      if (entry != null)
+        memory -= entry.size();
+    }
+
+    private synchronized void invalidateCluster(int clusterId) {
+      invalidations++;
+
+      final Iterator<Map.Entry<ORID, Entry>> iterator = entries.entrySet().iterator();
+      while (iterator.hasNext()) {
+        final Map.Entry<ORID, Entry> entry = iterator.next();
+        if (entry.getKey().getClusterId() == clusterId) {
+          memory -= entry.getValue().size();
+          iterator.remove();
+        }
+      }
+    }
+
+    private synchronized void clear() {
+      invalidations++;
+
+      entries.clear();
+      memory = 0;
+    }
+
+    private synchronized long getMemory() {
+      return memory;
+    }
+
+    private synchronized int getSize() {
+      return entries.size();
+    }
+
+    private static byte[] copy(byte[] content) {
+      final byte[] result = new byte[content.length];
+      System.arraycopy(content, 0, result, 0, content.length);
+      return result;
+    }
+  }
+}
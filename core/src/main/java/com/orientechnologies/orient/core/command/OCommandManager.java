@@ -28,6 +28,7 @@ import com.orientechnologies.orient.core.sql.*;
 import com.orientechnologies.orient.core.sql.query.OLiveQuery;
 import com.orientechnologies.orient.core.sql.query.OSQLAsynchQuery;
 import com.orientechnologies.orient.core.sql.query.OSQLNonBlockingQuery;
+import com.orientechnologies.orient.core.sql.query.OSQLPreparedQuery;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 
 import java.util.HashMap;
@@ -45,6 +46,7 @@ public class OCommandManager {
 
     registerExecutor(OSQLAsynchQuery.class, OCommandExecutorSQLDelegate.class);
     registerExecutor(OSQLSynchQuery.class, OCommandExecutorSQLDelegate.class);
+    registerExecutor(OSQLPreparedQuery.class, OCommandExecutorSQLDelegate.class);
     registerExecutor(OSQLNonBlockingQuery.class, OCommandExecutorSQLDelegate.class);
     registerExecutor(OLiveQuery.class, OCommandExecutorSQLLiveSelect.class);
     registerExecutor(OCommandSQL.class, OCommandExecutorSQLDelegate.class);
@@ -19,17 +19,20 @@
  */
 package com.orientechnologies.orient.core.command.traverse;
 
+import com.orientechnologies.common.collection.OLongHashSet;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.core.command.OBasicCommandContext;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.impl.ODocumentHelper;
 
 import java.util.*;
 
 public class OTraverseContext extends OBasicCommandContext {
-  private Memory    memory  = new StackMemory();
-  private Set<ORID> history = new HashSet<ORID>();
+  private Memory       memory  = new StackMemory();
+  // PACKED RIDS, SEE ORecordId.toLong()
+  private OLongHashSet history = new OLongHashSet();
 
   private OTraverseAbstractProcess<?> currentProcess;
 
@@ -62,7 +65,7 @@ public class OTraverseContext extends OBasicCommandContext {
       }
       return result;
     } else if (name.startsWith("HISTORY"))
-      return ODocumentHelper.getFieldValue(history, iName.substring("HISTORY".length()));
+      return ODocumentHelper.getFieldValue(getHistory(), iName.substring("HISTORY".length()));
     else
       // DELEGATE
       return super.getVariable(iName);
@@ -71,7 +74,7 @@ public class OTraverseContext extends OBasicCommandContext {
   public void pop(final OIdentifiable currentRecord) {
     if (currentRecord != null) {
       final ORID rid = currentRecord.getIdentity();
-      if (!history.remove(rid))
+      if (!history.remove(ORecordId.toLong(rid)))
         OLogManager.instance().warn(this, "Element '" + rid + "' not found in traverse history");
     }
 
@@ -96,7 +99,7 @@ public class OTraverseContext extends OBasicCommandContext {
   }
 
   public boolean isAlreadyTraversed(final OIdentifiable identity, final int iLevel) {
-    if (history.contains(identity.getIdentity()))
+    if (history.contains(ORecordId.toLong(identity.getIdentity())))
       return true;
 
     // final int[] l = history.get(identity.getIdentity());
@@ -111,7 +114,7 @@ public class OTraverseContext extends OBasicCommandContext {
   }
 
   public void addTraversed(final OIdentifiable identity, final int iLevel) {
-    history.add(identity.getIdentity());
+    history.add(ORecordId.toLong(identity.getIdentity()));
 
     // final int[] l = history.get(identity.getIdentity());
     // if (l == null) {
@@ -137,6 +140,16 @@ public class OTraverseContext extends OBasicCommandContext {
     // }
   }
 
+  /**
+   * @return a copy of the traversed record ids, built on demand for the $history variable
+   */
+  private Set<ORID> getHistory() {
+    final Set<ORID> result = new HashSet<ORID>(history.size());
+    for (long rid : history.toArray())
+      result.add(ORecordId.fromLong(rid));
+    return result;
+  }
+
   public String getPath() {
     return currentProcess == null ? "" : currentProcess.getPath().toString();
   }
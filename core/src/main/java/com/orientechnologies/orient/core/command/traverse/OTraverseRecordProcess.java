@@ -20,8 +20,12 @@
 package com.orientechnologies.orient.core.command.traverse;
 
 import com.orientechnologies.common.collection.OMultiValue;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.db.record.ORecordLazyMultiValue;
+import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.impl.ODocument;
@@ -33,8 +37,10 @@ import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemFieldAny;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 public class OTraverseRecordProcess extends OTraverseAbstractProcess<OIdentifiable> {
   private final OTraversePath path;
@@ -148,7 +154,7 @@ public class OTraverseRecordProcess extends OTraverseAbstractProcess<OIdentifiab
           else
             coll = OMultiValue.getMultiValueIterator(fieldValue, false);
 
-          subProcess = new OTraverseMultiValueProcess(command, (Iterator<Object>) coll, getPath().appendField(field.toString()));
+          subProcess = new OTraverseMultiValueProcess(command, prefetch(coll), getPath().appendField(field.toString()));
         } else if (fieldValue instanceof OIdentifiable && ((OIdentifiable) fieldValue).getRecord() instanceof ODocument) {
           subProcess = new OTraverseRecordProcess(command, (ODocument) ((OIdentifiable) fieldValue).getRecord(), getPath()
               .appendField(field.toString()));
@@ -160,6 +166,33 @@ public class OTraverseRecordProcess extends OTraverseAbstractProcess<OIdentifiab
     }
   }
 
+  /**
+   * Loads in one batch the records of the collection which have not been loaded nor traversed yet, so the storage reads them
+   * sorted by position instead of one at a time while the collection is traversed. They are kept by the local cache.
+   *
+   * @return an iterator over the same items
+   */
+  private Iterator<Object> prefetch(final Iterator<?> iterator) {
+    final List<Object> items = new ArrayList<Object>();
+    final Set<ORecordId> toLoad = new HashSet<ORecordId>();
+    while (iterator.hasNext()) {
+      final Object item = iterator.next();
+      items.add(item);
+
+      if (item instanceof ORecordId && ((ORecordId) item).isPersistent()
+          && !command.getContext().isAlreadyTraversed((ORecordId) item, path.getDepth() + 1))
+        toLoad.add((ORecordId) item);
+    }
+
+    if (toLoad.size() > 1) {
+      final ODatabaseDocumentInternal db = ODatabaseRecordThreadLocal.INSTANCE.getIfDefined();
+      if (db instanceof ODatabaseDocumentTx)
+        ((ODatabaseDocumentTx) db).executeReadRecords(toLoad, false);
+    }
+
+    return items.iterator();
+  }
+
   @Override
   public String toString() {
     return target != null ? target.getIdentity().toString() : "-";
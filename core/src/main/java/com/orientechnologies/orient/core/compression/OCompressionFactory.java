@@ -24,6 +24,7 @@ import com.orientechnologies.common.exception.OException;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.core.compression.impl.OGZIPCompression;
 import com.orientechnologies.orient.core.compression.impl.OHighZIPCompression;
+import com.orientechnologies.orient.core.compression.impl.OLZ4Compression;
 import com.orientechnologies.orient.core.compression.impl.OLowZIPCompression;
 import com.orientechnologies.orient.core.compression.impl.ONothingCompression;
 import com.orientechnologies.orient.core.compression.impl.OSnappyCompression;
@@ -54,6 +55,7 @@ public class OCompressionFactory {
     register(new OGZIPCompression());
     register(new OSnappyCompression());
     register(new ONothingCompression());
+    register(OLZ4Compression.class);
   }
 
   public OCompression getCompression(final String name, final String iOptions) {
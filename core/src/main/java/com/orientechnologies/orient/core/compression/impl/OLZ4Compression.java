@@ -0,0 +1,391 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.compression.impl;
+
+import com.orientechnologies.orient.core.compression.OCompression;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.exception.ODatabaseException;
+import com.orientechnologies.orient.core.serialization.OBase64Utils;
+
+import java.util.Arrays;
+
+/**
+ * Pure Java implementation of fast block compression which uses LZ4 block format. Compression may be primed by dictionary, in
+ * such case repeated fragments of the record may be encoded as references to the dictionary content, which makes compression of
+ * small similar records (like documents of the same class) effective.
+ * <p>
+ * Every compressed block starts from the header which contains type of the block and length of uncompressed content. Records
+ * which are smaller than {@link OGlobalConfiguration#STORAGE_COMPRESSION_LZ4_MIN_SIZE} or can not be compressed are stored as
+ * is.
+ * <p>
+ * Instance of this class keeps dictionary, so it is registered as stateful compression and new instance is created for each
+ * cluster. Dictionary is passed as Base64 encoded string in options of {@link #configure(String)}.
+ *
+ * @see OLZ4DictionaryTrainer
+ */
+public class OLZ4Compression extends OAbstractCompression {
+  public static final String NAME = "lz4";
+
+  /**
+   * Maximum size of dictionary, content of dictionary which is farther than this distance from compressed data can not be
+   * referenced.
+   */
+  public static final int MAX_DICTIONARY_SIZE = 64 * 1024;
+
+  private static final byte RAW_BLOCK        = 0;
+  private static final byte COMPRESSED_BLOCK = 1;
+  private static final byte DICTIONARY_BLOCK = 2;
+  private static final int  HEADER_SIZE      = 5;
+
+  private static final int MIN_MATCH     = 4;
+  private static final int LAST_LITERALS = 5;
+  private static final int MF_LIMIT      = 12;
+  private static final int MAX_DISTANCE  = 65535;
+  private static final int ML_BITS       = 4;
+  private static final int ML_MASK       = (1 << ML_BITS) - 1;
+  private static final int RUN_MASK      = ML_MASK;
+  private static final int HASH_LOG      = 12;
+  private static final int SKIP_TRIGGER  = 6;
+
+  private final int minCompressionSize = OGlobalConfiguration.STORAGE_COMPRESSION_LZ4_MIN_SIZE.getValueAsInteger();
+
+  private byte[] dictionary     = new byte[0];
+  private int[]  dictionaryHash = emptyHashTable();
+
+  @Override
+  public byte[] compress(final byte[] content, final int offset, final int length) {
+    if (length < minCompressionSize)
+      return rawBlock(content, offset, length);
+
+    final byte[] dictionary = this.dictionary;
+    final int dictionaryLength = dictionary.length;
+
+    final byte[] source;
+    final int sourceOffset;
+    if (dictionaryLength > 0) {
+      // dictionary is placed just before the data, so data may reference its content
+      source = new byte[dictionaryLength + length];
+      System.arraycopy(dictionary, 0, source, 0, dictionaryLength);
+      System.arraycopy(content, offset, source, dictionaryLength, length);
+      sourceOffset = dictionaryLength;
+    } else {
+      source = content;
+      sourceOffset = offset;
+    }
+
+    final byte[] buffer = new byte[HEADER_SIZE + maxCompressedLength(length)];
+    final int compressedEnd = compressBlock(source, sourceOffset - dictionaryLength, sourceOffset, sourceOffset + length,
+        dictionaryLength > 0 ? dictionaryHash.clone() : emptyHashTable(), buffer, HEADER_SIZE);
+
+    if (compressedEnd >= HEADER_SIZE + length)
+      return rawBlock(content, offset, length);
+
+    buffer[0] = dictionaryLength > 0 ? DICTIONARY_BLOCK : COMPRESSED_BLOCK;
+    writeInt(buffer, 1, length);
+
+    return Arrays.copyOf(buffer, compressedEnd);
+  }
+
+  @Override
+  public byte[] uncompress(final byte[] content, final int offset, final int length) {
+    if (length < 1)
+      throw new ODatabaseException("Error during data decompression, compressed block is empty");
+
+    final byte type = content[offset];
+    if (type == RAW_BLOCK)
+      return Arrays.copyOfRange(content, offset + 1, offset + length);
+
+    if (length < HEADER_SIZE || (type != COMPRESSED_BLOCK && type != DICTIONARY_BLOCK))
+      throw new ODatabaseException("Error during data decompression, invalid header of compressed block");
+
+    final int uncompressedLength = readInt(content, offset + 1);
+    if (uncompressedLength < 0)
+      throw new ODatabaseException("Error during data decompression, invalid length of compressed block");
+
+    if (type == COMPRESSED_BLOCK) {
+      final byte[] result = new byte[uncompressedLength];
+      decompressBlock(content, offset + HEADER_SIZE, offset + length, result, 0);
+      return result;
+    }
+
+    final byte[] dictionary = this.dictionary;
+    if (dictionary.length == 0)
+      throw new ODatabaseException("Error during data decompression, data is compressed with dictionary which is absent");
+
+    final byte[] result = new byte[dictionary.length + uncompressedLength];
+    System.arraycopy(dictionary, 0, result, 0, dictionary.length);
+    decompressBlock(content, offset + HEADER_SIZE, offset + length, result, dictionary.length);
+
+    return Arrays.copyOfRange(result, dictionary.length, result.length);
+  }
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public OCompression configure(final String iOptions) {
+    if (iOptions == null || iOptions.isEmpty())
+      return this;
+
+    final byte[] dictionary = OBase64Utils.decode(iOptions);
+    if (dictionary == null)
+      throw new IllegalArgumentException("Invalid format of dictionary for '" + NAME + "' compression");
+
+    if (dictionary.length > MAX_DICTIONARY_SIZE)
+      throw new IllegalArgumentException(
+          "Size of dictionary " + dictionary.length + " exceeds maximum size " + MAX_DICTIONARY_SIZE + " of '" + NAME
+              + "' compression dictionary");
+
+    final int[] dictionaryHash = emptyHashTable();
+    for (int i = 0; i + MIN_MATCH <= dictionary.length; i++)
+      dictionaryHash[hash(readIntLE(dictionary, i))] = i;
+
+    this.dictionary = dictionary;
+    this.dictionaryHash = dictionaryHash;
+
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if compression is primed by dictionary.
+   */
+  public boolean hasDictionary() {
+    return dictionary.length > 0;
+  }
+
+  private static byte[] rawBlock(final byte[] content, final int offset, final int length) {
+    final byte[] result = new byte[length + 1];
+    result[0] = RAW_BLOCK;
+    System.arraycopy(content, offset, result, 1, length);
+    return result;
+  }
+
+  private static int maxCompressedLength(final int length) {
+    return length + length / 255 + 16;
+  }
+
+  /**
+   * Compresses data which are placed between <code>sourceOffset</code> and <code>sourceEnd</code>, data which are placed between
+   * <code>windowStart</code> and <code>sourceOffset</code> are treated as dictionary and their positions should be already
+   * present in hash table.
+   *
+   * @return Position of the end of compressed data in destination buffer.
+   */
+  private static int compressBlock(final byte[] source, final int windowStart, final int sourceOffset, final int sourceEnd,
+      final int[] hashTable, final byte[] dest, int destOffset) {
+    int anchor = sourceOffset;
+
+    if (sourceEnd - sourceOffset >= MF_LIMIT + 1) {
+      final int matchLimit = sourceEnd - LAST_LITERALS;
+      final int mfLimit = sourceEnd - MF_LIMIT;
+
+      int ip = sourceOffset;
+      while (ip < mfLimit) {
+        final int sequence = readIntLE(source, ip);
+        final int hash = hash(sequence);
+
+        int ref = hashTable[hash];
+        hashTable[hash] = ip;
+
+        if (ref < 0 || ip - ref > MAX_DISTANCE || readIntLE(source, ref) != sequence) {
+          // the longer there are no matches the faster incompressible data are skipped
+          ip += 1 + ((ip - anchor) >>> SKIP_TRIGGER);
+          continue;
+        }
+
+        while (ip > anchor && ref > windowStart && source[ip - 1] == source[ref - 1]) {
+          ip--;
+          ref--;
+        }
+
+        int matchLength = MIN_MATCH;
+        while (ip + matchLength < matchLimit && source[ref + matchLength] == source[ip + matchLength])
+          matchLength++;
+
+        destOffset = writeSequence(source, anchor, ip - anchor, ip - ref, matchLength, dest, destOffset);
+
+        ip += matchLength;
+        anchor = ip;
+
+        if (ip - 2 >= sourceOffset && ip < mfLimit)
+          hashTable[hash(readIntLE(source, ip - 2))] = ip - 2;
+      }
+    }
+
+    return writeLastLiterals(source, anchor, sourceEnd - anchor, dest, destOffset);
+  }
+
+  private static int writeSequence(final byte[] source, final int literalsOffset, final int literalsLength, final int matchOffset,
+      final int matchLength, final byte[] dest, int destOffset) {
+    final int tokenOffset = destOffset++;
+
+    int token;
+    if (literalsLength >= RUN_MASK) {
+      token = RUN_MASK << ML_BITS;
+      destOffset = writeLength(literalsLength - RUN_MASK, dest, destOffset);
+    } else
+      token = literalsLength << ML_BITS;
+
+    System.arraycopy(source, literalsOffset, dest, destOffset, literalsLength);
+    destOffset += literalsLength;
+
+    dest[destOffset++] = (byte) matchOffset;
+    dest[destOffset++] = (byte) (matchOffset >>> 8);
+
+    final int length = matchLength - MIN_MATCH;
+    if (length >= ML_MASK) {
+      token |= ML_MASK;
+      destOffset = writeLength(length - ML_MASK, dest, destOffset);
+    } else
+      token |= length;
+
+    dest[tokenOffset] = (byte) token;
+    return destOffset;
+  }
+
+  private static int writeLastLiterals(final byte[] source, final int literalsOffset, final int literalsLength, final byte[] dest,
+      int destOffset) {
+    if (literalsLength >= RUN_MASK) {
+      dest[destOffset++] = (byte) (RUN_MASK << ML_BITS);
+      destOffset = writeLength(literalsLength - RUN_MASK, dest, destOffset);
+    } else
+      dest[destOffset++] = (byte) (literalsLength << ML_BITS);
+
+    System.arraycopy(source, literalsOffset, dest, destOffset, literalsLength);
+    return destOffset + literalsLength;
+  }
+
+  private static int writeLength(int length, final byte[] dest, int destOffset) {
+    while (length >= 255) {
+      dest[destOffset++] = (byte) 255;
+      length -= 255;
+    }
+
+    dest[destOffset++] = (byte) length;
+    return destOffset;
+  }
+
+  /**
+   * Decompresses block into destination buffer starting from <code>destOffset</code> position, content of destination buffer
+   * which precedes this position is treated as dictionary. Destination buffer should be exactly of the size of uncompressed
+   * data.
+   */
+  private static void decompressBlock(final byte[] source, int sourceOffset, final int sourceEnd, final byte[] dest,
+      int destOffset) {
+    final int destEnd = dest.length;
+
+    while (sourceOffset < sourceEnd) {
+      final int token = source[sourceOffset++] & 0xFF;
+
+      int literalsLength = token >>> ML_BITS;
+      if (literalsLength == RUN_MASK) {
+        int len;
+        do {
+          if (sourceOffset >= sourceEnd)
+            throw corruptedBlock();
+
+          len = source[sourceOffset++] & 0xFF;
+          literalsLength += len;
+        } while (len == 255);
+      }
+
+      if (sourceOffset + literalsLength > sourceEnd || destOffset + literalsLength > destEnd)
+        throw corruptedBlock();
+
+      System.arraycopy(source, sourceOffset, dest, destOffset, literalsLength);
+      sourceOffset += literalsLength;
+      destOffset += literalsLength;
+
+      // last sequence contains only literals
+      if (sourceOffset == sourceEnd)
+        break;
+
+      if (sourceOffset + 2 > sourceEnd)
+        throw corruptedBlock();
+
+      final int matchOffset = (source[sourceOffset] & 0xFF) | ((source[sourceOffset + 1] & 0xFF) << 8);
+      sourceOffset += 2;
+
+      int matchLength = token & ML_MASK;
+      if (matchLength == ML_MASK) {
+        int len;
+        do {
+          if (sourceOffset >= sourceEnd)
+            throw corruptedBlock();
+
+          len = source[sourceOffset++] & 0xFF;
+          matchLength += len;
+        } while (len == 255);
+      }
+      matchLength += MIN_MATCH;
+
+      final int ref = destOffset - matchOffset;
+      if (matchOffset == 0 || ref < 0 || destOffset + matchLength > destEnd)
+        throw corruptedBlock();
+
+      if (matchOffset >= matchLength)
+        System.arraycopy(dest, ref, dest, destOffset, matchLength);
+      else {
+        // overlapped match, which is used to encode repeated sequences
+        for (int i = 0; i < matchLength; i++)
+          dest[destOffset + i] = dest[ref + i];
+      }
+
+      destOffset += matchLength;
+    }
+
+    if (destOffset != destEnd)
+      throw corruptedBlock();
+  }
+
+  private static ODatabaseException corruptedBlock() {
+    return new ODatabaseException("Error during data decompression, compressed block is corrupted");
+  }
+
+  private static int[] emptyHashTable() {
+    final int[] hashTable = new int[1 << HASH_LOG];
+    Arrays.fill(hashTable, -1);
+    return hashTable;
+  }
+
+  private static int hash(final int sequence) {
+    return (sequence * -1640531535) >>> (32 - HASH_LOG);
+  }
+
+  private static int readIntLE(final byte[] buffer, final int offset) {
+    return (buffer[offset] & 0xFF) | ((buffer[offset + 1] & 0xFF) << 8) | ((buffer[offset + 2] & 0xFF) << 16) | (
+        (buffer[offset + 3] & 0xFF) << 24);
+  }
+
+  private static int readInt(final byte[] buffer, final int offset) {
+    return ((buffer[offset] & 0xFF) << 24) | ((buffer[offset + 1] & 0xFF) << 16) | ((buffer[offset + 2] & 0xFF) << 8) | (
+        buffer[offset + 3] & 0xFF);
+  }
+
+  private static void writeInt(final byte[] buffer, final int offset, final int value) {
+    buffer[offset] = (byte) (value >>> 24);
+    buffer[offset + 1] = (byte) (value >>> 16);
+    buffer[offset + 2] = (byte) (value >>> 8);
+    buffer[offset + 3] = (byte) value;
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.compression.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Builds dictionary for {@link OLZ4Compression} from the sample of records.
+ * <p>
+ * Each record is split on segments of fixed size, segment is scored by the amount of records which contain the same 8-byte
+ * sequences as this segment. Segments with the highest score are greedily added to the dictionary, sequences of already added
+ * segments are not taken into account during scoring of the rest of segments, so dictionary does not contain duplicates. The
+ * most valuable segments are placed at the end of dictionary, so they are closer to the compressed data.
+ */
+public class OLZ4DictionaryTrainer {
+  private static final int SEQUENCE_SIZE      = 8;
+  private static final int SEGMENT_SIZE       = 64;
+  private static final int SAMPLE_SIZE_FACTOR = 16;
+  private static final int MAX_SAMPLES_SIZE   = 1024 * 1024;
+
+  private final int          dictionarySize;
+  private final int          maxSamplesSize;
+  private final List<byte[]> samples = new ArrayList<byte[]>();
+  private       int          samplesSize;
+
+  /**
+   * @param dictionarySize Maximum size of the dictionary in bytes.
+   */
+  public OLZ4DictionaryTrainer(final int dictionarySize) {
+    if (dictionarySize <= 0 || dictionarySize > OLZ4Compression.MAX_DICTIONARY_SIZE)
+      throw new IllegalArgumentException(
+          "Size of dictionary should be positive and not bigger than " + OLZ4Compression.MAX_DICTIONARY_SIZE + " but was "
+              + dictionarySize);
+
+    this.dictionarySize = dictionarySize;
+    this.maxSamplesSize = (int) Math.min((long) dictionarySize * SAMPLE_SIZE_FACTOR, MAX_SAMPLES_SIZE);
+  }
+
+  /**
+   * @return <code>true</code> if more samples are needed to train the dictionary.
+   */
+  public boolean needsMoreSamples() {
+    return samplesSize < maxSamplesSize;
+  }
+
+  public void addSample(final byte[] sample) {
+    if (sample.length < SEQUENCE_SIZE || !needsMoreSamples())
+      return;
+
+    samples.add(sample);
+    samplesSize += sample.length;
+  }
+
+  /**
+   * @return Trained dictionary, or empty array if there are no repeated sequences in passed in samples.
+   */
+  public byte[] train() {
+    final Map<Long, Integer> frequencies = new HashMap<Long, Integer>();
+
+    // amount of samples which contain given sequence
+    for (byte[] sample : samples) {
+      final Set<Long> sampleSequences = new HashSet<Long>();
+      for (int i = 0; i + SEQUENCE_SIZE <= sample.length; i++)
+        sampleSequences.add(sequence(sample, i));
+
+      for (Long sequence : sampleSequences) {
+        final Integer frequency = frequencies.get(sequence);
+        frequencies.put(sequence, frequency == null ? 1 : frequency + 1);
+      }
+    }
+
+    final PriorityQueue<Segment> queue = new PriorityQueue<Segment>();
+    for (byte[] sample : samples) {
+      for (int start = 0; start + SEQUENCE_SIZE <= sample.length; start += SEGMENT_SIZE) {
+        final Segment segment = new Segment(sample, start, Math.min(sample.length, start + SEGMENT_SIZE));
+        segment.score = segment.score(frequencies);
+
+        if (segment.score > 0)
+          queue.add(segment);
+      }
+    }
+
+    final List<Segment> selected = new ArrayList<Segment>();
+    int size = 0;
+
+    while (!queue.isEmpty() && size < dictionarySize) {
+      final Segment segment = queue.poll();
+
+      // score of segment could be decreased because some of its sequences are already present in dictionary
+      final long score = segment.score(frequencies);
+      if (score <= 0)
+        continue;
+
+      if (score < segment.score) {
+        segment.score = score;
+        queue.add(segment);
+        continue;
+      }
+
+      final int length = Math.min(segment.end - segment.start, dictionarySize - size);
+      selected.add(new Segment(segment.sample, segment.start, segment.start + length));
+      size += length;
+
+      for (int i = segment.start; i + SEQUENCE_SIZE <= segment.end; i++)
+        frequencies.remove(sequence(segment.sample, i));
+    }
+
+    final byte[] dictionary = new byte[size];
+    int position = size;
+    for (Segment segment : selected) {
+      final int length = segment.end - segment.start;
+      position -= length;
+      System.arraycopy(segment.sample, segment.start, dictionary, position, length);
+    }
+
+    return dictionary;
+  }
+
+  private static long sequence(final byte[] sample, final int offset) {
+    long sequence = 0;
+    for (int i = 0; i < SEQUENCE_SIZE; i++)
+      sequence = (sequence << 8) | (sample[offset + i] & 0xFF);
+
+    return sequence;
+  }
+
+  private static final class Segment implements Comparable<Segment> {
+    private final byte[] sample;
+    private final int    start;
+    private final int    end;
+    private       long   score;
+
+    private Segment(final byte[] sample, final int start, final int end) {
+      this.sample = sample;
+      this.start = start;
+      this.end = end;
+    }
+
+    /**
+     * @return Sum of frequencies of sequences of the segment which are present in more than one sample.
+     */
+    private long score(final Map<Long, Integer> frequencies) {
+      long score = 0;
+      for (int i = start; i + SEQUENCE_SIZE <= end; i++) {
+        final Integer frequency = frequencies.get(sequence(sample, i));
+        if (frequency != null && frequency > 1)
+          score += frequency;
+      }
+
+      return score;
+    }
+
+    @Override
+    public int compareTo(final Segment other) {
+      // segments with the highest score go first
+      return score > other.score ? -1 : (score < other.score ? 1 : 0);
+    }
+  }
+}
@@ -25,6 +25,7 @@ import com.orientechnologies.common.profiler.OProfiler;
 import com.orientechnologies.common.util.OApi;
 import com.orientechnologies.orient.core.OConstants;
 import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.cache.OCommandCacheSoftRefs;
 import com.orientechnologies.orient.core.cache.ORecordCacheWeakRefs;
 import com.orientechnologies.orient.core.engine.local.OEngineLocalPaginated;
 import com.orientechnologies.orient.core.index.OIndexDefinition;
@@ -115,6 +116,14 @@ public enum OGlobalConfiguration {
         }
       }),
 
+  DISK_CACHE_IMPLEMENTATION("storage.diskCache.implementation",
+      "Implementation of read cache. Possible values: '2q' (single 2Q cache) and 'partitioned2q' (2Q cache split on independent "
+          + "partitions by page hash, which decreases contention on servers with many cores)", String.class, "2q", false),
+
+  DISK_CACHE_PARTITIONS("storage.diskCache.partitions",
+      "Amount of partitions of 'partitioned2q' read cache, rounded up to the closest power of two", Integer.class,
+      Runtime.getRuntime().availableProcessors() << 1, false),
+
   DISK_WRITE_CACHE_PART("storage.diskCache.writeCachePart", "Percentage of disk cache, which is used as write cache", Integer.class,
       15),
 
@@ -124,6 +133,12 @@ public enum OGlobalConfiguration {
   DISK_WRITE_CACHE_PAGE_FLUSH_INTERVAL("storage.diskCache.writeCachePageFlushInterval",
       "Interval between flushing of pages from write cache (in ms)", Integer.class, 25),
 
+  DISK_WRITE_CACHE_FLUSH_THREADS("storage.diskCache.writeCacheFlushThreads",
+      "Number of threads which write pages of write cache to the disk in parallel. Pages are partitioned between threads by file, "
+          + "contiguous pages of the same file are written by single vectored write. "
+          + "Values bigger than 1 are useful for devices which can serve several requests in parallel, like NVMe drives",
+      Integer.class, 1),
+
   DISK_WRITE_CACHE_FLUSH_WRITE_INACTIVITY_INTERVAL("storage.diskCache.writeCacheFlushInactivityInterval",
       "Interval between 2 writes to the disk cache,"
           + " if writes are done with an interval more than provided, all files will be fsynced before the next write,"
@@ -155,9 +170,12 @@ public enum OGlobalConfiguration {
       "Indicates a force sync should be performed for each update on the storage configuration", Boolean.class, true),
 
   STORAGE_COMPRESSION_METHOD("storage.compressionMethod", "Record compression method used in storage"
-      + " Possible values : gzip, nothing, snappy, snappy-native. Default is 'nothing' that means no compression", String.class,
+      + " Possible values : gzip, nothing, snappy, snappy-native, lz4. Default is 'nothing' that means no compression", String.class,
       "nothing"),
 
+  STORAGE_COMPRESSION_LZ4_MIN_SIZE("storage.compression.lz4.minSize",
+      "Records which are smaller than this size (in bytes) are stored uncompressed by 'lz4' compression", Integer.class, 64),
+
   STORAGE_ENCRYPTION_METHOD("storage.encryptionMethod",
       "Record encryption method used in storage" + " Possible values : 'aes' and 'des'. Default is 'nothing' for no encryption",
       String.class, "nothing"),
@@ -198,6 +216,10 @@ public enum OGlobalConfiguration {
 
   WAL_COMMIT_TIMEOUT("storage.wal.commitTimeout", "Maximum interval between WAL commits (in ms.)", Integer.class, 1000),
 
+  WAL_GROUP_COMMIT("storage.wal.groupCommit", "Indicates whether commit of atomic operation should wait till its records are "
+      + "forced to the disk. Records of operations which are committed concurrently are forced by single fsync call",
+      Boolean.class, false),
+
   WAL_SHUTDOWN_TIMEOUT("storage.wal.shutdownTimeout", "Maximum wait interval between events, when the background flush thread"
       + "receives a shutdown command and when the background flush will be stopped (in ms.)", Integer.class, 10000),
 
@@ -237,6 +259,10 @@ public enum OGlobalConfiguration {
 
   STORAGE_RECORD_LOCK_TIMEOUT("storage.record.lockTimeout", "Maximum of time (in ms) to lock a shared record", Integer.class, 2000),
 
+  STORAGE_RECORD_CACHE_SIZE("storage.recordCache.size",
+      "Maximum amount of memory in megabytes which is used by record cache shared between all sessions of the same storage. "
+          + "0 means that shared record cache is disabled", Integer.class, 0),
+
   STORAGE_USE_TOMBSTONES("storage.useTombstones",
       "When a record is deleted, the space in the cluster will not be freed, but rather tombstoned", Boolean.class, false),
 
@@ -304,6 +330,14 @@ public enum OGlobalConfiguration {
 
   INDEX_FLUSH_AFTER_CREATE("index.flushAfterCreate", "Flush storage buffer after index creation", Boolean.class, true),
 
+  INDEX_BULK_LOAD("index.bulkLoad",
+      "Fill index during its creation and rebuild by entries sorted by key, so pages of index are built bottom-up instead of "
+          + "putting entries one by one", Boolean.class, true),
+
+  INDEX_BULK_LOAD_CHUNK_SIZE("index.bulkLoad.chunkSize",
+      "Amount of index entries which are sorted in memory during bulk load of index, if there are more entries they are sorted "
+          + "in chunks which are stored in temporary files", Integer.class, 500000),
+
   INDEX_MANUAL_LAZY_UPDATES("index.manual.lazyUpdates",
       "Configure the TreeMaps for manual indexes as buffered or not. -1 means buffered until tx.commit() or db.close() are called",
       Integer.class, 1),
@@ -379,6 +413,15 @@ public enum OGlobalConfiguration {
 
   FILE_DELETE_RETRY("file.deleteRetry", "Number of retries to delete a locked file", Integer.class, 50),
 
+  FILE_IMPLEMENTATION("file.implementation",
+      "Implementation of data files used by paginated storage. Supported values are 'classic' (positional reads and writes through file channel) "
+          + "and 'mmap' (reads are served from memory mapped regions of the file, suitable for read mostly databases which fit into OS page cache)",
+      String.class, "classic", false),
+
+  FILE_MMAP_CHUNK_SIZE("file.mmap.chunkSize",
+      "Size (in megabytes) of the regions by which memory mapped files are mapped into memory. Should be multiple of page size",
+      Integer.class, 64, false),
+
   // SECURITY
   SECURITY_USER_PASSWORD_SALT_ITERATIONS("security.userPasswordSaltIterations",
       "Number of iterations to generate the salt or user password. Changing this setting does not affect stored passwords",
@@ -425,6 +468,23 @@ public enum OGlobalConfiguration {
   NETWORK_BINARY_DEBUG("network.binary.debug", "Debug mode: print all data incoming on the binary channel", Boolean.class, false,
       true),
 
+  NETWORK_BINARY_CURSOR_PAGE_SIZE("network.binary.cursor.pageSize",
+      "Number of records read from the server by every request of a remote query cursor", Integer.class, 1000, true),
+
+  NETWORK_BINARY_CURSOR_TIMEOUT("network.binary.cursor.timeout",
+      "Maximum time (in ms) a query cursor is kept open on the server without requests from the client. Expired cursors are closed periodically by the server",
+      Long.class, 600000, true),
+
+  NETWORK_BINARY_CURSOR_MAX_THREADS("network.binary.cursor.maxThreads",
+      "Maximum number of threads running the queries of the open cursors of all the client sessions. New cursors are refused when all the threads are busy",
+      Integer.class, 64),
+
+  NETWORK_BINARY_MAX_QUERY_CURSORS("network.binary.maxQueryCursors",
+      "Maximum number of query cursors a client session can keep open. 0 means no limit", Integer.class, 10, true),
+
+  NETWORK_BINARY_MAX_PREPARED_STATEMENTS("network.binary.maxPreparedStatements",
+      "Maximum number of prepared statements a client session can keep open. 0 means no limit", Integer.class, 1000, true),
+
   // HTTP
 
   /**
@@ -537,11 +597,19 @@ public enum OGlobalConfiguration {
   // CACHE
   CACHE_LOCAL_IMPL("cache.local.impl", "Local Record cache implementation", String.class, ORecordCacheWeakRefs.class.getName()),
 
+  CACHE_LOCAL_OFFHEAP_SIZE("cache.local.offHeap.size",
+      "Maximum amount of off-heap memory in megabytes which is used by local record cache of single database instance if "
+          + "com.orientechnologies.orient.core.cache.ORecordCacheOffHeap implementation is used", Integer.class, 8),
+
   // COMMAND
   COMMAND_TIMEOUT("command.timeout", "Default timeout for commands (in ms)", Long.class, 0, true),
 
   COMMAND_CACHE_ENABLED("command.cache.enabled", "Enable command cache", Boolean.class, false),
 
+  COMMAND_CACHE_IMPL("command.cache.impl",
+      "Command cache implementation between: [com.orientechnologies.orient.core.cache.OCommandCacheSoftRefs,com.orientechnologies.orient.core.cache.OCommandCachePredicateAware]",
+      String.class, OCommandCacheSoftRefs.class.getName()),
+
   COMMAND_CACHE_EVICT_STRATEGY("command.cache.evictStrategy", "Command cache strategy between: [INVALIDATE_ALL,PER_CLUSTER]",
       String.class, "PER_CLUSTER"),
 
@@ -551,6 +619,10 @@ public enum OGlobalConfiguration {
   COMMAND_CACHE_MAX_RESULSET_SIZE("command.cache.maxResultsetSize", "Maximum resultset time to consider caching result set",
       Integer.class, 500),
 
+  COMMAND_CACHE_MAX_SIZE("command.cache.maxSize",
+      "Maximum size in bytes of the results kept by the predicate aware command cache, the least recently used results are evicted first",
+      Long.class, 64 * 1024 * 1024),
+
   // QUERY
   QUERY_PARALLEL_AUTO("query.parallelAuto", "Auto enable parallel query, if requirements are met", Boolean.class, false),
 
@@ -561,6 +633,22 @@ public enum OGlobalConfiguration {
       "Size of the queue that holds results on parallel execution. The queue is blocking, so in case the queue is full, the query threads will be in a wait state",
       Integer.class, 20000),
 
+  QUERY_PARALLEL_DEGREE("query.parallelDegree",
+      "Maximum number of threads which execute a single parallel query. Use 0 to use as many threads as there are CPU cores",
+      Integer.class, 0),
+
+  QUERY_PARALLEL_MORSEL_SIZE("query.parallelMorselSize",
+      "Number of cluster positions scanned by a parallel query thread as a single unit of work. Threads take new units as soon as they finish previous ones, so smaller units balance the load better",
+      Long.class, 10000),
+
+  QUERY_COMPILE_FILTERS("query.compileFilters",
+      "Evaluates WHERE conditions with a condition tree specialized for comparisons of fields with constants, values which are not supported by it are evaluated as before",
+      Boolean.class, true),
+
+  QUERY_INDEX_ONLY_SCAN("query.indexOnlyScan",
+      "Answers the queries which only read fields contained in the keys of the used index, and MIN()/MAX() of indexed fields, without loading the records",
+      Boolean.class, true),
+
   QUERY_SCAN_PREFETCH_PAGES("query.scanPrefetchPages",
       "Pages to prefetch during scan. Setting this value higher makes scans faster, because it reduces the number of I/O operations, though it consumes more memory. (Use 0 to disable)",
       Integer.class, 20),
@@ -576,6 +664,10 @@ public enum OGlobalConfiguration {
   QUERY_LIMIT_THRESHOLD_TIP("query.limitThresholdTip",
       "If the total number of returned records exceeds this value, then a warning is given. (Use 0 to disable)", Long.class, 10000),
 
+  QUERY_MEMORY_LIMIT("query.memoryLimit",
+      "Maximum amount of memory in bytes used by a single query to sort (ORDER BY) and to group (GROUP BY) results. Once it is exceeded, intermediate results are spilled to temporary files. (Use 0 to disable)",
+      Long.class, 0),
+
   QUERY_LIVE_SUPPORT("query.live.support", "Enable/Disable the support of live query. (Use false to disable)", Boolean.class, true),
 
   STATEMENT_CACHE_SIZE("statement.cacheSize", "Number of parsed SQL statements kept in cache", Integer.class, 100),
@@ -588,6 +680,10 @@ public enum OGlobalConfiguration {
           + "With 'notx_sync_repair' the repair is synchronous, so the database comes online after the repair is ended, while "
           + "with 'notx_async_repair' the repair is a background process", String.class, "tx"),
 
+  SQL_GRAPH_NEIGHBORS_BATCH_SIZE("sql.graphNeighborsBatchSize",
+      "Maximum number of connections expanded at once by out(), in() and both(). Their edges and neighbor vertices are read in batches of this size while the result is browsed, so the neighbors of a supernode are never all kept in memory",
+      Integer.class, 1000),
+
   /**
    * Maximum size of pool of network channels between client and server. A channel is a TCP/IP connection.
    */
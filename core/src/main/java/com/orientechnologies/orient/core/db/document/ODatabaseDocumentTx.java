@@ -1860,6 +1860,10 @@ public class ODatabaseDocumentTx extends OListenerManger<ODatabaseListener> impl
   }
 
   /**
+   * Loads several records in one shot. Records which are not in the transaction or in the local cache are read by the storage in
+   * one batch per cluster, sorted by position, then read hooks are called and the local cache is updated as for single loads.
+   * Missing records and records skipped by hooks are not returned.
+   * <p>
    * This method is internal, it can be subject to signature change or be removed, do not use.
    *
    * @Internal
@@ -1879,6 +1883,11 @@ public class ODatabaseDocumentTx extends OListenerManger<ODatabaseListener> impl
 
       final Collection<ORecordId> rids = new ArrayList<ORecordId>(iRids);
 
+      final Set<Integer> clusterIds = new HashSet<Integer>();
+      for (ORecordId rid : rids)
+        if (clusterIds.add(rid.getClusterId()))
+          checkSecurity(ORule.ResourceGeneric.CLUSTER, ORole.PERMISSION_READ, getClusterNameById(rid.getClusterId()));
+
       for (Iterator<ORecordId> it = rids.iterator(); it.hasNext(); ) {
         final ORecordId rid = it.next();
 
@@ -1896,17 +1905,52 @@ public class ODatabaseDocumentTx extends OListenerManger<ODatabaseListener> impl
 
         if (record != null) {
           // FOUND FROM CACHE
-          records.add(record);
+          if (callbackHooks(ORecordHook.TYPE.BEFORE_READ, record) != ORecordHook.RESULT.SKIP) {
+            callbackHooks(ORecordHook.TYPE.AFTER_READ, record);
+            records.add(record);
+          }
+          it.remove();
+        } else if (!rid.isPersistent())
           it.remove();
+      }
+
+      if (!(storage.getUnderlying() instanceof OAbstractPaginatedStorage)) {
+        // NO BATCH READ AVAILABLE: LOAD THEM ONE BY ONE
+        for (ORecordId rid : rids) {
+          final ORecord record = executeReadRecord(rid, null, -1, null, ignoreCache, !ignoreCache, false,
+              OStorage.LOCKING_STRATEGY.NONE, new SimpleRecordReader(false));
+          if (record != null)
+            records.add(record);
         }
+        return records;
       }
 
       final Collection<OPair<ORecordId, ORawBuffer>> rawRecords = ((OAbstractPaginatedStorage) storage.getUnderlying())
           .readRecords(rids);
       for (OPair<ORecordId, ORawBuffer> entry : rawRecords) {
+        if (entry.value == null)
+          // DELETED
+          continue;
+
         // NO SAME RECORD TYPE: CAN'T REUSE OLD ONE BUT CREATE A NEW ONE FOR IT
         final ORecord record = Orient.instance().getRecordFactoryManager().newInstance(entry.value.recordType);
         ORecordInternal.fill(record, entry.key, entry.value.version, entry.value.buffer, false);
+
+        if (ORecordVersionHelper.isTombstone(record.getVersion()))
+          continue;
+
+        if (record instanceof ODocument)
+          ODocumentInternal.checkClass((ODocument) record, this);
+
+        if (callbackHooks(ORecordHook.TYPE.BEFORE_READ, record) == ORecordHook.RESULT.SKIP)
+          continue;
+
+        record.fromStream(entry.value.buffer);
+        callbackHooks(ORecordHook.TYPE.AFTER_READ, record);
+
+        if (!ignoreCache)
+          getLocalCache().updateRecord(record);
+
         records.add(record);
       }
 
@@ -63,6 +63,9 @@ import java.util.UUID;
  * <br>
  * The representation is automatically converted to tree-based implementation when top threshold is reached. And backward to
  * embedded one when size is decreased to bottom threshold. <br>
+ * The links of an embedded bag can carry a small payload, see {@link ORidBagPayloadSerializer}. The tree-based implementation
+ * keeps a counter per link instead of the single entries, so a bag which contains payloads is not converted to it until the
+ * payloads are removed.<br>
  * The thresholds could be configured by {@link OGlobalConfiguration#RID_BAG_EMBEDDED_TO_SBTREEBONSAI_THRESHOLD} and
  * {@link OGlobalConfiguration#RID_BAG_SBTREEBONSAI_TO_EMBEDDED_THRESHOLD}. <br>
  * <br>
@@ -86,8 +89,14 @@ public class ORidBag implements OStringBuilderSerializable, Iterable<OIdentifiab
 
   public ORidBag(final ORidBag ridBag) {
     init();
-    for (OIdentifiable identifiable : ridBag)
-      add(identifiable);
+    if (ridBag.hasPayloads()) {
+      for (Iterator<OIdentifiable> iterator = ridBag.iterator(); iterator.hasNext();) {
+        final OIdentifiable identifiable = iterator.next();
+        add(identifiable, ((ORidBagPayloadIterator) iterator).getPayload());
+      }
+    } else
+      for (OIdentifiable identifiable : ridBag)
+        add(identifiable);
   }
 
   public ORidBag() {
@@ -143,6 +152,47 @@ public class ORidBag implements OStringBuilderSerializable, Iterable<OIdentifiab
     delegate.add(identifiable);
   }
 
+  /**
+   * Adds a link with a payload stored next to it, which is usually written by a {@link ORidBagPayloadSerializer}. Only embedded
+   * bags can store payloads.
+   *
+   * @param payload
+   *          can be null
+   */
+  public void add(final OIdentifiable identifiable, final byte[] payload) {
+    if (payload == null)
+      delegate.add(identifiable);
+    else if (isEmbedded())
+      ((OEmbeddedRidBag) delegate).add(identifiable, payload);
+    else
+      throw new IllegalStateException("Payloads can be stored only in embedded ridbags");
+  }
+
+  /**
+   * @return the payload of the first entry of the link, null if there is none
+   */
+  public byte[] getPayload(final OIdentifiable identifiable) {
+    return isEmbedded() ? ((OEmbeddedRidBag) delegate).getPayload(identifiable) : null;
+  }
+
+  /**
+   * Replaces the payload of the first entry of the link. The payload should not be modified once stored, because it is shared
+   * with the copies of the bag.
+   *
+   * @return false if the bag does not contain the link
+   */
+  public boolean setPayload(final OIdentifiable identifiable, final byte[] payload) {
+    if (isEmbedded())
+      return ((OEmbeddedRidBag) delegate).setPayload(identifiable, payload);
+    if (payload != null)
+      throw new IllegalStateException("Payloads can be stored only in embedded ridbags");
+    return delegate.contains(identifiable);
+  }
+
+  public boolean hasPayloads() {
+    return isEmbedded() && ((OEmbeddedRidBag) delegate).hasPayloads();
+  }
+
   public void remove(OIdentifiable identifiable) {
     delegate.remove(identifiable);
   }
@@ -200,7 +250,7 @@ public class ORidBag implements OStringBuilderSerializable, Iterable<OIdentifiab
     final ORecordSerializationContext context = ORecordSerializationContext.getContext();
     if (context != null) {
       if (isEmbedded() && ODatabaseRecordThreadLocal.INSTANCE.get().getSbTreeCollectionManager() != null
-          && delegate.size() >= topThreshold) {
+          && delegate.size() >= topThreshold && !hasPayloads()) {
         ORidBagDelegate oldDelegate = delegate;
         delegate = new OSBTreeRidBag();
         boolean oldAutoConvert = oldDelegate.isAutoConvertToRecord();
@@ -249,6 +299,7 @@ public class ORidBag implements OStringBuilderSerializable, Iterable<OIdentifiab
       uuid = null;
 
     boolean hasUuid = uuid != null;
+    final boolean hasPayloads = hasPayloads();
 
     final int serializedSize = OByteSerializer.BYTE_SIZE + delegate.getSerializedSize()
         + ((hasUuid) ? OUUIDSerializer.UUID_SIZE : 0);
@@ -263,6 +314,9 @@ public class ORidBag implements OStringBuilderSerializable, Iterable<OIdentifiab
     if (hasUuid)
       configByte |= 2;
 
+    if (hasPayloads)
+      configByte |= 4;
+
     stream[offset++] = configByte;
 
     if (hasUuid) {
@@ -314,7 +368,10 @@ public class ORidBag implements OStringBuilderSerializable, Iterable<OIdentifiab
       stream.skip(OUUIDSerializer.UUID_SIZE);
     }
 
-    stream.skip(delegate.deserialize(stream.bytes, stream.offset) - stream.offset);
+    if ((first & 4) == 4)
+      stream.skip(((OEmbeddedRidBag) delegate).deserialize(stream.bytes, stream.offset, true) - stream.offset);
+    else
+      stream.skip(delegate.deserialize(stream.bytes, stream.offset) - stream.offset);
   }
 
   @Override
@@ -409,7 +466,8 @@ public class ORidBag implements OStringBuilderSerializable, Iterable<OIdentifiab
             }
           }
           if (!found)
-            add(value);
+            add(value,
+                isEmbedded() && iter instanceof ORidBagPayloadIterator ? ((ORidBagPayloadIterator) iter).getPayload() : null);
         }
       }
       return true;
@@ -0,0 +1,38 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.orientechnologies.orient.core.db.record.ridbag;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+
+import java.util.Iterator;
+
+/**
+ * Iterator of a {@link ORidBag} which gives access to the payload of the last link returned.
+ *
+ * @see ORidBagPayloadSerializer
+ */
+public interface ORidBagPayloadIterator extends Iterator<OIdentifiable> {
+  /**
+   * @return the payload stored with the link returned by the last call to {@link #next()}, null if it has none
+   */
+  byte[] getPayload();
+}
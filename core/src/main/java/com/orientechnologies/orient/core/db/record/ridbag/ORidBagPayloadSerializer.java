@@ -0,0 +1,274 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.orientechnologies.orient.core.db.record.ridbag;
+
+import com.orientechnologies.common.serialization.types.OIntegerSerializer;
+import com.orientechnologies.common.serialization.types.OLongSerializer;
+import com.orientechnologies.common.serialization.types.OShortSerializer;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes a small fixed set of typed values to the payload kept next to a link of an embedded {@link ORidBag}. Only fixed size
+ * types are supported, so every value has a fixed offset and can be read without decoding the others. Every value is preceded
+ * by a byte telling if it is set. The payload can be shorter than the current definition: the missing values are null, so new
+ * values can be appended to the definition without rewriting the existing payloads.
+ * <p>
+ * The definition is a comma separated list of <code>name:TYPE</code>, for example <code>weight:DOUBLE,since:DATETIME</code>.
+ * <p>
+ * Payloads are kept by the binary and CSV serializations of the ridbag only: the JSON format writes the links alone.
+ *
+ * @see ORidBag#add(com.orientechnologies.orient.core.db.record.OIdentifiable, byte[])
+ */
+public class ORidBagPayloadSerializer {
+  private final String[] names;
+  private final OType[]  types;
+  private final int[]    offsets;
+  private final int      payloadSize;
+
+  public ORidBagPayloadSerializer(final String definition) {
+    if (definition == null || definition.trim().isEmpty())
+      throw new IllegalArgumentException("Empty definition of ridbag payload");
+
+    final String[] properties = definition.split(",");
+    names = new String[properties.length];
+    types = new OType[properties.length];
+    offsets = new int[properties.length];
+
+    int offset = 0;
+    for (int i = 0; i < properties.length; i++) {
+      final String[] parts = properties[i].split(":");
+      if (parts.length != 2 || parts[0].trim().isEmpty())
+        throw new IllegalArgumentException("Invalid property '" + properties[i] + "' in ridbag payload definition: " + definition);
+
+      names[i] = parts[0].trim();
+      if (indexOf(names[i]) < i)
+        throw new IllegalArgumentException("Property '" + names[i] + "' is defined twice in ridbag payload definition: "
+            + definition);
+
+      try {
+        types[i] = OType.valueOf(parts[1].trim().toUpperCase());
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown type '" + parts[1].trim() + "' in ridbag payload definition: " + definition);
+      }
+      if (getSize(types[i]) < 0)
+        throw new IllegalArgumentException("Type " + types[i] + " of property '" + names[i]
+            + "' is not supported by ridbag payloads, only fixed size types are allowed");
+
+      offsets[i] = offset;
+      offset += 1 + getSize(types[i]);
+    }
+    payloadSize = offset;
+  }
+
+  public List<String> getNames() {
+    return Collections.unmodifiableList(Arrays.asList(names));
+  }
+
+  public OType getType(final String name) {
+    final int index = indexOf(name);
+    return index > -1 ? types[index] : null;
+  }
+
+  public boolean contains(final String name) {
+    return indexOf(name) > -1;
+  }
+
+  /**
+   * @return the size of the payloads written by this serializer
+   */
+  public int getPayloadSize() {
+    return payloadSize;
+  }
+
+  /**
+   * Serializes the values of the map, the entries which are not part of the definition are ignored.
+   */
+  public byte[] serialize(final Map<String, ?> values) {
+    final byte[] payload = new byte[payloadSize];
+    if (values != null)
+      for (int i = 0; i < names.length; i++)
+        write(payload, i, values.get(names[i]));
+    return payload;
+  }
+
+  /**
+   * Returns a copy of the payload with a value changed, the original payload is never modified because it can be shared by copies
+   * of the ridbag.
+   *
+   * @param payload
+   *          current payload, can be null or shorter than the current definition
+   * @param value
+   *          new value, null to remove it
+   */
+  public byte[] set(final byte[] payload, final String name, final Object value) {
+    final int index = indexOf(name);
+    if (index < 0)
+      throw new IllegalArgumentException("Property '" + name + "' is not part of the ridbag payload definition");
+
+    final byte[] result = new byte[payloadSize];
+    if (payload != null)
+      System.arraycopy(payload, 0, result, 0, Math.min(payload.length, payloadSize));
+    write(result, index, value);
+    return result;
+  }
+
+  public Object get(final byte[] payload, final String name) {
+    final int index = indexOf(name);
+    return index > -1 ? read(payload, index) : null;
+  }
+
+  /**
+   * @return the values that are set, in the order of the definition
+   */
+  public Map<String, Object> toMap(final byte[] payload) {
+    final Map<String, Object> result = new LinkedHashMap<String, Object>();
+    for (int i = 0; i < names.length; i++) {
+      final Object value = read(payload, i);
+      if (value != null)
+        result.put(names[i], value);
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < names.length; i++) {
+      if (i > 0)
+        builder.append(',');
+      builder.append(names[i]).append(':').append(types[i]);
+    }
+    return builder.toString();
+  }
+
+  private int indexOf(final String name) {
+    for (int i = 0; i < names.length; i++)
+      if (names[i] != null && names[i].equals(name))
+        return i;
+    return -1;
+  }
+
+  private void write(final byte[] payload, final int index, final Object value) {
+    int offset = offsets[index];
+    if (value == null) {
+      Arrays.fill(payload, offset, offset + 1 + getSize(types[index]), (byte) 0);
+      return;
+    }
+
+    Object converted;
+    try {
+      converted = OType.convert(value, types[index].getDefaultJavaType());
+    } catch (RuntimeException e) {
+      converted = null;
+    }
+    if (converted == null || !types[index].getDefaultJavaType().isInstance(converted))
+      throw new IllegalArgumentException("Value '" + value + "' of property '" + names[index] + "' cannot be converted to "
+          + types[index]);
+
+    payload[offset++] = 1;
+    switch (types[index]) {
+    case BOOLEAN:
+      payload[offset] = (byte) (((Boolean) converted) ? 1 : 0);
+      break;
+    case BYTE:
+      payload[offset] = (Byte) converted;
+      break;
+    case SHORT:
+      OShortSerializer.INSTANCE.serializeLiteral((Short) converted, payload, offset);
+      break;
+    case INTEGER:
+      OIntegerSerializer.INSTANCE.serializeLiteral((Integer) converted, payload, offset);
+      break;
+    case FLOAT:
+      OIntegerSerializer.INSTANCE.serializeLiteral(Float.floatToIntBits((Float) converted), payload, offset);
+      break;
+    case LONG:
+      OLongSerializer.INSTANCE.serializeLiteral((Long) converted, payload, offset);
+      break;
+    case DOUBLE:
+      OLongSerializer.INSTANCE.serializeLiteral(Double.doubleToLongBits((Double) converted), payload, offset);
+      break;
+    case DATE:
+    case DATETIME:
+      OLongSerializer.INSTANCE.serializeLiteral(((Date) converted).getTime(), payload, offset);
+      break;
+    default:
+      throw new IllegalStateException("Unsupported type " + types[index]);
+    }
+  }
+
+  private Object read(final byte[] payload, final int index) {
+    int offset = offsets[index];
+    if (payload == null || payload.length < offset + 1 + getSize(types[index]) || payload[offset] == 0)
+      return null;
+
+    offset++;
+    switch (types[index]) {
+    case BOOLEAN:
+      return payload[offset] != 0;
+    case BYTE:
+      return payload[offset];
+    case SHORT:
+      return OShortSerializer.INSTANCE.deserializeLiteral(payload, offset);
+    case INTEGER:
+      return OIntegerSerializer.INSTANCE.deserializeLiteral(payload, offset);
+    case FLOAT:
+      return Float.intBitsToFloat(OIntegerSerializer.INSTANCE.deserializeLiteral(payload, offset));
+    case LONG:
+      return OLongSerializer.INSTANCE.deserializeLiteral(payload, offset);
+    case DOUBLE:
+      return Double.longBitsToDouble(OLongSerializer.INSTANCE.deserializeLiteral(payload, offset));
+    case DATE:
+    case DATETIME:
+      return new Date(OLongSerializer.INSTANCE.deserializeLiteral(payload, offset));
+    default:
+      throw new IllegalStateException("Unsupported type " + types[index]);
+    }
+  }
+
+  private static int getSize(final OType type) {
+    switch (type) {
+    case BOOLEAN:
+    case BYTE:
+      return 1;
+    case SHORT:
+      return OShortSerializer.SHORT_SIZE;
+    case INTEGER:
+    case FLOAT:
+      return OIntegerSerializer.INT_SIZE;
+    case LONG:
+    case DOUBLE:
+    case DATE:
+    case DATETIME:
+      return OLongSerializer.LONG_SIZE;
+    default:
+      return -1;
+    }
+  }
+}
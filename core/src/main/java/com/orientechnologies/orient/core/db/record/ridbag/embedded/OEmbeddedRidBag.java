@@ -31,6 +31,7 @@ import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.db.record.OMultiValueChangeEvent;
 import com.orientechnologies.orient.core.db.record.OMultiValueChangeListener;
 import com.orientechnologies.orient.core.db.record.ridbag.ORidBagDelegate;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBagPayloadIterator;
 import com.orientechnologies.orient.core.exception.OSerializationException;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.record.ORecord;
@@ -44,6 +45,10 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
 
   private Object[]                                                      entries           = OCommonConst.EMPTY_OBJECT_ARRAY;
   private int                                                           entriesLength     = 0;
+  /**
+   * Payloads of the entries with the same index, null until the first payload is added.
+   */
+  private byte[][]                                                      payloads;
 
   private boolean                                                       convertToRecord   = true;
   private int                                                           size              = 0;
@@ -56,7 +61,7 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
     TOMBSTONE
   }
 
-  private final class EntriesIterator implements Iterator<OIdentifiable>, OResettable, OSizeable {
+  private final class EntriesIterator implements ORidBagPayloadIterator, OResettable, OSizeable {
     private final boolean convertToRecord;
     private int currentIndex = -1;
     private int nextIndex    = -1;
@@ -110,6 +115,14 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
       return identifiable;
     }
 
+    @Override
+    public byte[] getPayload() {
+      if (currentIndex == -1)
+        throw new IllegalStateException("Next method was not called for given iterator");
+
+      return payloads != null && !currentRemoved ? payloads[currentIndex] : null;
+    }
+
     @Override
     public void remove() {
       if (currentRemoved)
@@ -122,6 +135,8 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
 
       final OIdentifiable nextValue = (OIdentifiable) entries[currentIndex];
       entries[currentIndex] = Tombstone.TOMBSTONE;
+      if (payloads != null)
+        payloads[currentIndex] = null;
 
       size--;
       contentWasChanged = true;
@@ -210,10 +225,20 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
 
   @Override
   public void add(final OIdentifiable identifiable) {
+    add(identifiable, null);
+  }
+
+  /**
+   * Adds a link with the payload to store next to it.
+   *
+   * @param payload
+   *          can be null
+   */
+  public void add(final OIdentifiable identifiable, final byte[] payload) {
     if (identifiable == null)
       throw new NullPointerException("Impossible to add a null identifiable in a ridbag");
 
-    addEntry(identifiable);
+    addEntry(identifiable, payload);
 
     size++;
     contentWasChanged = true;
@@ -227,6 +252,7 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
     copy.contentWasChanged = contentWasChanged;
     copy.entries = entries;
     copy.entriesLength = entriesLength;
+    copy.payloads = payloads;
     copy.convertToRecord = convertToRecord;
     copy.size = size;
     copy.owner = owner;
@@ -252,6 +278,48 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
     }
   }
 
+  /**
+   * @return the payload of the first entry of the link, null if the bag does not contain it or the entry has no payload
+   */
+  public byte[] getPayload(final OIdentifiable identifiable) {
+    final int index = indexOf(identifiable);
+    return index > -1 && payloads != null ? payloads[index] : null;
+  }
+
+  /**
+   * Replaces the payload of the first entry of the link.
+   *
+   * @return false if the bag does not contain the link
+   */
+  public boolean setPayload(final OIdentifiable identifiable, final byte[] payload) {
+    final int index = indexOf(identifiable);
+    if (index < 0)
+      return false;
+
+    if (payloads == null && payload == null)
+      return true;
+
+    // THE ARRAY IS COPIED BECAUSE IT IS SHARED WITH THE COPIES OF THIS BAG
+    final byte[][] newPayloads = new byte[entries.length][];
+    if (payloads != null)
+      System.arraycopy(payloads, 0, newPayloads, 0, payloads.length);
+    newPayloads[index] = payload;
+    payloads = newPayloads;
+
+    contentWasChanged = true;
+    if (owner != null)
+      owner.setDirty();
+    return true;
+  }
+
+  public boolean hasPayloads() {
+    if (payloads != null)
+      for (int i = 0; i < entriesLength; i++)
+        if (payloads[i] != null && entries[i] instanceof OIdentifiable)
+          return true;
+    return false;
+  }
+
   @Override
   public boolean isEmpty() {
     return size == 0;
@@ -362,8 +430,8 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
   @Override
   public Object returnOriginalState(List<OMultiValueChangeEvent<OIdentifiable, OIdentifiable>> multiValueChangeEvents) {
     final OEmbeddedRidBag reverted = new OEmbeddedRidBag();
-    for (OIdentifiable identifiable : this)
-      reverted.add(identifiable);
+    for (EntriesIterator iterator = new EntriesIterator(convertToRecord); iterator.hasNext();)
+      reverted.add(iterator.next(), iterator.getPayload());
 
     final ListIterator<OMultiValueChangeEvent<OIdentifiable, OIdentifiable>> listIterator = multiValueChangeEvents
         .listIterator(multiValueChangeEvents.size());
@@ -393,6 +461,11 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
 
     size += this.size * OLinkSerializer.RID_SIZE;
 
+    if (hasPayloads())
+      for (int i = 0; i < entriesLength; i++)
+        if (entries[i] instanceof OIdentifiable)
+          size += OIntegerSerializer.INT_SIZE + (payloads[i] != null ? payloads[i].length : 0);
+
     return size;
   }
 
@@ -427,19 +500,57 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
       }
     }
 
+    if (hasPayloads())
+      // THE PAYLOADS FOLLOW THE LINKS IN THE SAME ORDER, THE OWNER FLAGS THEIR PRESENCE
+      for (int i = 0; i < entriesLength; i++)
+        if (entries[i] instanceof OIdentifiable) {
+          final byte[] payload = payloads[i];
+          OIntegerSerializer.INSTANCE.serializeLiteral(payload != null ? payload.length : -1, stream, offset);
+          offset += OIntegerSerializer.INT_SIZE;
+
+          if (payload != null) {
+            System.arraycopy(payload, 0, stream, offset, payload.length);
+            offset += payload.length;
+          }
+        }
+
     return offset;
   }
 
   @Override
   public int deserialize(final byte[] stream, int offset) {
+    return deserialize(stream, offset, false);
+  }
+
+  /**
+   * Reads the content written by {@link #serialize(byte[], int, UUID)}.
+   *
+   * @param withPayloads
+   *          if the links are followed by their payloads, which is the case when {@link #hasPayloads()} was true on
+   *          serialization
+   */
+  public int deserialize(final byte[] stream, int offset, final boolean withPayloads) {
     this.size = OIntegerSerializer.INSTANCE.deserializeLiteral(stream, offset);
     int entriesSize = OIntegerSerializer.INSTANCE.deserializeLiteral(stream, offset);
     offset += OIntegerSerializer.INT_SIZE;
 
+    int payloadsOffset = offset + entriesSize * OLinkSerializer.RID_SIZE;
     for (int i = 0; i < entriesSize; i++) {
       ORID rid = OLinkSerializer.INSTANCE.deserialize(stream, offset);
       offset += OLinkSerializer.RID_SIZE;
 
+      byte[] payload = null;
+      if (withPayloads) {
+        final int payloadLength = OIntegerSerializer.INSTANCE.deserializeLiteral(stream, payloadsOffset);
+        payloadsOffset += OIntegerSerializer.INT_SIZE;
+
+        if (payloadLength > -1) {
+          payload = new byte[payloadLength];
+          System.arraycopy(stream, payloadsOffset, payload, 0, payloadLength);
+          payloadsOffset += payloadLength;
+        }
+      }
+
       OIdentifiable identifiable = null;
       if (rid.isTemporary())
         identifiable = rid.getRecord();
@@ -450,10 +561,10 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
       if (identifiable == null)
         OLogManager.instance().warn(this, "Found null reference during ridbag deserialization (rid=%s)", rid);
       else
-        addEntry(identifiable);
+        addEntry(identifiable, payload);
     }
 
-    return offset;
+    return withPayloads ? payloadsOffset : offset;
   }
 
   @Override
@@ -481,7 +592,7 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
     }
   }
 
-  private void addEntry(final OIdentifiable identifiable) {
+  private void addEntry(final OIdentifiable identifiable, final byte[] payload) {
     if (entries.length == entriesLength) {
       if (entriesLength == 0) {
         final int cfgValue = OGlobalConfiguration.RID_BAG_EMBEDDED_TO_SBTREEBONSAI_THRESHOLD.getValueAsInteger();
@@ -492,24 +603,42 @@ public class OEmbeddedRidBag implements ORidBagDelegate {
         System.arraycopy(oldEntries, 0, entries, 0, oldEntries.length);
       }
     }
+    if (payloads != null && payloads.length < entries.length) {
+      final byte[][] oldPayloads = payloads;
+      payloads = new byte[entries.length][];
+      System.arraycopy(oldPayloads, 0, payloads, 0, oldPayloads.length);
+    }
     if (this.owner != null)
       ORecordInternal.track(this.owner, identifiable);
 
     entries[entriesLength] = identifiable;
+    if (payload != null) {
+      if (payloads == null)
+        payloads = new byte[entries.length][];
+      payloads[entriesLength] = payload;
+    } else if (payloads != null)
+      payloads[entriesLength] = null;
     entriesLength++;
   }
 
   private boolean removeEntry(OIdentifiable identifiable) {
-    int i = 0;
-    for (; i < entriesLength; i++) {
-      final Object entry = entries[i];
-      if (entry.equals(identifiable)) {
-        entries[i] = Tombstone.TOMBSTONE;
-        break;
-      }
-    }
+    final int i = indexOf(identifiable);
+    if (i < 0)
+      return false;
+
+    entries[i] = Tombstone.TOMBSTONE;
+    if (payloads != null)
+      payloads[i] = null;
+    return true;
+  }
+
+  private int indexOf(final OIdentifiable identifiable) {
+    if (identifiable != null)
+      for (int i = 0; i < entriesLength; i++)
+        if (entries[i].equals(identifiable))
+          return i;
 
-    return i < entriesLength;
+    return -1;
   }
 
   @Override
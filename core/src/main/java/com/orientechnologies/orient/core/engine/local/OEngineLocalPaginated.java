@@ -30,7 +30,9 @@ import com.orientechnologies.orient.core.engine.OEngineAbstract;
 import com.orientechnologies.orient.core.engine.OMemoryAndLocalPaginatedEnginesInitializer;
 import com.orientechnologies.orient.core.exception.ODatabaseException;
 import com.orientechnologies.orient.core.storage.OStorage;
+import com.orientechnologies.orient.core.storage.cache.OReadCache;
 import com.orientechnologies.orient.core.storage.cache.local.twoq.O2QCache;
+import com.orientechnologies.orient.core.storage.cache.local.twoq.OPartitioned2QCache;
 import com.orientechnologies.orient.core.storage.fs.OFileClassic;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.OLocalPaginatedStorage;
 
@@ -43,7 +45,7 @@ import java.util.Map;
 public class OEngineLocalPaginated extends OEngineAbstract {
   public static final String NAME = "plocal";
 
-  private volatile O2QCache readCache;
+  private volatile OReadCache readCache;
 
   protected final OClosableLinkedContainer<Long, OFileClassic> files = new OClosableLinkedContainer<Long, OFileClassic>(
       OGlobalConfiguration.OPEN_FILES_LIMIT.getValueAsInteger());
@@ -56,9 +58,7 @@ public class OEngineLocalPaginated extends OEngineAbstract {
     OMemoryAndLocalPaginatedEnginesInitializer.INSTANCE.initialize();
     super.startup();
 
-    readCache = new O2QCache(calculateReadCacheMaxMemory(OGlobalConfiguration.DISK_CACHE_SIZE.getValueAsLong() * 1024 * 1024),
-        OGlobalConfiguration.DISK_CACHE_PAGE_SIZE.getValueAsInteger() * 1024, true,
-        OGlobalConfiguration.DISK_CACHE_PINNED_PAGES.getValueAsInteger());
+    readCache = createReadCache(calculateReadCacheMaxMemory(OGlobalConfiguration.DISK_CACHE_SIZE.getValueAsLong() * 1024 * 1024));
 
     try {
       if (OByteBufferPool.instance() != null)
@@ -68,13 +68,38 @@ public class OEngineLocalPaginated extends OEngineAbstract {
     }
   }
 
+  /**
+   * Creates read cache implementation configured by {@link OGlobalConfiguration#DISK_CACHE_IMPLEMENTATION} property.
+   *
+   * @param readCacheMaxMemory Maximum amount of memory which may be used by read cache in bytes.
+   */
+  private OReadCache createReadCache(final long readCacheMaxMemory) {
+    final int pageSize = OGlobalConfiguration.DISK_CACHE_PAGE_SIZE.getValueAsInteger() * 1024;
+    final int percentOfPinnedPages = OGlobalConfiguration.DISK_CACHE_PINNED_PAGES.getValueAsInteger();
+
+    final String implementation = OGlobalConfiguration.DISK_CACHE_IMPLEMENTATION.getValueAsString();
+    if (OPartitioned2QCache.NAME.equalsIgnoreCase(implementation)) {
+      final OPartitioned2QCache cache = new OPartitioned2QCache(readCacheMaxMemory, pageSize, true, percentOfPinnedPages,
+          OGlobalConfiguration.DISK_CACHE_PARTITIONS.getValueAsInteger());
+      OLogManager.instance().info(this, "Partitioned 2Q read cache with %d partitions is used", cache.getPartitionsCount());
+      return cache;
+    }
+
+    if (!"2q".equalsIgnoreCase(implementation))
+      OLogManager.instance()
+          .warn(this, "Unknown read cache implementation '%s', 2Q cache will be used instead (property '%s')", implementation,
+              OGlobalConfiguration.DISK_CACHE_IMPLEMENTATION.getKey());
+
+    return new O2QCache(readCacheMaxMemory, pageSize, true, percentOfPinnedPages);
+  }
+
   private long calculateReadCacheMaxMemory(final long cacheSize) {
     return (long) (cacheSize * ((100 - OGlobalConfiguration.DISK_WRITE_CACHE_PART.getValueAsInteger()) / 100.0));
   }
 
   /**
    * @param cacheSize Cache size in bytes.
-   * @see O2QCache#changeMaximumAmountOfMemory(long)
+   * @see OReadCache#changeMaximumAmountOfMemory(long)
    */
   public void changeCacheSize(final long cacheSize) {
     if (readCache != null)
@@ -100,7 +125,7 @@ public class OEngineLocalPaginated extends OEngineAbstract {
     return NAME;
   }
 
-  public O2QCache getReadCache() {
+  public OReadCache getReadCache() {
     return readCache;
   }
 
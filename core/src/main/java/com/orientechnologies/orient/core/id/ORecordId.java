@@ -37,6 +37,7 @@ public class ORecordId implements ORID {
   public static final  ORecordId EMPTY_RECORD_ID        = new ORecordId();
   public static final  byte[]    EMPTY_RECORD_ID_STREAM = EMPTY_RECORD_ID.toStream();
   public static final  int       PERSISTENT_SIZE        = OBinaryProtocol.SIZE_SHORT + OBinaryProtocol.SIZE_LONG;
+  private static final long      PACKED_POSITION_LIMIT  = 1L << 47;
   private static final long      serialVersionUID       = 247070594054408657L;
   // INT TO AVOID JVM PENALTY, BUT IT'S STORED AS SHORT
   private              int       clusterId              = CLUSTER_ID_INVALID;
@@ -79,6 +80,26 @@ public class ORecordId implements ORID {
     return buffer.toString();
   }
 
+  /**
+   * Packs a record id in a long, with the cluster id in the highest 16 bits and the cluster position in the other 48. Used by the
+   * collections of primitive longs to keep record ids without allocating an object for each of them.
+   *
+   * @see #fromLong(long)
+   */
+  public static long toLong(final ORID rid) {
+    final long position = rid.getClusterPosition();
+    if (position >= PACKED_POSITION_LIMIT || position < -PACKED_POSITION_LIMIT)
+      throw new IllegalArgumentException("Cluster position of record " + rid + " cannot be packed in 48 bits");
+    return ((long) rid.getClusterId() << 48) | (position & 0xFFFFFFFFFFFFL);
+  }
+
+  /**
+   * @return the record id packed by {@link #toLong(ORID)}
+   */
+  public static ORecordId fromLong(final long packed) {
+    return new ORecordId((int) (packed >> 48), (packed << 16) >> 16);
+  }
+
   public static boolean isValid(final long pos) {
     return pos != CLUSTER_POS_INVALID;
   }
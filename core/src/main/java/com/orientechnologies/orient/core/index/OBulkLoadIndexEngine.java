@@ -0,0 +1,44 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.index;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Index engine which is able to fill empty index by entries sorted by key much faster than by sequence of
+ * {@link #put(Object, Object)} calls. It is used during creation and rebuild of index.
+ *
+ * @see OIndexAbstract#rebuild()
+ */
+public interface OBulkLoadIndexEngine extends OIndexEngine {
+  /**
+   * Converts key in the form in which it is stored by engine. Entries passed to {@link #bulkLoad(Iterator)} have to be sorted by
+   * converted keys, because conversion may change order of keys or make different keys equal.
+   */
+  Object preprocessKey(Object key);
+
+  /**
+   * Fills empty index by passed in entries. Keys of entries have to be converted by {@link #preprocessKey(Object)}, be unique and
+   * sorted in ascending order, entry with <code>null</code> key if any has to be the first one.
+   */
+  void bulkLoad(Iterator<Map.Entry<Object, Object>> entries);
+}
@@ -17,6 +17,7 @@ package com.orientechnologies.orient.core.index;
 
 import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.exception.OConfigurationException;
+import com.orientechnologies.orient.core.index.engine.OPrefixSBTreeIndexEngine;
 import com.orientechnologies.orient.core.index.engine.ORemoteIndexEngine;
 import com.orientechnologies.orient.core.index.engine.OSBTreeIndexEngine;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
@@ -41,7 +42,8 @@ import java.util.Set;
  */
 public class ODefaultIndexFactory implements OIndexFactory {
 
-  public static final String SBTREE_ALGORITHM = "SBTREE";
+  public static final String SBTREE_ALGORITHM        = "SBTREE";
+  public static final String PREFIX_SBTREE_ALGORITHM = "PREFIX_SBTREE";
 
   public static final String SBTREEBONSAI_VALUE_CONTAINER = "SBTREEBONSAISET";
   public static final String NONE_VALUE_CONTAINER         = "NONE";
@@ -61,6 +63,7 @@ public class ODefaultIndexFactory implements OIndexFactory {
   static {
     final Set<String> algorithms = new HashSet<String>();
     algorithms.add(SBTREE_ALGORITHM);
+    algorithms.add(PREFIX_SBTREE_ALGORITHM);
     ALGORITHMS = Collections.unmodifiableSet(algorithms);
   }
 
@@ -101,24 +104,24 @@ public class ODefaultIndexFactory implements OIndexFactory {
     if (version < 0)
       version = getLastVersion();
 
-    if (SBTREE_ALGORITHM.equals(algorithm))
-      return createSBTreeIndex(name, indexType, valueContainerAlgorithm, metadata,
+    if (SBTREE_ALGORITHM.equals(algorithm) || PREFIX_SBTREE_ALGORITHM.equals(algorithm))
+      return createSBTreeIndex(name, indexType, algorithm, valueContainerAlgorithm, metadata,
           (OAbstractPaginatedStorage) database.getStorage().getUnderlying(), version);
 
     throw new OConfigurationException("Unsupported type: " + indexType);
   }
 
-  private OIndexInternal<?> createSBTreeIndex(String name, String indexType, String valueContainerAlgorithm, ODocument metadata,
-      OAbstractPaginatedStorage storage, int version) {
+  private OIndexInternal<?> createSBTreeIndex(String name, String indexType, String algorithm, String valueContainerAlgorithm,
+      ODocument metadata, OAbstractPaginatedStorage storage, int version) {
 
     if (OClass.INDEX_TYPE.UNIQUE.toString().equals(indexType)) {
-      return new OIndexUnique(name, indexType, SBTREE_ALGORITHM, version, storage, valueContainerAlgorithm, metadata);
+      return new OIndexUnique(name, indexType, algorithm, version, storage, valueContainerAlgorithm, metadata);
     } else if (OClass.INDEX_TYPE.NOTUNIQUE.toString().equals(indexType)) {
-      return new OIndexNotUnique(name, indexType, SBTREE_ALGORITHM, version, storage, valueContainerAlgorithm, metadata);
+      return new OIndexNotUnique(name, indexType, algorithm, version, storage, valueContainerAlgorithm, metadata);
     } else if (OClass.INDEX_TYPE.FULLTEXT.toString().equals(indexType)) {
-      return new OIndexFullText(name, indexType, SBTREE_ALGORITHM, version, storage, valueContainerAlgorithm, metadata);
+      return new OIndexFullText(name, indexType, algorithm, version, storage, valueContainerAlgorithm, metadata);
     } else if (OClass.INDEX_TYPE.DICTIONARY.toString().equals(indexType)) {
-      return new OIndexDictionary(name, indexType, SBTREE_ALGORITHM, version, storage, valueContainerAlgorithm, metadata);
+      return new OIndexDictionary(name, indexType, algorithm, version, storage, valueContainerAlgorithm, metadata);
     }
 
     throw new OConfigurationException("Unsupported type: " + indexType);
@@ -137,10 +140,11 @@ public class ODefaultIndexFactory implements OIndexFactory {
 
     final String storageType = storage.getType();
     if (storageType.equals("memory") || storageType.equals("plocal"))
-      indexEngine = new OSBTreeIndexEngine(name, durableInNonTxMode, (OAbstractPaginatedStorage) storage, version);
+      indexEngine = createSBTreeIndexEngine(algorithm, name, durableInNonTxMode, (OAbstractPaginatedStorage) storage, version);
     else if (storageType.equals("distributed"))
       // DISTRIBUTED CASE: HANDLE IT AS FOR LOCAL
-      indexEngine = new OSBTreeIndexEngine(name, durableInNonTxMode, (OAbstractPaginatedStorage) storage.getUnderlying(), version);
+      indexEngine = createSBTreeIndexEngine(algorithm, name, durableInNonTxMode,
+          (OAbstractPaginatedStorage) storage.getUnderlying(), version);
     else if (storageType.equals("remote"))
       indexEngine = new ORemoteIndexEngine(name);
     else
@@ -148,4 +152,12 @@ public class ODefaultIndexFactory implements OIndexFactory {
 
     return indexEngine;
   }
+
+  private OIndexEngine createSBTreeIndexEngine(String algorithm, String name, Boolean durableInNonTxMode,
+      OAbstractPaginatedStorage storage, int version) {
+    if (PREFIX_SBTREE_ALGORITHM.equals(algorithm))
+      return new OPrefixSBTreeIndexEngine(name, durableInNonTxMode, storage, version);
+
+    return new OSBTreeIndexEngine(name, durableInNonTxMode, storage, version);
+  }
 }
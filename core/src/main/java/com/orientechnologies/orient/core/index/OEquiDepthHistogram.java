@@ -0,0 +1,256 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.orientechnologies.orient.core.index;
+
+import com.orientechnologies.common.comparator.ODefaultComparator;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Equi-depth histogram of index keys. Every bucket contains about the same amount of index entries and is described by its
+ * inclusive upper bound, amount of entries and amount of distinct keys, entries of the same key are never split between buckets.
+ * Histogram of composite index is built on the first field of keys.
+ *
+ * @see OIndexStatistics
+ */
+public class OEquiDepthHistogram {
+  private final Object   min;
+  private final Object[] bounds;
+  private final long[]   counts;
+  private final long[]   distincts;
+
+  private OEquiDepthHistogram(Object min, Object[] bounds, long[] counts, long[] distincts) {
+    this.min = min;
+    this.bounds = bounds;
+    this.counts = counts;
+    this.distincts = distincts;
+  }
+
+  public int getBuckets() {
+    return bounds.length;
+  }
+
+  public long getEntries() {
+    long entries = 0;
+    for (long count : counts)
+      entries += count;
+
+    return entries;
+  }
+
+  /**
+   * @return Estimated amount of entries which key is equal to passed in value or <code>-1</code> if value cannot be compared with
+   * keys of histogram.
+   */
+  public double estimateEquals(Object value) {
+    final Object probe = convert(value);
+    if (probe == null)
+      return -1;
+
+    if (compare(probe, min) < 0)
+      return 0;
+
+    for (int i = 0; i < bounds.length; i++) {
+      if (compare(probe, bounds[i]) <= 0)
+        return (double) counts[i] / distincts[i];
+    }
+
+    return 0;
+  }
+
+  /**
+   * Estimates amount of entries which keys are between passed in values. Bounds are treated as inclusive, entries of buckets which
+   * are only partially covered by range are interpolated for numeric keys and are taken by half otherwise.
+   *
+   * @param from Lower bound of range or <code>null</code> if range is not bounded from below.
+   * @param to   Upper bound of range or <code>null</code> if range is not bounded from above.
+   * @return Estimated amount of entries or <code>-1</code> if values cannot be compared with keys of histogram.
+   */
+  public double estimateRange(Object from, Object to) {
+    final Object fromProbe = from != null ? convert(from) : null;
+    final Object toProbe = to != null ? convert(to) : null;
+    if ((from != null && fromProbe == null) || (to != null && toProbe == null))
+      return -1;
+
+    if (fromProbe != null && toProbe != null && compare(fromProbe, toProbe) > 0)
+      return 0;
+
+    double entries = 0;
+    Object lower = min;
+    for (int i = 0; i < bounds.length; i++) {
+      final Object upper = bounds[i];
+
+      final boolean coversLower = fromProbe == null || compare(fromProbe, lower) <= 0;
+      final boolean coversUpper = toProbe == null || compare(toProbe, upper) >= 0;
+      final boolean outside = (fromProbe != null && compare(fromProbe, upper) > 0) || (toProbe != null
+          && compare(toProbe, lower) < 0);
+
+      if (!outside) {
+        if (coversLower && coversUpper)
+          entries += counts[i];
+        else
+          entries += counts[i] * fraction(lower, upper, coversLower ? lower : fromProbe, coversUpper ? upper : toProbe);
+      }
+
+      lower = upper;
+    }
+
+    return entries;
+  }
+
+  public ODocument toDocument() {
+    final List<Object> boundsList = new ArrayList<Object>(bounds.length);
+    final List<Long> countsList = new ArrayList<Long>(bounds.length);
+    final List<Long> distinctsList = new ArrayList<Long>(bounds.length);
+
+    for (int i = 0; i < bounds.length; i++) {
+      boundsList.add(bounds[i]);
+      countsList.add(counts[i]);
+      distinctsList.add(distincts[i]);
+    }
+
+    final ODocument document = new ODocument();
+    document.field("min", min);
+    document.field("bounds", boundsList, OType.EMBEDDEDLIST);
+    document.field("counts", countsList, OType.EMBEDDEDLIST);
+    document.field("distincts", distinctsList, OType.EMBEDDEDLIST);
+    return document;
+  }
+
+  public static OEquiDepthHistogram fromDocument(ODocument document) {
+    final List<Object> boundsList = document.field("bounds");
+    final List<Number> countsList = document.field("counts");
+    final List<Number> distinctsList = document.field("distincts");
+
+    final Object[] bounds = boundsList.toArray();
+    final long[] counts = new long[bounds.length];
+    final long[] distincts = new long[bounds.length];
+    for (int i = 0; i < bounds.length; i++) {
+      counts[i] = countsList.get(i).longValue();
+      distincts[i] = distinctsList.get(i).longValue();
+    }
+
+    return new OEquiDepthHistogram(document.field("min"), bounds, counts, distincts);
+  }
+
+  private Object convert(Object value) {
+    if (value == null)
+      return null;
+
+    final Class<?> keyClass = min.getClass();
+    if (keyClass.isInstance(value))
+      return value;
+
+    try {
+      return OType.convert(value, keyClass);
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static int compare(Object valueOne, Object valueTwo) {
+    return ODefaultComparator.INSTANCE.compare(valueOne, valueTwo);
+  }
+
+  private static double fraction(Object lower, Object upper, Object from, Object to) {
+    if (lower instanceof Number && upper instanceof Number && from instanceof Number && to instanceof Number) {
+      final double width = ((Number) upper).doubleValue() - ((Number) lower).doubleValue();
+      if (width <= 0)
+        return 1;
+
+      return Math.max(0, Math.min(1, (((Number) to).doubleValue() - ((Number) from).doubleValue()) / width));
+    }
+
+    return 0.5;
+  }
+
+  /**
+   * Builds histogram from keys passed in ascending order.
+   */
+  public static class Builder {
+    private final long depth;
+
+    private final List<Object> bounds    = new ArrayList<Object>();
+    private final List<Long>   counts    = new ArrayList<Long>();
+    private final List<Long>   distincts = new ArrayList<Long>();
+
+    private Object min;
+    private Object last;
+    private long   count;
+    private long   distinct;
+
+    /**
+     * @param entries Expected amount of entries.
+     * @param buckets Maximum amount of buckets.
+     */
+    public Builder(long entries, int buckets) {
+      this.depth = Math.max(1, (entries + buckets - 1) / buckets);
+    }
+
+    public void add(Object key) {
+      if (min == null) {
+        min = key;
+        distinct = 1;
+      } else if (compare(key, last) != 0) {
+        if (count >= depth)
+          closeBucket();
+
+        distinct++;
+      }
+
+      last = key;
+      count++;
+    }
+
+    /**
+     * @return Histogram or <code>null</code> if no keys were added.
+     */
+    public OEquiDepthHistogram build() {
+      if (min == null)
+        return null;
+
+      if (count > 0)
+        closeBucket();
+
+      final long[] countsArray = new long[counts.size()];
+      final long[] distinctsArray = new long[distincts.size()];
+      for (int i = 0; i < countsArray.length; i++) {
+        countsArray[i] = counts.get(i);
+        distinctsArray[i] = distincts.get(i);
+      }
+
+      return new OEquiDepthHistogram(min, bounds.toArray(), countsArray, distinctsArray);
+    }
+
+    private void closeBucket() {
+      bounds.add(last);
+      counts.add(count);
+      distincts.add(distinct);
+
+      count = 0;
+      distinct = 0;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.orientechnologies.orient.core.index;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch which estimates amount of distinct keys of index using fixed amount of memory. Keys are hashed by their
+ * {@link Object#hashCode()} mixed by finalizer of murmur3 hash, so estimation is stable between restarts of JVM for all types
+ * of keys supported by indexes. Standard error of estimation is about 3%.
+ *
+ * @see OIndexStatistics
+ */
+public class OHyperLogLog {
+  private static final int PRECISION = 10;
+  private static final int REGISTERS = 1 << PRECISION;
+  private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+  private final byte[] registers;
+
+  public OHyperLogLog() {
+    registers = new byte[REGISTERS];
+  }
+
+  /**
+   * @param registers Content of sketch returned by {@link #toBytes()}.
+   */
+  public OHyperLogLog(byte[] registers) {
+    if (registers == null || registers.length != REGISTERS)
+      throw new IllegalArgumentException("Invalid content of HyperLogLog sketch");
+
+    this.registers = registers.clone();
+  }
+
+  public void add(Object key) {
+    final long hash = hash(key);
+    final int register = (int) (hash >>> (64 - PRECISION));
+    final byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+
+    if (registers[register] < rank)
+      registers[register] = rank;
+  }
+
+  public long estimate() {
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += 1.0 / (1L << register);
+      if (register == 0)
+        zeros++;
+    }
+
+    final double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+    // linear counting is much more precise for small cardinalities
+    if (estimate <= 2.5 * REGISTERS && zeros > 0)
+      return Math.round(REGISTERS * Math.log((double) REGISTERS / zeros));
+
+    return Math.round(estimate);
+  }
+
+  public void clear() {
+    Arrays.fill(registers, (byte) 0);
+  }
+
+  public byte[] toBytes() {
+    return registers.clone();
+  }
+
+  private static long hash(Object key) {
+    long hash = (key != null ? key.hashCode() : 0) + 0x9e3779b97f4a7c15L;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -28,6 +28,7 @@ import com.orientechnologies.common.exception.OException;
 import com.orientechnologies.common.listener.OProgressListener;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.common.serialization.types.OBinarySerializer;
+import com.orientechnologies.common.util.ORawPair;
 import com.orientechnologies.orient.core.OOrientShutdownListener;
 import com.orientechnologies.orient.core.OOrientStartupListener;
 import com.orientechnologies.orient.core.Orient;
@@ -41,6 +42,7 @@ import com.orientechnologies.orient.core.exception.OCommandExecutionException;
 import com.orientechnologies.orient.core.exception.OConfigurationException;
 import com.orientechnologies.orient.core.exception.OInvalidIndexEngineIdException;
 import com.orientechnologies.orient.core.exception.OTooBigIndexKeyException;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.intent.OIntentMassiveInsert;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.ORecord;
@@ -51,10 +53,12 @@ import com.orientechnologies.orient.core.storage.cache.OReadCache;
 import com.orientechnologies.orient.core.storage.cache.OWriteCache;
 import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
 import com.orientechnologies.orient.core.storage.impl.local.OIndexEngineCallback;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.OLocalPaginatedStorage;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.atomicoperations.OAtomicOperation;
 import com.orientechnologies.orient.core.tx.OTransactionIndexChanges;
 import com.orientechnologies.orient.core.tx.OTransactionIndexChangesPerKey;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
@@ -70,8 +74,9 @@ import java.util.concurrent.locks.Lock;
  */
 public abstract class OIndexAbstract<T> implements OIndexInternal<T>, OOrientStartupListener, OOrientShutdownListener {
 
-  protected static final String CONFIG_MAP_RID  = "mapRid";
-  protected static final String CONFIG_CLUSTERS = "clusters";
+  protected static final String CONFIG_MAP_RID    = "mapRid";
+  protected static final String CONFIG_CLUSTERS   = "clusters";
+  protected static final String CONFIG_STATISTICS = "statistics";
   protected final    String               type;
   protected final    OLockManager<Object> keyLockManager;
   protected volatile IndexConfiguration   configuration;
@@ -92,6 +97,7 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T>, OOrientSta
   private String algorithm;
   private Set<String> clustersToIndex = new HashSet<String>();
   private volatile OIndexDefinition indexDefinition;
+  private volatile OIndexStatistics statistics;
   private volatile boolean                      rebuilding       = false;
   private volatile ThreadLocal<IndexTxSnapshot> txSnapshot       = new IndexTxSnapshotThreadLocal();
   private          Map<String, String>          engineProperties = new HashMap<String, String>();
@@ -325,6 +331,9 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T>, OOrientSta
       algorithm = indexMetadata.getAlgorithm();
       valueContainerAlgorithm = indexMetadata.getValueContainerAlgorithm();
 
+      final ODocument statisticsDocument = config.field(CONFIG_STATISTICS);
+      statistics = statisticsDocument != null ? OIndexStatistics.fromDocument(statisticsDocument) : null;
+
       try {
         indexId = storage.loadIndexEngine(name);
 
@@ -523,10 +532,17 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T>, OOrientSta
       releaseSharedLock();
     }
 
+    if (statistics != null)
+      analyze();
+
     return documentIndexed;
   }
 
   private long fillIndex(OProgressListener iProgressListener) {
+    final OBulkLoadIndexEngine bulkLoadEngine = getBulkLoadEngine();
+    final OIndexEntriesSorter sorter = bulkLoadEngine != null ? new OIndexEntriesSorter(name, getBulkLoadDirectory(),
+        indexDefinition.getTypes(), OGlobalConfiguration.INDEX_BULK_LOAD_CHUNK_SIZE.getValueAsInteger()) : null;
+
     long documentIndexed = 0;
     try {
       long documentNum = 0;
@@ -540,21 +556,118 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T>, OOrientSta
 
       // INDEX ALL CLUSTERS
       for (final String clusterName : clustersToIndex) {
-        final long[] metrics = indexCluster(clusterName, iProgressListener, documentNum, documentIndexed, documentTotal);
+        final long[] metrics = indexCluster(clusterName, iProgressListener, documentNum, documentIndexed, documentTotal,
+            bulkLoadEngine, sorter);
         documentNum = metrics[0];
         documentIndexed = metrics[1];
       }
 
+      if (sorter != null)
+        bulkLoad(sorter);
+
       if (iProgressListener != null)
         iProgressListener.onCompletition(this, true);
     } catch (final RuntimeException e) {
       if (iProgressListener != null)
         iProgressListener.onCompletition(this, false);
       throw e;
+    } finally {
+      if (sorter != null)
+        sorter.close();
     }
     return documentIndexed;
   }
 
+  /**
+   * @return Index engine if index can be filled by entries sorted by key, <code>null</code> if entries have to be put one by one.
+   */
+  private OBulkLoadIndexEngine getBulkLoadEngine() {
+    if (!OGlobalConfiguration.INDEX_BULK_LOAD.getValueAsBoolean() || !supportsBulkLoad())
+      return null;
+
+    if (indexDefinition == null || indexDefinition instanceof ORuntimeKeyIndexDefinition || !OIndexEntriesSorter
+        .isSupported(indexDefinition.getTypes()))
+      return null;
+
+    if (getDatabase().getTransaction().isActive())
+      return null;
+
+    OIndexEngine engine;
+    while (true)
+      try {
+        engine = storage.getIndexEngine(indexId);
+        break;
+      } catch (OInvalidIndexEngineIdException e) {
+        doReloadIndexEngine();
+      }
+
+    if (engine instanceof OBulkLoadIndexEngine)
+      return (OBulkLoadIndexEngine) engine;
+
+    return null;
+  }
+
+  private File getBulkLoadDirectory() {
+    if (storage instanceof OLocalPaginatedStorage)
+      return new File(((OLocalPaginatedStorage) storage).getStoragePath());
+
+    return null;
+  }
+
+  private void bulkLoad(final OIndexEntriesSorter sorter) {
+    final Iterator<ORawPair<Object, List<ORID>>> sortedEntries;
+    try {
+      sortedEntries = sorter.sortedEntries();
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during sorting of entries of index '" + name + "'"), e);
+    }
+
+    final Iterator<Map.Entry<Object, Object>> entries = new Iterator<Map.Entry<Object, Object>>() {
+      @Override
+      public boolean hasNext() {
+        return sortedEntries.hasNext();
+      }
+
+      @Override
+      public Map.Entry<Object, Object> next() {
+        final ORawPair<Object, List<ORID>> entry = sortedEntries.next();
+        return new AbstractMap.SimpleImmutableEntry<Object, Object>(entry.getFirst(),
+            bulkLoadValue(entry.getFirst(), entry.getSecond()));
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+
+    while (true)
+      try {
+        storage.bulkLoadIndex(indexId, entries);
+        break;
+      } catch (OInvalidIndexEngineIdException e) {
+        doReloadIndexEngine();
+      }
+  }
+
+  /**
+   * Indicates whether index can be filled during its creation and rebuild by entries sorted by key instead of calls of
+   * {@link #put(Object, OIdentifiable)}.
+   *
+   * @see #bulkLoadValue(Object, List)
+   */
+  protected boolean supportsBulkLoad() {
+    return false;
+  }
+
+  /**
+   * Converts records which are indexed by the same key during bulk load of index into the value stored in index engine, records
+   * are passed in the order in which they were found.
+   */
+  protected Object bulkLoadValue(Object key, List<ORID> values) {
+    throw new UnsupportedOperationException("Bulk load is not supported by index " + name);
+  }
+
   public boolean remove(Object key, final OIdentifiable value) {
     return remove(key);
   }
@@ -572,7 +685,11 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T>, OOrientSta
       try {
         while (true)
           try {
-            return storage.removeKeyFromIndex(indexId, key);
+            final boolean removed = storage.removeKeyFromIndex(indexId, key);
+            if (removed)
+              onRemove();
+
+            return removed;
           } catch (OInvalidIndexEngineIdException e) {
             doReloadIndexEngine();
           }
@@ -629,6 +746,11 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T>, OOrientSta
           } catch (OInvalidIndexEngineIdException e) {
             doReloadIndexEngine();
           }
+
+        final OIndexStatistics indexStatistics = statistics;
+        if (indexStatistics != null)
+          indexStatistics.onClear();
+
         return this;
       } finally {
         releaseSharedLock();
@@ -752,9 +874,45 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T>, OOrientSta
     configuration.updateConfiguration(type, name, version, indexDefinition, clustersToIndex, algorithm, valueContainerAlgorithm);
     if (metadata != null)
       configuration.document.field(OIndexInternal.METADATA, metadata, OType.EMBEDDED);
+
+    final OIndexStatistics indexStatistics = statistics;
+    if (indexStatistics != null)
+      configuration.document.field(CONFIG_STATISTICS, indexStatistics.toDocument(), OType.EMBEDDED);
+    else
+      configuration.document.removeField(CONFIG_STATISTICS);
+
     return configuration.getDocument();
   }
 
+  /**
+   * @return Statistics of index or <code>null</code> if index was never analyzed.
+   */
+  public OIndexStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Collects statistics of index by scanning all its entries. Statistics are kept up to date incrementally after that and are saved
+   * together with index configuration.
+   */
+  public OIndexStatistics analyze() {
+    final OIndexStatistics indexStatistics = OIndexStatistics.analyze(this);
+    statistics = indexStatistics;
+    return indexStatistics;
+  }
+
+  protected void onPut(Object key) {
+    final OIndexStatistics indexStatistics = statistics;
+    if (indexStatistics != null)
+      indexStatistics.onPut(key);
+  }
+
+  protected void onRemove() {
+    final OIndexStatistics indexStatistics = statistics;
+    if (indexStatistics != null)
+      indexStatistics.onRemove();
+  }
+
   public void addTxOperation(final OTransactionIndexChanges changes) {
     acquireSharedLock();
     try {
@@ -1025,6 +1183,11 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T>, OOrientSta
 
   protected long[] indexCluster(final String clusterName, final OProgressListener iProgressListener, long documentNum,
       long documentIndexed, long documentTotal) {
+    return indexCluster(clusterName, iProgressListener, documentNum, documentIndexed, documentTotal, null, null);
+  }
+
+  private long[] indexCluster(final String clusterName, final OProgressListener iProgressListener, long documentNum,
+      long documentIndexed, long documentTotal, final OBulkLoadIndexEngine bulkLoadEngine, final OIndexEntriesSorter sorter) {
     try {
       for (final ORecord record : getDatabase().browseCluster(clusterName)) {
         if (Thread.interrupted())
@@ -1040,17 +1203,20 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T>, OOrientSta
           final Object fieldValue = indexDefinition.getDocumentValueToIndex(doc);
 
           if (fieldValue != null || !indexDefinition.isNullValuesIgnored()) {
-            try {
-              populateIndex(doc, fieldValue);
-            } catch (OTooBigIndexKeyException e) {
-              OLogManager.instance().error(this,
-                  "Exception during index rebuild. Exception was caused by following key/ value pair - key %s, value %s."
-                      + " Rebuild will continue from this point", e, fieldValue, doc.getIdentity());
-            } catch (OIndexException e) {
-              OLogManager.instance().error(this,
-                  "Exception during index rebuild. Exception was caused by following key/ value pair - key %s, value %s."
-                      + " Rebuild will continue from this point", e, fieldValue, doc.getIdentity());
-            }
+            if (sorter != null)
+              addToSorter(bulkLoadEngine, sorter, doc, fieldValue);
+            else
+              try {
+                populateIndex(doc, fieldValue);
+              } catch (OTooBigIndexKeyException e) {
+                OLogManager.instance().error(this,
+                    "Exception during index rebuild. Exception was caused by following key/ value pair - key %s, value %s."
+                        + " Rebuild will continue from this point", e, fieldValue, doc.getIdentity());
+              } catch (OIndexException e) {
+                OLogManager.instance().error(this,
+                    "Exception during index rebuild. Exception was caused by following key/ value pair - key %s, value %s."
+                        + " Rebuild will continue from this point", e, fieldValue, doc.getIdentity());
+              }
 
             ++documentIndexed;
           }
@@ -1067,6 +1233,18 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T>, OOrientSta
     return new long[] { documentNum, documentIndexed };
   }
 
+  private void addToSorter(OBulkLoadIndexEngine bulkLoadEngine, OIndexEntriesSorter sorter, ODocument doc, Object fieldValue) {
+    try {
+      if (fieldValue instanceof Collection) {
+        for (final Object fieldValueItem : (Collection<?>) fieldValue)
+          sorter.add(bulkLoadEngine.preprocessKey(getCollatingValue(fieldValueItem)), doc.getIdentity());
+      } else
+        sorter.add(bulkLoadEngine.preprocessKey(getCollatingValue(fieldValue)), doc.getIdentity());
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during sorting of entries of index '" + name + "'"), e);
+    }
+  }
+
   protected void releaseExclusiveLock() {
     rwLock.releaseWriteLock();
   }
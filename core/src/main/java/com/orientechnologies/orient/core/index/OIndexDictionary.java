@@ -19,6 +19,7 @@
  */
 package com.orientechnologies.orient.core.index;
 
+import com.orientechnologies.common.types.OModifiableBoolean;
 import com.orientechnologies.orient.core.db.ODatabase;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.exception.OInvalidIndexEngineIdException;
@@ -34,6 +35,16 @@ import com.orientechnologies.orient.core.tx.OTransactionIndexChangesPerKey;
  */
 public class OIndexDictionary extends OIndexOneValue {
 
+  private static final OIndexEngine.Validator<Object, OIdentifiable> OVERWRITE_VALIDATOR = new OIndexEngine.Validator<Object, OIdentifiable>() {
+    @Override
+    public Object validate(Object key, OIdentifiable oldValue, OIdentifiable newValue) {
+      if (oldValue != null && oldValue.equals(newValue))
+        return OIndexEngine.Validator.IGNORE;
+
+      return newValue;
+    }
+  };
+
   public OIndexDictionary(String name, String typeId, String algorithm, int version, OAbstractPaginatedStorage storage,
       String valueContainerAlgorithm, ODocument metadata) {
     super(name, typeId, algorithm, version, storage, valueContainerAlgorithm, metadata);
@@ -53,15 +64,21 @@ public class OIndexDictionary extends OIndexOneValue {
     try {
       acquireSharedLock();
       try {
+        final OModifiableBoolean added = new OModifiableBoolean(false);
         while (true) {
           try {
-            storage.putIndexValue(indexId, key, value);
-            return this;
+            storage.validatedPutIndexValue(indexId, key, value, new KeyAddedValidator(OVERWRITE_VALIDATOR, added));
+            break;
           } catch (OInvalidIndexEngineIdException e) {
             doReloadIndexEngine();
           }
         }
 
+        if (added.getValue())
+          onPut(key);
+
+        return this;
+
       } finally {
         releaseSharedLock();
       }
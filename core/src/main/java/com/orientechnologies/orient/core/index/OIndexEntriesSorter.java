@@ -0,0 +1,318 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.index;
+
+import com.orientechnologies.common.comparator.ODefaultComparator;
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.util.ORawPair;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializerFactory;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.index.OCompositeKeySerializer;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Sorts entries of index by key during bulk load of index. Entries are gathered in memory till their amount reaches size of chunk,
+ * then chunk is sorted and stored in temporary file. Sorted chunks are merged when entries are fetched, values of entries with equal
+ * keys are grouped together in the order in which they were added. Entries with <code>null</code> key are returned first.
+ * <p>
+ * Keys have to be preprocessed by index engine before they are added, so they are sorted in the same order as inside of index.
+ *
+ * @see OBulkLoadIndexEngine
+ */
+public class OIndexEntriesSorter {
+  private static final Comparator<Object> KEY_COMPARATOR = ODefaultComparator.INSTANCE;
+
+  private static final Comparator<ORawPair<Object, ORID>> ENTRY_COMPARATOR = new Comparator<ORawPair<Object, ORID>>() {
+    @Override
+    public int compare(ORawPair<Object, ORID> entryOne, ORawPair<Object, ORID> entryTwo) {
+      return KEY_COMPARATOR.compare(entryOne.getFirst(), entryTwo.getFirst());
+    }
+  };
+
+  private final String  name;
+  private final File    directory;
+  private final OType[] keyTypes;
+  private final int     chunkSize;
+
+  private final List<ORID>                   nullKeyValues = new ArrayList<ORID>();
+  private final List<File>                   chunkFiles    = new ArrayList<File>();
+  private final List<ChunkCursor>            cursors       = new ArrayList<ChunkCursor>();
+  private       List<ORawPair<Object, ORID>> chunk         = new ArrayList<ORawPair<Object, ORID>>();
+
+  /**
+   * @param name      Name of index, used as prefix of temporary files.
+   * @param directory Directory where temporary files are created, system temporary directory is used if <code>null</code>.
+   * @param keyTypes  Types of key items which are used for serialization of keys in temporary files.
+   * @param chunkSize Amount of entries which are sorted in memory.
+   */
+  public OIndexEntriesSorter(String name, File directory, OType[] keyTypes, int chunkSize) {
+    this.name = name;
+    this.directory = directory;
+    this.keyTypes = keyTypes;
+    this.chunkSize = Math.max(chunkSize, 1);
+  }
+
+  /**
+   * @return <code>true</code> if keys which consist of items of passed in types can be stored in temporary files.
+   */
+  public static boolean isSupported(OType[] keyTypes) {
+    if (keyTypes == null || keyTypes.length == 0)
+      return false;
+
+    final OBinarySerializerFactory serializerFactory = OBinarySerializerFactory.getInstance();
+    for (OType keyType : keyTypes) {
+      if (keyType == null || serializerFactory.getObjectSerializer(keyType) == null)
+        return false;
+    }
+
+    return true;
+  }
+
+  public void add(Object key, ORID value) throws IOException {
+    if (key == null) {
+      nullKeyValues.add(value);
+      return;
+    }
+
+    chunk.add(new ORawPair<Object, ORID>(key, value));
+
+    if (chunk.size() >= chunkSize)
+      spillChunk();
+  }
+
+  /**
+   * @return Keys in ascending order together with all values added for them. Can be called only once.
+   */
+  public Iterator<ORawPair<Object, List<ORID>>> sortedEntries() throws IOException {
+    Collections.sort(chunk, ENTRY_COMPARATOR);
+
+    for (File chunkFile : chunkFiles)
+      cursors.add(new FileChunkCursor(cursors.size(), chunkFile));
+
+    cursors.add(new MemoryChunkCursor(cursors.size(), chunk));
+    chunk = new ArrayList<ORawPair<Object, ORID>>();
+
+    final PriorityQueue<ChunkCursor> queue = new PriorityQueue<ChunkCursor>(cursors.size(), new Comparator<ChunkCursor>() {
+      @Override
+      public int compare(ChunkCursor cursorOne, ChunkCursor cursorTwo) {
+        final int result = ENTRY_COMPARATOR.compare(cursorOne.current, cursorTwo.current);
+        if (result != 0)
+          return result;
+
+        return cursorOne.index < cursorTwo.index ? -1 : (cursorOne.index == cursorTwo.index ? 0 : 1);
+      }
+    });
+
+    for (ChunkCursor cursor : cursors) {
+      if (cursor.advance())
+        queue.add(cursor);
+    }
+
+    return new Iterator<ORawPair<Object, List<ORID>>>() {
+      private boolean nullKeyReturned = nullKeyValues.isEmpty();
+
+      @Override
+      public boolean hasNext() {
+        return !nullKeyReturned || !queue.isEmpty();
+      }
+
+      @Override
+      public ORawPair<Object, List<ORID>> next() {
+        if (!nullKeyReturned) {
+          nullKeyReturned = true;
+          return new ORawPair<Object, List<ORID>>(null, nullKeyValues);
+        }
+
+        if (queue.isEmpty())
+          throw new NoSuchElementException();
+
+        try {
+          ChunkCursor cursor = queue.poll();
+
+          final Object key = cursor.current.getFirst();
+          final List<ORID> values = new ArrayList<ORID>();
+
+          while (true) {
+            values.add(cursor.current.getSecond());
+
+            if (cursor.advance())
+              queue.add(cursor);
+
+            if (queue.isEmpty() || KEY_COMPARATOR.compare(queue.peek().current.getFirst(), key) != 0)
+              break;
+
+            cursor = queue.poll();
+          }
+
+          return new ORawPair<Object, List<ORID>>(key, values);
+        } catch (IOException e) {
+          throw OException.wrapException(new OIndexException("Error during reading of sorted entries of index " + name), e);
+        }
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /**
+   * Closes and removes all temporary files.
+   */
+  public void close() {
+    for (ChunkCursor cursor : cursors) {
+      try {
+        cursor.close();
+      } catch (IOException e) {
+        OLogManager.instance().error(this, "Error during closing of temporary file of index %s", e, name);
+      }
+    }
+
+    for (File chunkFile : chunkFiles) {
+      if (chunkFile.exists() && !chunkFile.delete())
+        OLogManager.instance().warn(this, "Cannot delete temporary file %s of index %s", chunkFile, name);
+    }
+
+    cursors.clear();
+    chunkFiles.clear();
+    chunk.clear();
+    nullKeyValues.clear();
+  }
+
+  private void spillChunk() throws IOException {
+    Collections.sort(chunk, ENTRY_COMPARATOR);
+
+    final File chunkFile = File.createTempFile(name + ".", ".bulk", directory);
+    chunkFiles.add(chunkFile);
+
+    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(chunkFile), 64 * 1024));
+    try {
+      for (ORawPair<Object, ORID> entry : chunk)
+        writeEntry(out, entry);
+    } finally {
+      out.close();
+    }
+
+    chunk.clear();
+  }
+
+  private void writeEntry(DataOutputStream out, ORawPair<Object, ORID> entry) throws IOException {
+    final Object key = entry.getFirst();
+    final boolean isComposite = key instanceof OCompositeKey;
+    final OCompositeKey compositeKey = isComposite ? (OCompositeKey) key : new OCompositeKey(key);
+
+    final byte[] serializedKey = new byte[OCompositeKeySerializer.INSTANCE.getObjectSize(compositeKey, (Object[]) keyTypes)];
+    OCompositeKeySerializer.INSTANCE.serialize(compositeKey, serializedKey, 0, (Object[]) keyTypes);
+
+    out.writeBoolean(isComposite);
+    out.writeInt(serializedKey.length);
+    out.write(serializedKey);
+
+    final ORID value = entry.getSecond();
+    out.writeInt(value.getClusterId());
+    out.writeLong(value.getClusterPosition());
+  }
+
+  private static ORawPair<Object, ORID> readEntry(DataInputStream in) throws IOException {
+    final boolean isComposite = in.readBoolean();
+    final byte[] serializedKey = new byte[in.readInt()];
+    in.readFully(serializedKey);
+
+    final OCompositeKey compositeKey = OCompositeKeySerializer.INSTANCE.deserialize(serializedKey, 0);
+    final Object key = isComposite ? compositeKey : compositeKey.getKeys().get(0);
+
+    final int clusterId = in.readInt();
+    final long clusterPosition = in.readLong();
+
+    return new ORawPair<Object, ORID>(key, new ORecordId(clusterId, clusterPosition));
+  }
+
+  private static abstract class ChunkCursor {
+    private final int                   index;
+    protected     ORawPair<Object, ORID> current;
+
+    ChunkCursor(int index) {
+      this.index = index;
+    }
+
+    abstract boolean advance() throws IOException;
+
+    void close() throws IOException {
+    }
+  }
+
+  private static final class MemoryChunkCursor extends ChunkCursor {
+    private final Iterator<ORawPair<Object, ORID>> iterator;
+
+    MemoryChunkCursor(int index, List<ORawPair<Object, ORID>> chunk) {
+      super(index);
+      this.iterator = chunk.iterator();
+    }
+
+    @Override
+    boolean advance() {
+      if (iterator.hasNext()) {
+        current = iterator.next();
+        return true;
+      }
+
+      current = null;
+      return false;
+    }
+  }
+
+  private static final class FileChunkCursor extends ChunkCursor {
+    private final DataInputStream in;
+    private       boolean         eof;
+
+    FileChunkCursor(int index, File chunkFile) throws IOException {
+      super(index);
+      this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(chunkFile), 64 * 1024));
+    }
+
+    @Override
+    boolean advance() throws IOException {
+      if (!eof) {
+        try {
+          current = readEntry(in);
+          return true;
+        } catch (EOFException e) {
+          eof = true;
+          in.close();
+        }
+      }
+
+      current = null;
+      return false;
+    }
+
+    @Override
+    void close() throws IOException {
+      in.close();
+    }
+  }
+}
@@ -262,6 +262,12 @@ public class OIndexFullText extends OIndexMultiValues {
     return false;
   }
 
+  @Override
+  protected boolean supportsBulkLoad() {
+    // KEYS ARE SPLIT INTO WORDS BY PUT
+    return false;
+  }
+
   protected void configWithMetadata(ODocument metadata) {
     if (metadata != null) {
       if (metadata.containsField(CONFIG_IGNORE_CHARS))
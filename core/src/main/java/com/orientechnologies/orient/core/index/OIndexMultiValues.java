@@ -162,6 +162,7 @@ public abstract class OIndexMultiValues extends OIndexAbstract<Set<OIdentifiable
         }
 
         final Set<OIdentifiable> cvalues = values;
+        final OModifiableBoolean added = new OModifiableBoolean(false);
 
         final Callable<Object> creator = new Callable<Object>() {
           @Override
@@ -176,7 +177,7 @@ public abstract class OIndexMultiValues extends OIndexAbstract<Set<OIdentifiable
               }
             }
 
-            result.add(identity);
+            added.setValue(result.add(identity));
 
             return result;
           }
@@ -185,12 +186,17 @@ public abstract class OIndexMultiValues extends OIndexAbstract<Set<OIdentifiable
         while (true) {
           try {
             storage.updateIndexEntry(indexId, key, creator);
-            return this;
+            break;
           } catch (OInvalidIndexEngineIdException e) {
             doReloadIndexEngine();
           }
         }
 
+        if (added.getValue())
+          onPut(key);
+
+        return this;
+
       } finally {
         releaseSharedLock();
       }
@@ -239,6 +245,9 @@ public abstract class OIndexMultiValues extends OIndexAbstract<Set<OIdentifiable
             doReloadIndexEngine();
           }
 
+        if (removed.getValue())
+          onRemove();
+
         return removed.getValue();
 
       } finally {
@@ -262,6 +271,21 @@ public abstract class OIndexMultiValues extends OIndexAbstract<Set<OIdentifiable
     return storage.getComponentsFactory().binarySerializerFactory.getObjectSerializer(OStreamSerializerSBTreeIndexRIDContainer.ID);
   }
 
+  @Override
+  protected boolean supportsBulkLoad() {
+    return ODefaultIndexFactory.SBTREEBONSAI_VALUE_CONTAINER.equals(valueContainerAlgorithm);
+  }
+
+  @Override
+  protected Object bulkLoadValue(Object key, List<ORID> values) {
+    final boolean durable = metadata != null && Boolean.TRUE.equals(metadata.field("durableInNonTxMode"));
+
+    final OIndexRIDContainer container = new OIndexRIDContainer(getName(), durable);
+    container.addAll(values);
+
+    return container;
+  }
+
   @Override
   public OIndexCursor iterateEntriesBetween(Object fromKey, boolean fromInclusive, Object toKey, boolean toInclusive,
       boolean ascOrder) {
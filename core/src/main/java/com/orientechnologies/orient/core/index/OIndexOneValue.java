@@ -22,9 +22,11 @@ package com.orientechnologies.orient.core.index;
 import com.orientechnologies.common.comparator.ODefaultComparator;
 import com.orientechnologies.common.listener.OProgressListener;
 import com.orientechnologies.common.serialization.types.OBinarySerializer;
+import com.orientechnologies.common.types.OModifiableBoolean;
 import com.orientechnologies.orient.core.db.ODatabase;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.exception.OInvalidIndexEngineIdException;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.serialization.serializer.stream.OStreamSerializerRID;
 import com.orientechnologies.orient.core.storage.ORecordDuplicatedException;
@@ -316,4 +318,35 @@ public abstract class OIndexOneValue extends OIndexAbstract<OIdentifiable> {
   protected OBinarySerializer determineValueSerializer() {
     return OStreamSerializerRID.INSTANCE;
   }
+
+  @Override
+  protected boolean supportsBulkLoad() {
+    return true;
+  }
+
+  @Override
+  protected Object bulkLoadValue(Object key, List<ORID> values) {
+    // THE LAST RECORD WINS AS IN CASE OF SUBSEQUENT PUTS
+    return values.get(values.size() - 1);
+  }
+
+  /**
+   * Wraps the validator of a put to tell if the put adds a new key, rather than replacing or keeping the value of an existing key.
+   */
+  protected static class KeyAddedValidator implements OIndexEngine.Validator<Object, OIdentifiable> {
+    private final OIndexEngine.Validator<Object, OIdentifiable> validator;
+    private final OModifiableBoolean                            added;
+
+    public KeyAddedValidator(OIndexEngine.Validator<Object, OIdentifiable> validator, OModifiableBoolean added) {
+      this.validator = validator;
+      this.added = added;
+    }
+
+    @Override
+    public Object validate(Object key, OIdentifiable oldValue, OIdentifiable newValue) {
+      final Object result = validator.validate(key, oldValue, newValue);
+      added.setValue(oldValue == null && result != IGNORE);
+      return result;
+    }
+  }
 }
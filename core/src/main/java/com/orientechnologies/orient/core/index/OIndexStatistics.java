@@ -0,0 +1,253 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.orientechnologies.orient.core.index;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics of index which are used to estimate selectivity of conditions during query planning. Statistics are collected by
+ * <code>ANALYZE INDEX</code> command and are kept up to date incrementally when entries are put to or removed from index, they are
+ * stored in index configuration together with the rest of index metadata. Distinct keys added after the last analysis are counted
+ * by {@link OHyperLogLog} sketch, histogram is not changed till next analysis, but its estimations are scaled by the current amount
+ * of entries.
+ *
+ * @see OIndexAbstract#getStatistics()
+ */
+public class OIndexStatistics {
+  public static final int HISTOGRAM_BUCKETS = 64;
+
+  private final OHyperLogLog        distinctSketch;
+  private final OEquiDepthHistogram histogram;
+  private final long                analyzedEntries;
+  private final long                analyzedDistinctKeys;
+  private final int                 keyFields;
+
+  private long entries;
+  private long modifications;
+
+  private OIndexStatistics(OHyperLogLog distinctSketch, OEquiDepthHistogram histogram, int keyFields, long entries,
+      long distinctKeys, long modifications) {
+    this.distinctSketch = distinctSketch;
+    this.keyFields = keyFields;
+    this.histogram = histogram;
+    this.analyzedEntries = entries;
+    this.analyzedDistinctKeys = distinctKeys;
+    this.entries = entries;
+    this.modifications = modifications;
+  }
+
+  /**
+   * Collects statistics of index scanning all its entries.
+   */
+  public static OIndexStatistics analyze(OIndex<?> index) {
+    final long size = index.getSize();
+    final boolean ordered = index.supportsOrderedIterations();
+
+    final OHyperLogLog distinctSketch = new OHyperLogLog();
+    final OEquiDepthHistogram.Builder histogramBuilder = ordered ? new OEquiDepthHistogram.Builder(size, HISTOGRAM_BUCKETS) : null;
+
+    long entries = 0;
+    long distinctKeys = 0;
+    int keyFields = 1;
+    boolean comparable = true;
+    Object lastKey = null;
+
+    final OIndexCursor cursor = index.cursor();
+    Map.Entry<Object, OIdentifiable> entry;
+    while ((entry = cursor.nextEntry()) != null) {
+      final Object key = entry.getKey();
+      entries++;
+
+      if (key == null)
+        continue;
+
+      distinctSketch.add(key);
+      if (ordered && !key.equals(lastKey))
+        distinctKeys++;
+      lastKey = key;
+
+      if (key instanceof OCompositeKey)
+        keyFields = Math.max(keyFields, ((OCompositeKey) key).getKeys().size());
+
+      if (histogramBuilder != null && comparable) {
+        final Object value = firstField(key);
+        if (value instanceof Comparable)
+          histogramBuilder.add(value);
+        else
+          comparable = false;
+      }
+    }
+
+    if (!ordered)
+      distinctKeys = Math.min(entries, distinctSketch.estimate());
+
+    final OEquiDepthHistogram histogram = histogramBuilder != null && comparable ? histogramBuilder.build() : null;
+    return new OIndexStatistics(distinctSketch, histogram, keyFields, entries, distinctKeys, 0);
+  }
+
+  /**
+   * @return Statistics of index or <code>null</code> if index was never analyzed or does not support statistics.
+   */
+  public static OIndexStatistics of(OIndex<?> index) {
+    final OIndexInternal<?> internal = index.getInternal();
+    return internal instanceof OIndexAbstract ? ((OIndexAbstract<?>) internal).getStatistics() : null;
+  }
+
+  public synchronized void onPut(Object key) {
+    entries++;
+    modifications++;
+
+    if (key != null)
+      distinctSketch.add(key);
+  }
+
+  public synchronized void onRemove() {
+    if (entries > 0)
+      entries--;
+    modifications++;
+  }
+
+  public synchronized void onClear() {
+    entries = 0;
+    modifications++;
+  }
+
+  public synchronized long getEntries() {
+    return entries;
+  }
+
+  /**
+   * @return Amount of entries which were put or removed since the last analysis.
+   */
+  public synchronized long getModifications() {
+    return modifications;
+  }
+
+  public synchronized long getDistinctKeys() {
+    if (entries == 0)
+      return 0;
+
+    long distinctKeys = analyzedDistinctKeys;
+    if (modifications > 0)
+      distinctKeys = Math.max(distinctKeys, distinctSketch.estimate());
+
+    return Math.max(1, Math.min(entries, distinctKeys));
+  }
+
+  public OEquiDepthHistogram getHistogram() {
+    return histogram;
+  }
+
+  /**
+   * Estimates amount of entries fetched from index by equality condition. Keys of single field index and partial keys of composite
+   * index are estimated by histogram, full keys of composite index are estimated by amount of distinct keys.
+   *
+   * @return Estimated amount of entries, at least one if index is not empty.
+   */
+  public synchronized long estimateEquals(Object key) {
+    if (entries == 0)
+      return 0;
+
+    final int fields = key instanceof OCompositeKey ? ((OCompositeKey) key).getKeys().size() : 1;
+    if (histogram != null && (fields < keyFields || keyFields == 1)) {
+      final Object value = firstField(key);
+      if (value != null) {
+        final double estimate = histogram.estimateEquals(value);
+        if (estimate >= 0)
+          return bound(scale(estimate));
+      }
+    }
+
+    return bound((double) entries / getDistinctKeys());
+  }
+
+  /**
+   * Estimates amount of entries fetched from index by range condition on the first field of index.
+   *
+   * @param from Lower bound of range or <code>null</code> if range is not bounded from below.
+   * @param to   Upper bound of range or <code>null</code> if range is not bounded from above.
+   * @return Estimated amount of entries, at least one if index is not empty.
+   */
+  public synchronized long estimateRange(Object from, Object to) {
+    if (entries == 0)
+      return 0;
+
+    if (histogram != null) {
+      final double estimate = histogram.estimateRange(firstField(from), firstField(to));
+      if (estimate >= 0)
+        return bound(scale(estimate));
+    }
+
+    // selectivity of range conditions used by optimizers which have no histograms
+    return bound(entries / 3.0);
+  }
+
+  public synchronized ODocument toDocument() {
+    final ODocument document = new ODocument();
+    document.field("keyFields", keyFields);
+    document.field("entries", entries);
+    document.field("analyzedEntries", analyzedEntries);
+    document.field("distinctKeys", analyzedDistinctKeys);
+    document.field("modifications", modifications);
+    document.field("distinctSketch", distinctSketch.toBytes(), OType.BINARY);
+    if (histogram != null)
+      document.field("histogram", histogram.toDocument(), OType.EMBEDDED);
+
+    return document;
+  }
+
+  public static OIndexStatistics fromDocument(ODocument document) {
+    final ODocument histogram = document.field("histogram");
+
+    final OIndexStatistics statistics = new OIndexStatistics(new OHyperLogLog(document.<byte[]>field("distinctSketch")),
+        histogram != null ? OEquiDepthHistogram.fromDocument(histogram) : null, document.<Integer>field("keyFields"),
+        document.<Number>field("analyzedEntries").longValue(),
+        document.<Number>field("distinctKeys").longValue(), document.<Number>field("modifications").longValue());
+    statistics.entries = document.<Number>field("entries").longValue();
+    return statistics;
+  }
+
+  private double scale(double estimate) {
+    if (analyzedEntries == 0)
+      return estimate;
+
+    return estimate * entries / analyzedEntries;
+  }
+
+  private long bound(double estimate) {
+    return Math.max(1, Math.min(entries, (long) Math.ceil(estimate)));
+  }
+
+  private static Object firstField(Object key) {
+    if (key instanceof OCompositeKey) {
+      final List<Object> keys = ((OCompositeKey) key).getKeys();
+      return keys.isEmpty() ? null : keys.get(0);
+    }
+
+    return key;
+  }
+}
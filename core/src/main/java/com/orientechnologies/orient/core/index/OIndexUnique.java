@@ -19,14 +19,18 @@
  */
 package com.orientechnologies.orient.core.index;
 
+import com.orientechnologies.common.types.OModifiableBoolean;
 import com.orientechnologies.orient.core.db.ODatabase;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.exception.OInvalidIndexEngineIdException;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.storage.ORecordDuplicatedException;
 import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
 import com.orientechnologies.orient.core.tx.OTransactionIndexChangesPerKey;
 
+import java.util.List;
+
 /**
  * Index implementation that allows only one value for a key.
  *
@@ -77,13 +81,18 @@ public class OIndexUnique extends OIndexOneValue {
     try {
       acquireSharedLock();
       try {
+        final OModifiableBoolean added = new OModifiableBoolean(false);
         while (true)
           try {
-            storage.validatedPutIndexValue(indexId, key, iSingleValue, UNIQUE_VALIDATOR);
+            storage.validatedPutIndexValue(indexId, key, iSingleValue, new KeyAddedValidator(UNIQUE_VALIDATOR, added));
             break;
           } catch (OInvalidIndexEngineIdException e) {
             doReloadIndexEngine();
           }
+
+        if (added.getValue())
+          onPut(key);
+
         return this;
       } finally {
         releaseSharedLock();
@@ -109,6 +118,23 @@ public class OIndexUnique extends OIndexOneValue {
       }
   }
 
+  @Override
+  protected Object bulkLoadValue(Object key, List<ORID> values) {
+    final Boolean mergeSameKey = metadata != null ? (Boolean) metadata.field(OIndex.MERGE_KEYS) : Boolean.FALSE;
+    if (mergeSameKey == null || !mergeSameKey) {
+      final ORID oldValue = values.get(0);
+      for (int i = 1; i < values.size(); i++) {
+        final ORID newValue = values.get(i);
+        if (!oldValue.equals(newValue))
+          throw new ORecordDuplicatedException(String
+              .format("Cannot index record %s: found duplicated key '%s' in index '%s' previously assigned to the record %s",
+                  newValue, key, getName(), oldValue), getName(), oldValue);
+      }
+    }
+
+    return super.bulkLoadValue(key, values);
+  }
+
   @Override
   protected Iterable<OTransactionIndexChangesPerKey.OTransactionIndexEntry> interpretTxKeyChanges(
       OTransactionIndexChangesPerKey changes) {
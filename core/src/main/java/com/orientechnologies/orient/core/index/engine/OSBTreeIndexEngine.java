@@ -38,7 +38,7 @@ import java.util.Set;
  * @author Andrey Lomakin
  * @since 8/30/13
  */
-public class OSBTreeIndexEngine implements OIndexEngine {
+public class OSBTreeIndexEngine implements OBulkLoadIndexEngine {
   public static final int VERSION = 1;
 
   public static final String DATA_FILE_EXTENSION        = ".sbt";
@@ -163,6 +163,16 @@ public class OSBTreeIndexEngine implements OIndexEngine {
     sbTree.put(key, value);
   }
 
+  @Override
+  public Object preprocessKey(Object key) {
+    return sbTree.preprocessKey(key);
+  }
+
+  @Override
+  public void bulkLoad(Iterator<Map.Entry<Object, Object>> entries) {
+    sbTree.bulkLoad(entries);
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public boolean validatedPut(Object key, OIdentifiable value, Validator<Object, OIdentifiable> validator) {
@@ -0,0 +1,326 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.index.sbtree.local;
+
+import com.orientechnologies.common.serialization.types.ODateSerializer;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.index.OCompositeKey;
+import com.orientechnologies.orient.core.index.OIndexException;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Converts keys of index into binary comparable form, so order of keys is the same as lexicographical order of their binary
+ * presentations when bytes are compared as unsigned values. As result keys can be compared without deserialization.
+ * <p>
+ * Every item of the key is prefixed by flag which indicates whether item is <code>null</code>. Numbers are stored in big-endian
+ * order with inverted sign bit, strings are stored as sequences of UTF-16 characters terminated by zero character, so each item
+ * is self delimited and binary presentation of partial {@link OCompositeKey} is prefix of presentations of all keys which start
+ * with the same items.
+ *
+ * @see com.orientechnologies.common.comparator.OUnsafeByteArrayComparator#compareLexicographically(byte[], int, int, byte[], int,
+ * int)
+ */
+public class OKeyNormalizer {
+  private static final Set<OType> SUPPORTED_TYPES = Collections.unmodifiableSet(EnumSet
+      .of(OType.BOOLEAN, OType.BYTE, OType.SHORT, OType.INTEGER, OType.LONG, OType.FLOAT, OType.DOUBLE, OType.DATE,
+          OType.DATETIME, OType.STRING, OType.BINARY, OType.LINK));
+
+  private static final byte NULL_ITEM     = 0;
+  private static final byte NOT_NULL_ITEM = 1;
+
+  private final OType[] keyTypes;
+
+  public OKeyNormalizer(OType[] keyTypes) {
+    if (!isSupported(keyTypes))
+      throw new OIndexException("Keys of types " + Arrays.toString(keyTypes) + " can not be converted in binary comparable form");
+
+    this.keyTypes = Arrays.copyOf(keyTypes, keyTypes.length);
+  }
+
+  /**
+   * @return <code>true</code> if keys which consist of items of passed in types can be converted in binary comparable form.
+   */
+  public static boolean isSupported(OType[] keyTypes) {
+    if (keyTypes == null || keyTypes.length == 0)
+      return false;
+
+    for (OType keyType : keyTypes) {
+      if (!SUPPORTED_TYPES.contains(keyType))
+        return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Converts key in binary comparable form. If partial {@link OCompositeKey} is passed only items which are present in key are
+   * converted.
+   */
+  public byte[] normalize(Object key) {
+    final List<Object> items;
+    if (key instanceof OCompositeKey)
+      items = ((OCompositeKey) key).getKeys();
+    else
+      items = Collections.singletonList(key);
+
+    final Output output = new Output();
+    final int itemsCount = Math.min(items.size(), keyTypes.length);
+
+    for (int i = 0; i < itemsCount; i++)
+      normalizeItem(items.get(i), keyTypes[i], output);
+
+    return output.toByteArray();
+  }
+
+  /**
+   * Restores key from its binary comparable form.
+   *
+   * @return Key item if key consists of single item, or {@link OCompositeKey} otherwise.
+   */
+  public Object denormalize(byte[] key) {
+    final int[] position = new int[1];
+
+    if (keyTypes.length == 1)
+      return denormalizeItem(key, position, keyTypes[0]);
+
+    final OCompositeKey compositeKey = new OCompositeKey();
+    for (int i = 0; i < keyTypes.length && position[0] < key.length; i++)
+      compositeKey.addKey(denormalizeItem(key, position, keyTypes[i]));
+
+    return compositeKey;
+  }
+
+  /**
+   * @return The smallest binary presentation which is bigger than all presentations which start with passed in one, or
+   * <code>null</code> if there is no such presentation.
+   */
+  public static byte[] successor(byte[] key) {
+    for (int i = key.length - 1; i >= 0; i--) {
+      if (key[i] != (byte) 0xFF) {
+        final byte[] successor = Arrays.copyOf(key, i + 1);
+        successor[i]++;
+        return successor;
+      }
+    }
+
+    return null;
+  }
+
+  private static void normalizeItem(Object item, OType type, Output output) {
+    if (item == null) {
+      output.writeByte(NULL_ITEM);
+      return;
+    }
+
+    output.writeByte(NOT_NULL_ITEM);
+
+    if (type == OType.LINK) {
+      if (!(item instanceof OIdentifiable))
+        throw new OIndexException("Key item " + item + " can not be converted to " + type);
+
+      final ORID rid = ((OIdentifiable) item).getIdentity();
+      output.writeInt(rid.getClusterId() ^ Integer.MIN_VALUE);
+      output.writeLong(rid.getClusterPosition() ^ Long.MIN_VALUE);
+      return;
+    }
+
+    final Object value = type.getDefaultJavaType().isInstance(item) ? item : OType.convert(item, type.getDefaultJavaType());
+    if (value == null)
+      throw new OIndexException("Key item " + item + " can not be converted to " + type);
+
+    switch (type) {
+    case BOOLEAN:
+      output.writeByte((Boolean) value ? (byte) 1 : (byte) 0);
+      break;
+    case BYTE:
+      output.writeByte((byte) ((Byte) value ^ Byte.MIN_VALUE));
+      break;
+    case SHORT:
+      output.writeShort((short) ((Short) value ^ Short.MIN_VALUE));
+      break;
+    case INTEGER:
+      output.writeInt((Integer) value ^ Integer.MIN_VALUE);
+      break;
+    case LONG:
+      output.writeLong((Long) value ^ Long.MIN_VALUE);
+      break;
+    case FLOAT:
+      final int floatBits = Float.floatToIntBits((Float) value);
+      output.writeInt(floatBits >= 0 ? floatBits ^ Integer.MIN_VALUE : ~floatBits);
+      break;
+    case DOUBLE:
+      final long doubleBits = Double.doubleToLongBits((Double) value);
+      output.writeLong(doubleBits >= 0 ? doubleBits ^ Long.MIN_VALUE : ~doubleBits);
+      break;
+    case DATE:
+      output.writeLong(ODateSerializer.INSTANCE.preprocess((Date) value).getTime() ^ Long.MIN_VALUE);
+      break;
+    case DATETIME:
+      output.writeLong(((Date) value).getTime() ^ Long.MIN_VALUE);
+      break;
+    case STRING:
+      final String string = (String) value;
+      for (int i = 0; i < string.length(); i++) {
+        final char character = string.charAt(i);
+        output.writeShort((short) character);
+
+        // zero character is followed by marker to distinguish it from terminator
+        if (character == 0)
+          output.writeByte((byte) 1);
+      }
+
+      output.writeShort((short) 0);
+      output.writeByte((byte) 0);
+      break;
+    case BINARY:
+      // byte arrays are compared by length first
+      final byte[] bytes = (byte[]) value;
+      output.writeInt(bytes.length);
+      output.writeBytes(bytes);
+      break;
+    default:
+      throw new OIndexException("Keys of type " + type + " can not be converted in binary comparable form");
+    }
+  }
+
+  private static Object denormalizeItem(byte[] key, int[] position, OType type) {
+    if (key[position[0]++] == NULL_ITEM)
+      return null;
+
+    switch (type) {
+    case BOOLEAN:
+      return key[position[0]++] != 0;
+    case BYTE:
+      return (byte) (key[position[0]++] ^ Byte.MIN_VALUE);
+    case SHORT:
+      return (short) (readShort(key, position) ^ Short.MIN_VALUE);
+    case INTEGER:
+      return readInt(key, position) ^ Integer.MIN_VALUE;
+    case LONG:
+      return readLong(key, position) ^ Long.MIN_VALUE;
+    case FLOAT:
+      final int floatBits = readInt(key, position);
+      return Float.intBitsToFloat(floatBits < 0 ? floatBits ^ Integer.MIN_VALUE : ~floatBits);
+    case DOUBLE:
+      final long doubleBits = readLong(key, position);
+      return Double.longBitsToDouble(doubleBits < 0 ? doubleBits ^ Long.MIN_VALUE : ~doubleBits);
+    case DATE:
+    case DATETIME:
+      return new Date(readLong(key, position) ^ Long.MIN_VALUE);
+    case STRING:
+      final StringBuilder builder = new StringBuilder();
+      while (true) {
+        final char character = (char) readShort(key, position);
+        if (character == 0 && key[position[0]++] == 0)
+          break;
+
+        builder.append(character);
+      }
+
+      return builder.toString();
+    case BINARY:
+      final int length = readInt(key, position);
+      final byte[] bytes = Arrays.copyOfRange(key, position[0], position[0] + length);
+      position[0] += length;
+      return bytes;
+    case LINK:
+      final int clusterId = readInt(key, position) ^ Integer.MIN_VALUE;
+      return new ORecordId(clusterId, readLong(key, position) ^ Long.MIN_VALUE);
+    default:
+      throw new OIndexException("Keys of type " + type + " can not be restored from binary comparable form");
+    }
+  }
+
+  private static short readShort(byte[] key, int[] position) {
+    final int offset = position[0];
+    position[0] += 2;
+
+    return (short) (((key[offset] & 0xFF) << 8) | (key[offset + 1] & 0xFF));
+  }
+
+  private static int readInt(byte[] key, int[] position) {
+    final int offset = position[0];
+    position[0] += 4;
+
+    return ((key[offset] & 0xFF) << 24) | ((key[offset + 1] & 0xFF) << 16) | ((key[offset + 2] & 0xFF) << 8) | (key[offset + 3]
+        & 0xFF);
+  }
+
+  private static long readLong(byte[] key, int[] position) {
+    final long high = readInt(key, position) & 0xFFFFFFFFL;
+    final long low = readInt(key, position) & 0xFFFFFFFFL;
+
+    return (high << 32) | low;
+  }
+
+  private static final class Output {
+    private byte[] buffer = new byte[32];
+    private int    size;
+
+    private void ensureCapacity(int length) {
+      if (size + length > buffer.length)
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + length));
+    }
+
+    private void writeByte(byte value) {
+      ensureCapacity(1);
+      buffer[size++] = value;
+    }
+
+    private void writeShort(short value) {
+      ensureCapacity(2);
+      buffer[size++] = (byte) (value >>> 8);
+      buffer[size++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+      ensureCapacity(4);
+      buffer[size++] = (byte) (value >>> 24);
+      buffer[size++] = (byte) (value >>> 16);
+      buffer[size++] = (byte) (value >>> 8);
+      buffer[size++] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+      writeInt((int) (value >>> 32));
+      writeInt((int) value);
+    }
+
+    private void writeBytes(byte[] bytes) {
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, size, bytes.length);
+      size += bytes.length;
+    }
+
+    private byte[] toByteArray() {
+      return Arrays.copyOf(buffer, size);
+    }
+  }
+}
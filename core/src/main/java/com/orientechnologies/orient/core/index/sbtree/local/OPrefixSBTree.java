@@ -0,0 +1,1336 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.index.sbtree.local;
+
+import com.orientechnologies.common.comparator.OUnsafeByteArrayComparator;
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.serialization.types.OBinarySerializer;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.exception.OTooBigIndexKeyException;
+import com.orientechnologies.orient.core.index.OIndexEngine;
+import com.orientechnologies.orient.core.iterator.OEmptyMapEntryIterator;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.atomicoperations.OAtomicOperation;
+import com.orientechnologies.orient.core.storage.impl.local.statistic.OSessionStoragePerformanceStatistic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Variant of {@link OSBTree} which stores keys in binary comparable form produced by {@link OKeyNormalizer}. Keys are compared as
+ * byte arrays during search, so they are not deserialized. Buckets store common prefix of their keys only once and separation
+ * keys of non-leaf buckets are truncated to the shortest prefix which still separates neighbour leaf buckets, which increases
+ * fan-out of tree. See {@link OPrefixSBTreeBucket} for details of bucket format.
+ * <p>
+ * Because binary presentation of partial {@link com.orientechnologies.orient.core.index.OCompositeKey} is prefix of presentations of all keys which start with the same
+ * items, range queries by partial keys are converted to range queries by byte arrays and do not need special boundary keys.
+ * <p>
+ * Only keys which consist of items of types supported by {@link OKeyNormalizer} can be stored in this tree.
+ */
+public class OPrefixSBTree<K, V> extends OSBTreeAbstract<K, V> {
+  private static final int MAX_KEY_SIZE = OGlobalConfiguration.SBTREE_MAX_KEY_SIZE.getValueAsInteger();
+
+  private static final OUnsafeByteArrayComparator COMPARATOR = OUnsafeByteArrayComparator.INSTANCE;
+
+  private OKeyNormalizer keyNormalizer;
+
+  public OPrefixSBTree(String name, String dataFileExtension, boolean durableInNonTxMode, String nullFileExtension,
+      OAbstractPaginatedStorage storage) {
+    super(name, dataFileExtension, durableInNonTxMode, nullFileExtension, storage);
+  }
+
+  public void create(OBinarySerializer<V> valueSerializer, OType[] keyTypes, boolean nullPointerSupport) {
+    startOperation();
+    try {
+      final OAtomicOperation atomicOperation;
+      try {
+        atomicOperation = startAtomicOperation(false);
+      } catch (IOException e) {
+        throw OException.wrapException(new OPrefixSBTreeException("Error during sbtree creation", this), e);
+      }
+
+      acquireExclusiveLock();
+      try {
+        this.keyNormalizer = new OKeyNormalizer(keyTypes);
+        this.valueSerializer = valueSerializer;
+        this.nullPointerSupport = nullPointerSupport;
+
+        fileId = addFile(atomicOperation, getFullName());
+
+        if (nullPointerSupport)
+          nullBucketFileId = addFile(atomicOperation, getName() + nullFileExtension);
+
+        OCacheEntry rootCacheEntry = addPage(atomicOperation, fileId);
+        rootCacheEntry.acquireExclusiveLock();
+        try {
+          initRootBucket(rootCacheEntry, atomicOperation);
+        } finally {
+          rootCacheEntry.releaseExclusiveLock();
+          releasePage(atomicOperation, rootCacheEntry);
+        }
+
+        endAtomicOperation(false, null);
+      } catch (IOException e) {
+        rollback(e);
+        throw OException.wrapException(new OPrefixSBTreeException("Error creation of sbtree with name " + getName(), this), e);
+      } catch (RuntimeException e) {
+        rollback(e);
+        throw e;
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  public void load(String name, OBinarySerializer<V> valueSerializer, OType[] keyTypes, boolean nullPointerSupport) {
+    startOperation();
+    try {
+      acquireExclusiveLock();
+      try {
+        this.keyNormalizer = new OKeyNormalizer(keyTypes);
+        this.nullPointerSupport = nullPointerSupport;
+
+        final OAtomicOperation atomicOperation = atomicOperationsManager.getCurrentOperation();
+
+        fileId = openFile(atomicOperation, getFullName());
+        if (nullPointerSupport)
+          nullBucketFileId = openFile(atomicOperation, name + nullFileExtension);
+
+        this.valueSerializer = valueSerializer;
+      } catch (IOException e) {
+        throw OException.wrapException(new OPrefixSBTreeException("Exception during loading of sbtree " + name, this), e);
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  public V get(K key) {
+    final OSessionStoragePerformanceStatistic statistic = performanceStatisticManager.getSessionPerformanceStatistic();
+    startOperation();
+    if (statistic != null)
+      statistic.startIndexEntryReadTimer();
+    try {
+      atomicOperationsManager.acquireReadLock(this);
+      try {
+        acquireSharedLock();
+        try {
+          checkNullSupport(key);
+
+          OAtomicOperation atomicOperation = atomicOperationsManager.getCurrentOperation();
+          if (key != null) {
+            final byte[] normalizedKey = keyNormalizer.normalize(key);
+
+            BucketSearchResult bucketSearchResult = findBucket(normalizedKey, atomicOperation);
+            if (bucketSearchResult.itemIndex < 0)
+              return null;
+
+            OCacheEntry keyBucketCacheEntry = loadPage(atomicOperation, fileId, bucketSearchResult.getLastPathItem(), false);
+            keyBucketCacheEntry.acquireSharedLock();
+            try {
+              OPrefixSBTreeBucket<V> keyBucket = new OPrefixSBTreeBucket<V>(keyBucketCacheEntry, valueSerializer,
+                  getChanges(atomicOperation, keyBucketCacheEntry));
+
+              return readValue(keyBucket.getValue(bucketSearchResult.itemIndex), atomicOperation);
+            } finally {
+              keyBucketCacheEntry.releaseSharedLock();
+              releasePage(atomicOperation, keyBucketCacheEntry);
+            }
+          } else {
+            if (getFilledUpTo(atomicOperation, nullBucketFileId) == 0)
+              return null;
+
+            final OCacheEntry nullBucketCacheEntry = loadPage(atomicOperation, nullBucketFileId, 0, false);
+            nullBucketCacheEntry.acquireSharedLock();
+            try {
+              final ONullBucket<V> nullBucket = new ONullBucket<V>(nullBucketCacheEntry,
+                  getChanges(atomicOperation, nullBucketCacheEntry), valueSerializer, false);
+              final OSBTreeValue<V> treeValue = nullBucket.getValue();
+              if (treeValue == null)
+                return null;
+
+              return readValue(treeValue, atomicOperation);
+            } finally {
+              nullBucketCacheEntry.releaseSharedLock();
+              releasePage(atomicOperation, nullBucketCacheEntry);
+            }
+          }
+        } finally {
+          releaseSharedLock();
+        }
+      } catch (IOException e) {
+        throw OException
+            .wrapException(new OPrefixSBTreeException("Error during retrieving  of sbtree with name " + getName(), this), e);
+      } finally {
+        atomicOperationsManager.releaseReadLock(this);
+      }
+    } finally {
+      if (statistic != null)
+        statistic.stopIndexEntryReadTimer();
+      completeOperation();
+    }
+  }
+
+  public void put(K key, V value) {
+    put(key, value, null);
+  }
+
+  /**
+   * Puts the given value under the given key into this tree. Validates the operation using the provided validator.
+   *
+   * @see OSBTree#validatedPut(Object, Object, OIndexEngine.Validator)
+   */
+  public boolean validatedPut(K key, V value, OIndexEngine.Validator<K, V> validator) {
+    return put(key, value, validator);
+  }
+
+  public V remove(K key) {
+    final OSessionStoragePerformanceStatistic statistic = performanceStatisticManager.getSessionPerformanceStatistic();
+    startOperation();
+    if (statistic != null)
+      statistic.startIndexEntryDeletionTimer();
+    try {
+      final OAtomicOperation atomicOperation;
+      try {
+        atomicOperation = startAtomicOperation(true);
+      } catch (IOException e) {
+        throw OException.wrapException(new OPrefixSBTreeException("Error during sbtree entrie remove", this), e);
+      }
+
+      acquireExclusiveLock();
+      try {
+        V removedValue;
+
+        if (key != null) {
+          final byte[] normalizedKey = keyNormalizer.normalize(key);
+
+          BucketSearchResult bucketSearchResult = findBucket(normalizedKey, atomicOperation);
+          if (bucketSearchResult.itemIndex < 0) {
+            endAtomicOperation(false, null);
+            return null;
+          }
+
+          OCacheEntry keyBucketCacheEntry = loadPage(atomicOperation, fileId, bucketSearchResult.getLastPathItem(), false);
+          keyBucketCacheEntry.acquireExclusiveLock();
+          try {
+            OPrefixSBTreeBucket<V> keyBucket = new OPrefixSBTreeBucket<V>(keyBucketCacheEntry, valueSerializer,
+                getChanges(atomicOperation, keyBucketCacheEntry));
+
+            removedValue = readValue(keyBucket.getValue(bucketSearchResult.itemIndex), atomicOperation);
+
+            long removedValueLink = keyBucket.remove(bucketSearchResult.itemIndex);
+            if (removedValueLink >= 0)
+              removeLinkedValue(removedValueLink, atomicOperation);
+
+            setSize(size() - 1, atomicOperation);
+          } finally {
+            keyBucketCacheEntry.releaseExclusiveLock();
+            releasePage(atomicOperation, keyBucketCacheEntry);
+          }
+        } else {
+          if (getFilledUpTo(atomicOperation, nullBucketFileId) == 0) {
+            endAtomicOperation(false, null);
+            return null;
+          }
+
+          OCacheEntry nullCacheEntry = loadPage(atomicOperation, nullBucketFileId, 0, false);
+          nullCacheEntry.acquireExclusiveLock();
+          try {
+            ONullBucket<V> nullBucket = new ONullBucket<V>(nullCacheEntry, getChanges(atomicOperation, nullCacheEntry),
+                valueSerializer, false);
+            OSBTreeValue<V> treeValue = nullBucket.getValue();
+
+            if (treeValue != null) {
+              removedValue = readValue(treeValue, atomicOperation);
+              nullBucket.removeValue();
+
+              if (treeValue.isLink())
+                removeLinkedValue(treeValue.getLink(), atomicOperation);
+            } else
+              removedValue = null;
+          } finally {
+            nullCacheEntry.releaseExclusiveLock();
+            releasePage(atomicOperation, nullCacheEntry);
+          }
+
+          if (removedValue != null)
+            setSize(size() - 1, atomicOperation);
+        }
+
+        endAtomicOperation(false, null);
+        return removedValue;
+      } catch (IOException e) {
+        rollback(e);
+
+        throw OException
+            .wrapException(new OPrefixSBTreeException("Error during removing key " + key + " from sbtree " + getName(), this), e);
+      } catch (RuntimeException e) {
+        rollback(e);
+        throw e;
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      if (statistic != null)
+        statistic.stopIndexEntryDeletionTimer();
+      completeOperation();
+    }
+  }
+
+  public OSBTree.OSBTreeCursor<K, V> iterateEntriesMinor(K key, boolean inclusive, boolean ascSortOrder) {
+    final byte[] normalizedKey = keyNormalizer.normalize(key);
+    final byte[] toKey = inclusive ? OKeyNormalizer.successor(normalizedKey) : normalizedKey;
+
+    return iterateEntries(null, toKey, ascSortOrder);
+  }
+
+  public OSBTree.OSBTreeCursor<K, V> iterateEntriesMajor(K key, boolean inclusive, boolean ascSortOrder) {
+    final byte[] normalizedKey = keyNormalizer.normalize(key);
+    final byte[] fromKey = inclusive ? normalizedKey : OKeyNormalizer.successor(normalizedKey);
+
+    if (fromKey == null)
+      return emptyCursor();
+
+    return iterateEntries(fromKey, null, ascSortOrder);
+  }
+
+  public OSBTree.OSBTreeCursor<K, V> iterateEntriesBetween(K keyFrom, boolean fromInclusive, K keyTo, boolean toInclusive,
+      boolean ascSortOrder) {
+    final byte[] normalizedFrom = keyNormalizer.normalize(keyFrom);
+    final byte[] fromKey = fromInclusive ? normalizedFrom : OKeyNormalizer.successor(normalizedFrom);
+
+    if (fromKey == null)
+      return emptyCursor();
+
+    final byte[] normalizedTo = keyNormalizer.normalize(keyTo);
+    final byte[] toKey = toInclusive ? OKeyNormalizer.successor(normalizedTo) : normalizedTo;
+
+    return iterateEntries(fromKey, toKey, ascSortOrder);
+  }
+
+  public K firstKey() {
+    return boundaryKey(true);
+  }
+
+  public K lastKey() {
+    return boundaryKey(false);
+  }
+
+  public OSBTree.OSBTreeKeyCursor<K> keyCursor() {
+    final OSBTree.OSBTreeCursor<K, V> cursor = iterateEntries(null, null, true);
+
+    return new OSBTree.OSBTreeKeyCursor<K>() {
+      @Override
+      public K next(int prefetchSize) {
+        final Map.Entry<K, V> entry = cursor.next(prefetchSize);
+        if (entry == null)
+          return null;
+
+        return entry.getKey();
+      }
+    };
+  }
+
+  @Override
+  protected void initRootBucket(OCacheEntry rootCacheEntry, OAtomicOperation atomicOperation) throws IOException {
+    OPrefixSBTreeBucket<V> rootBucket = new OPrefixSBTreeBucket<V>(rootCacheEntry, true, valueSerializer,
+        getChanges(atomicOperation, rootCacheEntry));
+    rootBucket.setTreeSize(0);
+  }
+
+  @Override
+  protected long getTreeSize(OCacheEntry rootCacheEntry, OAtomicOperation atomicOperation) throws IOException {
+    return rootBucket(rootCacheEntry, atomicOperation).getTreeSize();
+  }
+
+  @Override
+  protected void setTreeSize(OCacheEntry rootCacheEntry, long size, OAtomicOperation atomicOperation) throws IOException {
+    rootBucket(rootCacheEntry, atomicOperation).setTreeSize(size);
+  }
+
+  @Override
+  protected long getValuesFreeListFirstIndex(OCacheEntry rootCacheEntry, OAtomicOperation atomicOperation) throws IOException {
+    return rootBucket(rootCacheEntry, atomicOperation).getValuesFreeListFirstIndex();
+  }
+
+  @Override
+  protected void setValuesFreeListFirstIndex(OCacheEntry rootCacheEntry, long pageIndex, OAtomicOperation atomicOperation)
+      throws IOException {
+    rootBucket(rootCacheEntry, atomicOperation).setValuesFreeListFirstIndex(pageIndex);
+  }
+
+  @Override
+  protected OPrefixSBTreeException createException(String message) {
+    return new OPrefixSBTreeException(message, this);
+  }
+
+  private OPrefixSBTreeBucket<V> rootBucket(OCacheEntry rootCacheEntry, OAtomicOperation atomicOperation) {
+    return new OPrefixSBTreeBucket<V>(rootCacheEntry, valueSerializer, getChanges(atomicOperation, rootCacheEntry));
+  }
+
+  @SuppressWarnings("unchecked")
+  private boolean put(K key, V value, OIndexEngine.Validator<K, V> validator) {
+    final OSessionStoragePerformanceStatistic statistic = performanceStatisticManager.getSessionPerformanceStatistic();
+    startOperation();
+    if (statistic != null)
+      statistic.startIndexEntryUpdateTimer();
+    try {
+      final OAtomicOperation atomicOperation;
+      try {
+        atomicOperation = startAtomicOperation(true);
+      } catch (IOException e) {
+        throw OException.wrapException(new OPrefixSBTreeException("Error during sbtree entrie put", this), e);
+      }
+
+      acquireExclusiveLock();
+      try {
+        checkNullSupport(key);
+
+        if (key != null) {
+          final byte[] normalizedKey = keyNormalizer.normalize(key);
+          if (normalizedKey.length > MAX_KEY_SIZE)
+            throw new OTooBigIndexKeyException(
+                "Key size is more than allowed, operation was canceled. Current key size " + normalizedKey.length + ", allowed  "
+                    + MAX_KEY_SIZE, getName());
+
+          BucketSearchResult bucketSearchResult = findBucket(normalizedKey, atomicOperation);
+
+          OCacheEntry keyBucketCacheEntry = loadPage(atomicOperation, fileId, bucketSearchResult.getLastPathItem(), false);
+          keyBucketCacheEntry.acquireExclusiveLock();
+          OPrefixSBTreeBucket<V> keyBucket = new OPrefixSBTreeBucket<V>(keyBucketCacheEntry, valueSerializer,
+              getChanges(atomicOperation, keyBucketCacheEntry));
+
+          if (validator != null) {
+            boolean failure = true; // assuming validation throws by default
+            boolean ignored = false;
+
+            try {
+              final V oldValue = bucketSearchResult.itemIndex > -1 ?
+                  readValue(keyBucket.getValue(bucketSearchResult.itemIndex), atomicOperation) :
+                  null;
+
+              final Object result = validator.validate(key, oldValue, value);
+              if (result == OIndexEngine.Validator.IGNORE) {
+                ignored = true;
+                failure = false;
+                return false;
+              }
+
+              value = (V) result;
+              failure = false;
+            } finally {
+              if (failure || ignored) {
+                keyBucketCacheEntry.releaseExclusiveLock();
+                releasePage(atomicOperation, keyBucketCacheEntry);
+              }
+              if (ignored) // in case of a failure atomic operation will be ended in a usual way below
+                endAtomicOperation(false, null);
+            }
+          }
+
+          final OSBTreeValue<V> treeValue = createTreeValue(value, atomicOperation);
+
+          int insertionIndex;
+          int sizeDiff;
+          if (bucketSearchResult.itemIndex >= 0) {
+            final OSBTreeValue<V> oldTreeValue = keyBucket.getValue(bucketSearchResult.itemIndex);
+            final int updateResult = keyBucket.updateValue(bucketSearchResult.itemIndex, treeValue);
+
+            if (updateResult >= 0) {
+              keyBucketCacheEntry.releaseExclusiveLock();
+              releasePage(atomicOperation, keyBucketCacheEntry);
+
+              if (oldTreeValue.isLink())
+                removeLinkedValue(oldTreeValue.getLink(), atomicOperation);
+
+              endAtomicOperation(false, null);
+              return true;
+            } else {
+              assert updateResult == -1;
+
+              long removedLinkedValue = keyBucket.remove(bucketSearchResult.itemIndex);
+              if (removedLinkedValue >= 0)
+                removeLinkedValue(removedLinkedValue, atomicOperation);
+
+              insertionIndex = bucketSearchResult.itemIndex;
+              sizeDiff = 0;
+            }
+          } else {
+            insertionIndex = -bucketSearchResult.itemIndex - 1;
+            sizeDiff = 1;
+          }
+
+          while (!keyBucket
+              .addEntry(insertionIndex, new OPrefixSBTreeBucket.SBTreeEntry<V>(-1, -1, normalizedKey, treeValue), true)) {
+            keyBucketCacheEntry.releaseExclusiveLock();
+            releasePage(atomicOperation, keyBucketCacheEntry);
+
+            bucketSearchResult = splitBucket(bucketSearchResult.path, insertionIndex, normalizedKey, atomicOperation);
+
+            insertionIndex = bucketSearchResult.itemIndex;
+
+            keyBucketCacheEntry = loadPage(atomicOperation, fileId, bucketSearchResult.getLastPathItem(), false);
+            keyBucketCacheEntry.acquireExclusiveLock();
+
+            keyBucket = new OPrefixSBTreeBucket<V>(keyBucketCacheEntry, valueSerializer,
+                getChanges(atomicOperation, keyBucketCacheEntry));
+          }
+
+          keyBucketCacheEntry.releaseExclusiveLock();
+          releasePage(atomicOperation, keyBucketCacheEntry);
+
+          if (sizeDiff != 0)
+            setSize(size() + sizeDiff, atomicOperation);
+        } else {
+          OCacheEntry cacheEntry;
+          boolean isNew = false;
+
+          if (getFilledUpTo(atomicOperation, nullBucketFileId) == 0) {
+            cacheEntry = addPage(atomicOperation, nullBucketFileId);
+            isNew = true;
+          } else
+            cacheEntry = loadPage(atomicOperation, nullBucketFileId, 0, false);
+
+          int sizeDiff = 0;
+
+          boolean ignored = false;
+          cacheEntry.acquireExclusiveLock();
+          try {
+            final ONullBucket<V> nullBucket = new ONullBucket<V>(cacheEntry, getChanges(atomicOperation, cacheEntry),
+                valueSerializer, isNew);
+            final OSBTreeValue<V> oldValue = nullBucket.getValue();
+
+            if (validator != null) {
+              final V oldValueValue = oldValue == null ? null : readValue(oldValue, atomicOperation);
+
+              final Object result = validator.validate(null, oldValueValue, value);
+              if (result == OIndexEngine.Validator.IGNORE) {
+                ignored = true;
+                return false;
+              }
+
+              value = (V) result;
+            }
+
+            if (oldValue != null) {
+              sizeDiff = -1;
+
+              if (oldValue.isLink())
+                removeLinkedValue(oldValue.getLink(), atomicOperation);
+            }
+
+            nullBucket.setValue(createTreeValue(value, atomicOperation));
+          } finally {
+            cacheEntry.releaseExclusiveLock();
+            releasePage(atomicOperation, cacheEntry);
+            if (ignored)
+              endAtomicOperation(false, null);
+          }
+
+          sizeDiff++;
+
+          setSize(size() + sizeDiff, atomicOperation);
+        }
+
+        endAtomicOperation(false, null);
+        return true;
+      } catch (IOException e) {
+        rollback(e);
+        throw OException
+            .wrapException(new OPrefixSBTreeException("Error during index update with key " + key + " and value " + value, this),
+                e);
+      } catch (RuntimeException e) {
+        rollback(e);
+        throw e;
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      if (statistic != null)
+        statistic.stopIndexEntryUpdateTimer();
+      completeOperation();
+    }
+  }
+
+  private K boundaryKey(boolean first) {
+    final OSessionStoragePerformanceStatistic statistic = performanceStatisticManager.getSessionPerformanceStatistic();
+    startOperation();
+    if (statistic != null)
+      statistic.startIndexEntryReadTimer();
+    try {
+      atomicOperationsManager.acquireReadLock(this);
+      try {
+        acquireSharedLock();
+        try {
+          OAtomicOperation atomicOperation = atomicOperationsManager.getCurrentOperation();
+
+          final BucketSearchResult searchResult = first ? firstItem(atomicOperation) : lastItem(atomicOperation);
+          if (searchResult == null)
+            return null;
+
+          final OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, searchResult.getLastPathItem(), false);
+          cacheEntry.acquireSharedLock();
+          try {
+            OPrefixSBTreeBucket<V> bucket = new OPrefixSBTreeBucket<V>(cacheEntry, valueSerializer,
+                getChanges(atomicOperation, cacheEntry));
+            return denormalize(bucket.getKey(searchResult.itemIndex));
+          } finally {
+            cacheEntry.releaseSharedLock();
+            releasePage(atomicOperation, cacheEntry);
+          }
+        } finally {
+          releaseSharedLock();
+        }
+      } catch (IOException e) {
+        throw OException.wrapException(
+            new OPrefixSBTreeException("Error during finding " + (first ? "first" : "last") + " key in sbtree [" + getName() + "]",
+                this), e);
+      } finally {
+        atomicOperationsManager.releaseReadLock(this);
+      }
+    } finally {
+      if (statistic != null)
+        statistic.stopIndexEntryReadTimer();
+      completeOperation();
+    }
+  }
+
+  /**
+   * @param fromKey Inclusive lower boundary of range or <code>null</code> if range is not limited from below.
+   * @param toKey   Exclusive upper boundary of range or <code>null</code> if range is not limited from above.
+   */
+  private OSBTree.OSBTreeCursor<K, V> iterateEntries(byte[] fromKey, byte[] toKey, boolean ascSortOrder) {
+    final OSessionStoragePerformanceStatistic statistic = performanceStatisticManager.getSessionPerformanceStatistic();
+    startOperation();
+    if (statistic != null)
+      statistic.startIndexEntryReadTimer();
+    try {
+      atomicOperationsManager.acquireReadLock(this);
+      try {
+        acquireSharedLock();
+        try {
+          OAtomicOperation atomicOperation = atomicOperationsManager.getCurrentOperation();
+
+          if (ascSortOrder) {
+            final BucketSearchResult searchResult;
+            final int itemIndex;
+
+            if (fromKey == null) {
+              searchResult = firstItem(atomicOperation);
+              if (searchResult == null)
+                return emptyCursor();
+
+              itemIndex = searchResult.itemIndex;
+            } else {
+              searchResult = findBucket(fromKey, atomicOperation);
+              itemIndex = searchResult.itemIndex >= 0 ? searchResult.itemIndex : -searchResult.itemIndex - 1;
+            }
+
+            return new OPrefixSBTreeCursorForward(searchResult.getLastPathItem(), itemIndex, toKey);
+          }
+
+          final BucketSearchResult searchResult;
+          final int itemIndex;
+
+          if (toKey == null) {
+            searchResult = lastItem(atomicOperation);
+            if (searchResult == null)
+              return emptyCursor();
+
+            itemIndex = searchResult.itemIndex;
+          } else {
+            searchResult = findBucket(toKey, atomicOperation);
+            itemIndex = searchResult.itemIndex >= 0 ? searchResult.itemIndex - 1 : -searchResult.itemIndex - 2;
+          }
+
+          return new OPrefixSBTreeCursorBackward(searchResult.getLastPathItem(), itemIndex, fromKey);
+        } finally {
+          releaseSharedLock();
+        }
+      } catch (IOException ioe) {
+        throw OException.wrapException(new OPrefixSBTreeException("Error during iteration of entries of sbtree " + getName(), this),
+            ioe);
+      } finally {
+        atomicOperationsManager.releaseReadLock(this);
+      }
+    } finally {
+      if (statistic != null)
+        statistic.stopIndexEntryReadTimer();
+      completeOperation();
+    }
+  }
+
+  private OSBTree.OSBTreeCursor<K, V> emptyCursor() {
+    return new OSBTree.OSBTreeCursor<K, V>() {
+      @Override
+      public Map.Entry<K, V> next(int prefetchSize) {
+        return null;
+      }
+    };
+  }
+
+  private BucketSearchResult firstItem(OAtomicOperation atomicOperation) throws IOException {
+    LinkedList<PagePathItemUnit> path = new LinkedList<PagePathItemUnit>();
+
+    long bucketIndex = ROOT_INDEX;
+
+    OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, bucketIndex, false);
+    int itemIndex = 0;
+    cacheEntry.acquireSharedLock();
+    try {
+      OPrefixSBTreeBucket<V> bucket = new OPrefixSBTreeBucket<V>(cacheEntry, valueSerializer,
+          getChanges(atomicOperation, cacheEntry));
+
+      while (true) {
+        if (!bucket.isLeaf()) {
+          if (bucket.isEmpty() || itemIndex > bucket.size()) {
+            if (!path.isEmpty()) {
+              PagePathItemUnit pagePathItemUnit = path.removeLast();
+
+              bucketIndex = pagePathItemUnit.pageIndex;
+              itemIndex = pagePathItemUnit.itemIndex + 1;
+            } else
+              return null;
+          } else {
+            path.add(new PagePathItemUnit(bucketIndex, itemIndex));
+
+            if (itemIndex < bucket.size())
+              bucketIndex = bucket.getLeftChild(itemIndex);
+            else
+              bucketIndex = bucket.getRightChild(itemIndex - 1);
+
+            itemIndex = 0;
+          }
+        } else {
+          if (bucket.isEmpty()) {
+            if (!path.isEmpty()) {
+              PagePathItemUnit pagePathItemUnit = path.removeLast();
+
+              bucketIndex = pagePathItemUnit.pageIndex;
+              itemIndex = pagePathItemUnit.itemIndex + 1;
+            } else
+              return null;
+          } else {
+            final ArrayList<Long> resultPath = new ArrayList<Long>(path.size() + 1);
+            for (PagePathItemUnit pathItemUnit : path)
+              resultPath.add(pathItemUnit.pageIndex);
+
+            resultPath.add(bucketIndex);
+            return new BucketSearchResult(0, resultPath);
+          }
+        }
+
+        cacheEntry.releaseSharedLock();
+        releasePage(atomicOperation, cacheEntry);
+
+        cacheEntry = loadPage(atomicOperation, fileId, bucketIndex, false);
+        cacheEntry.acquireSharedLock();
+
+        bucket = new OPrefixSBTreeBucket<V>(cacheEntry, valueSerializer, getChanges(atomicOperation, cacheEntry));
+      }
+    } finally {
+      cacheEntry.releaseSharedLock();
+      releasePage(atomicOperation, cacheEntry);
+    }
+  }
+
+  private BucketSearchResult lastItem(OAtomicOperation atomicOperation) throws IOException {
+    LinkedList<PagePathItemUnit> path = new LinkedList<PagePathItemUnit>();
+
+    long bucketIndex = ROOT_INDEX;
+
+    OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, bucketIndex, false);
+    cacheEntry.acquireSharedLock();
+
+    OPrefixSBTreeBucket<V> bucket = new OPrefixSBTreeBucket<V>(cacheEntry, valueSerializer,
+        getChanges(atomicOperation, cacheEntry));
+
+    int itemIndex = bucket.size() - 1;
+    try {
+      while (true) {
+        if (!bucket.isLeaf()) {
+          if (itemIndex < -1) {
+            if (!path.isEmpty()) {
+              PagePathItemUnit pagePathItemUnit = path.removeLast();
+
+              bucketIndex = pagePathItemUnit.pageIndex;
+              itemIndex = pagePathItemUnit.itemIndex - 1;
+            } else
+              return null;
+          } else {
+            path.add(new PagePathItemUnit(bucketIndex, itemIndex));
+
+            if (itemIndex > -1)
+              bucketIndex = bucket.getRightChild(itemIndex);
+            else
+              bucketIndex = bucket.getLeftChild(0);
+
+            itemIndex = OPrefixSBTreeBucket.MAX_PAGE_SIZE_BYTES + 1;
+          }
+        } else {
+          if (bucket.isEmpty()) {
+            if (!path.isEmpty()) {
+              PagePathItemUnit pagePathItemUnit = path.removeLast();
+
+              bucketIndex = pagePathItemUnit.pageIndex;
+              itemIndex = pagePathItemUnit.itemIndex - 1;
+            } else
+              return null;
+          } else {
+            final ArrayList<Long> resultPath = new ArrayList<Long>(path.size() + 1);
+            for (PagePathItemUnit pathItemUnit : path)
+              resultPath.add(pathItemUnit.pageIndex);
+
+            resultPath.add(bucketIndex);
+
+            return new BucketSearchResult(bucket.size() - 1, resultPath);
+          }
+        }
+
+        cacheEntry.releaseSharedLock();
+        releasePage(atomicOperation, cacheEntry);
+
+        cacheEntry = loadPage(atomicOperation, fileId, bucketIndex, false);
+        cacheEntry.acquireSharedLock();
+
+        bucket = new OPrefixSBTreeBucket<V>(cacheEntry, valueSerializer, getChanges(atomicOperation, cacheEntry));
+        if (itemIndex == OPrefixSBTreeBucket.MAX_PAGE_SIZE_BYTES + 1)
+          itemIndex = bucket.size() - 1;
+      }
+    } finally {
+      cacheEntry.releaseSharedLock();
+      releasePage(atomicOperation, cacheEntry);
+    }
+  }
+
+  private BucketSearchResult splitBucket(List<Long> path, int keyIndex, byte[] keyToInsert, OAtomicOperation atomicOperation)
+      throws IOException {
+    long pageIndex = path.get(path.size() - 1);
+
+    OCacheEntry bucketEntry = loadPage(atomicOperation, fileId, pageIndex, false);
+
+    bucketEntry.acquireExclusiveLock();
+    try {
+      OPrefixSBTreeBucket<V> bucketToSplit = new OPrefixSBTreeBucket<V>(bucketEntry, valueSerializer,
+          getChanges(atomicOperation, bucketEntry));
+
+      final boolean splitLeaf = bucketToSplit.isLeaf();
+      final int bucketSize = bucketToSplit.size();
+
+      int indexToSplit = bucketSize >>> 1;
+
+      // big embedded values may not fit in the same page, in such case new key is placed in the separate bucket
+      if (splitLeaf && bucketSize == 1)
+        indexToSplit = keyIndex;
+
+      final byte[] separationKey;
+      if (splitLeaf) {
+        // the shortest key which is bigger than all keys of left bucket and is not bigger than keys of right bucket
+        final byte[] leftKey = indexToSplit > 0 ? bucketToSplit.getKey(indexToSplit - 1) : keyToInsert;
+        final byte[] rightKey = indexToSplit < bucketSize ? bucketToSplit.getKey(indexToSplit) : keyToInsert;
+
+        final int separationKeyLength = OPrefixSBTreeBucket.commonPrefixLength(leftKey, rightKey) + 1;
+        separationKey = separationKeyLength < rightKey.length ? Arrays.copyOf(rightKey, separationKeyLength) : rightKey;
+      } else
+        separationKey = bucketToSplit.getKey(indexToSplit);
+
+      final List<OPrefixSBTreeBucket.SBTreeEntry<V>> rightEntries = new ArrayList<OPrefixSBTreeBucket.SBTreeEntry<V>>(
+          indexToSplit);
+
+      final int startRightIndex = splitLeaf ? indexToSplit : indexToSplit + 1;
+
+      for (int i = startRightIndex; i < bucketSize; i++)
+        rightEntries.add(bucketToSplit.getEntry(i));
+
+      if (pageIndex != ROOT_INDEX) {
+        return splitNonRootBucket(path, keyIndex, keyToInsert, pageIndex, bucketToSplit, splitLeaf, indexToSplit, separationKey,
+            rightEntries, atomicOperation);
+      } else {
+        return splitRootBucket(path, keyIndex, keyToInsert, bucketEntry, bucketToSplit, splitLeaf, indexToSplit, separationKey,
+            rightEntries, atomicOperation);
+      }
+    } finally {
+      bucketEntry.releaseExclusiveLock();
+      releasePage(atomicOperation, bucketEntry);
+    }
+  }
+
+  private BucketSearchResult splitNonRootBucket(List<Long> path, int keyIndex, byte[] keyToInsert, long pageIndex,
+      OPrefixSBTreeBucket<V> bucketToSplit, boolean splitLeaf, int indexToSplit, byte[] separationKey,
+      List<OPrefixSBTreeBucket.SBTreeEntry<V>> rightEntries, OAtomicOperation atomicOperation) throws IOException {
+    OCacheEntry rightBucketEntry = addPage(atomicOperation, fileId);
+    rightBucketEntry.acquireExclusiveLock();
+
+    try {
+      OPrefixSBTreeBucket<V> newRightBucket = new OPrefixSBTreeBucket<V>(rightBucketEntry, splitLeaf, valueSerializer,
+          getChanges(atomicOperation, rightBucketEntry));
+      newRightBucket.addAll(rightEntries);
+
+      bucketToSplit.shrink(indexToSplit);
+
+      if (splitLeaf) {
+        long rightSiblingPageIndex = bucketToSplit.getRightSibling();
+
+        newRightBucket.setRightSibling(rightSiblingPageIndex);
+        newRightBucket.setLeftSibling(pageIndex);
+
+        bucketToSplit.setRightSibling(rightBucketEntry.getPageIndex());
+
+        if (rightSiblingPageIndex >= 0) {
+          final OCacheEntry rightSiblingBucketEntry = loadPage(atomicOperation, fileId, rightSiblingPageIndex, false);
+          rightSiblingBucketEntry.acquireExclusiveLock();
+          try {
+            OPrefixSBTreeBucket<V> rightSiblingBucket = new OPrefixSBTreeBucket<V>(rightSiblingBucketEntry, valueSerializer,
+                getChanges(atomicOperation, rightSiblingBucketEntry));
+            rightSiblingBucket.setLeftSibling(rightBucketEntry.getPageIndex());
+          } finally {
+            rightSiblingBucketEntry.releaseExclusiveLock();
+            releasePage(atomicOperation, rightSiblingBucketEntry);
+          }
+        }
+      }
+
+      long parentIndex = path.get(path.size() - 2);
+      OCacheEntry parentCacheEntry = loadPage(atomicOperation, fileId, parentIndex, false);
+      parentCacheEntry.acquireExclusiveLock();
+      try {
+        OPrefixSBTreeBucket<V> parentBucket = new OPrefixSBTreeBucket<V>(parentCacheEntry, valueSerializer,
+            getChanges(atomicOperation, parentCacheEntry));
+        OPrefixSBTreeBucket.SBTreeEntry<V> parentEntry = new OPrefixSBTreeBucket.SBTreeEntry<V>(pageIndex,
+            rightBucketEntry.getPageIndex(), separationKey, null);
+
+        int insertionIndex = parentBucket.find(separationKey);
+        assert insertionIndex < 0;
+
+        insertionIndex = -insertionIndex - 1;
+        while (!parentBucket.addEntry(insertionIndex, parentEntry, true)) {
+          parentCacheEntry.releaseExclusiveLock();
+          releasePage(atomicOperation, parentCacheEntry);
+
+          BucketSearchResult bucketSearchResult = splitBucket(path.subList(0, path.size() - 1), insertionIndex, separationKey,
+              atomicOperation);
+
+          parentIndex = bucketSearchResult.getLastPathItem();
+          parentCacheEntry = loadPage(atomicOperation, fileId, parentIndex, false);
+          parentCacheEntry.acquireExclusiveLock();
+
+          insertionIndex = bucketSearchResult.itemIndex;
+
+          parentBucket = new OPrefixSBTreeBucket<V>(parentCacheEntry, valueSerializer, getChanges(atomicOperation, parentCacheEntry));
+        }
+
+      } finally {
+        parentCacheEntry.releaseExclusiveLock();
+        releasePage(atomicOperation, parentCacheEntry);
+      }
+
+    } finally {
+      rightBucketEntry.releaseExclusiveLock();
+      releasePage(atomicOperation, rightBucketEntry);
+    }
+
+    ArrayList<Long> resultPath = new ArrayList<Long>(path.subList(0, path.size() - 1));
+
+    if (COMPARATOR.compareLexicographically(keyToInsert, 0, keyToInsert.length, separationKey, 0, separationKey.length) < 0) {
+      resultPath.add(pageIndex);
+      return new BucketSearchResult(keyIndex, resultPath);
+    }
+
+    resultPath.add(rightBucketEntry.getPageIndex());
+    if (splitLeaf) {
+      return new BucketSearchResult(keyIndex - indexToSplit, resultPath);
+    }
+
+    return new BucketSearchResult(keyIndex - indexToSplit - 1, resultPath);
+  }
+
+  private BucketSearchResult splitRootBucket(List<Long> path, int keyIndex, byte[] keyToInsert, OCacheEntry bucketEntry,
+      OPrefixSBTreeBucket<V> bucketToSplit, boolean splitLeaf, int indexToSplit, byte[] separationKey,
+      List<OPrefixSBTreeBucket.SBTreeEntry<V>> rightEntries, OAtomicOperation atomicOperation) throws IOException {
+    final long freeListPage = bucketToSplit.getValuesFreeListFirstIndex();
+    final long treeSize = bucketToSplit.getTreeSize();
+
+    final List<OPrefixSBTreeBucket.SBTreeEntry<V>> leftEntries = new ArrayList<OPrefixSBTreeBucket.SBTreeEntry<V>>(indexToSplit);
+
+    for (int i = 0; i < indexToSplit; i++)
+      leftEntries.add(bucketToSplit.getEntry(i));
+
+    OCacheEntry leftBucketEntry = addPage(atomicOperation, fileId);
+
+    OCacheEntry rightBucketEntry = addPage(atomicOperation, fileId);
+    leftBucketEntry.acquireExclusiveLock();
+    try {
+      OPrefixSBTreeBucket<V> newLeftBucket = new OPrefixSBTreeBucket<V>(leftBucketEntry, splitLeaf, valueSerializer,
+          getChanges(atomicOperation, leftBucketEntry));
+      newLeftBucket.addAll(leftEntries);
+
+      if (splitLeaf)
+        newLeftBucket.setRightSibling(rightBucketEntry.getPageIndex());
+
+    } finally {
+      leftBucketEntry.releaseExclusiveLock();
+      releasePage(atomicOperation, leftBucketEntry);
+    }
+
+    rightBucketEntry.acquireExclusiveLock();
+    try {
+      OPrefixSBTreeBucket<V> newRightBucket = new OPrefixSBTreeBucket<V>(rightBucketEntry, splitLeaf, valueSerializer,
+          getChanges(atomicOperation, rightBucketEntry));
+      newRightBucket.addAll(rightEntries);
+
+      if (splitLeaf)
+        newRightBucket.setLeftSibling(leftBucketEntry.getPageIndex());
+    } finally {
+      rightBucketEntry.releaseExclusiveLock();
+      releasePage(atomicOperation, rightBucketEntry);
+    }
+
+    bucketToSplit = new OPrefixSBTreeBucket<V>(bucketEntry, false, valueSerializer, getChanges(atomicOperation, bucketEntry));
+
+    bucketToSplit.setTreeSize(treeSize);
+    bucketToSplit.setValuesFreeListFirstIndex(freeListPage);
+
+    bucketToSplit.addEntry(0,
+        new OPrefixSBTreeBucket.SBTreeEntry<V>(leftBucketEntry.getPageIndex(), rightBucketEntry.getPageIndex(), separationKey,
+            null), true);
+
+    final ArrayList<Long> resultPath = new ArrayList<Long>(path);
+
+    if (COMPARATOR.compareLexicographically(keyToInsert, 0, keyToInsert.length, separationKey, 0, separationKey.length) < 0) {
+      resultPath.add(leftBucketEntry.getPageIndex());
+      return new BucketSearchResult(keyIndex, resultPath);
+    }
+
+    resultPath.add(rightBucketEntry.getPageIndex());
+
+    if (splitLeaf)
+      return new BucketSearchResult(keyIndex - indexToSplit, resultPath);
+
+    return new BucketSearchResult(keyIndex - indexToSplit - 1, resultPath);
+  }
+
+  private BucketSearchResult findBucket(byte[] key, OAtomicOperation atomicOperation) throws IOException {
+    long pageIndex = ROOT_INDEX;
+    final ArrayList<Long> path = new ArrayList<Long>();
+
+    while (true) {
+      if (path.size() > MAX_PATH_LENGTH)
+        throw new OPrefixSBTreeException(
+            "We reached max level of depth of SBTree but still found nothing, seems like tree is in corrupted state. You should rebuild index related to given query.",
+            this);
+
+      path.add(pageIndex);
+      final OCacheEntry bucketEntry = loadPage(atomicOperation, fileId, pageIndex, false);
+      bucketEntry.acquireSharedLock();
+      try {
+        final OPrefixSBTreeBucket<V> keyBucket = new OPrefixSBTreeBucket<V>(bucketEntry, valueSerializer,
+            getChanges(atomicOperation, bucketEntry));
+        final int index = keyBucket.find(key);
+
+        if (keyBucket.isLeaf())
+          return new BucketSearchResult(index, path);
+
+        // keys which are equal to separation key are stored in right child
+        if (index >= 0)
+          pageIndex = keyBucket.getRightChild(index);
+        else {
+          final int insertionIndex = -index - 1;
+          if (insertionIndex >= keyBucket.size())
+            pageIndex = keyBucket.getRightChild(insertionIndex - 1);
+          else
+            pageIndex = keyBucket.getLeftChild(insertionIndex);
+        }
+      } finally {
+        bucketEntry.releaseSharedLock();
+        releasePage(atomicOperation, bucketEntry);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private K denormalize(byte[] key) {
+    return (K) keyNormalizer.denormalize(key);
+  }
+
+  private Map.Entry<K, V> convertToMapEntry(OPrefixSBTreeBucket.SBTreeEntry<V> treeEntry, OAtomicOperation atomicOperation)
+      throws IOException {
+    final K key = denormalize(treeEntry.key);
+    final V value = readValue(treeEntry.value, atomicOperation);
+
+    return new Map.Entry<K, V>() {
+      @Override
+      public K getKey() {
+        return key;
+      }
+
+      @Override
+      public V getValue() {
+        return value;
+      }
+
+      @Override
+      public V setValue(V value) {
+        throw new UnsupportedOperationException("setValue");
+      }
+    };
+  }
+
+  private static class BucketSearchResult {
+    private final int             itemIndex;
+    private final ArrayList<Long> path;
+
+    private BucketSearchResult(int itemIndex, ArrayList<Long> path) {
+      this.itemIndex = itemIndex;
+      this.path = path;
+    }
+
+    public long getLastPathItem() {
+      return path.get(path.size() - 1);
+    }
+  }
+
+  private static final class PagePathItemUnit {
+    private final long pageIndex;
+    private final int  itemIndex;
+
+    private PagePathItemUnit(long pageIndex, int itemIndex) {
+      this.pageIndex = pageIndex;
+      this.itemIndex = itemIndex;
+    }
+  }
+
+  private final class OPrefixSBTreeCursorForward implements OSBTree.OSBTreeCursor<K, V> {
+    private final byte[] toKey;
+
+    private long pageIndex;
+    private int  itemIndex;
+
+    private List<Map.Entry<K, V>>     dataCache         = new ArrayList<Map.Entry<K, V>>();
+    private Iterator<Map.Entry<K, V>> dataCacheIterator = OEmptyMapEntryIterator.INSTANCE;
+
+    private OPrefixSBTreeCursorForward(long startPageIndex, int startItemIndex, byte[] toKey) {
+      this.toKey = toKey;
+
+      pageIndex = startPageIndex;
+      itemIndex = startItemIndex;
+    }
+
+    public Map.Entry<K, V> next(int prefetchSize) {
+      final OSessionStoragePerformanceStatistic statistic = performanceStatisticManager.getSessionPerformanceStatistic();
+      startOperation();
+      if (statistic != null)
+        statistic.startIndexEntryReadTimer();
+      try {
+        if (dataCacheIterator == null)
+          return null;
+
+        if (dataCacheIterator.hasNext())
+          return dataCacheIterator.next();
+
+        dataCache.clear();
+
+        if (prefetchSize < 0 || prefetchSize > OGlobalConfiguration.INDEX_CURSOR_PREFETCH_SIZE.getValueAsInteger())
+          prefetchSize = OGlobalConfiguration.INDEX_CURSOR_PREFETCH_SIZE.getValueAsInteger();
+
+        if (prefetchSize == 0)
+          prefetchSize = 1;
+
+        atomicOperationsManager.acquireReadLock(OPrefixSBTree.this);
+        try {
+          acquireSharedLock();
+          try {
+            OAtomicOperation atomicOperation = atomicOperationsManager.getCurrentOperation();
+
+            while (dataCache.size() < prefetchSize) {
+              if (pageIndex == -1)
+                break;
+
+              if (pageIndex >= getFilledUpTo(atomicOperation, fileId)) {
+                pageIndex = -1;
+                break;
+              }
+
+              final OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, pageIndex, false);
+              cacheEntry.acquireSharedLock();
+              try {
+                final OPrefixSBTreeBucket<V> bucket = new OPrefixSBTreeBucket<V>(cacheEntry, valueSerializer,
+                    getChanges(atomicOperation, cacheEntry));
+
+                if (itemIndex >= bucket.size()) {
+                  pageIndex = bucket.getRightSibling();
+                  itemIndex = 0;
+                  continue;
+                }
+
+                final OPrefixSBTreeBucket.SBTreeEntry<V> entry = bucket.getEntry(itemIndex);
+                itemIndex++;
+
+                if (toKey != null && COMPARATOR.compareLexicographically(entry.key, 0, entry.key.length, toKey, 0, toKey.length) >= 0) {
+                  pageIndex = -1;
+                  break;
+                }
+
+                dataCache.add(convertToMapEntry(entry, atomicOperation));
+              } finally {
+                cacheEntry.releaseSharedLock();
+                releasePage(atomicOperation, cacheEntry);
+              }
+            }
+          } finally {
+            releaseSharedLock();
+          }
+        } catch (IOException e) {
+          throw OException.wrapException(new OPrefixSBTreeException("Error during element iteration", OPrefixSBTree.this), e);
+        } finally {
+          atomicOperationsManager.releaseReadLock(OPrefixSBTree.this);
+        }
+
+        if (dataCache.isEmpty()) {
+          dataCacheIterator = null;
+          return null;
+        }
+
+        dataCacheIterator = dataCache.iterator();
+
+        return dataCacheIterator.next();
+      } finally {
+        if (statistic != null)
+          statistic.stopIndexEntryReadTimer();
+        completeOperation();
+      }
+    }
+  }
+
+  private final class OPrefixSBTreeCursorBackward implements OSBTree.OSBTreeCursor<K, V> {
+    private final byte[] fromKey;
+
+    private long pageIndex;
+    private int  itemIndex;
+
+    private List<Map.Entry<K, V>>     dataCache         = new ArrayList<Map.Entry<K, V>>();
+    private Iterator<Map.Entry<K, V>> dataCacheIterator = OEmptyMapEntryIterator.INSTANCE;
+
+    private OPrefixSBTreeCursorBackward(long endPageIndex, int endItemIndex, byte[] fromKey) {
+      this.fromKey = fromKey;
+
+      pageIndex = endPageIndex;
+      itemIndex = endItemIndex;
+    }
+
+    public Map.Entry<K, V> next(int prefetchSize) {
+      final OSessionStoragePerformanceStatistic statistic = performanceStatisticManager.getSessionPerformanceStatistic();
+      startOperation();
+      if (statistic != null)
+        statistic.startIndexEntryReadTimer();
+      try {
+        if (dataCacheIterator == null)
+          return null;
+
+        if (dataCacheIterator.hasNext())
+          return dataCacheIterator.next();
+
+        dataCache.clear();
+
+        if (prefetchSize < 0 || prefetchSize > OGlobalConfiguration.INDEX_CURSOR_PREFETCH_SIZE.getValueAsInteger())
+          prefetchSize = OGlobalConfiguration.INDEX_CURSOR_PREFETCH_SIZE.getValueAsInteger();
+
+        if (prefetchSize == 0)
+          prefetchSize = 1;
+
+        atomicOperationsManager.acquireReadLock(OPrefixSBTree.this);
+        try {
+          acquireSharedLock();
+          try {
+            OAtomicOperation atomicOperation = atomicOperationsManager.getCurrentOperation();
+
+            while (dataCache.size() < prefetchSize) {
+              if (pageIndex >= getFilledUpTo(atomicOperation, fileId))
+                pageIndex = getFilledUpTo(atomicOperation, fileId) - 1;
+
+              if (pageIndex == -1)
+                break;
+
+              final OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, pageIndex, false);
+              cacheEntry.acquireSharedLock();
+              try {
+                final OPrefixSBTreeBucket<V> bucket = new OPrefixSBTreeBucket<V>(cacheEntry, valueSerializer,
+                    getChanges(atomicOperation, cacheEntry));
+
+                if (itemIndex >= bucket.size())
+                  itemIndex = bucket.size() - 1;
+
+                if (itemIndex < 0) {
+                  pageIndex = bucket.getLeftSibling();
+                  itemIndex = Integer.MAX_VALUE;
+                  continue;
+                }
+
+                final OPrefixSBTreeBucket.SBTreeEntry<V> entry = bucket.getEntry(itemIndex);
+                itemIndex--;
+
+                if (fromKey != null
+                    && COMPARATOR.compareLexicographically(entry.key, 0, entry.key.length, fromKey, 0, fromKey.length) < 0) {
+                  pageIndex = -1;
+                  break;
+                }
+
+                dataCache.add(convertToMapEntry(entry, atomicOperation));
+              } finally {
+                cacheEntry.releaseSharedLock();
+                releasePage(atomicOperation, cacheEntry);
+              }
+            }
+          } finally {
+            releaseSharedLock();
+          }
+        } catch (IOException e) {
+          throw OException.wrapException(new OPrefixSBTreeException("Error during element iteration", OPrefixSBTree.this), e);
+        } finally {
+          atomicOperationsManager.releaseReadLock(OPrefixSBTree.this);
+        }
+
+        if (dataCache.isEmpty()) {
+          dataCacheIterator = null;
+          return null;
+        }
+
+        dataCacheIterator = dataCache.iterator();
+
+        return dataCacheIterator.next();
+      } finally {
+        if (statistic != null)
+          statistic.stopIndexEntryReadTimer();
+        completeOperation();
+      }
+    }
+  }
+}
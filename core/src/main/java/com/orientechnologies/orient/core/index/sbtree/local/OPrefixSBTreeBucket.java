@@ -0,0 +1,512 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.index.sbtree.local;
+
+import com.orientechnologies.common.comparator.ODefaultComparator;
+import com.orientechnologies.common.comparator.OUnsafeByteArrayComparator;
+import com.orientechnologies.common.serialization.types.OBinarySerializer;
+import com.orientechnologies.common.serialization.types.OByteSerializer;
+import com.orientechnologies.common.serialization.types.OIntegerSerializer;
+import com.orientechnologies.common.serialization.types.OLongSerializer;
+import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.base.ODurablePage;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OWALChanges;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bucket of {@link OPrefixSBTree}. Keys are stored in binary comparable form produced by {@link OKeyNormalizer}, so binary search
+ * compares raw bytes of keys and does not deserialize them.
+ * <p>
+ * Common prefix of all keys of bucket is stored only once at the end of the page, entries contain only suffixes of keys. If key
+ * which does not start with prefix of bucket is added, prefix is shortened and bucket is rebuilt. Each half of split bucket
+ * gets the longest prefix which is common for the keys of this half.
+ * <p>
+ * Format of leaf entry is: suffix length, suffix, flag which indicates whether value is stored in separate pages, value or link
+ * to the value. Format of non-leaf entry is: suffix length, suffix, left child, right child.
+ */
+public class OPrefixSBTreeBucket<V> extends ODurablePage {
+  private static final int FREE_POINTER_OFFSET     = NEXT_FREE_POSITION;
+  private static final int SIZE_OFFSET             = FREE_POINTER_OFFSET + OIntegerSerializer.INT_SIZE;
+  private static final int IS_LEAF_OFFSET          = SIZE_OFFSET + OIntegerSerializer.INT_SIZE;
+  private static final int LEFT_SIBLING_OFFSET     = IS_LEAF_OFFSET + OByteSerializer.BYTE_SIZE;
+  private static final int RIGHT_SIBLING_OFFSET    = LEFT_SIBLING_OFFSET + OLongSerializer.LONG_SIZE;
+  private static final int TREE_SIZE_OFFSET        = RIGHT_SIBLING_OFFSET + OLongSerializer.LONG_SIZE;
+  private static final int FREE_VALUES_LIST_OFFSET = TREE_SIZE_OFFSET + OLongSerializer.LONG_SIZE;
+  private static final int PREFIX_LENGTH_OFFSET    = FREE_VALUES_LIST_OFFSET + OLongSerializer.LONG_SIZE;
+
+  private static final int POSITIONS_ARRAY_OFFSET = PREFIX_LENGTH_OFFSET + OIntegerSerializer.INT_SIZE;
+
+  private static final OUnsafeByteArrayComparator COMPARATOR = OUnsafeByteArrayComparator.INSTANCE;
+
+  private final boolean isLeaf;
+
+  private final OBinarySerializer<V> valueSerializer;
+
+  public OPrefixSBTreeBucket(OCacheEntry cacheEntry, boolean isLeaf, OBinarySerializer<V> valueSerializer, OWALChanges changes)
+      throws IOException {
+    super(cacheEntry, changes);
+
+    this.isLeaf = isLeaf;
+    this.valueSerializer = valueSerializer;
+
+    setIntValue(FREE_POINTER_OFFSET, MAX_PAGE_SIZE_BYTES);
+    setIntValue(SIZE_OFFSET, 0);
+
+    setByteValue(IS_LEAF_OFFSET, (byte) (isLeaf ? 1 : 0));
+    setLongValue(LEFT_SIBLING_OFFSET, -1);
+    setLongValue(RIGHT_SIBLING_OFFSET, -1);
+
+    setLongValue(TREE_SIZE_OFFSET, 0);
+    setLongValue(FREE_VALUES_LIST_OFFSET, -1);
+    setIntValue(PREFIX_LENGTH_OFFSET, 0);
+  }
+
+  public OPrefixSBTreeBucket(OCacheEntry cacheEntry, OBinarySerializer<V> valueSerializer, OWALChanges changes) {
+    super(cacheEntry, changes);
+
+    this.isLeaf = getByteValue(IS_LEAF_OFFSET) > 0;
+    this.valueSerializer = valueSerializer;
+  }
+
+  public void setTreeSize(long size) throws IOException {
+    setLongValue(TREE_SIZE_OFFSET, size);
+  }
+
+  public long getTreeSize() {
+    return getLongValue(TREE_SIZE_OFFSET);
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public long getValuesFreeListFirstIndex() {
+    return getLongValue(FREE_VALUES_LIST_OFFSET);
+  }
+
+  public void setValuesFreeListFirstIndex(long pageIndex) throws IOException {
+    setLongValue(FREE_VALUES_LIST_OFFSET, pageIndex);
+  }
+
+  public int size() {
+    return getIntValue(SIZE_OFFSET);
+  }
+
+  public boolean isLeaf() {
+    return isLeaf;
+  }
+
+  public byte[] getPrefix() {
+    final int prefixLength = getIntValue(PREFIX_LENGTH_OFFSET);
+    return getBinaryValue(MAX_PAGE_SIZE_BYTES - prefixLength, prefixLength);
+  }
+
+  public int find(byte[] key) {
+    final int size = size();
+    final byte[] prefix = getPrefix();
+
+    // the whole bucket is either less or bigger than the key if key does not start with prefix of bucket
+    final int prefixCompare = COMPARATOR
+        .compareLexicographically(key, 0, Math.min(key.length, prefix.length), prefix, 0, prefix.length);
+    if (prefixCompare < 0)
+      return -1;
+    if (prefixCompare > 0)
+      return -(size + 1);
+
+    int low = 0;
+    int high = size - 1;
+
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      final byte[] midSuffix = getSuffix(mid);
+      final int cmp = COMPARATOR
+          .compareLexicographically(midSuffix, 0, midSuffix.length, key, prefix.length, key.length - prefix.length);
+
+      if (cmp < 0)
+        low = mid + 1;
+      else if (cmp > 0)
+        high = mid - 1;
+      else
+        return mid; // key found
+    }
+
+    return -(low + 1); // key not found.
+  }
+
+  public byte[] getKey(int index) {
+    final byte[] prefix = getPrefix();
+    final byte[] suffix = getSuffix(index);
+
+    final byte[] key = Arrays.copyOf(prefix, prefix.length + suffix.length);
+    System.arraycopy(suffix, 0, key, prefix.length, suffix.length);
+
+    return key;
+  }
+
+  public SBTreeEntry<V> getEntry(int entryIndex) {
+    final byte[] key = getKey(entryIndex);
+    final int payloadPosition = getPayloadPosition(entryIndex);
+
+    if (isLeaf)
+      return new SBTreeEntry<V>(-1, -1, key, readValue(payloadPosition));
+
+    return new SBTreeEntry<V>(getLongValue(payloadPosition), getLongValue(payloadPosition + OLongSerializer.LONG_SIZE), key, null);
+  }
+
+  public OSBTreeValue<V> getValue(int entryIndex) {
+    assert isLeaf;
+
+    return readValue(getPayloadPosition(entryIndex));
+  }
+
+  public long getLeftChild(int entryIndex) {
+    assert !isLeaf;
+
+    return getLongValue(getPayloadPosition(entryIndex));
+  }
+
+  public long getRightChild(int entryIndex) {
+    assert !isLeaf;
+
+    return getLongValue(getPayloadPosition(entryIndex) + OLongSerializer.LONG_SIZE);
+  }
+
+  public long remove(int entryIndex) throws IOException {
+    if (!isLeaf)
+      throw new IllegalStateException("Remove is applies to leaf buckets only");
+
+    final int entryPosition = getEntryPosition(entryIndex);
+    final int payloadPosition = getPayloadPosition(entryIndex);
+
+    long linkValue = -1;
+    if (getByteValue(payloadPosition) > 0)
+      linkValue = getLongValue(payloadPosition + OByteSerializer.BYTE_SIZE);
+
+    final int entrySize = payloadPosition - entryPosition + getPayloadSize(payloadPosition);
+
+    int size = size();
+    if (entryIndex < size - 1) {
+      moveData(POSITIONS_ARRAY_OFFSET + (entryIndex + 1) * OIntegerSerializer.INT_SIZE,
+          POSITIONS_ARRAY_OFFSET + entryIndex * OIntegerSerializer.INT_SIZE, (size - entryIndex - 1) * OIntegerSerializer.INT_SIZE);
+    }
+
+    size--;
+    setIntValue(SIZE_OFFSET, size);
+
+    final int freePointer = getIntValue(FREE_POINTER_OFFSET);
+    if (size > 0 && entryPosition > freePointer) {
+      moveData(freePointer, freePointer + entrySize, entryPosition - freePointer);
+    }
+    setIntValue(FREE_POINTER_OFFSET, freePointer + entrySize);
+
+    int currentPositionOffset = POSITIONS_ARRAY_OFFSET;
+
+    for (int i = 0; i < size; i++) {
+      final int currentEntryPosition = getIntValue(currentPositionOffset);
+      if (currentEntryPosition < entryPosition)
+        setIntValue(currentPositionOffset, currentEntryPosition + entrySize);
+      currentPositionOffset += OIntegerSerializer.INT_SIZE;
+    }
+
+    return linkValue;
+  }
+
+  public void addAll(List<SBTreeEntry<V>> entries) throws IOException {
+    final byte[] prefix;
+    if (entries.isEmpty())
+      prefix = new byte[0];
+    else
+      prefix = commonPrefix(entries.get(0).key, entries.get(entries.size() - 1).key);
+
+    setPrefix(prefix);
+
+    for (int i = 0; i < entries.size(); i++) {
+      final boolean added = appendEntry(i, entries.get(i), prefix.length);
+      assert added;
+    }
+  }
+
+  public void shrink(int newSize) throws IOException {
+    final List<SBTreeEntry<V>> treeEntries = new ArrayList<SBTreeEntry<V>>(newSize);
+
+    for (int i = 0; i < newSize; i++) {
+      treeEntries.add(getEntry(i));
+    }
+
+    setIntValue(FREE_POINTER_OFFSET, MAX_PAGE_SIZE_BYTES);
+    setIntValue(SIZE_OFFSET, 0);
+
+    addAll(treeEntries);
+  }
+
+  public boolean addEntry(int index, SBTreeEntry<V> treeEntry, boolean updateNeighbors) throws IOException {
+    final int size = size();
+
+    if (size == 0) {
+      setIntValue(FREE_POINTER_OFFSET, MAX_PAGE_SIZE_BYTES);
+      setPrefix(treeEntry.key);
+    } else {
+      final byte[] prefix = getPrefix();
+      final int prefixLength = commonPrefixLength(prefix, treeEntry.key);
+
+      if (prefixLength < prefix.length)
+        return rebuild(index, treeEntry, prefixLength, updateNeighbors);
+    }
+
+    if (!appendEntry(index, treeEntry, getIntValue(PREFIX_LENGTH_OFFSET)))
+      return false;
+
+    if (!isLeaf && updateNeighbors)
+      updateNeighbors(index, treeEntry);
+
+    return true;
+  }
+
+  public int updateValue(int index, OSBTreeValue<V> value) throws IOException {
+    final int payloadPosition = getPayloadPosition(index);
+
+    final byte[] serializedValue = serializeValue(value);
+    final int oldSize = getPayloadSize(payloadPosition) - OByteSerializer.BYTE_SIZE;
+
+    if (serializedValue.length != oldSize)
+      return -1;
+
+    final byte[] oldSerializedValue = getBinaryValue(payloadPosition + OByteSerializer.BYTE_SIZE, oldSize);
+    if (getByteValue(payloadPosition) == (value.isLink() ? 1 : 0)
+        && ODefaultComparator.INSTANCE.compare(oldSerializedValue, serializedValue) == 0)
+      return 0;
+
+    setByteValue(payloadPosition, value.isLink() ? (byte) 1 : (byte) 0);
+    setBinaryValue(payloadPosition + OByteSerializer.BYTE_SIZE, serializedValue);
+
+    return 1;
+  }
+
+  public void setLeftSibling(long pageIndex) throws IOException {
+    setLongValue(LEFT_SIBLING_OFFSET, pageIndex);
+  }
+
+  public long getLeftSibling() {
+    return getLongValue(LEFT_SIBLING_OFFSET);
+  }
+
+  public void setRightSibling(long pageIndex) throws IOException {
+    setLongValue(RIGHT_SIBLING_OFFSET, pageIndex);
+  }
+
+  public long getRightSibling() {
+    return getLongValue(RIGHT_SIBLING_OFFSET);
+  }
+
+  /**
+   * @return Length of the common prefix of two keys.
+   */
+  public static int commonPrefixLength(byte[] keyOne, byte[] keyTwo) {
+    final int length = Math.min(keyOne.length, keyTwo.length);
+
+    int i = 0;
+    while (i < length && keyOne[i] == keyTwo[i])
+      i++;
+
+    return i;
+  }
+
+  private static byte[] commonPrefix(byte[] keyOne, byte[] keyTwo) {
+    return Arrays.copyOf(keyOne, commonPrefixLength(keyOne, keyTwo));
+  }
+
+  /**
+   * Rebuilds bucket with shorter prefix and adds new entry to it.
+   *
+   * @return <code>false</code> if entries with shorter prefix do not fit into the page. Bucket is not changed in such case.
+   */
+  private boolean rebuild(int index, SBTreeEntry<V> treeEntry, int prefixLength, boolean updateNeighbors) throws IOException {
+    final int size = size();
+    final int oldPrefixLength = getIntValue(PREFIX_LENGTH_OFFSET);
+    final int extension = oldPrefixLength - prefixLength;
+
+    final int usedSpace = MAX_PAGE_SIZE_BYTES - getIntValue(FREE_POINTER_OFFSET) - oldPrefixLength;
+    final int requiredSpace =
+        usedSpace + size * extension + prefixLength + entrySize(treeEntry, prefixLength) + (size + 1) * OIntegerSerializer.INT_SIZE;
+
+    if (requiredSpace > MAX_PAGE_SIZE_BYTES - POSITIONS_ARRAY_OFFSET)
+      return false;
+
+    final List<SBTreeEntry<V>> entries = new ArrayList<SBTreeEntry<V>>(size + 1);
+    for (int i = 0; i < size; i++)
+      entries.add(getEntry(i));
+
+    entries.add(index, treeEntry);
+
+    setIntValue(FREE_POINTER_OFFSET, MAX_PAGE_SIZE_BYTES);
+    setIntValue(SIZE_OFFSET, 0);
+    setPrefix(Arrays.copyOf(treeEntry.key, prefixLength));
+
+    for (int i = 0; i < entries.size(); i++) {
+      final boolean added = appendEntry(i, entries.get(i), prefixLength);
+      assert added;
+    }
+
+    if (!isLeaf && updateNeighbors)
+      updateNeighbors(index, treeEntry);
+
+    return true;
+  }
+
+  private void setPrefix(byte[] prefix) throws IOException {
+    assert size() == 0;
+
+    final int freePointer = MAX_PAGE_SIZE_BYTES - prefix.length;
+
+    setIntValue(PREFIX_LENGTH_OFFSET, prefix.length);
+    setBinaryValue(freePointer, prefix);
+    setIntValue(FREE_POINTER_OFFSET, freePointer);
+  }
+
+  private boolean appendEntry(int index, SBTreeEntry<V> treeEntry, int prefixLength) throws IOException {
+    final int entrySize = entrySize(treeEntry, prefixLength);
+
+    final int size = size();
+    int freePointer = getIntValue(FREE_POINTER_OFFSET);
+    if (freePointer - entrySize < (size + 1) * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET)
+      return false;
+
+    if (index <= size - 1) {
+      moveData(POSITIONS_ARRAY_OFFSET + index * OIntegerSerializer.INT_SIZE,
+          POSITIONS_ARRAY_OFFSET + (index + 1) * OIntegerSerializer.INT_SIZE, (size - index) * OIntegerSerializer.INT_SIZE);
+    }
+
+    freePointer -= entrySize;
+
+    setIntValue(FREE_POINTER_OFFSET, freePointer);
+    setIntValue(POSITIONS_ARRAY_OFFSET + index * OIntegerSerializer.INT_SIZE, freePointer);
+    setIntValue(SIZE_OFFSET, size + 1);
+
+    final byte[] suffix = Arrays.copyOfRange(treeEntry.key, prefixLength, treeEntry.key.length);
+    freePointer += setIntValue(freePointer, suffix.length);
+    freePointer += setBinaryValue(freePointer, suffix);
+
+    if (isLeaf) {
+      freePointer += setByteValue(freePointer, treeEntry.value.isLink() ? (byte) 1 : (byte) 0);
+      setBinaryValue(freePointer, serializeValue(treeEntry.value));
+    } else {
+      freePointer += setLongValue(freePointer, treeEntry.leftChild);
+      setLongValue(freePointer, treeEntry.rightChild);
+    }
+
+    return true;
+  }
+
+  private void updateNeighbors(int index, SBTreeEntry<V> treeEntry) throws IOException {
+    final int size = size();
+
+    if (index < size - 1)
+      setLongValue(getPayloadPosition(index + 1), treeEntry.rightChild);
+
+    if (index > 0)
+      setLongValue(getPayloadPosition(index - 1) + OLongSerializer.LONG_SIZE, treeEntry.leftChild);
+  }
+
+  private int entrySize(SBTreeEntry<V> treeEntry, int prefixLength) {
+    final int keySize = OIntegerSerializer.INT_SIZE + treeEntry.key.length - prefixLength;
+
+    if (isLeaf) {
+      final int valueSize;
+      if (treeEntry.value.isLink())
+        valueSize = OLongSerializer.LONG_SIZE;
+      else
+        valueSize = valueSerializer.getObjectSize(treeEntry.value.getValue());
+
+      return keySize + OByteSerializer.BYTE_SIZE + valueSize;
+    }
+
+    return keySize + 2 * OLongSerializer.LONG_SIZE;
+  }
+
+  private byte[] serializeValue(OSBTreeValue<V> value) {
+    final byte[] serializedValue;
+    if (value.isLink()) {
+      serializedValue = new byte[OLongSerializer.LONG_SIZE];
+      OLongSerializer.INSTANCE.serializeNative(value.getLink(), serializedValue, 0);
+    } else {
+      serializedValue = new byte[valueSerializer.getObjectSize(value.getValue())];
+      valueSerializer.serializeNativeObject(value.getValue(), serializedValue, 0);
+    }
+
+    return serializedValue;
+  }
+
+  private OSBTreeValue<V> readValue(int payloadPosition) {
+    final boolean isLinkValue = getByteValue(payloadPosition) > 0;
+    if (isLinkValue)
+      return new OSBTreeValue<V>(true, getLongValue(payloadPosition + OByteSerializer.BYTE_SIZE), null);
+
+    return new OSBTreeValue<V>(false, -1, deserializeFromDirectMemory(valueSerializer, payloadPosition + OByteSerializer.BYTE_SIZE));
+  }
+
+  private int getPayloadSize(int payloadPosition) {
+    if (!isLeaf)
+      return 2 * OLongSerializer.LONG_SIZE;
+
+    if (getByteValue(payloadPosition) > 0)
+      return OByteSerializer.BYTE_SIZE + OLongSerializer.LONG_SIZE;
+
+    return OByteSerializer.BYTE_SIZE + getObjectSizeInDirectMemory(valueSerializer, payloadPosition + OByteSerializer.BYTE_SIZE);
+  }
+
+  private byte[] getSuffix(int index) {
+    final int entryPosition = getEntryPosition(index);
+    return getBinaryValue(entryPosition + OIntegerSerializer.INT_SIZE, getIntValue(entryPosition));
+  }
+
+  private int getEntryPosition(int index) {
+    return getIntValue(POSITIONS_ARRAY_OFFSET + index * OIntegerSerializer.INT_SIZE);
+  }
+
+  private int getPayloadPosition(int index) {
+    final int entryPosition = getEntryPosition(index);
+    return entryPosition + OIntegerSerializer.INT_SIZE + getIntValue(entryPosition);
+  }
+
+  public static final class SBTreeEntry<V> {
+    public final long            leftChild;
+    public final long            rightChild;
+    public final byte[]          key;
+    public final OSBTreeValue<V> value;
+
+    public SBTreeEntry(long leftChild, long rightChild, byte[] key, OSBTreeValue<V> value) {
+      this.leftChild = leftChild;
+      this.rightChild = rightChild;
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    public String toString() {
+      return "SBTreeEntry{" + "leftChild=" + leftChild + ", rightChild=" + rightChild + ", key=" + Arrays.toString(key) + ", value="
+          + value + '}';
+    }
+  }
+}
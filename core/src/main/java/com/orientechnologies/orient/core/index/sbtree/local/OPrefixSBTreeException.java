@@ -0,0 +1,34 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.index.sbtree.local;
+
+import com.orientechnologies.orient.core.exception.ODurableComponentException;
+
+public class OPrefixSBTreeException extends ODurableComponentException {
+
+  public OPrefixSBTreeException(OPrefixSBTreeException exception) {
+    super(exception);
+  }
+
+  public OPrefixSBTreeException(String message, OPrefixSBTree component) {
+    super(message, component);
+  }
+}
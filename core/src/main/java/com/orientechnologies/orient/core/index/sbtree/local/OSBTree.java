@@ -36,7 +36,6 @@ import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
 import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.atomicoperations.OAtomicOperation;
-import com.orientechnologies.orient.core.storage.impl.local.paginated.base.ODurableComponent;
 import com.orientechnologies.orient.core.storage.impl.local.statistic.OSessionStoragePerformanceStatistic;
 
 import java.io.IOException;
@@ -72,37 +71,19 @@ import java.util.*;
  * @author Andrey Lomakin
  * @since 8/7/13
  */
-public class OSBTree<K, V> extends ODurableComponent {
-  private static final int               MAX_KEY_SIZE            = OGlobalConfiguration.SBTREE_MAX_KEY_SIZE.getValueAsInteger();
-  private static final int               MAX_EMBEDDED_VALUE_SIZE = OGlobalConfiguration.SBTREE_MAX_EMBEDDED_VALUE_SIZE
-      .getValueAsInteger();
-  private static final OAlwaysLessKey    ALWAYS_LESS_KEY         = new OAlwaysLessKey();
-  private static final OAlwaysGreaterKey ALWAYS_GREATER_KEY      = new OAlwaysGreaterKey();
-
-  private static final int MAX_PATH_LENGTH = OGlobalConfiguration.SBTREE_MAX_DEPTH.getValueAsInteger();
-
-  private final static long                  ROOT_INDEX = 0;
-  private final        Comparator<? super K> comparator = ODefaultComparator.INSTANCE;
-  private final String  nullFileExtension;
-  private final boolean durableInNonTxMode;
-  private       long    fileId;
-  private long nullBucketFileId = -1;
+public class OSBTree<K, V> extends OSBTreeAbstract<K, V> {
+  private static final int               MAX_KEY_SIZE       = OGlobalConfiguration.SBTREE_MAX_KEY_SIZE.getValueAsInteger();
+  private static final OAlwaysLessKey    ALWAYS_LESS_KEY    = new OAlwaysLessKey();
+  private static final OAlwaysGreaterKey ALWAYS_GREATER_KEY = new OAlwaysGreaterKey();
+
+  private final Comparator<? super K> comparator = ODefaultComparator.INSTANCE;
   private int                  keySize;
   private OBinarySerializer<K> keySerializer;
   private OType[]              keyTypes;
-  private OBinarySerializer<V> valueSerializer;
-  private boolean              nullPointerSupport;
 
   public OSBTree(String name, String dataFileExtension, boolean durableInNonTxMode, String nullFileExtension,
       OAbstractPaginatedStorage storage) {
-    super(storage, name, dataFileExtension, name + dataFileExtension);
-    acquireExclusiveLock();
-    try {
-      this.nullFileExtension = nullFileExtension;
-      this.durableInNonTxMode = durableInNonTxMode;
-    } finally {
-      releaseExclusiveLock();
-    }
+    super(name, dataFileExtension, durableInNonTxMode, nullFileExtension, storage);
   }
 
   public void create(OBinarySerializer<K> keySerializer, OBinarySerializer<V> valueSerializer, OType[] keyTypes, int keySize,
@@ -139,11 +120,7 @@ public class OSBTree<K, V> extends ODurableComponent {
         OCacheEntry rootCacheEntry = addPage(atomicOperation, fileId);
         rootCacheEntry.acquireExclusiveLock();
         try {
-
-          OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, true, keySerializer, keyTypes, valueSerializer,
-              getChanges(atomicOperation, rootCacheEntry));
-          rootBucket.setTreeSize(0);
-
+          initRootBucket(rootCacheEntry, atomicOperation);
         } finally {
           rootCacheEntry.releaseExclusiveLock();
           releasePage(atomicOperation, rootCacheEntry);
@@ -172,15 +149,6 @@ public class OSBTree<K, V> extends ODurableComponent {
     }
   }
 
-  public boolean isNullPointerSupport() {
-    acquireSharedLock();
-    try {
-      return nullPointerSupport;
-    } finally {
-      releaseSharedLock();
-    }
-  }
-
   public V get(K key) {
     final OSessionStoragePerformanceStatistic statistic = performanceStatisticManager.getSessionPerformanceStatistic();
     startOperation();
@@ -267,18 +235,52 @@ public class OSBTree<K, V> extends ODurableComponent {
     return put(key, value, validator);
   }
 
-  public void close(boolean flush) {
+  /**
+   * Converts key in the form in which it is stored inside of tree.
+   *
+   * @see #bulkLoad(Iterator)
+   */
+  public K preprocessKey(K key) {
+    if (key == null)
+      return null;
+
+    return keySerializer.preprocess(key, (Object[]) keyTypes);
+  }
+
+  /**
+   * Fills empty tree by entries sorted by key. Leaf pages are filled completely one after another and non-leaf pages are built
+   * bottom-up on top of them. New pages are written directly to the disk cache without logging of their content and are flushed to
+   * the disk before content of the top page is copied to the root page inside of single atomic operation, so all entries become
+   * visible at once and only change of root page is logged.
+   * <p>
+   * If tree is not empty or there is active atomic operation entries are put one by one.
+   *
+   * @param entries Entries with unique keys preprocessed by {@link #preprocessKey(Object)} and sorted in ascending order, entry with
+   *                <code>null</code> key if any has to be the first one.
+   */
+  public void bulkLoad(Iterator<Map.Entry<K, V>> entries) {
     startOperation();
     try {
       acquireExclusiveLock();
       try {
-        readCache.closeFile(fileId, flush, writeCache);
+        if (atomicOperationsManager.getCurrentOperation() != null || size() > 0) {
+          while (entries.hasNext()) {
+            final Map.Entry<K, V> entry = entries.next();
+            put(entry.getKey(), entry.getValue());
+          }
 
-        if (nullPointerSupport)
-          readCache.closeFile(nullBucketFileId, flush, writeCache);
+          return;
+        }
 
-      } catch (IOException e) {
-        throw OException.wrapException(new OSBTreeException("Error during close of index " + getName(), this), e);
+        try {
+          buildTree(entries);
+        } catch (IOException e) {
+          clear();
+          throw OException.wrapException(new OSBTreeException("Error during bulk load of sbtree with name " + getName(), this), e);
+        } catch (RuntimeException e) {
+          clear();
+          throw e;
+        }
       } finally {
         releaseExclusiveLock();
       }
@@ -287,126 +289,183 @@ public class OSBTree<K, V> extends ODurableComponent {
     }
   }
 
-  public void close() {
-    close(true);
-  }
+  private void buildTree(Iterator<Map.Entry<K, V>> entries) throws IOException {
+    List<Long> pages = new ArrayList<Long>();
+    List<K> firstKeys = new ArrayList<K>();
 
-  public void clear() {
-    startOperation();
+    long treeSize = 0;
+    K lastKey = null;
+
+    OCacheEntry leafCacheEntry = null;
+    OSBTreeBucket<K, V> leafBucket = null;
     try {
-      final OAtomicOperation atomicOperation;
-      try {
-        atomicOperation = startAtomicOperation(true);
-      } catch (IOException e) {
-        throw OException.wrapException(new OSBTreeException("Error during sbtree clear", this), e);
-      }
+      while (entries.hasNext()) {
+        final Map.Entry<K, V> entry = entries.next();
+        final K key = entry.getKey();
+        final V value = entry.getValue();
 
-      acquireExclusiveLock();
-      try {
-        truncateFile(atomicOperation, fileId);
+        if (key == null) {
+          if (treeSize > 0)
+            throw new OSBTreeException("Entry with null key has to be the first one during bulk load", this);
 
-        if (nullPointerSupport)
-          truncateFile(atomicOperation, nullBucketFileId);
+          put(null, value);
+          continue;
+        }
 
-        OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, ROOT_INDEX, false);
-        if (cacheEntry == null) {
-          cacheEntry = addPage(atomicOperation, fileId);
+        final int keySize = keySerializer.getObjectSize(key, (Object[]) keyTypes);
+        if (keySize > MAX_KEY_SIZE) {
+          OLogManager.instance().error(this, "Key size is more than allowed, entry was skipped. Current key size %d, allowed  %d",
+              keySize, MAX_KEY_SIZE);
+          continue;
         }
 
-        cacheEntry.acquireExclusiveLock();
-        try {
-          OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(cacheEntry, true, keySerializer, keyTypes, valueSerializer,
-              getChanges(atomicOperation, cacheEntry));
+        if (lastKey != null && comparator.compare(lastKey, key) >= 0)
+          throw new OSBTreeException("Keys are not sorted or not unique during bulk load, key " + key + " follows " + lastKey,
+              this);
 
-          rootBucket.setTreeSize(0);
+        final boolean createLinkToTheValue = valueSerializer.getObjectSize(value) > MAX_EMBEDDED_VALUE_SIZE;
+        long valueLink = -1;
+        if (createLinkToTheValue)
+          valueLink = createLinkToTheValue(value, null);
 
-        } finally {
-          cacheEntry.releaseExclusiveLock();
-          releasePage(atomicOperation, cacheEntry);
-        }
+        final OSBTreeBucket.SBTreeEntry<K, V> treeEntry = new OSBTreeBucket.SBTreeEntry<K, V>(-1, -1, key,
+            new OSBTreeValue<V>(createLinkToTheValue, valueLink, createLinkToTheValue ? null : value));
 
-        endAtomicOperation(false, null);
-      } catch (IOException e) {
-        rollback(e);
+        if (leafBucket == null || !leafBucket.addEntry(leafBucket.size(), treeEntry, false)) {
+          final OCacheEntry newCacheEntry = addPage(null, fileId);
+          newCacheEntry.acquireExclusiveLock();
 
-        throw OException.wrapException(new OSBTreeException("Error during clear of sbtree with name " + getName(), this), e);
-      } catch (RuntimeException e) {
-        rollback(e);
-        throw e;
-      } finally {
-        releaseExclusiveLock();
+          final OSBTreeBucket<K, V> newBucket = new OSBTreeBucket<K, V>(newCacheEntry, true, keySerializer, keyTypes,
+              valueSerializer, null);
+
+          if (leafBucket != null) {
+            leafBucket.setRightSibling(newCacheEntry.getPageIndex());
+            newBucket.setLeftSibling(leafCacheEntry.getPageIndex());
+
+            leafCacheEntry.releaseExclusiveLock();
+            releasePage(null, leafCacheEntry);
+          }
+
+          leafCacheEntry = newCacheEntry;
+          leafBucket = newBucket;
+
+          final boolean added = leafBucket.addEntry(0, treeEntry, false);
+          assert added;
+
+          pages.add(leafCacheEntry.getPageIndex());
+          firstKeys.add(key);
+        }
+
+        lastKey = key;
+        treeSize++;
       }
     } finally {
-      completeOperation();
+      if (leafCacheEntry != null) {
+        leafCacheEntry.releaseExclusiveLock();
+        releasePage(null, leafCacheEntry);
+      }
     }
-  }
 
-  public void delete() {
-    startOperation();
+    if (treeSize == 0)
+      return;
+
+    boolean isLeaf = true;
+    while (pages.size() > 1) {
+      final List<Long> parentPages = new ArrayList<Long>();
+      final List<K> parentFirstKeys = new ArrayList<K>();
+
+      buildNonLeafLevel(pages, firstKeys, parentPages, parentFirstKeys);
+
+      pages = parentPages;
+      firstKeys = parentFirstKeys;
+      isLeaf = false;
+    }
+
+    final List<OSBTreeBucket.SBTreeEntry<K, V>> topEntries = new ArrayList<OSBTreeBucket.SBTreeEntry<K, V>>();
+    final OCacheEntry topCacheEntry = loadPage(null, fileId, pages.get(0), false);
+    topCacheEntry.acquireSharedLock();
     try {
-      final OAtomicOperation atomicOperation;
-      try {
-        atomicOperation = startAtomicOperation(false);
-      } catch (IOException e) {
-        throw OException.wrapException(new OSBTreeException("Error during sbtree deletion", this), e);
-      }
+      final OSBTreeBucket<K, V> topBucket = new OSBTreeBucket<K, V>(topCacheEntry, keySerializer, keyTypes, valueSerializer, null);
+      for (int i = 0; i < topBucket.size(); i++)
+        topEntries.add(topBucket.getEntry(i));
+    } finally {
+      topCacheEntry.releaseSharedLock();
+      releasePage(null, topCacheEntry);
+    }
 
-      acquireExclusiveLock();
+    writeCache.flush(fileId);
+
+    final OAtomicOperation atomicOperation = startAtomicOperation(true);
+    try {
+      final long nullKeysCount = size();
+
+      final OCacheEntry rootCacheEntry = loadPage(atomicOperation, fileId, ROOT_INDEX, false);
+      rootCacheEntry.acquireExclusiveLock();
       try {
-        deleteFile(atomicOperation, fileId);
+        OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer,
+            getChanges(atomicOperation, rootCacheEntry));
+        final long valuesFreeListFirstIndex = rootBucket.getValuesFreeListFirstIndex();
 
-        if (nullPointerSupport)
-          deleteFile(atomicOperation, nullBucketFileId);
+        rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, isLeaf, keySerializer, keyTypes, valueSerializer,
+            getChanges(atomicOperation, rootCacheEntry));
+        rootBucket.addAll(topEntries);
 
-        endAtomicOperation(false, null);
-      } catch (IOException e) {
-        rollback(e);
-        throw OException.wrapException(new OSBTreeException("Error during delete of sbtree with name " + getName(), this), e);
-      } catch (Exception e) {
-        rollback(e);
-        throw OException.wrapException(new OSBTreeException("Error during delete of sbtree with name " + getName(), this), e);
+        rootBucket.setTreeSize(nullKeysCount + treeSize);
+        rootBucket.setValuesFreeListFirstIndex(valuesFreeListFirstIndex);
       } finally {
-        releaseExclusiveLock();
+        rootCacheEntry.releaseExclusiveLock();
+        releasePage(atomicOperation, rootCacheEntry);
       }
-    } finally {
-      completeOperation();
+
+      endAtomicOperation(false, null);
+    } catch (IOException e) {
+      rollback(e);
+      throw e;
+    } catch (RuntimeException e) {
+      rollback(e);
+      throw e;
     }
   }
 
-  public void deleteWithoutLoad(String name) {
-    startOperation();
-    try {
-      final OAtomicOperation atomicOperation;
-      try {
-        atomicOperation = startAtomicOperation(false);
-      } catch (IOException e) {
-        throw OException.wrapException(new OSBTreeException("Error during sbtree deletion", this), e);
-      }
+  /**
+   * Fills non-leaf pages which point to the given pages of lower level. Every page has at least two children, so if only one child
+   * is left for the last page the previous page gives away its last child.
+   */
+  private void buildNonLeafLevel(List<Long> pages, List<K> firstKeys, List<Long> parentPages, List<K> parentFirstKeys)
+      throws IOException {
+    final int pagesCount = pages.size();
 
-      acquireExclusiveLock();
+    int index = 0;
+    while (index < pagesCount - 1) {
+      final OCacheEntry cacheEntry = addPage(null, fileId);
+      cacheEntry.acquireExclusiveLock();
       try {
-        if (isFileExists(atomicOperation, getFullName())) {
-          final long fileId = openFile(atomicOperation, getFullName());
-          deleteFile(atomicOperation, fileId);
-        }
+        final OSBTreeBucket<K, V> bucket = new OSBTreeBucket<K, V>(cacheEntry, false, keySerializer, keyTypes, valueSerializer,
+            null);
 
-        if (isFileExists(atomicOperation, getName() + nullFileExtension)) {
-          final long nullFileId = openFile(atomicOperation, getName() + nullFileExtension);
-          deleteFile(atomicOperation, nullFileId);
+        parentPages.add(cacheEntry.getPageIndex());
+        parentFirstKeys.add(firstKeys.get(index));
+
+        int lastChild = index;
+        while (lastChild < pagesCount - 1 && bucket.addEntry(bucket.size(),
+            new OSBTreeBucket.SBTreeEntry<K, V>(pages.get(lastChild), pages.get(lastChild + 1), firstKeys.get(lastChild + 1), null),
+            false))
+          lastChild++;
+
+        assert lastChild > index;
+
+        if (lastChild == pagesCount - 2) {
+          assert bucket.size() > 1;
+
+          bucket.shrink(bucket.size() - 1);
+          lastChild--;
         }
 
-        endAtomicOperation(false, null);
-      } catch (IOException ioe) {
-        rollback(ioe);
-        throw OException.wrapException(new OSBTreeException("Exception during deletion of sbtree " + getName(), this), ioe);
-      } catch (Exception e) {
-        rollback(e);
-        throw OException.wrapException(new OSBTreeException("Exception during deletion of sbtree " + getName(), this), e);
+        index = lastChild + 1;
       } finally {
-        releaseExclusiveLock();
+        cacheEntry.releaseExclusiveLock();
+        releasePage(null, cacheEntry);
       }
-    } finally {
-      completeOperation();
     }
   }
 
@@ -442,38 +501,6 @@ public class OSBTree<K, V> extends ODurableComponent {
     }
   }
 
-  public long size() {
-    startOperation();
-    try {
-      atomicOperationsManager.acquireReadLock(this);
-      try {
-        acquireSharedLock();
-        try {
-          OAtomicOperation atomicOperation = atomicOperationsManager.getCurrentOperation();
-
-          OCacheEntry rootCacheEntry = loadPage(atomicOperation, fileId, ROOT_INDEX, false);
-          rootCacheEntry.acquireSharedLock();
-          try {
-            OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer,
-                getChanges(atomicOperation, rootCacheEntry));
-            return rootBucket.getTreeSize();
-          } finally {
-            rootCacheEntry.releaseSharedLock();
-            releasePage(atomicOperation, rootCacheEntry);
-          }
-        } finally {
-          releaseSharedLock();
-        }
-      } catch (IOException e) {
-        throw OException.wrapException(new OSBTreeException("Error during retrieving of size of index " + getName(), this), e);
-      } finally {
-        atomicOperationsManager.releaseReadLock(this);
-      }
-    } finally {
-      completeOperation();
-    }
-  }
-
   public V remove(K key) {
     final OSessionStoragePerformanceStatistic statistic = performanceStatisticManager.getSessionPerformanceStatistic();
     startOperation();
@@ -787,35 +814,42 @@ public class OSBTree<K, V> extends ODurableComponent {
     }
   }
 
-  public void flush() {
-    startOperation();
-    try {
-      atomicOperationsManager.acquireReadLock(this);
-      try {
-        acquireSharedLock();
-        try {
-          writeCache.flush();
-        } finally {
-          releaseSharedLock();
-        }
-      } finally {
-        atomicOperationsManager.releaseReadLock(this);
-      }
-    } finally {
-      completeOperation();
-    }
+  @Override
+  protected void initRootBucket(OCacheEntry rootCacheEntry, OAtomicOperation atomicOperation) throws IOException {
+    OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, true, keySerializer, keyTypes, valueSerializer,
+        getChanges(atomicOperation, rootCacheEntry));
+    rootBucket.setTreeSize(0);
   }
 
-  /**
-   * Acquires exclusive lock in the active atomic operation running on the current thread for this SB-tree.
-   */
-  public void acquireAtomicExclusiveLock() {
-    atomicOperationsManager.acquireExclusiveLockTillOperationComplete(this);
+  @Override
+  protected long getTreeSize(OCacheEntry rootCacheEntry, OAtomicOperation atomicOperation) throws IOException {
+    return rootBucket(rootCacheEntry, atomicOperation).getTreeSize();
   }
 
-  private void checkNullSupport(K key) {
-    if (key == null && !nullPointerSupport)
-      throw new OSBTreeException("Null keys are not supported.", this);
+  @Override
+  protected void setTreeSize(OCacheEntry rootCacheEntry, long size, OAtomicOperation atomicOperation) throws IOException {
+    rootBucket(rootCacheEntry, atomicOperation).setTreeSize(size);
+  }
+
+  @Override
+  protected long getValuesFreeListFirstIndex(OCacheEntry rootCacheEntry, OAtomicOperation atomicOperation) throws IOException {
+    return rootBucket(rootCacheEntry, atomicOperation).getValuesFreeListFirstIndex();
+  }
+
+  @Override
+  protected void setValuesFreeListFirstIndex(OCacheEntry rootCacheEntry, long pageIndex, OAtomicOperation atomicOperation)
+      throws IOException {
+    rootBucket(rootCacheEntry, atomicOperation).setValuesFreeListFirstIndex(pageIndex);
+  }
+
+  @Override
+  protected OSBTreeException createException(String message) {
+    return new OSBTreeException(message, this);
+  }
+
+  private OSBTreeBucket<K, V> rootBucket(OCacheEntry rootCacheEntry, OAtomicOperation atomicOperation) {
+    return new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer,
+        getChanges(atomicOperation, rootCacheEntry));
   }
 
   @SuppressWarnings("unchecked")
@@ -1011,190 +1045,6 @@ public class OSBTree<K, V> extends ODurableComponent {
     }
   }
 
-  private void removeLinkedValue(long removedLink, OAtomicOperation atomicOperation) throws IOException {
-    long nextPage = removedLink;
-    do {
-      removedLink = nextPage;
-
-      OCacheEntry valueEntry = loadPage(atomicOperation, fileId, removedLink, false);
-      valueEntry.acquireSharedLock();
-      try {
-        OSBTreeValuePage valuePage = new OSBTreeValuePage(valueEntry, getChanges(atomicOperation, valueEntry), false);
-        nextPage = valuePage.getNextPage();
-      } finally {
-        valueEntry.releaseSharedLock();
-        releasePage(atomicOperation, valueEntry);
-      }
-
-      removeValuePage(removedLink, atomicOperation);
-    } while (nextPage >= 0);
-  }
-
-  private void removeValuePage(long pageIndex, OAtomicOperation atomicOperation) throws IOException {
-    long prevFreeListItem;
-
-    OCacheEntry rootCacheEntry = loadPage(atomicOperation, fileId, ROOT_INDEX, false);
-
-    rootCacheEntry.acquireExclusiveLock();
-    OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer,
-        getChanges(atomicOperation, rootCacheEntry));
-    try {
-      prevFreeListItem = rootBucket.getValuesFreeListFirstIndex();
-      rootBucket.setValuesFreeListFirstIndex(pageIndex);
-    } finally {
-      rootCacheEntry.releaseExclusiveLock();
-      releasePage(atomicOperation, rootCacheEntry);
-    }
-
-    OCacheEntry valueEntry = loadPage(atomicOperation, fileId, pageIndex, false);
-    valueEntry.acquireExclusiveLock();
-    try {
-      OSBTreeValuePage valuePage = new OSBTreeValuePage(valueEntry, getChanges(atomicOperation, valueEntry), false);
-      valuePage.setNextFreeListPage(prevFreeListItem);
-    } finally {
-      valueEntry.releaseExclusiveLock();
-      releasePage(atomicOperation, valueEntry);
-    }
-  }
-
-  private long createLinkToTheValue(V value, OAtomicOperation atomicOperation) throws IOException {
-    byte[] serializeValue = new byte[valueSerializer.getObjectSize(value)];
-    valueSerializer.serializeNativeObject(value, serializeValue, 0);
-
-    final int amountOfPages = OSBTreeValuePage.calculateAmountOfPage(serializeValue.length);
-
-    int position = 0;
-    long freeListPageIndex = allocateValuePageFromFreeList(atomicOperation);
-
-    OCacheEntry cacheEntry;
-    if (freeListPageIndex < 0)
-      cacheEntry = addPage(atomicOperation, fileId);
-    else
-      cacheEntry = loadPage(atomicOperation, fileId, freeListPageIndex, false);
-
-    final long valueLink = cacheEntry.getPageIndex();
-    cacheEntry.acquireExclusiveLock();
-    try {
-      OSBTreeValuePage valuePage = new OSBTreeValuePage(cacheEntry, getChanges(atomicOperation, cacheEntry),
-          freeListPageIndex >= 0);
-      position = valuePage.fillBinaryContent(serializeValue, position);
-
-      valuePage.setNextFreeListPage(-1);
-      valuePage.setNextPage(-1);
-
-    } finally {
-      cacheEntry.releaseExclusiveLock();
-      releasePage(atomicOperation, cacheEntry);
-    }
-
-    long prevPage = valueLink;
-    for (int i = 1; i < amountOfPages; i++) {
-      freeListPageIndex = allocateValuePageFromFreeList(atomicOperation);
-
-      if (freeListPageIndex < 0)
-        cacheEntry = addPage(atomicOperation, fileId);
-      else
-        cacheEntry = loadPage(atomicOperation, fileId, freeListPageIndex, false);
-
-      cacheEntry.acquireExclusiveLock();
-      try {
-        OSBTreeValuePage valuePage = new OSBTreeValuePage(cacheEntry, getChanges(atomicOperation, cacheEntry),
-            freeListPageIndex >= 0);
-        position = valuePage.fillBinaryContent(serializeValue, position);
-
-        valuePage.setNextFreeListPage(-1);
-        valuePage.setNextPage(-1);
-
-      } finally {
-        cacheEntry.releaseExclusiveLock();
-        releasePage(atomicOperation, cacheEntry);
-      }
-
-      OCacheEntry prevPageCacheEntry = loadPage(atomicOperation, fileId, prevPage, false);
-      prevPageCacheEntry.acquireExclusiveLock();
-      try {
-        OSBTreeValuePage valuePage = new OSBTreeValuePage(prevPageCacheEntry, getChanges(atomicOperation, prevPageCacheEntry),
-            freeListPageIndex >= 0);
-        valuePage.setNextPage(cacheEntry.getPageIndex());
-
-      } finally {
-        prevPageCacheEntry.releaseExclusiveLock();
-        releasePage(atomicOperation, prevPageCacheEntry);
-      }
-
-      prevPage = cacheEntry.getPageIndex();
-    }
-
-    return valueLink;
-  }
-
-  private long allocateValuePageFromFreeList(OAtomicOperation atomicOperation) throws IOException {
-    OCacheEntry rootCacheEntry = loadPage(atomicOperation, fileId, ROOT_INDEX, false);
-    assert rootCacheEntry != null;
-
-    rootCacheEntry.acquireSharedLock();
-    long freeListFirstIndex;
-    OSBTreeBucket<K, V> rootBucket;
-    try {
-      rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer,
-          getChanges(atomicOperation, rootCacheEntry));
-      freeListFirstIndex = rootBucket.getValuesFreeListFirstIndex();
-    } finally {
-      rootCacheEntry.releaseSharedLock();
-      releasePage(atomicOperation, rootCacheEntry);
-    }
-
-    if (freeListFirstIndex >= 0) {
-      OCacheEntry freePageEntry = loadPage(atomicOperation, fileId, freeListFirstIndex, false);
-      freePageEntry.acquireExclusiveLock();
-      try {
-        OSBTreeValuePage valuePage = new OSBTreeValuePage(freePageEntry, getChanges(atomicOperation, freePageEntry), false);
-        long nextFreeListIndex = valuePage.getNextFreeListPage();
-
-        rootCacheEntry = loadPage(atomicOperation, fileId, ROOT_INDEX, false);
-        rootCacheEntry.acquireExclusiveLock();
-        rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer,
-            getChanges(atomicOperation, rootCacheEntry));
-        try {
-          rootBucket.setValuesFreeListFirstIndex(nextFreeListIndex);
-        } finally {
-          rootCacheEntry.releaseExclusiveLock();
-          releasePage(atomicOperation, rootCacheEntry);
-        }
-
-        valuePage.setNextFreeListPage(-1);
-      } finally {
-        freePageEntry.releaseExclusiveLock();
-        releasePage(atomicOperation, freePageEntry);
-      }
-
-      return freePageEntry.getPageIndex();
-    }
-
-    return -1;
-  }
-
-  private void rollback(Exception e) {
-    try {
-      endAtomicOperation(true, e);
-    } catch (IOException e1) {
-      OLogManager.instance().error(this, "Error during sbtree operation  rollback", e1);
-    }
-  }
-
-  private void setSize(long size, OAtomicOperation atomicOperation) throws IOException {
-    OCacheEntry rootCacheEntry = loadPage(atomicOperation, fileId, ROOT_INDEX, false);
-    rootCacheEntry.acquireExclusiveLock();
-    try {
-      OSBTreeBucket<K, V> rootBucket = new OSBTreeBucket<K, V>(rootCacheEntry, keySerializer, keyTypes, valueSerializer,
-          getChanges(atomicOperation, rootCacheEntry));
-      rootBucket.setTreeSize(size);
-    } finally {
-      rootCacheEntry.releaseExclusiveLock();
-      releasePage(atomicOperation, rootCacheEntry);
-    }
-  }
-
   private OSBTreeCursor<K, V> iterateEntriesMinorDesc(K key, boolean inclusive, OAtomicOperation atomicOperation)
       throws IOException {
     key = keySerializer.preprocess(key, (Object[]) keyTypes);
@@ -1819,40 +1669,6 @@ public class OSBTree<K, V> extends ODurableComponent {
     return key;
   }
 
-  private V readValue(OSBTreeValue<V> sbTreeValue, OAtomicOperation atomicOperation) throws IOException {
-    if (!sbTreeValue.isLink())
-      return sbTreeValue.getValue();
-
-    OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, sbTreeValue.getLink(), false);
-    cacheEntry.acquireSharedLock();
-
-    OSBTreeValuePage valuePage = new OSBTreeValuePage(cacheEntry, getChanges(atomicOperation, cacheEntry), false);
-
-    int totalSize = valuePage.getSize();
-    int currentSize = 0;
-    byte[] value = new byte[totalSize];
-
-    while (currentSize < totalSize) {
-      currentSize = valuePage.readBinaryContent(value, currentSize);
-
-      long nextPage = valuePage.getNextPage();
-      if (nextPage >= 0) {
-        cacheEntry.releaseSharedLock();
-        releasePage(atomicOperation, cacheEntry);
-
-        cacheEntry = loadPage(atomicOperation, fileId, nextPage, false);
-        cacheEntry.acquireSharedLock();
-
-        valuePage = new OSBTreeValuePage(cacheEntry, getChanges(atomicOperation, cacheEntry), false);
-      }
-    }
-
-    cacheEntry.releaseSharedLock();
-    releasePage(atomicOperation, cacheEntry);
-
-    return valueSerializer.deserializeNativeObject(value, 0);
-  }
-
   private Map.Entry<K, V> convertToMapEntry(OSBTreeBucket.SBTreeEntry<K, V> treeEntry, OAtomicOperation atomicOperation)
       throws IOException {
     final K key = treeEntry.key;
@@ -2249,14 +2065,4 @@ public class OSBTree<K, V> extends ODurableComponent {
       }
     }
   }
-
-  @Override
-  protected void startOperation() {
-    OSessionStoragePerformanceStatistic sessionStoragePerformanceStatistic = performanceStatisticManager
-        .getSessionPerformanceStatistic();
-    if (sessionStoragePerformanceStatistic != null) {
-      sessionStoragePerformanceStatistic
-          .startComponentOperation(getFullName(), OSessionStoragePerformanceStatistic.ComponentType.INDEX);
-    }
-  }
 }
@@ -0,0 +1,515 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.index.sbtree.local;
+
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.serialization.types.OBinarySerializer;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.exception.ODurableComponentException;
+import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.atomicoperations.OAtomicOperation;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.base.ODurableComponent;
+import com.orientechnologies.orient.core.storage.impl.local.statistic.OSessionStoragePerformanceStatistic;
+
+import java.io.IOException;
+
+/**
+ * Part of SB-tree implementation which does not depend on format of buckets: management of files of tree and of file of null
+ * bucket, size of tree and values which are too big to be embedded into buckets and are stored in chains of
+ * {@link OSBTreeValuePage}s.
+ * <p>
+ * Size of tree and head of free list of value pages are kept in the root bucket, so implementations provide access to them for
+ * their own bucket format.
+ *
+ * @see OSBTree
+ * @see OPrefixSBTree
+ */
+public abstract class OSBTreeAbstract<K, V> extends ODurableComponent {
+  protected static final int MAX_EMBEDDED_VALUE_SIZE = OGlobalConfiguration.SBTREE_MAX_EMBEDDED_VALUE_SIZE.getValueAsInteger();
+  protected static final int MAX_PATH_LENGTH         = OGlobalConfiguration.SBTREE_MAX_DEPTH.getValueAsInteger();
+
+  protected final static long ROOT_INDEX = 0;
+
+  protected final String  nullFileExtension;
+  protected final boolean durableInNonTxMode;
+  protected       long    fileId;
+  protected long nullBucketFileId = -1;
+  protected OBinarySerializer<V> valueSerializer;
+  protected boolean              nullPointerSupport;
+
+  public OSBTreeAbstract(String name, String dataFileExtension, boolean durableInNonTxMode, String nullFileExtension,
+      OAbstractPaginatedStorage storage) {
+    super(storage, name, dataFileExtension, name + dataFileExtension);
+    acquireExclusiveLock();
+    try {
+      this.nullFileExtension = nullFileExtension;
+      this.durableInNonTxMode = durableInNonTxMode;
+    } finally {
+      releaseExclusiveLock();
+    }
+  }
+
+  public boolean isNullPointerSupport() {
+    acquireSharedLock();
+    try {
+      return nullPointerSupport;
+    } finally {
+      releaseSharedLock();
+    }
+  }
+
+  public abstract V get(K key);
+
+  public abstract void put(K key, V value);
+
+  public void close(boolean flush) {
+    startOperation();
+    try {
+      acquireExclusiveLock();
+      try {
+        readCache.closeFile(fileId, flush, writeCache);
+
+        if (nullPointerSupport)
+          readCache.closeFile(nullBucketFileId, flush, writeCache);
+
+      } catch (IOException e) {
+        throw OException.wrapException(createException("Error during close of index " + getName()), e);
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  public void close() {
+    close(true);
+  }
+
+  public void clear() {
+    startOperation();
+    try {
+      final OAtomicOperation atomicOperation;
+      try {
+        atomicOperation = startAtomicOperation(true);
+      } catch (IOException e) {
+        throw OException.wrapException(createException("Error during sbtree clear"), e);
+      }
+
+      acquireExclusiveLock();
+      try {
+        truncateFile(atomicOperation, fileId);
+
+        if (nullPointerSupport)
+          truncateFile(atomicOperation, nullBucketFileId);
+
+        OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, ROOT_INDEX, false);
+        if (cacheEntry == null) {
+          cacheEntry = addPage(atomicOperation, fileId);
+        }
+
+        cacheEntry.acquireExclusiveLock();
+        try {
+          initRootBucket(cacheEntry, atomicOperation);
+        } finally {
+          cacheEntry.releaseExclusiveLock();
+          releasePage(atomicOperation, cacheEntry);
+        }
+
+        endAtomicOperation(false, null);
+      } catch (IOException e) {
+        rollback(e);
+
+        throw OException.wrapException(createException("Error during clear of sbtree with name " + getName()), e);
+      } catch (RuntimeException e) {
+        rollback(e);
+        throw e;
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  public void delete() {
+    startOperation();
+    try {
+      final OAtomicOperation atomicOperation;
+      try {
+        atomicOperation = startAtomicOperation(false);
+      } catch (IOException e) {
+        throw OException.wrapException(createException("Error during sbtree deletion"), e);
+      }
+
+      acquireExclusiveLock();
+      try {
+        deleteFile(atomicOperation, fileId);
+
+        if (nullPointerSupport)
+          deleteFile(atomicOperation, nullBucketFileId);
+
+        endAtomicOperation(false, null);
+      } catch (IOException e) {
+        rollback(e);
+        throw OException.wrapException(createException("Error during delete of sbtree with name " + getName()), e);
+      } catch (Exception e) {
+        rollback(e);
+        throw OException.wrapException(createException("Error during delete of sbtree with name " + getName()), e);
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  public void deleteWithoutLoad(String name) {
+    startOperation();
+    try {
+      final OAtomicOperation atomicOperation;
+      try {
+        atomicOperation = startAtomicOperation(false);
+      } catch (IOException e) {
+        throw OException.wrapException(createException("Error during sbtree deletion"), e);
+      }
+
+      acquireExclusiveLock();
+      try {
+        if (isFileExists(atomicOperation, getFullName())) {
+          final long fileId = openFile(atomicOperation, getFullName());
+          deleteFile(atomicOperation, fileId);
+        }
+
+        if (isFileExists(atomicOperation, getName() + nullFileExtension)) {
+          final long nullFileId = openFile(atomicOperation, getName() + nullFileExtension);
+          deleteFile(atomicOperation, nullFileId);
+        }
+
+        endAtomicOperation(false, null);
+      } catch (IOException ioe) {
+        rollback(ioe);
+        throw OException.wrapException(createException("Exception during deletion of sbtree " + getName()), ioe);
+      } catch (Exception e) {
+        rollback(e);
+        throw OException.wrapException(createException("Exception during deletion of sbtree " + getName()), e);
+      } finally {
+        releaseExclusiveLock();
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  public long size() {
+    startOperation();
+    try {
+      atomicOperationsManager.acquireReadLock(this);
+      try {
+        acquireSharedLock();
+        try {
+          OAtomicOperation atomicOperation = atomicOperationsManager.getCurrentOperation();
+
+          OCacheEntry rootCacheEntry = loadPage(atomicOperation, fileId, ROOT_INDEX, false);
+          rootCacheEntry.acquireSharedLock();
+          try {
+            return getTreeSize(rootCacheEntry, atomicOperation);
+          } finally {
+            rootCacheEntry.releaseSharedLock();
+            releasePage(atomicOperation, rootCacheEntry);
+          }
+        } finally {
+          releaseSharedLock();
+        }
+      } catch (IOException e) {
+        throw OException.wrapException(createException("Error during retrieving of size of index " + getName()), e);
+      } finally {
+        atomicOperationsManager.releaseReadLock(this);
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  public void flush() {
+    startOperation();
+    try {
+      atomicOperationsManager.acquireReadLock(this);
+      try {
+        acquireSharedLock();
+        try {
+          writeCache.flush();
+        } finally {
+          releaseSharedLock();
+        }
+      } finally {
+        atomicOperationsManager.releaseReadLock(this);
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
+  /**
+   * Acquires exclusive lock in the active atomic operation running on the current thread for this SB-tree.
+   */
+  public void acquireAtomicExclusiveLock() {
+    atomicOperationsManager.acquireExclusiveLockTillOperationComplete(this);
+  }
+
+  /**
+   * Formats page passed in as empty root leaf bucket of tree which contains no entries.
+   */
+  protected abstract void initRootBucket(OCacheEntry rootCacheEntry, OAtomicOperation atomicOperation) throws IOException;
+
+  protected abstract long getTreeSize(OCacheEntry rootCacheEntry, OAtomicOperation atomicOperation) throws IOException;
+
+  protected abstract void setTreeSize(OCacheEntry rootCacheEntry, long size, OAtomicOperation atomicOperation)
+      throws IOException;
+
+  protected abstract long getValuesFreeListFirstIndex(OCacheEntry rootCacheEntry, OAtomicOperation atomicOperation)
+      throws IOException;
+
+  protected abstract void setValuesFreeListFirstIndex(OCacheEntry rootCacheEntry, long pageIndex,
+      OAtomicOperation atomicOperation) throws IOException;
+
+  /**
+   * @return Exception of type specific for given tree which is thrown in case of error.
+   */
+  protected abstract ODurableComponentException createException(String message);
+
+  protected void checkNullSupport(K key) {
+    if (key == null && !nullPointerSupport)
+      throw createException("Null keys are not supported.");
+  }
+
+  protected void rollback(Exception e) {
+    try {
+      endAtomicOperation(true, e);
+    } catch (IOException e1) {
+      OLogManager.instance().error(this, "Error during sbtree operation  rollback", e1);
+    }
+  }
+
+  protected void setSize(long size, OAtomicOperation atomicOperation) throws IOException {
+    OCacheEntry rootCacheEntry = loadPage(atomicOperation, fileId, ROOT_INDEX, false);
+    rootCacheEntry.acquireExclusiveLock();
+    try {
+      setTreeSize(rootCacheEntry, size, atomicOperation);
+    } finally {
+      rootCacheEntry.releaseExclusiveLock();
+      releasePage(atomicOperation, rootCacheEntry);
+    }
+  }
+
+  protected OSBTreeValue<V> createTreeValue(V value, OAtomicOperation atomicOperation) throws IOException {
+    final int valueSize = valueSerializer.getObjectSize(value);
+    final boolean createLinkToTheValue = valueSize > MAX_EMBEDDED_VALUE_SIZE;
+
+    long valueLink = -1;
+    if (createLinkToTheValue)
+      valueLink = createLinkToTheValue(value, atomicOperation);
+
+    return new OSBTreeValue<V>(createLinkToTheValue, valueLink, createLinkToTheValue ? null : value);
+  }
+
+  protected V readValue(OSBTreeValue<V> sbTreeValue, OAtomicOperation atomicOperation) throws IOException {
+    if (!sbTreeValue.isLink())
+      return sbTreeValue.getValue();
+
+    OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, sbTreeValue.getLink(), false);
+    cacheEntry.acquireSharedLock();
+
+    OSBTreeValuePage valuePage = new OSBTreeValuePage(cacheEntry, getChanges(atomicOperation, cacheEntry), false);
+
+    int totalSize = valuePage.getSize();
+    int currentSize = 0;
+    byte[] value = new byte[totalSize];
+
+    while (currentSize < totalSize) {
+      currentSize = valuePage.readBinaryContent(value, currentSize);
+
+      long nextPage = valuePage.getNextPage();
+      if (nextPage >= 0) {
+        cacheEntry.releaseSharedLock();
+        releasePage(atomicOperation, cacheEntry);
+
+        cacheEntry = loadPage(atomicOperation, fileId, nextPage, false);
+        cacheEntry.acquireSharedLock();
+
+        valuePage = new OSBTreeValuePage(cacheEntry, getChanges(atomicOperation, cacheEntry), false);
+      }
+    }
+
+    cacheEntry.releaseSharedLock();
+    releasePage(atomicOperation, cacheEntry);
+
+    return valueSerializer.deserializeNativeObject(value, 0);
+  }
+
+  protected void removeLinkedValue(long removedLink, OAtomicOperation atomicOperation) throws IOException {
+    long nextPage = removedLink;
+    do {
+      removedLink = nextPage;
+
+      OCacheEntry valueEntry = loadPage(atomicOperation, fileId, removedLink, false);
+      valueEntry.acquireSharedLock();
+      try {
+        OSBTreeValuePage valuePage = new OSBTreeValuePage(valueEntry, getChanges(atomicOperation, valueEntry), false);
+        nextPage = valuePage.getNextPage();
+      } finally {
+        valueEntry.releaseSharedLock();
+        releasePage(atomicOperation, valueEntry);
+      }
+
+      removeValuePage(removedLink, atomicOperation);
+    } while (nextPage >= 0);
+  }
+
+  protected long createLinkToTheValue(V value, OAtomicOperation atomicOperation) throws IOException {
+    byte[] serializeValue = new byte[valueSerializer.getObjectSize(value)];
+    valueSerializer.serializeNativeObject(value, serializeValue, 0);
+
+    final int amountOfPages = OSBTreeValuePage.calculateAmountOfPage(serializeValue.length);
+
+    int position = 0;
+    long valueLink = -1;
+    long prevPage = -1;
+
+    for (int i = 0; i < amountOfPages; i++) {
+      final long freeListPageIndex = allocateValuePageFromFreeList(atomicOperation);
+
+      final OCacheEntry cacheEntry;
+      if (freeListPageIndex < 0)
+        cacheEntry = addPage(atomicOperation, fileId);
+      else
+        cacheEntry = loadPage(atomicOperation, fileId, freeListPageIndex, false);
+
+      cacheEntry.acquireExclusiveLock();
+      try {
+        OSBTreeValuePage valuePage = new OSBTreeValuePage(cacheEntry, getChanges(atomicOperation, cacheEntry),
+            freeListPageIndex >= 0);
+        position = valuePage.fillBinaryContent(serializeValue, position);
+
+        valuePage.setNextFreeListPage(-1);
+        valuePage.setNextPage(-1);
+      } finally {
+        cacheEntry.releaseExclusiveLock();
+        releasePage(atomicOperation, cacheEntry);
+      }
+
+      if (prevPage >= 0) {
+        OCacheEntry prevPageCacheEntry = loadPage(atomicOperation, fileId, prevPage, false);
+        prevPageCacheEntry.acquireExclusiveLock();
+        try {
+          OSBTreeValuePage valuePage = new OSBTreeValuePage(prevPageCacheEntry, getChanges(atomicOperation, prevPageCacheEntry),
+              freeListPageIndex >= 0);
+          valuePage.setNextPage(cacheEntry.getPageIndex());
+        } finally {
+          prevPageCacheEntry.releaseExclusiveLock();
+          releasePage(atomicOperation, prevPageCacheEntry);
+        }
+      } else
+        valueLink = cacheEntry.getPageIndex();
+
+      prevPage = cacheEntry.getPageIndex();
+    }
+
+    return valueLink;
+  }
+
+  private void removeValuePage(long pageIndex, OAtomicOperation atomicOperation) throws IOException {
+    long prevFreeListItem;
+
+    OCacheEntry rootCacheEntry = loadPage(atomicOperation, fileId, ROOT_INDEX, false);
+    rootCacheEntry.acquireExclusiveLock();
+    try {
+      prevFreeListItem = getValuesFreeListFirstIndex(rootCacheEntry, atomicOperation);
+      setValuesFreeListFirstIndex(rootCacheEntry, pageIndex, atomicOperation);
+    } finally {
+      rootCacheEntry.releaseExclusiveLock();
+      releasePage(atomicOperation, rootCacheEntry);
+    }
+
+    OCacheEntry valueEntry = loadPage(atomicOperation, fileId, pageIndex, false);
+    valueEntry.acquireExclusiveLock();
+    try {
+      OSBTreeValuePage valuePage = new OSBTreeValuePage(valueEntry, getChanges(atomicOperation, valueEntry), false);
+      valuePage.setNextFreeListPage(prevFreeListItem);
+    } finally {
+      valueEntry.releaseExclusiveLock();
+      releasePage(atomicOperation, valueEntry);
+    }
+  }
+
+  private long allocateValuePageFromFreeList(OAtomicOperation atomicOperation) throws IOException {
+    OCacheEntry rootCacheEntry = loadPage(atomicOperation, fileId, ROOT_INDEX, false);
+    assert rootCacheEntry != null;
+
+    rootCacheEntry.acquireSharedLock();
+    long freeListFirstIndex;
+    try {
+      freeListFirstIndex = getValuesFreeListFirstIndex(rootCacheEntry, atomicOperation);
+    } finally {
+      rootCacheEntry.releaseSharedLock();
+      releasePage(atomicOperation, rootCacheEntry);
+    }
+
+    if (freeListFirstIndex >= 0) {
+      OCacheEntry freePageEntry = loadPage(atomicOperation, fileId, freeListFirstIndex, false);
+      freePageEntry.acquireExclusiveLock();
+      try {
+        OSBTreeValuePage valuePage = new OSBTreeValuePage(freePageEntry, getChanges(atomicOperation, freePageEntry), false);
+        long nextFreeListIndex = valuePage.getNextFreeListPage();
+
+        rootCacheEntry = loadPage(atomicOperation, fileId, ROOT_INDEX, false);
+        rootCacheEntry.acquireExclusiveLock();
+        try {
+          setValuesFreeListFirstIndex(rootCacheEntry, nextFreeListIndex, atomicOperation);
+        } finally {
+          rootCacheEntry.releaseExclusiveLock();
+          releasePage(atomicOperation, rootCacheEntry);
+        }
+
+        valuePage.setNextFreeListPage(-1);
+      } finally {
+        freePageEntry.releaseExclusiveLock();
+        releasePage(atomicOperation, freePageEntry);
+      }
+
+      return freePageEntry.getPageIndex();
+    }
+
+    return -1;
+  }
+
+  @Override
+  protected void startOperation() {
+    OSessionStoragePerformanceStatistic sessionStoragePerformanceStatistic = performanceStatisticManager
+        .getSessionPerformanceStatistic();
+    if (sessionStoragePerformanceStatistic != null) {
+      sessionStoragePerformanceStatistic
+          .startComponentOperation(getFullName(), OSessionStoragePerformanceStatistic.ComponentType.INDEX);
+    }
+  }
+}
@@ -25,8 +25,10 @@ import com.orientechnologies.common.profiler.OProfiler;
 import com.orientechnologies.orient.core.Orient;
 import com.orientechnologies.orient.core.cache.OCommandCache;
 import com.orientechnologies.orient.core.cache.OCommandCacheSoftRefs;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.ODatabase;
 import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.exception.OConfigurationException;
 import com.orientechnologies.orient.core.exception.OSecurityException;
 import com.orientechnologies.orient.core.index.OIndexManager;
 import com.orientechnologies.orient.core.index.OIndexManagerProxy;
@@ -213,7 +215,16 @@ public class OMetadataDefault implements OMetadataInternal {
 
     commandCache = database.getStorage().getResource(OCommandCache.class.getSimpleName(), new Callable<OCommandCache>() {
       public OCommandCache call() {
-        return new OCommandCacheSoftRefs(database.getName());
+        final String implementation = OGlobalConfiguration.COMMAND_CACHE_IMPL.getValueAsString();
+        if (implementation == null || OCommandCacheSoftRefs.class.getName().equals(implementation))
+          return new OCommandCacheSoftRefs(database.getName());
+
+        try {
+          return (OCommandCache) Class.forName(implementation).getConstructor(String.class).newInstance(database.getName());
+        } catch (Exception e) {
+          throw OException.wrapException(
+              new OConfigurationException("Cannot create the command cache implementation '" + implementation + "'"), e);
+        }
       }
     });
 
@@ -90,6 +90,13 @@ public class ORecordInternal {
     rec.setContentChanged(changed);
   }
 
+  /**
+   * Internal only. Returns the serialized content of the record if it is still kept by the record, otherwise null.
+   */
+  public static byte[] getSource(final ORecord record) {
+    return ((ORecordAbstract) record)._source;
+  }
+
   public static void clearSource(final ORecord record) {
     final ORecordAbstract rec = (ORecordAbstract) record;
     rec.clearSource();
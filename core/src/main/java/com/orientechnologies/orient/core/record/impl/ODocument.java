@@ -44,6 +44,8 @@ import com.orientechnologies.orient.core.record.*;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
 import com.orientechnologies.orient.core.serialization.serializer.record.ORecordSerializer;
 import com.orientechnologies.orient.core.serialization.serializer.record.ORecordSerializerFactory;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.BytesContainer;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.ODocumentSerializer;
 import com.orientechnologies.orient.core.serialization.serializer.record.binary.ORecordSerializerNetwork;
 import com.orientechnologies.orient.core.sql.OSQLHelper;
 import com.orientechnologies.orient.core.sql.filter.OSQLPredicate;
@@ -81,6 +83,13 @@ public class ODocument extends ORecordAbstract
   private   OImmutableClass  _immutableClazz;
   private int _immutableSchemaVersion = 1;
 
+  /**
+   * Serialized content of embedded document which is not unmarshalled yet. It points to the content of owner record, so fields of
+   * embedded document are unmarshalled only when they are accessed.
+   */
+  private BytesContainer      _embeddedSource;
+  private ODocumentSerializer _embeddedSerializer;
+
   /**
    * Internal constructor used on unmarshalling.
    */
@@ -731,10 +740,12 @@ public class ODocument extends ORecordAbstract
   public String[] fieldNames() {
     checkForLoading();
 
-    if (_status == ORecordElement.STATUS.LOADED && _source != null && ODatabaseRecordThreadLocal.INSTANCE.isDefined()
-        && !ODatabaseRecordThreadLocal.INSTANCE.get().isClosed()) {
+    if (_status == ORecordElement.STATUS.LOADED && (_source != null || _embeddedSource != null)
+        && ODatabaseRecordThreadLocal.INSTANCE.isDefined() && !ODatabaseRecordThreadLocal.INSTANCE.get().isClosed()) {
       // DESERIALIZE FIELD NAMES ONLY (SUPPORTED ONLY BY BINARY SERIALIZER)
-      final String[] fieldNames = _recordFormat.getFieldNames(this, _source);
+      final String[] fieldNames = _embeddedSource != null ?
+          _embeddedSerializer.getFieldNames(this, _embeddedSource.copy()) :
+          _recordFormat.getFieldNames(this, _source);
       if (fieldNames != null)
         return fieldNames;
     }
@@ -1474,6 +1485,8 @@ public class ODocument extends ORecordAbstract
   public ODocument fromStream(final byte[] iRecordBuffer) {
     removeAllCollectionChangeListeners();
 
+    _embeddedSource = null;
+    _embeddedSerializer = null;
     _fields = null;
     _fieldSize = 0;
     _contentChanged = false;
@@ -1806,7 +1819,7 @@ public class ODocument extends ORecordAbstract
    * Initializes the object if has been unserialized
    */
   public boolean deserializeFields(final String... iFields) {
-    if (_source == null)
+    if (_source == null && _embeddedSource == null)
       // ALREADY UNMARSHALLED OR JUST EMPTY
       return true;
 
@@ -1848,7 +1861,14 @@ public class ODocument extends ORecordAbstract
 
     _status = ORecordElement.STATUS.UNMARSHALLING;
     try {
-      _recordFormat.fromStream(_source, this, iFields);
+      if (_embeddedSource != null) {
+        // EMBEDDED DOCUMENT: UNMARSHALL IT FROM THE CONTENT OF OWNER RECORD
+        if (iFields != null && iFields.length > 0)
+          _embeddedSerializer.deserializePartial(this, _embeddedSource.copy(), iFields);
+        else
+          _embeddedSerializer.deserialize(this, _embeddedSource.copy());
+      } else
+        _recordFormat.fromStream(_source, this, iFields);
     } finally {
       _status = ORecordElement.STATUS.LOADED;
     }
@@ -1868,9 +1888,12 @@ public class ODocument extends ORecordAbstract
 
       // NO FIELDS FOUND
       return false;
-    } else if (_source != null)
+    } else {
       // FULL UNMARSHALLING
       _source = null;
+      _embeddedSource = null;
+      _embeddedSerializer = null;
+    }
 
     return true;
   }
@@ -2175,6 +2198,8 @@ public class ODocument extends ORecordAbstract
 
   @Override
   protected ORecordAbstract fill(final ORID iRid, final int iVersion, final byte[] iBuffer, final boolean iDirty) {
+    _embeddedSource = null;
+    _embeddedSerializer = null;
     _schema = null;
     fetchSchemaIfCan();
     return super.fill(iRid, iVersion, iBuffer, iDirty);
@@ -2183,9 +2208,22 @@ public class ODocument extends ORecordAbstract
   @Override
   protected void clearSource() {
     super.clearSource();
+    _embeddedSource = null;
+    _embeddedSerializer = null;
     _schema = null;
   }
 
+  /**
+   * Sets serialized content of embedded document, fields are unmarshalled from it when they are accessed.
+   *
+   * @param serializer Serializer which was used to serialize owner record.
+   * @param source     Content of owner record positioned at the beginning of embedded document.
+   */
+  protected void setEmbeddedSource(final ODocumentSerializer serializer, final BytesContainer source) {
+    _embeddedSerializer = serializer;
+    _embeddedSource = source;
+  }
+
   protected OGlobalProperty getGlobalPropertyById(int id) {
     if (_schema == null) {
       OMetadataInternal metadata = (OMetadataInternal) getDatabase().getMetadata();
@@ -2605,6 +2643,9 @@ public class ODocument extends ORecordAbstract
   protected void internalReset() {
     removeAllCollectionChangeListeners();
 
+    _embeddedSource = null;
+    _embeddedSerializer = null;
+
     if (_fields != null)
       _fields.clear();
     _fieldSize = 0;
@@ -2615,7 +2656,7 @@ public class ODocument extends ORecordAbstract
     if (_fields == null)
       _fields = _ordered ? new LinkedHashMap<String, ODocumentEntry>() : new HashMap<String, ODocumentEntry>();
 
-    if (_status == ORecordElement.STATUS.LOADED && _source != null)
+    if (_status == ORecordElement.STATUS.LOADED && (_source != null || _embeddedSource != null))
       // POPULATE FIELDS LAZY
       return deserializeFields(iFields);
 
@@ -26,6 +26,8 @@ import com.orientechnologies.orient.core.db.record.ORecordElement;
 import com.orientechnologies.orient.core.metadata.schema.OGlobalProperty;
 import com.orientechnologies.orient.core.metadata.schema.OImmutableClass;
 import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.BytesContainer;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.ODocumentSerializer;
 
 import java.util.Map.Entry;
 import java.util.Set;
@@ -49,6 +51,11 @@ public class ODocumentInternal {
     oDocument.rawField(iFieldName, iFieldValue, iFieldType);
   }
 
+  public static void setEmbeddedSource(final ODocument oDocument, final ODocumentSerializer serializer,
+      final BytesContainer source) {
+    oDocument.setEmbeddedSource(serializer, source);
+  }
+
   public static boolean rawContainsField(final ODocument oDocument, final String iFiledName) {
     return oDocument.rawContainsField(iFiledName);
   }
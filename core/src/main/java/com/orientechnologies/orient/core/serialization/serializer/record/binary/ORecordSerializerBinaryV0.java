@@ -59,6 +59,7 @@ public class ORecordSerializerBinaryV0 implements ODocumentSerializer {
   protected static final long       MILLISEC_PER_DAY = 86400000;
 
   private final OBinaryComparatorV0 comparator       = new OBinaryComparatorV0();
+  private final byte[]              serializedClass  = bytesFromString(ODocumentSerializable.CLASS_NAME);
 
   public ORecordSerializerBinaryV0() {
   }
@@ -145,7 +146,7 @@ public class ORecordSerializerBinaryV0 implements ODocumentSerializer {
       if (valuePos != 0) {
         int headerCursor = bytes.offset;
         bytes.offset = valuePos;
-        final Object value = deserializeValue(bytes, type, document);
+        final Object value = deserializeFieldValue(bytes, type, document, true);
         bytes.offset = headerCursor;
         ODocumentInternal.rawField(document, fieldName, value, type);
       } else
@@ -234,6 +235,15 @@ public class ORecordSerializerBinaryV0 implements ODocumentSerializer {
 
   @Override
   public void deserialize(final ODocument document, final BytesContainer bytes) {
+    deserialize(document, bytes, true);
+  }
+
+  /**
+   * @param lazyEmbedded If <code>true</code> embedded documents which are values of fields are unmarshalled only when their fields
+   *                     are accessed. Has to be <code>false</code> if position of the end of document is needed to read the rest of
+   *                     content, for example if document is an item of embedded collection.
+   */
+  private void deserialize(final ODocument document, final BytesContainer bytes, final boolean lazyEmbedded) {
     final String className = readString(bytes);
     if (className.length() != 0)
       ODocumentInternal.fillClassNameIfNeeded(document, className);
@@ -272,7 +282,7 @@ public class ORecordSerializerBinaryV0 implements ODocumentSerializer {
       if (valuePos != 0) {
         int headerCursor = bytes.offset;
         bytes.offset = valuePos;
-        final Object value = deserializeValue(bytes, type, document);
+        final Object value = deserializeFieldValue(bytes, type, document, lazyEmbedded);
         if (bytes.offset > last)
           last = bytes.offset;
         bytes.offset = headerCursor;
@@ -427,8 +437,9 @@ public class ORecordSerializerBinaryV0 implements ODocumentSerializer {
       break;
     case EMBEDDED:
       value = new ODocument();
-      deserialize((ODocument) value, bytes);
-      if (((ODocument) value).containsField(ODocumentSerializable.CLASS_NAME)) {
+      deserialize((ODocument) value, bytes, false);
+      // THE DOCUMENT IS ALREADY UNMARSHALLED: NO NEED TO CHECK FOR LOADING
+      if (ODocumentInternal.rawContainsField((ODocument) value, ODocumentSerializable.CLASS_NAME)) {
         String className = ((ODocument) value).field(ODocumentSerializable.CLASS_NAME);
         try {
           Class<?> clazz = Class.forName(className);
@@ -499,6 +510,71 @@ public class ORecordSerializerBinaryV0 implements ODocumentSerializer {
     return value;
   }
 
+  /**
+   * Deserializes value of field. Embedded documents are not unmarshalled if <code>lazyEmbedded</code> is <code>true</code>, instead
+   * they keep reference to the content of owner record and unmarshall their fields when they are accessed, so position of
+   * container is not moved to the end of value in such case.
+   */
+  private Object deserializeFieldValue(final BytesContainer bytes, final OType type, final ODocument ownerDocument,
+      final boolean lazyEmbedded) {
+    if (type != OType.EMBEDDED || !lazyEmbedded)
+      return deserializeValue(bytes, type, ownerDocument);
+
+    final BytesContainer source = bytes.copy();
+
+    final ODocument document = new ODocument();
+    final String className = readString(bytes);
+    if (className.length() != 0)
+      ODocumentInternal.fillClassNameIfNeeded(document, className);
+
+    ODocumentInternal.setEmbeddedSource(document, this, source);
+
+    if (isSerializable(document, bytes))
+      // SERIALIZABLE OBJECTS ARE CREATED IMMEDIATELY
+      return deserializeValue(source, type, ownerDocument);
+
+    ODocumentInternal.addOwner(document, ownerDocument);
+    return document;
+  }
+
+  /**
+   * Looks for the field of the class of an {@link ODocumentSerializable} in the header of an embedded document, comparing the field
+   * names in binary form without reading any value.
+   *
+   * @param bytes
+   *          Positioned at the header, after the class name. The position is not changed
+   */
+  private boolean isSerializable(final ODocument document, final BytesContainer bytes) {
+    final int headerStart = bytes.offset;
+    try {
+      while (true) {
+        final int len = OVarIntSerializer.readAsInteger(bytes);
+        if (len == 0)
+          return false;
+
+        if (len > 0) {
+          if (len == serializedClass.length && equalBytes(bytes.bytes, bytes.offset, serializedClass))
+            return true;
+          bytes.skip(len + OIntegerSerializer.INT_SIZE + 1);
+        } else {
+          final OGlobalProperty prop = getGlobalProperty(document, len);
+          if (prop.getName().equals(ODocumentSerializable.CLASS_NAME))
+            return true;
+          bytes.skip(OIntegerSerializer.INT_SIZE + (prop.getType() != OType.ANY ? 0 : 1));
+        }
+      }
+    } finally {
+      bytes.offset = headerStart;
+    }
+  }
+
+  private static boolean equalBytes(final byte[] bytes, final int offset, final byte[] value) {
+    for (int i = 0; i < value.length; i++)
+      if (bytes[offset + i] != value[i])
+        return false;
+    return true;
+  }
+
   protected OClass serializeClass(final ODocument document, final BytesContainer bytes) {
     final OClass clazz = ODocumentInternal.getImmutableSchemaClass(document);
     if (clazz != null)
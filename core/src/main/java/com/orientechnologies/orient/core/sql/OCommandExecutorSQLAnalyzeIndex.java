@@ -0,0 +1,101 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql;
+
+import com.orientechnologies.orient.core.command.OCommandDistributedReplicateRequest;
+import com.orientechnologies.orient.core.command.OCommandRequest;
+import com.orientechnologies.orient.core.command.OCommandRequestText;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.index.OIndexAbstract;
+import com.orientechnologies.orient.core.index.OIndexManagerProxy;
+
+import java.util.Map;
+
+/**
+ * SQL ANALYZE INDEX command: collects statistics of index which are used to choose the most selective index during query
+ * execution. Use <code>*</code> instead of index name to analyze all indexes.
+ *
+ * @see com.orientechnologies.orient.core.index.OIndexStatistics
+ */
+public class OCommandExecutorSQLAnalyzeIndex extends OCommandExecutorSQLAbstract implements OCommandDistributedReplicateRequest {
+  public static final String KEYWORD_ANALYZE = "ANALYZE";
+  public static final String KEYWORD_INDEX   = "INDEX";
+
+  private String name;
+
+  public OCommandExecutorSQLAnalyzeIndex parse(final OCommandRequest iRequest) {
+    // ANALYZE IS NOT PART OF STRICT SQL GRAMMAR, SO THE COMMAND IS NOT PRE-PARSED
+    init((OCommandRequestText) iRequest);
+
+    parserRequiredKeyword(KEYWORD_ANALYZE);
+    parserRequiredKeyword(KEYWORD_INDEX);
+    name = parserRequiredWord(false, "Expected <index name>");
+
+    return this;
+  }
+
+  /**
+   * Execute the ANALYZE INDEX.
+   *
+   * @return Amount of analyzed index entries.
+   */
+  public Object execute(final Map<Object, Object> iArgs) {
+    if (name == null)
+      throw new OCommandExecutionException("Cannot execute the command because it has not been parsed yet");
+
+    final ODatabaseDocument database = getDatabase();
+    final OIndexManagerProxy indexManager = database.getMetadata().getIndexManager();
+
+    long totalAnalyzed = 0;
+    if (name.equals("*")) {
+      for (OIndex<?> idx : indexManager.getIndexes()) {
+        if (idx.getInternal() instanceof OIndexAbstract)
+          totalAnalyzed += ((OIndexAbstract<?>) idx.getInternal()).analyze().getEntries();
+      }
+    } else {
+      final OIndex<?> idx = indexManager.getIndex(name);
+      if (idx == null)
+        throw new OCommandExecutionException("Index '" + name + "' not found");
+
+      if (!(idx.getInternal() instanceof OIndexAbstract))
+        throw new OCommandExecutionException("Index '" + name + "' does not support statistics");
+
+      totalAnalyzed = ((OIndexAbstract<?>) idx.getInternal()).analyze().getEntries();
+    }
+
+    // STATISTICS ARE STORED TOGETHER WITH INDEX CONFIGURATION
+    indexManager.save();
+
+    return totalAnalyzed;
+  }
+
+  @Override
+  public String getSyntax() {
+    return "ANALYZE INDEX <index-name>|*";
+  }
+
+  @Override
+  public QUORUM_TYPE getQuorumType() {
+    return QUORUM_TYPE.ALL;
+  }
+}
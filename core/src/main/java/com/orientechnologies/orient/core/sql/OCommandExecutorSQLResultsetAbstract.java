@@ -688,6 +688,10 @@ public abstract class OCommandExecutorSQLResultsetAbstract extends OCommandExecu
     this.parsedTarget = parsedTarget;
   }
 
+  public OSQLFilter getCompiledFilter() {
+    return compiledFilter;
+  }
+
   public void setCompiledFilter(final OSQLFilter compiledFilter) {
     this.compiledFilter = compiledFilter;
   }
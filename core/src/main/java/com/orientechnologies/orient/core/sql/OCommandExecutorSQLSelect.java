@@ -66,15 +66,19 @@ import com.orientechnologies.orient.core.metadata.security.OSecurityUser;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.ODocumentComparator;
 import com.orientechnologies.orient.core.record.impl.ODocumentHelper;
 import com.orientechnologies.orient.core.serialization.serializer.OStringSerializerHelper;
 import com.orientechnologies.orient.core.sql.filter.*;
 import com.orientechnologies.orient.core.sql.functions.OSQLFunctionRuntime;
 import com.orientechnologies.orient.core.sql.functions.coll.OSQLFunctionDistinct;
+import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionMax;
+import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionMin;
 import com.orientechnologies.orient.core.sql.functions.misc.OSQLFunctionCount;
 import com.orientechnologies.orient.core.sql.operator.*;
 import com.orientechnologies.orient.core.sql.parser.*;
 import com.orientechnologies.orient.core.sql.query.OResultSet;
+import com.orientechnologies.orient.core.sql.query.OSQLPreparedQuery;
 import com.orientechnologies.orient.core.sql.query.OSQLQuery;
 import com.orientechnologies.orient.core.storage.OCluster;
 import com.orientechnologies.orient.core.storage.OStorage.LOCKING_STRATEGY;
@@ -85,6 +89,7 @@ import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -124,10 +129,26 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
   private static final AsyncResult PARALLEL_END_EXECUTION_THREAD = new AsyncResult(null, null);
 
+  /**
+   * Range of cluster positions scanned by a single thread of parallel query.
+   */
+  private static final class ClusterMorsel {
+    final int  clusterId;
+    final long firstPosition;
+    final long lastPosition;
+
+    ClusterMorsel(final int clusterId, final long firstPosition, final long lastPosition) {
+      this.clusterId = clusterId;
+      this.firstPosition = firstPosition;
+      this.lastPosition = lastPosition;
+    }
+  }
+
   private final OOrderByOptimizer           orderByOptimizer     = new OOrderByOptimizer();
   private final OMetricRecorder             metricRecorder       = new OMetricRecorder();
   private final OFilterOptimizer            filterOptimizer      = new OFilterOptimizer();
   private final OFilterAnalyzer             filterAnalyzer       = new OFilterAnalyzer();
+  private final OCoveringIndexAnalyzer      coveringAnalyzer     = new OCoveringIndexAnalyzer();
   private       Map<String, String>         projectionDefinition = null;
   // THIS HAS BEEN KEPT FOR COMPATIBILITY; BUT IT'S USED THE PROJECTIONS IN GROUPED-RESULTS
   private       Map<String, Object>         projections          = null;
@@ -154,7 +175,18 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
   private int     tipLimitThreshold = OGlobalConfiguration.QUERY_LIMIT_THRESHOLD_TIP.getValueAsInteger();
   private String  NULL_VALUE        = "null";
 
-  private AtomicLong tmpQueueOffer = new AtomicLong();
+  // RESULTS AND GROUPS WHICH DO NOT FIT INTO MEMORY LIMIT ARE SPILLED TO TEMPORARY FILES
+  private static final int MAX_GROUP_BY_SPILL_LEVEL = 3;
+
+  private final long                  memoryLimit       = OGlobalConfiguration.QUERY_MEMORY_LIMIT.getValueAsLong();
+  private       OExternalResultSorter externalSorter;
+  private       OGroupBySpill         groupBySpill;
+  private       int                   groupBySpillLevel = 0;
+  private       long                  groupedMemory     = 0;
+  private final LinkedList<OGroupBySpill> spilledGroups = new LinkedList<OGroupBySpill>();
+
+  private AtomicLong    tmpQueueOffer       = new AtomicLong();
+  private AtomicInteger parallelAggregated = new AtomicInteger();
   private Object     resultLock    = new Object();
 
   public OCommandExecutorSQLSelect() {
@@ -455,7 +487,11 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
       applyOrderBy(true);
       applyLimitAndSkip();
 
-      subIterator = new ArrayList<OIdentifiable>((List<OIdentifiable>) getResult()).iterator();
+      try {
+        subIterator = new ArrayList<OIdentifiable>((List<OIdentifiable>) getResult()).iterator();
+      } finally {
+        releaseSpilledResults();
+      }
       lastRecord = null;
       tempResult = null;
       groupedResult.clear();
@@ -482,17 +518,39 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
       getContext().beginExecution(timeoutMs, timeoutStrategy);
     }
 
-    if (!optimizeExecution()) {
-      fetchLimit = getQueryFetchLimit();
+    if (memoryLimit > 0)
+      metricRecorder.recordMemoryLimit(memoryLimit);
 
-      executeSearch(iArgs);
-      applyExpand();
-      handleNoTarget();
-      handleGroupBy(context);
-      applyOrderBy(true);
-      applyLimitAndSkip();
+    try {
+      if (!optimizeExecution()) {
+        fetchLimit = getQueryFetchLimit();
+
+        executeSearch(iArgs);
+        applyExpand();
+        handleNoTarget();
+        handleGroupBy(context);
+        applyOrderBy(true);
+        applyLimitAndSkip();
+      }
+      return getResult();
+    } finally {
+      releaseSpilledResults();
     }
-    return getResult();
+  }
+
+  /**
+   * Tells if the result only depends on the records of the target classes: the WHERE condition and the projections only read fields
+   * of the current record. In that case a record can change the result only if it satisfies the condition or it is part of the
+   * result. Call it before the execution, because the condition is changed in place when indexes are used.
+   */
+  public boolean dependsOnlyOnTargetRecords() {
+    if (parsedTarget == null || parsedTarget.getTargetClasses() == null || parsedTarget.getTargetClasses().isEmpty())
+      return false;
+
+    if (expandTarget != null || (let != null && !let.isEmpty()))
+      return false;
+
+    return coveringAnalyzer.readsOnlyRecordFields(compiledFilter != null ? compiledFilter.getRootCondition() : null, projections);
   }
 
   public Map<String, Object> getProjections() {
@@ -616,8 +674,15 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
         }
 
         if (parallel) {
+          applyGroupBy(record, iContext);
+
+          if (aggregate && skip <= 0) {
+            // THE RECORD HAS BEEN AGGREGATED BY THE WORKER THREAD, THERE IS NOTHING LEFT TO DO ON THE MAIN THREAD
+            parallelAggregated.incrementAndGet();
+            return true;
+          }
+
           try {
-            applyGroupBy(record, iContext);
             resultQueue.put(new AsyncResult(record, iContext));
           } catch (InterruptedException e) {
             Thread.interrupted();
@@ -740,6 +805,11 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
         for (OIdentifiable iRes : allResults) {
           result = pushResult(iRes);
         }
+    } else if (isExternalSortEnabled()) {
+      // COLLECT ALL THE RECORDS AND ORDER THEM AT THE END, RECORDS WHICH DO NOT FIT INTO MEMORY LIMIT ARE SPILLED TO DISK
+      for (OIdentifiable iRes : allResults) {
+        getExternalSorter().add(iRes);
+      }
     } else {
 
       // COLLECT ALL THE RECORDS AND ORDER THEM AT THE END
@@ -787,9 +857,79 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
       }
     }
 
+    if (isGroupBySpillEnabled() && spillGroupedRecord(fieldValue, iRecord))
+      // THE GROUP DOES NOT FIT INTO MEMORY LIMIT, IT WILL BE AGGREGATED LATER
+      return null;
+
     return getProjectionGroup(fieldValue, iContext).applyRecord(iRecord);
   }
 
+  private boolean isGroupBySpillEnabled() {
+    if (memoryLimit <= 0 || parallel || groupByFields == null || groupByFields.isEmpty() || (let != null && !let.isEmpty()))
+      return false;
+
+    for (String field : groupByFields) {
+      if (field.startsWith("$"))
+        // CONTEXT VARIABLES ARE NOT AVAILABLE WHEN SPILLED RECORDS ARE AGGREGATED
+        return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Spills record to disk if its group is not in memory and new group cannot be created without exceeding of memory limit. Once
+   * memory limit is reached, all the records of the new groups are spilled.
+   *
+   * @return true if record was spilled
+   */
+  private boolean spillGroupedRecord(final Object fieldValue, final OIdentifiable iRecord) {
+    final Object key = getGroupKey(fieldValue);
+    if (groupedResult.containsKey(key))
+      return false;
+
+    final ORecord record = iRecord.getRecord();
+    if (groupBySpill == null) {
+      groupedMemory += ORecordSpillFile.estimateSize(record);
+      if (groupedMemory <= memoryLimit || groupBySpillLevel > MAX_GROUP_BY_SPILL_LEVEL)
+        return false;
+
+      groupBySpill = new OGroupBySpill(groupBySpillLevel);
+    }
+
+    groupBySpill.add(key, record);
+    return true;
+  }
+
+  private boolean isExternalSortEnabled() {
+    return memoryLimit > 0 && limit <= 0 && expandTarget == null && !orderedFields.isEmpty() && !fullySortedByIndex
+        && !isRidOnlySort();
+  }
+
+  private OExternalResultSorter getExternalSorter() {
+    if (externalSorter == null)
+      // ORDERED FIELDS ARE COPIED BECAUSE THEY ARE CLEARED BEFORE SPILLED RESULTS ARE MERGED
+      externalSorter = new OExternalResultSorter(new ODocumentComparator(new ArrayList<OPair<String, String>>(orderedFields),
+          context), memoryLimit);
+    return externalSorter;
+  }
+
+  private void releaseSpilledResults() {
+    if (externalSorter != null) {
+      externalSorter.close();
+      externalSorter = null;
+    }
+
+    if (groupBySpill != null) {
+      groupBySpill.close();
+      groupBySpill = null;
+    }
+
+    for (OGroupBySpill spill : spilledGroups)
+      spill.close();
+    spilledGroups.clear();
+  }
+
   private boolean allowsStreamedResult() {
     return (fullySortedByIndex || orderedFields.isEmpty()) && expandTarget == null && unwindFields == null;
   }
@@ -878,33 +1018,7 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
       aggregate = true;
 
-      Object key;
-
-      if (fieldValue != null) {
-        if (fieldValue.getClass().isArray()) {
-          // LOOK IT BY HASH (FASTER THAN COMPARE EACH SINGLE VALUE)
-          final Object[] array = (Object[]) fieldValue;
-
-          final StringBuilder keyArray = new StringBuilder();
-          for (Object o : array) {
-            if (keyArray.length() > 0) {
-              keyArray.append(",");
-            }
-            if (o != null) {
-              keyArray.append(o instanceof OIdentifiable ? ((OIdentifiable) o).getIdentity().toString() : o.toString());
-            } else {
-              keyArray.append(NULL_VALUE);
-            }
-          }
-
-          key = keyArray.toString();
-        } else {
-          // LOOKUP FOR THE FIELD
-          key = fieldValue;
-        }
-      } else
-        // USE NULL_VALUE THEN REPLACE WITH REAL NULL
-        key = NULL_VALUE;
+      final Object key = getGroupKey(fieldValue);
 
       ORuntimeResult group = groupedResult.get(key);
       if (group == null) {
@@ -921,6 +1035,34 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     }
   }
 
+  private Object getGroupKey(final Object fieldValue) {
+    if (fieldValue != null) {
+      if (fieldValue.getClass().isArray()) {
+        // LOOK IT BY HASH (FASTER THAN COMPARE EACH SINGLE VALUE)
+        final Object[] array = (Object[]) fieldValue;
+
+        final StringBuilder keyArray = new StringBuilder();
+        for (Object o : array) {
+          if (keyArray.length() > 0) {
+            keyArray.append(",");
+          }
+          if (o != null) {
+            keyArray.append(o instanceof OIdentifiable ? ((OIdentifiable) o).getIdentity().toString() : o.toString());
+          } else {
+            keyArray.append(NULL_VALUE);
+          }
+        }
+
+        return keyArray.toString();
+      } else {
+        // LOOKUP FOR THE FIELD
+        return fieldValue;
+      }
+    } else
+      // USE NULL_VALUE THEN REPLACE WITH REAL NULL
+      return NULL_VALUE;
+  }
+
   protected void parseGroupBy() {
     parserRequiredKeyword(KEYWORD_BY);
 
@@ -1270,6 +1412,27 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
               return true;
             }
           }
+
+          if ((rf.function instanceof OSQLFunctionMin || rf.function instanceof OSQLFunctionMax)
+              && rf.configuredParameters.length == 1 && rf.configuredParameters[0] instanceof OSQLFilterItemField) {
+            // OPTIMIZATION: READ THE MIN/MAX VALUE AS THE FIRST/LAST KEY OF AN INDEX
+            final OIndex<?> index = getMinMaxIndex((OSQLFilterItemField) rf.configuredParameters[0]);
+
+            final Object value = index != null ?
+                (rf.function instanceof OSQLFunctionMin ? index.getFirstKey() : index.getLastKey()) :
+                null;
+
+            // WITHOUT NOT NULL KEYS THE RESULT DEPENDS ON THE RECORDS, EXECUTE THE QUERY
+            if (value != null) {
+              metricRecorder.recordInvolvedIndexesMetric(index);
+              metricRecorder.recordIndexOnlyScan();
+
+              if (tempResult == null)
+                tempResult = new ArrayList<OIdentifiable>();
+              ((Collection<OIdentifiable>) tempResult).add(new ODocument().field(entry.getKey(), value));
+              return true;
+            }
+          }
         }
 
       } finally {
@@ -1280,6 +1443,31 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     return false;
   }
 
+  private OIndex<?> getMinMaxIndex(final OSQLFilterItemField field) {
+    if (!OGlobalConfiguration.QUERY_INDEX_ONLY_SCAN.getValueAsBoolean() || !field.isPlainField())
+      return null;
+
+    if (parsedTarget.getTargetClasses() == null || parsedTarget.getTargetClasses().size() != 1 || isUsingRestrictedClasses())
+      return null;
+
+    // THE FIRST AND LAST KEYS OF THE INDEXES DO NOT REFLECT THE CHANGES OF THE CURRENT TRANSACTION
+    if (getDatabase().getTransaction().isActive())
+      return null;
+
+    final String className = parsedTarget.getTargetClasses().keySet().iterator().next();
+    final OClass cls = getDatabase().getMetadata().getSchema().getClass(className);
+    if (cls == null)
+      return null;
+
+    for (OIndex<?> index : cls.getClassInvolvedIndexes(field.getRoot())) {
+      if (index.getDefinition().getFields().size() == 1 && index.supportsOrderedIterations() && !index.isRebuilding()
+          && coveringAnalyzer.canCover(index))
+        return index;
+    }
+
+    return null;
+  }
+
   private boolean isUsingRestrictedClasses() {
     boolean restrictedClasses = false;
     final OSecurityUser user = getDatabase().getUser();
@@ -1578,14 +1766,13 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
       return false;
 
     if (iTarget instanceof ORecordIteratorClusters) {
-      if (clusterIds.length > 1) {
-        final long totalRecords = getDatabase().getStorage().count(clusterIds);
-        if (totalRecords > OGlobalConfiguration.QUERY_PARALLEL_MINIMUM_RECORDS.getValueAsLong()) {
-          // ACTIVATE PARALLEL
-          OLogManager.instance()
-              .debug(this, "Activated parallel query. clusterIds=%d, totalRecords=%d", clusterIds.length, totalRecords);
-          return true;
-        }
+      // CLUSTERS ARE SPLIT INTO RANGES OF POSITIONS, SO EVEN A SINGLE CLUSTER CAN BE SCANNED IN PARALLEL
+      final long totalRecords = getDatabase().getStorage().count(clusterIds);
+      if (totalRecords > OGlobalConfiguration.QUERY_PARALLEL_MINIMUM_RECORDS.getValueAsLong()) {
+        // ACTIVATE PARALLEL
+        OLogManager.instance()
+            .debug(this, "Activated parallel query. clusterIds=%d, totalRecords=%d", clusterIds.length, totalRecords);
+        return true;
       }
     }
     return false;
@@ -1656,12 +1843,17 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
   private boolean execParallelWithPool(final ORecordIteratorClusters iTarget, final ODatabaseDocumentTx db) {
     final int[] clusterIds = iTarget.getClusterIds();
 
-    // CREATE ONE THREAD PER CLUSTER
-    final int jobNumbers = clusterIds.length;
+    // SPLIT CLUSTERS INTO MORSELS, EVERY THREAD TAKES THE NEXT MORSEL AS SOON AS IT FINISHES THE PREVIOUS ONE
+    final Queue<ClusterMorsel> morsels = splitIntoMorsels(db, clusterIds);
+    final int jobNumbers = Math.max(1, Math.min(getParallelDegree(), morsels.size()));
     final List<Future<?>> jobs = new ArrayList<Future<?>>();
 
+    context.setVariable("parallelDegree", jobNumbers);
+    context.setVariable("parallelMorsels", morsels.size());
+
     OLogManager.instance()
-        .debug(this, "Executing parallel query with strategy executors. clusterIds=%d, jobs=%d", clusterIds.length, jobNumbers);
+        .debug(this, "Executing parallel query with strategy executors. clusterIds=%d, morsels=%d, jobs=%d", clusterIds.length,
+            morsels.size(), jobNumbers);
 
     final boolean[] results = new boolean[jobNumbers];
     final OCommandContext[] contexts = new OCommandContext[jobNumbers];
@@ -1693,7 +1885,9 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
               // CREATE A SNAPSHOT TO AVOID DEADLOCKS
               db.getMetadata().getSchema().makeSnapshot();
 
-              scanClusterWithIterator(localDatabase, threadContext, clusterIds[current], current, results);
+              ClusterMorsel morsel;
+              while (results[current] && parallelRunning && (morsel = morsels.poll()) != null)
+                scanClusterWithIterator(localDatabase, threadContext, morsel, current, results);
             } catch (RuntimeException t) {
               exceptions[current] = t;
             } finally {
@@ -1753,6 +1947,7 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     }
 
     parallelRunning = false;
+    resultCount += parallelAggregated.getAndSet(0);
 
     if (cancelQuery) {
       // CANCEL ALL THE RUNNING JOBS
@@ -1787,8 +1982,9 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
   }
 
   private void scanClusterWithIterator(final ODatabaseDocumentInternal localDatabase, final OCommandContext iContext,
-      final int iClusterId, final int current, final boolean[] results) {
-    final ORecordIteratorCluster it = new ORecordIteratorCluster(localDatabase, localDatabase, iClusterId);
+      final ClusterMorsel morsel, final int current, final boolean[] results) {
+    final ORecordIteratorCluster it = new ORecordIteratorCluster(localDatabase, localDatabase, morsel.clusterId,
+        morsel.firstPosition, morsel.lastPosition, false, LOCKING_STRATEGY.DEFAULT);
 
     while (it.hasNext()) {
       final ORecord next = it.next();
@@ -1804,6 +2000,37 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     }
   }
 
+  private Queue<ClusterMorsel> splitIntoMorsels(final ODatabaseDocumentInternal db, final int[] clusterIds) {
+    final long morselSize = Math.max(1, OGlobalConfiguration.QUERY_PARALLEL_MORSEL_SIZE.getValueAsLong());
+
+    final Queue<ClusterMorsel> morsels = new ConcurrentLinkedQueue<ClusterMorsel>();
+    for (int clusterId : clusterIds) {
+      final long[] range = db.getStorage().getClusterDataRange(clusterId);
+      if (range[0] == ORID.CLUSTER_POS_INVALID || range[1] == ORID.CLUSTER_POS_INVALID)
+        // EMPTY CLUSTER
+        continue;
+
+      for (long first = range[0]; first <= range[1]; first += morselSize)
+        morsels.add(new ClusterMorsel(clusterId, first, Math.min(first + morselSize - 1, range[1])));
+    }
+
+    return morsels;
+  }
+
+  /**
+   * Returns the number of threads of parallel query. It can be set for a single query with the <code>$parallelDegree</code>
+   * context variable, otherwise it is taken from {@link OGlobalConfiguration#QUERY_PARALLEL_DEGREE} of the database.
+   */
+  private int getParallelDegree() {
+    final Object queryDegree = context.getVariable("$parallelDegree");
+    if (queryDegree instanceof Number && ((Number) queryDegree).intValue() > 0)
+      return ((Number) queryDegree).intValue();
+
+    final int degree = getDatabase().getStorage().getConfiguration().getContextConfiguration()
+        .getValueAsInteger(OGlobalConfiguration.QUERY_PARALLEL_DEGREE);
+    return degree > 0 ? degree : Runtime.getRuntime().availableProcessors();
+  }
+
   private int getQueryFetchLimit() {
     final int sqlLimit;
     final int requestLimit;
@@ -2074,6 +2301,14 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
   @SuppressWarnings("rawtypes")
   private boolean searchForIndexes(final OClass iSchemaClass) {
+    return searchForIndexes(iSchemaClass, true);
+  }
+
+  /**
+   * @param usePreparedPlan
+   *          if false, the indexes are searched again even if the prepared statement keeps the indexes of previous executions
+   */
+  private boolean searchForIndexes(final OClass iSchemaClass, final boolean usePreparedPlan) {
     if (uniqueResult != null)
       uniqueResult.clear();
 
@@ -2098,6 +2333,13 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     if (conditionHierarchy == null)
       return false;
 
+    // PREPARED STATEMENTS REUSE THE INDEXES CHOSEN BY THE EXECUTIONS WITH THE SAME SIGNATURE OF PARAMETERS
+    final OSQLPreparedStatement preparedStatement = getPreparedStatement();
+    final int[] preparedPositions = new int[conditionHierarchy.size()];
+    final OIndex<?>[] preparedIndexes = usePreparedPlan ? getPreparedIndexes(preparedStatement, conditionHierarchy, iSchemaClass,
+        preparedPositions) : null;
+    final String[] chosenIndexes = preparedStatement != null ? new String[conditionHierarchy.size()] : null;
+
     List<OIndexCursor> cursors = new ArrayList<OIndexCursor>();
 
     boolean indexIsUsedInOrderBy = false;
@@ -2107,14 +2349,23 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
       boolean indexOnExactClass = true;//to track if the index used is specific for this class or if it's defined on a super/sub class
 
       OIndexSearchResult lastSearchResult = null;
-      for (List<OIndexSearchResult> indexSearchResults : conditionHierarchy) {
+      for (int branch = 0; branch < conditionHierarchy.size(); branch++) {
+        final List<OIndexSearchResult> indexSearchResults = conditionHierarchy.get(branch);
         // go through all variants to choose which one can be used for index search.
         boolean indexUsed = false;
-        for (final OIndexSearchResult searchResult : indexSearchResults) {
+        for (int position = 0; position < indexSearchResults.size(); position++) {
+          final OIndexSearchResult searchResult = indexSearchResults.get(position);
           lastSearchResult = searchResult;
-          final List<OIndex<?>> involvedIndexes = filterAnalyzer.getInvolvedIndexes(iSchemaClass, searchResult);
 
-          Collections.sort(involvedIndexes, new IndexComparator());
+          final List<OIndex<?>> involvedIndexes;
+          if (preparedIndexes != null) {
+            if (position != preparedPositions[branch])
+              continue;
+            involvedIndexes = Collections.<OIndex<?>>singletonList(preparedIndexes[branch]);
+          } else {
+            involvedIndexes = filterAnalyzer.getInvolvedIndexes(iSchemaClass, searchResult);
+            Collections.sort(involvedIndexes, new IndexComparator());
+          }
 
           indexOnExactClass = true;
 
@@ -2206,6 +2457,8 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
               cursors.add(OIndexChangesWrapper.wrap(index, cursor, indexRebuildVersion));
               indexUseAttempts.add(new IndexUsageLog(index, keyParams, indexDefinition));
               indexUsed = true;
+              if (chosenIndexes != null && !(index instanceof OChainedIndexProxy))
+                chosenIndexes[branch] = index.getName();
               break;
             }
           }
@@ -2214,6 +2467,12 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
           }
         }
         if (!indexUsed) {
+          if (preparedIndexes != null) {
+            // THE INDEXES OF THE PLAN CANNOT BE USED ANYMORE: SEARCH THEM AGAIN
+            preparedStatement.removePlan(OSQLPreparedStatement.getSignature(parameters));
+            fullySortedByIndex = false;
+            return searchForIndexes(iSchemaClass, false);
+          }
           return tryOptimizeSort(iSchemaClass);
         }
       }
@@ -2222,6 +2481,9 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
         return false;
       }
 
+      if (preparedIndexes == null && chosenIndexes != null)
+        storePreparedIndexes(preparedStatement, chosenIndexes);
+
       if (cursors.size() == 1 && canOptimize(conditionHierarchy)) {
         filterOptimizer.optimize(compiledFilter, lastSearchResult);
       }
@@ -2266,9 +2528,15 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
         }
       }
 
-      for (OIndexCursor cursor : cursors) {
-        if (!fetchValuesFromIndexCursor(cursor)) {
-          break;
+      if (cursors.size() == 1 && indexOnExactClass && canUseIndexOnlyScan(indexUseAttempts.get(0).index)) {
+        // OPTIMIZATION: THE INDEX KEYS CONTAIN ALL THE FIELDS NEEDED BY THE QUERY, DO NOT LOAD THE RECORDS
+        metricRecorder.recordIndexOnlyScan();
+        fetchCoveredEntriesFromIndexCursor(cursors.get(0), indexUseAttempts.get(0).indexDefinition);
+      } else {
+        for (OIndexCursor cursor : cursors) {
+          if (!fetchValuesFromIndexCursor(cursor)) {
+            break;
+          }
         }
       }
       uniqueResult.clear();
@@ -2285,6 +2553,52 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     }
   }
 
+  private OSQLPreparedStatement getPreparedStatement() {
+    return request instanceof OSQLPreparedQuery ? ((OSQLPreparedQuery<?>) request).getPreparedStatement() : null;
+  }
+
+  private OIndex<?>[] getPreparedIndexes(final OSQLPreparedStatement preparedStatement,
+      final List<List<OIndexSearchResult>> conditionHierarchy, final OClass iSchemaClass, final int[] positions) {
+    if (preparedStatement == null)
+      return null;
+
+    final ODatabaseDocumentInternal database = getDatabase();
+    final String signature = OSQLPreparedStatement.getSignature(parameters);
+    final OPreparedIndexPlan plan = preparedStatement.getPlan(signature, database.getMetadata().getSchema().getVersion(),
+        getIndexManagerVersion(database));
+    if (plan == null)
+      return null;
+
+    final OIndex<?>[] indexes = plan.resolve(conditionHierarchy, iSchemaClass, database.getMetadata().getIndexManager(), positions);
+    if (indexes != null)
+      preparedStatement.recordPlanHit();
+    else
+      preparedStatement.removePlan(signature);
+    return indexes;
+  }
+
+  private void storePreparedIndexes(final OSQLPreparedStatement preparedStatement, final String[] chosenIndexes) {
+    for (String index : chosenIndexes)
+      if (index == null)
+        return;
+
+    final ODatabaseDocumentInternal database = getDatabase();
+    final String signature = OSQLPreparedStatement.getSignature(parameters);
+    final int schemaVersion = database.getMetadata().getSchema().getVersion();
+    final int indexManagerVersion = getIndexManagerVersion(database);
+
+    final OPreparedIndexPlan plan = preparedStatement.getPlan(signature, schemaVersion, indexManagerVersion);
+    if (plan == null || !plan.isSameAs(chosenIndexes))
+      preparedStatement.putPlan(signature, new OPreparedIndexPlan(schemaVersion, indexManagerVersion, chosenIndexes));
+  }
+
+  /**
+   * Creating or dropping an index does not change the schema version, but saves the configuration of the index manager.
+   */
+  private static int getIndexManagerVersion(final ODatabaseDocumentInternal database) {
+    return database.getMetadata().getIndexManager().getConfiguration().getVersion();
+  }
+
   private Iterator<OIdentifiable> tryIndexedFunctions(OClass iSchemaClass) {
     // TODO profiler
     if (this.preParsedStatement == null) {
@@ -2492,6 +2806,70 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     }
   }
 
+  private boolean canUseIndexOnlyScan(final OIndex<?> index) {
+    if (!OGlobalConfiguration.QUERY_INDEX_ONLY_SCAN.getValueAsBoolean())
+      return false;
+
+    if (expandTarget != null || unwindFields != null || (let != null && !let.isEmpty()) || parallel)
+      return false;
+
+    if (!(lockingStrategy == LOCKING_STRATEGY.DEFAULT || lockingStrategy == LOCKING_STRATEGY.NONE)
+        || context.getVariable("$locking") != null)
+      return false;
+
+    if (isUsingRestrictedClasses())
+      return false;
+
+    // DOCUMENTS BUILT FROM THE INDEX KEYS CAN ONLY BE GROUPED AND SORTED BY THE FIELDS OF THE KEYS
+    final List<String> otherFields = new ArrayList<String>();
+    if (groupByFields != null)
+      otherFields.addAll(groupByFields);
+    for (OPair<String, String> orderedField : orderedFields)
+      otherFields.add(orderedField.getKey());
+
+    return coveringAnalyzer.isCovering(index, compiledFilter != null ? compiledFilter.getRootCondition() : null, projections,
+        otherFields);
+  }
+
+  /**
+   * Browses the index entries without loading the records: every entry is converted in a document containing the fields of the
+   * index key.
+   */
+  private boolean fetchCoveredEntriesFromIndexCursor(final OIndexCursor cursor, final OIndexDefinition indexDefinition) {
+    if (fetchLimit > 0) {
+      cursor.setPrefetchSize(fetchLimit + skip);
+    } else {
+      cursor.setPrefetchSize(-1);
+    }
+
+    final OImmutableSchema schema = ((OMetadataInternal) getDatabase().getMetadata()).getImmutableSchemaSnapshot();
+
+    Entry<Object, OIdentifiable> entryRecord = cursor.nextEntry();
+    while (entryRecord != null) {
+      if (!checkInterruption()) {
+        return false;
+      }
+
+      final ODocument doc = coveringAnalyzer.createCoveringDocument(indexDefinition, entryRecord.getKey(), entryRecord.getValue(),
+          schema);
+      context.updateMetric("indexOnlyReads", +1);
+      context.setVariable("current", doc);
+
+      if (filter(doc, context)) {
+        applyGroupBy(doc, context);
+
+        if (!handleResult(doc, context)) {
+          // LIMIT REACHED
+          return false;
+        }
+      }
+
+      entryRecord = cursor.nextEntry();
+    }
+
+    return true;
+  }
+
   private boolean isRidOnlySort() {
     if (parsedTarget.getTargetClasses() != null && this.orderedFields.size() == 1 && this.orderedFields.get(0).getKey()
         .toLowerCase().equals("@rid")) {
@@ -2509,6 +2887,24 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
     final long startOrderBy = System.currentTimeMillis();
     try {
+      if (externalSorter != null) {
+        if (tempResult != null) {
+          for (OIdentifiable o : tempResult) {
+            externalSorter.add(o);
+          }
+        }
+
+        // RESULTS SPILLED TO DISK ARE MERGED WHILE THEY ARE FETCHED, SO SKIP IS APPLIED HERE
+        tempResult = externalSorter.sortedResults(skip);
+        skip = 0;
+
+        metricRecorder.recordOrderBySpill(externalSorter);
+        if (clearOrderedFields) {
+          orderedFields.clear();
+        }
+        return;
+      }
+
       if (tempResult instanceof OMultiCollectionIterator) {
         final List<OIdentifiable> list = new ArrayList<OIdentifiable>();
         for (OIdentifiable o : tempResult) {
@@ -2854,12 +3250,21 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
 
         tempResult = new ArrayList<OIdentifiable>();
 
-        for (Entry<Object, ORuntimeResult> g : groupedResult.entrySet()) {
-          if (g.getKey() != null || (groupedResult.size() == 1 && groupByFields == null)) {
-            final ODocument doc = g.getValue().getResult();
-            if (doc != null && !doc.isEmpty()) {
-              ((List<OIdentifiable>) tempResult).add(doc);
-            }
+        collectGroupedResults();
+
+        // GROUPS WHICH DID NOT FIT INTO MEMORY LIMIT ARE AGGREGATED PARTITION BY PARTITION
+        if (groupBySpill != null) {
+          spilledGroups.add(groupBySpill);
+          groupBySpill = null;
+        }
+
+        while (!spilledGroups.isEmpty()) {
+          final OGroupBySpill spill = spilledGroups.removeFirst();
+          try {
+            metricRecorder.recordGroupBySpill(spill);
+            aggregateSpilledGroups(spill, iContext);
+          } finally {
+            spill.close();
           }
         }
 
@@ -2869,6 +3274,54 @@ public class OCommandExecutorSQLSelect extends OCommandExecutorSQLResultsetAbstr
     }
   }
 
+  private void collectGroupedResults() {
+    for (Entry<Object, ORuntimeResult> g : groupedResult.entrySet()) {
+      if (g.getKey() != null || (groupedResult.size() == 1 && groupByFields == null)) {
+        final ODocument doc = g.getValue().getResult();
+        if (doc != null && !doc.isEmpty()) {
+          if (isExternalSortEnabled())
+            getExternalSorter().add(doc);
+          else
+            ((List<OIdentifiable>) tempResult).add(doc);
+        }
+      }
+    }
+  }
+
+  private void aggregateSpilledGroups(final OGroupBySpill spill, final OCommandContext iContext) {
+    groupBySpillLevel = spill.getLevel() + 1;
+
+    for (int i = 0; i < OGroupBySpill.PARTITIONS; i++) {
+      final ORecordSpillFile partition = spill.getPartition(i);
+      if (partition == null)
+        continue;
+
+      groupedResult.clear();
+      groupedMemory = 0;
+
+      try {
+        for (ORecord record = partition.read(); record != null; record = partition.read()) {
+          iContext.setVariable("current", record);
+          applyGroupBy(record, iContext);
+        }
+      } catch (IOException e) {
+        throw OException.wrapException(new OCommandExecutionException("Error during reading of grouped query results"), e);
+      } finally {
+        partition.delete();
+      }
+
+      collectGroupedResults();
+
+      // PARTITION IS STILL TOO BIG, IT IS SPLIT ON THE NEXT LEVEL
+      if (groupBySpill != null) {
+        spilledGroups.add(groupBySpill);
+        groupBySpill = null;
+      }
+    }
+
+    groupedResult.clear();
+  }
+
   public void setProjections(final Map<String, Object> projections) {
     this.projections = projections;
   }
@@ -0,0 +1,255 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.orientechnologies.orient.core.sql;
+
+import com.orientechnologies.orient.core.collate.OCollate;
+import com.orientechnologies.orient.core.collate.ODefaultCollate;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.index.OCompositeCollate;
+import com.orientechnologies.orient.core.index.OCompositeIndexDefinition;
+import com.orientechnologies.orient.core.index.OCompositeKey;
+import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.index.OIndexDefinition;
+import com.orientechnologies.orient.core.index.OPropertyIndexDefinition;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.ODocumentInternal;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilterCondition;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilterItem;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemField;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemParameter;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunctionRuntime;
+import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionAverage;
+import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionMax;
+import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionMin;
+import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionSum;
+import com.orientechnologies.orient.core.sql.functions.misc.OSQLFunctionCount;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperator;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorAnd;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorBetween;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorEquals;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorIn;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorIs;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorLike;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMajor;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMajorEquals;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMinor;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMinorEquals;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorNot;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorNotEquals;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorNotEquals2;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorOr;
+import com.orientechnologies.orient.core.sql.query.OSQLQuery;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks if a query can be answered by the keys of an index only, without loading the records (index-only scan), and builds the
+ * documents which replace the records in that case. An index covers a query when the filter left after the index lookup and the
+ * projections only read fields which are part of the index key. The same analysis, without the restriction to the index fields,
+ * tells if a query only reads the fields of the records it browses.
+ */
+public class OCoveringIndexAnalyzer {
+
+  /**
+   * Returns true if the keys of the index contain all the fields read by the condition, the projections and the grouping and
+   * sorting of the query.
+   *
+   * @param index       Index used to fetch the records
+   * @param condition   Condition to evaluate on every entry, can be null
+   * @param projections Projections of the query, null means the whole record is returned so no index covers the query
+   * @param otherFields Fields of the GROUP BY and ORDER BY of the query, can be null
+   */
+  boolean isCovering(final OIndex<?> index, final OSQLFilterCondition condition, final Map<String, Object> projections,
+      final Collection<String> otherFields) {
+    if (projections == null || projections.isEmpty() || !canCover(index))
+      return false;
+
+    final List<String> fields = index.getDefinition().getFields();
+
+    if (otherFields != null && !fields.containsAll(otherFields))
+      return false;
+
+    for (Object projection : projections.values())
+      if (!isCoveredProjection(projection, fields))
+        return false;
+
+    return condition == null || isCoveredCondition(condition, fields);
+  }
+
+  /**
+   * Returns true if the condition and the projections only read fields of the current record, so the result of a query on a class
+   * can only change when a record of the class changes. Projections can be null.
+   */
+  boolean readsOnlyRecordFields(final OSQLFilterCondition condition, final Map<String, Object> projections) {
+    if (projections != null)
+      for (Object projection : projections.values())
+        if (!isCoveredProjection(projection, null))
+          return false;
+
+    return condition == null || isCoveredCondition(condition, null);
+  }
+
+  /**
+   * Returns true if the keys of the index are the values of its fields as stored in the records. Indexes on collections, with a
+   * collate or not backed by a key/value index engine, do not keep the original field values.
+   */
+  boolean canCover(final OIndex<?> index) {
+    if (index instanceof OChainedIndexProxy || index.getInternal() instanceof OChainedIndexProxy)
+      return false;
+
+    final String type = index.getType();
+    if (!OClass.INDEX_TYPE.UNIQUE.name().equals(type) && !OClass.INDEX_TYPE.NOTUNIQUE.name().equals(type)
+        && !OClass.INDEX_TYPE.UNIQUE_HASH_INDEX.name().equals(type) && !OClass.INDEX_TYPE.NOTUNIQUE_HASH_INDEX.name().equals(type))
+      return false;
+
+    final OIndexDefinition definition = index.getDefinition();
+    if (definition == null || !definition.isAutomatic())
+      return false;
+
+    if (definition instanceof OCompositeIndexDefinition)
+      return ((OCompositeIndexDefinition) definition).getMultiValueDefinition() == null && isDefaultCollate(definition.getCollate());
+
+    return definition.getClass().equals(OPropertyIndexDefinition.class) && isDefaultCollate(definition.getCollate());
+  }
+
+  /**
+   * Creates the document that replaces the record of an index entry: it contains the fields of the index key, the identity and the
+   * class of the record.
+   */
+  ODocument createCoveringDocument(final OIndexDefinition definition, final Object key, final OIdentifiable value,
+      final OSchema schema) {
+    final ODocument document = new ODocument();
+    final List<String> fields = definition.getFields();
+
+    if (key instanceof OCompositeKey) {
+      final List<Object> keys = ((OCompositeKey) key).getKeys();
+      for (int i = 0; i < fields.size(); i++)
+        document.field(fields.get(i), i < keys.size() ? keys.get(i) : null);
+    } else
+      document.field(fields.get(0), key);
+
+    ORecordInternal.setIdentity(document, value.getIdentity().getClusterId(), value.getIdentity().getClusterPosition());
+
+    final OClass cls = schema.getClassByClusterId(value.getIdentity().getClusterId());
+    if (cls != null)
+      ODocumentInternal.fillClassNameIfNeeded(document, cls.getName());
+
+    ORecordInternal.unsetDirty(document);
+    return document;
+  }
+
+  private boolean isCoveredProjection(final Object projection, final List<String> fields) {
+    if (projection instanceof OSQLFilterItemField) {
+      final OSQLFilterItemField field = (OSQLFilterItemField) projection;
+      if ("@rid".equalsIgnoreCase(field.getRoot()) && !field.hasChainOperators())
+        return true;
+
+      return isCoveredField(field, fields);
+    }
+
+    if (projection instanceof OSQLFunctionRuntime) {
+      final OSQLFunctionRuntime runtime = (OSQLFunctionRuntime) projection;
+      final OSQLFunction function = runtime.getFunction();
+      if (!(function instanceof OSQLFunctionCount || function instanceof OSQLFunctionMin || function instanceof OSQLFunctionMax
+          || function instanceof OSQLFunctionSum || function instanceof OSQLFunctionAverage))
+        return false;
+
+      for (Object parameter : runtime.configuredParameters) {
+        if (function instanceof OSQLFunctionCount && "*".equals(parameter))
+          continue;
+
+        if (parameter instanceof OSQLFilterItem || parameter instanceof OSQLFunctionRuntime) {
+          if (!isCoveredProjection(parameter, fields))
+            return false;
+        } else if (!isConstant(parameter))
+          return false;
+      }
+      return true;
+    }
+
+    return false;
+  }
+
+  private boolean isCoveredCondition(final OSQLFilterCondition condition, final List<String> fields) {
+    final OQueryOperator operator = condition.getOperator();
+    if (operator != null && !isCoveredOperator(operator))
+      return false;
+
+    return isCoveredOperand(condition.getLeft(), fields) && isCoveredOperand(condition.getRight(), fields);
+  }
+
+  private boolean isCoveredOperand(final Object operand, final List<String> fields) {
+    if (operand instanceof OSQLFilterCondition)
+      return isCoveredCondition((OSQLFilterCondition) operand, fields);
+
+    if (operand instanceof OSQLFilterItemField)
+      return isCoveredField((OSQLFilterItemField) operand, fields);
+
+    if (operand instanceof OSQLFilterItemParameter)
+      return true;
+
+    if (operand instanceof Collection<?>) {
+      for (Object item : (Collection<?>) operand)
+        if (!isConstant(item) && !(item instanceof OSQLFilterItemParameter))
+          return false;
+      return true;
+    }
+
+    return isConstant(operand);
+  }
+
+  private static boolean isCoveredOperator(final OQueryOperator operator) {
+    return operator instanceof OQueryOperatorAnd || operator instanceof OQueryOperatorOr || operator instanceof OQueryOperatorNot
+        || operator instanceof OQueryOperatorEquals || operator instanceof OQueryOperatorNotEquals
+        || operator instanceof OQueryOperatorNotEquals2 || operator instanceof OQueryOperatorMinor
+        || operator instanceof OQueryOperatorMinorEquals || operator instanceof OQueryOperatorMajor
+        || operator instanceof OQueryOperatorMajorEquals || operator instanceof OQueryOperatorBetween
+        || operator instanceof OQueryOperatorIn || operator instanceof OQueryOperatorLike || operator instanceof OQueryOperatorIs;
+  }
+
+  private static boolean isCoveredField(final OSQLFilterItemField field, final List<String> fields) {
+    return field.isPlainField() && (fields == null || fields.contains(field.getRoot()));
+  }
+
+  private static boolean isConstant(final Object value) {
+    return !(value instanceof OSQLFilterItem || value instanceof OSQLFunctionRuntime || value instanceof OSQLQuery<?>
+        || value instanceof OSQLFilterCondition || value instanceof OIdentifiable || value instanceof Collection<?>
+        || value instanceof Map<?, ?>);
+  }
+
+  private static boolean isDefaultCollate(final OCollate collate) {
+    if (collate instanceof OCompositeCollate) {
+      for (OCollate item : ((OCompositeCollate) collate).getCollates())
+        if (!isDefaultCollate(item))
+          return false;
+      return true;
+    }
+
+    return collate == null || collate instanceof ODefaultCollate;
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql;
+
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.record.ORecord;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * External merge sort of query results. Results are gathered in memory till their estimated size reaches memory limit of query,
+ * then they are sorted and spilled to temporary file as a sorted run. Runs are merged when sorted results are iterated. Sort is
+ * stable, results which are equal by comparator are returned in the order in which they were added.
+ *
+ * @see OGlobalConfiguration#QUERY_MEMORY_LIMIT
+ */
+public class OExternalResultSorter {
+  private final Comparator<OIdentifiable> comparator;
+  private final long                      memoryLimit;
+
+  private final List<ORecordSpillFile> runs = new ArrayList<ORecordSpillFile>();
+  private List<OIdentifiable> results = new ArrayList<OIdentifiable>();
+  private long memory;
+  private long spilledRecords;
+
+  /**
+   * @param comparator  Comparator which defines order of results.
+   * @param memoryLimit Maximum amount of memory in bytes which may be occupied by results kept in memory.
+   */
+  public OExternalResultSorter(Comparator<OIdentifiable> comparator, long memoryLimit) {
+    this.comparator = comparator;
+    this.memoryLimit = memoryLimit;
+  }
+
+  public void add(OIdentifiable result) {
+    final ORecord record = result.getRecord();
+    if (record == null)
+      return;
+
+    results.add(record);
+    memory += ORecordSpillFile.estimateSize(record);
+
+    if (memory > memoryLimit)
+      spillRun();
+  }
+
+  /**
+   * Returns sorted results. If all results fit into memory they are returned as sorted list, otherwise runs are merged lazily
+   * during iteration. Can be called only once, merged results can be iterated only once.
+   *
+   * @param skip Amount of first results which are skipped.
+   */
+  public Iterable<OIdentifiable> sortedResults(final int skip) {
+    Collections.sort(results, comparator);
+
+    if (runs.isEmpty()) {
+      final List<OIdentifiable> sorted = results;
+      results = new ArrayList<OIdentifiable>();
+
+      if (skip <= 0)
+        return sorted;
+
+      return new ArrayList<OIdentifiable>(sorted.subList(Math.min(skip, sorted.size()), sorted.size()));
+    }
+
+    final List<RunCursor> cursors = new ArrayList<RunCursor>(runs.size() + 1);
+    for (ORecordSpillFile run : runs)
+      cursors.add(new FileRunCursor(cursors.size(), run));
+
+    cursors.add(new MemoryRunCursor(cursors.size(), results));
+    results = new ArrayList<OIdentifiable>();
+    memory = 0;
+
+    return new Iterable<OIdentifiable>() {
+      @Override
+      public Iterator<OIdentifiable> iterator() {
+        final PriorityQueue<RunCursor> queue = new PriorityQueue<RunCursor>(cursors.size(), new Comparator<RunCursor>() {
+          @Override
+          public int compare(RunCursor cursorOne, RunCursor cursorTwo) {
+            final int result = comparator.compare(cursorOne.current, cursorTwo.current);
+            if (result != 0)
+              return result;
+
+            return cursorOne.index < cursorTwo.index ? -1 : (cursorOne.index == cursorTwo.index ? 0 : 1);
+          }
+        });
+
+        for (RunCursor cursor : cursors) {
+          if (cursor.advance())
+            queue.add(cursor);
+        }
+
+        final Iterator<OIdentifiable> iterator = new Iterator<OIdentifiable>() {
+          @Override
+          public boolean hasNext() {
+            return !queue.isEmpty();
+          }
+
+          @Override
+          public OIdentifiable next() {
+            if (queue.isEmpty())
+              throw new NoSuchElementException();
+
+            final RunCursor cursor = queue.poll();
+            final OIdentifiable result = cursor.current;
+
+            if (cursor.advance())
+              queue.add(cursor);
+
+            return result;
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+        };
+
+        for (int i = 0; i < skip && iterator.hasNext(); i++)
+          iterator.next();
+
+        return iterator;
+      }
+    };
+  }
+
+  /**
+   * @return Amount of sorted runs spilled to temporary files.
+   */
+  public int getSpilledRuns() {
+    return runs.size();
+  }
+
+  public long getSpilledRecords() {
+    return spilledRecords;
+  }
+
+  /**
+   * Removes all temporary files.
+   */
+  public void close() {
+    for (ORecordSpillFile run : runs)
+      run.delete();
+
+    runs.clear();
+    results.clear();
+    memory = 0;
+  }
+
+  private void spillRun() {
+    Collections.sort(results, comparator);
+
+    try {
+      final ORecordSpillFile run = new ORecordSpillFile("orientdb.sort");
+      runs.add(run);
+
+      for (OIdentifiable result : results)
+        run.write((ORecord) result);
+
+      spilledRecords += run.getRecords();
+    } catch (IOException e) {
+      throw OException.wrapException(new OCommandExecutionException("Error during spilling of sorted query results"), e);
+    }
+
+    results.clear();
+    memory = 0;
+  }
+
+  private static abstract class RunCursor {
+    private final int           index;
+    protected     OIdentifiable current;
+
+    RunCursor(int index) {
+      this.index = index;
+    }
+
+    abstract boolean advance();
+  }
+
+  private static final class MemoryRunCursor extends RunCursor {
+    private final Iterator<OIdentifiable> iterator;
+
+    MemoryRunCursor(int index, List<OIdentifiable> results) {
+      super(index);
+      this.iterator = results.iterator();
+    }
+
+    @Override
+    boolean advance() {
+      current = iterator.hasNext() ? iterator.next() : null;
+      return current != null;
+    }
+  }
+
+  private static final class FileRunCursor extends RunCursor {
+    private final ORecordSpillFile run;
+
+    FileRunCursor(int index, ORecordSpillFile run) {
+      super(index);
+      this.run = run;
+    }
+
+    @Override
+    boolean advance() {
+      try {
+        current = run.read();
+      } catch (IOException e) {
+        throw OException.wrapException(new OCommandExecutionException("Error during reading of sorted query results"), e);
+      }
+
+      return current != null;
+    }
+  }
+}
@@ -21,11 +21,17 @@
 package com.orientechnologies.orient.core.sql;
 
 import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.common.collection.OMultiValue;
+import com.orientechnologies.orient.core.index.OCompositeKey;
 import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.index.OIndexDefinition;
+import com.orientechnologies.orient.core.index.OIndexStatistics;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterCondition;
+import com.orientechnologies.orient.core.sql.filter.OSQLFilterItem;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemField;
 import com.orientechnologies.orient.core.sql.operator.*;
+import com.orientechnologies.orient.core.sql.query.OSQLQuery;
 
 import java.util.*;
 
@@ -33,6 +39,7 @@ import java.util.*;
  * @author Artem Orobets (enisher-at-gmail.com)
  */
 public class OFilterAnalyzer {
+  private static final Object UNKNOWN = new Object();
 
   public List<OIndex<?>> getInvolvedIndexes(OClass iSchemaClass, OIndexSearchResult searchResultFields) {
     final Set<OIndex<?>> involvedIndexes = iSchemaClass.getInvolvedIndexes(searchResultFields.fields());
@@ -86,7 +93,8 @@ public class OFilterAnalyzer {
 
   /**
    * Analyzes a query filter for a possible indexation options. The results are sorted by amount of fields. So the most specific
-   * items go first.
+   * items go first. If statistics are collected for indexes of all items, the results are sorted by estimated amount of fetched
+   * index entries instead.
    *
    * @param condition   to analyze
    * @param schemaClass the class that is scanned by query
@@ -108,9 +116,134 @@ public class OFilterAnalyzer {
       }
     });
 
+    sortBySelectivity(schemaClass, indexSearchResults, context);
+
     return indexSearchResults;
   }
 
+  private void sortBySelectivity(OClass schemaClass, List<OIndexSearchResult> indexSearchResults, OCommandContext context) {
+    if (indexSearchResults.size() < 2)
+      return;
+
+    final Map<OIndexSearchResult, Long> estimations = new IdentityHashMap<OIndexSearchResult, Long>(indexSearchResults.size());
+    for (OIndexSearchResult searchResult : indexSearchResults) {
+      final long estimation = estimate(schemaClass, searchResult, context);
+      if (estimation < 0)
+        return;
+
+      estimations.put(searchResult, estimation);
+    }
+
+    Collections.sort(indexSearchResults, new Comparator<OIndexSearchResult>() {
+      public int compare(final OIndexSearchResult searchResultOne, final OIndexSearchResult searchResultTwo) {
+        final long estimationOne = estimations.get(searchResultOne);
+        final long estimationTwo = estimations.get(searchResultTwo);
+        return estimationOne < estimationTwo ? -1 : (estimationOne == estimationTwo ? 0 : 1);
+      }
+    });
+  }
+
+  /**
+   * @return Minimum amount of index entries which are estimated to be fetched by any index that can be used by passed in item or
+   * <code>-1</code> if there are no statistics to estimate it.
+   */
+  private long estimate(OClass schemaClass, OIndexSearchResult searchResult, OCommandContext context) {
+    if (searchResult.lastField.isLong())
+      return -1;
+
+    long result = -1;
+    for (OIndex<?> index : schemaClass.getInvolvedIndexes(searchResult.fields())) {
+      final OIndexStatistics statistics = OIndexStatistics.of(index);
+      if (statistics == null)
+        continue;
+
+      final long estimation = estimate(index.getDefinition(), statistics, searchResult, context);
+      if (estimation >= 0 && (result < 0 || estimation < result))
+        result = estimation;
+    }
+
+    return result;
+  }
+
+  private long estimate(OIndexDefinition definition, OIndexStatistics statistics, OIndexSearchResult searchResult,
+      OCommandContext context) {
+    final List<String> fields = definition.getFields();
+    final String lastField = searchResult.lastField.getItemName(0);
+
+    if (OIndexSearchResult.isIndexEqualityOperator(searchResult.lastOperator) && searchResult.getFieldCount() == fields.size()
+        && fields.size() > 1) {
+      final OCompositeKey key = new OCompositeKey();
+      for (String field : fields) {
+        final Object value = resolve(field.equals(lastField) ? searchResult.lastValue : searchResult.fieldValuePairs.get(field),
+            context);
+        if (value == UNKNOWN)
+          return -1;
+
+        key.addKey(value);
+      }
+
+      return statistics.estimateEquals(key);
+    }
+
+    final String firstField = fields.get(0);
+    if (searchResult.fieldValuePairs.containsKey(firstField)) {
+      final Object value = resolve(searchResult.fieldValuePairs.get(firstField), context);
+      return value != UNKNOWN ? statistics.estimateEquals(value) : -1;
+    }
+
+    if (!lastField.equals(firstField))
+      return -1;
+
+    final OQueryOperator operator = searchResult.lastOperator;
+    if (operator instanceof OQueryOperatorBetween) {
+      if (!(searchResult.lastValue instanceof Object[]))
+        return -1;
+
+      final Object[] values = (Object[]) searchResult.lastValue;
+      final Object from = resolve(values[0], context);
+      final Object to = resolve(values[2], context);
+      return from != UNKNOWN && to != UNKNOWN ? statistics.estimateRange(from, to) : -1;
+    }
+
+    final Object value = resolve(searchResult.lastValue, context);
+    if (value == UNKNOWN)
+      return -1;
+
+    if (operator instanceof OQueryOperatorEquals)
+      return statistics.estimateEquals(value);
+
+    if (operator instanceof OQueryOperatorMajor || operator instanceof OQueryOperatorMajorEquals)
+      return statistics.estimateRange(value, null);
+
+    if (operator instanceof OQueryOperatorMinor || operator instanceof OQueryOperatorMinorEquals)
+      return statistics.estimateRange(null, value);
+
+    if (operator instanceof OQueryOperatorIn && OMultiValue.isMultiValue(value)) {
+      long estimation = 0;
+      for (Object item : OMultiValue.getMultiValueIterable(value, false)) {
+        final Object itemValue = resolve(item, context);
+        if (itemValue == UNKNOWN)
+          return -1;
+
+        estimation += statistics.estimateEquals(itemValue);
+      }
+
+      return Math.min(estimation, statistics.getEntries());
+    }
+
+    return -1;
+  }
+
+  private static Object resolve(Object value, OCommandContext context) {
+    if (value instanceof OSQLQuery<?> || value instanceof OSQLFilterCondition)
+      return UNKNOWN;
+
+    if (value instanceof OSQLFilterItem)
+      value = ((OSQLFilterItem) value).getValue(null, null, context);
+
+    return value != null ? value : UNKNOWN;
+  }
+
   private OIndexSearchResult analyzeFilterBranch(final OClass iSchemaClass, OSQLFilterCondition condition,
       final List<OIndexSearchResult> iIndexSearchResults, OCommandContext iContext) {
     if (condition == null) {
@@ -0,0 +1,114 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql;
+
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.record.ORecord;
+
+import java.io.IOException;
+
+/**
+ * Records of GROUP BY which groups do not fit into the memory limit of query. Records are partitioned by hash of group key, so all
+ * records of the same group are stored in the same partition and each partition can be aggregated in memory independently.
+ * Partitions which are still too big are partitioned again on the next level using different hash function.
+ *
+ * @see OGlobalConfiguration#QUERY_MEMORY_LIMIT
+ */
+public class OGroupBySpill {
+  public static final int PARTITIONS = 16;
+
+  private final int                level;
+  private final ORecordSpillFile[] partitions = new ORecordSpillFile[PARTITIONS];
+  private long records;
+
+  /**
+   * @param level Level of partitioning, partitions of the same level share hash function.
+   */
+  public OGroupBySpill(int level) {
+    this.level = level;
+  }
+
+  public int getLevel() {
+    return level;
+  }
+
+  public void add(Object groupKey, ORecord record) {
+    final int partition = partition(groupKey);
+
+    try {
+      if (partitions[partition] == null)
+        partitions[partition] = new ORecordSpillFile("orientdb.groupby");
+
+      partitions[partition].write(record);
+    } catch (IOException e) {
+      throw OException.wrapException(new OCommandExecutionException("Error during spilling of grouped query results"), e);
+    }
+
+    records++;
+  }
+
+  /**
+   * @return Records of the partition in the order in which they were added or <code>null</code> if partition is empty.
+   */
+  public ORecordSpillFile getPartition(int partition) {
+    return partitions[partition];
+  }
+
+  public int getUsedPartitions() {
+    int used = 0;
+    for (ORecordSpillFile partition : partitions) {
+      if (partition != null)
+        used++;
+    }
+
+    return used;
+  }
+
+  public long getRecords() {
+    return records;
+  }
+
+  /**
+   * Removes all temporary files.
+   */
+  public void close() {
+    for (int i = 0; i < partitions.length; i++) {
+      if (partitions[i] != null) {
+        partitions[i].delete();
+        partitions[i] = null;
+      }
+    }
+  }
+
+  private int partition(Object groupKey) {
+    // finalizer of murmur3 hash, seeded by level
+    int hash = groupKey.hashCode() ^ (level * 0x9e3779b9);
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+
+    return (hash & 0x7fffffff) % PARTITIONS;
+  }
+}
@@ -61,6 +61,33 @@ public class OMetricRecorder {
     return context.setVariable("orderByElapsed", (System.currentTimeMillis() - startOrderBy));
   }
 
+  public void recordIndexOnlyScan() {
+    if (context.isRecordingMetrics())
+      context.setVariable("indexOnlyScan", true);
+  }
+
+  public void recordMemoryLimit(long memoryLimit) {
+    if (context.isRecordingMetrics())
+      context.setVariable("memoryLimit", memoryLimit);
+  }
+
+  public void recordOrderBySpill(OExternalResultSorter sorter) {
+    if (context.isRecordingMetrics() && sorter.getSpilledRuns() > 0) {
+      context.setVariable("orderBySpilledRuns", sorter.getSpilledRuns());
+      context.setVariable("orderBySpilledRecords", sorter.getSpilledRecords());
+    }
+  }
+
+  public void recordGroupBySpill(OGroupBySpill spill) {
+    if (context.isRecordingMetrics()) {
+      Integer partitions = (Integer) context.getVariable("groupBySpilledPartitions");
+      Long records = (Long) context.getVariable("groupBySpilledRecords");
+
+      context.setVariable("groupBySpilledPartitions", (partitions != null ? partitions : 0) + spill.getUsedPartitions());
+      context.setVariable("groupBySpilledRecords", (records != null ? records : 0) + spill.getRecords());
+    }
+  }
+
   public void recordRangeQueryConvertedInBetween() {
     if (context.isRecordingMetrics()) {
       Integer counter = (Integer) context.getVariable("rangeQueryConvertedInBetween");
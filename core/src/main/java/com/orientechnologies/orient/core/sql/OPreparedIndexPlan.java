@@ -0,0 +1,102 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql;
+
+import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.index.OIndexDefinition;
+import com.orientechnologies.orient.core.index.OIndexManager;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Indexes chosen by an execution of a prepared SELECT, one for every sub-condition separated by OR. The next executions with the
+ * same signature of parameters use them directly instead of looking for all the involved indexes and sorting them. As for the
+ * generic plans of other databases, the indexes are chosen once for all the values of the parameters.
+ *
+ * @see OSQLPreparedStatement
+ */
+final class OPreparedIndexPlan {
+  private final int      schemaVersion;
+  private final int      indexManagerVersion;
+  private final String[] indexes;
+
+  OPreparedIndexPlan(final int schemaVersion, final int indexManagerVersion, final String[] indexes) {
+    this.schemaVersion = schemaVersion;
+    this.indexManagerVersion = indexManagerVersion;
+    this.indexes = indexes;
+  }
+
+  /**
+   * @return false if the schema or the indexes changed since the plan was chosen, in that case a better index could exist
+   */
+  boolean isValid(final int schemaVersion, final int indexManagerVersion) {
+    return this.schemaVersion == schemaVersion && this.indexManagerVersion == indexManagerVersion;
+  }
+
+  /**
+   * Finds the indexes of the plan and, for every OR branch, the first search result which can be executed against them.
+   *
+   * @param positions
+   *          Filled with the position of the search result to use in every branch
+   * @return the index of every branch or <code>null</code> if the plan cannot be used for the condition, for example because an
+   *         index was dropped
+   */
+  OIndex<?>[] resolve(final List<List<OIndexSearchResult>> conditionHierarchy, final OClass iSchemaClass,
+      final OIndexManager indexManager, final int[] positions) {
+    if (conditionHierarchy.size() != indexes.length)
+      return null;
+
+    final OIndex<?>[] result = new OIndex<?>[indexes.length];
+    for (int branch = 0; branch < indexes.length; branch++) {
+      final OIndex<?> index = indexManager.getIndex(indexes[branch]);
+      if (index == null || index.isRebuilding())
+        return null;
+
+      final OIndexDefinition definition = index.getDefinition();
+      if (definition == null || definition.getClassName() == null || !iSchemaClass.isSubClassOf(definition.getClassName()))
+        return null;
+
+      positions[branch] = -1;
+      final List<OIndexSearchResult> searchResults = conditionHierarchy.get(branch);
+      for (int i = 0; i < searchResults.size() && positions[branch] < 0; i++) {
+        final OIndexSearchResult searchResult = searchResults.get(i);
+        final List<String> fields = searchResult.fields();
+
+        if (!searchResult.lastField.isLong() && definition.getFields().size() >= fields.size()
+            && definition.getFields().subList(0, fields.size()).containsAll(fields))
+          positions[branch] = i;
+      }
+
+      if (positions[branch] < 0)
+        return null;
+
+      result[branch] = index;
+    }
+
+    return result;
+  }
+
+  boolean isSameAs(final String[] indexes) {
+    return Arrays.equals(this.indexes, indexes);
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+
+import java.io.*;
+
+/**
+ * Temporary file which keeps records that do not fit into the memory limit of a query. Records are appended in serialized form
+ * together with their identity and version, and are read back in the same order once writing is finished. Records which are read
+ * back are not bound to the records loaded by the database, so they have to be used by query as read only results.
+ *
+ * @see OGlobalConfiguration#QUERY_MEMORY_LIMIT
+ */
+public class ORecordSpillFile {
+  /**
+   * Approximate amount of memory occupied by record in addition to its content.
+   */
+  private static final int RECORD_OVERHEAD = 128;
+
+  private final File file;
+
+  private DataOutputStream out;
+  private DataInputStream  in;
+  private long             records;
+  private long             remaining;
+
+  public ORecordSpillFile(String prefix) throws IOException {
+    file = File.createTempFile(prefix + ".", ".spill");
+    out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+  }
+
+  /**
+   * @return Approximate amount of memory occupied by record. Both serialized and unmarshalled content of record are taken into
+   * account because record may keep both of them.
+   */
+  public static long estimateSize(ORecord record) {
+    final byte[] content = record.toStream();
+    return RECORD_OVERHEAD + (content != null ? 2L * content.length : 0);
+  }
+
+  public void write(ORecord record) throws IOException {
+    if (out == null)
+      throw new IllegalStateException("Records of file " + file + " are already read");
+
+    final byte[] content = record.toStream();
+    final ORID rid = record.getIdentity();
+
+    out.writeByte(ORecordInternal.getRecordType(record));
+    out.writeInt(rid.getClusterId());
+    out.writeLong(rid.getClusterPosition());
+    out.writeInt(record.getVersion());
+    out.writeInt(content.length);
+    out.write(content);
+
+    records++;
+  }
+
+  /**
+   * Finishes writing on the first call.
+   *
+   * @return Next record in the order in which records were written or <code>null</code> if all records are read.
+   */
+  public ORecord read() throws IOException {
+    if (out != null) {
+      out.close();
+      out = null;
+
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+      remaining = records;
+    }
+
+    if (remaining == 0)
+      return null;
+
+    final byte recordType = in.readByte();
+    final int clusterId = in.readInt();
+    final long clusterPosition = in.readLong();
+    final int version = in.readInt();
+    final byte[] content = new byte[in.readInt()];
+    in.readFully(content);
+
+    remaining--;
+
+    final ORecord record = Orient.instance().getRecordFactoryManager().newInstance(recordType);
+    ORecordInternal.fill(record, new ORecordId(clusterId, clusterPosition), version, content, false);
+    return record;
+  }
+
+  public long getRecords() {
+    return records;
+  }
+
+  /**
+   * Closes and removes file.
+   */
+  public void delete() {
+    try {
+      if (out != null)
+        out.close();
+      if (in != null)
+        in.close();
+    } catch (IOException e) {
+      OLogManager.instance().error(this, "Error during closing of temporary file %s", e, file);
+    }
+
+    out = null;
+    in = null;
+    remaining = 0;
+
+    if (file.exists() && !file.delete())
+      OLogManager.instance().warn(this, "Cannot delete temporary file %s", file);
+  }
+}
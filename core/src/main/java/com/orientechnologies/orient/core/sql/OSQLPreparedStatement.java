@@ -0,0 +1,150 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SQL statement prepared once and executed many times with different parameters, through
+ * {@link com.orientechnologies.orient.core.sql.query.OSQLPreparedQuery}. Besides the text it keeps the indexes chosen by its
+ * SELECT executions, one plan for every signature of the parameters, that is the names and the types of their values: executions
+ * with the same signature only bind the parameters and use the indexes of the plan. Plans are created again when the schema
+ * changes or when their indexes cannot be used anymore. Instances are thread safe.
+ */
+public class OSQLPreparedStatement {
+  private static final AtomicInteger serial    = new AtomicInteger();
+  private static final int           MAX_PLANS = 16;
+
+  private final int                             id;
+  private final String                          text;
+  private final Map<String, OPreparedIndexPlan> plans;
+  private final AtomicLong                      planHits = new AtomicLong();
+
+  public OSQLPreparedStatement(final String text) {
+    this.id = serial.incrementAndGet();
+    this.text = text;
+    this.plans = new LinkedHashMap<String, OPreparedIndexPlan>(MAX_PLANS, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, OPreparedIndexPlan> eldest) {
+        return size() > MAX_PLANS;
+      }
+    };
+  }
+
+  /**
+   * @return the identifier of the statement, unique in the JVM, used as handle by the clients
+   */
+  public int getId() {
+    return id;
+  }
+
+  public String getText() {
+    return text;
+  }
+
+  /**
+   * @return the number of plans currently cached, one for every signature of parameters
+   */
+  public int getPlanCount() {
+    synchronized (plans) {
+      return plans.size();
+    }
+  }
+
+  /**
+   * @return how many times the indexes of a cached plan were used instead of searching them again
+   */
+  public long getPlanHits() {
+    return planHits.get();
+  }
+
+  public void clearPlans() {
+    synchronized (plans) {
+      plans.clear();
+    }
+  }
+
+  /**
+   * Builds the signature of the parameters of an execution: their names followed by the classes of their values.
+   */
+  public static String getSignature(final Map<Object, Object> parameters) {
+    if (parameters == null || parameters.isEmpty())
+      return "";
+
+    final List<Map.Entry<Object, Object>> entries = new ArrayList<Map.Entry<Object, Object>>(parameters.entrySet());
+    if (entries.size() > 1)
+      Collections.sort(entries, new Comparator<Map.Entry<Object, Object>>() {
+        @Override
+        public int compare(final Map.Entry<Object, Object> o1, final Map.Entry<Object, Object> o2) {
+          return String.valueOf(o1.getKey()).compareTo(String.valueOf(o2.getKey()));
+        }
+      });
+
+    final StringBuilder signature = new StringBuilder();
+    for (Map.Entry<Object, Object> entry : entries) {
+      signature.append(entry.getKey()).append(':');
+      signature.append(entry.getValue() != null ? entry.getValue().getClass().getName() : "null").append(',');
+    }
+    return signature.toString();
+  }
+
+  OPreparedIndexPlan getPlan(final String signature, final int schemaVersion, final int indexManagerVersion) {
+    synchronized (plans) {
+      final OPreparedIndexPlan plan = plans.get(signature);
+      if (plan == null)
+        return null;
+
+      if (!plan.isValid(schemaVersion, indexManagerVersion)) {
+        plans.remove(signature);
+        return null;
+      }
+      return plan;
+    }
+  }
+
+  void putPlan(final String signature, final OPreparedIndexPlan plan) {
+    synchronized (plans) {
+      plans.put(signature, plan);
+    }
+  }
+
+  void removePlan(final String signature) {
+    synchronized (plans) {
+      plans.remove(signature);
+    }
+  }
+
+  void recordPlanHit() {
+    planHits.incrementAndGet();
+  }
+
+  @Override
+  public String toString() {
+    return text;
+  }
+}
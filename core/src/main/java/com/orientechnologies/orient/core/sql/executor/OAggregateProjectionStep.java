@@ -0,0 +1,175 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
+import com.orientechnologies.orient.core.sql.parser.OExpression;
+import com.orientechnologies.orient.core.sql.parser.OFunctionCall;
+import com.orientechnologies.orient.core.sql.parser.OGroupBy;
+import com.orientechnologies.orient.core.sql.parser.OProjection;
+import com.orientechnologies.orient.core.sql.parser.OProjectionItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calculates projections which contain aggregate functions, optionally grouping results by GROUP BY. This step is blocking, all
+ * results of the previous step are consumed on the first pull. Projections without aggregate function are calculated on the first
+ * record of each group.
+ */
+public class OAggregateProjectionStep extends OExecutionStepAbstract {
+  private final OProjection projection;
+  private final OGroupBy    groupBy;
+
+  private Iterator<ODocument> results;
+
+  public OAggregateProjectionStep(OProjection projection, OGroupBy groupBy) {
+    this.projection = projection;
+    this.groupBy = groupBy;
+  }
+
+  @Override
+  protected List<OIdentifiable> internalSyncPull(OCommandContext ctx, int nRecords) {
+    if (results == null)
+      results = aggregate(ctx);
+
+    if (!results.hasNext())
+      return Collections.emptyList();
+
+    final List<OIdentifiable> result = new ArrayList<OIdentifiable>();
+    while (result.size() < nRecords && results.hasNext())
+      result.add(results.next());
+
+    return result;
+  }
+
+  private Iterator<ODocument> aggregate(OCommandContext ctx) {
+    final List<OProjectionItem> items = projection.getItems();
+    final OFunctionCall[] calls = new OFunctionCall[items.size()];
+    for (int i = 0; i < calls.length; i++) {
+      final OExpression expression = items.get(i).getExpression();
+      calls[i] = expression != null ? expression.getAggregateFunctionCall() : null;
+    }
+
+    final Map<List<Object>, Group> groups = new LinkedHashMap<List<Object>, Group>();
+    while (true) {
+      final List<OIdentifiable> batch = prev.syncPull(ctx, OSelectExecutionPlan.BATCH_SIZE);
+      if (batch.isEmpty())
+        break;
+
+      for (OIdentifiable record : batch) {
+        final List<Object> key = getGroupKey(record, ctx);
+
+        Group group = groups.get(key);
+        ctx.setVariable("$current", record);
+        if (group == null) {
+          group = new Group(items, calls, record, ctx);
+          groups.put(key, group);
+        }
+
+        for (int i = 0; i < calls.length; i++) {
+          if (calls[i] != null)
+            calls[i].aggregate(group.functions[i], record, ctx);
+        }
+      }
+    }
+
+    if (groups.isEmpty() && groupBy == null)
+      // AGGREGATION WITHOUT GROUPS RETURNS ONE RESULT ALSO WHEN THERE ARE NO RECORDS
+      groups.put(Collections.emptyList(), new Group(items, calls, null, ctx));
+
+    final List<ODocument> result = new ArrayList<ODocument>(groups.size());
+    for (Group group : groups.values()) {
+      final ODocument document = new ODocument().setOrdered(true);
+      for (int i = 0; i < calls.length; i++) {
+        final OProjectionItem item = items.get(i);
+        if (calls[i] != null)
+          document.field(OProjectionStep.getAlias(item), group.functions[i].getResult());
+        else if (item.isAll())
+          OProjectionStep.copyFields((OIdentifiable) group.values[i], document);
+        else
+          document.field(OProjectionStep.getAlias(item), group.values[i]);
+      }
+      result.add(document);
+    }
+
+    return result.iterator();
+  }
+
+  private List<Object> getGroupKey(OIdentifiable record, OCommandContext ctx) {
+    if (groupBy == null)
+      return Collections.emptyList();
+
+    final List<Object> key = new ArrayList<Object>(groupBy.getItems().size());
+    for (OExpression item : groupBy.getItems())
+      key.add(item.execute(record, ctx));
+
+    return key;
+  }
+
+  @Override
+  public void close() {
+    results = null;
+    super.close();
+  }
+
+  @Override
+  public String getName() {
+    return "AGGREGATE";
+  }
+
+  @Override
+  protected String getDetails() {
+    return projection.toString() + (groupBy != null ? " " + groupBy.toString() : "");
+  }
+
+  @Override
+  public OExecutionStep copy() {
+    return new OAggregateProjectionStep(projection, groupBy);
+  }
+
+  private static final class Group {
+    private final Object[]       values;
+    private final OSQLFunction[] functions;
+
+    /**
+     * @param first The first record of group, which is used to calculate projections without aggregate function.
+     */
+    private Group(List<OProjectionItem> items, OFunctionCall[] calls, OIdentifiable first, OCommandContext ctx) {
+      this.values = new Object[calls.length];
+      this.functions = new OSQLFunction[calls.length];
+
+      for (int i = 0; i < calls.length; i++) {
+        if (calls[i] != null)
+          functions[i] = calls[i].createAggregateFunction();
+        else if (first != null)
+          values[i] = items.get(i).isAll() ? first : items.get(i).getExpression().execute(first, ctx);
+      }
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.sql.parser.OSelectStatement;
+import com.orientechnologies.orient.core.sql.parser.OStatementCache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * LRU cache of execution plans, keyed by text of statement. It stores itself in the storage as a resource, like
+ * {@link OStatementCache}. Plans do not depend on values of input parameters, but they depend on schema, so plans which were
+ * created for another version of schema are created again. Cached plans are never executed, each execution gets a copy.
+ */
+public class OExecutionPlanCache {
+  private final Map<String, CachedPlan> map;
+  private final int                     mapSize;
+
+  public OExecutionPlanCache(int size) {
+    this.mapSize = size;
+    map = new LinkedHashMap<String, CachedPlan>(size) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, CachedPlan> eldest) {
+        return super.size() > mapSize;
+      }
+    };
+  }
+
+  /**
+   * Returns execution plan of statement, taking it from the cache of the storage if it exists or creating a new one and putting it
+   * into the cache if it does not.
+   *
+   * @param statement SELECT statement.
+   * @param ctx       Context of execution to which returned plan is bound.
+   * @param db        Current database. If <code>null</code> cache is ignored.
+   */
+  public static OSelectExecutionPlan get(OSelectStatement statement, OCommandContext ctx, ODatabaseDocumentInternal db) {
+    if (db == null)
+      return new OSelectExecutionPlanner(statement).createExecutionPlan(ctx);
+
+    final OExecutionPlanCache resource = db.getStorage().getResource(OExecutionPlanCache.class.getSimpleName(),
+        new Callable<OExecutionPlanCache>() {
+          @Override
+          public OExecutionPlanCache call() throws Exception {
+            return new OExecutionPlanCache(OGlobalConfiguration.STATEMENT_CACHE_SIZE.getValueAsInteger());
+          }
+        });
+
+    return resource.get(statement, ctx, db.getMetadata().getSchema().getVersion());
+  }
+
+  public OSelectExecutionPlan get(OSelectStatement statement, OCommandContext ctx, int schemaVersion) {
+    final String text = statement.toString();
+
+    CachedPlan cached;
+    synchronized (map) {
+      // LRU
+      cached = map.remove(text);
+      if (cached != null && cached.schemaVersion == schemaVersion)
+        map.put(text, cached);
+      else
+        cached = null;
+    }
+
+    if (cached == null) {
+      cached = new CachedPlan(new OSelectExecutionPlanner(statement).createExecutionPlan(ctx), schemaVersion);
+      synchronized (map) {
+        map.put(text, cached);
+      }
+    }
+
+    return cached.plan.copy(ctx);
+  }
+
+  public boolean contains(String statement) {
+    synchronized (map) {
+      return map.containsKey(statement);
+    }
+  }
+
+  public void clear() {
+    synchronized (map) {
+      map.clear();
+    }
+  }
+
+  private static final class CachedPlan {
+    private final OSelectExecutionPlan plan;
+    private final int                  schemaVersion;
+
+    private CachedPlan(OSelectExecutionPlan plan, int schemaVersion) {
+      this.plan = plan;
+      this.schemaVersion = schemaVersion;
+    }
+  }
+}
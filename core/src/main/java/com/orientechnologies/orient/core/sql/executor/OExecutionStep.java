@@ -0,0 +1,75 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+
+import java.util.List;
+
+/**
+ * Step of execution plan. Steps are chained, each step pulls results from the previous one on demand, so no step produces more
+ * results than the next step asked for.
+ *
+ * @see OSelectExecutionPlan
+ */
+public interface OExecutionStep {
+
+  /**
+   * @return Name of step displayed in execution plan.
+   */
+  String getName();
+
+  OExecutionStep getPrevious();
+
+  void setPrevious(OExecutionStep previous);
+
+  /**
+   * Returns next batch of results.
+   *
+   * @param ctx      Context of execution.
+   * @param nRecords Maximum amount of results which are returned.
+   * @return Next results, empty list if and only if there are no more results.
+   */
+  List<OIdentifiable> syncPull(OCommandContext ctx, int nRecords);
+
+  /**
+   * Releases resources of this step and of all previous steps.
+   */
+  void close();
+
+  /**
+   * @return Amount of results returned by this step so far.
+   */
+  long getRows();
+
+  /**
+   * @return Time in nanoseconds spent in this step and in all previous steps.
+   */
+  long getCost();
+
+  /**
+   * @return Copy of this step without state of execution and without previous step.
+   */
+  OExecutionStep copy();
+
+  String prettyPrint(int depth, int indent);
+}
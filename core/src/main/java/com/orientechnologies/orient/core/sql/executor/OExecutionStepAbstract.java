@@ -0,0 +1,108 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Base class of execution steps, which gathers statistics of execution.
+ */
+public abstract class OExecutionStepAbstract implements OExecutionStep {
+  protected OExecutionStep prev;
+
+  private long rows;
+  private long cost;
+
+  @Override
+  public OExecutionStep getPrevious() {
+    return prev;
+  }
+
+  @Override
+  public void setPrevious(OExecutionStep previous) {
+    this.prev = previous;
+  }
+
+  @Override
+  public final List<OIdentifiable> syncPull(OCommandContext ctx, int nRecords) {
+    final long begin = System.nanoTime();
+    try {
+      final List<OIdentifiable> result = internalSyncPull(ctx, nRecords);
+      rows += result.size();
+      return result;
+    } finally {
+      cost += System.nanoTime() - begin;
+    }
+  }
+
+  /**
+   * @see #syncPull(OCommandContext, int)
+   */
+  protected abstract List<OIdentifiable> internalSyncPull(OCommandContext ctx, int nRecords);
+
+  @Override
+  public void close() {
+    if (prev != null)
+      prev.close();
+  }
+
+  @Override
+  public long getRows() {
+    return rows;
+  }
+
+  @Override
+  public long getCost() {
+    return cost;
+  }
+
+  @Override
+  public String prettyPrint(int depth, int indent) {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < depth * indent; i++)
+      builder.append(' ');
+
+    builder.append("+ ").append(getName());
+
+    final String details = getDetails();
+    if (details != null)
+      builder.append(' ').append(details);
+
+    builder.append(String.format(Locale.ENGLISH, " (rows: %d, time: %.3fms)", rows, cost / 1000000.0));
+    return builder.toString();
+  }
+
+  /**
+   * @return Details of step displayed in execution plan or <code>null</code>.
+   */
+  protected String getDetails() {
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return prettyPrint(0, 2);
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.iterator.ORecordIteratorClass;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.security.ORole;
+import com.orientechnologies.orient.core.metadata.security.ORule;
+import com.orientechnologies.orient.core.record.ORecord;
+
+import java.util.Iterator;
+
+/**
+ * Scans all records of class and its subclasses.
+ */
+public class OFetchFromClassStep extends OFetchStepAbstract {
+  protected final String className;
+
+  public OFetchFromClassStep(String className) {
+    this.className = className;
+  }
+
+  @Override
+  protected Iterator<? extends OIdentifiable> createIterator(OCommandContext ctx) {
+    return iterateClass(getSchemaClass());
+  }
+
+  protected OClass getSchemaClass() {
+    final OClass oClass = getDatabase().getMetadata().getSchema().getClass(className);
+    if (oClass == null)
+      throw new OCommandExecutionException("Class not found in database schema: " + className);
+
+    return oClass;
+  }
+
+  protected static Iterator<? extends OIdentifiable> iterateClass(OClass oClass) {
+    final ODatabaseDocumentInternal database = getDatabase();
+    database.checkSecurity(ORule.ResourceGeneric.CLASS, ORole.PERMISSION_READ, oClass.getName().toLowerCase());
+
+    return new ORecordIteratorClass<ORecord>(database, database, oClass.getName(), true, false, false);
+  }
+
+  @Override
+  public String getName() {
+    return "FETCH FROM CLASS";
+  }
+
+  @Override
+  protected String getDetails() {
+    return className;
+  }
+
+  @Override
+  public OExecutionStep copy() {
+    return new OFetchFromClassStep(className);
+  }
+}
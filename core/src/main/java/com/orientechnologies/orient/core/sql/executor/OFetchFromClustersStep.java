@@ -0,0 +1,76 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.iterator.ORecordIteratorClusters;
+import com.orientechnologies.orient.core.metadata.security.ORole;
+import com.orientechnologies.orient.core.metadata.security.ORule;
+import com.orientechnologies.orient.core.record.ORecord;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Scans all records of clusters.
+ */
+public class OFetchFromClustersStep extends OFetchStepAbstract {
+  private final List<String> clusterNames;
+
+  public OFetchFromClustersStep(List<String> clusterNames) {
+    this.clusterNames = clusterNames;
+  }
+
+  @Override
+  protected Iterator<? extends OIdentifiable> createIterator(OCommandContext ctx) {
+    final ODatabaseDocumentInternal database = getDatabase();
+
+    final int[] clusterIds = new int[clusterNames.size()];
+    for (int i = 0; i < clusterIds.length; i++) {
+      final String clusterName = clusterNames.get(i);
+      clusterIds[i] = database.getClusterIdByName(clusterName);
+      if (clusterIds[i] < 0)
+        throw new OCommandExecutionException("Cluster '" + clusterName + "' was not found");
+
+      database.checkSecurity(ORule.ResourceGeneric.CLUSTER, ORole.PERMISSION_READ, clusterName.toLowerCase());
+    }
+
+    return new ORecordIteratorClusters<ORecord>(database, database, clusterIds);
+  }
+
+  @Override
+  public String getName() {
+    return "FETCH FROM CLUSTERS";
+  }
+
+  @Override
+  protected String getDetails() {
+    return clusterNames.toString();
+  }
+
+  @Override
+  public OExecutionStep copy() {
+    return new OFetchFromClustersStep(clusterNames);
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.sql.parser.OWhereClause;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Fetches records of class through the indexes which match equality conditions of WHERE clause. Indexes are chosen on the first
+ * pull, if no index can be used anymore, for example because it was dropped after the plan was cached, all records of class are
+ * scanned. Records are not filtered by this step.
+ */
+public class OFetchFromIndexStep extends OFetchFromClassStep {
+  private final OWhereClause whereClause;
+
+  private Boolean indexUsed;
+
+  public OFetchFromIndexStep(String className, OWhereClause whereClause) {
+    super(className);
+    this.whereClause = whereClause;
+  }
+
+  @Override
+  protected Iterator<? extends OIdentifiable> createIterator(OCommandContext ctx) {
+    final OClass oClass = getSchemaClass();
+
+    final Iterable<OIdentifiable> indexResult = whereClause.fetchFromIndexes(oClass, ctx);
+    indexUsed = indexResult != null;
+    if (indexResult == null)
+      return iterateClass(oClass);
+
+    if (whereClause.flatten().size() < 2)
+      return indexResult.iterator();
+
+    // RESULTS OF DIFFERENT OR BRANCHES MAY OVERLAP
+    return new DistinctIterator(indexResult.iterator());
+  }
+
+  @Override
+  public String getName() {
+    return "FETCH FROM INDEX";
+  }
+
+  @Override
+  protected String getDetails() {
+    return className + (Boolean.FALSE.equals(indexUsed) ? " (no index used, class scanned)" : "");
+  }
+
+  @Override
+  public OExecutionStep copy() {
+    return new OFetchFromIndexStep(className, whereClause);
+  }
+
+  private static final class DistinctIterator implements Iterator<OIdentifiable> {
+    private final Iterator<OIdentifiable> iterator;
+    private final Set<ORID>               returned = new HashSet<ORID>();
+    private OIdentifiable next;
+
+    private DistinctIterator(Iterator<OIdentifiable> iterator) {
+      this.iterator = iterator;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && iterator.hasNext()) {
+        final OIdentifiable candidate = iterator.next();
+        if (candidate != null && returned.add(candidate.getIdentity()))
+          next = candidate;
+      }
+
+      return next != null;
+    }
+
+    @Override
+    public OIdentifiable next() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+
+      final OIdentifiable result = next;
+      next = null;
+      return result;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
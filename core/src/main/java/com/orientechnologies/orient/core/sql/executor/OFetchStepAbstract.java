@@ -0,0 +1,79 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.record.ORecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Base class of steps which start execution plan by fetching records from storage. Records are fetched only when they are
+ * pulled by the next step.
+ */
+public abstract class OFetchStepAbstract extends OExecutionStepAbstract {
+  private Iterator<? extends OIdentifiable> iterator;
+
+  @Override
+  protected List<OIdentifiable> internalSyncPull(OCommandContext ctx, int nRecords) {
+    if (iterator == null)
+      iterator = createIterator(ctx);
+
+    if (!iterator.hasNext())
+      return Collections.emptyList();
+
+    final List<OIdentifiable> result = new ArrayList<OIdentifiable>(Math.min(nRecords, 1024));
+    while (result.size() < nRecords && iterator.hasNext()) {
+      final OIdentifiable next = iterator.next();
+      if (next == null)
+        continue;
+
+      final ORecord record = next.getRecord();
+      if (record != null)
+        result.add(record);
+    }
+
+    return result;
+  }
+
+  /**
+   * Called on the first pull.
+   *
+   * @return Iterator over records or identities of records returned by this step.
+   */
+  protected abstract Iterator<? extends OIdentifiable> createIterator(OCommandContext ctx);
+
+  @Override
+  public void close() {
+    iterator = null;
+    super.close();
+  }
+
+  protected static ODatabaseDocumentInternal getDatabase() {
+    return ODatabaseRecordThreadLocal.INSTANCE.get();
+  }
+}
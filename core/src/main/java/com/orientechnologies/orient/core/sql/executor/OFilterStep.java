@@ -0,0 +1,73 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.parser.OWhereClause;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Returns only results which match WHERE clause. Pulls results from the previous step till the requested amount of results is
+ * matched or the previous step is exhausted.
+ */
+public class OFilterStep extends OExecutionStepAbstract {
+  private final OWhereClause whereClause;
+
+  public OFilterStep(OWhereClause whereClause) {
+    this.whereClause = whereClause;
+  }
+
+  @Override
+  protected List<OIdentifiable> internalSyncPull(OCommandContext ctx, int nRecords) {
+    final List<OIdentifiable> result = new ArrayList<OIdentifiable>();
+
+    while (result.size() < nRecords) {
+      final List<OIdentifiable> batch = prev.syncPull(ctx, nRecords - result.size());
+      if (batch.isEmpty())
+        break;
+
+      for (OIdentifiable record : batch) {
+        if (whereClause.matchesFilters(record, ctx))
+          result.add(record);
+      }
+    }
+
+    return result;
+  }
+
+  @Override
+  public String getName() {
+    return "FILTER";
+  }
+
+  @Override
+  protected String getDetails() {
+    return whereClause.toString();
+  }
+
+  @Override
+  public OExecutionStep copy() {
+    return new OFilterStep(whereClause);
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.parser.OLimit;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Returns at most LIMIT results. Once the limit is reached the previous steps are not pulled anymore, so no more records are
+ * fetched from storage.
+ */
+public class OLimitStep extends OExecutionStepAbstract {
+  private final OLimit limit;
+
+  private int remaining = -2;
+
+  public OLimitStep(OLimit limit) {
+    this.limit = limit;
+  }
+
+  @Override
+  protected List<OIdentifiable> internalSyncPull(OCommandContext ctx, int nRecords) {
+    if (remaining == -2)
+      remaining = limit.getValue(ctx);
+
+    if (remaining < 0)
+      // NEGATIVE LIMIT MEANS NO LIMIT
+      return prev.syncPull(ctx, nRecords);
+
+    if (remaining == 0)
+      return Collections.emptyList();
+
+    final List<OIdentifiable> result = prev.syncPull(ctx, Math.min(nRecords, remaining));
+    remaining -= result.size();
+    return result;
+  }
+
+  @Override
+  public String getName() {
+    return "LIMIT";
+  }
+
+  @Override
+  protected String getDetails() {
+    return limit.toString().trim().substring("LIMIT ".length());
+  }
+
+  @Override
+  public OExecutionStep copy() {
+    return new OLimitStep(limit);
+  }
+}
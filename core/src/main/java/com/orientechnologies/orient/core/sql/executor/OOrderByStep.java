@@ -0,0 +1,148 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.common.util.OPair;
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.record.impl.ODocumentComparator;
+import com.orientechnologies.orient.core.sql.OCommandExecutorSQLSelect;
+import com.orientechnologies.orient.core.sql.OExternalResultSorter;
+import com.orientechnologies.orient.core.sql.parser.OOrderBy;
+import com.orientechnologies.orient.core.sql.parser.OOrderByItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Sorts results of the previous step. This step is blocking, all results of the previous step are consumed on the first pull.
+ * Results which do not fit into the memory limit of query are sorted externally.
+ *
+ * @see OGlobalConfiguration#QUERY_MEMORY_LIMIT
+ */
+public class OOrderByStep extends OExecutionStepAbstract {
+  private final OOrderBy orderBy;
+
+  private OExternalResultSorter   sorter;
+  private Iterator<OIdentifiable> results;
+
+  public OOrderByStep(OOrderBy orderBy) {
+    this.orderBy = orderBy;
+  }
+
+  @Override
+  protected List<OIdentifiable> internalSyncPull(OCommandContext ctx, int nRecords) {
+    if (results == null)
+      results = sort(ctx);
+
+    if (!results.hasNext())
+      return Collections.emptyList();
+
+    final List<OIdentifiable> result = new ArrayList<OIdentifiable>();
+    while (result.size() < nRecords && results.hasNext())
+      result.add(results.next());
+
+    return result;
+  }
+
+  private Iterator<OIdentifiable> sort(OCommandContext ctx) {
+    final Comparator<OIdentifiable> comparator = new ODocumentComparator(getOrderCriteria(), ctx);
+    final long memoryLimit = OGlobalConfiguration.QUERY_MEMORY_LIMIT.getValueAsLong();
+
+    final List<OIdentifiable> inMemory = memoryLimit > 0 ? null : new ArrayList<OIdentifiable>();
+    if (inMemory == null)
+      sorter = new OExternalResultSorter(comparator, memoryLimit);
+
+    while (true) {
+      final List<OIdentifiable> batch = prev.syncPull(ctx, OSelectExecutionPlan.BATCH_SIZE);
+      if (batch.isEmpty())
+        break;
+
+      if (inMemory != null)
+        inMemory.addAll(batch);
+      else
+        for (OIdentifiable record : batch)
+          sorter.add(record);
+    }
+
+    if (inMemory == null)
+      return sorter.sortedResults(0).iterator();
+
+    Collections.sort(inMemory, comparator);
+    return inMemory.iterator();
+  }
+
+  private List<OPair<String, String>> getOrderCriteria() {
+    final List<OPair<String, String>> criteria = new ArrayList<OPair<String, String>>();
+    for (OOrderByItem item : orderBy.getItems()) {
+      final String field;
+      if (item.getAlias() != null)
+        field = item.getAlias() + (item.getModifier() != null ? item.getModifier().toString() : "");
+      else if (item.getRecordAttr() != null)
+        field = item.getRecordAttr();
+      else {
+        final StringBuilder builder = new StringBuilder();
+        item.toString(null, builder);
+        throw new OCommandExecutionException("Unsupported ORDER BY item: " + builder);
+      }
+
+      final String type = OOrderByItem.DESC.equalsIgnoreCase(item.getType()) ? OCommandExecutorSQLSelect.KEYWORD_DESC
+          : OCommandExecutorSQLSelect.KEYWORD_ASC;
+      criteria.add(new OPair<String, String>(field, type));
+    }
+
+    return criteria;
+  }
+
+  @Override
+  public void close() {
+    if (sorter != null) {
+      sorter.close();
+      sorter = null;
+    }
+
+    results = null;
+    super.close();
+  }
+
+  @Override
+  public String getName() {
+    return "ORDER BY";
+  }
+
+  @Override
+  protected String getDetails() {
+    final String details = orderBy.toString();
+    return details.substring("ORDER BY ".length()) + (sorter != null && sorter.getSpilledRuns() > 0 ?
+        " (spilled runs: " + sorter.getSpilledRuns() + ")" :
+        "");
+  }
+
+  @Override
+  public OExecutionStep copy() {
+    return new OOrderByStep(orderBy);
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.parser.OProjection;
+import com.orientechnologies.orient.core.sql.parser.OProjectionItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calculates projections of SELECT for each result of the previous step. Projected results are temporary documents.
+ */
+public class OProjectionStep extends OExecutionStepAbstract {
+  private final OProjection projection;
+
+  public OProjectionStep(OProjection projection) {
+    this.projection = projection;
+  }
+
+  @Override
+  protected List<OIdentifiable> internalSyncPull(OCommandContext ctx, int nRecords) {
+    final List<OIdentifiable> batch = prev.syncPull(ctx, nRecords);
+
+    final List<OIdentifiable> result = new ArrayList<OIdentifiable>(batch.size());
+    for (OIdentifiable record : batch)
+      result.add(project(projection.getItems(), record, ctx));
+
+    return result;
+  }
+
+  static ODocument project(List<OProjectionItem> items, OIdentifiable record, OCommandContext ctx) {
+    ctx.setVariable("$current", record);
+
+    final ODocument result = new ODocument().setOrdered(true);
+    for (OProjectionItem item : items) {
+      if (item.isAll()) {
+        copyFields(record, result);
+        continue;
+      }
+
+      result.field(getAlias(item), item.getExpression().execute(record, ctx));
+    }
+
+    return result;
+  }
+
+  static void copyFields(OIdentifiable record, ODocument result) {
+    if (record == null)
+      return;
+
+    final ORecord source = record.getRecord();
+    if (source instanceof ODocument) {
+      for (String fieldName : ((ODocument) source).fieldNames())
+        result.field(fieldName, ((ODocument) source).<Object>field(fieldName));
+    }
+  }
+
+  static String getAlias(OProjectionItem item) {
+    if (item.getAlias() != null)
+      return item.getAlias().getStringValue();
+
+    return item.getDefaultAlias().getStringValue();
+  }
+
+  @Override
+  public String getName() {
+    return "PROJECTION";
+  }
+
+  @Override
+  protected String getDetails() {
+    return projection.toString();
+  }
+
+  @Override
+  public OExecutionStep copy() {
+    return new OProjectionStep(projection);
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Physical plan of SELECT statement, a chain of execution steps. Results are pulled from the last step in batches, every step
+ * pulls from the previous one only as many results as it needs, so LIMIT stops fetching of records as soon as it is reached.
+ * Plan keeps state of execution and can be executed only once, use {@link #copy(OCommandContext)} to execute it again.
+ *
+ * @see OSelectExecutionPlanner
+ */
+public class OSelectExecutionPlan {
+  /**
+   * Amount of results which are pulled at once by blocking steps and by iterator of results.
+   */
+  public static final int BATCH_SIZE = 100;
+
+  private final OCommandContext      ctx;
+  private final List<OExecutionStep> steps = new ArrayList<OExecutionStep>();
+
+  public OSelectExecutionPlan(OCommandContext ctx) {
+    this.ctx = ctx;
+  }
+
+  /**
+   * Adds step to the end of plan, so it pulls results of the current last step.
+   */
+  public void chain(OExecutionStep step) {
+    step.setPrevious(steps.isEmpty() ? null : steps.get(steps.size() - 1));
+    steps.add(step);
+  }
+
+  /**
+   * @return Steps of plan in the order of execution.
+   */
+  public List<OExecutionStep> getSteps() {
+    return Collections.unmodifiableList(steps);
+  }
+
+  public OCommandContext getContext() {
+    return ctx;
+  }
+
+  /**
+   * @param n Maximum amount of results which are returned.
+   * @return Next results, empty list if there are no more results.
+   */
+  public List<OIdentifiable> fetchNext(int n) {
+    if (steps.isEmpty())
+      return Collections.emptyList();
+
+    return steps.get(steps.size() - 1).syncPull(ctx, n);
+  }
+
+  /**
+   * @return Iterator which pulls results from plan in batches.
+   */
+  public Iterator<OIdentifiable> iterator() {
+    return new Iterator<OIdentifiable>() {
+      private Iterator<OIdentifiable> batch = Collections.<OIdentifiable>emptyList().iterator();
+      private boolean finished;
+
+      @Override
+      public boolean hasNext() {
+        if (batch.hasNext())
+          return true;
+        if (finished)
+          return false;
+
+        final List<OIdentifiable> next = fetchNext(BATCH_SIZE);
+        finished = next.isEmpty();
+        batch = next.iterator();
+        return batch.hasNext();
+      }
+
+      @Override
+      public OIdentifiable next() {
+        if (!hasNext())
+          throw new NoSuchElementException();
+
+        return batch.next();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /**
+   * Releases resources of all steps.
+   */
+  public void close() {
+    if (!steps.isEmpty())
+      steps.get(steps.size() - 1).close();
+  }
+
+  /**
+   * @return New plan with the same steps but without state of execution.
+   */
+  public OSelectExecutionPlan copy(OCommandContext ctx) {
+    final OSelectExecutionPlan copy = new OSelectExecutionPlan(ctx);
+    for (OExecutionStep step : steps)
+      copy.chain(step.copy());
+
+    return copy;
+  }
+
+  public String prettyPrint(int indent) {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < steps.size(); i++) {
+      if (i > 0)
+        builder.append('\n');
+      builder.append(steps.get(i).prettyPrint(0, indent));
+    }
+
+    return builder.toString();
+  }
+
+  /**
+   * @return Description of plan and statistics of its steps, as returned by EXPLAIN.
+   */
+  public ODocument toDocument() {
+    final List<ODocument> stepDocuments = new ArrayList<ODocument>(steps.size());
+    for (OExecutionStep step : steps)
+      stepDocuments.add(new ODocument().field("name", step.getName()).field("rows", step.getRows()).field("cost", step.getCost()));
+
+    final ODocument document = new ODocument();
+    document.field("executionPlan", prettyPrint(2));
+    document.field("steps", stepDocuments);
+    return document;
+  }
+
+  @Override
+  public String toString() {
+    return prettyPrint(2);
+  }
+}
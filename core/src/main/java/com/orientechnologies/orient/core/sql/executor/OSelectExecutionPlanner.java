@@ -0,0 +1,184 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.sql.parser.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds execution plan of SELECT statement parsed by the new SQL parser. Steps are chained in this order:
+ * <ol>
+ * <li>fetch of records from class, index, clusters or rids</li>
+ * <li>filter by WHERE clause</li>
+ * <li>projections, or aggregation when there is GROUP BY or an aggregate function</li>
+ * <li>ORDER BY, SKIP and LIMIT</li>
+ * </ol>
+ * When results are ordered only by fields of records, ORDER BY, SKIP and LIMIT are executed before projections, so only the
+ * returned results are projected. LET and UNWIND are not supported yet.
+ */
+public class OSelectExecutionPlanner {
+  private final OSelectStatement statement;
+
+  public OSelectExecutionPlanner(OSelectStatement statement) {
+    this.statement = statement;
+  }
+
+  public OSelectExecutionPlan createExecutionPlan(OCommandContext ctx) {
+    if (statement.getLetClause() != null)
+      throw new OCommandExecutionException("LET is not supported by execution planner: " + statement);
+    if (statement.getUnwind() != null)
+      throw new OCommandExecutionException("UNWIND is not supported by execution planner: " + statement);
+
+    final OSelectExecutionPlan plan = new OSelectExecutionPlan(ctx);
+
+    handleFetch(plan);
+    if (statement.getWhereClause() != null)
+      plan.chain(new OFilterStep(statement.getWhereClause()));
+
+    final boolean aggregate = isAggregate();
+    final boolean orderAfterProjection = aggregate || isOrderedByProjection();
+
+    if (!orderAfterProjection)
+      handleOrderBySkipLimit(plan);
+
+    if (aggregate)
+      plan.chain(new OAggregateProjectionStep(statement.getProjection(), statement.getGroupBy()));
+    else if (!isSelectAll())
+      plan.chain(new OProjectionStep(statement.getProjection()));
+
+    if (orderAfterProjection)
+      handleOrderBySkipLimit(plan);
+
+    return plan;
+  }
+
+  private void handleFetch(OSelectExecutionPlan plan) {
+    final OFromItem target = statement.getTarget() != null ? statement.getTarget().getItem() : null;
+    if (target == null)
+      throw new OCommandExecutionException("SELECT without target is not supported by execution planner: " + statement);
+
+    final ODatabaseDocumentInternal database = ODatabaseRecordThreadLocal.INSTANCE.get();
+
+    if (target.getRids() != null && !target.getRids().isEmpty()) {
+      final List<ORID> rids = new ArrayList<ORID>(target.getRids().size());
+      for (ORid rid : target.getRids())
+        rids.add(rid.toRecordId());
+
+      plan.chain(new OFetchFromRidsStep(rids));
+    } else if (target.getCluster() != null) {
+      final OCluster cluster = target.getCluster();
+
+      String clusterName = cluster.getClusterName();
+      if (clusterName == null) {
+        clusterName = database.getClusterNameById(cluster.getClusterNumber());
+        if (clusterName == null)
+          throw new OCommandExecutionException("Cluster with id " + cluster.getClusterNumber() + " was not found");
+      }
+
+      final List<String> clusterNames = new ArrayList<String>();
+      clusterNames.add(clusterName);
+      plan.chain(new OFetchFromClustersStep(clusterNames));
+    } else if (target.getClusterList() != null) {
+      final List<String> clusterNames = new ArrayList<String>();
+      for (OIdentifier cluster : target.getClusterList().getClusters())
+        clusterNames.add(cluster.getStringValue());
+
+      plan.chain(new OFetchFromClustersStep(clusterNames));
+    } else if (target.getIdentifier() != null && target.getIdentifier().isBaseIdentifier()) {
+      final String className = target.getIdentifier().toString();
+      final OClass oClass = database.getMetadata().getSchema().getClass(className);
+      if (oClass == null)
+        throw new OCommandExecutionException("Class not found in database schema: " + className);
+
+      final OWhereClause whereClause = statement.getWhereClause();
+      if (whereClause != null && whereClause.hasIndexedConditions(oClass))
+        plan.chain(new OFetchFromIndexStep(className, whereClause));
+      else
+        plan.chain(new OFetchFromClassStep(className));
+    } else
+      throw new OCommandExecutionException("Target is not supported by execution planner: " + statement.getTarget());
+  }
+
+  private void handleOrderBySkipLimit(OSelectExecutionPlan plan) {
+    final OOrderBy orderBy = statement.getOrderBy();
+    if (orderBy != null && orderBy.getItems() != null && !orderBy.getItems().isEmpty())
+      plan.chain(new OOrderByStep(orderBy));
+
+    if (statement.getSkip() != null)
+      plan.chain(new OSkipStep(statement.getSkip()));
+
+    if (statement.getLimit() != null)
+      plan.chain(new OLimitStep(statement.getLimit()));
+  }
+
+  private boolean isAggregate() {
+    if (statement.getGroupBy() != null)
+      return true;
+
+    final OProjection projection = statement.getProjection();
+    if (projection == null || projection.getItems() == null)
+      return false;
+
+    for (OProjectionItem item : projection.getItems()) {
+      if (item.getExpression() != null && item.getExpression().getAggregateFunctionCall() != null)
+        return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * @return <code>true</code> if results are ordered by an alias of projection, so they have to be projected before sort.
+   */
+  private boolean isOrderedByProjection() {
+    final OOrderBy orderBy = statement.getOrderBy();
+    if (orderBy == null || orderBy.getItems() == null || isSelectAll())
+      return false;
+
+    for (OOrderByItem orderItem : orderBy.getItems()) {
+      if (orderItem.getAlias() == null)
+        continue;
+
+      for (OProjectionItem item : statement.getProjection().getItems()) {
+        if (!item.isAll() && orderItem.getAlias().equals(OProjectionStep.getAlias(item)))
+          return true;
+      }
+    }
+
+    return false;
+  }
+
+  private boolean isSelectAll() {
+    final OProjection projection = statement.getProjection();
+    if (projection == null || projection.getItems() == null || projection.getItems().isEmpty())
+      return true;
+
+    return projection.getItems().size() == 1 && projection.getItems().get(0).isAll() && projection.getItems().get(0).getAlias() == null;
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.parser.OSkip;
+
+import java.util.List;
+
+/**
+ * Discards the first results of the previous step.
+ */
+public class OSkipStep extends OExecutionStepAbstract {
+  private final OSkip skip;
+
+  private int remaining = -1;
+
+  public OSkipStep(OSkip skip) {
+    this.skip = skip;
+  }
+
+  @Override
+  protected List<OIdentifiable> internalSyncPull(OCommandContext ctx, int nRecords) {
+    if (remaining < 0)
+      remaining = Math.max(skip.getValue(ctx), 0);
+
+    while (remaining > 0) {
+      final List<OIdentifiable> skipped = prev.syncPull(ctx, remaining);
+      if (skipped.isEmpty())
+        return skipped;
+
+      remaining -= skipped.size();
+    }
+
+    return prev.syncPull(ctx, nRecords);
+  }
+
+  @Override
+  public String getName() {
+    return "SKIP";
+  }
+
+  @Override
+  protected String getDetails() {
+    return skip.toString().trim().substring("SKIP ".length());
+  }
+
+  @Override
+  public OExecutionStep copy() {
+    return new OSkipStep(skip);
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.orientechnologies.orient.core.sql.filter;
+
+import com.orientechnologies.orient.core.collate.OCollate;
+import com.orientechnologies.orient.core.collate.ODefaultCollate;
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ORecordElement;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OSQLHelper;
+import com.orientechnologies.orient.core.sql.operator.*;
+
+/**
+ * Condition tree specialized for evaluation of a parsed {@link OSQLFilterCondition}. Comparisons of a plain field with a numeric or
+ * string constant are evaluated with typed comparators on the raw field value, the constant is converted only once. Logical
+ * operators are evaluated without going through the generic operator dispatch. Everything else, and every value which is not of
+ * the expected type, is evaluated by the original condition, so results are always the same as the ones of the condition tree.
+ * <p>
+ * Compiled nodes remember the shape of the condition they were built from, a node whose condition has been changed since then
+ * falls back to the original condition.
+ *
+ * @see OSQLFilter#evaluate(OIdentifiable, ODocument, OCommandContext)
+ */
+abstract class OSQLCompiledCondition {
+  protected final OSQLFilterCondition condition;
+
+  protected OSQLCompiledCondition(final OSQLFilterCondition condition) {
+    this.condition = condition;
+  }
+
+  public static OSQLCompiledCondition compile(final OSQLFilterCondition condition) {
+    final OQueryOperator operator = condition.getOperator();
+
+    if ((operator instanceof OQueryOperatorAnd || operator instanceof OQueryOperatorOr)
+        && condition.getLeft() instanceof OSQLFilterCondition && condition.getRight() instanceof OSQLFilterCondition)
+      return new Logical(condition, compile((OSQLFilterCondition) condition.getLeft()),
+          compile((OSQLFilterCondition) condition.getRight()));
+
+    final Comparison comparison = Comparison.compileComparison(condition);
+    if (comparison != null)
+      return comparison;
+
+    return new Interpreted(condition);
+  }
+
+  public OSQLFilterCondition getCondition() {
+    return condition;
+  }
+
+  /**
+   * @return true if the condition has the same shape as when it was compiled
+   */
+  public abstract boolean isCompiledFrom(OSQLFilterCondition condition);
+
+  public abstract Object evaluate(OIdentifiable iRecord, ODocument iCurrentResult, OCommandContext iContext);
+
+  private static final class Interpreted extends OSQLCompiledCondition {
+    Interpreted(final OSQLFilterCondition condition) {
+      super(condition);
+    }
+
+    @Override
+    public boolean isCompiledFrom(final OSQLFilterCondition condition) {
+      return this.condition == condition;
+    }
+
+    @Override
+    public Object evaluate(final OIdentifiable iRecord, final ODocument iCurrentResult, final OCommandContext iContext) {
+      return condition.evaluate(iRecord, iCurrentResult, iContext);
+    }
+  }
+
+  /**
+   * AND and OR with the same semantic as {@link OQueryOperatorAnd} and {@link OQueryOperatorOr}.
+   */
+  private static final class Logical extends OSQLCompiledCondition {
+    private final OQueryOperator        operator;
+    private final boolean               and;
+    private final OSQLCompiledCondition left;
+    private final OSQLCompiledCondition right;
+    private final Object                leftCondition;
+    private final Object                rightCondition;
+
+    Logical(final OSQLFilterCondition condition, final OSQLCompiledCondition left, final OSQLCompiledCondition right) {
+      super(condition);
+      this.operator = condition.getOperator();
+      this.and = operator instanceof OQueryOperatorAnd;
+      this.left = left;
+      this.right = right;
+      this.leftCondition = condition.getLeft();
+      this.rightCondition = condition.getRight();
+    }
+
+    @Override
+    public boolean isCompiledFrom(final OSQLFilterCondition condition) {
+      return this.condition == condition && isUnchanged();
+    }
+
+    private boolean isUnchanged() {
+      return condition.getOperator() == operator && condition.getLeft() == leftCondition && condition.getRight() == rightCondition
+          && left.isCompiledFrom(left.getCondition()) && right.isCompiledFrom(right.getCondition());
+    }
+
+    @Override
+    public Object evaluate(final OIdentifiable iRecord, final ODocument iCurrentResult, final OCommandContext iContext) {
+      if (condition.getOperator() != operator || condition.getLeft() != leftCondition || condition.getRight() != rightCondition)
+        return condition.evaluate(iRecord, iCurrentResult, iContext);
+
+      final Object l = left.evaluate(iRecord, iCurrentResult, iContext);
+      if (and ? Boolean.FALSE.equals(l) : Boolean.TRUE.equals(l))
+        return l;
+
+      final Object r = right.evaluate(iRecord, iCurrentResult, iContext);
+      if (!(l instanceof Boolean) || !(r instanceof Boolean))
+        // NULL OR NOT BOOLEAN VALUES ARE EVALUATED AS FALSE BY THE OPERATORS
+        return Boolean.FALSE;
+
+      return and ? (Boolean) l && (Boolean) r : (Boolean) l || (Boolean) r;
+    }
+  }
+
+  /**
+   * Comparison of a plain field with a constant.
+   */
+  private static final class Comparison extends OSQLCompiledCondition {
+    private static final int EQUALS         = 0;
+    private static final int NOT_EQUALS     = 1;
+    private static final int MINOR          = 2;
+    private static final int MINOR_EQUALS   = 3;
+    private static final int MAJOR          = 4;
+    private static final int MAJOR_EQUALS   = 5;
+
+    private final OQueryOperator      operator;
+    private final int                 comparison;
+    private final OSQLFilterItemField field;
+    private final String              fieldName;
+    private final Object              constant;
+
+    // THE CONSTANT CONVERTED ONCE FOR EVERY KIND OF FIELD VALUE
+    private final boolean integral;
+    private final long    longConstant;
+    private final double  doubleConstant;
+    private final String  stringConstant;
+
+    private Comparison(final OSQLFilterCondition condition, final int comparison) {
+      super(condition);
+      this.operator = condition.getOperator();
+      this.comparison = comparison;
+      this.field = (OSQLFilterItemField) condition.getLeft();
+      this.fieldName = field.getRoot();
+      this.constant = condition.getRight();
+
+      if (constant instanceof Number) {
+        integral = constant instanceof Integer || constant instanceof Long || constant instanceof Short || constant instanceof Byte;
+        longConstant = ((Number) constant).longValue();
+        doubleConstant = ((Number) constant).doubleValue();
+        stringConstant = null;
+      } else {
+        integral = false;
+        longConstant = 0;
+        doubleConstant = 0;
+        stringConstant = (String) constant;
+      }
+    }
+
+    static Comparison compileComparison(final OSQLFilterCondition condition) {
+      final int comparison = getComparison(condition.getOperator());
+      if (comparison < 0)
+        return null;
+
+      final Object left = condition.getLeft();
+      if (left == null || left.getClass() != OSQLFilterItemField.class || !((OSQLFilterItemField) left).isPlainField())
+        return null;
+
+      final Object right = condition.getRight();
+      if (right instanceof Integer || right instanceof Long || right instanceof Short || right instanceof Byte
+          || right instanceof Double || right instanceof Float)
+        return new Comparison(condition, comparison);
+
+      if (right instanceof String && !right.equals(OSQLHelper.DEFINED) && !right.equals(OSQLHelper.NOT_NULL))
+        return new Comparison(condition, comparison);
+
+      return null;
+    }
+
+    private static int getComparison(final OQueryOperator operator) {
+      if (operator == null)
+        return -1;
+
+      // SUB CLASSES MAY HAVE A DIFFERENT SEMANTIC
+      final Class<?> operatorClass = operator.getClass();
+      if (operatorClass == OQueryOperatorEquals.class)
+        return EQUALS;
+      if (operatorClass == OQueryOperatorNotEquals.class || operatorClass == OQueryOperatorNotEquals2.class)
+        return NOT_EQUALS;
+      if (operatorClass == OQueryOperatorMinor.class)
+        return MINOR;
+      if (operatorClass == OQueryOperatorMinorEquals.class)
+        return MINOR_EQUALS;
+      if (operatorClass == OQueryOperatorMajor.class)
+        return MAJOR;
+      if (operatorClass == OQueryOperatorMajorEquals.class)
+        return MAJOR_EQUALS;
+      return -1;
+    }
+
+    @Override
+    public boolean isCompiledFrom(final OSQLFilterCondition condition) {
+      return this.condition == condition && isUnchanged();
+    }
+
+    private boolean isUnchanged() {
+      return condition.getOperator() == operator && condition.getLeft() == field && condition.getRight() == constant;
+    }
+
+    @Override
+    public Object evaluate(final OIdentifiable iRecord, final ODocument iCurrentResult, final OCommandContext iContext) {
+      if (iRecord == null || !isUnchanged())
+        return condition.evaluate(iRecord, iCurrentResult, iContext);
+
+      final ORecord record = iRecord.getRecord();
+      if (!(record instanceof ODocument) || record.getInternalStatus() == ORecordElement.STATUS.NOT_LOADED)
+        return condition.evaluate(iRecord, iCurrentResult, iContext);
+
+      final ODocument doc = (ODocument) record;
+      final OCollate collate = field.updateCollate(doc);
+      if (collate != null && !(collate instanceof ODefaultCollate) || !field.deserializePreLoadedFields(doc))
+        return condition.evaluate(iRecord, iCurrentResult, iContext);
+
+      final Object value = doc.rawField(fieldName);
+
+      final int result;
+      if (stringConstant != null) {
+        if (!(value instanceof String))
+          return condition.evaluate(iRecord, iCurrentResult, iContext);
+
+        result = ((String) value).compareTo(stringConstant);
+      } else if (integral && (value instanceof Long || value instanceof Integer && (int) longConstant == longConstant)) {
+        // INTEGERS ARE COMPARED ONLY IF THE CONSTANT FITS INTO THE TYPE OF THE FIELD, AS THE OPERATORS CONVERT IT TO THAT TYPE
+        final long longValue = ((Number) value).longValue();
+        result = longValue < longConstant ? -1 : (longValue == longConstant ? 0 : 1);
+      } else if (value instanceof Double && !(constant instanceof Float) && (Double) value != 0 && !((Double) value).isNaN()) {
+        // ZEROS AND NAN ARE COMPARED DIFFERENTLY BY BINARY AND OBJECT COMPARISON
+        result = Double.compare((Double) value, doubleConstant);
+      } else
+        return condition.evaluate(iRecord, iCurrentResult, iContext);
+
+      switch (comparison) {
+      case EQUALS:
+        return result == 0;
+      case NOT_EQUALS:
+        return result != 0;
+      case MINOR:
+        return result < 0;
+      case MINOR_EQUALS:
+        return result <= 0;
+      case MAJOR:
+        return result > 0;
+      default:
+        return result >= 0;
+      }
+    }
+  }
+}
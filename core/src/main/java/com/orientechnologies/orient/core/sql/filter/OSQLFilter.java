@@ -22,6 +22,7 @@ package com.orientechnologies.orient.core.sql.filter;
 import com.orientechnologies.common.exception.OException;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.command.OCommandPredicate;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.exception.OQueryParsingException;
 import com.orientechnologies.orient.core.record.impl.ODocument;
@@ -32,6 +33,8 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
  * @author Luca Garulli
  */
 public class OSQLFilter extends OSQLPredicate implements OCommandPredicate {
+  private volatile OSQLCompiledCondition compiledCondition;
+
   public OSQLFilter(final String iText, final OCommandContext iContext, final String iFilterKeyword) {
     super();
 
@@ -100,7 +103,17 @@ public class OSQLFilter extends OSQLPredicate implements OCommandPredicate {
       return true;
     }
 
-    return rootCondition.evaluate(iRecord, iCurrentResult, iContext);
+    if (!OGlobalConfiguration.QUERY_COMPILE_FILTERS.getValueAsBoolean())
+      return rootCondition.evaluate(iRecord, iCurrentResult, iContext);
+
+    OSQLCompiledCondition compiled = compiledCondition;
+    if (compiled == null || !compiled.isCompiledFrom(rootCondition)) {
+      // CONDITION IS COMPILED ON FIRST USAGE AND AGAIN EVERY TIME IT IS CHANGED BY THE OPTIMIZER
+      compiled = OSQLCompiledCondition.compile(rootCondition);
+      compiledCondition = compiled;
+    }
+
+    return compiled.evaluate(iRecord, iCurrentResult, iContext);
   }
 
   public OSQLFilterCondition getRootCondition() {
@@ -44,6 +44,8 @@ import com.orientechnologies.orient.core.serialization.serializer.record.binary.
 import com.orientechnologies.orient.core.sql.OSQLHelper;
 import com.orientechnologies.orient.core.sql.functions.OSQLFunctionRuntime;
 import com.orientechnologies.orient.core.sql.operator.OQueryOperator;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorBetween;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorIn;
 import com.orientechnologies.orient.core.sql.operator.OQueryOperatorMatches;
 import com.orientechnologies.orient.core.sql.query.OSQLQuery;
 
@@ -63,6 +65,7 @@ public class OSQLFilterCondition {
   protected OQueryOperator    operator;
   protected Object            right;
   protected boolean           inBraces   = false;
+  private OBinaryField[]      binaryRight;
 
   public OSQLFilterCondition(final Object iLeft, final OQueryOperator iOperator) {
     this.left = iLeft;
@@ -130,11 +133,37 @@ public class OSQLFilterCondition {
         l = ((OBinaryField) l).copy();
     }
 
+    if (binaryEvaluation && l instanceof OBinaryField && OMultiValue.isMultiValue(r)
+        && (operator instanceof OQueryOperatorIn || operator instanceof OQueryOperatorBetween)
+        && ORecordSerializerBinary.INSTANCE.getCurrentSerializer().getComparator().isBinaryComparable(((OBinaryField) l).type)) {
+      // MULTIPLE VALUES: CONSTANT VALUES ARE CONVERTED ONLY ONCE
+      OBinaryField[] fields = binaryRight;
+      if (fields == null) {
+        fields = toBinaryFields(r);
+        if (fields != null && isConstant(right))
+          binaryRight = fields;
+      }
+
+      if (fields != null) {
+        // GET THE COPY OR MT REASONS
+        final OBinaryField[] copy = new OBinaryField[fields.length];
+        for (int i = 0; i < fields.length; i++)
+          copy[i] = fields[i].copy();
+        r = copy;
+      }
+    }
+
     if (binaryEvaluation)
-      binaryEvaluation = l instanceof OBinaryField && r instanceof OBinaryField;
+      binaryEvaluation = l instanceof OBinaryField && (r instanceof OBinaryField || r instanceof OBinaryField[]);
 
 
     if (!binaryEvaluation) {
+      // BINARY FIELDS THAT CANNOT BE COMPARED IN BINARY FORM
+      if (l instanceof OBinaryField)
+        l = deserializeBinaryField((OBinaryField) l);
+      if (r instanceof OBinaryField)
+        r = deserializeBinaryField((OBinaryField) r);
+
       // no collate for regular expressions, otherwise quotes will result in no match
       final OCollate collate = operator instanceof OQueryOperatorMatches ? null : getCollate(iCurrentRecord);
       final Object[] convertedValues = checkForConversion(iCurrentRecord, l, r, collate);
@@ -406,6 +435,43 @@ public class OSQLFilterCondition {
     return iValue;
   }
 
+  private static Object deserializeBinaryField(final OBinaryField iField) {
+    return ORecordSerializerBinary.INSTANCE.getCurrentSerializer().deserializeValue(iField.bytes.copy(), iField.type, null);
+  }
+
+  private static OBinaryField[] toBinaryFields(final Object iValues) {
+    final OBinaryField[] fields = new OBinaryField[OMultiValue.getSize(iValues)];
+
+    int i = 0;
+    for (Object value : OMultiValue.getMultiValueIterable(iValues, false)) {
+      if (value == null || i >= fields.length)
+        return null;
+
+      final OType type = OType.getTypeByValue(value);
+      if (type == null || !ORecordSerializerBinary.INSTANCE.getCurrentSerializer().getComparator().isBinaryComparable(type))
+        return null;
+
+      final BytesContainer bytes = new BytesContainer();
+      ORecordSerializerBinary.INSTANCE.getCurrentSerializer().serializeValue(bytes, value, type, null);
+      bytes.offset = 0;
+      fields[i++] = new OBinaryField(null, type, bytes, null);
+    }
+
+    return i == fields.length ? fields : null;
+  }
+
+  private static boolean isConstant(final Object iValue) {
+    if (!OMultiValue.isMultiValue(iValue))
+      return false;
+
+    for (Object value : OMultiValue.getMultiValueIterable(iValue, false)) {
+      if (value instanceof OSQLFilterItem || value instanceof OSQLFilterCondition || value instanceof OSQLFunctionRuntime
+          || value instanceof OSQLQuery<?>)
+        return false;
+    }
+    return true;
+  }
+
   private Object[] checkForConversion(final OIdentifiable o, Object l, Object r, final OCollate collate) {
     Object[] result = null;
 
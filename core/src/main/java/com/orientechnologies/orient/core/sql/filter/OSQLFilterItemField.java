@@ -29,6 +29,7 @@ import com.orientechnologies.orient.core.exception.OCommandExecutionException;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OProperty;
 import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.ORecordInternal;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.serialization.serializer.record.binary.BytesContainer;
 import com.orientechnologies.orient.core.serialization.serializer.record.binary.OBinaryField;
@@ -116,26 +117,53 @@ public class OSQLFilterItemField extends OSQLFilterItemAbstract {
 
     final ODocument doc = (ODocument) iRecord.getRecord();
 
+    // UNMARSHALL THE SINGLE FIELD
+    if (!deserializePreLoadedFields(doc))
+      return null;
+
+    final Object v = stringValue == null ? doc.rawField(name) : stringValue;
+
+    updateCollate(doc);
+
+    return transformValue(iRecord, iContext, v);
+  }
+
+  /**
+   * Unmarshalls only the fields used by the condition, if they are not more than 4.
+   *
+   * @return false if the fields cannot be unmarshalled
+   */
+  boolean deserializePreLoadedFields(final ODocument doc) {
     if (preLoadedFieldsArray == null && preLoadedFields != null && preLoadedFields.size() > 0 && preLoadedFields.size() < 5) {
       // TRANSFORM THE SET IN ARRAY ONLY THE FIRST TIME AND IF FIELDS ARE MORE THAN ONE, OTHERWISE GO WITH THE DEFAULT BEHAVIOR
       preLoadedFieldsArray = new String[preLoadedFields.size()];
       preLoadedFields.toArray(preLoadedFieldsArray);
     }
 
-    // UNMARSHALL THE SINGLE FIELD
-    if (preLoadedFieldsArray != null && !doc.deserializeFields(preLoadedFieldsArray))
-      return null;
-
-    final Object v = stringValue == null ? doc.rawField(name) : stringValue;
+    return preLoadedFieldsArray == null || doc.deserializeFields(preLoadedFieldsArray);
+  }
 
+  /**
+   * Sets the collate of the field from the class of the document, if the class was not known when the field was parsed.
+   *
+   * @return the collate of the field, null if no collate is defined
+   */
+  OCollate updateCollate(final ODocument doc) {
     if (!collatePreset && doc != null) {
       OClass schemaClass = doc.getSchemaClass();
       if (schemaClass != null) {
         collate = getCollateForField(schemaClass, name);
       }
     }
+    return collate;
+  }
 
-    return transformValue(iRecord, iContext, v);
+  /**
+   * @return true if the value of the item is the raw value of a field, without any operator applied to it
+   */
+  public boolean isPlainField() {
+    return stringValue == null && !hasChainOperators() && name != null && !name.isEmpty() && name.charAt(0) != '@'
+        && name.charAt(0) != '$' && name.indexOf('.') < 0;
   }
 
   public OBinaryField getBinaryField(final OIdentifiable iRecord) {
@@ -147,9 +175,16 @@ public class OSQLFilterItemField extends OSQLFilterItemAbstract {
       return null;
 
     final ORecord rec = iRecord.getRecord();
+    if (!(rec instanceof ODocument))
+      return null;
+
+    final byte[] source = ORecordInternal.getSource(rec);
+    if (source == null)
+      // RECORD IS ALREADY UNMARSHALLED OR CHANGED: AVOID TO SERIALIZE IT AGAIN, USE THE FIELD VALUE
+      return null;
 
-    return ORecordSerializerBinary.INSTANCE.getCurrentSerializer().deserializeField(new BytesContainer(rec.toStream()).skip(1),
-        rec instanceof ODocument ? ((ODocument) rec).getSchemaClass() : null, name);
+    return ORecordSerializerBinary.INSTANCE.getCurrentSerializer().deserializeField(new BytesContainer(source).skip(1),
+        ((ODocument) rec).getSchemaClass(), name);
   }
 
   public String getRoot() {
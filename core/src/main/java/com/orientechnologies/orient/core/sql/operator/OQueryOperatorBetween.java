@@ -21,6 +21,8 @@ package com.orientechnologies.orient.core.sql.operator;
 
 import com.orientechnologies.common.collection.OMultiValue;
 import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.index.OCompositeIndexDefinition;
@@ -30,6 +32,9 @@ import com.orientechnologies.orient.core.index.OIndexDefinition;
 import com.orientechnologies.orient.core.index.OIndexInternal;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.impl.ODocumentHelper;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.OBinaryComparator;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.OBinaryField;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.ORecordSerializerBinary;
 import com.orientechnologies.orient.core.sql.OSQLHelper;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterCondition;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemField;
@@ -48,9 +53,13 @@ import java.util.List;
 public class OQueryOperatorBetween extends OQueryOperatorEqualityNotNulls {
   private boolean leftInclusive  = true;
   private boolean rightInclusive = true;
+  private boolean binaryEvaluate = false;
 
   public OQueryOperatorBetween() {
     super("BETWEEN", 5, false, 3);
+    ODatabaseDocumentInternal db = ODatabaseRecordThreadLocal.INSTANCE.getIfDefined();
+    if (db != null)
+      binaryEvaluate = db.getSerializer().getSupportBinaryEvaluate();
   }
 
   public boolean isLeftInclusive() {
@@ -211,4 +220,24 @@ public class OQueryOperatorBetween extends OQueryOperatorEqualityNotNulls {
 
     return null;
   }
+
+  @Override
+  public boolean evaluate(final OBinaryField iFirstField, final OBinaryField[] iSecondFields, final OCommandContext iContext) {
+    if (iSecondFields.length != 3)
+      return super.evaluate(iFirstField, iSecondFields, iContext);
+
+    final OBinaryComparator comparator = ORecordSerializerBinary.INSTANCE.getCurrentSerializer().getComparator();
+
+    final int leftResult = comparator.compare(iFirstField, iSecondFields[0]);
+    if (leftInclusive ? leftResult < 0 : leftResult <= 0)
+      return false;
+
+    final int rightResult = comparator.compare(iFirstField, iSecondFields[2]);
+    return rightInclusive ? rightResult <= 0 : rightResult < 0;
+  }
+
+  @Override
+  public boolean isSupportingBinaryEvaluate() {
+    return binaryEvaluate;
+  }
 }
@@ -29,6 +29,9 @@ import com.orientechnologies.orient.core.serialization.serializer.record.binary.
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterCondition;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterItemFieldAll;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Base equality operator. It's an abstract class able to compare the equality between two values.
  * 
@@ -58,8 +61,23 @@ public abstract class OQueryOperatorEquality extends OQueryOperator {
     final Object left = ORecordSerializerBinary.INSTANCE.getCurrentSerializer().deserializeValue(iFirstField.bytes,
         iFirstField.type, null);
     final Object right = ORecordSerializerBinary.INSTANCE.getCurrentSerializer().deserializeValue(iSecondField.bytes,
+        iSecondField.type, null);
+
+    return evaluateExpression(null, null, left, right, iContext);
+  }
+
+  /**
+   * Evaluates the operator against multiple right values (IN, BETWEEN) without unmarshalling the field of the current record. By
+   * default values are deserialized and evaluated as usual.
+   */
+  public boolean evaluate(final OBinaryField iFirstField, final OBinaryField[] iSecondFields, final OCommandContext iContext) {
+    final Object left = ORecordSerializerBinary.INSTANCE.getCurrentSerializer().deserializeValue(iFirstField.bytes,
         iFirstField.type, null);
 
+    final List<Object> right = new ArrayList<Object>(iSecondFields.length);
+    for (OBinaryField field : iSecondFields)
+      right.add(ORecordSerializerBinary.INSTANCE.getCurrentSerializer().deserializeValue(field.bytes, field.type, null));
+
     return evaluateExpression(null, null, left, right, iContext);
   }
 
@@ -70,6 +88,9 @@ public abstract class OQueryOperatorEquality extends OQueryOperator {
     if (iLeft instanceof OBinaryField && iRight instanceof OBinaryField)
       // BINARY COMPARISON
       return evaluate((OBinaryField) iLeft, (OBinaryField) iRight, iContext);
+    else if (iLeft instanceof OBinaryField && iRight instanceof OBinaryField[])
+      // BINARY COMPARISON AGAINST MULTIPLE VALUES
+      return evaluate((OBinaryField) iLeft, (OBinaryField[]) iRight, iContext);
     else if (iLeft instanceof OQueryRuntimeValueMulti) {
       // LEFT = MULTI
       final OQueryRuntimeValueMulti left = (OQueryRuntimeValueMulti) iLeft;
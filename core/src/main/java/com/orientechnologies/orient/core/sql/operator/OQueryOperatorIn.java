@@ -21,11 +21,16 @@ package com.orientechnologies.orient.core.sql.operator;
 
 import com.orientechnologies.common.collection.OMultiValue;
 import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.index.*;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.record.impl.ODocumentHelper;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.OBinaryComparator;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.OBinaryField;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.ORecordSerializerBinary;
 import com.orientechnologies.orient.core.sql.OSQLHelper;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterCondition;
 import com.orientechnologies.orient.core.sql.filter.OSQLFilterItem;
@@ -42,8 +47,13 @@ import java.util.*;
  */
 public class OQueryOperatorIn extends OQueryOperatorEqualityNotNulls {
 
+  private boolean binaryEvaluate = false;
+
   public OQueryOperatorIn() {
     super("IN", 5, false);
+    ODatabaseDocumentInternal db = ODatabaseRecordThreadLocal.INSTANCE.getIfDefined();
+    if (db != null)
+      binaryEvaluate = db.getSerializer().getSupportBinaryEvaluate();
   }
 
   @Override public OIndexReuseType getIndexReuseType(final Object iLeft, final Object iRight) {
@@ -288,4 +298,18 @@ public class OQueryOperatorIn extends OQueryOperatorEqualityNotNulls {
     }
     return rids;
   }
+
+  @Override public boolean evaluate(final OBinaryField iFirstField, final OBinaryField[] iSecondFields,
+      final OCommandContext iContext) {
+    final OBinaryComparator comparator = ORecordSerializerBinary.INSTANCE.getCurrentSerializer().getComparator();
+    for (OBinaryField field : iSecondFields) {
+      if (comparator.isEqual(iFirstField, field))
+        return true;
+    }
+    return false;
+  }
+
+  @Override public boolean isSupportingBinaryEvaluate() {
+    return binaryEvaluate;
+  }
 }
@@ -108,6 +108,13 @@ public class OBaseExpression extends OMathExpression {
     return identifier != null && modifier == null && identifier.isBaseIdentifier();
   }
 
+  @Override public OFunctionCall getAggregateFunctionCall() {
+    if (identifier == null || modifier != null) {
+      return null;
+    }
+    return identifier.getAggregateFunctionCall();
+  }
+
   public OIdentifier getBaseIdentifier() {
     return identifier.suffix.identifier;
   }
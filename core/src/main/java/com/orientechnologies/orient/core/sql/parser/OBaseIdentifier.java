@@ -69,6 +69,13 @@ public class OBaseIdentifier extends SimpleNode {
     return null;
   }
 
+  public OFunctionCall getAggregateFunctionCall() {
+    if (levelZero != null) {
+      return levelZero.getAggregateFunctionCall();
+    }
+    return null;
+  }
+
   public boolean isBaseIdentifier() {
     return suffix!=null && suffix.isBaseIdentifier();
   }
@@ -21,6 +21,14 @@ public class OCluster extends SimpleNode {
     return visitor.visit(this, data);
   }
 
+  public String getClusterName() {
+    return clusterName;
+  }
+
+  public Integer getClusterNumber() {
+    return clusterNumber;
+  }
+
   @Override
   public String toString(String prefix) {
     return super.toString(prefix);
@@ -23,6 +23,10 @@ public class OClusterList extends SimpleNode {
     return visitor.visit(this, data);
   }
 
+  public List<OIdentifier> getClusters() {
+    return clusters;
+  }
+
   public void toString(Map<Object, Object> params, StringBuilder builder) {
 
     builder.append("cluster:[");
@@ -2,6 +2,13 @@
 /* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=true,NODE_PREFIX=O,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
 package com.orientechnologies.orient.core.sql.parser;
 
+import com.orientechnologies.common.listener.OProgressListener;
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.executor.OSelectExecutionPlan;
+import com.orientechnologies.orient.core.sql.query.OSQLAsynchQuery;
+
+import java.util.Iterator;
 import java.util.Map;
 
 public class OExplainStatement extends OStatement {
@@ -21,5 +28,35 @@ public class OExplainStatement extends OStatement {
     builder.append("EXPLAIN ");
     statement.toString(params, builder);
   }
+
+  public OStatement getStatement() {
+    return statement;
+  }
+
+  /**
+   * executes the explained SELECT statement and returns its execution plan, with the number of rows and the time spent by each
+   * step
+   */
+  @Override
+  public Object execute(OSQLAsynchQuery<ODocument> request, OCommandContext context, OProgressListener progressListener) {
+    if (!(statement instanceof OSelectStatement)) {
+      throw new UnsupportedOperationException("Unsupported command: EXPLAIN " + statement.getClass().getSimpleName());
+    }
+
+    long begin = System.nanoTime();
+    OSelectExecutionPlan plan = ((OSelectStatement) statement).createExecutionPlan(context);
+    try {
+      Iterator<?> results = plan.iterator();
+      while (results.hasNext()) {
+        results.next();
+      }
+    } finally {
+      plan.close();
+    }
+
+    ODocument result = plan.toDocument();
+    result.field("elapsed", (System.nanoTime() - begin) / 1000000.0f);
+    return result;
+  }
 }
 /* JavaCC - OriginalChecksum=9fdd24510993cbee32e38a51c838bdb4 (do not edit this line) */
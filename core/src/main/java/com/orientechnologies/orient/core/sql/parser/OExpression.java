@@ -55,6 +55,17 @@ public class OExpression extends SimpleNode {
     return false;
   }
 
+  /**
+   * @return the function call if this expression is just a call of an aggregate function (eg. count(*) or sum(field)), null
+   * otherwise
+   */
+  public OFunctionCall getAggregateFunctionCall() {
+    if (value instanceof OMathExpression) {
+      return ((OMathExpression) value).getAggregateFunctionCall();
+    }
+    return null;
+  }
+
   public boolean isEarlyCalculated() {
     if (value instanceof Number) {
       return true;
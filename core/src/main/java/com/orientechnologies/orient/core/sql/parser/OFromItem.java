@@ -87,5 +87,17 @@ public class OFromItem extends SimpleNode {
   public OBaseIdentifier getIdentifier() {
     return identifier;
   }
+
+  public List<ORid> getRids() {
+    return rids;
+  }
+
+  public OCluster getCluster() {
+    return cluster;
+  }
+
+  public OClusterList getClusterList() {
+    return clusterList;
+  }
 }
 /* JavaCC - OriginalChecksum=f64e3b4d2a2627a1b5d04a7dcb95fa94 (do not edit this line) */
@@ -89,6 +89,58 @@ public class OFunctionCall extends SimpleNode {
     throw new UnsupportedOperationException("This expression is not currently supported: "+toString());
   }
 
+  /**
+   * @return true if the function aggregates the values of all the records, like count(*) or sum(field)
+   */
+  public boolean isAggregate() {
+    OSQLFunction function = OSQLEngine.getInstance().getFunction(name.getStringValue());
+    if (function == null) {
+      return false;
+    }
+    function.config(getConfigurationParams());
+    return function.aggregateResults();
+  }
+
+  /**
+   * @return a new instance of the aggregate function, that keeps the partial result of one group of records
+   */
+  public OSQLFunction createAggregateFunction() {
+    OSQLFunction function = OSQLEngine.getInstance().getFunction(name.getStringValue());
+    function.config(getConfigurationParams());
+    return function;
+  }
+
+  /**
+   * adds a record to the partial result of an aggregate function, the result is returned by OSQLFunction.getResult()
+   *
+   * @param function an instance created with createAggregateFunction()
+   * @param record   the current record
+   * @param ctx      the execution context
+   */
+  public void aggregate(OSQLFunction function, OIdentifiable record, OCommandContext ctx) {
+    Object[] paramValues;
+    if (star) {
+      paramValues = new Object[] { record };
+    } else {
+      paramValues = new Object[params.size()];
+      for (int i = 0; i < paramValues.length; i++) {
+        paramValues[i] = params.get(i).execute(record, ctx);
+      }
+    }
+    function.execute(record, record, null, paramValues, ctx);
+  }
+
+  private Object[] getConfigurationParams() {
+    if (star) {
+      return new Object[] { "*" };
+    }
+    Object[] result = new Object[params.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = params.get(i).toString();
+    }
+    return result;
+  }
+
   public static ODatabaseDocumentInternal getDatabase() {
     return ODatabaseRecordThreadLocal.INSTANCE.get();
   }
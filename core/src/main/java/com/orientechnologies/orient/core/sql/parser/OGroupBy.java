@@ -23,6 +23,10 @@ public class OGroupBy extends SimpleNode {
     return visitor.visit(this, data);
   }
 
+  public List<OExpression> getItems() {
+    return items;
+  }
+
   public void toString(Map<Object, Object> params, StringBuilder builder) {
     builder.append("GROUP BY ");
     for (int i = 0; i < items.size(); i++) {
@@ -55,6 +55,13 @@ public class OLevelZeroIdentifier extends SimpleNode {
     return false;
   }
 
+  public OFunctionCall getAggregateFunctionCall() {
+    if (functionCall != null && functionCall.isAggregate()) {
+      return functionCall;
+    }
+    return null;
+  }
+
   public long estimateIndexedFunction(OFromClause target, OCommandContext context, OBinaryCompareOperator operator, Object right) {
     if (functionCall != null) {
       return functionCall.estimateIndexedFunction(target, context, operator, right);
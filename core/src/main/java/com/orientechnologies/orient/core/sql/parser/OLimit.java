@@ -2,6 +2,9 @@
 /* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=true,NODE_PREFIX=O,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
 package com.orientechnologies.orient.core.sql.parser;
 
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+
 import java.util.Map;
 
 public class OLimit extends SimpleNode {
@@ -23,6 +26,26 @@ public class OLimit extends SimpleNode {
     return visitor.visit(this, data);
   }
 
+  /**
+   * @return value of LIMIT, binding input parameter from the context if needed, -1 if not defined
+   */
+  public int getValue(OCommandContext ctx) {
+    if (num != null) {
+      return num.getValue().intValue();
+    }
+    if (inputParam != null) {
+      Object paramValue = inputParam.bindFromInputParams(ctx.getInputParameters());
+      if (paramValue instanceof OInteger) {
+        return ((OInteger) paramValue).getValue().intValue();
+      }
+      if (paramValue instanceof Number) {
+        return ((Number) paramValue).intValue();
+      }
+      throw new OCommandExecutionException("Invalid value for LIMIT: " + paramValue);
+    }
+    return -1;
+  }
+
   public void toString(Map<Object, Object> params, StringBuilder builder) {
     if (num == null && inputParam == null) {
       return;
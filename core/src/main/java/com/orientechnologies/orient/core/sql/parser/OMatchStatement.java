@@ -250,10 +250,7 @@ public class OMatchStatement extends OStatement implements OCommandExecutor, OIt
         return new OBasicResultSet();// some aliases do not match on any classes
       }
 
-      List<EdgeTraversal> sortedEdges = getTopologicalSortedSchedule(estimatedRootEntries, pattern);
       MatchExecutionPlan executionPlan = new MatchExecutionPlan();
-      executionPlan.sortedEdges = sortedEdges;
-
       calculateMatch(pattern, estimatedRootEntries, new MatchContext(), aliasClasses, aliasFilters, context, request,
           executionPlan);
 
@@ -267,7 +264,8 @@ public class OMatchStatement extends OStatement implements OCommandExecutor, OIt
   }
 
   /**
-   * Start a depth-first traversal from the starting node, adding all viable unscheduled edges and vertices.
+   * Start a depth-first traversal from the starting node, adding all viable unscheduled edges and vertices. Edges are visited in
+   * the order of their estimated fan-out, so the most selective ones are traversed first.
    * @param startNode the node from which to start the depth-first traversal
    * @param visitedNodes set of nodes that are already visited (mutated in this function)
    * @param visitedEdges set of edges that are already visited and therefore don't need to be scheduled
@@ -278,7 +276,8 @@ public class OMatchStatement extends OStatement implements OCommandExecutor, OIt
    */
   private void updateScheduleStartingAt(PatternNode startNode, Set<PatternNode> visitedNodes,
                                         Set<PatternEdge> visitedEdges, Map<String, Set<String>> remainingDependencies,
-                                        List<EdgeTraversal> resultingSchedule) {
+                                        List<EdgeTraversal> resultingSchedule, PatternPlanner planner,
+                                        final Map<String, Long> estimatedRootEntries) {
     // OrientDB requires the schedule to contain all edges present in the query, which is a stronger condition
     // than simply visiting all nodes in the query. Consider the following example query:
     //     MATCH {
@@ -313,7 +312,18 @@ public class OMatchStatement extends OStatement implements OCommandExecutor, OIt
       edges.put(inEdge, false);
     }
 
-    for (Map.Entry<PatternEdge, Boolean> edgeData : edges.entrySet()) {
+    List<Map.Entry<PatternEdge, Boolean>> sortedEdges = new ArrayList<Map.Entry<PatternEdge, Boolean>>(edges.entrySet());
+    final Map<PatternEdge, Double> fanOuts = new IdentityHashMap<PatternEdge, Double>();
+    for (Map.Entry<PatternEdge, Boolean> edgeData : sortedEdges) {
+      fanOuts.put(edgeData.getKey(), planner.selectiveFanOut(edgeData.getKey(), edgeData.getValue(), estimatedRootEntries));
+    }
+    Collections.sort(sortedEdges, new Comparator<Map.Entry<PatternEdge, Boolean>>() {
+      @Override public int compare(Map.Entry<PatternEdge, Boolean> o1, Map.Entry<PatternEdge, Boolean> o2) {
+        return Double.compare(fanOuts.get(o1.getKey()), fanOuts.get(o2.getKey()));
+      }
+    });
+
+    for (Map.Entry<PatternEdge, Boolean> edgeData : sortedEdges) {
       PatternEdge edge = edgeData.getKey();
       boolean isOutbound = edgeData.getValue();
       PatternNode neighboringNode = isOutbound ? edge.in : edge.out;
@@ -360,7 +370,8 @@ public class OMatchStatement extends OStatement implements OCommandExecutor, OIt
 
         visitedEdges.add(edge);
         resultingSchedule.add(new EdgeTraversal(edge, isOutbound));
-        updateScheduleStartingAt(neighboringNode, visitedNodes, visitedEdges, remainingDependencies, resultingSchedule);
+        updateScheduleStartingAt(neighboringNode, visitedNodes, visitedEdges, remainingDependencies, resultingSchedule, planner,
+            estimatedRootEntries);
       }
     }
   }
@@ -391,14 +402,11 @@ public class OMatchStatement extends OStatement implements OCommandExecutor, OIt
   }
 
   /**
-   * sort edges in the order they will be matched
+   * sort edges in the order they will be matched. Every possible root is tried as the starting point and the schedule with the
+   * lowest estimated amount of intermediate matches is chosen
    */
-  private List<EdgeTraversal> getTopologicalSortedSchedule(Map<String, Long> estimatedRootEntries, Pattern pattern) {
-    List<EdgeTraversal> resultingSchedule = new ArrayList<EdgeTraversal>();
-    Map<String, Set<String>> remainingDependencies = getDependencies(pattern);
-    Set<PatternNode> visitedNodes = new HashSet<PatternNode>();
-    Set<PatternEdge> visitedEdges = new HashSet<PatternEdge>();
-
+  private List<EdgeTraversal> getTopologicalSortedSchedule(Map<String, Long> estimatedRootEntries, Pattern pattern,
+      PatternPlanner planner) {
     // Sort the possible root vertices in order of estimated size, since we want to start with a small vertex set.
     List<OPair<Long, String>> rootWeights = new ArrayList<OPair<Long, String>>();
     for (Map.Entry<String, Long> root : estimatedRootEntries.entrySet()) {
@@ -406,11 +414,46 @@ public class OMatchStatement extends OStatement implements OCommandExecutor, OIt
     }
     Collections.sort(rootWeights);
 
-    // Add the starting vertices, in the correct order, to an ordered set.
-    Set<String> remainingStarts = new LinkedHashSet<String>();
+    List<String> roots = new ArrayList<String>();
     for (OPair<Long, String> item : rootWeights) {
-      remainingStarts.add(item.getValue());
+      roots.add(item.getValue());
     }
+
+    List<EdgeTraversal> bestSchedule = getTopologicalSortedSchedule(roots, estimatedRootEntries, pattern, planner);
+    double bestCost = planner.cost(bestSchedule, estimatedRootEntries);
+
+    for (String root : roots) {
+      if (!getDependencies(pattern).get(root).isEmpty()) {
+        continue;
+      }
+      List<String> starts = new ArrayList<String>();
+      starts.add(root);
+      for (String otherRoot : roots) {
+        if (!otherRoot.equals(root)) {
+          starts.add(otherRoot);
+        }
+      }
+
+      List<EdgeTraversal> schedule = getTopologicalSortedSchedule(starts, estimatedRootEntries, pattern, planner);
+      double cost = planner.cost(schedule, estimatedRootEntries);
+      if (cost < bestCost) {
+        bestSchedule = schedule;
+        bestCost = cost;
+      }
+    }
+
+    return bestSchedule;
+  }
+
+  private List<EdgeTraversal> getTopologicalSortedSchedule(List<String> roots, Map<String, Long> estimatedRootEntries,
+      Pattern pattern, PatternPlanner planner) {
+    List<EdgeTraversal> resultingSchedule = new ArrayList<EdgeTraversal>();
+    Map<String, Set<String>> remainingDependencies = getDependencies(pattern);
+    Set<PatternNode> visitedNodes = new HashSet<PatternNode>();
+    Set<PatternEdge> visitedEdges = new HashSet<PatternEdge>();
+
+    // Add the starting vertices, in the correct order, to an ordered set.
+    Set<String> remainingStarts = new LinkedHashSet<String>(roots);
     // Add all the remaining aliases after all the suggested start points.
     for (String alias : pattern.aliasToNode.keySet()) {
       if (!remainingStarts.contains(alias)) {
@@ -448,7 +491,8 @@ public class OMatchStatement extends OStatement implements OCommandExecutor, OIt
 
       // 2. Having found a starting vertex, traverse its neighbors depth-first,
       //    adding any non-visited ones with satisfied dependencies to our schedule.
-      updateScheduleStartingAt(startingNode, visitedNodes, visitedEdges, remainingDependencies, resultingSchedule);
+      updateScheduleStartingAt(startingNode, visitedNodes, visitedEdges, remainingDependencies, resultingSchedule, planner,
+          estimatedRootEntries);
     }
 
     if (resultingSchedule.size() != pattern.numOfEdges) {
@@ -500,6 +544,19 @@ public class OMatchStatement extends OStatement implements OCommandExecutor, OIt
       executionPlan.preFetchedAliases.put(nextAlias, estimatedRootEntries.get(nextAlias));
     }
 
+    PatternPlanner planner = new PatternPlanner(pattern, aliasClasses, aliasFilters, getDependencies(pattern), iCommandContext);
+    // meet in the middle on paths between aliases with known candidates
+    if (!planner.reduceCandidates(matchContext.candidates)) {
+      return true;
+    }
+    Map<String, Long> estimatedEntries = new LinkedHashMap<String, Long>(estimatedRootEntries);
+    for (Map.Entry<String, Iterable> candidates : matchContext.candidates.entrySet()) {
+      if (candidates.getValue() instanceof Collection) {
+        estimatedEntries.put(candidates.getKey(), (long) ((Collection) candidates.getValue()).size());
+      }
+    }
+    executionPlan.sortedEdges = getTopologicalSortedSchedule(estimatedEntries, pattern, planner);
+
     // pick first edge (as sorted before)
     EdgeTraversal firstEdge = executionPlan.sortedEdges.size() == 0 ? null : executionPlan.sortedEdges.get(0);
     String smallestAlias = null;
@@ -621,14 +678,12 @@ public class OMatchStatement extends OStatement implements OCommandExecutor, OIt
           } else if (prevMatchedRightValues != null && prevMatchedRightValues.iterator().hasNext()) {// just matching against
             // known
             // values
-            for (OIdentifiable id : prevMatchedRightValues) {
-              if (id.getIdentity().equals(rightValue.getIdentity())) {
-                MatchContext childContext = matchContext.copy(outEdge.in.alias, id);
-                childContext.currentEdgeNumber = matchContext.currentEdgeNumber + 1;
-                childContext.matchedEdges.put(outEdge, true);
-                if (!processContext(pattern, executionPlan, childContext, aliasClasses, aliasFilters, iCommandContext, request)) {
-                  return false;
-                }
+            if (isCandidate(prevMatchedRightValues, rightValue)) {
+              MatchContext childContext = matchContext.copy(outEdge.in.alias, rightValue.getIdentity());
+              childContext.currentEdgeNumber = matchContext.currentEdgeNumber + 1;
+              childContext.matchedEdges.put(outEdge, true);
+              if (!processContext(pattern, executionPlan, childContext, aliasClasses, aliasFilters, iCommandContext, request)) {
+                return false;
               }
             }
           } else {// searching for neighbors
@@ -688,15 +743,13 @@ public class OMatchStatement extends OStatement implements OCommandExecutor, OIt
             } else if (prevMatchedRightValues != null && prevMatchedRightValues.iterator().hasNext()) {// just matching against
               // known
               // values
-              for (OIdentifiable id : prevMatchedRightValues) {
-                if (id.getIdentity().equals(leftValue.getIdentity())) {
-                  MatchContext childContext = matchContext.copy(inEdge.out.alias, id);
-                  childContext.currentEdgeNumber = matchContext.currentEdgeNumber + 1;
-                  childContext.matchedEdges.put(inEdge, true);
-
-                  if (!processContext(pattern, executionPlan, childContext, aliasClasses, aliasFilters, iCommandContext, request)) {
-                    return false;
-                  }
+              if (isCandidate(prevMatchedRightValues, leftValue)) {
+                MatchContext childContext = matchContext.copy(inEdge.out.alias, leftValue.getIdentity());
+                childContext.currentEdgeNumber = matchContext.currentEdgeNumber + 1;
+                childContext.matchedEdges.put(inEdge, true);
+
+                if (!processContext(pattern, executionPlan, childContext, aliasClasses, aliasFilters, iCommandContext, request)) {
+                  return false;
                 }
               }
             } else { // searching for neighbors
@@ -738,6 +791,22 @@ public class OMatchStatement extends OStatement implements OCommandExecutor, OIt
     return false;
   }
 
+  /**
+   * checks whether a value is among the prefetched candidates of an alias; candidates are usually a set of RIDs, so the check does
+   * not need to scan them
+   */
+  private boolean isCandidate(Iterable<OIdentifiable> candidates, OIdentifiable value) {
+    if (candidates instanceof Set) {
+      return ((Set) candidates).contains(value.getIdentity());
+    }
+    for (OIdentifiable id : candidates) {
+      if (id.getIdentity().equals(value.getIdentity())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private boolean contains(Object rightValues, OIdentifiable oIdentifiable) {
     if (oIdentifiable == null) {
       return true;
@@ -317,6 +317,17 @@ public class OMathExpression extends SimpleNode {
     return this.childExpressions.get(0).executeIndexedFunction(target, context, operator, right);
   }
 
+  /**
+   * @return the function call if this expression is just a call of an aggregate function (eg. count(*) or sum(field)), null
+   * otherwise
+   */
+  public OFunctionCall getAggregateFunctionCall() {
+    if (childExpressions.size() == 1) {
+      return childExpressions.get(0).getAggregateFunctionCall();
+    }
+    return null;
+  }
+
   public boolean isBaseIdentifier() {
     if (childExpressions.size() == 1) {
       return childExpressions.get(0).isBaseIdentifier();
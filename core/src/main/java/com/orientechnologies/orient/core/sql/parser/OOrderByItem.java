@@ -38,6 +38,14 @@ public class OOrderByItem {
     this.recordAttr = recordAttr;
   }
 
+  public OModifier getModifier() {
+    return modifier;
+  }
+
+  public void setModifier(OModifier modifier) {
+    this.modifier = modifier;
+  }
+
   public ORid getRid() {
     return rid;
   }
@@ -2,6 +2,8 @@
 /* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=true,NODE_PREFIX=O,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
 package com.orientechnologies.orient.core.sql.parser;
 
+import com.orientechnologies.orient.core.id.ORecordId;
+
 import java.util.Map;
 
 public class ORid extends SimpleNode {
@@ -21,6 +23,10 @@ public class ORid extends SimpleNode {
     return visitor.visit(this, data);
   }
 
+  public ORecordId toRecordId() {
+    return new ORecordId(cluster.getValue().intValue(), position.getValue().longValue());
+  }
+
   @Override
   public String toString(String prefix) {
     return "#" + cluster.getValue() + ":" + position.getValue();
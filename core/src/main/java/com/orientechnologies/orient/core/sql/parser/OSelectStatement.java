@@ -2,21 +2,17 @@
 /* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=true,NODE_PREFIX=O,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
 package com.orientechnologies.orient.core.sql.parser;
 
+import com.orientechnologies.common.listener.OProgressListener;
 import com.orientechnologies.orient.core.command.OCommandContext;
-import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
-import com.orientechnologies.orient.core.exception.OCommandExecutionException;
-import com.orientechnologies.orient.core.id.ORID;
-import com.orientechnologies.orient.core.iterator.ORecordIteratorClass;
-import com.orientechnologies.orient.core.iterator.ORecordIteratorClassDescendentOrder;
-import com.orientechnologies.orient.core.metadata.schema.OClass;
-import com.orientechnologies.orient.core.metadata.security.ORole;
-import com.orientechnologies.orient.core.metadata.security.ORule;
-import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQLParsingException;
+import com.orientechnologies.orient.core.sql.executor.OExecutionPlanCache;
+import com.orientechnologies.orient.core.sql.executor.OSelectExecutionPlan;
+import com.orientechnologies.orient.core.sql.query.OSQLAsynchQuery;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import com.orientechnologies.orient.core.storage.OStorage;
 
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -123,6 +119,14 @@ public class OSelectStatement extends OStatement {
     this.limit = limit;
   }
 
+  public OUnwind getUnwind() {
+    return unwind;
+  }
+
+  public void setUnwind(OUnwind unwind) {
+    this.unwind = unwind;
+  }
+
   public OStorage.LOCKING_STRATEGY getLockRecord() {
     return lockRecord;
   }
@@ -242,72 +246,46 @@ public class OSelectStatement extends OStatement {
     return target != null && target.item != null && target.item.index != null;
   }
 
-  public OQueryCursor execute(OCommandContext ctx) {
-    // TODO projections
-    return new OQueryCursor(fetchFromTarget(ctx), whereClause, orderBy, calculateSkip(ctx), calculateLimit(ctx), ctx);
-  }
-
-  private int calculateLimit(OCommandContext ctx) {
-    return -1;// TODO
-  }
-
-  private int calculateSkip(OCommandContext ctx) {
-    return -1;// TODO
-  }
-
-  private Iterator<OIdentifiable> fetchFromTarget(OCommandContext ctx) {
-    OFromItem targetItem = target.getItem();
-    Iterator<OIdentifiable> result = null;
-    if (targetItem.cluster != null) {
-      // TODO
-    } else if (targetItem.identifier != null) {
-      if (targetItem.identifier.isBaseIdentifier()) {
-        String className = targetItem.identifier.toString();
-        OClass oClass = getDatabase().getMetadata().getSchema().getClass(className);
-        if (oClass == null) {
-          throw new OCommandExecutionException("Class not found in database schema: " + className);
-        }
-        if (whereClause != null) {
-          Iterable resultIterable = whereClause.fetchFromIndexes(oClass, ctx);
-          if (resultIterable != null) {
-            result = resultIterable.iterator();
-          }
-        }
-        if (result == null) {
-          boolean ascendingOrder = true;// TODO
-          result = (Iterator<OIdentifiable>) searchInClasses(oClass, true, ascendingOrder);
-        }
-      } else {
-        Object calculationResult = targetItem.identifier.execute(null, ctx);
-        if (calculationResult instanceof Iterable) {
-          result = ((Iterable<OIdentifiable>) calculationResult).iterator();
-        } else if (calculationResult instanceof OIdentifiable) {
-          result = (Iterator) Collections.singleton(calculationResult).iterator();
-        } else {
-          // TODO
+  /**
+   * @param ctx the execution context
+   * @return the execution plan of this statement, taken from the plan cache of the current database if possible
+   */
+  public OSelectExecutionPlan createExecutionPlan(OCommandContext ctx) {
+    return OExecutionPlanCache.get(this, ctx, getDatabase());
+  }
+
+  /**
+   * executes the statement through its execution plan, results are fetched from storage while they are iterated
+   *
+   * @param ctx the execution context
+   * @return the results
+   */
+  public Iterator<OIdentifiable> execute(OCommandContext ctx) {
+    return createExecutionPlan(ctx).iterator();
+  }
+
+  @Override
+  public Object execute(OSQLAsynchQuery<ODocument> request, OCommandContext context, OProgressListener progressListener) {
+    OSelectExecutionPlan plan = createExecutionPlan(context);
+    try {
+      Iterator<OIdentifiable> results = plan.iterator();
+      while (results.hasNext()) {
+        final OIdentifiable record = results.next();
+        if (request.getResultListener() != null && !request.getResultListener().result(record)) {
+          break;
         }
       }
-    } else {
-      // TODO
+    } finally {
+      plan.close();
+      if (request.getResultListener() != null) {
+        request.getResultListener().end();
+      }
     }
 
-    return result;
-  }
-
-  protected Iterator<? extends OIdentifiable> searchInClasses(final OClass iCls, final boolean iPolymorphic,
-      final boolean iAscendentOrder) {
-
-    final ODatabaseDocumentInternal database = getDatabase();
-    database.checkSecurity(ORule.ResourceGeneric.CLASS, ORole.PERMISSION_READ, iCls.getName().toLowerCase());
-
-    final ORID[] range = new ORID[2];// TODO
-    boolean useCache = false;// TODO
-    if (iAscendentOrder)
-      return new ORecordIteratorClass<ORecord>(database, database, iCls.getName(), iPolymorphic, useCache, false).setRange(range[0],
-          range[1]);
-    else
-      return new ORecordIteratorClassDescendentOrder<ORecord>(database, database, iCls.getName(), iPolymorphic).setRange(range[0],
-          range[1]);
+    if (request instanceof OSQLSynchQuery) {
+      return ((OSQLSynchQuery<ODocument>) request).getResult();
+    }
+    return null;
   }
 }
 /* JavaCC - OriginalChecksum=b26959b9726a8cf35d6283eca931da6b (do not edit this line) */
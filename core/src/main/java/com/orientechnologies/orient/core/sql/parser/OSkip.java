@@ -2,6 +2,9 @@
 /* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=true,NODE_PREFIX=O,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
 package com.orientechnologies.orient.core.sql.parser;
 
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+
 import java.util.Map;
 
 public class OSkip extends SimpleNode {
@@ -25,6 +28,26 @@ public class OSkip extends SimpleNode {
 
 
 
+  /**
+   * @return value of SKIP, binding input parameter from the context if needed, -1 if not defined
+   */
+  public int getValue(OCommandContext ctx) {
+    if (num != null) {
+      return num.getValue().intValue();
+    }
+    if (inputParam != null) {
+      Object paramValue = inputParam.bindFromInputParams(ctx.getInputParameters());
+      if (paramValue instanceof OInteger) {
+        return ((OInteger) paramValue).getValue().intValue();
+      }
+      if (paramValue instanceof Number) {
+        return ((Number) paramValue).intValue();
+      }
+      throw new OCommandExecutionException("Invalid value for SKIP: " + paramValue);
+    }
+    return -1;
+  }
+
   public void toString(Map<Object, Object> params, StringBuilder builder) {
     if (num == null && inputParam == null) {
       return;
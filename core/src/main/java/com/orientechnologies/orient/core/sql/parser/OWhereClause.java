@@ -107,10 +107,15 @@ public class OWhereClause extends SimpleNode {
       key = new OCompositeKey();
       for (int i = 0; i < nMatchingKeys; i++) {
         Object keyValue = convert(conditions.get(definitionFields.get(i)), definition.getTypes()[i]);
-        ((OCompositeKey) key).addKey(conditions.get(definitionFields.get(i)));
+        ((OCompositeKey) key).addKey(keyValue);
       }
     }
     if (key != null) {
+      OIndexStatistics statistics = OIndexStatistics.of(index);
+      if (statistics != null) {
+        // avoids loading of all values of key, estimation is never zero if index is not empty
+        return statistics.estimateEquals(key);
+      }
       Object result = index.get(key);
       if(result instanceof OIdentifiable){
         return 1;
@@ -175,6 +180,42 @@ public class OWhereClause extends SimpleNode {
     return result;
   }
 
+  /**
+   * checks whether fetchFromIndexes() can use indexes of the class, ie. if every OR branch of the condition has an equality
+   * condition on the first field of an index. Values of the conditions are not needed, so the result does not depend on the input
+   * parameters.
+   *
+   * @param oClass the target class
+   * @return true if the records can be fetched from indexes
+   */
+  public boolean hasIndexedConditions(OClass oClass) {
+    List<OAndBlock> flattenedConditions = flatten();
+    if (flattenedConditions == null || flattenedConditions.size() == 0) {
+      return false;
+    }
+    Set<OIndex<?>> indexes = oClass.getIndexes();
+    for (OAndBlock condition : flattenedConditions) {
+      Set<String> fields = new HashSet<String>();
+      for (OBooleanExpression expression : condition.subBlocks) {
+        if (isEqualityOperation(expression)) {
+          fields.add(((OBinaryCondition) expression).left.toString());
+        }
+      }
+      boolean indexed = false;
+      for (OIndex index : indexes) {
+        List<String> indexedFields = index.getDefinition().getFields();
+        if (indexedFields.size() > 0 && fields.contains(indexedFields.get(0))) {
+          indexed = true;
+          break;
+        }
+      }
+      if (!indexed) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private Iterable fetchFromIndex(OIndex index, Map<String, Object> conditions) {
     OIndexDefinition definition = index.getDefinition();
     List<String> definitionFields = definition.getFields();
@@ -220,18 +261,22 @@ public class OWhereClause extends SimpleNode {
   private Map<String, Object> getEqualityOperations(OAndBlock condition, OCommandContext ctx) {
     Map<String, Object> result = new HashMap<String, Object>();
     for (OBooleanExpression expression : condition.subBlocks) {
-      if (expression instanceof OBinaryCondition) {
+      if (isEqualityOperation(expression)) {
         OBinaryCondition b = (OBinaryCondition) expression;
-        if (b.operator instanceof OEqualsCompareOperator) {
-          if (b.left.isBaseIdentifier() && b.right.isEarlyCalculated()) {
-            result.put(b.left.toString(), b.right.execute(null, ctx));
-          }
-        }
+        result.put(b.left.toString(), b.right.execute(null, ctx));
       }
     }
     return result;
   }
 
+  private boolean isEqualityOperation(OBooleanExpression expression) {
+    if (expression instanceof OBinaryCondition) {
+      OBinaryCondition b = (OBinaryCondition) expression;
+      return b.operator instanceof OEqualsCompareOperator && b.left.isBaseIdentifier() && b.right.isEarlyCalculated();
+    }
+    return false;
+  }
+
   public List<OAndBlock> flatten() {
     if (this.baseExpression == null) {
       return Collections.EMPTY_LIST;
@@ -0,0 +1,442 @@
+package com.orientechnologies.orient.core.sql.parser;
+
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import java.util.*;
+
+/**
+ * Cost model and candidate reduction of MATCH pattern.
+ * <p>
+ * Fan-out of pattern edges is estimated from cardinality of edge classes and vertex classes involved in traversal, so the schedule
+ * which produces the least amount of intermediate matches can be chosen. Aliases which lie on a path between two aliases with
+ * already known candidates are reduced by bidirectional expansion that meets in the middle: frontiers are expanded set at a time
+ * from both ends, always from the smaller one, so adjacency of each vertex is read only once.
+ */
+class PatternPlanner {
+  /**
+   * Fan-out of traversals which cannot be estimated from schema.
+   */
+  static final double DEFAULT_FAN_OUT       = 10;
+  /**
+   * Depth assumed for recursive traversals without max depth.
+   */
+  static final int    DEFAULT_WHILE_DEPTH   = 3;
+  /**
+   * Maximum amount of vertices in a frontier of bidirectional expansion, expansion is abandoned when it is exceeded.
+   */
+  static final int    MAX_FRONTIER_SIZE     = 100000;
+
+  private final Pattern                   pattern;
+  private final Map<String, String>       aliasClasses;
+  private final Map<String, OWhereClause> aliasFilters;
+  private final Map<String, Set<String>>  dependencies;
+  private final OCommandContext           context;
+  private final OSchema                   schema;
+
+  private final Map<String, Long> classCounts = new HashMap<String, Long>();
+
+  PatternPlanner(Pattern pattern, Map<String, String> aliasClasses, Map<String, OWhereClause> aliasFilters,
+      Map<String, Set<String>> dependencies, OCommandContext context) {
+    this.pattern = pattern;
+    this.aliasClasses = aliasClasses;
+    this.aliasFilters = aliasFilters;
+    this.dependencies = dependencies;
+    this.context = context;
+    this.schema = OMethodCall.getDatabase().getMetadata().getSchema();
+  }
+
+  /**
+   * Estimates amount of records reached from a single record by traversal of the edge.
+   *
+   * @param out <code>true</code> if edge is traversed in the direction in which it is declared in pattern
+   */
+  double fanOut(PatternEdge edge, boolean out) {
+    final OMatchPathItem item = edge.item;
+    if (item.method == null || item.method.methodName == null)
+      return DEFAULT_FAN_OUT;
+
+    String method = item.method.methodName.getStringValue().toLowerCase();
+    if (!out)
+      method = reverse(method);
+
+    final PatternNode source = out ? edge.out : edge.in;
+
+    double fanOut;
+    if (method.equals("out") || method.equals("in") || method.equals("oute") || method.equals("ine"))
+      fanOut = edgeCount(item.method) / Math.max(1, count(aliasClasses.get(source.alias), "V"));
+    else if (method.equals("both") || method.equals("bothe"))
+      fanOut = 2 * edgeCount(item.method) / Math.max(1, count(aliasClasses.get(source.alias), "V"));
+    else if (method.equals("outv") || method.equals("inv"))
+      fanOut = 1;
+    else if (method.equals("bothv"))
+      fanOut = 2;
+    else
+      fanOut = DEFAULT_FAN_OUT;
+
+    if (item.filter != null && (item.filter.getWhileCondition() != null || item.filter.getMaxDepth() != null)) {
+      final int depth = item.filter.getMaxDepth() != null ? item.filter.getMaxDepth() : DEFAULT_WHILE_DEPTH;
+      fanOut = Math.pow(Math.max(1, fanOut), depth);
+    }
+
+    return fanOut;
+  }
+
+  /**
+   * Estimates amount of records reached from a single record by traversal of the edge which match class and filter of the target
+   * alias.
+   */
+  double selectiveFanOut(PatternEdge edge, boolean out, Map<String, Long> estimatedRootEntries) {
+    final PatternNode target = out ? edge.in : edge.out;
+    final double fanOut = fanOut(edge, out) * selectivity(target.alias, estimatedRootEntries);
+    return target.isOptionalNode() ? Math.max(1, fanOut) : fanOut;
+  }
+
+  /**
+   * Estimates total amount of partial matches produced while the schedule is executed.
+   *
+   * @return Cost of schedule or {@link Double#POSITIVE_INFINITY} if schedule cannot be executed.
+   */
+  double cost(List<OMatchStatement.EdgeTraversal> schedule, Map<String, Long> estimatedRootEntries) {
+    final Set<String> visited = new HashSet<String>();
+    double matches = 1;
+    double cost = 0;
+
+    for (OMatchStatement.EdgeTraversal traversal : schedule) {
+      if (!traversal.out && !traversal.edge.item.isBidirectional())
+        return Double.POSITIVE_INFINITY;
+
+      final PatternNode source = traversal.out ? traversal.edge.out : traversal.edge.in;
+      final PatternNode target = traversal.out ? traversal.edge.in : traversal.edge.out;
+
+      if (visited.add(source.alias)) {
+        // start of a disjoint part of pattern
+        matches *= rootEntries(source.alias, estimatedRootEntries);
+        cost += matches;
+      }
+
+      if (visited.contains(target.alias)) {
+        // both ends are matched, traversal only checks that they are connected
+        matches *= Math.min(1, fanOut(traversal.edge, traversal.out) / Math.max(1, rootEntries(target.alias, estimatedRootEntries)));
+      } else {
+        matches *= selectiveFanOut(traversal.edge, traversal.out, estimatedRootEntries);
+        visited.add(target.alias);
+      }
+
+      cost += matches;
+    }
+
+    return cost;
+  }
+
+  /**
+   * Reduces candidates of aliases which lie on paths between aliases with known candidates. Only candidates which are reachable
+   * from both ends of a path are kept, candidates of inner aliases of paths are added.
+   *
+   * @param candidates Known candidates of aliases, changed in place.
+   * @return <code>false</code> if some alias has no candidate left, so pattern has no match.
+   */
+  boolean reduceCandidates(Map<String, Iterable> candidates) {
+    final Set<PatternEdge> reducedEdges = Collections.newSetFromMap(new IdentityHashMap<PatternEdge, Boolean>());
+
+    for (String alias : new ArrayList<String>(candidates.keySet())) {
+      final PatternNode start = pattern.get(alias);
+      if (start == null || start.isOptionalNode())
+        continue;
+
+      for (PatternEdge edge : incidentEdges(start)) {
+        if (reducedEdges.contains(edge))
+          continue;
+
+        final List<PatternNode> nodes = new ArrayList<PatternNode>();
+        final List<PatternEdge> edges = new ArrayList<PatternEdge>();
+        if (!findPath(start, edge, candidates, nodes, edges))
+          continue;
+
+        reducedEdges.addAll(edges);
+        if (!reducePath(nodes, edges, candidates))
+          return false;
+      }
+    }
+
+    return true;
+  }
+
+  private boolean findPath(PatternNode start, PatternEdge firstEdge, Map<String, Iterable> candidates, List<PatternNode> nodes,
+      List<PatternEdge> edges) {
+    nodes.add(start);
+
+    PatternNode current = start;
+    PatternEdge edge = firstEdge;
+    while (true) {
+      if (!edge.item.isBidirectional())
+        return false;
+
+      final PatternNode next = edge.out == current ? edge.in : edge.out;
+      if (next == start || nodes.contains(next) || next.isOptionalNode() || !dependencies.get(next.alias).isEmpty())
+        return false;
+
+      nodes.add(next);
+      edges.add(edge);
+
+      if (candidates.get(next.alias) instanceof Set)
+        return true;
+
+      // only inner aliases which are not constrained by other parts of pattern are reduced
+      final List<PatternEdge> nextEdges = incidentEdges(next);
+      if (nextEdges.size() != 2)
+        return false;
+
+      current = next;
+      edge = nextEdges.get(0) == edge ? nextEdges.get(1) : nextEdges.get(0);
+    }
+  }
+
+  private boolean reducePath(List<PatternNode> nodes, List<PatternEdge> edges, Map<String, Iterable> candidates) {
+    final int last = nodes.size() - 1;
+
+    final List<Set<ORID>> sets = new ArrayList<Set<ORID>>(nodes.size());
+    final List<Map<ORID, Set<ORID>>> forward = new ArrayList<Map<ORID, Set<ORID>>>(nodes.size());
+    final List<Map<ORID, Set<ORID>>> backward = new ArrayList<Map<ORID, Set<ORID>>>(nodes.size());
+    for (int i = 0; i <= last; i++) {
+      sets.add(null);
+      forward.add(new HashMap<ORID, Set<ORID>>());
+      backward.add(new HashMap<ORID, Set<ORID>>());
+    }
+
+    sets.set(0, toRids(candidates.get(nodes.get(0).alias)));
+    sets.set(last, toRids(candidates.get(nodes.get(last).alias)));
+
+    // expand the smaller frontier till frontiers meet
+    int left = 0;
+    int right = last;
+    while (right - left > 1) {
+      final Set<ORID> expanded;
+      if (sets.get(left).size() <= sets.get(right).size()) {
+        expanded = expand(sets.get(left), edges.get(left), nodes.get(left), nodes.get(left + 1), null, forward.get(left));
+        left++;
+        sets.set(left, expanded);
+      } else {
+        expanded = expand(sets.get(right), edges.get(right - 1), nodes.get(right), nodes.get(right - 1), null,
+            backward.get(right));
+        right--;
+        sets.set(right, expanded);
+      }
+
+      if (expanded == null)
+        return true;
+      if (expanded.isEmpty())
+        return false;
+    }
+
+    // join frontiers
+    final Set<ORID> met = expand(sets.get(left), edges.get(left), nodes.get(left), nodes.get(right), sets.get(right),
+        forward.get(left));
+    if (met == null)
+      return true;
+
+    sets.set(right, met);
+    sets.set(left, new HashSet<ORID>(forward.get(left).keySet()));
+
+    // keep only candidates which are connected to the other end
+    for (int i = left - 1; i >= 0; i--)
+      sets.set(i, connected(sets.get(i), forward.get(i), sets.get(i + 1)));
+    for (int i = right + 1; i <= last; i++)
+      sets.set(i, connected(sets.get(i), backward.get(i), sets.get(i - 1)));
+
+    for (int i = 0; i <= last; i++) {
+      if (sets.get(i).isEmpty())
+        return false;
+
+      candidates.put(nodes.get(i).alias, sets.get(i));
+    }
+
+    return true;
+  }
+
+  /**
+   * Traverses edge from all records of frontier at once.
+   *
+   * @param allowed   Records which may be reached or <code>null</code> if any record which matches target alias may be reached.
+   * @param adjacency Filled with reached records of every source record that reaches any.
+   * @return Reached records or <code>null</code> if there are too many of them.
+   */
+  private Set<ORID> expand(Set<ORID> frontier, PatternEdge edge, PatternNode source, PatternNode target, Set<ORID> allowed,
+      Map<ORID, Set<ORID>> adjacency) {
+    final boolean declaredDirection = edge.out == source;
+    final OClass targetClass = aliasClasses.get(target.alias) != null ? schema.getClass(aliasClasses.get(target.alias)) : null;
+    final OWhereClause targetFilter = aliasFilters.get(target.alias);
+
+    final Map<ORID, Boolean> accepted = new HashMap<ORID, Boolean>();
+    final Set<ORID> result = new HashSet<ORID>();
+
+    for (ORID rid : frontier) {
+      final Object reached = declaredDirection ?
+          edge.item.method.execute(rid, (Iterable) allowed, context) :
+          edge.item.method.executeReverse(rid, context);
+
+      final Iterable<?> values = reached instanceof Iterable ? (Iterable<?>) reached : Collections.singleton(reached);
+      Set<ORID> neighbors = null;
+      for (Object value : values) {
+        if (!(value instanceof OIdentifiable))
+          continue;
+
+        final ORID neighbor = ((OIdentifiable) value).getIdentity();
+        if (allowed != null && !allowed.contains(neighbor))
+          continue;
+
+        Boolean matches = accepted.get(neighbor);
+        if (matches == null) {
+          matches = matches(neighbor, targetClass, targetFilter);
+          accepted.put(neighbor, matches);
+        }
+        if (!matches)
+          continue;
+
+        if (neighbors == null) {
+          neighbors = new HashSet<ORID>();
+          adjacency.put(rid, neighbors);
+        }
+        neighbors.add(neighbor);
+        result.add(neighbor);
+      }
+
+      if (result.size() > MAX_FRONTIER_SIZE)
+        return null;
+    }
+
+    return result;
+  }
+
+  private boolean matches(ORID rid, OClass oClass, OWhereClause filter) {
+    final ORecord record = rid.getRecord();
+    if (record == null)
+      return false;
+
+    if (oClass != null) {
+      if (!(record instanceof ODocument))
+        return false;
+
+      final OClass recordClass = ((ODocument) record).getSchemaClass();
+      if (recordClass == null || !recordClass.isSubClassOf(oClass))
+        return false;
+    }
+
+    if (filter == null)
+      return true;
+
+    final Object previousMatch = context.getVariable("$currentMatch");
+    context.setVariable("$currentMatch", record);
+    try {
+      return filter.matchesFilters(record, context);
+    } finally {
+      context.setVariable("$currentMatch", previousMatch);
+    }
+  }
+
+  private static Set<ORID> connected(Set<ORID> records, Map<ORID, Set<ORID>> adjacency, Set<ORID> reachable) {
+    final Set<ORID> result = new HashSet<ORID>();
+    for (ORID rid : records) {
+      final Set<ORID> neighbors = adjacency.get(rid);
+      if (neighbors == null)
+        continue;
+
+      for (ORID neighbor : neighbors) {
+        if (reachable.contains(neighbor)) {
+          result.add(rid);
+          break;
+        }
+      }
+    }
+
+    return result;
+  }
+
+  private static Set<ORID> toRids(Iterable candidates) {
+    final Set<ORID> result = new HashSet<ORID>();
+    for (Object candidate : candidates) {
+      if (candidate instanceof OIdentifiable)
+        result.add(((OIdentifiable) candidate).getIdentity());
+    }
+
+    return result;
+  }
+
+  private static List<PatternEdge> incidentEdges(PatternNode node) {
+    final List<PatternEdge> result = new ArrayList<PatternEdge>(node.out.size() + node.in.size());
+    result.addAll(node.out);
+    result.addAll(node.in);
+    return result;
+  }
+
+  private double selectivity(String alias, Map<String, Long> estimatedRootEntries) {
+    final Long entries = estimatedRootEntries.get(alias);
+    final String className = aliasClasses.get(alias);
+    if (entries == null || className == null)
+      return 1;
+
+    return Math.min(1, (double) entries / Math.max(1, count(className, null)));
+  }
+
+  private double rootEntries(String alias, Map<String, Long> estimatedRootEntries) {
+    final Long entries = estimatedRootEntries.get(alias);
+    if (entries != null)
+      return entries;
+
+    return Math.max(1, count(aliasClasses.get(alias), "V"));
+  }
+
+  private double edgeCount(OMethodCall method) {
+    if (method.params.isEmpty())
+      return count("E", null);
+
+    double result = 0;
+    for (OExpression param : method.params) {
+      final Object edgeClass = param.execute((OIdentifiable) null, context);
+      if (edgeClass == null)
+        return count("E", null);
+
+      result += count(edgeClass.toString(), null);
+    }
+
+    return result;
+  }
+
+  private long count(String className, String defaultClassName) {
+    if (className == null)
+      className = defaultClassName;
+    if (className == null)
+      return 0;
+
+    Long result = classCounts.get(className);
+    if (result == null) {
+      final OClass oClass = schema.getClass(className);
+      result = oClass != null ? oClass.count() : 0;
+      classCounts.put(className, result);
+    }
+
+    return result;
+  }
+
+  private static String reverse(String method) {
+    if (method.equals("out"))
+      return "in";
+    if (method.equals("in"))
+      return "out";
+    if (method.equals("oute"))
+      return "outv";
+    if (method.equals("outv"))
+      return "oute";
+    if (method.equals("ine"))
+      return "inv";
+    if (method.equals("inv"))
+      return "ine";
+
+    return method;
+  }
+}
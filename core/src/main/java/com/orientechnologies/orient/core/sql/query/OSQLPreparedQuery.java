@@ -0,0 +1,53 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.core.sql.query;
+
+import com.orientechnologies.orient.core.sql.OSQLPreparedStatement;
+
+/**
+ * SQL synchronous query which executes a prepared statement, so it shares with the other executions of the statement the indexes
+ * chosen for the same signature of parameters. Create a new instance for every execution. Against a remote database the statement
+ * is prepared on the server the first time it is executed by the session, then only its handle and the parameters are sent.
+ *
+ * @param <T>
+ * @see OSQLPreparedStatement
+ */
+@SuppressWarnings("serial")
+public class OSQLPreparedQuery<T extends Object> extends OSQLSynchQuery<T> {
+  private final transient OSQLPreparedStatement statement;
+
+  /**
+   * Used to read the parameters and the options of an execution sent by a remote client, the statement is the one prepared by the
+   * server.
+   */
+  public OSQLPreparedQuery() {
+    this.statement = null;
+  }
+
+  public OSQLPreparedQuery(final OSQLPreparedStatement statement) {
+    super(statement.getText());
+    this.statement = statement;
+  }
+
+  public OSQLPreparedStatement getPreparedStatement() {
+    return statement;
+  }
+}
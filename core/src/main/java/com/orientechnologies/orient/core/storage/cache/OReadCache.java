@@ -74,6 +74,16 @@ public interface OReadCache {
 
   long getUsedMemory();
 
+  /**
+   * Changes amount of memory which may be used by given cache. This method may consume many resources if amount of memory provided
+   * in parameter is much less than current amount of memory.
+   *
+   * @param readCacheMaxMemory New maximum size of cache in bytes.
+   *
+   * @throws IllegalStateException In case of new size of disk cache is too small to hold existing pinned pages.
+   */
+  void changeMaximumAmountOfMemory(long readCacheMaxMemory) throws IllegalStateException;
+
   void clear();
 
   void truncateFile(long fileId, OWriteCache writeCache) throws IOException;
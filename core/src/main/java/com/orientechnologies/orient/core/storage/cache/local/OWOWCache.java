@@ -30,7 +30,9 @@ import com.orientechnologies.common.serialization.types.OIntegerSerializer;
 import com.orientechnologies.common.serialization.types.OLongSerializer;
 import com.orientechnologies.common.types.OModifiableBoolean;
 import com.orientechnologies.orient.core.command.OCommandOutputListener;
+import com.orientechnologies.orient.core.config.OContextConfiguration;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.config.OStorageConfiguration;
 import com.orientechnologies.orient.core.exception.OStorageException;
 import com.orientechnologies.orient.core.exception.OWriteCacheException;
 import com.orientechnologies.orient.core.metadata.schema.OType;
@@ -41,6 +43,7 @@ import com.orientechnologies.orient.core.storage.cache.OCachePointer;
 import com.orientechnologies.orient.core.storage.cache.OPageDataVerificationError;
 import com.orientechnologies.orient.core.storage.cache.OWriteCache;
 import com.orientechnologies.orient.core.storage.fs.OFileClassic;
+import com.orientechnologies.orient.core.storage.fs.OFileMMap;
 import com.orientechnologies.orient.core.storage.impl.local.OLowDiskSpaceInformation;
 import com.orientechnologies.orient.core.storage.impl.local.OLowDiskSpaceListener;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.OLocalPaginatedStorage;
@@ -50,14 +53,18 @@ import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OWrite
 import com.orientechnologies.orient.core.storage.impl.local.statistic.OPerformanceStatisticManager;
 import com.orientechnologies.orient.core.storage.impl.local.statistic.OSessionStoragePerformanceStatistic;
 
+import javax.management.*;
 import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
 import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.zip.CRC32;
@@ -66,7 +73,9 @@ import java.util.zip.CRC32;
  * @author Andrey Lomakin
  * @since 7/23/13
  */
-public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCachePointer.WritersListener {
+public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCachePointer.WritersListener, OWOWCacheMXBean {
+  public static final String MBEAN_NAME = "com.orientechnologies.orient.core.storage.cache.local:type=OWOWCacheMXBean";
+
   // we add 8 bytes before and after cache pages to prevent word tearing in mt case.
 
   private final int MAX_PAGES_PER_FLUSH;
@@ -81,6 +90,11 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
 
   private static final double MAX_LSN_SEGMENT_DISTANCE_FACTOR = 0.75;
 
+  /**
+   * Maximum amount of contiguous pages which are written to the file by single vectored write.
+   */
+  private static final int MAX_PAGES_PER_WRITE = 64;
+
   private final long freeSpaceLimit = OGlobalConfiguration.DISK_CACHE_FREE_SPACE_LIMIT.getValueAsLong() * 1024L * 1024L;
 
   private final int                                        diskSizeCheckInterval = OGlobalConfiguration.DISC_CACHE_FREE_SPACE_CHECK_INTERVAL_IN_PAGES
@@ -111,6 +125,14 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
   private final OReadersWriterSpinLock filesLock = new OReadersWriterSpinLock();
   private final ScheduledExecutorService commitExecutor;
 
+  /**
+   * Executor which writes pages selected by tasks of {@link #commitExecutor}, <code>null</code> if only single flush worker is
+   * used and pages are written by commit executor itself.
+   */
+  private final ExecutorService        flushExecutor;
+  private final FlushWorkerStatistic[] flushWorkerStatistics;
+  private final AtomicBoolean mbeanIsRegistered = new AtomicBoolean();
+
   private final ExecutorService lowSpaceEventsPublisher;
 
   private volatile ConcurrentMap<String, Integer> nameIdMap;
@@ -173,6 +195,16 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
       commitExecutor = Executors.newSingleThreadScheduledExecutor(new FlushThreadFactory(storageLocal.getName()));
       lowSpaceEventsPublisher = Executors.newCachedThreadPool(new LowSpaceEventsPublisherFactory(storageLocal.getName()));
 
+      final int flushWorkers = Math.max(1, OGlobalConfiguration.DISK_WRITE_CACHE_FLUSH_THREADS.getValueAsInteger());
+      flushWorkerStatistics = new FlushWorkerStatistic[flushWorkers];
+      for (int i = 0; i < flushWorkers; i++)
+        flushWorkerStatistics[i] = new FlushWorkerStatistic();
+
+      if (flushWorkers > 1)
+        flushExecutor = Executors.newFixedThreadPool(flushWorkers, new FlushWorkerThreadFactory(storageLocal.getName()));
+      else
+        flushExecutor = null;
+
       MAX_PAGES_PER_FLUSH = (int) (4000 / (1000.0 / pageFlushInterval));
 
       if (pageFlushInterval > 0)
@@ -708,28 +740,31 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
   }
 
   public void flush(final long fileId) {
-    final Future<Void> future = commitExecutor.submit(new FileFlushTask(extractFileId(fileId)));
-    try {
-      future.get();
-    } catch (InterruptedException e) {
-      Thread.interrupted();
-      throw new OInterruptedException("File flush was interrupted");
-    } catch (Exception e) {
-      throw OException.wrapException(new OWriteCacheException("File flush was abnormally terminated"), e);
-    }
+    flushFiles(Collections.singletonList(extractFileId(fileId)));
   }
 
   public void flush() {
-    int counter = 0;
+    final List<Integer> fileIds = new ArrayList<Integer>();
     for (int intId : nameIdMap.values()) {
       if (intId < 0)
         continue;
 
-      final long externalId = composeFileId(id, intId);
-      flush(externalId);
-      counter++;
+      fileIds.add(intId);
     }
 
+    flushFiles(fileIds);
+  }
+
+  private void flushFiles(final List<Integer> fileIds) {
+    final Future<Void> future = commitExecutor.submit(new FileFlushTask(fileIds));
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.interrupted();
+      throw new OInterruptedException("File flush was interrupted");
+    } catch (Exception e) {
+      throw OException.wrapException(new OWriteCacheException("File flush was abnormally terminated"), e);
+    }
   }
 
   public long getFilledUpTo(long fileId) throws IOException {
@@ -844,6 +879,14 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
       }
     }
 
+    stopFlushWorkers();
+
+    try {
+      unregisterMBean();
+    } catch (Exception e) {
+      OLogManager.instance().error(this, "MBean for write cache cannot be unregistered", e);
+    }
+
     final List<Long> result = new ArrayList<Long>();
 
     filesLock.acquireWriteLock();
@@ -1059,6 +1102,14 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
       }
     }
 
+    stopFlushWorkers();
+
+    try {
+      unregisterMBean();
+    } catch (Exception e) {
+      OLogManager.instance().error(this, "MBean for write cache cannot be unregistered", e);
+    }
+
     final long[] ids = new long[result.size()];
     int counter = 0;
     for (long id : result) {
@@ -1092,14 +1143,135 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
     return cacheOverflowCount.get();
   }
 
+  @Override
   public long getWriteCacheSize() {
     return writeCacheSize.get();
   }
 
+  @Override
   public long getExclusiveWriteCacheSize() {
     return exclusiveWriteCacheSize.get();
   }
 
+  @Override
+  public long getWriteCacheSizeInMB() {
+    return getWriteCacheSize() * pageSize / (1024 * 1024);
+  }
+
+  @Override
+  public double getWriteCacheSizeInGB() {
+    return ((double) getWriteCacheSize() * pageSize) / (1024 * 1024 * 1024);
+  }
+
+  @Override
+  public long getExclusiveWriteCacheSizeInMB() {
+    return getExclusiveWriteCacheSize() * pageSize / (1024 * 1024);
+  }
+
+  @Override
+  public double getExclusiveWriteCacheSizeInGB() {
+    return ((double) getExclusiveWriteCacheSize() * pageSize) / (1024 * 1024 * 1024);
+  }
+
+  @Override
+  public int getFlushWorkersCount() {
+    return flushWorkerStatistics.length;
+  }
+
+  @Override
+  public long[] getFlushedPagesPerWorker() {
+    final long[] result = new long[flushWorkerStatistics.length];
+    for (int i = 0; i < result.length; i++)
+      result[i] = flushWorkerStatistics[i].flushedPages.get();
+
+    return result;
+  }
+
+  @Override
+  public long[] getWriteOperationsPerWorker() {
+    final long[] result = new long[flushWorkerStatistics.length];
+    for (int i = 0; i < result.length; i++)
+      result[i] = flushWorkerStatistics[i].writeOperations.get();
+
+    return result;
+  }
+
+  @Override
+  public double[] getFlushThroughputPerWorkerInMB() {
+    final double[] result = new double[flushWorkerStatistics.length];
+    for (int i = 0; i < result.length; i++) {
+      final FlushWorkerStatistic statistic = flushWorkerStatistics[i];
+      final long flushTime = statistic.flushTime.get();
+
+      if (flushTime > 0)
+        result[i] = ((double) statistic.flushedPages.get() * pageSize / (1024 * 1024)) / (flushTime / 1000000000.0);
+    }
+
+    return result;
+  }
+
+  public void registerMBean() {
+    if (mbeanIsRegistered.compareAndSet(false, true)) {
+      try {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName mbeanName = new ObjectName(getMBeanName());
+
+        if (!server.isRegistered(mbeanName)) {
+          server.registerMBean(this, mbeanName);
+        } else {
+          mbeanIsRegistered.set(false);
+          OLogManager.instance().warn(this,
+              "MBean with name %s has already registered. Probably your system was not shutdown correctly "
+                  + "or you have several running applications which use OrientDB engine inside", mbeanName.getCanonicalName());
+        }
+
+      } catch (MalformedObjectNameException e) {
+        throw OException.wrapException(new OStorageException("Error during registration of write cache MBean"), e);
+      } catch (InstanceAlreadyExistsException e) {
+        throw OException.wrapException(new OStorageException("Error during registration of write cache MBean"), e);
+      } catch (MBeanRegistrationException e) {
+        throw OException.wrapException(new OStorageException("Error during registration of write cache MBean"), e);
+      } catch (NotCompliantMBeanException e) {
+        throw OException.wrapException(new OStorageException("Error during registration of write cache MBean"), e);
+      }
+    }
+  }
+
+  private String getMBeanName() {
+    return MBEAN_NAME + ",name=" + ObjectName.quote(storageLocal.getName()) + ",id=" + id;
+  }
+
+  public void unregisterMBean() {
+    if (mbeanIsRegistered.compareAndSet(true, false)) {
+      try {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName mbeanName = new ObjectName(getMBeanName());
+        server.unregisterMBean(mbeanName);
+      } catch (MalformedObjectNameException e) {
+        throw OException.wrapException(new OStorageException("Error during unregistration of write cache MBean"), e);
+      } catch (InstanceNotFoundException e) {
+        throw OException.wrapException(new OStorageException("Error during unregistration of write cache MBean"), e);
+      } catch (MBeanRegistrationException e) {
+        throw OException.wrapException(new OStorageException("Error during unregistration of write cache MBean"), e);
+      }
+    }
+  }
+
+  private void stopFlushWorkers() {
+    if (flushExecutor != null && !flushExecutor.isShutdown()) {
+      flushExecutor.shutdown();
+      try {
+        if (!flushExecutor.awaitTermination(5, TimeUnit.MINUTES))
+          throw new OWriteCacheException("Background data flush workers cannot be stopped.");
+      } catch (InterruptedException e) {
+        OLogManager.instance().error(this, "Data flush worker was interrupted");
+
+        Thread.interrupted();
+        throw new OInterruptedException("Data flush worker was interrupted");
+      }
+    }
+  }
+
   private void openFile(final OFileClassic fileClassic) throws IOException {
     if (fileClassic.exists()) {
       if (!fileClassic.isOpen())
@@ -1136,9 +1308,33 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
   private OFileClassic createFileInstance(String fileName) throws InterruptedException {
     final String path = storageLocal.getVariableParser()
         .resolveVariables(storageLocal.getStoragePath() + File.separator + fileName);
+
+    final OContextConfiguration contextConfiguration = getContextConfiguration();
+    final String fileImplementation = contextConfiguration.getValueAsString(OGlobalConfiguration.FILE_IMPLEMENTATION);
+
+    if (OFileMMap.NAME.equalsIgnoreCase(fileImplementation))
+      return new OFileMMap(path, storageLocal.getMode(),
+          contextConfiguration.getValueAsInteger(OGlobalConfiguration.FILE_MMAP_CHUNK_SIZE) * 1024 * 1024);
+
+    if (!OFileClassic.NAME.equalsIgnoreCase(fileImplementation))
+      OLogManager.instance()
+          .warn(this, "Unknown file implementation '%s' is set for storage %s, '%s' will be used", fileImplementation,
+              storageLocal.getName(), OFileClassic.NAME);
+
     return new OFileClassic(path, storageLocal.getMode());
   }
 
+  /**
+   * @return Configuration of storage if it is already loaded or global configuration otherwise.
+   */
+  private OContextConfiguration getContextConfiguration() {
+    final OStorageConfiguration configuration = storageLocal.getConfiguration();
+    if (configuration != null && configuration.getContextConfiguration() != null)
+      return configuration.getContextConfiguration();
+
+    return new OContextConfiguration();
+  }
+
   private void readNameIdMap() throws IOException, InterruptedException {
     nameIdMap = new ConcurrentHashMap<String, Integer>();
     long localFileCounter = -1;
@@ -1331,35 +1527,184 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
     }
   }
 
-  private void flushPage(final int fileId, final long pageIndex, final ByteBuffer buffer) throws IOException, InterruptedException {
-    if (writeAheadLog != null) {
-      final OLogSequenceNumber lsn = ODurablePage.getLogSequenceNumberFromPage(buffer);
-      final OLogSequenceNumber flushedLSN = writeAheadLog.getFlushedLsn();
+  /**
+   * Writes pages to the disk and removes them from write cache. Pages are partitioned between flush workers by file, so pages of
+   * the same file are always written by the same worker, each worker coalesces contiguous pages into single vectored write.
+   * <p>
+   * Should be called only by tasks of {@link #commitExecutor}. Method waits till all workers complete their job, so fuzzy
+   * checkpoint which is executed by the same executor never observes pages which are flushed only partially and minimum LSN
+   * of pages which are still contained in write cache is calculated correctly.
+   *
+   * @param pageKeys Keys of pages to write ordered by file and page index.
+   * @return Amount of written pages, pages which are locked by other threads at the moment are skipped.
+   */
+  private int writePages(final List<PageKey> pageKeys) throws IOException, InterruptedException {
+    if (pageKeys.isEmpty())
+      return 0;
 
-      if (flushedLSN == null || flushedLSN.compareTo(lsn) < 0)
-        writeAheadLog.flush();
+    if (flushExecutor == null)
+      return new PagesWriteTask(0, pageKeys).call();
+
+    final int workers = flushWorkerStatistics.length;
+    final List<List<PageKey>> partitions = new ArrayList<List<PageKey>>(workers);
+    for (int i = 0; i < workers; i++)
+      partitions.add(new ArrayList<PageKey>());
+
+    for (PageKey pageKey : pageKeys)
+      partitions.get(pageKey.fileId % workers).add(pageKey);
+
+    final List<Future<Integer>> futures = new ArrayList<Future<Integer>>(workers);
+    for (int i = 0; i < workers; i++) {
+      final List<PageKey> partition = partitions.get(i);
+      if (!partition.isEmpty())
+        futures.add(flushExecutor.submit(new PagesWriteTask(i, partition)));
+    }
+
+    int writtenPages = 0;
+    ExecutionException exception = null;
+
+    // we wait for all workers even if one of them is failed, so no one of them writes pages when control is returned
+    for (Future<Integer> future : futures) {
+      try {
+        writtenPages += future.get();
+      } catch (ExecutionException e) {
+        if (exception == null)
+          exception = e;
+      }
     }
 
-    final byte[] content = new byte[pageSize];
-    buffer.position(0);
-    buffer.get(content);
+    if (exception != null) {
+      final Throwable cause = exception.getCause();
+      if (cause instanceof IOException)
+        throw (IOException) cause;
+
+      throw OException.wrapException(new OWriteCacheException("Error during write of pages of write cache"), cause);
+    }
+
+    return writtenPages;
+  }
 
-    OLongSerializer.INSTANCE.serializeNative(MAGIC_NUMBER, content, 0);
+  /**
+   * Writes run of contiguous pages of single file. Pages are locked in exclusive mode inside of write cache during the write,
+   * pages which are removed from write cache or locked by other threads split the run on several writes.
+   *
+   * @return Amount of written pages.
+   */
+  private int writeRun(final List<PageKey> run, final FlushWorkerStatistic statistic) throws IOException, InterruptedException {
+    final List<PageKey> lockedKeys = new ArrayList<PageKey>(run.size());
+    final List<OCachePointer> lockedPointers = new ArrayList<OCachePointer>(run.size());
 
-    final int crc32 = calculatePageCrc(content);
-    OIntegerSerializer.INSTANCE.serializeNative(crc32, content, OLongSerializer.LONG_SIZE);
+    int writtenPages = 0;
 
-    final long externalId = composeFileId(id, fileId);
-    final OClosableEntry<Long, OFileClassic> entry = files.acquire(externalId);
+    final Lock[] locks = lockManager.acquireExclusiveLocksInBatch(run);
     try {
-      final OFileClassic fileClassic = entry.get();
-      fileClassic.write(pageIndex * pageSize, content);
+      for (PageKey pageKey : run) {
+        final PageGroup pageGroup = writeCachePages.get(pageKey);
 
-      if (syncOnPageFlush)
-        fileClassic.synch();
+        if (pageGroup == null || !pageGroup.page.tryAcquireSharedLock()) {
+          writtenPages += writeLockedPages(lockedKeys, lockedPointers, statistic);
+          continue;
+        }
+
+        lockedKeys.add(pageKey);
+        lockedPointers.add(pageGroup.page);
+      }
+
+      writtenPages += writeLockedPages(lockedKeys, lockedPointers, statistic);
     } finally {
-      files.release(entry);
+      for (Lock lock : locks)
+        lock.unlock();
     }
+
+    return writtenPages;
+  }
+
+  /**
+   * Writes contiguous pages which are already locked in shared mode by single vectored write, releases locks of pages and removes
+   * them from write cache. Lists are cleared once pages are written.
+   */
+  private int writeLockedPages(final List<PageKey> pageKeys, final List<OCachePointer> pagePointers,
+      final FlushWorkerStatistic statistic) throws IOException, InterruptedException {
+    if (pageKeys.isEmpty())
+      return 0;
+
+    final int pages = pageKeys.size();
+    final OLogSequenceNumber[] pageLsns = new OLogSequenceNumber[pages];
+
+    try {
+      final ByteBuffer[] contents = new ByteBuffer[pages];
+      OLogSequenceNumber maxLsn = null;
+
+      for (int i = 0; i < pages; i++) {
+        final ByteBuffer buffer = pagePointers.get(i).getSharedBuffer();
+        pageLsns[i] = ODurablePage.getLogSequenceNumberFromPage(buffer);
+
+        if (writeAheadLog != null && (maxLsn == null || maxLsn.compareTo(pageLsns[i]) < 0))
+          maxLsn = pageLsns[i];
+
+        final byte[] content = new byte[pageSize];
+        buffer.position(0);
+        buffer.get(content);
+
+        OLongSerializer.INSTANCE.serializeNative(MAGIC_NUMBER, content, 0);
+
+        final int crc32 = calculatePageCrc(content);
+        OIntegerSerializer.INSTANCE.serializeNative(crc32, content, OLongSerializer.LONG_SIZE);
+
+        contents[i] = ByteBuffer.wrap(content);
+      }
+
+      // all changes of pages have to be logged before pages are written
+      if (maxLsn != null) {
+        final OLogSequenceNumber flushedLSN = writeAheadLog.getFlushedLsn();
+
+        if (flushedLSN == null || flushedLSN.compareTo(maxLsn) < 0)
+          writeAheadLog.flush();
+      }
+
+      final PageKey firstKey = pageKeys.get(0);
+      final long externalId = composeFileId(id, firstKey.fileId);
+
+      final long startTs = System.nanoTime();
+      final OClosableEntry<Long, OFileClassic> entry = files.acquire(externalId);
+      try {
+        final OFileClassic fileClassic = entry.get();
+        if (pages == 1)
+          fileClassic.write(firstKey.pageIndex * pageSize, contents[0]);
+        else
+          fileClassic.write(firstKey.pageIndex * pageSize, contents);
+
+        if (syncOnPageFlush)
+          fileClassic.synch();
+      } finally {
+        files.release(entry);
+      }
+
+      statistic.flushedPages.addAndGet(pages);
+      statistic.writeOperations.incrementAndGet();
+      statistic.flushTime.addAndGet(System.nanoTime() - startTs);
+
+      for (int i = 0; i < pages; i++)
+        pagePointers.get(i).setLastFlushedLsn(pageLsns[i]);
+    } finally {
+      for (OCachePointer pagePointer : pagePointers)
+        pagePointer.releaseSharedLock();
+    }
+
+    for (int i = 0; i < pages; i++) {
+      final OCachePointer pagePointer = pagePointers.get(i);
+
+      pagePointer.decrementWritersReferrer();
+      pagePointer.setWritersListener(null);
+
+      writeCachePages.remove(pageKeys.get(i));
+      writeCacheSize.decrement();
+    }
+
+    pageKeys.clear();
+    pagePointers.clear();
+
+    return pages;
   }
 
   private static final class NameFileIdEntry {
@@ -1620,6 +1965,9 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
           writeAheadLog == null ? -1 : (long) (writeAheadLog.getPreferredSegmentCount() * MAX_LSN_SEGMENT_DISTANCE_FACTOR);
 
       int flushedRegions = 0;
+      int selectedPages = flushedWritePages;
+
+      final List<PageKey> pagesToWrite = new ArrayList<PageKey>();
 
       long lastPageIndex = -1;
       while (entriesIterator.hasNext()) {
@@ -1630,7 +1978,7 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
           }
         }
 
-        if (flushedWritePages > writePagesToFlush && flushedRegions >= 4)
+        if (selectedPages > writePagesToFlush && flushedRegions >= 4)
           break;
 
         Lock groupLock = lockManager.acquireExclusiveLock(entry);
@@ -1650,41 +1998,22 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
           if (group.recencyBit && weakLockMode) {
             group.recencyBit = false;
             continue;
-          } else {
-            group.recencyBit = false;
-
-            if (!pagePointer.tryAcquireSharedLock())
-              continue;
-
-            try {
-              final ByteBuffer buffer = pagePointer.getSharedBuffer();
-              flushPage(entry.fileId, entry.pageIndex, buffer);
-
-              final OLogSequenceNumber flushedLSN = ODurablePage.getLogSequenceNumberFromPage(buffer);
-              pagePointer.setLastFlushedLsn(flushedLSN);
-            } finally {
-              pagePointer.releaseSharedLock();
-            }
-
-            pagePointer.decrementWritersReferrer();
-            pagePointer.setWritersListener(null);
-
-            entriesIterator.remove();
-            writeCachePages.remove(entry);
           }
+
+          group.recencyBit = false;
         } finally {
           lockManager.releaseExclusiveLock(entry);
         }
 
+        pagesToWrite.add(entry);
+
         lastWritePageKey = entry;
-        flushedWritePages++;
+        selectedPages++;
 
         lastPageIndex = entry.pageIndex;
-
-        writeCacheSize.decrement();
       }
 
-      return flushedWritePages;
+      return flushedWritePages + writePages(pagesToWrite);
     }
 
     private int iterateByCacheSubRing(final NavigableMap<PageKey, PageGroup> subMap, final int writePagesToFlush,
@@ -1695,6 +2024,9 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
           writeAheadLog == null ? -1 : (long) (writeAheadLog.getPreferredSegmentCount() * MAX_LSN_SEGMENT_DISTANCE_FACTOR);
 
       int flushedRegions = 0;
+      int selectedPages = flushedWritePages;
+
+      final List<PageKey> pagesToWrite = new ArrayList<PageKey>();
 
       long lastPageIndex = -1;
       while (entriesIterator.hasNext()) {
@@ -1707,7 +2039,7 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
           if (pageKey.pageIndex != lastPageIndex + 1) {
             flushedRegions++;
 
-            if (flushedWritePages > writePagesToFlush && flushedRegions >= 4)
+            if (selectedPages > writePagesToFlush && flushedRegions >= 4)
               break;
           }
         }
@@ -1727,40 +2059,22 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
           if (group.recencyBit && weakLockMode) {
             group.recencyBit = false;
             continue;
-          } else {
-            group.recencyBit = false;
-
-            if (!pagePointer.tryAcquireSharedLock())
-              continue;
-
-            try {
-              final ByteBuffer buffer = pagePointer.getSharedBuffer();
-              flushPage(pageKey.fileId, pageKey.pageIndex, buffer);
-
-              final OLogSequenceNumber flushedLSN = ODurablePage.getLogSequenceNumberFromPage(buffer);
-              pagePointer.setLastFlushedLsn(flushedLSN);
-            } finally {
-              pagePointer.releaseSharedLock();
-            }
-
-            pagePointer.decrementWritersReferrer();
-            pagePointer.setWritersListener(null);
-
-            entriesIterator.remove();
           }
+
+          group.recencyBit = false;
         } finally {
           lockManager.releaseExclusiveLock(entry.getKey());
         }
 
+        pagesToWrite.add(pageKey);
+
         lastPageKey = pageKey;
 
-        flushedWritePages++;
+        selectedPages++;
         lastPageIndex = pageKey.pageIndex;
-
-        writeCacheSize.decrement();
       }
 
-      return flushedWritePages;
+      return flushedWritePages + writePages(pagesToWrite);
     }
 
     private boolean tooOldLsn(OLogSequenceNumber lsn, long maxSegmentDistance) {
@@ -1845,67 +2159,82 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
   }
 
   private final class FileFlushTask implements Callable<Void> {
-    private final int fileId;
+    private final List<Integer> fileIds;
 
-    private FileFlushTask(final int fileId) {
-      this.fileId = fileId;
+    private FileFlushTask(final List<Integer> fileIds) {
+      this.fileIds = fileIds;
     }
 
     @Override
     public Void call() throws Exception {
-      final PageKey firstKey = new PageKey(fileId, 0);
-      final PageKey lastKey = new PageKey(fileId, Long.MAX_VALUE);
+      final List<PageKey> pagesToWrite = new ArrayList<PageKey>();
 
-      flushRing(writeCachePages.subMap(firstKey, true, lastKey, true));
+      for (int fileId : fileIds) {
+        final PageKey firstKey = new PageKey(fileId, 0);
+        final PageKey lastKey = new PageKey(fileId, Long.MAX_VALUE);
 
-      final long finalId = composeFileId(id, fileId);
-      final OClosableEntry<Long, OFileClassic> entry = files.acquire(finalId);
-      try {
-        entry.get().synch();
-      } finally {
-        files.release(entry);
+        pagesToWrite.addAll(writeCachePages.subMap(firstKey, true, lastKey, true).keySet());
       }
 
-      return null;
-    }
-
-    private void flushRing(final NavigableMap<PageKey, PageGroup> subMap) throws IOException, InterruptedException {
-      final Iterator<Map.Entry<PageKey, PageGroup>> entryIterator = subMap.entrySet().iterator();
-
-      while (entryIterator.hasNext()) {
-        Map.Entry<PageKey, PageGroup> entry = entryIterator.next();
-        final PageGroup pageGroup = entry.getValue();
-        final PageKey pageKey = entry.getKey();
+      writePages(pagesToWrite);
 
-        final Lock groupLock = lockManager.acquireExclusiveLock(pageKey);
+      for (int fileId : fileIds) {
+        final long finalId = composeFileId(id, fileId);
+        final OClosableEntry<Long, OFileClassic> entry = files.acquire(finalId);
         try {
+          entry.get().synch();
+        } finally {
+          files.release(entry);
+        }
+      }
 
-          final OCachePointer pagePointer = pageGroup.page;
-
-          if (!pagePointer.tryAcquireSharedLock())
-            continue;
+      return null;
+    }
+  }
 
-          try {
-            final ByteBuffer buffer = pagePointer.getSharedBuffer();
-            flushPage(pageKey.fileId, pageKey.pageIndex, buffer);
+  /**
+   * Writes pages of single partition of flush workers, pages are split on runs of contiguous pages which are written by single
+   * vectored write.
+   */
+  private final class PagesWriteTask implements Callable<Integer> {
+    private final int           partition;
+    private final List<PageKey> pageKeys;
 
-            final OLogSequenceNumber flushedLSN = ODurablePage.getLogSequenceNumberFromPage(buffer);
-            pagePointer.setLastFlushedLsn(flushedLSN);
-          } finally {
-            pagePointer.releaseSharedLock();
-          }
+    private PagesWriteTask(final int partition, final List<PageKey> pageKeys) {
+      this.partition = partition;
+      this.pageKeys = pageKeys;
+    }
 
-          pagePointer.decrementWritersReferrer();
-          pagePointer.setWritersListener(null);
+    @Override
+    public Integer call() throws IOException, InterruptedException {
+      final FlushWorkerStatistic statistic = flushWorkerStatistics[partition];
 
-          writeCacheSize.decrement();
-          entryIterator.remove();
+      int writtenPages = 0;
+      int runStart = 0;
 
-        } finally {
-          lockManager.releaseExclusiveLock(pageKey);
+      for (int i = 1; i <= pageKeys.size(); i++) {
+        if (i == pageKeys.size() || i - runStart == MAX_PAGES_PER_WRITE || !isNextPage(pageKeys.get(i - 1), pageKeys.get(i))) {
+          writtenPages += writeRun(pageKeys.subList(runStart, i), statistic);
+          runStart = i;
         }
       }
+
+      return writtenPages;
     }
+
+    private boolean isNextPage(final PageKey pageKey, final PageKey nextPageKey) {
+      return pageKey.fileId == nextPageKey.fileId && pageKey.pageIndex + 1 == nextPageKey.pageIndex;
+    }
+  }
+
+  /**
+   * Statistic of pages written by single flush worker, it is updated by single thread at any moment of time because only one task
+   * for each partition is executed at once.
+   */
+  private static final class FlushWorkerStatistic {
+    private final AtomicLong flushedPages    = new AtomicLong();
+    private final AtomicLong writeOperations = new AtomicLong();
+    private final AtomicLong flushTime       = new AtomicLong();
   }
 
   private final class RemoveFilePagesTask implements Callable<Void> {
@@ -1970,6 +2299,24 @@ public class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCach
     }
   }
 
+  private static class FlushWorkerThreadFactory implements ThreadFactory {
+    private final String storageName;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private FlushWorkerThreadFactory(String storageName) {
+      this.storageName = storageName;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(OStorageAbstract.storageThreadGroup, r);
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MAX_PRIORITY);
+      thread.setName("OrientDB Write Cache Flush Worker #" + counter.incrementAndGet() + " (" + storageName + ")");
+      return thread;
+    }
+  }
+
   private static class LowSpaceEventsPublisherFactory implements ThreadFactory {
     private final String storageName;
 
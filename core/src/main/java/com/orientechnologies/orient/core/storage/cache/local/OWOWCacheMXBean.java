@@ -34,4 +34,24 @@ public interface OWOWCacheMXBean {
   long getExclusiveWriteCacheSizeInMB();
 
   double getExclusiveWriteCacheSizeInGB();
+
+  /**
+   * @return Amount of threads which write pages of write cache to the disk.
+   */
+  int getFlushWorkersCount();
+
+  /**
+   * @return Amount of pages written by each flush worker.
+   */
+  long[] getFlushedPagesPerWorker();
+
+  /**
+   * @return Amount of write operations performed by each flush worker, several contiguous pages are written by single operation.
+   */
+  long[] getWriteOperationsPerWorker();
+
+  /**
+   * @return Throughput of each flush worker in megabytes per second of time spent on writes.
+   */
+  double[] getFlushThroughputPerWorkerInMB();
 }
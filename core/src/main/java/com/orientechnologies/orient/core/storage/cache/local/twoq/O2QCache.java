@@ -255,6 +255,7 @@ public class O2QCache implements OReadCache {
    *
    * @throws IllegalStateException In case of new size of disk cache is too small to hold existing pinned pages.
    */
+  @Override
   public void changeMaximumAmountOfMemory(final long readCacheMaxMemory) throws IllegalStateException {
     MemoryData memoryData;
     MemoryData newMemoryData;
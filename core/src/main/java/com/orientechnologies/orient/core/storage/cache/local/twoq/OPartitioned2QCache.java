@@ -0,0 +1,1337 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+
+package com.orientechnologies.orient.core.storage.cache.local.twoq;
+
+import com.orientechnologies.common.concur.lock.ODistributedCounter;
+import com.orientechnologies.common.concur.lock.OInterruptedException;
+import com.orientechnologies.common.concur.lock.OPartitionedLockManager;
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.types.OModifiableBoolean;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.exception.OAllCacheEntriesAreUsedException;
+import com.orientechnologies.orient.core.exception.OReadCacheException;
+import com.orientechnologies.orient.core.exception.OStorageException;
+import com.orientechnologies.orient.core.storage.cache.*;
+import com.orientechnologies.orient.core.storage.impl.local.statistic.OSessionStoragePerformanceStatistic;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 2Q read cache which is split on independent partitions. Page is assigned to the partition by hash code of its file id and page
+ * index, each partition has its own A1in, A1out and Am queues and evicts its own cold pages.
+ * <p>
+ * In contrast to {@link O2QCache} there is no cache wide lock. Cache hit is served by lookup inside of lock free
+ * {@link ConcurrentLRUList} of single partition under lock of the page itself, and eviction of cold pages is performed page by page
+ * only inside of the partition which was overflowed, so threads which work with pages of other partitions are not affected.
+ * Operations which affect the whole cache (clear, close or delete of the storage) acquire exclusive locks on all files instead.
+ * <p>
+ * Format of the cache state file is the same as the one used by {@link O2QCache}, so cache implementation may be switched between
+ * storage restarts without loss of cache state.
+ *
+ * @see OGlobalConfiguration#DISK_CACHE_IMPLEMENTATION
+ * @see OGlobalConfiguration#DISK_CACHE_PARTITIONS
+ */
+public class OPartitioned2QCache implements OReadCache {
+  /**
+   * Name of this implementation of read cache.
+   *
+   * @see OGlobalConfiguration#DISK_CACHE_IMPLEMENTATION
+   */
+  public static final String NAME = "partitioned2q";
+
+  /**
+   * Minimum amount of pages which should be hold by single partition. If cache is too small to provide such amount of pages for
+   * each partition, amount of partitions is decreased.
+   */
+  private static final int MIN_PARTITION_SIZE = 64;
+
+  /**
+   * Maximum amount of times when we will show message that limit of pinned pages was exhausted.
+   */
+  private static final int MAX_AMOUNT_OF_WARNINGS_PINNED_PAGES = 10;
+
+  /**
+   * Maximum amount of pages which are inspected during single pass of cold pages removal.
+   */
+  private static final int MAX_EVICTION_ITERATIONS = 1000;
+
+  private final int pageSize;
+
+  private final Partition[] partitions;
+  private final int         partitionsMask;
+
+  /**
+   * Counts how much time we warned user that limit of amount of pinned pages is reached.
+   */
+  private final ODistributedCounter pinnedPagesWarningCounter = new ODistributedCounter();
+
+  /**
+   * Cache of value which is contained inside of {@link #pinnedPagesWarningCounter}. It is used to speed up calculation of warnings.
+   */
+  private volatile int pinnedPagesWarningsCache = 0;
+
+  private final AtomicReference<MemoryData> memoryDataContainer = new AtomicReference<MemoryData>();
+
+  /**
+   * Contains all pages in cache for given file.
+   */
+  private final ConcurrentMap<Long, Set<Long>> filePages = new ConcurrentHashMap<Long, Set<Long>>();
+
+  /**
+   * Maximum percent of pinned pages which may be hold in this cache.
+   *
+   * @see com.orientechnologies.orient.core.config.OGlobalConfiguration#DISK_CACHE_PINNED_PAGES
+   */
+  private final int percentOfPinnedPages;
+
+  private final OPartitionedLockManager<Object>      fileLockManager = new OPartitionedLockManager<Object>(true);
+  private final OPartitionedLockManager<PageKey>     pageLockManager = new OPartitionedLockManager<PageKey>();
+  private final ConcurrentMap<PageKey, OCacheEntry> pinnedPages     = new ConcurrentHashMap<PageKey, OCacheEntry>();
+
+  /**
+   * @param readCacheMaxMemory   Maximum amount of direct memory which can allocated by disk cache in bytes.
+   * @param pageSize             Cache page size in bytes.
+   * @param checkMinSize         If this flat is set size of cache may be {@link O2QCache#MIN_CACHE_SIZE} or bigger.
+   * @param percentOfPinnedPages Maximum percent of pinned pages which may be hold by this cache.
+   * @param partitionsCount      Desired amount of partitions, will be rounded up to the closest power of two and decreased if cache is
+   *                             too small to fill all of them.
+   *
+   * @see O2QCache#MAX_PERCENT_OF_PINED_PAGES
+   */
+  public OPartitioned2QCache(final long readCacheMaxMemory, final int pageSize, final boolean checkMinSize,
+      final int percentOfPinnedPages, final int partitionsCount) {
+    if (percentOfPinnedPages > O2QCache.MAX_PERCENT_OF_PINED_PAGES)
+      throw new IllegalArgumentException(
+          "Percent of pinned pages cannot be more than " + O2QCache.MAX_PERCENT_OF_PINED_PAGES + " but passed value is "
+              + percentOfPinnedPages);
+
+    if (partitionsCount < 1)
+      throw new IllegalArgumentException("Amount of partitions should be positive but passed value is " + partitionsCount);
+
+    this.percentOfPinnedPages = percentOfPinnedPages;
+    this.pageSize = pageSize;
+
+    int normalizedSize = normalizeMemory(readCacheMaxMemory, pageSize);
+
+    if (checkMinSize && normalizedSize < O2QCache.MIN_CACHE_SIZE)
+      normalizedSize = O2QCache.MIN_CACHE_SIZE;
+
+    int partitionsAmount = 1;
+    while (partitionsAmount < partitionsCount)
+      partitionsAmount <<= 1;
+
+    while (partitionsAmount > 1 && normalizedSize / partitionsAmount < MIN_PARTITION_SIZE)
+      partitionsAmount >>= 1;
+
+    this.memoryDataContainer.set(new MemoryData(normalizedSize, 0));
+
+    partitions = new Partition[partitionsAmount];
+    for (int i = 0; i < partitions.length; i++)
+      partitions[i] = new Partition();
+
+    partitionsMask = partitionsAmount - 1;
+  }
+
+  /**
+   * @return Amount of partitions used by this cache.
+   */
+  public int getPartitionsCount() {
+    return partitions.length;
+  }
+
+  /**
+   * @return Sum of sizes of A1in queues of all partitions.
+   */
+  public int getA1InSize() {
+    int size = 0;
+    for (Partition partition : partitions)
+      size += partition.a1in.size();
+
+    return size;
+  }
+
+  /**
+   * @return Sum of sizes of A1out queues of all partitions.
+   */
+  public int getA1OutSize() {
+    int size = 0;
+    for (Partition partition : partitions)
+      size += partition.a1out.size();
+
+    return size;
+  }
+
+  /**
+   * @return Sum of sizes of Am queues of all partitions.
+   */
+  public int getAmSize() {
+    int size = 0;
+    for (Partition partition : partitions)
+      size += partition.am.size();
+
+    return size;
+  }
+
+  boolean inPinnedPages(long fileId, long pageIndex) {
+    return pinnedPages.containsKey(new PageKey(fileId, pageIndex));
+  }
+
+  int getMaxSize() {
+    return memoryDataContainer.get().maxSize;
+  }
+
+  @Override
+  public long addFile(String fileName, OWriteCache writeCache) throws IOException {
+    final long fileId = writeCache.addFile(fileName);
+
+    fileLockManager.acquireExclusiveLock(fileId);
+    try {
+      final Set<Long> oldPages = filePages.put(fileId, Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>()));
+      assert oldPages == null || oldPages.isEmpty();
+      return fileId;
+    } finally {
+      fileLockManager.releaseExclusiveLock(fileId);
+    }
+  }
+
+  @Override
+  public long addFile(String fileName, long fileId, OWriteCache writeCache) throws IOException {
+    fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), fileId);
+
+    fileLockManager.acquireExclusiveLock(fileId);
+    try {
+      final long fid = writeCache.addFile(fileName, fileId);
+      final Set<Long> oldPages = filePages.put(fid, Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>()));
+      assert oldPages == null || oldPages.isEmpty();
+
+      return fid;
+    } finally {
+      fileLockManager.releaseExclusiveLock(fileId);
+    }
+  }
+
+  @Override
+  public void pinPage(final OCacheEntry cacheEntry) throws IOException {
+    MemoryData memoryData = memoryDataContainer.get();
+
+    if ((100 * (memoryData.pinnedPages + 1)) / memoryData.maxSize > percentOfPinnedPages) {
+      if (pinnedPagesWarningsCache < MAX_AMOUNT_OF_WARNINGS_PINNED_PAGES) {
+        pinnedPagesWarningCounter.increment();
+
+        final long warnings = pinnedPagesWarningCounter.get();
+        if (warnings < MAX_AMOUNT_OF_WARNINGS_PINNED_PAGES) {
+          pinnedPagesWarningsCache = (int) warnings;
+
+          OLogManager.instance().warn(this, "Maximum amount of pinned pages is reached, given page " + cacheEntry
+              + " will not be marked as pinned which may lead to performance degradation. You may consider to increase the percent of pinned pages "
+              + "by changing the property '" + OGlobalConfiguration.DISK_CACHE_PINNED_PAGES.getKey() + "'");
+        }
+      }
+
+      return;
+    }
+
+    final long fileId = cacheEntry.getFileId();
+    final long pageIndex = cacheEntry.getPageIndex();
+
+    fileLockManager.acquireSharedLock(fileId);
+    try {
+      final PageKey k = new PageKey(fileId, pageIndex);
+      pageLockManager.acquireExclusiveLock(k);
+      try {
+        partition(fileId, pageIndex).remove(fileId, pageIndex);
+        pinnedPages.put(k, cacheEntry);
+      } finally {
+        pageLockManager.releaseExclusiveLock(k);
+      }
+    } finally {
+      fileLockManager.releaseSharedLock(fileId);
+    }
+
+    MemoryData newMemoryData = new MemoryData(memoryData.maxSize, memoryData.pinnedPages + 1);
+
+    while (!memoryDataContainer.compareAndSet(memoryData, newMemoryData)) {
+      memoryData = memoryDataContainer.get();
+      newMemoryData = new MemoryData(memoryData.maxSize, memoryData.pinnedPages + 1);
+    }
+
+    removeColdestPagesIfNeeded();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Memory is distributed between partitions evenly, so each partition will evict its cold pages on next access if new limit is
+   * smaller than previous one.
+   */
+  @Override
+  public void changeMaximumAmountOfMemory(final long readCacheMaxMemory) throws IllegalStateException {
+    MemoryData memoryData;
+    MemoryData newMemoryData;
+
+    final int newMemorySize = normalizeMemory(readCacheMaxMemory, pageSize);
+    do {
+      memoryData = memoryDataContainer.get();
+
+      if (memoryData.maxSize == newMemorySize)
+        return;
+
+      if ((100 * memoryData.pinnedPages / newMemorySize) > percentOfPinnedPages) {
+        throw new IllegalStateException("Cannot decrease amount of memory used by disk cache "
+            + "because limit of pinned pages will be more than allowed limit " + percentOfPinnedPages);
+      }
+
+      newMemoryData = new MemoryData(newMemorySize, memoryData.pinnedPages);
+    } while (!memoryDataContainer.compareAndSet(memoryData, newMemoryData));
+
+    if (newMemorySize < memoryData.maxSize)
+      removeColdestPagesIfNeeded();
+
+    OLogManager.instance()
+        .info(this, "Disk cache size was changed from " + memoryData.maxSize + " pages to " + newMemorySize + " pages");
+  }
+
+  @Override
+  public OCacheEntry load(long fileId, final long pageIndex, final boolean checkPinnedPages, OWriteCache writeCache,
+      final int pageCount) throws IOException {
+
+    final OSessionStoragePerformanceStatistic sessionStoragePerformanceStatistic = writeCache.getPerformanceStatisticManager()
+        .getSessionPerformanceStatistic();
+
+    if (sessionStoragePerformanceStatistic != null) {
+      sessionStoragePerformanceStatistic.startPageReadFromCacheTimer();
+    }
+
+    try {
+      fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), fileId);
+
+      final UpdateCacheResult cacheResult = doLoad(fileId, pageIndex, checkPinnedPages, false, writeCache, pageCount,
+          sessionStoragePerformanceStatistic);
+      if (cacheResult == null)
+        return null;
+
+      try {
+        if (cacheResult.removeColdPages)
+          removeColdestPagesIfNeeded(fileId, pageIndex, pageCount);
+      } catch (RuntimeException e) {
+        assert !cacheResult.cacheEntry.isDirty();
+
+        release(cacheResult.cacheEntry, writeCache);
+        throw e;
+      }
+
+      return cacheResult.cacheEntry;
+    } finally {
+      if (sessionStoragePerformanceStatistic != null) {
+        sessionStoragePerformanceStatistic.stopPageReadFromCacheTimer();
+      }
+    }
+  }
+
+  private UpdateCacheResult doLoad(long fileId, long pageIndex, boolean checkPinnedPages, boolean addNewPages,
+      OWriteCache writeCache, final int pageCount, final OSessionStoragePerformanceStatistic sessionStoragePerformanceStatistic)
+      throws IOException {
+
+    if (pageCount < 1)
+      throw new IllegalArgumentException(
+          "Amount of pages to load from cache should be not less than 1 but passed value is " + pageCount);
+
+    boolean removeColdPages = false;
+    OCacheEntry cacheEntry = null;
+
+    final OModifiableBoolean cacheHit = new OModifiableBoolean(false);
+
+    fileLockManager.acquireSharedLock(fileId);
+    try {
+      final PageKey[] pageKeys = new PageKey[pageCount];
+
+      for (int i = 0; i < pageKeys.length; i++) {
+        pageKeys[i] = new PageKey(fileId, pageIndex + i);
+      }
+
+      final Lock[] pageLocks = pageLockManager.acquireExclusiveLocksInBatch(pageKeys);
+      try {
+        if (checkPinnedPages)
+          cacheEntry = pinnedPages.get(pageKeys[0]);
+
+        if (cacheEntry == null) {
+          final UpdateCacheResult cacheResult = updateCache(fileId, pageIndex, addNewPages, writeCache, pageCount, cacheHit);
+          if (cacheResult == null)
+            return null;
+
+          cacheEntry = cacheResult.cacheEntry;
+          removeColdPages = cacheResult.removeColdPages;
+        } else {
+          cacheHit.setValue(true);
+        }
+
+        cacheEntry.incrementUsages();
+      } finally {
+        for (Lock pageLock : pageLocks) {
+          pageLock.unlock();
+        }
+      }
+    } finally {
+      fileLockManager.releaseSharedLock(fileId);
+    }
+
+    if (sessionStoragePerformanceStatistic != null)
+      sessionStoragePerformanceStatistic.incrementPageAccessOnCacheLevel(cacheHit.getValue());
+
+    return new UpdateCacheResult(removeColdPages, cacheEntry);
+  }
+
+  @Override
+  public OCacheEntry allocateNewPage(long fileId, OWriteCache writeCache) throws IOException {
+    final OSessionStoragePerformanceStatistic sessionStoragePerformanceStatistic = writeCache.getPerformanceStatisticManager()
+        .getSessionPerformanceStatistic();
+
+    if (sessionStoragePerformanceStatistic != null) {
+      sessionStoragePerformanceStatistic.startPageReadFromCacheTimer();
+    }
+
+    try {
+      fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), fileId);
+
+      final UpdateCacheResult cacheResult;
+      final long filledUpTo;
+
+      fileLockManager.acquireExclusiveLock(fileId);
+      try {
+        filledUpTo = writeCache.getFilledUpTo(fileId);
+        assert filledUpTo >= 0;
+        cacheResult = doLoad(fileId, filledUpTo, false, true, writeCache, 1, sessionStoragePerformanceStatistic);
+      } finally {
+        fileLockManager.releaseExclusiveLock(fileId);
+      }
+
+      assert cacheResult != null;
+
+      try {
+        if (cacheResult.removeColdPages)
+          removeColdestPagesIfNeeded(fileId, filledUpTo, 1);
+      } catch (RuntimeException e) {
+        assert !cacheResult.cacheEntry.isDirty();
+
+        release(cacheResult.cacheEntry, writeCache);
+        throw e;
+      }
+
+      return cacheResult.cacheEntry;
+    } finally {
+      if (sessionStoragePerformanceStatistic != null) {
+        sessionStoragePerformanceStatistic.stopPageReadFromCacheTimer();
+      }
+    }
+  }
+
+  @Override
+  public void release(OCacheEntry cacheEntry, OWriteCache writeCache) {
+    Future<?> flushFuture = null;
+
+    fileLockManager.acquireSharedLock(cacheEntry.getFileId());
+    try {
+      final PageKey k = new PageKey(cacheEntry.getFileId(), cacheEntry.getPageIndex());
+      pageLockManager.acquireExclusiveLock(k);
+      try {
+        cacheEntry.decrementUsages();
+
+        assert cacheEntry.getUsagesCount() >= 0;
+        assert cacheEntry.getUsagesCount() > 0 || !cacheEntry.isLockAcquiredByCurrentThread();
+
+        if (cacheEntry.getUsagesCount() == 0 && cacheEntry.isDirty()) {
+          final OSessionStoragePerformanceStatistic sessionStoragePerformanceStatistic = writeCache.getPerformanceStatisticManager()
+              .getSessionPerformanceStatistic();
+
+          if (sessionStoragePerformanceStatistic != null) {
+            sessionStoragePerformanceStatistic.startPageWriteInCacheTimer();
+          }
+
+          try {
+            flushFuture = writeCache.store(cacheEntry.getFileId(), cacheEntry.getPageIndex(), cacheEntry.getCachePointer());
+          } finally {
+            if (sessionStoragePerformanceStatistic != null) {
+              sessionStoragePerformanceStatistic.stopPageWriteInCacheTimer();
+            }
+          }
+
+          cacheEntry.clearDirty();
+        }
+      } finally {
+        pageLockManager.releaseExclusiveLock(k);
+      }
+    } finally {
+      fileLockManager.releaseSharedLock(cacheEntry.getFileId());
+    }
+
+    if (flushFuture != null) {
+      try {
+        flushFuture.get();
+      } catch (InterruptedException e) {
+        Thread.interrupted();
+        throw new OInterruptedException("File flush was interrupted");
+      } catch (Exception e) {
+        throw OException.wrapException(new OReadCacheException("File flush was abnormally terminated"), e);
+      }
+    }
+  }
+
+  @Override
+  public long getUsedMemory() {
+    long pages = 0;
+    for (Partition partition : partitions)
+      pages += partition.am.size() + partition.a1in.size();
+
+    return pages * pageSize;
+  }
+
+  @Override
+  public void clear() {
+    fileLockManager.lockAllExclusive();
+    try {
+      for (Partition partition : partitions)
+        partition.clearContent();
+
+      for (Set<Long> pages : filePages.values())
+        pages.clear();
+
+      clearPinnedPages();
+    } finally {
+      fileLockManager.unlockAllExclusive();
+    }
+  }
+
+  @Override
+  public void truncateFile(long fileId, OWriteCache writeCache) throws IOException {
+    fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), fileId);
+
+    fileLockManager.acquireExclusiveLock(fileId);
+    try {
+      writeCache.truncateFile(fileId);
+
+      clearFile(fileId);
+    } finally {
+      fileLockManager.releaseExclusiveLock(fileId);
+    }
+  }
+
+  @Override
+  public void closeFile(long fileId, boolean flush, OWriteCache writeCache) throws IOException {
+    fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), fileId);
+
+    fileLockManager.acquireExclusiveLock(fileId);
+    try {
+      writeCache.close(fileId, flush);
+
+      clearFile(fileId);
+    } finally {
+      fileLockManager.releaseExclusiveLock(fileId);
+    }
+  }
+
+  @Override
+  public void deleteFile(long fileId, OWriteCache writeCache) throws IOException {
+    fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), fileId);
+
+    fileLockManager.acquireExclusiveLock(fileId);
+    try {
+      clearFile(fileId);
+      filePages.remove(fileId);
+      writeCache.deleteFile(fileId);
+    } finally {
+      fileLockManager.releaseExclusiveLock(fileId);
+    }
+  }
+
+  @Override
+  public void deleteStorage(OWriteCache writeCache) throws IOException {
+    fileLockManager.lockAllExclusive();
+    try {
+      final long[] filesToClear = writeCache.delete();
+      for (long fileId : filesToClear)
+        clearFile(fileId);
+
+      final File rootDirectory = writeCache.getRootDirectory();
+      final File stateFile = new File(rootDirectory, O2QCache.CACHE_STATE_FILE);
+      if (stateFile.exists()) {
+        if (!stateFile.delete()) {
+          OLogManager.instance().error(this, "Cache state file %s cannot be deleted", stateFile);
+        }
+      }
+    } finally {
+      fileLockManager.unlockAllExclusive();
+    }
+  }
+
+  @Override
+  public void closeStorage(OWriteCache writeCache) throws IOException {
+    if (writeCache == null)
+      return;
+
+    fileLockManager.lockAllExclusive();
+    try {
+      final long[] filesToClear = writeCache.close();
+
+      for (long fileId : filesToClear)
+        clearFile(fileId);
+    } finally {
+      fileLockManager.unlockAllExclusive();
+    }
+  }
+
+  /**
+   * Loads state of cache queues stored during storage close back into memory if flag
+   * {@link OGlobalConfiguration#STORAGE_KEEP_DISK_CACHE_STATE} is set to <code>true</code>. Every restored page is placed in the
+   * queue of its own partition, relative order of pages inside of single partition is preserved.
+   * <p>
+   * If maximum size of cache was decreased cache state will not be restored.
+   *
+   * @param writeCache Write cache is used to load pages back into cache if needed.
+   */
+  @Override
+  public void loadCacheState(final OWriteCache writeCache) {
+    if (!OGlobalConfiguration.STORAGE_KEEP_DISK_CACHE_STATE.getValueAsBoolean()) {
+      return;
+    }
+
+    fileLockManager.lockAllExclusive();
+    try {
+      final File rootDirectory = writeCache.getRootDirectory();
+      final File stateFile = new File(rootDirectory, O2QCache.CACHE_STATE_FILE);
+      if (stateFile.exists()) {
+        final RandomAccessFile cacheState = new RandomAccessFile(stateFile, "rw");
+        try {
+          final FileChannel channel = cacheState.getChannel();
+
+          final InputStream stream = Channels.newInputStream(channel);
+          final BufferedInputStream bufferedInputStream = new BufferedInputStream(stream, 64 * 1024);
+          final DataInputStream dataInputStream = new DataInputStream(bufferedInputStream);
+          try {
+            final long maxCacheSize = dataInputStream.readLong();
+            final long currentMaxCacheSize = memoryDataContainer.get().maxSize;
+
+            if (maxCacheSize > currentMaxCacheSize) {
+              OLogManager.instance().info(this,
+                  "Previous maximum cache size was %d current maximum cache size is %d. Cache state for storage %s will not be restored.",
+                  maxCacheSize, currentMaxCacheSize, rootDirectory);
+              return;
+            }
+
+            restoreQueue(writeCache, dataInputStream, Queue.AM);
+            restoreQueue(writeCache, dataInputStream, Queue.A1IN);
+            restoreQueue(writeCache, dataInputStream, Queue.A1OUT);
+          } finally {
+            dataInputStream.close();
+          }
+        } finally {
+          cacheState.close();
+        }
+      }
+    } catch (Exception e) {
+      OLogManager.instance()
+          .warn(this, "Cannot restore state of cache for storage placed under %s", writeCache.getRootDirectory(), e);
+    } finally {
+      fileLockManager.unlockAllExclusive();
+    }
+  }
+
+  /**
+   * Restores state of single queue of all partitions. Pages of A1in and Am queues are loaded from disk in order of their position
+   * in file and then added to the queues in the order in which they were stored.
+   * <p>
+   * Following format is used to store queue state:
+   * <p>
+   * <ol>
+   * <li>File id or -1 if end of queue is reached (int)</li>
+   * <li>Page index (long), is absent if end of the queue is reached</li>
+   * </ol>
+   */
+  private void restoreQueue(OWriteCache writeCache, DataInputStream dataInputStream, Queue queue) throws IOException {
+    // used only for statistics, and there is passed merely as stub
+    final OModifiableBoolean cacheHit = new OModifiableBoolean();
+
+    final List<OCacheEntry> entries = new ArrayList<OCacheEntry>();
+
+    int internalFileId = dataInputStream.readInt();
+    while (internalFileId >= 0) {
+      final long pageIndex = dataInputStream.readLong();
+      try {
+        final long fileId = writeCache.externalFileId(internalFileId);
+        entries.add(new OCacheEntry(fileId, pageIndex, null, false));
+      } finally {
+        internalFileId = dataInputStream.readInt();
+      }
+    }
+
+    if (queue != Queue.A1OUT) {
+      final List<OCacheEntry> sortedEntries = new ArrayList<OCacheEntry>(entries);
+      Collections.sort(sortedEntries, new Comparator<OCacheEntry>() {
+        @Override
+        public int compare(OCacheEntry entryOne, OCacheEntry entryTwo) {
+          return new PageKey(entryOne.getFileId(), entryOne.getPageIndex())
+              .compareTo(new PageKey(entryTwo.getFileId(), entryTwo.getPageIndex()));
+        }
+      });
+
+      final Set<OCacheEntry> absentEntries = Collections.newSetFromMap(new IdentityHashMap<OCacheEntry, Boolean>());
+      for (OCacheEntry cacheEntry : sortedEntries) {
+        final OCachePointer[] pointers = writeCache.load(cacheEntry.getFileId(), cacheEntry.getPageIndex(), 1, false, cacheHit);
+
+        if (pointers.length == 0)
+          absentEntries.add(cacheEntry);
+        else
+          cacheEntry.setCachePointer(pointers[0]);
+      }
+
+      entries.removeAll(absentEntries);
+    }
+
+    for (OCacheEntry cacheEntry : entries) {
+      final Partition partition = partition(cacheEntry.getFileId(), cacheEntry.getPageIndex());
+      queue.of(partition).putToMRU(cacheEntry);
+      filePages(cacheEntry.getFileId()).add(cacheEntry.getPageIndex());
+    }
+  }
+
+  /**
+   * Stores state of queues of all partitions inside of {@link O2QCache#CACHE_STATE_FILE} file if flag
+   * {@link OGlobalConfiguration#STORAGE_KEEP_DISK_CACHE_STATE} is set to <code>true</code>. Queues of the same type are stored
+   * partition by partition as single queue.
+   * <p>
+   * Following format is used to store queue state:
+   * <p>
+   * <ol>
+   * <li>Max cache size, single item (long)</li>
+   * <li>File id or -1 if end of queue is reached (int)</li>
+   * <li>Page index (long), is absent if end of the queue is reached</li>
+   * </ol>
+   *
+   * @param writeCache Write cache which manages files cache state of which is going to be stored.
+   */
+  @Override
+  public void storeCacheState(OWriteCache writeCache) {
+    if (!OGlobalConfiguration.STORAGE_KEEP_DISK_CACHE_STATE.getValueAsBoolean()) {
+      return;
+    }
+
+    if (writeCache == null)
+      return;
+
+    fileLockManager.lockAllExclusive();
+    try {
+      final File rootDirectory = writeCache.getRootDirectory();
+      final File stateFile = new File(rootDirectory, O2QCache.CACHE_STATE_FILE);
+
+      if (stateFile.exists()) {
+        if (!stateFile.delete()) {
+          OLogManager.instance().warn(this, "Cannot delete cache state file %s", stateFile);
+        }
+      }
+
+      final Set<Long> filesToStore = new HashSet<Long>(writeCache.files().values());
+
+      final RandomAccessFile cacheState = new RandomAccessFile(stateFile, "rw");
+      try {
+        final FileChannel channel = cacheState.getChannel();
+        final OutputStream channelStream = Channels.newOutputStream(channel);
+        final BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(channelStream, 64 * 1024);
+        final DataOutputStream dataOutputStream = new DataOutputStream(bufferedOutputStream);
+
+        try {
+          dataOutputStream.writeLong(memoryDataContainer.get().maxSize);
+
+          for (Queue queue : Queue.values()) {
+            for (Partition partition : partitions)
+              storeQueueState(writeCache, filesToStore, dataOutputStream, queue.of(partition));
+
+            dataOutputStream.writeInt(-1);
+          }
+        } finally {
+          dataOutputStream.close();
+        }
+      } finally {
+        cacheState.close();
+      }
+    } catch (Exception e) {
+      OLogManager.instance()
+          .error(this, "Cannot store state of cache for storage placed under %s (error: %s)", writeCache.getRootDirectory(), e);
+    } finally {
+      fileLockManager.unlockAllExclusive();
+    }
+  }
+
+  private static void storeQueueState(OWriteCache writeCache, Set<Long> filesToStore, DataOutputStream dataOutputStream,
+      LRUList queue) throws IOException {
+    final Iterator<OCacheEntry> queueIterator = queue.reverseIterator();
+
+    while (queueIterator.hasNext()) {
+      final OCacheEntry cacheEntry = queueIterator.next();
+
+      final long fileId = cacheEntry.getFileId();
+      if (filesToStore.contains(fileId)) {
+        final int internalId = writeCache.internalFileId(fileId);
+        dataOutputStream.writeInt(internalId);
+
+        dataOutputStream.writeLong(cacheEntry.getPageIndex());
+      }
+    }
+  }
+
+  private Partition partition(long fileId, long pageIndex) {
+    int hash = (int) (fileId ^ (fileId >>> 32));
+    hash = 31 * hash + (int) (pageIndex ^ (pageIndex >>> 32));
+
+    return partitions[OPartitionedLockManager.shuffleHashCode(hash) & partitionsMask];
+  }
+
+  private Set<Long> filePages(long fileId) {
+    Set<Long> pages = filePages.get(fileId);
+    if (pages == null) {
+      pages = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+      final Set<Long> oldPages = filePages.putIfAbsent(fileId, pages);
+
+      if (oldPages != null)
+        pages = oldPages;
+    }
+
+    return pages;
+  }
+
+  private UpdateCacheResult updateCache(final long fileId, final long pageIndex, final boolean addNewPages, OWriteCache writeCache,
+      final int pageCount, final OModifiableBoolean cacheHit) throws IOException {
+    assert pageCount > 0;
+
+    final Partition partition = partition(fileId, pageIndex);
+
+    OCacheEntry cacheEntry = partition.am.get(fileId, pageIndex);
+
+    if (cacheEntry != null) {
+      cacheHit.setValue(true);
+      partition.am.putToMRU(cacheEntry);
+
+      return new UpdateCacheResult(false, cacheEntry);
+    }
+
+    boolean removeColdPages;
+    OCachePointer[] dataPointers = null;
+
+    cacheEntry = partition.a1out.remove(fileId, pageIndex);
+    if (cacheEntry != null) {
+      dataPointers = writeCache.load(fileId, pageIndex, pageCount, false, cacheHit);
+
+      partition.entryWasInA1OutQueue(dataPointers[0], cacheEntry);
+      removeColdPages = true;
+    } else {
+      cacheEntry = partition.a1in.get(fileId, pageIndex);
+
+      if (cacheEntry != null) {
+        removeColdPages = false;
+        cacheHit.setValue(true);
+      } else {
+        dataPointers = writeCache.load(fileId, pageIndex, pageCount, addNewPages, cacheHit);
+
+        if (dataPointers.length == 0)
+          return null;
+
+        cacheEntry = partition.entryIsAbsentInQueues(fileId, pageIndex, dataPointers[0]);
+        removeColdPages = true;
+      }
+    }
+
+    if (dataPointers != null) {
+      for (int n = 1; n < dataPointers.length; n++) {
+        removeColdPages = processFetchedPage(dataPointers[n]) || removeColdPages;
+      }
+    }
+
+    return new UpdateCacheResult(removeColdPages, cacheEntry);
+  }
+
+  /**
+   * Puts page which was fetched from disk as part of multi-page read into the partition it belongs to. Page lock of such page is
+   * already acquired by caller.
+   *
+   * @return <code>true</code> if size of partition was increased and cold pages should be removed.
+   */
+  private boolean processFetchedPage(OCachePointer dataPointer) {
+    final long fileId = dataPointer.getFileId();
+    final long pageIndex = dataPointer.getPageIndex();
+
+    if (pinnedPages.containsKey(new PageKey(fileId, pageIndex))) {
+      dataPointer.decrementReadersReferrer();
+      return false;
+    }
+
+    final Partition partition = partition(fileId, pageIndex);
+
+    OCacheEntry cacheEntry = partition.am.get(fileId, pageIndex);
+    if (cacheEntry != null) {
+      partition.am.putToMRU(cacheEntry);
+      dataPointer.decrementReadersReferrer();
+
+      return false;
+    }
+
+    cacheEntry = partition.a1out.remove(fileId, pageIndex);
+    if (cacheEntry != null) {
+      partition.entryWasInA1OutQueue(dataPointer, cacheEntry);
+      return true;
+    }
+
+    if (partition.a1in.get(fileId, pageIndex) != null) {
+      dataPointer.decrementReadersReferrer();
+      return false;
+    }
+
+    partition.entryIsAbsentInQueues(fileId, pageIndex, dataPointer);
+    return true;
+  }
+
+  /**
+   * Removes cold pages from partitions of all pages which were loaded by single call of
+   * {@link #load(long, long, boolean, OWriteCache, int)}.
+   */
+  private void removeColdestPagesIfNeeded(long fileId, long pageIndex, int pageCount) {
+    if (pageCount >= partitions.length) {
+      removeColdestPagesIfNeeded();
+      return;
+    }
+
+    for (int i = 0; i < pageCount; i++)
+      partition(fileId, pageIndex + i).removeColdestPagesIfNeeded();
+  }
+
+  private void removeColdestPagesIfNeeded() {
+    for (Partition partition : partitions)
+      partition.removeColdestPagesIfNeeded();
+  }
+
+  private void clearFile(long fileId) {
+    final Set<Long> pageEntries = filePages.get(fileId);
+    if (pageEntries == null || pageEntries.isEmpty()) {
+      return;
+    }
+
+    for (Long pageIndex : pageEntries) {
+      final Partition partition = partition(fileId, pageIndex);
+      OCacheEntry cacheEntry = partition.get(fileId, pageIndex);
+
+      final PageKey pageKey = new PageKey(fileId, pageIndex);
+      if (cacheEntry == null)
+        cacheEntry = pinnedPages.get(pageKey);
+
+      if (cacheEntry != null) {
+        if (cacheEntry.getUsagesCount() == 0) {
+          cacheEntry = partition.remove(fileId, pageIndex);
+
+          if (cacheEntry == null) {
+            MemoryData memoryData = memoryDataContainer.get();
+            cacheEntry = pinnedPages.remove(pageKey);
+
+            MemoryData newMemoryData = new MemoryData(memoryData.maxSize, memoryData.pinnedPages - 1);
+
+            while (!memoryDataContainer.compareAndSet(memoryData, newMemoryData)) {
+              memoryData = memoryDataContainer.get();
+              newMemoryData = new MemoryData(memoryData.maxSize, memoryData.pinnedPages - 1);
+            }
+          }
+
+          final OCachePointer cachePointer = cacheEntry.getCachePointer();
+          if (cachePointer != null) {
+            cachePointer.decrementReadersReferrer();
+            cacheEntry.clearCachePointer();
+          }
+
+        } else
+          throw new OStorageException(
+              "Page with index " + pageIndex + " for file with id " + fileId + " cannot be freed because it is used.");
+      } else
+        throw new OStorageException("Page with index " + pageIndex + " was  not found in cache for file with id " + fileId);
+    }
+
+    pageEntries.clear();
+  }
+
+  private void clearPinnedPages() {
+    for (OCacheEntry pinnedEntry : pinnedPages.values()) {
+      if (pinnedEntry.getUsagesCount() == 0) {
+        final OCachePointer cachePointer = pinnedEntry.getCachePointer();
+        cachePointer.decrementReadersReferrer();
+        pinnedEntry.clearCachePointer();
+
+        MemoryData memoryData = memoryDataContainer.get();
+        MemoryData newMemoryData = new MemoryData(memoryData.maxSize, memoryData.pinnedPages - 1);
+
+        while (!memoryDataContainer.compareAndSet(memoryData, newMemoryData)) {
+          memoryData = memoryDataContainer.get();
+          newMemoryData = new MemoryData(memoryData.maxSize, memoryData.pinnedPages - 1);
+        }
+      } else
+        throw new OStorageException("Page with index " + pinnedEntry.getPageIndex() + " for file with id " + pinnedEntry.getFileId()
+            + "cannot be freed because it is used.");
+    }
+
+    pinnedPages.clear();
+  }
+
+  private static int normalizeMemory(long maxSize, int pageSize) {
+    final long tmpMaxSize = maxSize / pageSize;
+    if (tmpMaxSize >= Integer.MAX_VALUE) {
+      return Integer.MAX_VALUE;
+    } else {
+      return (int) tmpMaxSize;
+    }
+  }
+
+  /**
+   * Single partition of cache, contains own set of 2Q queues.
+   */
+  private final class Partition {
+    private final LRUList am    = new ConcurrentLRUList();
+    private final LRUList a1out = new ConcurrentLRUList();
+    private final LRUList a1in  = new ConcurrentLRUList();
+
+    private final AtomicBoolean coldPagesRemovalInProgress = new AtomicBoolean();
+
+    /**
+     * @return Maximum amount of pages which may be hold by A1in and Am queues of this partition.
+     */
+    private int size() {
+      return Math.max(1, memoryDataContainer.get().get2QCacheSize() / partitions.length);
+    }
+
+    private OCacheEntry get(long fileId, long pageIndex) {
+      OCacheEntry cacheEntry = am.get(fileId, pageIndex);
+      if (cacheEntry != null)
+        return cacheEntry;
+
+      cacheEntry = a1out.get(fileId, pageIndex);
+      if (cacheEntry != null)
+        return cacheEntry;
+
+      return a1in.get(fileId, pageIndex);
+    }
+
+    private OCacheEntry remove(long fileId, long pageIndex) {
+      OCacheEntry cacheEntry = am.remove(fileId, pageIndex);
+      if (cacheEntry != null) {
+        if (cacheEntry.getUsagesCount() > 1)
+          throw new IllegalStateException("Record cannot be removed because it is used!");
+        return cacheEntry;
+      }
+
+      cacheEntry = a1out.remove(fileId, pageIndex);
+      if (cacheEntry != null)
+        return cacheEntry;
+
+      cacheEntry = a1in.remove(fileId, pageIndex);
+      if (cacheEntry != null && cacheEntry.getUsagesCount() > 1)
+        throw new IllegalStateException("Record cannot be removed because it is used!");
+
+      return cacheEntry;
+    }
+
+    private void entryWasInA1OutQueue(final OCachePointer dataPointer, final OCacheEntry cacheEntry) {
+      assert dataPointer != null;
+      assert cacheEntry.getCachePointer() == null;
+      assert !cacheEntry.isDirty();
+
+      cacheEntry.setCachePointer(dataPointer);
+
+      am.putToMRU(cacheEntry);
+    }
+
+    private OCacheEntry entryIsAbsentInQueues(long fileId, long pageIndex, OCachePointer dataPointer) {
+      final OCacheEntry cacheEntry = new OCacheEntry(fileId, pageIndex, dataPointer, false);
+      a1in.putToMRU(cacheEntry);
+
+      filePages(fileId).add(pageIndex);
+      return cacheEntry;
+    }
+
+    /**
+     * Removes cold pages of this partition one by one under lock of each removed page. Only single thread may remove pages of given
+     * partition at the same time, others skip this step because it will be done for them.
+     */
+    private void removeColdestPagesIfNeeded() {
+      if (am.size() + a1in.size() <= size())
+        return;
+
+      if (!coldPagesRemovalInProgress.compareAndSet(false, true))
+        return;
+
+      try {
+        int iterationsCounter = 0;
+
+        int partitionSize = size();
+        while (am.size() + a1in.size() > partitionSize && iterationsCounter < MAX_EVICTION_ITERATIONS) {
+          iterationsCounter++;
+
+          if (a1in.size() > partitionSize >> 2) {
+            final OCacheEntry removedFromAInEntry = a1in.getLRU();
+            if (removedFromAInEntry == null)
+              throw new OAllCacheEntriesAreUsedException("All records in aIn queue in 2q cache are used!");
+
+            if (evict(a1in, removedFromAInEntry, true) && OLogManager.instance().isDebugEnabled())
+              OLogManager.instance().debug(this, "Moving page in disk cache from a1in to a1out area: %s", removedFromAInEntry);
+
+            while (a1out.size() > partitionSize >> 1) {
+              final OCacheEntry removedEntry = a1out.getLRU();
+              if (removedEntry == null)
+                break;
+
+              removeFromA1Out(removedEntry);
+            }
+          } else {
+            final OCacheEntry removedEntry = am.getLRU();
+
+            if (removedEntry == null)
+              throw new OAllCacheEntriesAreUsedException("All records in am queue in 2q cache are used!");
+
+            evict(am, removedEntry, false);
+          }
+
+          partitionSize = size();
+        }
+      } finally {
+        coldPagesRemovalInProgress.set(false);
+      }
+    }
+
+    /**
+     * Removes page from passed in queue and releases its content if page is still present in this queue and is not used. The page is
+     * moved to the a1out queue or forgotten under the same page lock, so a concurrent load of this page can not cache it again in
+     * between.
+     *
+     * @param moveToA1Out <code>true</code> to keep the page in a1out queue, <code>false</code> to remove it from the file pages.
+     *
+     * @return <code>true</code> if page was removed from the queue.
+     */
+    private boolean evict(LRUList queue, OCacheEntry cacheEntry, boolean moveToA1Out) {
+      final long fileId = cacheEntry.getFileId();
+      final long pageIndex = cacheEntry.getPageIndex();
+
+      fileLockManager.acquireSharedLock(fileId);
+      try {
+        final PageKey k = new PageKey(fileId, pageIndex);
+        pageLockManager.acquireExclusiveLock(k);
+        try {
+          if (queue.get(fileId, pageIndex) != cacheEntry)
+            return false;
+
+          if (cacheEntry.getUsagesCount() > 0)
+            return false;
+
+          assert !cacheEntry.isDirty();
+
+          queue.remove(fileId, pageIndex);
+
+          final OCachePointer cachePointer = cacheEntry.getCachePointer();
+          cachePointer.decrementReadersReferrer();
+          cacheEntry.clearCachePointer();
+
+          if (moveToA1Out)
+            a1out.putToMRU(cacheEntry);
+          else
+            filePages(fileId).remove(pageIndex);
+
+          return true;
+        } finally {
+          pageLockManager.releaseExclusiveLock(k);
+        }
+      } finally {
+        fileLockManager.releaseSharedLock(fileId);
+      }
+    }
+
+    private void removeFromA1Out(OCacheEntry removedEntry) {
+      final long fileId = removedEntry.getFileId();
+      final long pageIndex = removedEntry.getPageIndex();
+
+      fileLockManager.acquireSharedLock(fileId);
+      try {
+        final PageKey k = new PageKey(fileId, pageIndex);
+        pageLockManager.acquireExclusiveLock(k);
+        try {
+          if (a1out.remove(fileId, pageIndex) == null)
+            return;
+
+          assert removedEntry.getUsagesCount() == 0;
+          assert removedEntry.getCachePointer() == null;
+          assert !removedEntry.isDirty();
+
+          final Set<Long> pageEntries = filePages.get(fileId);
+          if (pageEntries != null)
+            pageEntries.remove(pageIndex);
+        } finally {
+          pageLockManager.releaseExclusiveLock(k);
+        }
+      } finally {
+        fileLockManager.releaseSharedLock(fileId);
+      }
+    }
+
+    private void clearContent() {
+      releaseQueue(am);
+      releaseQueue(a1in);
+
+      a1out.clear();
+      am.clear();
+      a1in.clear();
+    }
+
+    private void releaseQueue(LRUList queue) {
+      for (OCacheEntry cacheEntry : queue)
+        if (cacheEntry.getUsagesCount() == 0) {
+          final OCachePointer cachePointer = cacheEntry.getCachePointer();
+          cachePointer.decrementReadersReferrer();
+          cacheEntry.clearCachePointer();
+        } else
+          throw new OStorageException("Page with index " + cacheEntry.getPageIndex() + " for file id " + cacheEntry.getFileId()
+              + " is used and cannot be removed");
+    }
+  }
+
+  /**
+   * Type of queue of partition, order of constants defines order of queues inside of cache state file.
+   */
+  private enum Queue {
+    AM {
+      @Override
+      LRUList of(Partition partition) {
+        return partition.am;
+      }
+    }, A1IN {
+      @Override
+      LRUList of(Partition partition) {
+        return partition.a1in;
+      }
+    }, A1OUT {
+      @Override
+      LRUList of(Partition partition) {
+        return partition.a1out;
+      }
+    };
+
+    abstract LRUList of(Partition partition);
+  }
+
+  private static final class PageKey implements Comparable<PageKey> {
+    private final long fileId;
+    private final long pageIndex;
+
+    private PageKey(long fileId, long pageIndex) {
+      this.fileId = fileId;
+      this.pageIndex = pageIndex;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o)
+        return true;
+      if (o == null || getClass() != o.getClass())
+        return false;
+
+      PageKey pageKey = (PageKey) o;
+
+      if (fileId != pageKey.fileId)
+        return false;
+      if (pageIndex != pageKey.pageIndex)
+        return false;
+
+      return true;
+    }
+
+    @Override
+    public int compareTo(PageKey other) {
+      if (fileId > other.fileId)
+        return 1;
+      if (fileId < other.fileId)
+        return -1;
+
+      if (pageIndex > other.pageIndex)
+        return 1;
+      if (pageIndex < other.pageIndex)
+        return -1;
+
+      return 0;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = (int) (fileId ^ (fileId >>> 32));
+      result = 31 * result + (int) (pageIndex ^ (pageIndex >>> 32));
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return "PageKey{" + "fileId=" + fileId + ", pageIndex=" + pageIndex + '}';
+    }
+  }
+
+  private final static class UpdateCacheResult {
+    private final boolean     removeColdPages;
+    private final OCacheEntry cacheEntry;
+
+    private UpdateCacheResult(boolean removeColdPages, OCacheEntry cacheEntry) {
+      this.removeColdPages = removeColdPages;
+      this.cacheEntry = cacheEntry;
+    }
+  }
+
+  /**
+   * That is immutable class which contains information about current memory limits of cache.
+   */
+  private static final class MemoryData {
+    /**
+     * Maximum size of memory consumed by cache in amount of pages.
+     */
+    private final int maxSize;
+
+    /**
+     * Memory consumed by pinned pages in amount of pages.
+     */
+    private final int pinnedPages;
+
+    private MemoryData(int maxSize, int pinnedPages) {
+      this.maxSize = maxSize;
+      this.pinnedPages = pinnedPages;
+    }
+
+    /**
+     * @return Maximum size of memory which may be consumed by 2Q queues of all partitions in amount of pages.
+     */
+    private int get2QCacheSize() {
+      return maxSize - pinnedPages;
+    }
+  }
+}
@@ -114,4 +114,10 @@ public interface OFile {
   void read(long offset, ByteBuffer[] buffers) throws IOException;
 
   void write(long offset, ByteBuffer buffer) throws IOException;
+
+  /**
+   * Writes content of all passed in buffers into single contiguous region of the file which starts at passed in offset using
+   * gathering write. All buffers are expected to have the same limit.
+   */
+  void write(long offset, ByteBuffer[] buffers) throws IOException;
 }
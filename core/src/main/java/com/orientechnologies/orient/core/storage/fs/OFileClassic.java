@@ -210,6 +210,31 @@ public class OFileClassic implements OFile, OClosableItem {
     }
   }
 
+  @Override
+  public void write(long offset, ByteBuffer[] buffers) throws IOException {
+    final long position = offset + HEADER_SIZE;
+    int attempts = 0;
+
+    while (true) {
+      try {
+        acquireWriteLock();
+        try {
+          channel.position(position);
+          writeByteBuffers(buffers, channel, (long) buffers.length * buffers[0].limit());
+          setDirty();
+
+          break;
+        } finally {
+          releaseWriteLock();
+          attempts++;
+        }
+      } catch (IOException e) {
+        OLogManager.instance().error(this, "Error during data write for file '" + getName() + "' " + attempts + "-th attempt", e);
+        reopenFile(attempts, e);
+      }
+    }
+  }
+
   public void write(long iOffset, byte[] iData, int iSize, int iArrayOffset) throws IOException {
     int attempts = 0;
 
@@ -518,7 +543,7 @@ public class OFileClassic implements OFile, OClosableItem {
   /**
    * ALWAYS ADD THE HEADER SIZE BECAUSE ON THIS TYPE IS ALWAYS NEEDED
    */
-  private long checkRegions(final long iOffset, final long iLength) {
+  protected long checkRegions(final long iOffset, final long iLength) {
     acquireReadLock();
     try {
       if (iOffset < 0 || iOffset + iLength > size)
@@ -795,19 +820,26 @@ public class OFileClassic implements OFile, OClosableItem {
     }
   }
 
-  private void acquireWriteLock() {
+  /**
+   * @return Channel of opened file, should be accessed only under file lock.
+   */
+  protected FileChannel getChannel() {
+    return channel;
+  }
+
+  protected void acquireWriteLock() {
     lock.writeLock().lock();
   }
 
-  private void releaseWriteLock() {
+  protected void releaseWriteLock() {
     lock.writeLock().unlock();
   }
 
-  private void acquireReadLock() {
+  protected void acquireReadLock() {
     lock.readLock().lock();
   }
 
-  private void releaseReadLock() {
+  protected void releaseReadLock() {
     lock.readLock().unlock();
   }
 
@@ -891,6 +923,22 @@ public class OFileClassic implements OFile, OClosableItem {
     }
   }
 
+  private void writeByteBuffers(ByteBuffer[] buffers, FileChannel channel, long bytesToWrite) throws IOException {
+    long written = 0;
+
+    for (ByteBuffer buffer : buffers) {
+      buffer.position(0);
+    }
+
+    final int bufferSize = buffers[0].limit();
+
+    // partially written buffer keeps its position, so write is continued from the first not fully written buffer
+    while (written < bytesToWrite) {
+      final int bufferIndex = (int) (written / bufferSize);
+      written += channel.write(buffers, bufferIndex, buffers.length - bufferIndex);
+    }
+  }
+
   private void readByteBuffers(ByteBuffer[] buffers, FileChannel channel, long bytesToRead) throws IOException {
     long read = 0;
 
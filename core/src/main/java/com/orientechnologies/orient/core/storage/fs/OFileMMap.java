@@ -0,0 +1,259 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+package com.orientechnologies.orient.core.storage.fs;
+
+import com.orientechnologies.common.log.OLogManager;
+import sun.misc.Cleaner;
+import sun.nio.ch.DirectBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * File which serves reads from memory mapped regions of the file instead of positional reads from file channel, so reading of
+ * page which is already present in OS page cache does not require any system call.
+ * <p>
+ * Data part of the file (without header) is mapped by chunks of fixed size, chunks are mapped lazily on first read and only if
+ * they are fully covered by data of the file. Reads which do not fit into single chunk or touch not yet allocated tail of the
+ * file are delegated to {@link OFileClassic}.
+ * <p>
+ * Writes are still performed through file channel, mapped regions and channel share the same OS page cache so changes are
+ * visible for readers immediately. Chunks which are beyond the file end are unmapped on {@link #shrink(long)} and all chunks
+ * are unmapped on {@link #close()}.
+ */
+public class OFileMMap extends OFileClassic {
+  public final static String NAME = "mmap";
+
+  private final int chunkSize;
+
+  /**
+   * Mapped chunks, array is replaced on growth and never changed in place except of setting of not yet mapped chunk under
+   * {@link #mapLock}, or cleaning of it under file write lock.
+   */
+  private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+  private final    Object             mapLock = new Object();
+
+  public OFileMMap(String osFile, String mode, int chunkSize) {
+    super(osFile, mode);
+
+    if (chunkSize <= 0)
+      throw new IllegalArgumentException("Size of mapped chunk should be positive number but was " + chunkSize);
+
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public void read(long offset, byte[] iData, int iLength, int iArrayOffset) throws IOException {
+    acquireReadLock();
+    try {
+      final ByteBuffer chunk = chunkView(offset, iLength);
+      if (chunk != null) {
+        chunk.get(iData, iArrayOffset, iLength);
+        return;
+      }
+    } finally {
+      releaseReadLock();
+    }
+
+    super.read(offset, iData, iLength, iArrayOffset);
+  }
+
+  @Override
+  public void read(long offset, ByteBuffer buffer) throws IOException {
+    acquireReadLock();
+    try {
+      final ByteBuffer chunk = chunkView(offset, buffer.limit());
+      if (chunk != null) {
+        buffer.position(0);
+        buffer.put(chunk);
+        return;
+      }
+    } finally {
+      releaseReadLock();
+    }
+
+    super.read(offset, buffer);
+  }
+
+  @Override
+  public void read(long offset, ByteBuffer[] buffers) throws IOException {
+    acquireReadLock();
+    try {
+      final int bufferSize = buffers[0].limit();
+      final ByteBuffer chunk = chunkView(offset, (long) buffers.length * bufferSize);
+      if (chunk != null) {
+        for (ByteBuffer buffer : buffers) {
+          chunk.limit(chunk.position() + bufferSize);
+
+          buffer.position(0);
+          buffer.put(chunk);
+        }
+
+        return;
+      }
+    } finally {
+      releaseReadLock();
+    }
+
+    super.read(offset, buffers);
+  }
+
+  @Override
+  public void shrink(long iSize) throws IOException {
+    acquireWriteLock();
+    try {
+      // region of the file can not be truncated while it is mapped on some platforms, and access of
+      // mapped region which is beyond the file end causes crash of JVM
+      final MappedByteBuffer[] currentChunks = chunks;
+      final int chunksToKeep = (int) Math.min(currentChunks.length, iSize / chunkSize);
+
+      if (chunksToKeep < currentChunks.length) {
+        final MappedByteBuffer[] newChunks = new MappedByteBuffer[chunksToKeep];
+        System.arraycopy(currentChunks, 0, newChunks, 0, chunksToKeep);
+        chunks = newChunks;
+
+        for (int i = chunksToKeep; i < currentChunks.length; i++)
+          unmap(currentChunks[i]);
+      }
+
+      super.shrink(iSize);
+    } finally {
+      releaseWriteLock();
+    }
+  }
+
+  @Override
+  public void close() {
+    acquireWriteLock();
+    try {
+      unmapAll();
+      super.close();
+    } finally {
+      releaseWriteLock();
+    }
+  }
+
+  /**
+   * @return Amount of chunks which are mapped at the moment.
+   */
+  public int getMappedChunksCount() {
+    int count = 0;
+
+    for (MappedByteBuffer chunk : chunks) {
+      if (chunk != null)
+        count++;
+    }
+
+    return count;
+  }
+
+  /**
+   * Returns view of mapped chunk positioned at the requested region, or <code>null</code> if region can not be served from
+   * memory mapped chunk. Should be called under file read lock.
+   */
+  private ByteBuffer chunkView(long offset, long length) throws IOException {
+    if (length == 0 || length > chunkSize)
+      return null;
+
+    // out of bounds requests are handled (and reported) by channel based implementation
+    if (offset < 0 || offset + length > getFileSize())
+      return null;
+
+    final int chunkIndex = (int) (offset / chunkSize);
+    final int chunkOffset = (int) (offset - (long) chunkIndex * chunkSize);
+
+    if (chunkOffset + length > chunkSize)
+      return null;
+
+    final MappedByteBuffer chunk = acquireChunk(chunkIndex);
+    if (chunk == null)
+      return null;
+
+    final ByteBuffer view = chunk.duplicate();
+    view.limit(chunkOffset + (int) length);
+    view.position(chunkOffset);
+
+    return view;
+  }
+
+  private MappedByteBuffer acquireChunk(int chunkIndex) throws IOException {
+    MappedByteBuffer[] currentChunks = chunks;
+    if (chunkIndex < currentChunks.length && currentChunks[chunkIndex] != null)
+      return currentChunks[chunkIndex];
+
+    // only regions which are fully covered by the file content may be mapped
+    if ((long) (chunkIndex + 1) * chunkSize > getFileSize())
+      return null;
+
+    synchronized (mapLock) {
+      currentChunks = chunks;
+      if (chunkIndex < currentChunks.length && currentChunks[chunkIndex] != null)
+        return currentChunks[chunkIndex];
+
+      final FileChannel channel = getChannel();
+      if (channel == null)
+        return null;
+
+      final MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + (long) chunkIndex * chunkSize,
+          chunkSize);
+
+      if (chunkIndex >= currentChunks.length) {
+        final MappedByteBuffer[] newChunks = new MappedByteBuffer[chunkIndex + 1];
+        System.arraycopy(currentChunks, 0, newChunks, 0, currentChunks.length);
+        newChunks[chunkIndex] = chunk;
+        chunks = newChunks;
+      } else {
+        currentChunks[chunkIndex] = chunk;
+        chunks = currentChunks;
+      }
+
+      return chunk;
+    }
+  }
+
+  private void unmapAll() {
+    final MappedByteBuffer[] currentChunks = chunks;
+    chunks = new MappedByteBuffer[0];
+
+    for (MappedByteBuffer chunk : currentChunks)
+      unmap(chunk);
+  }
+
+  /**
+   * Releases mapped region immediately instead of waiting of GC. Should be called under file write lock, so there are no readers
+   * which may access released region.
+   */
+  private void unmap(MappedByteBuffer chunk) {
+    if (chunk == null)
+      return;
+
+    try {
+      if (chunk instanceof DirectBuffer) {
+        final Cleaner cleaner = ((DirectBuffer) chunk).cleaner();
+        if (cleaner != null)
+          cleaner.clean();
+      }
+    } catch (Exception e) {
+      OLogManager.instance().warn(this, "Can not unmap region of file '%s', it will be unmapped by GC", e, getName());
+    }
+  }
+}
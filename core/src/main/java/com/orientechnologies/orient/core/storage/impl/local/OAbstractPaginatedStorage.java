@@ -35,6 +35,7 @@ import com.orientechnologies.common.util.OPair;
 import com.orientechnologies.orient.core.OOrientShutdownListener;
 import com.orientechnologies.orient.core.OOrientStartupListener;
 import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.cache.OSharedRecordCache;
 import com.orientechnologies.orient.core.command.OCommandExecutor;
 import com.orientechnologies.orient.core.command.OCommandManager;
 import com.orientechnologies.orient.core.command.OCommandOutputListener;
@@ -128,6 +129,11 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
   protected volatile OReadCache  readCache;
   protected volatile OWriteCache writeCache;
 
+  /**
+   * Record cache shared by all sessions of this storage, <code>null</code> if it is disabled.
+   */
+  private final OSharedRecordCache recordCache;
+
   private volatile ORecordConflictStrategy recordConflictStrategy = Orient.instance().getRecordConflictStrategy()
       .getDefaultImplementation();
 
@@ -166,6 +172,9 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     lockManager = new ORIDOLockManager(OGlobalConfiguration.COMPONENTS_LOCK_CACHE.getValueAsInteger());
     recordVersionManager = new OPartitionedLockManager<ORID>();
 
+    final int recordCacheSize = OGlobalConfiguration.STORAGE_RECORD_CACHE_SIZE.getValueAsInteger();
+    recordCache = recordCacheSize > 0 ? new OSharedRecordCache(recordCacheSize * 1024L * 1024L) : null;
+
     registerProfilerHooks();
     sbTreeCollectionManager = new OSBTreeCollectionManagerShared(this);
   }
@@ -260,6 +269,77 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
                 return txRollback.get();
               }
             }, "db.*.txRollback");
+
+    if (recordCache != null)
+      registerRecordCacheProfilerHooks();
+  }
+
+  private void registerRecordCacheProfilerHooks() {
+    Orient.instance().getProfiler()
+        .registerHookValue("db." + this.name + ".recordCache.hits", "Number of records found in shared record cache",
+            OProfiler.METRIC_TYPE.COUNTER, new OAbstractProfiler.OProfilerHookValue() {
+              @Override
+              public Object getValue() {
+                return recordCache.getHits();
+              }
+            }, "db.*.recordCache.hits");
+
+    Orient.instance().getProfiler()
+        .registerHookValue("db." + this.name + ".recordCache.misses", "Number of records absent in shared record cache",
+            OProfiler.METRIC_TYPE.COUNTER, new OAbstractProfiler.OProfilerHookValue() {
+              @Override
+              public Object getValue() {
+                return recordCache.getMisses();
+              }
+            }, "db.*.recordCache.misses");
+
+    Orient.instance().getProfiler()
+        .registerHookValue("db." + this.name + ".recordCache.evictions", "Number of records evicted from shared record cache",
+            OProfiler.METRIC_TYPE.COUNTER, new OAbstractProfiler.OProfilerHookValue() {
+              @Override
+              public Object getValue() {
+                return recordCache.getEvictions();
+              }
+            }, "db.*.recordCache.evictions");
+
+    Orient.instance().getProfiler()
+        .registerHookValue("db." + this.name + ".recordCache.size", "Number of records in shared record cache",
+            OProfiler.METRIC_TYPE.SIZE, new OAbstractProfiler.OProfilerHookValue() {
+              @Override
+              public Object getValue() {
+                return recordCache.getSize();
+              }
+            }, "db.*.recordCache.size");
+
+    Orient.instance().getProfiler()
+        .registerHookValue("db." + this.name + ".recordCache.memory", "Amount of memory in bytes used by shared record cache",
+            OProfiler.METRIC_TYPE.SIZE, new OAbstractProfiler.OProfilerHookValue() {
+              @Override
+              public Object getValue() {
+                return recordCache.getMemory();
+              }
+            }, "db.*.recordCache.memory");
+  }
+
+  /**
+   * @return Record cache shared by all sessions of this storage or <code>null</code> if it is disabled.
+   * @see OGlobalConfiguration#STORAGE_RECORD_CACHE_SIZE
+   */
+  public OSharedRecordCache getRecordCache() {
+    return recordCache;
+  }
+
+  /**
+   * Removes all records of cluster from shared record cache, called when content of cluster is removed.
+   */
+  public void invalidateCachedRecords(int clusterId) {
+    if (recordCache != null)
+      recordCache.invalidateCluster(clusterId);
+  }
+
+  private void invalidateCachedRecord(ORID rid) {
+    if (recordCache != null)
+      recordCache.invalidate(rid);
   }
 
   public void open(final String iUserName, final String iUserPassword, final Map<String, Object> iProperties) {
@@ -693,6 +773,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
       if (iTruncate)
         cluster.truncate();
       cluster.delete();
+      invalidateCachedRecords(clusterId);
 
       makeStorageDirty();
       clusterMap.remove(cluster.getName().toLowerCase(configuration.getLocaleInstance()));
@@ -1110,7 +1191,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
       throw OException.wrapException(new ORecordNotFoundException(iRid), e);
     }
 
-    return new OStorageOperationResult<ORawBuffer>(readRecord(cluster, iRid, prefetchRecords));
+    return new OStorageOperationResult<ORawBuffer>(readRecord(cluster, iRid, prefetchRecords, iIgnoreCache));
   }
 
   @Override
@@ -1445,6 +1526,9 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
 
           endStorageTx();
 
+          for (ORecordOperation txEntry : entries)
+            invalidateCachedRecord(txEntry.getRecord().getIdentity());
+
           OTransactionAbstract.updateCacheFromEntries(clientTx, entries, true);
 
           txCommit.incrementAndGet();
@@ -1948,6 +2032,50 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     }
   }
 
+  /**
+   * Fills empty index by entries sorted by key, if index engine does not support bulk load entries are put one by one.
+   *
+   * @see OBulkLoadIndexEngine#bulkLoad(Iterator)
+   */
+  public void bulkLoadIndex(int indexId, Iterator<Map.Entry<Object, Object>> entries) throws OInvalidIndexEngineIdException {
+    if (transaction.get() != null) {
+      doBulkLoadIndex(indexId, entries);
+      return;
+    }
+
+    checkOpeness();
+
+    stateLock.acquireReadLock();
+    try {
+      checkOpeness();
+
+      checkLowDiskSpaceFullCheckpointRequestsAndBackgroundDataFlushExceptions();
+
+      doBulkLoadIndex(indexId, entries);
+    } finally {
+      stateLock.releaseReadLock();
+    }
+  }
+
+  private void doBulkLoadIndex(int indexId, Iterator<Map.Entry<Object, Object>> entries) throws OInvalidIndexEngineIdException {
+    try {
+      checkIndexId(indexId);
+
+      final OIndexEngine engine = indexEngines.get(indexId);
+      makeStorageDirty();
+
+      if (engine instanceof OBulkLoadIndexEngine)
+        ((OBulkLoadIndexEngine) engine).bulkLoad(entries);
+      else
+        while (entries.hasNext()) {
+          final Map.Entry<Object, Object> entry = entries.next();
+          engine.put(entry.getKey(), entry.getValue());
+        }
+    } catch (IOException e) {
+      throw new OStorageException("Cannot load entries to the index");
+    }
+  }
+
   /**
    * Puts the given value under the given key into this storage for the index with the given index id. Validates the operation using
    * the provided validator.
@@ -2892,7 +3020,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     }
   }
 
-  private ORawBuffer readRecord(final OCluster clusterSegment, final ORecordId rid, boolean prefetchRecords) {
+  private ORawBuffer readRecord(final OCluster clusterSegment, final ORecordId rid, boolean prefetchRecords, boolean ignoreCache) {
     checkOpeness();
 
     if (!rid.isPersistent())
@@ -2908,14 +3036,15 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     stateLock.acquireReadLock();
     try {
       checkOpeness();
-      return doReadRecord(clusterSegment, rid, prefetchRecords);
+      return doReadRecordThroughCache(clusterSegment, rid, prefetchRecords, ignoreCache);
     } finally {
       stateLock.releaseReadLock();
     }
   }
 
   /**
-   * Returns the requested records. The returned order could be different than the requested.
+   * Returns the requested records. The returned order could be different than the requested: outside transactions the records of
+   * every cluster are read in one batch sorted by position (see {@link OPaginatedCluster#readRecords(long[])}).
    *
    * @param iRids Set of rids to load in one shot
    */
@@ -2948,9 +3077,12 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
         final int clusterId = entry.getKey();
         final OCluster clusterSegment = getClusterById(clusterId);
 
-        for (ORecordId rid : entry.getValue()) {
-          records.add(new OPair<ORecordId, ORawBuffer>(rid, doReadRecord(clusterSegment, rid, false)));
-        }
+        if (clusterSegment instanceof OPaginatedCluster)
+          doReadRecords((OPaginatedCluster) clusterSegment, entry.getValue(), records);
+        else
+          for (ORecordId rid : entry.getValue()) {
+            records.add(new OPair<ORecordId, ORawBuffer>(rid, doReadRecordThroughCache(clusterSegment, rid, false, false)));
+          }
       }
     } finally {
       stateLock.releaseReadLock();
@@ -3031,6 +3163,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
         if (context != null)
           context.executeOperations(this);
         atomicOperationsManager.endAtomicOperation(false, null, (String) null);
+        invalidateCachedRecord(rid);
       } catch (Exception e) {
         atomicOperationsManager.endAtomicOperation(true, e, (String) null);
 
@@ -3117,6 +3250,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
         if (context != null)
           context.executeOperations(this);
         atomicOperationsManager.endAtomicOperation(false, null, (String) null);
+        invalidateCachedRecord(rid);
       } catch (Exception e) {
         atomicOperationsManager.endAtomicOperation(true, e, (String) null);
 
@@ -3168,6 +3302,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
         if (context != null)
           context.executeOperations(this);
         atomicOperationsManager.endAtomicOperation(false, null, (String) null);
+        invalidateCachedRecord(rid);
       } catch (Exception e) {
         atomicOperationsManager.endAtomicOperation(true, e, (String) null);
 
@@ -3222,6 +3357,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
         if (context != null)
           context.executeOperations(this);
         atomicOperationsManager.endAtomicOperation(false, null, (String) null);
+        invalidateCachedRecord(rid);
       } catch (Exception e) {
         atomicOperationsManager.endAtomicOperation(true, e, (String) null);
         OLogManager.instance().error(this, "Error on deleting record " + rid + "( cluster: " + cluster + ")", e);
@@ -3259,6 +3395,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
           context.executeOperations(this);
 
         atomicOperationsManager.endAtomicOperation(false, null, (String) null);
+        invalidateCachedRecord(rid);
       } catch (Exception e) {
         atomicOperationsManager.endAtomicOperation(true, e, (String) null);
         OLogManager.instance().error(this, "Error on deleting record " + rid + "( cluster: " + cluster + ")", e);
@@ -3292,6 +3429,72 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     }
   }
 
+  /**
+   * Reads record from shared record cache if it is enabled, otherwise or if record is absent in cache reads it from cluster. Records
+   * are not cached while atomic operation is active because changes of atomic operation are not visible to other threads.
+   */
+  private ORawBuffer doReadRecordThroughCache(final OCluster clusterSegment, final ORecordId rid, boolean prefetchRecords,
+      boolean ignoreCache) {
+    if (recordCache == null || atomicOperationsManager.getCurrentOperation() != null)
+      return doReadRecord(clusterSegment, rid, prefetchRecords);
+
+    if (!ignoreCache) {
+      final ORawBuffer buff = recordCache.get(rid);
+      if (buff != null)
+        return buff;
+    }
+
+    final long stamp = recordCache.stamp(rid);
+    final ORawBuffer buff = doReadRecord(clusterSegment, rid, prefetchRecords);
+    recordCache.put(rid, buff, stamp);
+
+    return buff;
+  }
+
+  /**
+   * Reads the records of a cluster in one batch sorted by position, through the shared record cache if it is enabled.
+   */
+  private void doReadRecords(final OPaginatedCluster cluster, final List<ORecordId> rids,
+      final List<OPair<ORecordId, ORawBuffer>> records) {
+    final boolean useCache = recordCache != null && atomicOperationsManager.getCurrentOperation() == null;
+
+    final List<ORecordId> toRead = new ArrayList<ORecordId>(rids.size());
+    for (ORecordId rid : rids) {
+      final ORawBuffer buff = useCache ? recordCache.get(rid) : null;
+      if (buff != null)
+        records.add(new OPair<ORecordId, ORawBuffer>(rid, buff));
+      else
+        toRead.add(rid);
+    }
+
+    if (toRead.isEmpty())
+      return;
+
+    Collections.sort(toRead);
+
+    final long[] positions = new long[toRead.size()];
+    final long[] stamps = new long[toRead.size()];
+    for (int i = 0; i < positions.length; i++) {
+      positions[i] = toRead.get(i).getClusterPosition();
+      if (useCache)
+        stamps[i] = recordCache.stamp(toRead.get(i));
+    }
+
+    final ORawBuffer[] buffers;
+    try {
+      buffers = cluster.readRecords(positions);
+    } catch (IOException e) {
+      throw OException.wrapException(new OStorageException("Error during read of records from cluster " + cluster.getName()), e);
+    }
+    recordRead.addAndGet(buffers.length);
+
+    for (int i = 0; i < buffers.length; i++) {
+      if (useCache)
+        recordCache.put(toRead.get(i), buffers[i], stamps[i]);
+      records.add(new OPair<ORecordId, ORawBuffer>(toRead.get(i), buffers[i]));
+    }
+  }
+
   private ORawBuffer doReadRecordIfNotLatest(final OCluster cluster, final ORecordId rid, final int recordVersion)
       throws ORecordNotFoundException {
     try {
@@ -3463,6 +3666,9 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
 
       status = STATUS.CLOSING;
 
+      if (recordCache != null)
+        recordCache.clear();
+
       readCache.storeCacheState(writeCache);
 
       if (!onDelete)
@@ -413,6 +413,62 @@ public class OClusterPositionMap extends ODurableComponent {
     }
   }
 
+  /**
+   * Batch version of {@link #get(long, int)}. The positions have to be sorted in ascending order, so every page of the map is loaded
+   * once for all the positions it contains.
+   *
+   * @return the entries at the same index of their positions, null for the positions which are not mapped
+   */
+  public OClusterPositionMapBucket.PositionEntry[] get(final long[] clusterPositions) throws IOException {
+    final OClusterPositionMapBucket.PositionEntry[] result = new OClusterPositionMapBucket.PositionEntry[clusterPositions.length];
+
+    startOperation();
+    try {
+      atomicOperationsManager.acquireReadLock(this);
+      try {
+        acquireSharedLock();
+        try {
+          final OAtomicOperation atomicOperation = atomicOperationsManager.getCurrentOperation();
+          final long filledUpTo = getFilledUpTo(atomicOperation, fileId);
+
+          int i = 0;
+          while (i < clusterPositions.length) {
+            if (clusterPositions[i] < 0) {
+              i++;
+              continue;
+            }
+
+            final long pageIndex = clusterPositions[i] / OClusterPositionMapBucket.MAX_ENTRIES;
+            if (pageIndex >= filledUpTo)
+              break;
+
+            final OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, pageIndex, false, 1);
+            cacheEntry.acquireSharedLock();
+            try {
+              final OClusterPositionMapBucket bucket = new OClusterPositionMapBucket(cacheEntry,
+                  getChanges(atomicOperation, cacheEntry));
+              do {
+                result[i] = bucket.get((int) (clusterPositions[i] % OClusterPositionMapBucket.MAX_ENTRIES));
+                i++;
+              } while (i < clusterPositions.length && clusterPositions[i] / OClusterPositionMapBucket.MAX_ENTRIES == pageIndex);
+            } finally {
+              cacheEntry.releaseSharedLock();
+              releasePage(atomicOperation, cacheEntry);
+            }
+          }
+
+          return result;
+        } finally {
+          releaseSharedLock();
+        }
+      } finally {
+        atomicOperationsManager.releaseReadLock(this);
+      }
+    } finally {
+      completeOperation();
+    }
+  }
+
   public OClusterPositionMapBucket.PositionEntry remove(final long clusterPosition) throws IOException {
     startOperation();
     try {
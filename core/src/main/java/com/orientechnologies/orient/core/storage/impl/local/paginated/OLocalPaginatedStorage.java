@@ -460,6 +460,12 @@ public class OLocalPaginatedStorage extends OAbstractPaginatedStorage implements
     wowCache.addLowDiskSpaceListener(this);
     wowCache.addBackgroundExceptionListener(this);
 
+    try {
+      wowCache.registerMBean();
+    } catch (Exception e) {
+      OLogManager.instance().error(this, "MBean for write cache cannot be registered", e);
+    }
+
     writeCache = wowCache;
   }
 
@@ -24,6 +24,8 @@ import com.orientechnologies.common.serialization.types.OLongSerializer;
 import com.orientechnologies.orient.core.Orient;
 import com.orientechnologies.orient.core.compression.OCompression;
 import com.orientechnologies.orient.core.compression.OCompressionFactory;
+import com.orientechnologies.orient.core.compression.impl.OLZ4Compression;
+import com.orientechnologies.orient.core.compression.impl.OLZ4DictionaryTrainer;
 import com.orientechnologies.orient.core.config.OContextConfiguration;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.config.OStorageClusterConfiguration;
@@ -37,6 +39,7 @@ import com.orientechnologies.orient.core.exception.ORecordNotFoundException;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.metadata.OMetadata;
+import com.orientechnologies.orient.core.serialization.OBase64Utils;
 import com.orientechnologies.orient.core.storage.*;
 import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
 import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
@@ -48,6 +51,8 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 import static com.orientechnologies.orient.core.config.OGlobalConfiguration.DISK_CACHE_PAGE_SIZE;
@@ -73,6 +78,12 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
   private static final int    RECORD_POSITION_MASK     = 0xFFFF;
   private static final int    ONE_KB                   = 1024;
 
+  /**
+   * Prefix of the name of storage configuration property which contains Base64 encoded compression dictionary of the cluster,
+   * full name of property contains id of the cluster.
+   */
+  public static final String COMPRESSION_DICTIONARY_PROPERTY = "clusterCompressionDictionary.";
+
   private volatile OCompression                          compression;
   private volatile OEncryption                           encryption;
   private final    boolean                               systemCluster;
@@ -286,6 +297,7 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
         deleteFile(atomicOperation, fileId);
 
         clusterPositionMap.delete();
+        storageLocal.getConfiguration().removeProperty(compressionDictionaryProperty());
 
         endAtomicOperation(false, null);
       } catch (IOException ioe) {
@@ -330,9 +342,10 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
           if (getEntries() > 0)
             throw new IllegalArgumentException(
                 "Cannot change compression setting on cluster '" + getName() + "' because it is not empty");
-          setCompressionInternal(stringValue,
-              ODatabaseRecordThreadLocal.INSTANCE.get().getStorage().getConfiguration().getContextConfiguration()
-                  .getValueAsString(OGlobalConfiguration.STORAGE_ENCRYPTION_KEY));
+          setCompressionInternal(stringValue, compressionDictionary(storageLocal));
+          break;
+        case COMPRESSION_DICTIONARY:
+          trainCompressionDictionaryInternal(stringValue);
           break;
         case CONFLICTSTRATEGY:
           setRecordConflictStrategy(stringValue);
@@ -698,6 +711,10 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
     if (fullContent == null)
       return null;
 
+    return toRawBuffer(fullContent, recordVersion);
+  }
+
+  private ORawBuffer toRawBuffer(final byte[] fullContent, final int recordVersion) {
     int fullContentPosition = 0;
 
     final byte recordType = fullContent[fullContentPosition];
@@ -712,6 +729,109 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
     return new ORawBuffer(recordContent, recordVersion, recordType);
   }
 
+  /**
+   * Reads several records in one shot, taking the locks once for all of them. The positions have to be sorted in ascending order:
+   * the pages of the position map are loaded once for all the positions they contain, then the records are read in the order of
+   * their data pages, so every data page is loaded once even when records were moved by updates.
+   *
+   * @return the records at the same index of their positions, null for the records which do not exist
+   */
+  public ORawBuffer[] readRecords(final long[] clusterPositions) throws IOException {
+    final ORawBuffer[] result = new ORawBuffer[clusterPositions.length];
+    if (clusterPositions.length == 0)
+      return result;
+
+    startOperation();
+    OSessionStoragePerformanceStatistic statistic = performanceStatisticManager.getSessionPerformanceStatistic();
+    if (statistic != null)
+      statistic.startRecordReadTimer();
+    try {
+      atomicOperationsManager.acquireReadLock(this);
+      try {
+        acquireSharedLock();
+        try {
+          readRecordsByPage(clusterPositions, clusterPositionMap.get(clusterPositions), result);
+          return result;
+        } finally {
+          releaseSharedLock();
+        }
+      } finally {
+        atomicOperationsManager.releaseReadLock(this);
+      }
+    } finally {
+      if (statistic != null)
+        statistic.stopRecordReadTimer();
+      completeOperation();
+    }
+  }
+
+  private void readRecordsByPage(final long[] clusterPositions, final OClusterPositionMapBucket.PositionEntry[] positionEntries,
+      final ORawBuffer[] result) throws IOException {
+    final Integer[] order = new Integer[positionEntries.length];
+    int count = 0;
+    for (int i = 0; i < positionEntries.length; i++)
+      if (positionEntries[i] != null)
+        order[count++] = i;
+
+    Arrays.sort(order, 0, count, new Comparator<Integer>() {
+      @Override
+      public int compare(final Integer first, final Integer second) {
+        final OClusterPositionMapBucket.PositionEntry firstEntry = positionEntries[first];
+        final OClusterPositionMapBucket.PositionEntry secondEntry = positionEntries[second];
+        if (firstEntry.getPageIndex() != secondEntry.getPageIndex())
+          return firstEntry.getPageIndex() < secondEntry.getPageIndex() ? -1 : 1;
+        return firstEntry.getRecordPosition() - secondEntry.getRecordPosition();
+      }
+    });
+
+    final OAtomicOperation atomicOperation = atomicOperationsManager.getCurrentOperation();
+    final long filledUpTo = getFilledUpTo(atomicOperation, fileId);
+
+    // RECORDS SPREAD ON MORE PAGES ARE READ AT THE END, TO NOT KEEP A PAGE LOCKED WHILE LOADING OTHERS
+    List<Integer> multiPageRecords = null;
+
+    int n = 0;
+    while (n < count) {
+      final long pageIndex = positionEntries[order[n]].getPageIndex();
+      if (pageIndex >= filledUpTo)
+        break;
+
+      final OCacheEntry cacheEntry = loadPage(atomicOperation, fileId, pageIndex, false, 1);
+      cacheEntry.acquireSharedLock();
+      try {
+        final OClusterPage localPage = new OClusterPage(cacheEntry, false, getChanges(atomicOperation, cacheEntry));
+        do {
+          final int i = order[n];
+          final int recordPosition = positionEntries[i].getRecordPosition();
+
+          if (!localPage.isDeleted(recordPosition)) {
+            final byte[] content = localPage.getRecordBinaryValue(recordPosition, 0, localPage.getRecordSize(recordPosition));
+            final long nextPagePointer = OLongSerializer.INSTANCE.deserializeNative(content, content.length - OLongSerializer.LONG_SIZE);
+
+            if (content[content.length - OLongSerializer.LONG_SIZE - OByteSerializer.BYTE_SIZE] == 0)
+              // NOT THE FIRST CHUNK OF A RECORD
+              result[i] = null;
+            else if (nextPagePointer >= 0) {
+              if (multiPageRecords == null)
+                multiPageRecords = new ArrayList<Integer>();
+              multiPageRecords.add(i);
+            } else
+              result[i] = toRawBuffer(content, localPage.getRecordVersion(recordPosition));
+          }
+
+          n++;
+        } while (n < count && positionEntries[order[n]].getPageIndex() == pageIndex);
+      } finally {
+        cacheEntry.releaseSharedLock();
+        releasePage(atomicOperation, cacheEntry);
+      }
+    }
+
+    if (multiPageRecords != null)
+      for (int i : multiPageRecords)
+        result[i] = readRecordBuffer(clusterPositions[i], 1, positionEntries[i]);
+  }
+
   @Override
   public ORawBuffer readRecordIfVersionIsNotLatest(long clusterPosition, final int recordVersion)
       throws IOException, ORecordNotFoundException {
@@ -1340,6 +1460,8 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
 
         endAtomicOperation(false, null);
 
+        storageLocal.invalidateCachedRecords(id);
+
       } catch (Exception e) {
         endAtomicOperation(true, e);
         throw OException.wrapException(new OPaginatedClusterException("Error during cluster truncate", this), e);
@@ -1822,7 +1944,7 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
     OFileUtils.checkValidName(config.getName());
 
     this.config = (OStoragePaginatedClusterConfiguration) config;
-    this.compression = OCompressionFactory.INSTANCE.getCompression(this.config.compression, null);
+    this.compression = OCompressionFactory.INSTANCE.getCompression(this.config.compression, compressionDictionary(storage));
     this.encryption = OEncryptionFactory.INSTANCE.getEncryption(this.config.encryption, this.config.encryptionKey);
 
     if (((OStoragePaginatedClusterConfiguration) config).conflictStrategy != null)
@@ -1847,6 +1969,65 @@ public class OPaginatedCluster extends ODurableComponent implements OCluster {
     }
   }
 
+  /**
+   * Trains dictionary of the cluster compression on records which are already stored in the cluster. Dictionary may be trained
+   * only once, because records which are compressed with dictionary can not be read without it.
+   *
+   * @param stringValue Maximum size of the dictionary in bytes
+   */
+  private void trainCompressionDictionaryInternal(final String stringValue) throws IOException {
+    if (!OLZ4Compression.NAME.equals(config.compression))
+      throw new OPaginatedClusterException(
+          "Compression dictionary is supported only by '" + OLZ4Compression.NAME + "' compression but cluster '" + getName()
+              + "' uses '" + config.compression + "' compression", this);
+
+    if (compressionDictionary(storageLocal) != null)
+      throw new OPaginatedClusterException("Compression dictionary of cluster '" + getName() + "' is already trained", this);
+
+    final OLZ4DictionaryTrainer trainer;
+    try {
+      trainer = new OLZ4DictionaryTrainer(Integer.parseInt(stringValue));
+    } catch (NumberFormatException nfe) {
+      throw OException.wrapException(new OPaginatedClusterException(
+          "Invalid value for cluster attribute " + ATTRIBUTES.COMPRESSION_DICTIONARY + " was passed [" + stringValue + "]", this),
+          nfe);
+    } catch (IllegalArgumentException iae) {
+      throw OException.wrapException(new OPaginatedClusterException(
+          "Invalid value for cluster attribute " + ATTRIBUTES.COMPRESSION_DICTIONARY + " was passed [" + stringValue + "]", this),
+          iae);
+    }
+
+    long[] positions = clusterPositionMap.ceilingPositions(0);
+    while (positions.length > 0 && trainer.needsMoreSamples()) {
+      for (long position : positions) {
+        final ORawBuffer buffer = readRecord(position, false);
+        if (buffer != null)
+          trainer.addSample(buffer.buffer);
+      }
+
+      positions = clusterPositionMap.higherPositions(positions[positions.length - 1]);
+    }
+
+    final byte[] dictionary = trainer.train();
+    if (dictionary.length == 0)
+      throw new OPaginatedClusterException(
+          "Cluster '" + getName() + "' does not contain enough similar records to train compression dictionary", this);
+
+    final String encodedDictionary = OBase64Utils.encodeBytes(dictionary);
+    compression = OCompressionFactory.INSTANCE.getCompression(config.compression, encodedDictionary);
+
+    storageLocal.getConfiguration().setProperty(compressionDictionaryProperty(), encodedDictionary);
+    storageLocal.getConfiguration().update();
+  }
+
+  private String compressionDictionaryProperty() {
+    return COMPRESSION_DICTIONARY_PROPERTY + config.getId();
+  }
+
+  private String compressionDictionary(final OAbstractPaginatedStorage storage) {
+    return storage.getConfiguration().getProperty(compressionDictionaryProperty());
+  }
+
   private void setEncryptionInternal(final String iMethod, final String iKey) {
     try {
       encryption = OEncryptionFactory.INSTANCE.getEncryption(iMethod, iKey);
@@ -47,6 +47,8 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.CRC32;
 
 /**
@@ -98,6 +100,31 @@ public class ODiskWriteAheadLog extends OAbstractWriteAheadLog {
 
   private final ByteBuffer fileDataBuffer = ByteBuffer.allocateDirect(OWALPage.PAGE_SIZE).order(ByteOrder.nativeOrder());
 
+  /**
+   * Indicates whether commit of atomic operation waits till its end record is forced to the disk.
+   *
+   * @see #waitTillDurable(OLogSequenceNumber)
+   */
+  private final boolean groupCommit = OGlobalConfiguration.WAL_GROUP_COMMIT.getValueAsBoolean();
+
+  /**
+   * Lock which protects state of group commit: {@link #groupCommitQueue} and {@link #groupCommitInProgress} flag.
+   */
+  private final Lock      groupCommitLock      = new ReentrantLock();
+  private final Condition groupCommitCompleted = groupCommitLock.newCondition();
+
+  /**
+   * LSNs of end records of atomic operations which wait till they will be forced to the disk.
+   */
+  private final List<OLogSequenceNumber> groupCommitQueue = new ArrayList<OLogSequenceNumber>();
+
+  private boolean groupCommitInProgress = false;
+
+  /**
+   * All records till this LSN (inclusive) are forced to the disk by group commit.
+   */
+  private volatile OLogSequenceNumber durableLsn;
+
   private static class SimpleFileNameFilter implements java.io.FilenameFilter {
     private final String storageName;
     private final Locale locale;
@@ -439,23 +466,126 @@ public class ODiskWriteAheadLog extends OAbstractWriteAheadLog {
     try {
       OAtomicUnitEndRecord record = new OAtomicUnitEndRecord(operationUnitId, rollback, atomicOperationMetadata);
       byte[] content = OWALRecordsFactory.INSTANCE.toStream(record);
+
+      final OLogSequenceNumber lsn;
       syncObject.lock();
       try {
         checkForClose();
 
-        final OLogSequenceNumber lsn = internalLog(record, content);
+        lsn = internalLog(record, content);
         activeOperations.remove(operationUnitId);
-
-        return lsn;
       } finally {
         syncObject.unlock();
       }
+
+      if (groupCommit && !rollback)
+        waitTillDurable(lsn);
+
+      return lsn;
     } finally {
       if (statistic != null)
         statistic.stopWALRecordTimer(false, true);
     }
   }
 
+  /**
+   * Parks committer till record with passed in LSN will be forced to the disk.
+   * <p>
+   * Committer which finds out that there is no fsync in progress becomes leader. Leader writes all records which are logged so
+   * far, forces them to the disk by single fsync call and wakes up all committers whose records are covered by this fsync.
+   * Committers whose records are logged after leader started to write data, wait for the next leader.
+   */
+  private void waitTillDurable(OLogSequenceNumber lsn) throws IOException {
+    OLogSequenceNumber durable = durableLsn;
+    if (durable != null && durable.compareTo(lsn) >= 0)
+      return;
+
+    groupCommitLock.lock();
+    try {
+      groupCommitQueue.add(lsn);
+
+      while ((durable = durableLsn) == null || durable.compareTo(lsn) < 0) {
+        if (groupCommitInProgress) {
+          try {
+            groupCommitCompleted.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OInterruptedException("Waiting for group commit was interrupted");
+          }
+
+          continue;
+        }
+
+        groupCommitInProgress = true;
+        groupCommitLock.unlock();
+
+        final OSessionStoragePerformanceStatistic statistic = performanceStatisticManager.getSessionPerformanceStatistic();
+        if (statistic != null)
+          statistic.startWALGroupCommitTimer();
+
+        OLogSequenceNumber syncedLsn = null;
+        int batchSize = 0;
+        try {
+          syncedLsn = syncTillEnd();
+        } finally {
+          groupCommitLock.lock();
+          groupCommitInProgress = false;
+
+          if (syncedLsn != null) {
+            if (durableLsn == null || durableLsn.compareTo(syncedLsn) < 0)
+              durableLsn = syncedLsn;
+
+            final Iterator<OLogSequenceNumber> queueIterator = groupCommitQueue.iterator();
+            while (queueIterator.hasNext()) {
+              if (queueIterator.next().compareTo(syncedLsn) <= 0) {
+                queueIterator.remove();
+                batchSize++;
+              }
+            }
+          }
+
+          groupCommitCompleted.signalAll();
+
+          if (statistic != null)
+            statistic.stopWALGroupCommitTimer(batchSize);
+        }
+      }
+    } finally {
+      groupCommitLock.unlock();
+    }
+  }
+
+  /**
+   * Writes all records which are logged so far and forces them to the disk.
+   *
+   * @return LSN of last record which is forced to the disk.
+   */
+  private OLogSequenceNumber syncTillEnd() throws IOException {
+    final OLogSequenceNumber end;
+    final List<OLogSegment> segmentsToSync = new ArrayList<OLogSegment>();
+
+    syncObject.lock();
+    try {
+      checkForClose();
+
+      end = end();
+
+      // segments which precede segment of durable LSN are already forced to the disk
+      final OLogSequenceNumber durable = durableLsn;
+      for (OLogSegment logSegment : logSegments) {
+        if (durable == null || logSegment.getOrder() >= durable.getSegment())
+          segmentsToSync.add(logSegment);
+      }
+    } finally {
+      syncObject.unlock();
+    }
+
+    for (OLogSegment logSegment : segmentsToSync)
+      logSegment.flushAndSync();
+
+    return end;
+  }
+
   public OLogSequenceNumber log(OWALRecord record) throws IOException {
     OSessionStoragePerformanceStatistic statistic = performanceStatisticManager.getSessionPerformanceStatistic();
     if (statistic != null)
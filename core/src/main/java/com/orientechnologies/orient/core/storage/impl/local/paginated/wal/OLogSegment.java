@@ -697,6 +697,26 @@ final class OLogSegment implements Comparable<OLogSegment> {
     }
   }
 
+  /**
+   * Writes all cached records to the file and forces them to the disk, regardless of
+   * {@link OGlobalConfiguration#WAL_SYNC_ON_PAGE_FLUSH} setting.
+   */
+  public void flushAndSync() throws IOException {
+    flush();
+
+    fileLock.lock();
+    try {
+      // content of closed segment is already flushed and file should not be reopened
+      if (closed)
+        return;
+
+      final RandomAccessFile rndFile = getRndFile();
+      rndFile.getChannel().force(false);
+    } finally {
+      fileLock.unlock();
+    }
+  }
+
   private void initPageCache(ByteBuffer buffer) throws IOException {
     fileLock.lock();
     try {
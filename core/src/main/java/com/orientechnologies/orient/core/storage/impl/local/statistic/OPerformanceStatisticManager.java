@@ -30,6 +30,7 @@ import com.orientechnologies.orient.core.storage.cache.OReadCache;
 import com.orientechnologies.orient.core.storage.cache.OWriteCache;
 import com.orientechnologies.orient.core.storage.cache.local.OWOWCache;
 import com.orientechnologies.orient.core.storage.cache.local.twoq.O2QCache;
+import com.orientechnologies.orient.core.storage.cache.local.twoq.OPartitioned2QCache;
 import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.ODiskWriteAheadLog;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OWriteAheadLog;
@@ -241,7 +242,7 @@ public class OPerformanceStatisticManager {
    * disk based storage.
    * Initialized on demand.
    */
-  private volatile O2QCache readCache;
+  private volatile OReadCache readCache;
 
   /**
    * Flags which indicates whether {@link #writeAheadLog} field is initialized on demand.
@@ -288,13 +289,13 @@ public class OPerformanceStatisticManager {
   /**
    * @return Returns current instance of read cache and initializes local reference if such one is not initialized yet.
    */
-  private O2QCache gerReadCache() {
+  private OReadCache gerReadCache() {
     if (readCacheInitialized)
       return readCache;
 
     final OReadCache cache = storage.getReadCache();
-    if (cache instanceof O2QCache) {
-      this.readCache = (O2QCache) cache;
+    if (cache instanceof O2QCache || cache instanceof OPartitioned2QCache) {
+      this.readCache = cache;
     } else {
       this.readCache = null;
     }
@@ -942,7 +943,7 @@ public class OPerformanceStatisticManager {
     switchLock.acquireReadLock();
     try {
       if (enabled) {
-        final O2QCache cache = gerReadCache();
+        final OReadCache cache = gerReadCache();
         if (cache != null)
           readCacheSize = cache.getUsedMemory();
 
@@ -1177,6 +1178,64 @@ public class OPerformanceStatisticManager {
     }
   }
 
+  /**
+   * @return average amount of atomic operations which became durable by single fsync of WAL group commit or <code>-1</code> if value is undefined
+   */
+  public long getWALGroupCommitBatchSize() {
+    switchLock.acquireReadLock();
+    try {
+      if (enabled) {
+        final WALCountersHolder holder = fetchWALCounters();
+
+        if (holder != null)
+          return holder.getGroupCommitBatchSize();
+
+        return -1;
+      } else {
+        final ImmutableStatistic post = postMeasurementStatistic;
+        if (post == null)
+          return -1;
+
+        final WALCountersHolder holder = post.walCountersHolder;
+        if (holder != null)
+          return holder.getGroupCommitBatchSize();
+
+        return -1;
+      }
+    } finally {
+      switchLock.releaseReadLock();
+    }
+  }
+
+  /**
+   * @return average time which is spent on single fsync of WAL group commit or <code>-1</code> if value is undefined
+   */
+  public long getWALGroupCommitSyncTime() {
+    switchLock.acquireReadLock();
+    try {
+      if (enabled) {
+        final WALCountersHolder holder = fetchWALCounters();
+
+        if (holder != null)
+          return holder.getGroupCommitSyncTime();
+
+        return -1;
+      } else {
+        final ImmutableStatistic post = postMeasurementStatistic;
+        if (post == null)
+          return -1;
+
+        final WALCountersHolder holder = post.walCountersHolder;
+        if (holder != null)
+          return holder.getGroupCommitSyncTime();
+
+        return -1;
+      }
+    } finally {
+      switchLock.releaseReadLock();
+    }
+  }
+
   /**
    * Iterates over all live threads and accumulates write performance statics gathered form threads,
    * also accumulates statistic from dead threads which were alive when when gathering of performance measurements is started.
@@ -150,6 +150,16 @@ public class OPerformanceStatisticManagerMBean implements DynamicMBean {
    */
   public static final String WAL_FLUSH_TIME = "walFlushTime";
 
+  /**
+   * Name of "walGroupCommitBatchSize" performance attribute
+   */
+  public static final String WAL_GROUP_COMMIT_BATCH_SIZE = "walGroupCommitBatchSize";
+
+  /**
+   * Name of "walGroupCommitSyncTime" performance attribute
+   */
+  public static final String WAL_GROUP_COMMIT_SYNC_TIME = "walGroupCommitSyncTime";
+
   /**
    * Reference to related performance manager
    */
@@ -298,6 +308,16 @@ public class OPerformanceStatisticManagerMBean implements DynamicMBean {
         return manager.getWALFlushTime();
       else
         throwComponentsAreNotSupported(WAL_FLUSH_TIME);
+    } else if (attributeName.equals(WAL_GROUP_COMMIT_BATCH_SIZE)) {
+      if (componentName == null)
+        return manager.getWALGroupCommitBatchSize();
+      else
+        throwComponentsAreNotSupported(WAL_GROUP_COMMIT_BATCH_SIZE);
+    } else if (attributeName.equals(WAL_GROUP_COMMIT_SYNC_TIME)) {
+      if (componentName == null)
+        return manager.getWALGroupCommitSyncTime();
+      else
+        throwComponentsAreNotSupported(WAL_GROUP_COMMIT_SYNC_TIME);
     }
 
     throw new AttributeNotFoundException("Cannot find " + attribute + " attribute in " + getClass().getSimpleName());
@@ -421,6 +441,8 @@ public class OPerformanceStatisticManagerMBean implements DynamicMBean {
     populateWALEndAOLogTime(performanceAttributes);
     populateWALStartAOLogTime(performanceAttributes);
     populateWALFlushTime(performanceAttributes);
+    populateWALGroupCommitBatchSize(performanceAttributes);
+    populateWALGroupCommitSyncTime(performanceAttributes);
   }
 
   private void populateWriteSpeedInCache(List<MBeanAttributeInfo> performanceAttributes, Collection<String> components) {
@@ -594,4 +616,19 @@ public class OPerformanceStatisticManagerMBean implements DynamicMBean {
     performanceAttributes.add(walFlushTime);
   }
 
+  private void populateWALGroupCommitBatchSize(List<MBeanAttributeInfo> performanceAttributes) {
+    final MBeanAttributeInfo walGroupCommitBatchSize = new ModelMBeanAttributeInfo(WAL_GROUP_COMMIT_BATCH_SIZE,
+        long.class.getName(), "Amount of atomic operations which become durable by single fsync of WAL group commit", true, false,
+        false);
+
+    performanceAttributes.add(walGroupCommitBatchSize);
+  }
+
+  private void populateWALGroupCommitSyncTime(List<MBeanAttributeInfo> performanceAttributes) {
+    final MBeanAttributeInfo walGroupCommitSyncTime = new ModelMBeanAttributeInfo(WAL_GROUP_COMMIT_SYNC_TIME, long.class.getName(),
+        "Time which is spent on single fsync of WAL group commit", true, false, false);
+
+    performanceAttributes.add(walGroupCommitSyncTime);
+  }
+
 }
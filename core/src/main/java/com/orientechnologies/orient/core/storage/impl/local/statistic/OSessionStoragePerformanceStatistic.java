@@ -1193,6 +1193,32 @@ public class OSessionStoragePerformanceStatistic {
     makeSnapshotIfNeeded(endTs);
   }
 
+  /**
+   * Starts timer which counts how much time was spent on fsync of write ahead log performed by group commit.
+   */
+  public void startWALGroupCommitTimer() {
+    pushTimer();
+  }
+
+  /**
+   * Stops timer and records how much time was spent on fsync of write ahead log performed by group commit.
+   *
+   * @param batchSize Amount of committed atomic operations which became durable after this fsync
+   */
+  public void stopWALGroupCommitTimer(int batchSize) {
+    final long endTs = nanoTimer.getNano();
+    final long timeDiff = (endTs - timeStamps.pop());
+
+    if (walCountersHolder == null)
+      walCountersHolder = new WALCountersHolder();
+
+    walCountersHolder.groupCommitCount++;
+    walCountersHolder.groupCommitBatchSize += batchSize;
+    walCountersHolder.groupCommitSyncTime += timeDiff;
+
+    makeSnapshotIfNeeded(endTs);
+  }
+
   private void checkComponentType(Component component, ComponentType expected) {
     if (!component.type.equals(expected))
       throw new IllegalStateException("Invalid component type , required " + expected + " but found " + component.type);
@@ -1341,12 +1367,30 @@ public class OSessionStoragePerformanceStatistic {
      */
     private long flushTime;
 
+    /**
+     * Amount of fsync calls performed by group commit
+     */
+    private long groupCommitCount;
+
+    /**
+     * Total amount of atomic operations which became durable by group commit
+     */
+    private long groupCommitBatchSize;
+
+    /**
+     * Total time which was spent on fsync calls performed by group commit
+     */
+    private long groupCommitSyncTime;
+
     @Override
     public void clean() {
       logRecordCount = 0;
       logRecordTime = 0;
       flushCount = 0;
       flushTime = 0;
+      groupCommitCount = 0;
+      groupCommitBatchSize = 0;
+      groupCommitSyncTime = 0;
     }
 
     @Override
@@ -1355,6 +1399,9 @@ public class OSessionStoragePerformanceStatistic {
       holder.logRecordTime += logRecordTime;
       holder.flushCount += flushCount;
       holder.flushTime += flushTime;
+      holder.groupCommitCount += groupCommitCount;
+      holder.groupCommitBatchSize += groupCommitBatchSize;
+      holder.groupCommitSyncTime += groupCommitSyncTime;
     }
 
     /**
@@ -1397,6 +1444,27 @@ public class OSessionStoragePerformanceStatistic {
       return flushTime / flushCount;
     }
 
+    /**
+     * @return Average amount of atomic operations which became durable by single fsync of group commit or <code>-1</code> if
+     * value is undefined.
+     */
+    public long getGroupCommitBatchSize() {
+      if (groupCommitCount == 0)
+        return -1;
+
+      return groupCommitBatchSize / groupCommitCount;
+    }
+
+    /**
+     * @return Average time which is spent on single fsync of group commit or <code>-1</code> if value is undefined.
+     */
+    public long getGroupCommitSyncTime() {
+      if (groupCommitCount == 0)
+        return -1;
+
+      return groupCommitSyncTime / groupCommitCount;
+    }
+
     @Override
     public ODocument toDocument() {
       final ODocument document = new ODocument();
@@ -1404,6 +1472,8 @@ public class OSessionStoragePerformanceStatistic {
       writeMetric(document, "logTime", getLogTime(), OType.LONG);
       writeMetric(document, "startAOTime", getStartAOTime(), OType.LONG);
       writeMetric(document, "stopAOTime", getStopAOTime(), OType.LONG);
+      writeMetric(document, "groupCommitBatchSize", getGroupCommitBatchSize(), OType.LONG);
+      writeMetric(document, "groupCommitSyncTime", getGroupCommitSyncTime(), OType.LONG);
 
       return document;
     }
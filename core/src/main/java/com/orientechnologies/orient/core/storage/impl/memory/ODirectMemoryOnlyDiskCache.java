@@ -554,6 +554,13 @@ public class ODirectMemoryOnlyDiskCache extends OAbstractWriteCache implements O
     }
   }
 
+  /**
+   * Memory storage keeps all pages in memory, so there is no limit to change.
+   */
+  @Override
+  public void changeMaximumAmountOfMemory(long readCacheMaxMemory) {
+  }
+
   @Override
   public long getUsedMemory() {
     long totalPages = 0;
@@ -0,0 +1,113 @@
+package com.orientechnologies.common.collection;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+@Test
+public class OLongCollectionsTest {
+
+  public void testSetAgainstHashSet() {
+    final Random random = new Random(42);
+    final OLongHashSet set = new OLongHashSet(4);
+    final Set<Long> expected = new HashSet<Long>();
+
+    for (int i = 0; i < 100000; i++) {
+      // SMALL RANGE TO HAVE MANY COLLISIONS AND REMOVALS, 0 INCLUDED
+      final long value = random.nextInt(2000) - 1000;
+      if (random.nextInt(3) == 0)
+        Assert.assertEquals(set.remove(value), expected.remove(value));
+      else
+        Assert.assertEquals(set.add(value), expected.add(value));
+    }
+
+    Assert.assertEquals(set.size(), expected.size());
+    for (long value = -1000; value < 1000; value++)
+      Assert.assertEquals(set.contains(value), expected.contains(value));
+
+    final long[] values = set.toArray();
+    Assert.assertEquals(values.length, expected.size());
+    for (long value : values)
+      Assert.assertTrue(expected.contains(value));
+
+    set.clear();
+    Assert.assertTrue(set.isEmpty());
+    Assert.assertFalse(set.contains(0));
+  }
+
+  public void testMapAgainstHashMap() {
+    final Random random = new Random(7);
+    final OLongLongHashMap map = new OLongLongHashMap();
+    final Map<Long, Long> expected = new HashMap<Long, Long>();
+
+    for (int i = 0; i < 100000; i++) {
+      final long key = (random.nextInt(500) - 250) * 0x1000000000000L;
+      if (random.nextInt(4) == 0)
+        Assert.assertEquals(map.remove(key), expected.remove(key) != null);
+      else
+        Assert.assertEquals(map.put(key, i), expected.put(key, (long) i) == null);
+    }
+
+    Assert.assertEquals(map.size(), expected.size());
+    for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+      Assert.assertTrue(map.containsKey(entry.getKey()));
+      Assert.assertEquals(map.get(entry.getKey(), -1), entry.getValue().longValue());
+    }
+
+    final long[] keys = map.keys();
+    Arrays.sort(keys);
+    Assert.assertEquals(keys.length, expected.size());
+    Assert.assertEquals(map.get(Long.MAX_VALUE, -1), -1);
+  }
+
+  public void testDeque() {
+    final OLongArrayDeque deque = new OLongArrayDeque(2);
+    for (int i = 0; i < 100; i++) {
+      deque.addLast(i);
+      deque.addFirst(-i);
+    }
+
+    Assert.assertEquals(deque.size(), 200);
+    Assert.assertEquals(deque.peekFirst(), -99);
+    Assert.assertEquals(deque.get(199), 99);
+    Assert.assertEquals(deque.removeLast(), 99);
+
+    for (int i = 99; i >= 0; i--)
+      Assert.assertEquals(deque.removeFirst(), -i);
+    for (int i = 0; i < 99; i++)
+      Assert.assertEquals(deque.removeFirst(), i);
+
+    Assert.assertTrue(deque.isEmpty());
+    try {
+      deque.removeFirst();
+      Assert.fail();
+    } catch (NoSuchElementException e) {
+    }
+  }
+
+  public void testPackedRecordIds() {
+    final ORID[] rids = { new ORecordId(0, 0), new ORecordId(12, 345), new ORecordId(32767, (1L << 47) - 1), new ORecordId(-1, -2),
+        new ORecordId(5, -(1L << 47)) };
+
+    final OLongHashSet set = new OLongHashSet();
+    for (ORID rid : rids) {
+      Assert.assertEquals(ORecordId.fromLong(ORecordId.toLong(rid)), rid);
+      Assert.assertTrue(set.add(ORecordId.toLong(rid)));
+    }
+
+    try {
+      ORecordId.toLong(new ORecordId(1, 1L << 47));
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+    }
+  }
+}
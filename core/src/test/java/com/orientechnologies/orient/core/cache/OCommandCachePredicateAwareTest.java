@@ -0,0 +1,155 @@
+package com.orientechnologies.orient.core.cache;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+@Test
+public class OCommandCachePredicateAwareTest {
+  private static final String LOW     = "select from Account where number < 10";
+  private static final String HIGH    = "select count(*) from Account where number >= 90";
+  private static final String ALL     = "select from Account";
+  private static final String NOT_RAW = "select from Account where number.asString() = '5'";
+
+  private ODatabaseDocumentTx db;
+  private Object              enabled;
+  private Object              implementation;
+  private Object              minExecutionTime;
+
+  @BeforeMethod
+  public void before() {
+    enabled = OGlobalConfiguration.COMMAND_CACHE_ENABLED.getValue();
+    implementation = OGlobalConfiguration.COMMAND_CACHE_IMPL.getValue();
+    minExecutionTime = OGlobalConfiguration.COMMAND_CACHE_MIN_EXECUTION_TIME.getValue();
+
+    OGlobalConfiguration.COMMAND_CACHE_ENABLED.setValue(true);
+    OGlobalConfiguration.COMMAND_CACHE_IMPL.setValue(OCommandCachePredicateAware.class.getName());
+    OGlobalConfiguration.COMMAND_CACHE_MIN_EXECUTION_TIME.setValue(0);
+
+    db = new ODatabaseDocumentTx("memory:" + OCommandCachePredicateAwareTest.class.getSimpleName());
+    db.create();
+
+    final OClass account = db.getMetadata().getSchema().createClass("Account");
+    account.createProperty("number", OType.INTEGER).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+    db.getMetadata().getSchema().createClass("Other");
+
+    for (int i = 0; i < 100; i++)
+      db.save(new ODocument("Account").field("number", i));
+  }
+
+  @AfterMethod
+  public void after() {
+    db.drop();
+
+    OGlobalConfiguration.COMMAND_CACHE_ENABLED.setValue(enabled);
+    OGlobalConfiguration.COMMAND_CACHE_IMPL.setValue(implementation);
+    OGlobalConfiguration.COMMAND_CACHE_MIN_EXECUTION_TIME.setValue(minExecutionTime);
+  }
+
+  public void testCreate() {
+    Assert.assertTrue(db.getMetadata().getCommandCache() instanceof OCommandCachePredicateAware);
+
+    cacheQueries();
+    Assert.assertEquals(query(LOW).size(), 10);
+
+    db.save(new ODocument("Other").field("number", 1));
+    assertCached(true, true, true, true);
+
+    db.save(new ODocument("Account").field("number", 50));
+    assertCached(true, true, false, false);
+
+    db.save(new ODocument("Account").field("number", 95));
+    assertCached(true, false, false, false);
+
+    db.save(new ODocument("Account").field("number", 5));
+    assertCached(false, false, false, false);
+
+    Assert.assertEquals(query(LOW).size(), 11);
+  }
+
+  public void testUpdateAndDelete() {
+    cacheQueries();
+
+    final ODocument record = query("select from Account where number = 50").get(0);
+    record.field("number", 51);
+    db.save(record);
+    assertCached(true, false, false, false);
+
+    cacheQueries();
+    final ODocument low = query(LOW).get(3);
+    low.field("number", 42);
+    db.save(low);
+    assertCached(false, false, false, false);
+    Assert.assertEquals(query(LOW).size(), 9);
+
+    cacheQueries();
+    db.command(new OCommandSQL("delete from Account where number = 60")).execute();
+    assertCached(true, false, false, false);
+
+    db.command(new OCommandSQL("delete from Account where number = 1")).execute();
+    assertCached(false, false, false, false);
+    Assert.assertEquals(query(LOW).size(), 8);
+  }
+
+  public void testTransaction() {
+    cacheQueries();
+
+    db.begin();
+    db.save(new ODocument("Account").field("number", 7));
+    db.save(new ODocument("Account").field("number", 70));
+    db.commit();
+
+    assertCached(false, true, false, false);
+  }
+
+  public void testMaxSize() {
+    final OCommandCachePredicateAware cache = (OCommandCachePredicateAware) db.getMetadata().getCommandCache();
+
+    cacheQueries();
+    Assert.assertTrue(cache.getUsedSize() > 0);
+
+    cache.setMaxSize(cache.getUsedSize());
+    query("select from Account where number > 50");
+    Assert.assertTrue(cache.getUsedSize() <= cache.getMaxSize());
+    Assert.assertFalse(isCached(LOW));
+    Assert.assertTrue(isCached("select from Account where number > 50"));
+
+    cache.clear();
+    Assert.assertEquals(cache.size(), 0);
+    Assert.assertEquals(cache.getUsedSize(), 0);
+  }
+
+  private void cacheQueries() {
+    for (String query : new String[] { LOW, HIGH, ALL, NOT_RAW }) {
+      query(query);
+      Assert.assertTrue(isCached(query), query);
+    }
+  }
+
+  private void assertCached(boolean low, boolean high, boolean all, boolean notRaw) {
+    Assert.assertEquals(isCached(LOW), low, LOW);
+    Assert.assertEquals(isCached(HIGH), high, HIGH);
+    Assert.assertEquals(isCached(ALL), all, ALL);
+    Assert.assertEquals(isCached(NOT_RAW), notRaw, NOT_RAW);
+  }
+
+  private boolean isCached(String query) {
+    return db.getMetadata().getCommandCache().get(db.getUser(), query, -1) != null;
+  }
+
+  private List<ODocument> query(String sql) {
+    final OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<ODocument>(sql);
+    query.setCacheableResult(true);
+    return db.query(query);
+  }
+}
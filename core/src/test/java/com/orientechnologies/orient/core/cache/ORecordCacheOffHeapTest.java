@@ -0,0 +1,183 @@
+package com.orientechnologies.orient.core.cache;
+
+import com.orientechnologies.common.directmemory.OByteBufferPool;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+@Test
+public class ORecordCacheOffHeapTest {
+  private static final int PAGE_SIZE = 4096;
+
+  private ODatabaseDocumentTx db;
+  private ORecordCacheOffHeap cache;
+
+  @BeforeMethod
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + ORecordCacheOffHeapTest.class.getSimpleName());
+    db.create();
+    db.getMetadata().getSchema().createClass("Account");
+
+    cache = new ORecordCacheOffHeap(new OByteBufferPool(PAGE_SIZE), 4 * PAGE_SIZE);
+    cache.startup();
+  }
+
+  @AfterMethod
+  public void after() {
+    cache.shutdown();
+    db.drop();
+  }
+
+  public void testSameInstanceWhileReferenced() {
+    final ODocument document = db.save(new ODocument("Account").field("name", "account"));
+    cache.put(document);
+
+    Assert.assertSame(cache.get(document.getIdentity()), document);
+    Assert.assertEquals(cache.getOffHeapSize(), 1);
+  }
+
+  public void testRecordIsRestoredWhenInstanceIsCollected() {
+    ODocument document = db.save(new ODocument("Account").field("name", "account").field("number", 42));
+    cache.put(document);
+
+    final ORID rid = document.getIdentity().copy();
+    final int version = document.getVersion();
+
+    final WeakReference<ODocument> reference = new WeakReference<ODocument>(document);
+    document = null;
+    collect(reference);
+
+    final ORecord record = cache.get(rid);
+    Assert.assertNotNull(record);
+    Assert.assertEquals(record.getIdentity(), rid);
+    Assert.assertEquals(record.getVersion(), version);
+
+    final ODocument restored = (ODocument) record;
+    Assert.assertEquals(restored.getClassName(), "Account");
+    Assert.assertEquals(restored.field("name"), "account");
+    Assert.assertEquals(restored.<Object>field("number"), 42);
+    Assert.assertFalse(restored.isDirty());
+
+    Assert.assertSame(cache.get(rid), restored);
+  }
+
+  public void testMemoryBudget() {
+    final List<ORID> rids = new ArrayList<ORID>();
+    for (int i = 0; i < 1000; i++) {
+      final ODocument document = db.save(new ODocument("Account").field("name", "account" + i).field("number", i));
+      cache.put(document);
+      rids.add(document.getIdentity().copy());
+    }
+
+    Assert.assertEquals(cache.getOffHeapMemory(), 4 * PAGE_SIZE);
+    Assert.assertTrue(cache.getOffHeapSize() > 0);
+    Assert.assertTrue(cache.getOffHeapSize() < 1000);
+
+    // the latest records are still in the cache
+    final ODocument last = (ODocument) cache.get(rids.get(999));
+    Assert.assertEquals(last.field("name"), "account999");
+  }
+
+  public void testReadSlabsSurviveEviction() {
+    final ODocument first = db.save(new ODocument("Account").field("name", "first"));
+    cache.put(first);
+    final ORID firstRid = first.getIdentity().copy();
+
+    for (int i = 0; i < 100; i++) {
+      cache.put(db.save(new ODocument("Account").field("name", "account" + i).field("description", new String(new char[100]))));
+
+      // reading of record gives its slab second chance
+      cache.get(firstRid);
+    }
+
+    Assert.assertTrue(cache.keys().contains(firstRid));
+  }
+
+  public void testRemoveAndClear() {
+    final ODocument one = db.save(new ODocument("Account").field("name", "one"));
+    final ODocument two = db.save(new ODocument("Account").field("name", "two"));
+
+    cache.put(one);
+    cache.put(two);
+    Assert.assertEquals(cache.getOffHeapSize(), 2);
+    Assert.assertEquals(cache.size(), 2);
+
+    cache.remove(one.getIdentity());
+    Assert.assertEquals(cache.getOffHeapSize(), 1);
+    Assert.assertNull(cache.get(one.getIdentity()));
+    Assert.assertFalse(cache.keys().contains(one.getIdentity()));
+
+    cache.clear();
+    Assert.assertEquals(cache.getOffHeapSize(), 0);
+    Assert.assertEquals(cache.size(), 0);
+  }
+
+  public void testDirtyRecordIsNotStored() {
+    final ODocument document = db.save(new ODocument("Account").field("name", "account"));
+    document.field("name", "changed");
+
+    cache.put(document);
+    Assert.assertEquals(cache.getOffHeapSize(), 0);
+  }
+
+  public void testLocalCacheOfDatabase() {
+    final String cacheImpl = OGlobalConfiguration.CACHE_LOCAL_IMPL.getValueAsString();
+    OGlobalConfiguration.CACHE_LOCAL_IMPL.setValue(ORecordCacheOffHeap.class.getName());
+    try {
+      final ODatabaseDocumentTx database = new ODatabaseDocumentTx("memory:" + ORecordCacheOffHeapTest.class.getSimpleName() + "Local");
+      database.create();
+      try {
+        database.getMetadata().getSchema().createClass("Account");
+
+        final List<ORID> rids = new ArrayList<ORID>();
+        for (int i = 0; i < 100; i++)
+          rids.add(database.save(new ODocument("Account").field("number", i)).getIdentity().copy());
+
+        for (int i = 0; i < 100; i++) {
+          final ODocument document = database.load(rids.get(i));
+          Assert.assertEquals(document.<Object>field("number"), i);
+
+          document.field("number", i + 1);
+          database.save(document);
+        }
+
+        database.getLocalCache().clear();
+
+        for (int i = 0; i < 100; i++) {
+          final ODocument document = database.load(rids.get(i));
+          Assert.assertEquals(document.<Object>field("number"), i + 1);
+        }
+      } finally {
+        database.activateOnCurrentThread();
+        database.drop();
+      }
+    } finally {
+      OGlobalConfiguration.CACHE_LOCAL_IMPL.setValue(cacheImpl);
+      db.activateOnCurrentThread();
+    }
+  }
+
+  private static void collect(WeakReference<?> reference) {
+    for (int i = 0; i < 20 && reference.get() != null; i++) {
+      System.gc();
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+
+    Assert.assertTrue(reference.get() == null, "Record instance was not collected");
+  }
+}
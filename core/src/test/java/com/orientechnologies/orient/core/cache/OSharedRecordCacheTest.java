@@ -0,0 +1,161 @@
+package com.orientechnologies.orient.core.cache;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.storage.ORawBuffer;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class OSharedRecordCacheTest {
+  public void testPutGet() {
+    final OSharedRecordCache cache = new OSharedRecordCache(1024 * 1024);
+    final ORID rid = new ORecordId(1, 1);
+
+    Assert.assertNull(cache.get(rid));
+
+    final byte[] content = new byte[] { 1, 2, 3 };
+    cache.put(rid, new ORawBuffer(content, 3, ODocument.RECORD_TYPE), cache.stamp(rid));
+
+    // cached content is not affected by changes of original buffer
+    content[0] = 42;
+
+    final ORawBuffer buffer = cache.get(new ORecordId(1, 1));
+    Assert.assertNotNull(buffer);
+    Assert.assertEquals(buffer.buffer, new byte[] { 1, 2, 3 });
+    Assert.assertEquals(buffer.version, 3);
+    Assert.assertEquals(buffer.recordType, ODocument.RECORD_TYPE);
+
+    Assert.assertEquals(cache.getHits(), 1);
+    Assert.assertEquals(cache.getMisses(), 1);
+    Assert.assertEquals(cache.getSize(), 1);
+  }
+
+  public void testRecordInvalidatedDuringReadIsNotCached() {
+    final OSharedRecordCache cache = new OSharedRecordCache(1024 * 1024);
+    final ORID rid = new ORecordId(1, 1);
+
+    final long stamp = cache.stamp(rid);
+    cache.invalidate(rid);
+    cache.put(rid, new ORawBuffer(new byte[] { 1 }, 1, ODocument.RECORD_TYPE), stamp);
+
+    Assert.assertNull(cache.get(rid));
+  }
+
+  public void testOlderVersionDoesNotReplaceNewer() {
+    final OSharedRecordCache cache = new OSharedRecordCache(1024 * 1024);
+    final ORID rid = new ORecordId(1, 1);
+
+    cache.put(rid, new ORawBuffer(new byte[] { 2 }, 2, ODocument.RECORD_TYPE), cache.stamp(rid));
+    cache.put(rid, new ORawBuffer(new byte[] { 1 }, 1, ODocument.RECORD_TYPE), cache.stamp(rid));
+
+    Assert.assertEquals(cache.get(rid).version, 2);
+  }
+
+  public void testEviction() {
+    final OSharedRecordCache cache = new OSharedRecordCache(256 * 1024);
+
+    for (int i = 0; i < 10000; i++) {
+      final ORID rid = new ORecordId(1, i);
+      cache.put(rid, new ORawBuffer(new byte[100], 0, ODocument.RECORD_TYPE), cache.stamp(rid));
+    }
+
+    Assert.assertTrue(cache.getMemory() <= cache.getMaxMemory());
+    Assert.assertTrue(cache.getEvictions() > 0);
+    Assert.assertEquals(cache.getSize() + cache.getEvictions(), 10000);
+  }
+
+  public void testInvalidateCluster() {
+    final OSharedRecordCache cache = new OSharedRecordCache(1024 * 1024);
+
+    for (int i = 0; i < 100; i++) {
+      final ORID ridOne = new ORecordId(1, i);
+      final ORID ridTwo = new ORecordId(2, i);
+
+      cache.put(ridOne, new ORawBuffer(new byte[10], 0, ODocument.RECORD_TYPE), cache.stamp(ridOne));
+      cache.put(ridTwo, new ORawBuffer(new byte[10], 0, ODocument.RECORD_TYPE), cache.stamp(ridTwo));
+    }
+
+    cache.invalidateCluster(1);
+
+    Assert.assertEquals(cache.getSize(), 100);
+    Assert.assertNull(cache.get(new ORecordId(1, 10)));
+    Assert.assertNotNull(cache.get(new ORecordId(2, 10)));
+  }
+
+  public void testStorageCacheIsSharedBetweenSessions() {
+    final int cacheSize = OGlobalConfiguration.STORAGE_RECORD_CACHE_SIZE.getValueAsInteger();
+    OGlobalConfiguration.STORAGE_RECORD_CACHE_SIZE.setValue(1);
+
+    final String url = "memory:" + OSharedRecordCacheTest.class.getSimpleName();
+    final ODatabaseDocumentTx db = new ODatabaseDocumentTx(url);
+    try {
+      db.create();
+    } finally {
+      OGlobalConfiguration.STORAGE_RECORD_CACHE_SIZE.setValue(cacheSize);
+    }
+
+    try {
+      db.getMetadata().getSchema().createClass("Account");
+
+      final ORID rid = db.save(new ODocument("Account").field("name", "account")).getIdentity().copy();
+      final OSharedRecordCache cache = ((OAbstractPaginatedStorage) db.getStorage()).getRecordCache();
+      Assert.assertNotNull(cache);
+
+      ODatabaseDocumentTx session = new ODatabaseDocumentTx(url).open("admin", "admin");
+      try {
+        Assert.assertEquals(session.<ODocument>load(rid).field("name"), "account");
+      } finally {
+        session.close();
+      }
+
+      session = new ODatabaseDocumentTx(url).open("admin", "admin");
+      try {
+        final long hits = cache.getHits();
+        final ODocument document = session.load(rid);
+        Assert.assertEquals(document.field("name"), "account");
+        Assert.assertEquals(cache.getHits(), hits + 1);
+
+        // update in transaction invalidates cached record
+        session.begin();
+        document.field("name", "changed");
+        session.save(document);
+        session.commit();
+      } finally {
+        session.close();
+      }
+
+      session = new ODatabaseDocumentTx(url).open("admin", "admin");
+      try {
+        final ODocument document = session.load(rid);
+        Assert.assertEquals(document.field("name"), "changed");
+
+        // update without transaction invalidates cached record
+        document.field("name", "changed again");
+        session.save(document);
+      } finally {
+        session.close();
+      }
+
+      session = new ODatabaseDocumentTx(url).open("admin", "admin");
+      try {
+        Assert.assertEquals(session.<ODocument>load(rid).field("name"), "changed again");
+
+        session.command(new OCommandSQL("truncate class Account")).execute();
+        session.getLocalCache().clear();
+
+        Assert.assertNull(session.load(rid));
+      } finally {
+        session.close();
+      }
+    } finally {
+      db.activateOnCurrentThread();
+      db.drop();
+    }
+  }
+}
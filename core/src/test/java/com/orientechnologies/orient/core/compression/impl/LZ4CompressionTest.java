@@ -0,0 +1,119 @@
+package com.orientechnologies.orient.core.compression.impl;
+
+import com.orientechnologies.orient.core.compression.OCompression;
+import com.orientechnologies.orient.core.compression.OCompressionFactory;
+import com.orientechnologies.orient.core.exception.ODatabaseException;
+import com.orientechnologies.orient.core.serialization.OBase64Utils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@Test
+public class LZ4CompressionTest extends AbstractCompressionTest {
+  public void testLZ4Compression() {
+    testCompression(OLZ4Compression.NAME);
+  }
+
+  public void testRedundantContentIsCompressed() {
+    final OCompression compression = OCompressionFactory.INSTANCE.getCompression(OLZ4Compression.NAME, null);
+
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 100; i++)
+      builder.append("{\"name\":\"name").append(i).append("\",\"city\":\"London\",\"notes\":\"This is just a note\"}");
+
+    final byte[] content = builder.toString().getBytes();
+    final byte[] compressed = compression.compress(content);
+
+    Assert.assertTrue(compressed.length < content.length / 4);
+    Assert.assertEquals(compression.uncompress(compressed), content);
+  }
+
+  public void testRepeatedBytesAreCompressed() {
+    final OCompression compression = OCompressionFactory.INSTANCE.getCompression(OLZ4Compression.NAME, null);
+
+    for (int size : new int[] { 64, 65, 100, 1000, 70000 }) {
+      final byte[] content = new byte[size];
+      final byte[] compressed = compression.compress(content);
+
+      Assert.assertTrue(compressed.length < size);
+      Assert.assertEquals(compression.uncompress(compressed), content);
+    }
+  }
+
+  public void testSmallRecordsAreNotCompressed() {
+    final OCompression compression = OCompressionFactory.INSTANCE.getCompression(OLZ4Compression.NAME, null);
+
+    final byte[] content = new byte[16];
+    final byte[] compressed = compression.compress(content);
+
+    Assert.assertEquals(compressed.length, content.length + 1);
+    Assert.assertEquals(compression.uncompress(compressed), content);
+  }
+
+  public void testDictionaryImprovesCompressionOfSmallRecords() {
+    final Random random = new Random();
+    final OLZ4DictionaryTrainer trainer = new OLZ4DictionaryTrainer(4 * 1024);
+
+    while (trainer.needsMoreSamples())
+      trainer.addSample(document(random));
+
+    final byte[] dictionary = trainer.train();
+    Assert.assertTrue(dictionary.length > 0);
+    Assert.assertTrue(dictionary.length <= 4 * 1024);
+
+    final OCompression plain = OCompressionFactory.INSTANCE.getCompression(OLZ4Compression.NAME, null);
+    final OCompression primed = OCompressionFactory.INSTANCE
+        .getCompression(OLZ4Compression.NAME, OBase64Utils.encodeBytes(dictionary));
+    Assert.assertTrue(((OLZ4Compression) primed).hasDictionary());
+
+    long plainSize = 0;
+    long primedSize = 0;
+
+    final List<byte[]> documents = new ArrayList<byte[]>();
+    for (int i = 0; i < 100; i++)
+      documents.add(document(random));
+
+    for (byte[] document : documents) {
+      final byte[] plainCompressed = plain.compress(document);
+      final byte[] primedCompressed = primed.compress(document);
+
+      plainSize += plainCompressed.length;
+      primedSize += primedCompressed.length;
+
+      Assert.assertEquals(plain.uncompress(plainCompressed), document);
+      Assert.assertEquals(primed.uncompress(primedCompressed), document);
+
+      // records which are compressed without dictionary can be read by primed compression
+      Assert.assertEquals(primed.uncompress(plainCompressed), document);
+    }
+
+    Assert.assertTrue(primedSize < plainSize);
+  }
+
+  @Test(expectedExceptions = ODatabaseException.class)
+  public void testDictionaryIsRequiredToDecompress() {
+    final byte[] dictionary = "{\"name\":\"\",\"surname\":\"\",\"city\":\"London\",\"notes\":\"This is just a note\"}".getBytes();
+
+    final OCompression primed = OCompressionFactory.INSTANCE
+        .getCompression(OLZ4Compression.NAME, OBase64Utils.encodeBytes(dictionary));
+    final byte[] compressed = primed.compress(document(new Random()));
+
+    OCompressionFactory.INSTANCE.getCompression(OLZ4Compression.NAME, null).uncompress(compressed);
+  }
+
+  @Test(expectedExceptions = ODatabaseException.class)
+  public void testCorruptedBlockIsDetected() {
+    final OCompression compression = OCompressionFactory.INSTANCE.getCompression(OLZ4Compression.NAME, null);
+
+    final byte[] compressed = compression.compress(new byte[1024]);
+    compression.uncompress(compressed, 0, compressed.length - 1);
+  }
+
+  private static byte[] document(Random random) {
+    return ("{\"name\":\"name" + random.nextInt(1000) + "\",\"surname\":\"surname" + random.nextInt(1000)
+        + "\",\"city\":\"London\",\"age\":" + random.nextInt(100) + ",\"notes\":\"This is just a note\"}").getBytes();
+  }
+}
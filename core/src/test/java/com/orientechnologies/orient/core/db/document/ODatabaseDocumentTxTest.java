@@ -56,6 +56,41 @@ public class ODatabaseDocumentTxTest {
     }
   }
 
+  @Test
+  public void testMultipleReadsOfChangedRecords() {
+    String url = "memory:" + ODatabaseDocumentTxTest.class.getSimpleName() + "-testMultipleReadsOfChangedRecords";
+    ODatabaseDocumentTx db = new ODatabaseDocumentTx(url).create();
+    try {
+      db.getMetadata().getSchema().createClass("TestMultipleRead");
+
+      final HashSet<ORecordId> rids = new HashSet<ORecordId>();
+      final ODocument[] docs = new ODocument[50];
+      for (int i = 0; i < docs.length; ++i) {
+        docs[i] = new ODocument("TestMultipleRead").field("id", i).save();
+        rids.add((ORecordId) docs[i].getIdentity());
+      }
+
+      docs[10].delete();
+      docs[20].field("id", 1000).field("payload", new String(new char[4096]).replace('\0', 'x')).save();
+      rids.add(new ORecordId(docs[0].getIdentity().getClusterId(), 10000));
+
+      db.getLocalCache().clear();
+
+      final Set<ORecord> result = db.executeReadRecords(rids, false);
+      Assert.assertEquals(result.size(), docs.length - 1);
+
+      for (ORecord rec : result) {
+        final ODocument doc = (ODocument) rec;
+        final long position = doc.getIdentity().getClusterPosition() - docs[0].getIdentity().getClusterPosition();
+        Assert.assertNotEquals(position, 10);
+        Assert.assertEquals(doc.<Object>field("id"), position == 20 ? 1000 : (int) position);
+        Assert.assertEquals(doc.getClassName(), "TestMultipleRead");
+      }
+    } finally {
+      db.close();
+    }
+  }
+
   @Test
   public void testCountClass() throws Exception {
     String url = "memory:" + ODatabaseDocumentTxTest.class.getSimpleName() + "-testCountClass";
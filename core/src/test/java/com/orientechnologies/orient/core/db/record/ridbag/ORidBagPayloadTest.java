@@ -0,0 +1,137 @@
+package com.orientechnologies.orient.core.db.record.ridbag;
+
+import com.orientechnologies.DatabaseAbstractTest;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+@Test
+public class ORidBagPayloadTest extends DatabaseAbstractTest {
+  private int topThreshold;
+
+  @BeforeMethod
+  public void beforeMethod() {
+    topThreshold = OGlobalConfiguration.RID_BAG_EMBEDDED_TO_SBTREEBONSAI_THRESHOLD.getValueAsInteger();
+    OGlobalConfiguration.RID_BAG_EMBEDDED_TO_SBTREEBONSAI_THRESHOLD.setValue(5);
+  }
+
+  @AfterMethod
+  public void afterMethod() {
+    OGlobalConfiguration.RID_BAG_EMBEDDED_TO_SBTREEBONSAI_THRESHOLD.setValue(topThreshold);
+  }
+
+  public void testSerializer() {
+    final ORidBagPayloadSerializer serializer = new ORidBagPayloadSerializer("weight:DOUBLE, since:datetime,hops:SHORT,ok:BOOLEAN");
+    Assert.assertEquals(serializer.toString(), "weight:DOUBLE,since:DATETIME,hops:SHORT,ok:BOOLEAN");
+    Assert.assertEquals(serializer.getType("since"), OType.DATETIME);
+    Assert.assertEquals(serializer.getPayloadSize(), 9 + 9 + 3 + 2);
+
+    final Map<String, Object> values = new HashMap<String, Object>();
+    values.put("weight", 0.5f);
+    values.put("since", new Date(1000));
+    values.put("hops", 3);
+    values.put("other", "ignored");
+    final byte[] payload = serializer.serialize(values);
+
+    Assert.assertEquals(serializer.get(payload, "weight"), 0.5d);
+    Assert.assertEquals(serializer.get(payload, "since"), new Date(1000));
+    Assert.assertEquals(serializer.get(payload, "hops"), (short) 3);
+    Assert.assertNull(serializer.get(payload, "ok"));
+    Assert.assertNull(serializer.get(payload, "other"));
+    Assert.assertEquals(serializer.toMap(payload).keySet().toString(), "[weight, since, hops]");
+
+    final byte[] changed = serializer.set(payload, "weight", null);
+    Assert.assertNull(serializer.get(changed, "weight"));
+    Assert.assertEquals(serializer.get(payload, "weight"), 0.5d);
+
+    // VALUES APPENDED TO THE DEFINITION ARE NULL IN THE EXISTING PAYLOADS
+    final ORidBagPayloadSerializer extended = new ORidBagPayloadSerializer(serializer + ",count:LONG");
+    Assert.assertEquals(extended.get(payload, "hops"), (short) 3);
+    Assert.assertNull(extended.get(payload, "count"));
+    Assert.assertEquals(extended.get(extended.set(payload, "count", 7), "count"), 7L);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testVariableSizeTypeIsRejected() {
+    new ORidBagPayloadSerializer("name:STRING");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidValueIsRejected() {
+    new ORidBagPayloadSerializer("weight:DOUBLE").serialize(new HashMap<String, Object>() {
+      {
+        put("weight", "heavy");
+      }
+    });
+  }
+
+  public void testPayloadsAreSaved() {
+    final ORidBagPayloadSerializer serializer = new ORidBagPayloadSerializer("weight:DOUBLE");
+
+    final ORidBag bag = new ORidBag();
+    for (int i = 0; i < 10; i++)
+      bag.add(new ORecordId(5, i), i % 2 == 0 ? serializer.set(null, "weight", i) : null);
+    bag.remove(new ORecordId(5, 2));
+
+    ODocument document = new ODocument();
+    document.field("bag", bag);
+    document.save();
+
+    document = database.load(document.getIdentity(), "*:-1", true);
+    ORidBag loaded = document.field("bag");
+    // THE BAG IS NOT CONVERTED TO A TREE BECAUSE IT HAS PAYLOADS
+    Assert.assertTrue(loaded.isEmbedded());
+    Assert.assertEquals(loaded.size(), 9);
+
+    int count = 0;
+    loaded.setAutoConvertToRecord(false);
+    for (Iterator<OIdentifiable> iterator = loaded.iterator(); iterator.hasNext(); count++) {
+      final OIdentifiable identifiable = iterator.next();
+      final byte[] payload = ((ORidBagPayloadIterator) iterator).getPayload();
+
+      final long position = identifiable.getIdentity().getClusterPosition();
+      if (position % 2 == 0)
+        Assert.assertEquals(serializer.get(payload, "weight"), (double) position);
+      else
+        Assert.assertNull(payload);
+    }
+    Assert.assertEquals(count, 9);
+
+    Assert.assertTrue(loaded.setPayload(new ORecordId(5, 3), serializer.set(null, "weight", 30)));
+    Assert.assertFalse(loaded.setPayload(new ORecordId(5, 2), serializer.set(null, "weight", 20)));
+    document.save();
+
+    document = database.load(document.getIdentity(), "*:-1", true);
+    loaded = document.field("bag");
+    loaded.setAutoConvertToRecord(false);
+    Assert.assertEquals(serializer.get(loaded.getPayload(new ORecordId(5, 3)), "weight"), 30d);
+    Assert.assertEquals(serializer.get(new ORidBag(loaded).getPayload(new ORecordId(5, 4)), "weight"), 4d);
+  }
+
+  public void testBagWithoutPayloadsIsConverted() {
+    final ORidBag bag = new ORidBag();
+    for (int i = 0; i < 10; i++)
+      bag.add(new ORecordId(5, i));
+
+    ODocument document = new ODocument();
+    document.field("bag", bag);
+    document.save();
+
+    document = database.load(document.getIdentity(), "*:-1", true);
+    final ORidBag loaded = document.field("bag");
+    Assert.assertFalse(loaded.isEmbedded());
+    Assert.assertFalse(loaded.hasPayloads());
+    Assert.assertNull(loaded.getPayload(new ORecordId(5, 1)));
+  }
+}
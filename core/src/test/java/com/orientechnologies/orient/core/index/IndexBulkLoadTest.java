@@ -0,0 +1,173 @@
+package com.orientechnologies.orient.core.index;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.storage.ORecordDuplicatedException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+@Test
+public class IndexBulkLoadTest {
+  private static final int RECORDS_COUNT = 5000;
+
+  private ODatabaseDocumentTx db;
+  private int                 chunkSize;
+
+  @BeforeMethod
+  public void before() {
+    // small chunks force sorted entries to be merged from temporary files
+    chunkSize = OGlobalConfiguration.INDEX_BULK_LOAD_CHUNK_SIZE.getValueAsInteger();
+    OGlobalConfiguration.INDEX_BULK_LOAD_CHUNK_SIZE.setValue(100);
+
+    db = new ODatabaseDocumentTx("memory:" + IndexBulkLoadTest.class.getSimpleName());
+    db.create();
+
+    db.command(new OCommandSQL("create class Account")).execute();
+    db.command(new OCommandSQL("create property Account.name string")).execute();
+    db.command(new OCommandSQL("create property Account.number integer")).execute();
+    db.command(new OCommandSQL("create property Account.tags embeddedlist string")).execute();
+  }
+
+  @AfterMethod
+  public void after() {
+    db.drop();
+    OGlobalConfiguration.INDEX_BULK_LOAD_CHUNK_SIZE.setValue(chunkSize);
+  }
+
+  public void testUniqueIndex() {
+    for (int i = RECORDS_COUNT - 1; i >= 0; i--)
+      db.save(new ODocument("Account").field("name", "account" + i).field("number", i));
+
+    db.command(new OCommandSQL("create index Account.name on Account (name) unique")).execute();
+
+    final OIndex<?> index = db.getMetadata().getIndexManager().getIndex("Account.name");
+    assertUniqueIndex(index);
+
+    db.command(new OCommandSQL("rebuild index Account.name")).execute();
+    assertUniqueIndex(index);
+
+    try {
+      db.save(new ODocument("Account").field("name", "account42"));
+      Assert.fail("Expected record duplicate exception");
+    } catch (ORecordDuplicatedException e) {
+    }
+  }
+
+  public void testUniqueIndexDuplicates() {
+    for (int i = 0; i < RECORDS_COUNT; i++)
+      db.save(new ODocument("Account").field("name", "account" + (i % (RECORDS_COUNT - 1))).field("number", i));
+
+    try {
+      db.command(new OCommandSQL("create index Account.name on Account (name) unique")).execute();
+      Assert.fail("Expected record duplicate exception");
+    } catch (RuntimeException e) {
+      Throwable cause = e;
+      while (cause != null && !(cause instanceof ORecordDuplicatedException))
+        cause = cause.getCause();
+
+      Assert.assertNotNull(cause, "Expected record duplicate exception but was " + e);
+    }
+  }
+
+  public void testNotUniqueIndex() {
+    for (int i = 0; i < RECORDS_COUNT; i++)
+      db.save(new ODocument("Account").field("name", "account" + (i % 100)).field("number", i));
+
+    db.command(new OCommandSQL("create index Account.name on Account (name) notunique")).execute();
+
+    final OIndex<?> index = db.getMetadata().getIndexManager().getIndex("Account.name");
+    Assert.assertEquals(index.getSize(), RECORDS_COUNT);
+    Assert.assertEquals(index.getKeySize(), 100);
+
+    for (int i = 0; i < 100; i++) {
+      final Collection<OIdentifiable> values = (Collection<OIdentifiable>) index.get("account" + i);
+      Assert.assertEquals(values.size(), RECORDS_COUNT / 100);
+
+      for (OIdentifiable value : values)
+        Assert.assertEquals(((Integer) ((ODocument) value.getRecord()).field("number")) % 100, i);
+    }
+
+    db.save(new ODocument("Account").field("name", "account0").field("number", RECORDS_COUNT));
+    Assert.assertEquals(((Collection<?>) index.get("account0")).size(), RECORDS_COUNT / 100 + 1);
+  }
+
+  public void testCompositeIndexWithNullValues() {
+    for (int i = 0; i < RECORDS_COUNT; i++)
+      db.save(new ODocument("Account").field("name", i % 10 == 0 ? null : "account" + (i % 50)).field("number", i));
+
+    db.command(new OCommandSQL(
+        "create index Account.name_number on Account (name, number) notunique METADATA {ignoreNullValues: false}")).execute();
+
+    final OIndex<?> index = db.getMetadata().getIndexManager().getIndex("Account.name_number");
+    Assert.assertEquals(index.getSize(), RECORDS_COUNT);
+
+    for (int i = 0; i < RECORDS_COUNT; i++) {
+      final Collection<?> values = (Collection<?>) index.get(new OCompositeKey(i % 10 == 0 ? null : "account" + (i % 50), i));
+      Assert.assertEquals(values.size(), 1, "Record " + i + " is absent in index");
+    }
+  }
+
+  public void testCollectionIndex() {
+    for (int i = 0; i < RECORDS_COUNT; i++)
+      db.save(new ODocument("Account").field("number", i).field("tags", Arrays.asList("tag" + (i % 7), "tag" + (i % 11))));
+
+    db.command(new OCommandSQL("create index Account.tags on Account (tags) notunique")).execute();
+
+    int expected = 0;
+    for (int i = 0; i < RECORDS_COUNT; i++) {
+      if (i % 7 == 3 || i % 11 == 3)
+        expected++;
+    }
+
+    final OIndex<?> index = db.getMetadata().getIndexManager().getIndex("Account.tags");
+    Assert.assertEquals(((Collection<?>) index.get("tag3")).size(), expected);
+  }
+
+  public void testBulkLoadSwitchedOff() {
+    for (int i = 0; i < RECORDS_COUNT; i++)
+      db.save(new ODocument("Account").field("name", "account" + i).field("number", i));
+
+    final boolean bulkLoad = OGlobalConfiguration.INDEX_BULK_LOAD.getValueAsBoolean();
+    OGlobalConfiguration.INDEX_BULK_LOAD.setValue(false);
+    try {
+      db.command(new OCommandSQL("create index Account.name on Account (name) unique")).execute();
+    } finally {
+      OGlobalConfiguration.INDEX_BULK_LOAD.setValue(bulkLoad);
+    }
+
+    assertUniqueIndex(db.getMetadata().getIndexManager().getIndex("Account.name"));
+  }
+
+  private void assertUniqueIndex(OIndex<?> index) {
+    Assert.assertEquals(index.getSize(), RECORDS_COUNT);
+
+    for (int i = 0; i < RECORDS_COUNT; i++) {
+      final OIdentifiable value = (OIdentifiable) index.get("account" + i);
+      Assert.assertNotNull(value, "account" + i + " is absent in index");
+      Assert.assertEquals(((ODocument) value.getRecord()).field("number"), i);
+    }
+
+    final OIndexCursor cursor = index.cursor();
+    String previousKey = null;
+    int count = 0;
+    for (Map.Entry<Object, OIdentifiable> entry = cursor.nextEntry(); entry != null; entry = cursor.nextEntry()) {
+      final String key = (String) entry.getKey();
+      if (previousKey != null)
+        Assert.assertTrue(previousKey.compareTo(key) < 0);
+
+      previousKey = key;
+      count++;
+    }
+
+    Assert.assertEquals(count, RECORDS_COUNT);
+  }
+}
@@ -0,0 +1,184 @@
+package com.orientechnologies.orient.core.index;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collection;
+import java.util.List;
+
+@Test
+public class OIndexStatisticsTest {
+  private static final int RECORDS_COUNT = 1000;
+
+  private ODatabaseDocumentTx db;
+
+  @BeforeMethod
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + OIndexStatisticsTest.class.getSimpleName());
+    db.create();
+
+    final OClass account = db.getMetadata().getSchema().createClass("Account");
+    account.createProperty("status", OType.STRING).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+    account.createProperty("number", OType.INTEGER).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+
+    for (int i = 0; i < RECORDS_COUNT; i++)
+      db.save(new ODocument("Account").field("status", i % 10 == 0 ? "closed" : "active").field("number", i));
+  }
+
+  @AfterMethod
+  public void after() {
+    db.drop();
+  }
+
+  public void testAnalyze() {
+    Assert.assertNull(statistics("Account.number"));
+
+    final Object analyzed = db.command(new OCommandSQL("analyze index Account.status")).execute();
+    Assert.assertEquals(((Number) analyzed).longValue(), RECORDS_COUNT);
+    Assert.assertNull(statistics("Account.number"));
+
+    db.command(new OCommandSQL("analyze index *")).execute();
+
+    final OIndexStatistics number = statistics("Account.number");
+    Assert.assertEquals(number.getEntries(), RECORDS_COUNT);
+    Assert.assertEquals(number.getDistinctKeys(), RECORDS_COUNT);
+    Assert.assertEquals(number.estimateEquals(42), 1);
+    Assert.assertTrue(Math.abs(number.estimateRange(100, 299) - 200) <= 20);
+    Assert.assertTrue(Math.abs(number.estimateRange(900, null) - 100) <= 20);
+
+    final OIndexStatistics status = statistics("Account.status");
+    Assert.assertEquals(status.getDistinctKeys(), 2);
+    Assert.assertEquals(status.estimateEquals("active"), 900);
+    Assert.assertEquals(status.estimateEquals("closed"), 100);
+  }
+
+  public void testIncrementalUpdate() {
+    db.command(new OCommandSQL("analyze index Account.number")).execute();
+
+    for (int i = RECORDS_COUNT; i < RECORDS_COUNT + 100; i++)
+      db.save(new ODocument("Account").field("status", "active").field("number", i));
+
+    db.begin();
+    db.save(new ODocument("Account").field("status", "active").field("number", -1));
+    db.commit();
+
+    db.command(new OCommandSQL("delete from Account where number < 10")).execute();
+
+    final OIndexStatistics number = statistics("Account.number");
+    Assert.assertEquals(number.getEntries(), RECORDS_COUNT + 100 + 1 - 11);
+    Assert.assertTrue(Math.abs(number.getDistinctKeys() - (RECORDS_COUNT + 100)) <= 50);
+    Assert.assertEquals(number.getModifications(), 100 + 1 + 11);
+
+    db.command(new OCommandSQL("truncate class Account")).execute();
+    Assert.assertEquals(statistics("Account.number").getEntries(), 0);
+  }
+
+  public void testPutOfExistingEntries() {
+    final OClass item = db.getMetadata().getSchema().createClass("Item");
+    item.createProperty("code", OType.INTEGER).createIndex(OClass.INDEX_TYPE.UNIQUE);
+    item.createProperty("name", OType.STRING).createIndex(OClass.INDEX_TYPE.DICTIONARY);
+
+    final ODocument first = db.save(new ODocument("Item").field("code", 1).field("name", "first"));
+    final ODocument second = db.save(new ODocument("Item").field("code", 2).field("name", "second"));
+
+    db.command(new OCommandSQL("analyze index *")).execute();
+
+    // RE-SAVING THE SAME RECORDS DOES NOT ADD ENTRIES
+    for (int i = 0; i < 10; i++) {
+      first.field("description", "update " + i);
+      db.save(first);
+      db.save(db.load(second.getIdentity()));
+    }
+
+    // NEITHER DO PUTS OF KEYS AND RECORDS ALREADY IN THE INDEXES
+    final OIndex<OIdentifiable> code = (OIndex<OIdentifiable>) db.getMetadata().getIndexManager().getIndex("Item.code");
+    code.put(1, first.getIdentity());
+    final OIndex<OIdentifiable> name = (OIndex<OIdentifiable>) db.getMetadata().getIndexManager().getIndex("Item.name");
+    name.put("first", first.getIdentity());
+    name.put("first", second.getIdentity());
+    final OIndex<OIdentifiable> number = (OIndex<OIdentifiable>) db.getMetadata().getIndexManager().getIndex("Account.number");
+    final OIdentifiable account = ((Collection<OIdentifiable>) number.get(42)).iterator().next();
+    number.put(42, account);
+
+    Assert.assertEquals(statistics("Item.code").getEntries(), 2);
+    Assert.assertEquals(statistics("Item.code").getModifications(), 0);
+    Assert.assertEquals(statistics("Item.name").getEntries(), 2);
+    Assert.assertEquals(statistics("Account.number").getEntries(), RECORDS_COUNT);
+
+    name.put("third", second.getIdentity());
+    number.put(42, second.getIdentity());
+    Assert.assertEquals(statistics("Item.name").getEntries(), 3);
+    Assert.assertEquals(statistics("Account.number").getEntries(), RECORDS_COUNT + 1);
+  }
+
+  public void testStatisticsAreStored() {
+    db.command(new OCommandSQL("analyze index Account.status")).execute();
+
+    db.getMetadata().getIndexManager().reload();
+
+    final OIndexStatistics status = statistics("Account.status");
+    Assert.assertNotNull(status);
+    Assert.assertEquals(status.getEntries(), RECORDS_COUNT);
+    Assert.assertEquals(status.estimateEquals("closed"), 100);
+    Assert.assertEquals(status.getHistogram().getEntries(), RECORDS_COUNT);
+  }
+
+  public void testMostSelectiveIndexIsUsed() {
+    final String query = "select from Account where status = 'active' and number = 42";
+
+    db.command(new OCommandSQL("analyze index *")).execute();
+
+    ODocument explain = db.command(new OCommandSQL("explain " + query)).execute();
+    Assert.assertEquals(explain.<Collection<String>>field("involvedIndexes").iterator().next(), "Account.number");
+    Assert.assertEquals(explain.<Collection<String>>field("involvedIndexes").size(), 1);
+    Assert.assertEquals(((Number) explain.field("documentReads")).intValue(), 1);
+
+    final List<ODocument> result = db.query(new OSQLSynchQuery<ODocument>(query));
+    Assert.assertEquals(result.size(), 1);
+    Assert.assertEquals(result.get(0).<Object>field("number"), 42);
+
+    explain = db.command(new OCommandSQL("explain select from Account where status = 'closed' and number > 100")).execute();
+    Assert.assertEquals(explain.<Collection<String>>field("involvedIndexes").iterator().next(), "Account.status");
+  }
+
+  public void testHistogram() {
+    final OEquiDepthHistogram.Builder builder = new OEquiDepthHistogram.Builder(1000, 10);
+    for (int i = 0; i < 1000; i++)
+      builder.add(i / 4);
+
+    final OEquiDepthHistogram histogram = builder.build();
+    Assert.assertEquals(histogram.getBuckets(), 10);
+    Assert.assertEquals(histogram.getEntries(), 1000);
+    Assert.assertEquals(histogram.estimateEquals(10), 4.0);
+    Assert.assertEquals(histogram.estimateEquals(1000), 0.0);
+    Assert.assertEquals(histogram.estimateEquals("abc"), -1.0);
+    Assert.assertTrue(Math.abs(histogram.estimateRange(50L, 99L) - 200) <= 10);
+    Assert.assertEquals(histogram.estimateRange(99, 50), 0.0);
+
+    final OEquiDepthHistogram stored = OEquiDepthHistogram.fromDocument(histogram.toDocument());
+    Assert.assertEquals(stored.getBuckets(), 10);
+    Assert.assertEquals(stored.estimateRange(null, null), 1000.0);
+  }
+
+  public void testHyperLogLog() {
+    final OHyperLogLog sketch = new OHyperLogLog();
+    for (int i = 0; i < 100000; i++)
+      sketch.add("key" + (i % 20000));
+
+    Assert.assertTrue(Math.abs(sketch.estimate() - 20000) < 20000 * 0.1);
+    Assert.assertEquals(new OHyperLogLog(sketch.toBytes()).estimate(), sketch.estimate());
+  }
+
+  private OIndexStatistics statistics(String indexName) {
+    return OIndexStatistics.of(db.getMetadata().getIndexManager().getIndex(indexName));
+  }
+}
@@ -0,0 +1,73 @@
+package com.orientechnologies.orient.core.index;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import com.orientechnologies.orient.core.storage.ORecordDuplicatedException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+@Test
+public class PrefixSBTreeIndexTest {
+  private ODatabaseDocumentTx db;
+
+  @BeforeMethod
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + PrefixSBTreeIndexTest.class.getSimpleName());
+    db.create();
+
+    db.command(new OCommandSQL("create class Account")).execute();
+    db.command(new OCommandSQL("create property Account.name string")).execute();
+    db.command(new OCommandSQL("create property Account.number integer")).execute();
+  }
+
+  @AfterMethod
+  public void after() {
+    db.drop();
+  }
+
+  public void testUniqueIndex() {
+    db.command(new OCommandSQL("create index Account.name on Account (name) unique engine PREFIX_SBTREE")).execute();
+
+    final OIndex<?> index = db.getMetadata().getIndexManager().getIndex("Account.name");
+    Assert.assertEquals(index.getAlgorithm(), ODefaultIndexFactory.PREFIX_SBTREE_ALGORITHM);
+
+    for (int i = 0; i < 1000; i++)
+      db.save(new ODocument("Account").field("name", "account" + i).field("number", i));
+
+    Assert.assertEquals(index.getSize(), 1000);
+
+    final List<ODocument> result = db.query(new OSQLSynchQuery<ODocument>("select from Account where name = 'account42'"));
+    Assert.assertEquals(result.size(), 1);
+    Assert.assertEquals(result.get(0).field("number"), 42);
+
+    try {
+      db.save(new ODocument("Account").field("name", "account42"));
+      Assert.fail("Expected record duplicate exception");
+    } catch (ORecordDuplicatedException e) {
+    }
+  }
+
+  public void testCompositeIndexRange() {
+    db.command(new OCommandSQL("create index Account.name_number on Account (name, number) notunique engine PREFIX_SBTREE"))
+        .execute();
+
+    for (int i = 0; i < 100; i++)
+      db.save(new ODocument("Account").field("name", "account" + (i % 10)).field("number", i));
+
+    final List<ODocument> result = db.query(
+        new OSQLSynchQuery<ODocument>("select from Account where name = 'account3' and number >= 30 and number < 80"));
+    Assert.assertEquals(result.size(), 5);
+  }
+
+  @Test(expectedExceptions = OIndexException.class)
+  public void testUnsupportedKeyType() {
+    db.command(new OCommandSQL("create property Account.amount decimal")).execute();
+    db.command(new OCommandSQL("create index Account.amount on Account (amount) notunique engine PREFIX_SBTREE")).execute();
+  }
+}
@@ -287,6 +287,69 @@ public class WOWCacheTest {
     }
   }
 
+  public void testParallelFlushOfSeveralFiles() throws Exception {
+    final int flushThreads = OGlobalConfiguration.DISK_WRITE_CACHE_FLUSH_THREADS.getValueAsInteger();
+    OGlobalConfiguration.DISK_WRITE_CACHE_FLUSH_THREADS.setValue(4);
+    try {
+      wowCache.close();
+      initBuffer();
+    } finally {
+      OGlobalConfiguration.DISK_WRITE_CACHE_FLUSH_THREADS.setValue(flushThreads);
+    }
+
+    Assert.assertEquals(wowCache.getFlushWorkersCount(), 4);
+
+    final String[] fileNames = new String[] { fileName, "wowCacheTestTwo.tst", "wowCacheTestThree.tst" };
+    final long[] fileIds = new long[fileNames.length];
+    for (int i = 0; i < fileNames.length; i++)
+      fileIds[i] = wowCache.addFile(fileNames[i]);
+
+    final Random random = new Random();
+    final byte[][][] pageData = new byte[fileNames.length][100][];
+
+    for (int n = 0; n < fileNames.length; n++) {
+      for (int i = 0; i < pageData[n].length; i++) {
+        byte[] data = new byte[8];
+        random.nextBytes(data);
+
+        pageData[n][i] = data;
+
+        final OCachePointer cachePointer = wowCache.load(fileIds[n], i, 1, true, new OModifiableBoolean())[0];
+        cachePointer.acquireExclusiveLock();
+        ByteBuffer buffer = cachePointer.getSharedBuffer();
+        buffer.position(systemOffset);
+        buffer.put(data);
+        cachePointer.releaseExclusiveLock();
+
+        wowCache.store(fileIds[n], i, cachePointer);
+        cachePointer.decrementReadersReferrer();
+      }
+    }
+
+    wowCache.flush();
+    Assert.assertEquals(wowCache.getWriteCacheSize(), 0);
+
+    long flushedPages = 0;
+    for (long pages : wowCache.getFlushedPagesPerWorker())
+      flushedPages += pages;
+
+    long writeOperations = 0;
+    for (long operations : wowCache.getWriteOperationsPerWorker())
+      writeOperations += operations;
+
+    Assert.assertEquals(flushedPages, fileNames.length * pageData[0].length);
+    // contiguous pages are written by vectored writes
+    Assert.assertTrue(writeOperations < flushedPages);
+
+    for (int n = 0; n < fileNames.length; n++) {
+      for (int i = 0; i < pageData[n].length; i++)
+        assertFile(fileNames[n], i, pageData[n][i], new OLogSequenceNumber(0, 0));
+    }
+
+    for (int n = 1; n < fileNames.length; n++)
+      wowCache.deleteFile(fileIds[n]);
+  }
+
   public void testFileRestore() throws IOException {
     final long nonDelFileId = wowCache.addFile(fileName);
     final long fileId = wowCache.addFile("removedFile.del");
@@ -336,6 +399,10 @@ public class WOWCacheTest {
   }
 
   private void assertFile(long pageIndex, byte[] value, OLogSequenceNumber lsn) throws IOException {
+    assertFile(fileName, pageIndex, value, lsn);
+  }
+
+  private void assertFile(String fileName, long pageIndex, byte[] value, OLogSequenceNumber lsn) throws IOException {
     String path = storageLocal.getConfiguration().getDirectory() + File.separator + fileName;
 
     OFileClassic fileClassic = new OFileClassic(path, "r");
@@ -0,0 +1,165 @@
+package com.orientechnologies.orient.core.index.sbtree.local;
+
+import com.orientechnologies.common.comparator.OUnsafeByteArrayComparator;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.index.OCompositeKey;
+import com.orientechnologies.orient.core.index.OIndexException;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+@Test
+public class KeyNormalizerTest {
+  private static final OUnsafeByteArrayComparator COMPARATOR = OUnsafeByteArrayComparator.INSTANCE;
+
+  public void testIntegerOrder() {
+    final OKeyNormalizer normalizer = new OKeyNormalizer(new OType[] { OType.INTEGER });
+    assertOrder(normalizer, Integer.MIN_VALUE, -100, -1, 0, 1, 255, 256, Integer.MAX_VALUE);
+  }
+
+  public void testLongOrder() {
+    final OKeyNormalizer normalizer = new OKeyNormalizer(new OType[] { OType.LONG });
+    assertOrder(normalizer, Long.MIN_VALUE, -1L << 40, -1L, 0L, 1L, 1L << 40, Long.MAX_VALUE);
+  }
+
+  public void testDoubleOrder() {
+    final OKeyNormalizer normalizer = new OKeyNormalizer(new OType[] { OType.DOUBLE });
+    assertOrder(normalizer, Double.NEGATIVE_INFINITY, -1e10, -1.5, -Double.MIN_VALUE, 0.0, Double.MIN_VALUE, 1.5, 1e10,
+        Double.POSITIVE_INFINITY);
+  }
+
+  public void testFloatOrder() {
+    final OKeyNormalizer normalizer = new OKeyNormalizer(new OType[] { OType.FLOAT });
+    assertOrder(normalizer, Float.NEGATIVE_INFINITY, -2.5f, -1.0f, 0.0f, 1.0f, 2.5f, Float.POSITIVE_INFINITY);
+  }
+
+  public void testStringOrder() {
+    final OKeyNormalizer normalizer = new OKeyNormalizer(new OType[] { OType.STRING });
+    assertOrder(normalizer, "", "\u0000", "\u0000a", "a", "a\u0000", "ab", "abc", "b", "\u00e9", "\uffff");
+  }
+
+  public void testBinaryOrder() {
+    final OKeyNormalizer normalizer = new OKeyNormalizer(new OType[] { OType.BINARY });
+    assertOrder(normalizer, new byte[0], new byte[] { 5 }, new byte[] { (byte) 0xFF }, new byte[] { 0, 0 },
+        new byte[] { 1, (byte) 0xFF });
+  }
+
+  public void testLinkOrder() {
+    final OKeyNormalizer normalizer = new OKeyNormalizer(new OType[] { OType.LINK });
+    assertOrder(normalizer, new ORecordId(-1, 5), new ORecordId(0, 10), new ORecordId(1, 0), new ORecordId(1, 1),
+        new ORecordId(32000, 0));
+  }
+
+  public void testNullIsLessThanAnyValue() {
+    final OKeyNormalizer normalizer = new OKeyNormalizer(new OType[] { OType.INTEGER, OType.STRING });
+
+    final byte[] nullItem = normalizer.normalize(new OCompositeKey(1, null));
+    final byte[] emptyString = normalizer.normalize(new OCompositeKey(1, ""));
+
+    Assert.assertTrue(compare(nullItem, emptyString) < 0);
+  }
+
+  public void testRandomCompositeKeysOrder() {
+    final OKeyNormalizer normalizer = new OKeyNormalizer(new OType[] { OType.STRING, OType.LONG, OType.DOUBLE });
+    final Random random = new Random();
+
+    final List<OCompositeKey> keys = new ArrayList<OCompositeKey>();
+    for (int i = 0; i < 1000; i++) {
+      final StringBuilder builder = new StringBuilder();
+      final int length = random.nextInt(5);
+      for (int n = 0; n < length; n++)
+        builder.append((char) ('a' + random.nextInt(3)));
+
+      keys.add(new OCompositeKey(builder.toString(), (long) random.nextInt(10) - 5, random.nextGaussian()));
+    }
+
+    for (int i = 0; i < keys.size() - 1; i++) {
+      final OCompositeKey keyOne = keys.get(i);
+      final OCompositeKey keyTwo = keys.get(i + 1);
+
+      Assert.assertEquals(Integer.signum(compare(normalizer.normalize(keyOne), normalizer.normalize(keyTwo))),
+          Integer.signum(keyOne.compareTo(keyTwo)), keyOne + " " + keyTwo);
+    }
+  }
+
+  public void testRoundTrip() {
+    final OType[] types = new OType[] { OType.BOOLEAN, OType.BYTE, OType.SHORT, OType.INTEGER, OType.LONG, OType.FLOAT,
+        OType.DOUBLE, OType.DATETIME, OType.STRING, OType.BINARY, OType.LINK };
+    final OKeyNormalizer normalizer = new OKeyNormalizer(types);
+
+    final OCompositeKey key = new OCompositeKey(true, (byte) -3, (short) 300, -42, 1L << 50, 1.25f, -3.75, new Date(123456789L),
+        "key\u0000value", new byte[] { 1, 2, 3 }, new ORecordId(12, 34));
+
+    final OCompositeKey restored = (OCompositeKey) normalizer.denormalize(normalizer.normalize(key));
+    Assert.assertEquals(restored.getKeys().size(), key.getKeys().size());
+
+    for (int i = 0; i < key.getKeys().size(); i++) {
+      final Object expected = key.getKeys().get(i);
+      final Object actual = restored.getKeys().get(i);
+
+      if (expected instanceof byte[])
+        Assert.assertTrue(Arrays.equals((byte[]) expected, (byte[]) actual));
+      else
+        Assert.assertEquals(actual, expected);
+    }
+  }
+
+  public void testSingleItemRoundTrip() {
+    final OKeyNormalizer normalizer = new OKeyNormalizer(new OType[] { OType.STRING });
+    Assert.assertEquals(normalizer.denormalize(normalizer.normalize("value")), "value");
+  }
+
+  public void testConversionOfKeyItems() {
+    final OKeyNormalizer normalizer = new OKeyNormalizer(new OType[] { OType.LONG });
+    Assert.assertEquals(normalizer.normalize(10), normalizer.normalize(10L));
+  }
+
+  public void testPartialKeyIsPrefix() {
+    final OKeyNormalizer normalizer = new OKeyNormalizer(new OType[] { OType.STRING, OType.INTEGER });
+
+    final byte[] partial = normalizer.normalize(new OCompositeKey("abc"));
+    final byte[] full = normalizer.normalize(new OCompositeKey("abc", 12));
+    final byte[] other = normalizer.normalize(new OCompositeKey("abcd", 12));
+
+    Assert.assertEquals(Arrays.copyOf(full, partial.length), partial);
+    Assert.assertTrue(compare(full, OKeyNormalizer.successor(partial)) < 0);
+    Assert.assertTrue(compare(other, OKeyNormalizer.successor(partial)) > 0);
+  }
+
+  public void testSuccessor() {
+    Assert.assertEquals(OKeyNormalizer.successor(new byte[] { 1, 2 }), new byte[] { 1, 3 });
+    Assert.assertEquals(OKeyNormalizer.successor(new byte[] { 1, (byte) 0xFF }), new byte[] { 2 });
+    Assert.assertNull(OKeyNormalizer.successor(new byte[] { (byte) 0xFF, (byte) 0xFF }));
+    Assert.assertNull(OKeyNormalizer.successor(new byte[0]));
+  }
+
+  @Test(expectedExceptions = OIndexException.class)
+  public void testUnsupportedType() {
+    new OKeyNormalizer(new OType[] { OType.STRING, OType.EMBEDDED });
+  }
+
+  public void testIsSupported() {
+    Assert.assertTrue(OKeyNormalizer.isSupported(new OType[] { OType.STRING, OType.LINK }));
+    Assert.assertFalse(OKeyNormalizer.isSupported(new OType[] { OType.DECIMAL }));
+    Assert.assertFalse(OKeyNormalizer.isSupported(null));
+  }
+
+  private static void assertOrder(OKeyNormalizer normalizer, Object... values) {
+    for (int i = 0; i < values.length - 1; i++) {
+      final byte[] keyOne = normalizer.normalize(values[i]);
+      final byte[] keyTwo = normalizer.normalize(values[i + 1]);
+
+      Assert.assertTrue(compare(keyOne, keyTwo) < 0, values[i] + " " + values[i + 1]);
+    }
+  }
+
+  private static int compare(byte[] keyOne, byte[] keyTwo) {
+    return COMPARATOR.compareLexicographically(keyOne, 0, keyOne.length, keyTwo, 0, keyTwo.length);
+  }
+}
@@ -0,0 +1,256 @@
+package com.orientechnologies.orient.core.index.sbtree.local;
+
+import com.orientechnologies.common.serialization.types.OStringSerializer;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.index.OCompositeKey;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.OLinkSerializer;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+@Test
+public class PrefixSBTreeTest {
+  private static final int KEYS_COUNT = 100000;
+
+  private OPrefixSBTree<String, OIdentifiable>       sbTree;
+  private OPrefixSBTree<OCompositeKey, OIdentifiable> compositeTree;
+  private OPrefixSBTree<Integer, String>             stringTree;
+  private ODatabaseDocumentTx                        databaseDocumentTx;
+
+  @BeforeClass
+  public void beforeClass() {
+    String buildDirectory = System.getProperty("buildDirectory");
+    if (buildDirectory == null)
+      buildDirectory = ".";
+
+    databaseDocumentTx = new ODatabaseDocumentTx("plocal:" + buildDirectory + "/localPrefixSBTreeTest");
+    if (databaseDocumentTx.exists()) {
+      databaseDocumentTx.open("admin", "admin");
+      databaseDocumentTx.drop();
+    }
+
+    databaseDocumentTx.create();
+
+    final OAbstractPaginatedStorage storage = (OAbstractPaginatedStorage) databaseDocumentTx.getStorage();
+
+    sbTree = new OPrefixSBTree<String, OIdentifiable>("prefixSBTree", ".psb", false, ".npb", storage);
+    sbTree.create(OLinkSerializer.INSTANCE, new OType[] { OType.STRING }, true);
+
+    compositeTree = new OPrefixSBTree<OCompositeKey, OIdentifiable>("compositePrefixSBTree", ".psb", false, ".npb", storage);
+    compositeTree.create(OLinkSerializer.INSTANCE, new OType[] { OType.STRING, OType.INTEGER }, false);
+
+    stringTree = new OPrefixSBTree<Integer, String>("valuePrefixSBTree", ".psb", false, ".npb", storage);
+    stringTree.create(OStringSerializer.INSTANCE, new OType[] { OType.INTEGER }, false);
+  }
+
+  @AfterMethod
+  public void afterMethod() throws Exception {
+    sbTree.clear();
+    compositeTree.clear();
+    stringTree.clear();
+  }
+
+  @AfterClass
+  public void afterClass() throws Exception {
+    sbTree.delete();
+    compositeTree.delete();
+    stringTree.delete();
+    databaseDocumentTx.drop();
+  }
+
+  public void testKeyPut() {
+    for (int i = 0; i < KEYS_COUNT; i++)
+      sbTree.put(key(i), new ORecordId(i % 32000, i));
+
+    for (int i = 0; i < KEYS_COUNT; i++)
+      Assert.assertEquals(sbTree.get(key(i)), new ORecordId(i % 32000, i), i + " key is absent");
+
+    for (int i = KEYS_COUNT; i < 2 * KEYS_COUNT; i++)
+      Assert.assertNull(sbTree.get(key(i)));
+
+    Assert.assertEquals(sbTree.size(), KEYS_COUNT);
+    Assert.assertEquals(sbTree.firstKey(), key(0));
+    Assert.assertEquals(sbTree.lastKey(), key(KEYS_COUNT - 1));
+  }
+
+  public void testKeyPutRandomAndDelete() {
+    final NavigableMap<String, ORecordId> keys = new TreeMap<String, ORecordId>();
+    final Random random = new Random();
+
+    while (keys.size() < KEYS_COUNT) {
+      final int value = random.nextInt(Integer.MAX_VALUE);
+      final String key = "user.account." + value;
+      final ORecordId rid = new ORecordId(value % 32000, value);
+
+      sbTree.put(key, rid);
+      keys.put(key, rid);
+
+      Assert.assertEquals(sbTree.get(key), rid);
+    }
+
+    Assert.assertEquals(sbTree.firstKey(), keys.firstKey());
+    Assert.assertEquals(sbTree.lastKey(), keys.lastKey());
+
+    final Iterator<Map.Entry<String, ORecordId>> iterator = keys.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final Map.Entry<String, ORecordId> entry = iterator.next();
+      if (random.nextBoolean()) {
+        Assert.assertEquals(sbTree.remove(entry.getKey()), entry.getValue());
+        iterator.remove();
+      }
+    }
+
+    Assert.assertEquals(sbTree.size(), keys.size());
+
+    for (Map.Entry<String, ORecordId> entry : keys.entrySet())
+      Assert.assertEquals(sbTree.get(entry.getKey()), entry.getValue());
+
+    assertCursor(sbTree.iterateEntriesMajor("", true, true), new ArrayList<Map.Entry<String, ORecordId>>(keys.entrySet()));
+  }
+
+  public void testValueUpdate() {
+    for (int i = 0; i < 1000; i++)
+      sbTree.put(key(i), new ORecordId(1, i));
+
+    for (int i = 0; i < 1000; i++)
+      sbTree.put(key(i), new ORecordId(2, i));
+
+    Assert.assertEquals(sbTree.size(), 1000);
+
+    for (int i = 0; i < 1000; i++)
+      Assert.assertEquals(sbTree.get(key(i)), new ORecordId(2, i));
+  }
+
+  public void testIterateEntries() {
+    final NavigableMap<String, ORecordId> keys = new TreeMap<String, ORecordId>();
+    for (int i = 0; i < 10000; i++) {
+      sbTree.put(key(i), new ORecordId(i % 32000, i));
+      keys.put(key(i), new ORecordId(i % 32000, i));
+    }
+
+    final Random random = new Random();
+    for (int n = 0; n < 50; n++) {
+      final String from = key(random.nextInt(10000));
+      final String to = key(random.nextInt(10000));
+
+      final boolean fromInclusive = random.nextBoolean();
+      final boolean toInclusive = random.nextBoolean();
+
+      if (from.compareTo(to) <= 0) {
+        assertCursor(sbTree.iterateEntriesBetween(from, fromInclusive, to, toInclusive, true),
+            new ArrayList<Map.Entry<String, ORecordId>>(keys.subMap(from, fromInclusive, to, toInclusive).entrySet()));
+        assertCursor(sbTree.iterateEntriesBetween(from, fromInclusive, to, toInclusive, false),
+            new ArrayList<Map.Entry<String, ORecordId>>(keys.subMap(from, fromInclusive, to, toInclusive).descendingMap().entrySet()));
+      }
+
+      assertCursor(sbTree.iterateEntriesMajor(from, fromInclusive, true),
+          new ArrayList<Map.Entry<String, ORecordId>>(keys.tailMap(from, fromInclusive).entrySet()));
+      assertCursor(sbTree.iterateEntriesMajor(from, fromInclusive, false),
+          new ArrayList<Map.Entry<String, ORecordId>>(keys.tailMap(from, fromInclusive).descendingMap().entrySet()));
+
+      assertCursor(sbTree.iterateEntriesMinor(to, toInclusive, true),
+          new ArrayList<Map.Entry<String, ORecordId>>(keys.headMap(to, toInclusive).entrySet()));
+      assertCursor(sbTree.iterateEntriesMinor(to, toInclusive, false),
+          new ArrayList<Map.Entry<String, ORecordId>>(keys.headMap(to, toInclusive).descendingMap().entrySet()));
+    }
+  }
+
+  public void testPartialCompositeKeys() {
+    for (int i = 0; i < 100; i++) {
+      for (int n = 0; n < 100; n++)
+        compositeTree.put(new OCompositeKey("group" + i, n), new ORecordId(i, n));
+    }
+
+    Assert.assertEquals(compositeTree.get(new OCompositeKey("group10", 5)), new ORecordId(10, 5));
+
+    final OCompositeKey group = new OCompositeKey("group10");
+
+    OSBTree.OSBTreeCursor<OCompositeKey, OIdentifiable> cursor = compositeTree.iterateEntriesBetween(group, true, group, true, true);
+    for (int n = 0; n < 100; n++) {
+      final Map.Entry<OCompositeKey, OIdentifiable> entry = cursor.next(-1);
+      Assert.assertEquals(entry.getKey(), new OCompositeKey("group10", n));
+      Assert.assertEquals(entry.getValue(), new ORecordId(10, n));
+    }
+    Assert.assertNull(cursor.next(-1));
+
+    cursor = compositeTree.iterateEntriesMajor(group, false, true);
+    Assert.assertEquals(cursor.next(-1).getKey(), new OCompositeKey("group11", 0));
+
+    cursor = compositeTree.iterateEntriesMinor(group, false, false);
+    Assert.assertEquals(cursor.next(-1).getKey(), new OCompositeKey("group1", 99));
+  }
+
+  public void testNullKey() {
+    Assert.assertNull(sbTree.get(null));
+
+    sbTree.put(null, new ORecordId(3, 3));
+    sbTree.put("key", new ORecordId(4, 4));
+
+    Assert.assertEquals(sbTree.get(null), new ORecordId(3, 3));
+    Assert.assertEquals(sbTree.size(), 2);
+
+    Assert.assertEquals(sbTree.remove(null), new ORecordId(3, 3));
+    Assert.assertNull(sbTree.get(null));
+    Assert.assertEquals(sbTree.size(), 1);
+  }
+
+  public void testBigValues() {
+    final Random random = new Random();
+    final List<String> values = new ArrayList<String>();
+
+    for (int i = 0; i < 50; i++) {
+      final StringBuilder builder = new StringBuilder();
+      final int length = random.nextInt(64 * 1024);
+      for (int n = 0; n < length; n++)
+        builder.append((char) ('a' + random.nextInt(26)));
+
+      values.add(builder.toString());
+      stringTree.put(i, builder.toString());
+    }
+
+    for (int i = 0; i < 50; i++)
+      Assert.assertEquals(stringTree.get(i), values.get(i));
+
+    // update of big values should reuse pages of previous values
+    for (int i = 0; i < 50; i++)
+      stringTree.put(i, values.get(49 - i));
+
+    for (int i = 0; i < 50; i++)
+      Assert.assertEquals(stringTree.get(i), values.get(49 - i));
+
+    for (int i = 0; i < 50; i += 2)
+      Assert.assertEquals(stringTree.remove(i), values.get(49 - i));
+
+    Assert.assertEquals(stringTree.size(), 25);
+  }
+
+  private static String key(int i) {
+    return String.format("user.account.%08d", i);
+  }
+
+  private static <K> void assertCursor(OSBTree.OSBTreeCursor<K, OIdentifiable> cursor,
+      List<? extends Map.Entry<K, ? extends OIdentifiable>> expected) {
+    for (Map.Entry<K, ? extends OIdentifiable> expectedEntry : expected) {
+      final Map.Entry<K, OIdentifiable> entry = cursor.next(-1);
+      Assert.assertNotNull(entry);
+      Assert.assertEquals(entry.getKey(), expectedEntry.getKey());
+      Assert.assertEquals(entry.getValue(), expectedEntry.getValue());
+    }
+
+    Assert.assertNull(cursor.next(-1));
+  }
+}
@@ -501,6 +501,80 @@ public class SBTreeTest {
     }
   }
 
+  public void testBulkLoad() throws Exception {
+    final List<Map.Entry<Integer, OIdentifiable>> entries = new ArrayList<Map.Entry<Integer, OIdentifiable>>();
+    for (int i = 0; i < KEYS_COUNT; i++)
+      entries.add(new AbstractMap.SimpleEntry<Integer, OIdentifiable>(2 * i, new ORecordId(i % 32000, i)));
+
+    sbTree.bulkLoad(entries.iterator());
+
+    Assert.assertEquals(sbTree.size(), KEYS_COUNT);
+    Assert.assertEquals((int) sbTree.firstKey(), 0);
+    Assert.assertEquals((int) sbTree.lastKey(), 2 * (KEYS_COUNT - 1));
+
+    for (int i = 0; i < KEYS_COUNT; i++) {
+      Assert.assertEquals(sbTree.get(2 * i), new ORecordId(i % 32000, i), 2 * i + " key is absent");
+      Assert.assertNull(sbTree.get(2 * i + 1));
+    }
+
+    final OSBTree.OSBTreeCursor<Integer, OIdentifiable> cursor = sbTree.iterateEntriesMajor(0, true, true);
+    for (int i = 0; i < KEYS_COUNT; i++)
+      Assert.assertEquals((int) cursor.next(-1).getKey(), 2 * i);
+    Assert.assertNull(cursor.next(-1));
+
+    // pages are filled completely, so every insertion between loaded keys causes split of page
+    for (int i = 0; i < KEYS_COUNT; i++)
+      sbTree.put(2 * i + 1, new ORecordId(i % 32000, i));
+
+    for (int i = 0; i < KEYS_COUNT; i += 3)
+      Assert.assertEquals(sbTree.remove(2 * i), new ORecordId(i % 32000, i));
+
+    for (int i = 0; i < KEYS_COUNT; i++) {
+      Assert.assertEquals(sbTree.get(2 * i + 1), new ORecordId(i % 32000, i));
+
+      if (i % 3 == 0)
+        Assert.assertNull(sbTree.get(2 * i));
+      else
+        Assert.assertEquals(sbTree.get(2 * i), new ORecordId(i % 32000, i));
+    }
+  }
+
+  public void testBulkLoadIntoNotEmptyTree() throws Exception {
+    sbTree.put(5, new ORecordId(1, 1));
+
+    final List<Map.Entry<Integer, OIdentifiable>> entries = new ArrayList<Map.Entry<Integer, OIdentifiable>>();
+    for (int i = 0; i < 1000; i++)
+      entries.add(new AbstractMap.SimpleEntry<Integer, OIdentifiable>(i, new ORecordId(2, i)));
+
+    sbTree.bulkLoad(entries.iterator());
+
+    Assert.assertEquals(sbTree.size(), 1000);
+    for (int i = 0; i < 1000; i++)
+      Assert.assertEquals(sbTree.get(i), new ORecordId(2, i));
+  }
+
+  public void testBulkLoadWithNullKey() {
+    final OSBTree<Integer, OIdentifiable> nullSBTree = new OSBTree<Integer, OIdentifiable>("nullBulkSBTree", ".sbt", false, ".nbt",
+        (OAbstractPaginatedStorage) databaseDocumentTx.getStorage());
+    nullSBTree.create(OIntegerSerializer.INSTANCE, OLinkSerializer.INSTANCE, null, 1, true);
+
+    try {
+      final List<Map.Entry<Integer, OIdentifiable>> entries = new ArrayList<Map.Entry<Integer, OIdentifiable>>();
+      entries.add(new AbstractMap.SimpleEntry<Integer, OIdentifiable>(null, new ORecordId(10, 1000)));
+      for (int i = 0; i < 10; i++)
+        entries.add(new AbstractMap.SimpleEntry<Integer, OIdentifiable>(i, new ORecordId(3, i)));
+
+      nullSBTree.bulkLoad(entries.iterator());
+
+      Assert.assertEquals(nullSBTree.size(), 11);
+      Assert.assertEquals(nullSBTree.get(null), new ORecordId(10, 1000));
+      for (int i = 0; i < 10; i++)
+        Assert.assertEquals(nullSBTree.get(i), new ORecordId(3, i));
+    } finally {
+      nullSBTree.delete();
+    }
+  }
+
   private void cursorToSet(Set<OIdentifiable> identifiables, OSBTree.OSBTreeCursor<Integer, OIdentifiable> cursor) {
     identifiables.clear();
     Map.Entry<Integer, OIdentifiable> entry = cursor.next(-1);
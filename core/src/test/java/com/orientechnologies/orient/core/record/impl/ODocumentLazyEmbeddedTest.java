@@ -0,0 +1,112 @@
+package com.orientechnologies.orient.core.record.impl;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Test
+public class ODocumentLazyEmbeddedTest {
+  private ODatabaseDocumentTx db;
+
+  @BeforeMethod
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + ODocumentLazyEmbeddedTest.class.getSimpleName());
+    db.create();
+    db.getMetadata().getSchema().createClass("Account");
+  }
+
+  @AfterMethod
+  public void after() {
+    db.drop();
+  }
+
+  public void testEmbeddedDocumentIsDecodedOnAccess() {
+    final ORID rid = saveAccount("account", 42);
+    db.getLocalCache().clear();
+
+    final ODocument account = db.load(rid);
+    Assert.assertEquals(account.field("name"), "account");
+
+    final ODocument address = account.field("address");
+    final String[] fieldNames = address.fieldNames();
+    Arrays.sort(fieldNames);
+    Assert.assertEquals(fieldNames, new String[] { "city", "geo" });
+    Assert.assertEquals(address.field("city"), "Rome");
+
+    final ODocument geo = address.field("geo");
+    Assert.assertEquals(geo.<Object>field("lat"), 41.9);
+    Assert.assertEquals(account.field("address.geo.lon"), 12.5);
+  }
+
+  public void testChangedEmbeddedDocumentIsSaved() {
+    final ORID rid = saveAccount("account", 42);
+    db.getLocalCache().clear();
+
+    ODocument account = db.load(rid);
+    final ODocument geo = account.field("address.geo");
+    geo.field("lat", 45.4);
+    account.save();
+
+    db.getLocalCache().clear();
+
+    account = db.load(rid);
+    Assert.assertEquals(account.field("address.geo.lat"), 45.4);
+    Assert.assertEquals(account.field("address.geo.lon"), 12.5);
+    Assert.assertEquals(account.field("address.city"), "Rome");
+    Assert.assertEquals(account.<Object>field("number"), 42);
+  }
+
+  public void testSerializableEmbeddedObjectIsCreated() {
+    final ODocumentSchemalessBinarySerializationTest.CustomDocument custom = new ODocumentSchemalessBinarySerializationTest.CustomDocument();
+    final ORID rid = db.save(new ODocument("Account").field("name", "account").field("custom", custom)).getIdentity().copy();
+    db.getLocalCache().clear();
+
+    final ODocument account = db.load(rid);
+    final Object loaded = account.field("custom");
+    Assert.assertTrue(loaded instanceof ODocumentSchemalessBinarySerializationTest.CustomDocument);
+    Assert.assertEquals(loaded, custom);
+  }
+
+  public void testBinaryEvaluationOfInAndBetween() {
+    for (int i = 0; i < 10; i++)
+      saveAccount("account" + i, i);
+    db.getLocalCache().clear();
+
+    Assert.assertEquals(query("select from Account where number in [1, 3, 5, 42]").size(), 3);
+    Assert.assertEquals(query("select from Account where number in [1.0, 3.0]").size(), 2);
+    Assert.assertEquals(query("select from Account where name in ['account1', 'account2', 'foo']").size(), 2);
+    Assert.assertEquals(query("select from Account where number in ['1', null]").size(), 1);
+    Assert.assertEquals(query("select from Account where number between 2 and 5").size(), 4);
+    Assert.assertEquals(query("select from Account where 'tag3' in tags").size(), 1);
+    Assert.assertEquals(query("select from Account where tags in ['tag3']").size(), 1);
+
+    // records changed in current session are evaluated as usual
+    final List<ODocument> result = query("select from Account where number in [1]");
+    result.get(0).field("number", 100);
+    Assert.assertEquals(query("select from Account where number in [100]").size(), 1);
+  }
+
+  private ORID saveAccount(String name, int number) {
+    final ODocument geo = new ODocument().field("lat", 41.9).field("lon", 12.5);
+    final ODocument address = new ODocument().field("city", "Rome").field("geo", geo);
+
+    final ODocument account = new ODocument("Account");
+    account.field("name", name);
+    account.field("number", number);
+    account.field("tags", Arrays.asList("tag" + number));
+    account.field("address", address);
+
+    return db.save(account).getIdentity().copy();
+  }
+
+  private List<ODocument> query(String sql) {
+    return db.query(new OSQLSynchQuery<ODocument>(sql));
+  }
+}
@@ -0,0 +1,142 @@
+package com.orientechnologies.orient.core.sql;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Test
+public class OCommandExecutorSQLSelectIndexOnlyTest {
+  private static final int RECORDS_COUNT = 1000;
+
+  private ODatabaseDocumentTx db;
+
+  @BeforeMethod
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + OCommandExecutorSQLSelectIndexOnlyTest.class.getSimpleName());
+    db.create();
+
+    final OClass account = db.getMetadata().getSchema().createClass("Account");
+    account.createProperty("name", OType.STRING);
+    account.createProperty("number", OType.INTEGER);
+    account.createProperty("branch", OType.INTEGER).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+    account.createProperty("code", OType.STRING).createIndex(OClass.INDEX_TYPE.UNIQUE);
+    account.createIndex("Account.number_name", OClass.INDEX_TYPE.UNIQUE, "number", "name");
+
+    final OClass savings = db.getMetadata().getSchema().createClass("Savings", account);
+
+    for (int i = 0; i < RECORDS_COUNT; i++)
+      db.save(new ODocument(i % 4 == 0 ? "Savings" : "Account").field("name", "account" + i).field("number", i)
+          .field("branch", i % 10 == 0 ? null : i % 7).field("balance", i * 10).field("code", "c" + (RECORDS_COUNT - i)));
+
+    savings.createProperty("branch", OType.INTEGER);
+  }
+
+  @AfterMethod
+  public void after() {
+    db.drop();
+  }
+
+  public void testCoveredQueries() {
+    final String[] queries = { "select number, name from Account where number < 100", "select name from Account where number = 42",
+        "select @rid, name from Account where number between 10 and 20 and name like 'account1%'",
+        "select number from Account where number > 900 and (name = 'account950' or name = 'account999')",
+        "select count(*) from Account where number < 500 and name > 'account3'",
+        "select max(name), sum(number) from Account where number > 10 and number <= 20",
+        "select number, name from Account where number >= 990 order by name desc", "select name from Account where number < 100 limit 5",
+        "select count(*) from Account where number < 100 group by name" };
+
+    for (String query : queries) {
+      Assert.assertEquals(query(query, true), query(query, false), query);
+
+      final ODocument explain = db.command(new OCommandSQL("explain " + query)).execute();
+      Assert.assertEquals(explain.field("indexOnlyScan"), Boolean.TRUE, query);
+      Assert.assertFalse(explain.containsField("documentReads"), query);
+    }
+
+    final List<ODocument> result = db.query(new OSQLSynchQuery<ODocument>("select @rid, name from Account where number = 42"));
+    Assert.assertEquals(result.size(), 1);
+    Assert.assertEquals(result.get(0).field("name"), "account42");
+    Assert.assertEquals(result.get(0).<Object>field("rid"),
+        db.<List<ODocument>>query(new OSQLSynchQuery<ODocument>("select from Account where name = 'account42'")).get(0)
+            .getIdentity());
+  }
+
+  public void testNotCoveredQueries() {
+    final String[] queries = { "select from Account where number < 100", "select balance from Account where number < 100",
+        "select name from Account where number < 100 and balance > 5", "select name.toUpperCase() from Account where number < 100",
+        "select @class, name from Account where number < 100",
+        "select name from Savings where number < 50", "select count(*) from Account where number < 100 group by branch",
+        "select name from Account where number < 100 order by balance" };
+
+    for (String query : queries) {
+      Assert.assertEquals(query(query, true), query(query, false), query);
+
+      final ODocument explain = db.command(new OCommandSQL("explain " + query)).execute();
+      Assert.assertFalse(explain.containsField("indexOnlyScan"), query);
+      Assert.assertTrue(explain.<Number>field("documentReads").longValue() > 0, query);
+    }
+  }
+
+  public void testMinMax() {
+    final String[] queries = { "select min(code) from Account", "select max(code) as value from Account",
+        "select min(branch) from Account", "select max(branch) from Account" };
+
+    for (String query : queries) {
+      Assert.assertEquals(query(query, true), query(query, false), query);
+
+      final ODocument explain = db.command(new OCommandSQL("explain " + query)).execute();
+      Assert.assertEquals(explain.field("indexOnlyScan"), Boolean.TRUE, query);
+    }
+
+    Assert.assertEquals(query("select min(code) from Account", true).get(0), "c1");
+    Assert.assertEquals(query("select max(branch) from Account", true).get(0), "6");
+
+    db.command(new OCommandSQL("delete from Account")).execute();
+    Assert.assertEquals(query("select max(code) from Account", true), query("select max(code) from Account", false), "empty");
+  }
+
+  public void testTransaction() {
+    db.begin();
+    db.save(new ODocument("Account").field("name", "account-1").field("number", -1).field("code", "c"));
+    db.command(new OCommandSQL("delete from Account where number = 5")).execute();
+
+    final String query = "select number, name from Account where number < 10";
+    final List<String> result = query(query, true);
+    Assert.assertEquals(result, query(query, false), query);
+    Assert.assertTrue(result.contains("-1|account-1"));
+    Assert.assertFalse(result.contains("5|account5"));
+
+    Assert.assertEquals(query("select min(code) from Account", true), query("select min(code) from Account", false), "min");
+    db.rollback();
+  }
+
+  private List<String> query(String sql, boolean indexOnly) {
+    final boolean indexOnlyScan = OGlobalConfiguration.QUERY_INDEX_ONLY_SCAN.getValueAsBoolean();
+    OGlobalConfiguration.QUERY_INDEX_ONLY_SCAN.setValue(indexOnly);
+    try {
+      final List<String> result = new ArrayList<String>();
+      for (ODocument document : db.<List<ODocument>>query(new OSQLSynchQuery<ODocument>(sql))) {
+        final StringBuilder row = new StringBuilder();
+        for (String field : document.fieldNames()) {
+          if (row.length() > 0)
+            row.append('|');
+          row.append(document.<Object>field(field));
+        }
+        result.add(row.toString());
+      }
+      return result;
+    } finally {
+      OGlobalConfiguration.QUERY_INDEX_ONLY_SCAN.setValue(indexOnlyScan);
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package com.orientechnologies.orient.core.sql;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Test
+public class OCommandExecutorSQLSelectParallelTest {
+  private static final int RECORDS_COUNT = 5000;
+  private static final int GROUPS_COUNT  = 7;
+
+  private ODatabaseDocumentTx db;
+  private long                minimumRecords;
+  private long                morselSize;
+
+  @BeforeMethod
+  public void before() {
+    minimumRecords = OGlobalConfiguration.QUERY_PARALLEL_MINIMUM_RECORDS.getValueAsLong();
+    morselSize = OGlobalConfiguration.QUERY_PARALLEL_MORSEL_SIZE.getValueAsLong();
+    OGlobalConfiguration.QUERY_PARALLEL_MINIMUM_RECORDS.setValue(100);
+    OGlobalConfiguration.QUERY_PARALLEL_MORSEL_SIZE.setValue(128);
+
+    db = new ODatabaseDocumentTx("memory:" + OCommandExecutorSQLSelectParallelTest.class.getSimpleName());
+    db.create();
+    db.getMetadata().getSchema().createClass("Account", 1, null);
+
+    for (int i = 0; i < RECORDS_COUNT; i++)
+      db.save(new ODocument("Account").field("number", i).field("group", i % GROUPS_COUNT));
+
+    // REMOVED RECORDS LEAVE HOLES IN CLUSTER POSITIONS
+    db.command(new OCommandSQL("delete from Account where number < 100")).execute();
+  }
+
+  @AfterMethod
+  public void after() {
+    db.drop();
+    OGlobalConfiguration.QUERY_PARALLEL_MINIMUM_RECORDS.setValue(minimumRecords);
+    OGlobalConfiguration.QUERY_PARALLEL_MORSEL_SIZE.setValue(morselSize);
+  }
+
+  public void testScan() {
+    final List<ODocument> result = query("select from Account where number % 2 = 0 parallel");
+    Assert.assertEquals(result.size(), (RECORDS_COUNT - 100) / 2);
+
+    final Set<ORID> rids = new HashSet<ORID>();
+    final boolean[] numbers = new boolean[RECORDS_COUNT];
+    for (ODocument document : result) {
+      Assert.assertTrue(rids.add(document.getIdentity()));
+
+      final int number = document.<Integer>field("number");
+      Assert.assertEquals(number % 2, 0);
+      Assert.assertFalse(numbers[number]);
+      numbers[number] = true;
+    }
+  }
+
+  public void testExplain() {
+    final ODocument explain = db.command(new OCommandSQL("explain select from Account parallel")).execute();
+
+    // THE FIRST 100 POSITIONS ARE EMPTY
+    final int morsels = (RECORDS_COUNT - 100 + 127) / 128;
+    Assert.assertEquals(explain.<Object>field("parallelMorsels"), morsels);
+    Assert.assertEquals(explain.<Object>field("parallelDegree"), Math.min(Runtime.getRuntime().availableProcessors(), morsels));
+  }
+
+  public void testParallelDegree() {
+    final OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<ODocument>("select from Account parallel");
+    query.getContext().setVariable("$parallelDegree", 3);
+
+    final List<ODocument> result = db.query(query);
+    Assert.assertEquals(result.size(), RECORDS_COUNT - 100);
+    Assert.assertEquals(query.getContext().getVariable("parallelDegree"), 3);
+  }
+
+  public void testCount() {
+    final List<ODocument> result = query("select count(*) as total, sum(number) as numbers from Account parallel");
+    Assert.assertEquals(result.size(), 1);
+    Assert.assertEquals(((Number) result.get(0).field("total")).intValue(), RECORDS_COUNT - 100);
+
+    long numbers = 0;
+    for (int i = 100; i < RECORDS_COUNT; i++)
+      numbers += i;
+    Assert.assertEquals(((Number) result.get(0).field("numbers")).longValue(), numbers);
+  }
+
+  public void testGroupBy() {
+    final List<ODocument> result = query("select group, count(*) as total from Account group by group parallel");
+    Assert.assertEquals(result.size(), GROUPS_COUNT);
+
+    int total = 0;
+    for (ODocument document : result)
+      total += ((Number) document.field("total")).intValue();
+    Assert.assertEquals(total, RECORDS_COUNT - 100);
+  }
+
+  public void testLimit() {
+    final List<ODocument> result = query("select from Account limit 10 parallel");
+    Assert.assertEquals(result.size(), 10);
+  }
+
+  private List<ODocument> query(String sql) {
+    return db.query(new OSQLSynchQuery<ODocument>(sql));
+  }
+}
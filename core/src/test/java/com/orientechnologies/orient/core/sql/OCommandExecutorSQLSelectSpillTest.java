@@ -0,0 +1,135 @@
+package com.orientechnologies.orient.core.sql;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.List;
+
+@Test
+public class OCommandExecutorSQLSelectSpillTest {
+  private static final int RECORDS_COUNT = 2000;
+  private static final int GROUPS_COUNT  = 300;
+
+  private ODatabaseDocumentTx db;
+  private long                memoryLimit;
+
+  @BeforeMethod
+  public void before() {
+    memoryLimit = OGlobalConfiguration.QUERY_MEMORY_LIMIT.getValueAsLong();
+    OGlobalConfiguration.QUERY_MEMORY_LIMIT.setValue(16 * 1024);
+
+    db = new ODatabaseDocumentTx("memory:" + OCommandExecutorSQLSelectSpillTest.class.getSimpleName());
+    db.create();
+    db.getMetadata().getSchema().createClass("Account");
+
+    for (int i = 0; i < RECORDS_COUNT; i++) {
+      final int number = (i * 7919) % RECORDS_COUNT;
+      db.save(new ODocument("Account").field("name", "account" + number).field("number", number).field("group",
+          number % GROUPS_COUNT));
+    }
+  }
+
+  @AfterMethod
+  public void after() {
+    db.drop();
+    OGlobalConfiguration.QUERY_MEMORY_LIMIT.setValue(memoryLimit);
+  }
+
+  public void testOrderBy() {
+    final int spillFiles = countSpillFiles();
+
+    final List<ODocument> result = query("select from Account order by number desc");
+    Assert.assertEquals(result.size(), RECORDS_COUNT);
+    for (int i = 0; i < RECORDS_COUNT; i++)
+      Assert.assertEquals(result.get(i).<Object>field("number"), RECORDS_COUNT - 1 - i);
+
+    Assert.assertEquals(countSpillFiles(), spillFiles);
+  }
+
+  public void testOrderByProjectionWithSkip() {
+    final List<ODocument> result = query("select name, number from Account order by name skip 10");
+    Assert.assertEquals(result.size(), RECORDS_COUNT - 10);
+
+    String previous = null;
+    for (ODocument document : result) {
+      final String name = document.field("name");
+      if (previous != null)
+        Assert.assertTrue(previous.compareTo(name) <= 0);
+      previous = name;
+    }
+
+    Assert.assertEquals(result.get(0).field("name"), "account1006");
+  }
+
+  public void testExplainOrderBy() {
+    final ODocument explain = db.command(new OCommandSQL("explain select from Account order by number")).execute();
+
+    Assert.assertEquals(explain.<Object>field("memoryLimit"), 16 * 1024L);
+    Assert.assertTrue(explain.<Integer>field("orderBySpilledRuns") > 1);
+    Assert.assertTrue(explain.<Long>field("orderBySpilledRecords") > 0);
+  }
+
+  public void testGroupBy() {
+    final int spillFiles = countSpillFiles();
+
+    final List<ODocument> result = query("select group, count(*) as total, sum(number) as numbers from Account group by group");
+    Assert.assertEquals(result.size(), GROUPS_COUNT);
+
+    final boolean[] groups = new boolean[GROUPS_COUNT];
+    for (ODocument document : result) {
+      final int group = document.<Integer>field("group");
+      Assert.assertFalse(groups[group]);
+      groups[group] = true;
+
+      long numbers = 0;
+      int total = 0;
+      for (int number = group; number < RECORDS_COUNT; number += GROUPS_COUNT) {
+        numbers += number;
+        total++;
+      }
+
+      Assert.assertEquals(((Number) document.field("total")).intValue(), total);
+      Assert.assertEquals(((Number) document.field("numbers")).longValue(), numbers);
+    }
+
+    Assert.assertEquals(countSpillFiles(), spillFiles);
+  }
+
+  public void testGroupByOrderBy() {
+    final List<ODocument> result = query("select group, count(*) as total from Account group by group order by group desc");
+    Assert.assertEquals(result.size(), GROUPS_COUNT);
+
+    for (int i = 0; i < GROUPS_COUNT; i++)
+      Assert.assertEquals(result.get(i).<Object>field("group"), GROUPS_COUNT - 1 - i);
+  }
+
+  public void testExplainGroupBy() {
+    final ODocument explain = db.command(new OCommandSQL("explain select group, count(*) from Account group by group")).execute();
+
+    Assert.assertTrue(explain.<Integer>field("groupBySpilledPartitions") > 0);
+    Assert.assertTrue(explain.<Long>field("groupBySpilledRecords") > 0);
+  }
+
+  private List<ODocument> query(String sql) {
+    return db.query(new OSQLSynchQuery<ODocument>(sql));
+  }
+
+  private static int countSpillFiles() {
+    final String[] files = new File(System.getProperty("java.io.tmpdir")).list(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.endsWith(".spill");
+      }
+    });
+
+    return files != null ? files.length : 0;
+  }
+}
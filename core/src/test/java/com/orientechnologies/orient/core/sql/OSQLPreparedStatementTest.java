@@ -0,0 +1,137 @@
+package com.orientechnologies.orient.core.sql;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.index.OPropertyIndexDefinition;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLPreparedQuery;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Test
+public class OSQLPreparedStatementTest {
+  private static final int RECORDS_COUNT = 200;
+
+  private ODatabaseDocumentTx db;
+
+  @BeforeMethod
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + OSQLPreparedStatementTest.class.getSimpleName());
+    db.create();
+
+    final OClass account = db.getMetadata().getSchema().createClass("Account");
+    account.createProperty("number", OType.INTEGER).createIndex(OClass.INDEX_TYPE.UNIQUE);
+    account.createProperty("name", OType.STRING).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+
+    for (int i = 0; i < RECORDS_COUNT; i++)
+      db.save(new ODocument("Account").field("number", i).field("name", "account" + (i % 10)));
+  }
+
+  @AfterMethod
+  public void after() {
+    db.drop();
+  }
+
+  public void testPlanIsReused() {
+    final OSQLPreparedStatement statement = new OSQLPreparedStatement("select from Account where number = ?");
+
+    for (int i = 0; i < 10; i++) {
+      final List<ODocument> result = query(statement, i * 7);
+      Assert.assertEquals(result.size(), 1);
+      Assert.assertEquals(result.get(0).<Object>field("number"), i * 7);
+    }
+
+    Assert.assertEquals(statement.getPlanCount(), 1);
+    Assert.assertEquals(statement.getPlanHits(), 9);
+
+    Assert.assertEquals(query(statement, -1).size(), 0);
+    Assert.assertEquals(statement.getPlanHits(), 10);
+  }
+
+  public void testSignatures() {
+    final OSQLPreparedStatement statement = new OSQLPreparedStatement(
+        "select from Account where name = :name and number < :number");
+
+    final Map<Object, Object> params = new HashMap<Object, Object>();
+    params.put("name", "account3");
+    params.put("number", 100);
+    Assert.assertEquals(query(statement, params).size(), 10);
+
+    params.put("number", 100L);
+    Assert.assertEquals(query(statement, params).size(), 10);
+    Assert.assertEquals(statement.getPlanCount(), 2);
+
+    params.put("name", "account4");
+    Assert.assertEquals(query(statement, params).size(), 10);
+    Assert.assertEquals(statement.getPlanCount(), 2);
+    Assert.assertEquals(statement.getPlanHits(), 1);
+
+    Assert.assertEquals(OSQLPreparedStatement.getSignature(params), "name:java.lang.String,number:java.lang.Long,");
+  }
+
+  public void testOrBranches() {
+    final OSQLPreparedStatement statement = new OSQLPreparedStatement("select from Account where number = ? or name = ?");
+
+    Assert.assertEquals(query(statement, 5, "account1").size(), 21);
+    Assert.assertEquals(query(statement, 11, "account1").size(), 20);
+    Assert.assertEquals(query(statement, 12, "account2").size(), 20);
+
+    Assert.assertEquals(statement.getPlanCount(), 1);
+    Assert.assertEquals(statement.getPlanHits(), 2);
+  }
+
+  public void testDroppedIndex() {
+    final OSQLPreparedStatement statement = new OSQLPreparedStatement("select from Account where number = ?");
+
+    Assert.assertEquals(query(statement, 10).size(), 1);
+    Assert.assertEquals(statement.getPlanCount(), 1);
+
+    db.getMetadata().getIndexManager().dropIndex("Account.number");
+
+    Assert.assertEquals(query(statement, 11).size(), 1);
+    Assert.assertEquals(query(statement, 12).size(), 1);
+    Assert.assertEquals(statement.getPlanCount(), 0);
+    Assert.assertEquals(statement.getPlanHits(), 0);
+
+    db.getMetadata().getSchema().getClass("Account").getProperty("number").createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+
+    Assert.assertEquals(query(statement, 13).size(), 1);
+    Assert.assertEquals(query(statement, 14).size(), 1);
+    Assert.assertEquals(statement.getPlanCount(), 1);
+    Assert.assertEquals(statement.getPlanHits(), 1);
+  }
+
+  public void testCreatedIndex() {
+    final OSQLPreparedStatement statement = new OSQLPreparedStatement("select from Account where name = ?");
+
+    Assert.assertEquals(query(statement, "account1").size(), 20);
+    Assert.assertEquals(query(statement, "account2").size(), 20);
+    Assert.assertEquals(statement.getPlanHits(), 1);
+
+    final OClass account = db.getMetadata().getSchema().getClass("Account");
+    final int schemaVersion = db.getMetadata().getSchema().getVersion();
+    db.getMetadata().getIndexManager().createIndex("Account.nameHash", OClass.INDEX_TYPE.NOTUNIQUE_HASH_INDEX.toString(),
+        new OPropertyIndexDefinition("Account", "name", OType.STRING), account.getPolymorphicClusterIds(), null, null);
+    Assert.assertEquals(db.getMetadata().getSchema().getVersion(), schemaVersion);
+
+    Assert.assertEquals(query(statement, "account3").size(), 20);
+    Assert.assertEquals(statement.getPlanHits(), 1);
+    Assert.assertEquals(query(statement, "account4").size(), 20);
+    Assert.assertEquals(statement.getPlanHits(), 2);
+  }
+
+  private List<ODocument> query(OSQLPreparedStatement statement, Object... args) {
+    return db.query(new OSQLPreparedQuery<ODocument>(statement), args);
+  }
+
+  private List<ODocument> query(OSQLPreparedStatement statement, Map<Object, Object> params) {
+    return db.command(new OSQLPreparedQuery<ODocument>(statement)).execute(params);
+  }
+}
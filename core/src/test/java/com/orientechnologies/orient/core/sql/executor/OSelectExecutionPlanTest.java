@@ -0,0 +1,195 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OBasicCommandContext;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.parser.OSelectStatement;
+import com.orientechnologies.orient.core.sql.parser.OStatementCache;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+@Test
+public class OSelectExecutionPlanTest {
+  private static final int RECORDS_COUNT = 500;
+  private static final int GROUPS_COUNT  = 10;
+
+  private ODatabaseDocumentTx db;
+
+  @BeforeMethod
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + OSelectExecutionPlanTest.class.getSimpleName());
+    db.create();
+
+    final OClass account = db.getMetadata().getSchema().createClass("Account");
+    account.createProperty("number", OType.INTEGER).createIndex(OClass.INDEX_TYPE.NOTUNIQUE);
+    db.getMetadata().getSchema().createClass("Company");
+
+    for (int i = 0; i < RECORDS_COUNT; i++) {
+      db.save(new ODocument("Account").field("name", "account" + i).field("number", i).field("group", i % GROUPS_COUNT)
+          .field("score", i % 7));
+    }
+  }
+
+  @AfterMethod
+  public void after() {
+    db.drop();
+  }
+
+  public void testFetchFromClassWithFilter() {
+    final OSelectExecutionPlan plan = plan("select from Account where score = 3");
+    Assert.assertEquals(stepNames(plan), new String[] { "FETCH FROM CLASS", "FILTER" });
+
+    final List<OIdentifiable> result = execute(plan);
+    Assert.assertEquals(result.size(), 71);
+    for (OIdentifiable record : result)
+      Assert.assertEquals(((ODocument) record.getRecord()).<Object>field("score"), 3);
+
+    Assert.assertEquals(plan.getSteps().get(0).getRows(), RECORDS_COUNT);
+  }
+
+  public void testFetchFromIndex() {
+    final OSelectExecutionPlan plan = plan("select from Account where number = 42 or number = 43");
+    Assert.assertEquals(stepNames(plan), new String[] { "FETCH FROM INDEX", "FILTER" });
+
+    final List<OIdentifiable> result = execute(plan);
+    Assert.assertEquals(result.size(), 2);
+    Assert.assertEquals(plan.getSteps().get(0).getRows(), 2);
+  }
+
+  public void testLimitStopsFetch() {
+    final OSelectExecutionPlan plan = plan("select from Account where score = 0 limit 3");
+    Assert.assertEquals(stepNames(plan), new String[] { "FETCH FROM CLASS", "FILTER", "LIMIT" });
+
+    Assert.assertEquals(execute(plan).size(), 3);
+    // RECORDS ARE FETCHED ONLY TILL THE THIRD MATCHING ONE
+    Assert.assertEquals(plan.getSteps().get(0).getRows(), 15);
+  }
+
+  public void testProjectionOrderSkipLimit() {
+    final OSelectExecutionPlan plan = plan("select name, number * 2 as double from Account order by number desc skip 2 limit 3");
+    Assert.assertEquals(stepNames(plan), new String[] { "FETCH FROM CLASS", "ORDER BY", "SKIP", "LIMIT", "PROJECTION" });
+
+    final List<OIdentifiable> result = execute(plan);
+    Assert.assertEquals(result.size(), 3);
+    for (int i = 0; i < 3; i++) {
+      final ODocument document = (ODocument) result.get(i);
+      Assert.assertEquals(document.field("name"), "account" + (RECORDS_COUNT - 3 - i));
+      Assert.assertEquals(((Number) document.field("double")).intValue(), 2 * (RECORDS_COUNT - 3 - i));
+      Assert.assertNull(document.field("number"));
+    }
+  }
+
+  public void testOrderByProjection() {
+    final OSelectExecutionPlan plan = plan("select number * 2 as double from Account where number < 5 order by double desc");
+    Assert.assertEquals(stepNames(plan), new String[] { "FETCH FROM CLASS", "FILTER", "PROJECTION", "ORDER BY" });
+
+    final List<OIdentifiable> result = execute(plan);
+    Assert.assertEquals(result.size(), 5);
+    Assert.assertEquals(((Number) ((ODocument) result.get(0)).field("double")).intValue(), 8);
+    Assert.assertEquals(((Number) ((ODocument) result.get(4)).field("double")).intValue(), 0);
+  }
+
+  public void testGroupBy() {
+    final OSelectExecutionPlan plan = plan("select group, count(*) as total, max(number) as top from Account group by group");
+    Assert.assertEquals(stepNames(plan), new String[] { "FETCH FROM CLASS", "AGGREGATE" });
+
+    final List<OIdentifiable> result = execute(plan);
+    Assert.assertEquals(result.size(), GROUPS_COUNT);
+    for (OIdentifiable record : result) {
+      final ODocument document = (ODocument) record;
+      final int group = document.<Integer>field("group");
+      Assert.assertEquals(((Number) document.field("total")).intValue(), RECORDS_COUNT / GROUPS_COUNT);
+      Assert.assertEquals(document.<Object>field("top"), RECORDS_COUNT - GROUPS_COUNT + group);
+    }
+  }
+
+  public void testAggregateWithoutRecords() {
+    final List<OIdentifiable> result = execute(plan("select count(*) as total from Account where number < 0"));
+    Assert.assertEquals(result.size(), 1);
+    Assert.assertEquals(((ODocument) result.get(0)).<Object>field("total"), 0L);
+
+    Assert.assertEquals(execute(plan("select from Company")).size(), 0);
+  }
+
+  public void testLimitInputParameter() {
+    final OBasicCommandContext ctx = new OBasicCommandContext();
+    final Map<Object, Object> params = new HashMap<Object, Object>();
+    params.put(0, 4);
+    ctx.setInputParameters(params);
+
+    final OSelectStatement statement = (OSelectStatement) OStatementCache.get("select from Account limit ?", db);
+    Assert.assertEquals(execute(statement.createExecutionPlan(ctx)).size(), 4);
+  }
+
+  public void testPlanCache() {
+    final OSelectExecutionPlan first = plan("select from Account where number = 1");
+    final OSelectExecutionPlan second = plan("select from Account where number = 1");
+
+    Assert.assertFalse(first == second);
+    Assert.assertFalse(first.getSteps().get(0) == second.getSteps().get(0));
+    Assert.assertEquals(execute(first).size(), 1);
+    Assert.assertEquals(execute(second).size(), 1);
+    Assert.assertEquals(second.getSteps().get(0).getRows(), 1);
+
+    final OExecutionPlanCache cache = db.getStorage().getResource(OExecutionPlanCache.class.getSimpleName(), null);
+    Assert.assertTrue(cache.contains("SELECT FROM Account WHERE number = 1"));
+  }
+
+  public void testStatementExecute() {
+    final OSelectStatement statement = (OSelectStatement) OStatementCache.get("select name from Account where number < 10", db);
+    final OSQLSynchQuery<ODocument> request = new OSQLSynchQuery<ODocument>("select name from Account where number < 10");
+
+    final List<ODocument> result = (List<ODocument>) statement.execute(request, new OBasicCommandContext(), null);
+    Assert.assertEquals(result.size(), 10);
+  }
+
+  public void testExplain() {
+    final ODocument explain = (ODocument) OStatementCache.get("explain select from Account where score = 1 limit 5", db).execute(
+        new OSQLSynchQuery<ODocument>("explain select from Account where score = 1 limit 5"), new OBasicCommandContext(), null);
+
+    final String executionPlan = explain.field("executionPlan");
+    Assert.assertTrue(executionPlan.contains("+ FETCH FROM CLASS Account (rows: "));
+    Assert.assertTrue(executionPlan.contains("+ LIMIT 5 (rows: 5, time: "));
+
+    final List<ODocument> steps = explain.field("steps");
+    Assert.assertEquals(steps.size(), 3);
+    Assert.assertEquals(steps.get(1).field("name"), "FILTER");
+    Assert.assertEquals(steps.get(1).<Object>field("rows"), 5L);
+  }
+
+  private OSelectExecutionPlan plan(String sql) {
+    return ((OSelectStatement) OStatementCache.get(sql, db)).createExecutionPlan(new OBasicCommandContext());
+  }
+
+  private static List<OIdentifiable> execute(OSelectExecutionPlan plan) {
+    final List<OIdentifiable> result = new ArrayList<OIdentifiable>();
+    try {
+      for (Iterator<OIdentifiable> iterator = plan.iterator(); iterator.hasNext(); )
+        result.add(iterator.next());
+    } finally {
+      plan.close();
+    }
+
+    return result;
+  }
+
+  private static String[] stepNames(OSelectExecutionPlan plan) {
+    final String[] names = new String[plan.getSteps().size()];
+    for (int i = 0; i < names.length; i++)
+      names[i] = plan.getSteps().get(i).getName();
+
+    return names;
+  }
+}
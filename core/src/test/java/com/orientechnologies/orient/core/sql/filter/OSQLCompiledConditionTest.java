@@ -0,0 +1,99 @@
+package com.orientechnologies.orient.core.sql.filter;
+
+import com.orientechnologies.orient.core.collate.OCaseInsensitiveCollate;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OSQLEngine;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Test
+public class OSQLCompiledConditionTest {
+  private static final Object[] VALUES = { 1, 5, 7, -3, 5L, 3000000000L, 5.0, 5.5, -0.0, 7.25f, "5", "a", "b", "B", null,
+      (short) 5 };
+
+  private ODatabaseDocumentTx db;
+
+  @BeforeMethod
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:" + OSQLCompiledConditionTest.class.getSimpleName());
+    db.create();
+
+    final OClass item = db.getMetadata().getSchema().createClass("Item");
+    item.createProperty("name", OType.STRING).setCollate(OCaseInsensitiveCollate.NAME);
+
+    for (int i = 0; i < VALUES.length; i++) {
+      final ODocument document = new ODocument("Item").field("name", i % 2 == 0 ? "abc" : "ABC").field("number", i);
+      if (VALUES[i] != null)
+        document.field("value", VALUES[i]);
+      db.save(document);
+    }
+    db.save(new ODocument().field("value", 5).field("name", "abc"));
+  }
+
+  @AfterMethod
+  public void after() {
+    db.drop();
+  }
+
+  public void testSameResultsAsInterpreted() {
+    final String[] conditions = { "value = 5", "value <> 5", "value != 5", "value > 5", "value >= 5", "value < 5", "value <= 5",
+        "value = 5.5", "value > 4.9", "value < 0.0", "value = 0", "value = 3000000000", "value > 3000000000", "value < 'b'",
+        "value = 'B'", "value >= 'a'", "name = 'abc'", "name > 'AB'", "number < 10 and value > 1", "number > 5 or value = 'a'",
+        "(value > 0 and value < 7) or name = 'ABC'", "value = 5 and (number = 1 or number = 4)", "value = 5 and name = 'ABC'",
+        "value is null or value = 1", "not (value = 5)", "value > 5 and value like '%'", "value in [1, 5]" };
+
+    for (String condition : conditions) {
+      final String sql = "select from Item where " + condition;
+      Assert.assertEquals(query(sql, true), query(sql, false), sql);
+      Assert.assertEquals(query(sql.replace("from Item", "from cluster:default"), true),
+          query(sql.replace("from Item", "from cluster:default"), false), sql);
+    }
+
+    Assert.assertEquals(query("select from Item where value = 5", true).size(), 5);
+    Assert.assertEquals(query("select from Item where name = 'abc'", true).size(), VALUES.length);
+  }
+
+  public void testChangedCondition() {
+    final OSQLFilter filter = OSQLEngine.getInstance().parseCondition("value = 3 and number > 1", null, "WHERE");
+    final ODocument document = new ODocument().field("value", 3).field("number", 2);
+
+    Assert.assertEquals(filter.evaluate(document, null, null), Boolean.TRUE);
+
+    // THE OPTIMIZER CHANGES CONDITIONS IN PLACE
+    ((OSQLFilterCondition) filter.getRootCondition().getLeft()).setRight(4);
+    Assert.assertEquals(filter.evaluate(document, null, null), Boolean.FALSE);
+
+    filter.getRootCondition().setLeft(filter.getRootCondition().getRight());
+    Assert.assertEquals(filter.evaluate(document, null, null), Boolean.TRUE);
+
+    document.removeField("number");
+    Assert.assertEquals(filter.evaluate(document, null, null), Boolean.FALSE);
+  }
+
+  private Set<Object> query(String sql, boolean compiled) {
+    final boolean compileFilters = OGlobalConfiguration.QUERY_COMPILE_FILTERS.getValueAsBoolean();
+    OGlobalConfiguration.QUERY_COMPILE_FILTERS.setValue(compiled);
+    try {
+      final List<OIdentifiable> result = db.query(new OSQLSynchQuery<OIdentifiable>(sql));
+
+      final Set<Object> rids = new HashSet<Object>();
+      for (OIdentifiable record : result)
+        rids.add(record.getIdentity());
+      return rids;
+    } finally {
+      OGlobalConfiguration.QUERY_COMPILE_FILTERS.setValue(compileFilters);
+    }
+  }
+}
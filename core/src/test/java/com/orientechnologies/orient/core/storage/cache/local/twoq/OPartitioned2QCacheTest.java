@@ -0,0 +1,194 @@
+package com.orientechnologies.orient.core.storage.cache.local.twoq;
+
+import com.orientechnologies.common.collection.closabledictionary.OClosableLinkedContainer;
+import com.orientechnologies.common.directmemory.OByteBufferPool;
+import com.orientechnologies.common.serialization.types.OIntegerSerializer;
+import com.orientechnologies.common.serialization.types.OLongSerializer;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.cache.local.OWOWCache;
+import com.orientechnologies.orient.core.storage.fs.OFileClassic;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.OLocalPaginatedStorage;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Test
+public class OPartitioned2QCacheTest {
+  private static final int systemOffset     = OIntegerSerializer.INT_SIZE + 3 * OLongSerializer.LONG_SIZE;
+  private static final int PAGE_SIZE        = 8 + systemOffset;
+  private static final int CACHE_PAGES      = 256;
+  private static final int WRITE_CACHE_SIZE = 15000 * PAGE_SIZE;
+
+  private OPartitioned2QCache readBuffer;
+  private OWOWCache           writeBuffer;
+  private final OClosableLinkedContainer<Long, OFileClassic> files = new OClosableLinkedContainer<Long, OFileClassic>(1024);
+
+  private OLocalPaginatedStorage storageLocal;
+  private final String fileName = "partitioned2QCacheTest.tst";
+
+  @BeforeClass
+  public void beforeClass() throws IOException {
+    OGlobalConfiguration.FILE_LOCK.setValue(Boolean.FALSE);
+
+    String buildDirectory = System.getProperty("buildDirectory");
+    if (buildDirectory == null)
+      buildDirectory = ".";
+
+    storageLocal = (OLocalPaginatedStorage) Orient.instance().loadStorage("plocal:" + buildDirectory + "/OPartitioned2QCacheTest");
+    storageLocal.create(null);
+    storageLocal.close(true, false);
+  }
+
+  @BeforeMethod
+  public void beforeMethod() throws IOException {
+    writeBuffer = new OWOWCache(false, PAGE_SIZE, new OByteBufferPool(PAGE_SIZE), -1, null, -1, WRITE_CACHE_SIZE,
+        WRITE_CACHE_SIZE + CACHE_PAGES * PAGE_SIZE, storageLocal, false, files, 1);
+    writeBuffer.loadRegisteredFiles();
+
+    readBuffer = new OPartitioned2QCache(CACHE_PAGES * PAGE_SIZE, PAGE_SIZE, false, 20, 4);
+  }
+
+  @AfterMethod
+  public void afterMethod() throws IOException {
+    readBuffer.deleteStorage(writeBuffer);
+    readBuffer.clear();
+    files.clear();
+  }
+
+  @AfterClass
+  public void afterClass() throws IOException {
+    storageLocal.delete();
+  }
+
+  public void testPartitionsCountIsDecreasedForSmallCache() {
+    Assert.assertEquals(readBuffer.getPartitionsCount(), 4);
+
+    final OPartitioned2QCache smallCache = new OPartitioned2QCache(CACHE_PAGES * PAGE_SIZE, PAGE_SIZE, false, 20, 64);
+    Assert.assertEquals(smallCache.getPartitionsCount(), 4);
+
+    final OPartitioned2QCache tinyCache = new OPartitioned2QCache(4 * PAGE_SIZE, PAGE_SIZE, false, 20, 64);
+    Assert.assertEquals(tinyCache.getPartitionsCount(), 1);
+  }
+
+  public void testDataIsPreservedAfterEviction() throws IOException {
+    final long fileId = readBuffer.addFile(fileName, writeBuffer);
+    final int pages = 4 * CACHE_PAGES;
+
+    for (int i = 0; i < pages; i++) {
+      final OCacheEntry cacheEntry = readBuffer.allocateNewPage(fileId, writeBuffer);
+      Assert.assertEquals(cacheEntry.getPageIndex(), i);
+
+      cacheEntry.acquireExclusiveLock();
+      try {
+        final ByteBuffer buffer = cacheEntry.getCachePointer().getSharedBuffer();
+        buffer.position(systemOffset);
+        buffer.putLong(i);
+        cacheEntry.markDirty();
+      } finally {
+        cacheEntry.releaseExclusiveLock();
+      }
+
+      readBuffer.release(cacheEntry, writeBuffer);
+    }
+
+    Assert.assertTrue(readBuffer.getUsedMemory() <= (long) readBuffer.getMaxSize() * PAGE_SIZE);
+    Assert.assertTrue(readBuffer.getA1OutSize() > 0);
+
+    // pages are read in reverse order, so most recently evicted ones are found in a1out queue and promoted to am queue
+    for (int i = pages - 1; i >= 0; i--) {
+      final OCacheEntry cacheEntry = readBuffer.load(fileId, i, false, writeBuffer, 1);
+      cacheEntry.acquireSharedLock();
+      try {
+        final ByteBuffer buffer = cacheEntry.getCachePointer().getSharedBuffer();
+        buffer.position(systemOffset);
+        Assert.assertEquals(buffer.getLong(), i);
+      } finally {
+        cacheEntry.releaseSharedLock();
+      }
+
+      readBuffer.release(cacheEntry, writeBuffer);
+    }
+
+    Assert.assertTrue(readBuffer.getAmSize() > 0);
+    Assert.assertTrue(readBuffer.getUsedMemory() <= (long) readBuffer.getMaxSize() * PAGE_SIZE);
+  }
+
+  public void testConcurrentLoadAndRelease() throws Exception {
+    final long fileId = readBuffer.addFile(fileName, writeBuffer);
+    final int pages = 2 * CACHE_PAGES;
+
+    for (int i = 0; i < pages; i++) {
+      final OCacheEntry cacheEntry = readBuffer.allocateNewPage(fileId, writeBuffer);
+      cacheEntry.markDirty();
+      readBuffer.release(cacheEntry, writeBuffer);
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+    for (int n = 0; n < 8; n++) {
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          final Random random = new Random();
+          for (int i = 0; i < 10000; i++) {
+            final long pageIndex = random.nextInt(pages);
+            final OCacheEntry cacheEntry = readBuffer.load(fileId, pageIndex, false, writeBuffer, 1);
+            Assert.assertEquals(cacheEntry.getPageIndex(), pageIndex);
+            Assert.assertNotNull(cacheEntry.getCachePointer());
+            readBuffer.release(cacheEntry, writeBuffer);
+          }
+
+          return null;
+        }
+      }));
+    }
+
+    for (Future<Void> future : futures)
+      future.get();
+
+    executor.shutdown();
+
+    Assert.assertTrue(readBuffer.getUsedMemory() <= (long) readBuffer.getMaxSize() * PAGE_SIZE + 8 * PAGE_SIZE);
+  }
+
+  public void testStateIsRestoredAfterClose() throws IOException {
+    final long fileId = readBuffer.addFile(fileName, writeBuffer);
+
+    for (int i = 0; i < CACHE_PAGES / 2; i++) {
+      final OCacheEntry cacheEntry = readBuffer.allocateNewPage(fileId, writeBuffer);
+      cacheEntry.markDirty();
+      readBuffer.release(cacheEntry, writeBuffer);
+    }
+
+    final int a1inSize = readBuffer.getA1InSize();
+    readBuffer.storeCacheState(writeBuffer);
+    readBuffer.closeStorage(writeBuffer);
+
+    Assert.assertTrue(new File(storageLocal.getConfiguration().getDirectory(), O2QCache.CACHE_STATE_FILE).exists());
+
+    writeBuffer = new OWOWCache(false, PAGE_SIZE, new OByteBufferPool(PAGE_SIZE), -1, null, -1, WRITE_CACHE_SIZE,
+        WRITE_CACHE_SIZE + CACHE_PAGES * PAGE_SIZE, storageLocal, false, files, 1);
+    writeBuffer.loadRegisteredFiles();
+
+    readBuffer = new OPartitioned2QCache(CACHE_PAGES * PAGE_SIZE, PAGE_SIZE, false, 20, 4);
+    readBuffer.loadCacheState(writeBuffer);
+
+    Assert.assertEquals(readBuffer.getA1InSize(), a1inSize);
+  }
+}
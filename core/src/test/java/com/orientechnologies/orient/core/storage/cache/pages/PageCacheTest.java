@@ -289,6 +289,11 @@ public class PageCacheTest {
       return 0;
     }
 
+    @Override
+    public void changeMaximumAmountOfMemory(long readCacheMaxMemory) throws IllegalStateException {
+
+    }
+
     @Override
     public void clear() {
 
@@ -0,0 +1,133 @@
+package com.orientechnologies.orient.core.storage.fs;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+@Test
+public class OFileMMapTest {
+  private static final int PAGE_SIZE  = 1024;
+  private static final int CHUNK_SIZE = 4 * PAGE_SIZE;
+
+  private OFileMMap file;
+
+  @BeforeMethod
+  public void beforeMethod() throws IOException {
+    String buildDirectory = System.getProperty("buildDirectory");
+    if (buildDirectory == null)
+      buildDirectory = ".";
+
+    final File path = new File(buildDirectory, "OFileMMapTest.tst");
+    if (path.exists())
+      Assert.assertTrue(path.delete());
+
+    file = new OFileMMap(path.getAbsolutePath(), "rw", CHUNK_SIZE);
+    file.create();
+  }
+
+  @AfterMethod
+  public void afterMethod() throws IOException {
+    file.delete();
+  }
+
+  public void testReadsAreServedFromMappedChunks() throws IOException {
+    final int pages = 10;
+    file.allocateSpace(pages * PAGE_SIZE);
+
+    for (int i = 0; i < pages; i++)
+      file.write(i * PAGE_SIZE, page(i));
+
+    for (int i = 0; i < pages; i++) {
+      final ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+      file.read(i * PAGE_SIZE, buffer);
+      assertPage(buffer, i);
+    }
+
+    // last two pages do not fill whole chunk, so only two chunks may be mapped
+    Assert.assertEquals(file.getMappedChunksCount(), 2);
+  }
+
+  public void testWritesAreVisibleInMappedChunks() throws IOException {
+    file.allocateSpace(CHUNK_SIZE);
+    file.write(0, page(1));
+
+    final ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+    file.read(0, buffer);
+    assertPage(buffer, 1);
+    Assert.assertEquals(file.getMappedChunksCount(), 1);
+
+    file.write(0, page(2));
+
+    buffer.clear();
+    file.read(0, buffer);
+    assertPage(buffer, 2);
+
+    final byte[] data = new byte[PAGE_SIZE];
+    file.read(0, data, PAGE_SIZE, 0);
+    assertPage(ByteBuffer.wrap(data), 2);
+  }
+
+  public void testVectoredRead() throws IOException {
+    file.allocateSpace(2 * CHUNK_SIZE);
+
+    final int pages = 2 * CHUNK_SIZE / PAGE_SIZE;
+    for (int i = 0; i < pages; i++)
+      file.write(i * PAGE_SIZE, page(i));
+
+    // first request fits into single chunk, second one crosses chunk boundary and is served by file channel
+    for (int startPage : new int[] { 0, CHUNK_SIZE / PAGE_SIZE - 1 }) {
+      final ByteBuffer[] buffers = new ByteBuffer[] { ByteBuffer.allocate(PAGE_SIZE), ByteBuffer.allocate(PAGE_SIZE) };
+      file.read(startPage * PAGE_SIZE, buffers);
+
+      assertPage(buffers[0], startPage);
+      assertPage(buffers[1], startPage + 1);
+    }
+  }
+
+  public void testShrinkUnmapsTail() throws IOException {
+    file.allocateSpace(3 * CHUNK_SIZE);
+
+    for (int i = 0; i < 3; i++) {
+      file.write(i * CHUNK_SIZE, page(i));
+      file.read(i * CHUNK_SIZE, ByteBuffer.allocate(PAGE_SIZE));
+    }
+
+    Assert.assertEquals(file.getMappedChunksCount(), 3);
+
+    file.shrink(CHUNK_SIZE + PAGE_SIZE);
+    Assert.assertEquals(file.getMappedChunksCount(), 1);
+    Assert.assertEquals(file.getFileSize(), CHUNK_SIZE + PAGE_SIZE);
+
+    final ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+    file.read(CHUNK_SIZE, buffer);
+    assertPage(buffer, 1);
+
+    file.close();
+    Assert.assertEquals(file.getMappedChunksCount(), 0);
+
+    file.open();
+    buffer.clear();
+    file.read(0, buffer);
+    assertPage(buffer, 0);
+  }
+
+  private static ByteBuffer page(int value) {
+    final ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+    while (buffer.remaining() > 0)
+      buffer.putInt(value);
+
+    buffer.flip();
+    return buffer;
+  }
+
+  private static void assertPage(ByteBuffer buffer, int value) {
+    buffer.position(0);
+    while (buffer.remaining() > 0)
+      Assert.assertEquals(buffer.getInt(), value);
+  }
+}
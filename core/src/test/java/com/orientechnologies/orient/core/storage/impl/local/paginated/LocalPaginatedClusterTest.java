@@ -1,7 +1,9 @@
 package com.orientechnologies.orient.core.storage.impl.local.paginated;
 
+import com.orientechnologies.orient.core.compression.impl.OLZ4Compression;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.exception.OPaginatedClusterException;
+import com.orientechnologies.orient.core.storage.OCluster;
 import com.orientechnologies.orient.core.storage.OPhysicalPosition;
 import com.orientechnologies.orient.core.storage.ORawBuffer;
 import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
@@ -1190,4 +1192,102 @@ public class LocalPaginatedClusterTest {
     }
   }
 
+  public void testReadRecords() throws IOException {
+    final Random random = new Random(42);
+    final Map<Long, byte[]> records = new HashMap<Long, byte[]>();
+
+    for (int i = 0; i < 2000; i++) {
+      // SOME OF THEM ARE SPREAD ON MORE PAGES
+      final byte[] record = new byte[i % 100 == 0 ? 2 * 65536 + 100 : random.nextInt(200) + 1];
+      random.nextBytes(record);
+      records.put(paginatedCluster.createRecord(record, 1, (byte) 1, null).clusterPosition, record);
+    }
+
+    for (long position = 0; position < 2000; position += 3) {
+      if (position % 2 == 0) {
+        paginatedCluster.deleteRecord(position);
+        records.remove(position);
+      } else {
+        // MOVE THE RECORD TO ANOTHER PAGE
+        final byte[] record = new byte[random.nextInt(2000) + 500];
+        random.nextBytes(record);
+        paginatedCluster.updateRecord(position, record, 2, (byte) 1);
+        records.put(position, record);
+      }
+    }
+
+    final long[] positions = new long[2100];
+    for (int i = 0; i < positions.length; i++)
+      positions[i] = i;
+
+    final ORawBuffer[] buffers = paginatedCluster.readRecords(positions);
+    Assert.assertEquals(buffers.length, positions.length);
+
+    for (int i = 0; i < positions.length; i++) {
+      final byte[] expected = records.get(positions[i]);
+      if (expected == null)
+        Assert.assertNull(buffers[i]);
+      else {
+        Assert.assertEquals(buffers[i].buffer, expected);
+        Assert.assertEquals(buffers[i].version, paginatedCluster.readRecord(positions[i], false).version);
+      }
+    }
+
+    Assert.assertEquals(paginatedCluster.readRecords(new long[] { 5, 5, 3000 })[1].buffer, records.get(5L));
+  }
+
+  public void testCompressionDictionary() throws IOException {
+    OAbstractPaginatedStorage storage = (OAbstractPaginatedStorage) databaseDocumentTx.getStorage();
+
+    OPaginatedCluster compressedCluster = new OPaginatedCluster("compressedClusterTest", storage);
+    compressedCluster.configure(storage, 6, "compressedClusterTest", buildDirectory, -1);
+    compressedCluster.create(-1);
+    try {
+      compressedCluster.set(OCluster.ATTRIBUTES.COMPRESSION, OLZ4Compression.NAME);
+
+      Random random = new Random();
+      Map<Long, byte[]> records = new HashMap<Long, byte[]>();
+
+      for (int i = 0; i < 1000; i++) {
+        byte[] record = ("{\"name\":\"name" + random.nextInt(1000) + "\",\"city\":\"London\",\"age\":" + random.nextInt(100)
+            + ",\"notes\":\"This is just a note\"}").getBytes();
+        records.put(compressedCluster.createRecord(record, 1, (byte) 1, null).clusterPosition, record);
+      }
+
+      long recordsSize = compressedCluster.getRecordsSize();
+      compressedCluster.set(OCluster.ATTRIBUTES.COMPRESSION_DICTIONARY, 1024);
+
+      for (int i = 0; i < 1000; i++) {
+        byte[] record = ("{\"name\":\"name" + random.nextInt(1000) + "\",\"city\":\"London\",\"age\":" + random.nextInt(100)
+            + ",\"notes\":\"This is just a note\"}").getBytes();
+        records.put(compressedCluster.createRecord(record, 1, (byte) 1, null).clusterPosition, record);
+      }
+
+      // records which are compressed with dictionary are smaller
+      Assert.assertTrue(compressedCluster.getRecordsSize() - recordsSize < recordsSize);
+
+      try {
+        compressedCluster.set(OCluster.ATTRIBUTES.COMPRESSION_DICTIONARY, 1024);
+        Assert.fail();
+      } catch (OPaginatedClusterException e) {
+        Assert.assertTrue(true);
+      }
+
+      compressedCluster.close();
+
+      compressedCluster = new OPaginatedCluster("compressedClusterTest", storage);
+      compressedCluster.configure(storage, storage.getConfiguration().clusters.get(6));
+      compressedCluster.open();
+
+      for (Map.Entry<Long, byte[]> entry : records.entrySet()) {
+        ORawBuffer rawBuffer = compressedCluster.readRecord(entry.getKey(), false);
+        Assert.assertNotNull(rawBuffer);
+        Assert.assertEquals(rawBuffer.buffer, entry.getValue());
+      }
+    } finally {
+      compressedCluster.delete();
+    }
+
+    Assert.assertNull(storage.getConfiguration().getProperty(OPaginatedCluster.COMPRESSION_DICTIONARY_PROPERTY + 6));
+  }
 }
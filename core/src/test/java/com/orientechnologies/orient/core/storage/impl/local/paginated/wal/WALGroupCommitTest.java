@@ -0,0 +1,152 @@
+package com.orientechnologies.orient.core.storage.impl.local.paginated.wal;
+
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.OLocalPaginatedStorage;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.atomicoperations.OAtomicOperationMetadata;
+import com.orientechnologies.orient.core.storage.impl.local.statistic.OSessionStoragePerformanceStatistic;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Test
+public class WALGroupCommitTest {
+  private OLocalPaginatedStorage storage;
+  private File                   walDirectory;
+  private ODiskWriteAheadLog     writeAheadLog;
+  private boolean                groupCommit;
+
+  @BeforeClass
+  public void beforeClass() throws Exception {
+    OGlobalConfiguration.FILE_LOCK.setValue(Boolean.FALSE);
+
+    groupCommit = OGlobalConfiguration.WAL_GROUP_COMMIT.getValueAsBoolean();
+    OGlobalConfiguration.WAL_GROUP_COMMIT.setValue(true);
+
+    String buildDirectory = System.getProperty("buildDirectory");
+    if (buildDirectory == null || buildDirectory.isEmpty())
+      buildDirectory = ".";
+
+    storage = (OLocalPaginatedStorage) Orient.instance().loadStorage("plocal:" + buildDirectory + "/WALGroupCommitTest");
+    storage.create(null);
+    storage.close(true, false);
+
+    walDirectory = new File(buildDirectory, "WALGroupCommitTestWAL");
+  }
+
+  @BeforeMethod
+  public void beforeMethod() throws Exception {
+    OFileUtils.deleteRecursively(walDirectory);
+    Assert.assertTrue(walDirectory.mkdirs());
+
+    // commit delay is big enough to be sure that records are forced by group commit and not by background flush
+    writeAheadLog = new ODiskWriteAheadLog(200, 60000, OWALPage.PAGE_SIZE * 800, walDirectory.getAbsolutePath(), true, storage,
+        10);
+  }
+
+  @AfterMethod
+  public void afterMethod() throws Exception {
+    writeAheadLog.delete();
+  }
+
+  @AfterClass
+  public void afterClass() throws Exception {
+    OGlobalConfiguration.WAL_GROUP_COMMIT.setValue(groupCommit);
+
+    OFileUtils.deleteRecursively(walDirectory);
+    storage.delete();
+  }
+
+  public void testCommittedRecordIsFlushed() throws Exception {
+    storage.getPerformanceStatisticManager().startThreadMonitoring();
+
+    for (int i = 0; i < 10; i++) {
+      final OLogSequenceNumber lsn = commit();
+      Assert.assertTrue(writeAheadLog.getFlushedLsn().compareTo(lsn) >= 0);
+    }
+
+    final OSessionStoragePerformanceStatistic statistic = storage.getPerformanceStatisticManager().stopThreadMonitoring();
+    final ODocument walData = statistic.toDocument().field("walData");
+
+    // there are no concurrent committers so every commit forces its own record
+    Assert.assertEquals(walData.<Long>field("groupCommitBatchSize").longValue(), 1);
+    Assert.assertTrue(walData.<Long>field("groupCommitSyncTime") >= 0);
+  }
+
+  public void testConcurrentCommitsAreFlushed() throws Exception {
+    final int threads = 8;
+    final int commits = 200;
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    final CountDownLatch latch = new CountDownLatch(1);
+    final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+
+    for (int n = 0; n < threads; n++) {
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          latch.await();
+
+          for (int i = 0; i < commits; i++) {
+            final OLogSequenceNumber lsn = commit();
+            Assert.assertTrue(writeAheadLog.getFlushedLsn().compareTo(lsn) >= 0);
+          }
+
+          return null;
+        }
+      }));
+    }
+
+    latch.countDown();
+
+    for (Future<Void> future : futures)
+      future.get();
+
+    executor.shutdown();
+
+    OLogSequenceNumber lsn = writeAheadLog.begin();
+    int endRecords = 0;
+    while (lsn != null) {
+      if (writeAheadLog.read(lsn) instanceof OAtomicUnitEndRecord)
+        endRecords++;
+
+      lsn = writeAheadLog.next(lsn);
+    }
+
+    Assert.assertEquals(endRecords, threads * commits);
+  }
+
+  public void testRolledBackOperationIsNotWaitingForFsync() throws Exception {
+    final OOperationUnitId unitId = OOperationUnitId.generateId();
+    final OLogSequenceNumber startLsn = writeAheadLog.logAtomicOperationStartRecord(true, unitId);
+    final OLogSequenceNumber endLsn = writeAheadLog
+        .logAtomicOperationEndRecord(unitId, true, startLsn, Collections.<String, OAtomicOperationMetadata<?>>emptyMap());
+
+    final OLogSequenceNumber flushedLsn = writeAheadLog.getFlushedLsn();
+    Assert.assertTrue(flushedLsn == null || flushedLsn.compareTo(endLsn) < 0);
+  }
+
+  private OLogSequenceNumber commit() throws Exception {
+    final OOperationUnitId unitId = OOperationUnitId.generateId();
+    final OLogSequenceNumber startLsn = writeAheadLog.logAtomicOperationStartRecord(true, unitId);
+    final Map<String, OAtomicOperationMetadata<?>> metadata = Collections.emptyMap();
+
+    return writeAheadLog.logAtomicOperationEndRecord(unitId, false, startLsn, metadata);
+  }
+}
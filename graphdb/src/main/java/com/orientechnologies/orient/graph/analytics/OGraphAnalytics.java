@@ -0,0 +1,341 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.graph.analytics;
+
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Whole graph algorithms on a {@link OGraphSnapshot}. Every iteration splits the vertices in ranges which are computed by the
+ * current thread together with up to <code>parallelDegree - 1</code> tasks of the OrientDB worker pool, so an algorithm never
+ * waits for a pool thread to become free. The results are arrays indexed by the vertex number of the snapshot. Vertex values are
+ * only read from the previous iteration and written to the next one, so the results do not depend on the parallel degree.
+ *
+ * @see OGraphSnapshotStore
+ */
+public class OGraphAnalytics {
+  private static final int RANGE_SIZE = 1024;
+
+  private final OGraphSnapshot snapshot;
+  private final int            parallelDegree;
+  private int                  iterations;
+
+  public OGraphAnalytics(final OGraphSnapshot snapshot, final int parallelDegree) {
+    this.snapshot = snapshot;
+    this.parallelDegree = Math.max(1, parallelDegree);
+  }
+
+  /**
+   * @return the number of iterations executed by the last algorithm
+   */
+  public int getIterations() {
+    return iterations;
+  }
+
+  /**
+   * Computes the PageRank of every vertex following the direction of the edges. The rank of the vertices without outgoing edges
+   * is spread over all the vertices, so the ranks always sum up to 1.
+   *
+   * @param damping
+   *          probability to follow an edge instead of jumping to a random vertex, usually 0.85
+   * @param maxIterations
+   *          maximum number of iterations
+   * @param tolerance
+   *          the computation stops as soon as the sum of the rank changes of an iteration is below this value
+   */
+  public double[] pageRank(final double damping, final int maxIterations, final double tolerance) {
+    final int vertexCount = snapshot.getVertexCount();
+    final int[] outOffsets = snapshot.getOutOffsets();
+    final int[] inOffsets = snapshot.getInOffsets();
+    final int[] inSources = snapshot.getInSources();
+
+    iterations = 0;
+    if (vertexCount == 0)
+      return new double[0];
+
+    final double[][] ranks = { new double[vertexCount], new double[vertexCount] };
+    final double[] contributions = new double[vertexCount];
+    Arrays.fill(ranks[0], 1.0 / vertexCount);
+
+    while (iterations < maxIterations) {
+      final double[] rank = ranks[iterations & 1];
+      final double[] nextRank = ranks[(iterations + 1) & 1];
+      iterations++;
+
+      final double danglingRank = parallel(vertexCount, new RangeTask() {
+        @Override
+        public double run(final int from, final int to) {
+          double dangling = 0;
+          for (int vertex = from; vertex < to; vertex++) {
+            final int degree = outOffsets[vertex + 1] - outOffsets[vertex];
+            if (degree == 0) {
+              contributions[vertex] = 0;
+              dangling += rank[vertex];
+            } else
+              contributions[vertex] = rank[vertex] / degree;
+          }
+          return dangling;
+        }
+      });
+
+      final double base = (1 - damping + damping * danglingRank) / vertexCount;
+      final double delta = parallel(vertexCount, new RangeTask() {
+        @Override
+        public double run(final int from, final int to) {
+          double delta = 0;
+          for (int vertex = from; vertex < to; vertex++) {
+            double sum = 0;
+            for (int i = inOffsets[vertex]; i < inOffsets[vertex + 1]; i++)
+              sum += contributions[inSources[i]];
+
+            nextRank[vertex] = base + damping * sum;
+            delta += Math.abs(nextRank[vertex] - rank[vertex]);
+          }
+          return delta;
+        }
+      });
+
+      if (delta < tolerance)
+        break;
+    }
+
+    return ranks[iterations & 1];
+  }
+
+  /**
+   * Finds the weakly connected components, ignoring the direction of the edges. The components are found with a single pass of
+   * union-find over the edges, which costs less than a single one of the parallel iterations needed to propagate component ids
+   * across the longest path of the graph.
+   *
+   * @return the lowest vertex number of the component of every vertex
+   */
+  public int[] weaklyConnectedComponents() {
+    final int vertexCount = snapshot.getVertexCount();
+    final int[] outOffsets = snapshot.getOutOffsets();
+    final int[] outTargets = snapshot.getOutTargets();
+
+    final int[] parents = new int[vertexCount];
+    for (int vertex = 0; vertex < vertexCount; vertex++)
+      parents[vertex] = vertex;
+
+    for (int vertex = 0; vertex < vertexCount; vertex++)
+      for (int i = outOffsets[vertex]; i < outOffsets[vertex + 1]; i++) {
+        final int sourceRoot = find(parents, vertex);
+        final int targetRoot = find(parents, outTargets[i]);
+        if (sourceRoot < targetRoot)
+          parents[targetRoot] = sourceRoot;
+        else if (targetRoot < sourceRoot)
+          parents[sourceRoot] = targetRoot;
+      }
+
+    for (int vertex = 0; vertex < vertexCount; vertex++)
+      parents[vertex] = parents[parents[vertex]];
+
+    iterations = 1;
+    return parents;
+  }
+
+  /**
+   * Detects communities with label propagation, ignoring the direction of the edges. Every vertex starts with its own label and
+   * at every iteration takes the most frequent label among its neighbors and itself, the lowest label in case of ties. The
+   * computation stops when no label changes.
+   *
+   * @return the label of every vertex, which is the number of one of the vertices of the community
+   */
+  public int[] labelPropagation(final int maxIterations) {
+    final int vertexCount = snapshot.getVertexCount();
+    final int[] offsets = snapshot.getUndirectedOffsets();
+    final int[] targets = snapshot.getUndirectedTargets();
+
+    final int[][] labels = { new int[vertexCount], new int[vertexCount] };
+    for (int vertex = 0; vertex < vertexCount; vertex++)
+      labels[0][vertex] = vertex;
+
+    iterations = 0;
+    while (iterations < maxIterations) {
+      final int[] label = labels[iterations & 1];
+      final int[] nextLabel = labels[(iterations + 1) & 1];
+      iterations++;
+
+      final double changes = parallel(vertexCount, new RangeTask() {
+        @Override
+        public double run(final int from, final int to) {
+          int changes = 0;
+          int[] neighborLabels = new int[16];
+          for (int vertex = from; vertex < to; vertex++) {
+            final int degree = offsets[vertex + 1] - offsets[vertex];
+            if (neighborLabels.length <= degree)
+              neighborLabels = new int[Math.max(degree + 1, neighborLabels.length << 1)];
+
+            for (int i = 0; i < degree; i++)
+              neighborLabels[i] = label[targets[offsets[vertex] + i]];
+            neighborLabels[degree] = label[vertex];
+            Arrays.sort(neighborLabels, 0, degree + 1);
+
+            int best = neighborLabels[0];
+            int bestCount = 0;
+            for (int i = 0; i <= degree;) {
+              int j = i + 1;
+              while (j <= degree && neighborLabels[j] == neighborLabels[i])
+                j++;
+              if (j - i > bestCount) {
+                best = neighborLabels[i];
+                bestCount = j - i;
+              }
+              i = j;
+            }
+
+            nextLabel[vertex] = best;
+            if (best != label[vertex])
+              changes++;
+          }
+          return changes;
+        }
+      });
+
+      if (changes == 0)
+        break;
+    }
+
+    return labels[iterations & 1];
+  }
+
+  /**
+   * Counts the triangles every vertex is part of, ignoring the direction of the edges, parallel edges and self loops. Every
+   * triangle is counted once by each of its three vertices.
+   */
+  public int[] triangleCount() {
+    final int vertexCount = snapshot.getVertexCount();
+    final int[] offsets = snapshot.getUndirectedOffsets();
+    final int[] targets = snapshot.getUndirectedTargets();
+
+    final int[] triangles = new int[vertexCount];
+    parallel(vertexCount, new RangeTask() {
+      @Override
+      public double run(final int from, final int to) {
+        for (int vertex = from; vertex < to; vertex++) {
+          long connectedPairs = 0;
+          for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+            final int neighbor = targets[i];
+            connectedPairs += countCommon(targets, offsets[vertex], offsets[vertex + 1], offsets[neighbor], offsets[neighbor + 1]);
+          }
+          // EVERY CONNECTED PAIR OF NEIGHBORS IS FOUND FROM BOTH OF ITS VERTICES
+          triangles[vertex] = (int) (connectedPairs >> 1);
+        }
+        return 0;
+      }
+    });
+
+    iterations = 1;
+    return triangles;
+  }
+
+  private static int countCommon(final int[] targets, int first, final int firstEnd, int second, final int secondEnd) {
+    int common = 0;
+    while (first < firstEnd && second < secondEnd) {
+      if (targets[first] < targets[second])
+        first++;
+      else if (targets[first] > targets[second])
+        second++;
+      else {
+        common++;
+        first++;
+        second++;
+      }
+    }
+    return common;
+  }
+
+  private static int find(final int[] parents, int vertex) {
+    while (parents[vertex] != vertex) {
+      // PATH HALVING
+      parents[vertex] = parents[parents[vertex]];
+      vertex = parents[vertex];
+    }
+    return vertex;
+  }
+
+  /**
+   * Runs the task on ranges of [0, size) of fixed size and sums up the results of the ranges in a fixed order. The ranges are taken by the
+   * current thread and by the helper tasks as they become free, the helper tasks which start after all the ranges have been taken
+   * end immediately.
+   */
+  private double parallel(final int size, final RangeTask task) {
+    final int rangeCount = Math.max(1, (size + RANGE_SIZE - 1) / RANGE_SIZE);
+    final int rangeSize = RANGE_SIZE;
+
+    final double[] results = new double[rangeCount];
+    final AtomicInteger nextRange = new AtomicInteger();
+    final CountDownLatch finishedRanges = new CountDownLatch(rangeCount);
+    final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+    final Runnable worker = new Runnable() {
+      @Override
+      public void run() {
+        int range;
+        while ((range = nextRange.getAndIncrement()) < rangeCount)
+          try {
+            if (error.get() == null)
+              results[range] = task.run(range * rangeSize, Math.min(size, (range + 1) * rangeSize));
+          } catch (Throwable t) {
+            error.compareAndSet(null, t);
+          } finally {
+            finishedRanges.countDown();
+          }
+      }
+    };
+
+    for (int i = 1; i < Math.min(parallelDegree, rangeCount); i++)
+      Orient.instance().submit(worker);
+
+    worker.run();
+
+    try {
+      finishedRanges.await();
+    } catch (InterruptedException e) {
+      error.compareAndSet(null, e);
+      Thread.currentThread().interrupt();
+    }
+
+    final Throwable t = error.get();
+    if (t instanceof RuntimeException)
+      throw (RuntimeException) t;
+    if (t instanceof Error)
+      throw (Error) t;
+    if (t != null)
+      throw OException.wrapException(new OCommandExecutionException("Graph algorithm has been interrupted"), t);
+
+    double result = 0;
+    for (double rangeResult : results)
+      result += rangeResult;
+    return result;
+  }
+
+  private interface RangeTask {
+    double run(int from, int to);
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.graph.analytics;
+
+import com.orientechnologies.common.collection.OLongLongHashMap;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+
+import java.util.Arrays;
+
+/**
+ * Immutable copy of the adjacency of a graph in compressed sparse row (CSR) form. Vertices are numbered from 0 in the order they
+ * have been added, and the edges of every vertex are kept as a slice of a single int array, once by source vertex and once by
+ * target vertex. A graph of V vertices and E edges costs about 8 * V + 8 * E bytes plus the record id map, instead of a vertex and
+ * an edge object per element, so the analytics in {@link OGraphAnalytics} can run on the whole graph without touching the
+ * database.
+ *
+ * <p>
+ * Parallel edges and self loops are kept in the directed adjacency. The undirected adjacency used by community detection and
+ * triangle counting is built on first use, sorted and without duplicates and self loops.
+ *
+ * @see Builder
+ */
+public class OGraphSnapshot {
+  private final long[]           vertices;
+  private final OLongLongHashMap vertexIndexes;
+  private final int[]            outOffsets;
+  private final int[]            outTargets;
+  private final int[]            inOffsets;
+  private final int[]            inSources;
+
+  private volatile int[]         undirectedOffsets;
+  private volatile int[]         undirectedTargets;
+
+  private OGraphSnapshot(final long[] vertices, final OLongLongHashMap vertexIndexes, final int[] edgeSources,
+      final int[] edgeTargets, final int edgeCount) {
+    this.vertices = vertices;
+    this.vertexIndexes = vertexIndexes;
+
+    outOffsets = new int[vertices.length + 1];
+    outTargets = new int[edgeCount];
+    inOffsets = new int[vertices.length + 1];
+    inSources = new int[edgeCount];
+
+    sortEdges(edgeSources, edgeTargets, edgeCount, outOffsets, outTargets);
+    sortEdges(edgeTargets, edgeSources, edgeCount, inOffsets, inSources);
+  }
+
+  public int getVertexCount() {
+    return vertices.length;
+  }
+
+  public int getEdgeCount() {
+    return outTargets.length;
+  }
+
+  public ORID getRecordId(final int vertex) {
+    return ORecordId.fromLong(vertices[vertex]);
+  }
+
+  /**
+   * @return the number of the vertex with the record id, or -1 if the vertex is not part of the snapshot
+   */
+  public int indexOf(final ORID recordId) {
+    if (!recordId.isPersistent())
+      return -1;
+    return (int) vertexIndexes.get(ORecordId.toLong(recordId), -1);
+  }
+
+  public int getOutDegree(final int vertex) {
+    return outOffsets[vertex + 1] - outOffsets[vertex];
+  }
+
+  public int getInDegree(final int vertex) {
+    return inOffsets[vertex + 1] - inOffsets[vertex];
+  }
+
+  int[] getOutOffsets() {
+    return outOffsets;
+  }
+
+  int[] getOutTargets() {
+    return outTargets;
+  }
+
+  int[] getInOffsets() {
+    return inOffsets;
+  }
+
+  int[] getInSources() {
+    return inSources;
+  }
+
+  int[] getUndirectedOffsets() {
+    buildUndirected();
+    return undirectedOffsets;
+  }
+
+  int[] getUndirectedTargets() {
+    buildUndirected();
+    return undirectedTargets;
+  }
+
+  private void buildUndirected() {
+    if (undirectedTargets != null)
+      return;
+
+    synchronized (this) {
+      if (undirectedTargets != null)
+        return;
+
+      final int[] offsets = new int[vertices.length + 1];
+      int[] targets = new int[outTargets.length * 2];
+      int[] neighbors = new int[16];
+
+      int size = 0;
+      for (int vertex = 0; vertex < vertices.length; vertex++) {
+        final int degree = getOutDegree(vertex) + getInDegree(vertex);
+        if (neighbors.length < degree)
+          neighbors = new int[Math.max(degree, neighbors.length << 1)];
+
+        System.arraycopy(outTargets, outOffsets[vertex], neighbors, 0, getOutDegree(vertex));
+        System.arraycopy(inSources, inOffsets[vertex], neighbors, getOutDegree(vertex), getInDegree(vertex));
+        Arrays.sort(neighbors, 0, degree);
+
+        offsets[vertex] = size;
+        int previous = -1;
+        for (int i = 0; i < degree; i++) {
+          final int neighbor = neighbors[i];
+          if (neighbor != previous && neighbor != vertex) {
+            // CANNOT OVERFLOW: EVERY EDGE IS COUNTED AT MOST TWICE
+            targets[size++] = neighbor;
+            previous = neighbor;
+          }
+        }
+      }
+      offsets[vertices.length] = size;
+
+      if (size < targets.length)
+        targets = Arrays.copyOf(targets, size);
+
+      undirectedOffsets = offsets;
+      undirectedTargets = targets;
+    }
+  }
+
+  /**
+   * Counting sort of the edges by the vertex in the first array, the vertex in the second array of every edge is written in the
+   * slice of the first one.
+   */
+  private static void sortEdges(final int[] from, final int[] to, final int edgeCount, final int[] offsets, final int[] targets) {
+    for (int i = 0; i < edgeCount; i++)
+      offsets[from[i] + 1]++;
+    for (int i = 1; i < offsets.length; i++)
+      offsets[i] += offsets[i - 1];
+
+    final int[] positions = Arrays.copyOf(offsets, offsets.length - 1);
+    for (int i = 0; i < edgeCount; i++)
+      targets[positions[from[i]]++] = to[i];
+  }
+
+  /**
+   * Collects vertices and edges by record id. Edges can be added before their vertices, the edges whose vertices are not added
+   * at all are dropped by {@link #build()}, so the snapshot of a subset of the vertices only contains the edges among them. Not
+   * thread safe.
+   */
+  public static class Builder {
+    private long[]                 vertices      = new long[1024];
+    private int                    vertexCount;
+    private final OLongLongHashMap vertexIndexes = new OLongLongHashMap(1024);
+
+    private long[]                 edgeSources   = new long[1024];
+    private long[]                 edgeTargets   = new long[1024];
+    private int                    edgeCount;
+
+    public Builder addVertex(final ORID recordId) {
+      final long vertex = ORecordId.toLong(recordId);
+      if (vertexIndexes.containsKey(vertex))
+        return this;
+
+      if (vertexCount == vertices.length)
+        vertices = Arrays.copyOf(vertices, vertexCount << 1);
+
+      vertexIndexes.put(vertex, vertexCount);
+      vertices[vertexCount++] = vertex;
+      return this;
+    }
+
+    public Builder addEdge(final ORID source, final ORID target) {
+      if (edgeCount == edgeSources.length) {
+        edgeSources = Arrays.copyOf(edgeSources, edgeCount << 1);
+        edgeTargets = Arrays.copyOf(edgeTargets, edgeCount << 1);
+      }
+
+      edgeSources[edgeCount] = ORecordId.toLong(source);
+      edgeTargets[edgeCount] = ORecordId.toLong(target);
+      edgeCount++;
+      return this;
+    }
+
+    public OGraphSnapshot build() {
+      final int[] sources = new int[edgeCount];
+      final int[] targets = new int[edgeCount];
+
+      int edges = 0;
+      for (int i = 0; i < edgeCount; i++) {
+        final long source = vertexIndexes.get(edgeSources[i], -1);
+        final long target = vertexIndexes.get(edgeTargets[i], -1);
+        if (source > -1 && target > -1) {
+          sources[edges] = (int) source;
+          targets[edges] = (int) target;
+          edges++;
+        }
+      }
+
+      edgeSources = null;
+      edgeTargets = null;
+
+      return new OGraphSnapshot(Arrays.copyOf(vertices, vertexCount), vertexIndexes, sources, targets, edges);
+    }
+  }
+}
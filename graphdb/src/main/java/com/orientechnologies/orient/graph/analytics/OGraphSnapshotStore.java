@@ -0,0 +1,144 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.graph.analytics;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientEdge;
+import com.tinkerpop.blueprints.impls.orient.OrientVertex;
+import com.tinkerpop.blueprints.impls.orient.OrientVertexType;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads {@link OGraphSnapshot}s from a graph and writes the results of {@link OGraphAnalytics} back to its vertices.
+ *
+ * @see OGraphAnalytics
+ */
+public class OGraphSnapshotStore {
+  /**
+   * Value to write back to the vertex with the number of the snapshot.
+   */
+  public interface OVertexValue {
+    Object get(int vertex);
+  }
+
+  private OGraphSnapshotStore() {
+  }
+
+  /**
+   * Takes a snapshot of the vertices of a class, subclasses included, and of the outgoing edges among them.
+   *
+   * @param graph
+   *          graph to read
+   * @param vertexClass
+   *          class of the vertices, V for all the vertices
+   * @param edgeLabels
+   *          labels of the edges, all the edges if empty
+   */
+  public static OGraphSnapshot load(final OrientBaseGraph graph, final String vertexClass, final String... edgeLabels) {
+    final ODatabaseDocumentTx db = graph.getRawGraph();
+
+    final OClass cls = db.getMetadata().getImmutableSchemaSnapshot().getClass(vertexClass);
+    if (cls == null || !cls.isSubClassOf(OrientVertexType.CLASS_NAME))
+      throw new OCommandExecutionException("Vertex class '" + vertexClass + "' was not found");
+
+    final OGraphSnapshot.Builder builder = new OGraphSnapshot.Builder();
+    for (ODocument document : db.browseClass(cls.getName())) {
+      builder.addVertex(document.getIdentity());
+
+      final OrientVertex vertex = graph.getVertex(document);
+      for (Edge edge : vertex.getEdges(Direction.OUT, edgeLabels)) {
+        final OIdentifiable target = getInVertex((OrientEdge) edge);
+        if (target != null && target.getIdentity().isPersistent())
+          builder.addEdge(document.getIdentity(), target.getIdentity());
+      }
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Sets a property of every vertex of the snapshot which still exists. The vertices are read in batches, each one is saved in
+   * its own transaction, unless a transaction is already running: in this case the vertices are saved in it and the caller
+   * commits them.
+   *
+   * @return the number of vertices updated
+   */
+  public static long store(final OrientBaseGraph graph, final OGraphSnapshot snapshot, final String property,
+      final OVertexValue value, final int batchSize) {
+    final ODatabaseDocumentTx db = graph.getRawGraph();
+    final boolean ownTransaction = !db.getTransaction().isActive();
+
+    long updated = 0;
+    final Set<ORecordId> batch = new HashSet<ORecordId>();
+    for (int vertex = 0; vertex < snapshot.getVertexCount(); vertex++) {
+      batch.add((ORecordId) snapshot.getRecordId(vertex));
+
+      if (batch.size() >= batchSize || vertex == snapshot.getVertexCount() - 1) {
+        if (ownTransaction)
+          db.begin();
+        try {
+          for (ORecord record : db.executeReadRecords(batch, false)) {
+            if (!(record instanceof ODocument))
+              continue;
+
+            final int index = snapshot.indexOf(record.getIdentity());
+            if (index > -1) {
+              ((ODocument) record).field(property, value.get(index));
+              record.save();
+              updated++;
+            }
+          }
+
+          if (ownTransaction)
+            db.commit();
+        } catch (RuntimeException e) {
+          if (ownTransaction)
+            db.rollback();
+          throw e;
+        }
+
+        batch.clear();
+      }
+    }
+
+    return updated;
+  }
+
+  private static OIdentifiable getInVertex(final OrientEdge edge) {
+    if (edge.isLightweight())
+      return edge.getInVertex();
+
+    // READ THE LINK WITHOUT LOADING THE VERTEX
+    final ODocument document = edge.getRecord();
+    return document != null ? (OIdentifiable) document.rawField(OrientBaseGraph.CONNECTION_IN) : null;
+  }
+}
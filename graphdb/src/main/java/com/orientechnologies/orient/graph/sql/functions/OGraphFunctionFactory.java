@@ -39,6 +39,11 @@ public class OGraphFunctionFactory implements OSQLFunctionFactory {
     register(OSQLFunctionAstar.NAME, OSQLFunctionAstar.class);
     register(OSQLFunctionShortestPath.NAME, new OSQLFunctionShortestPath());
 
+    register(OSQLFunctionPageRank.NAME, new OSQLFunctionPageRank());
+    register(OSQLFunctionConnectedComponents.NAME, new OSQLFunctionConnectedComponents());
+    register(OSQLFunctionLabelPropagation.NAME, new OSQLFunctionLabelPropagation());
+    register(OSQLFunctionTriangleCount.NAME, new OSQLFunctionTriangleCount());
+
     register(OSQLFunctionLabel.NAME, new OSQLFunctionLabel());
     register(OSQLFunctionOut.NAME, new OSQLFunctionOut());
     register(OSQLFunctionIn.NAME, new OSQLFunctionIn());
@@ -19,10 +19,13 @@
  */
 package com.orientechnologies.orient.graph.sql.functions;
 
+import com.orientechnologies.common.collection.OLongHashSet;
+import com.orientechnologies.common.collection.OLongLongHashMap;
 import com.orientechnologies.common.collection.OMultiValue;
 import com.orientechnologies.common.io.OIOUtils;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OSQLHelper;
@@ -48,17 +51,19 @@ import java.util.*;
 public class OSQLFunctionAstar extends OSQLFunctionHeuristicPathFinderAbstract {
   public static final String NAME = "astar";
 
-  private   String                          paramWeightFieldName = "weight";
-  private   long                            currentDepth         = 0;
-  protected Set<OrientVertex>               closedSet            = new HashSet<OrientVertex>();
-  protected Map<OrientVertex, OrientVertex> cameFrom             = new HashMap<OrientVertex, OrientVertex>();
+  private   String           paramWeightFieldName = "weight";
+  private   long             currentDepth         = 0;
+  // VERTICES ARE KEPT AS PACKED RIDS (SEE ORecordId.toLong()), SCORES AS THE BITS OF THEIR DOUBLE VALUE
+  protected OLongHashSet     closedSet            = new OLongHashSet();
+  protected OLongLongHashMap cameFrom             = new OLongLongHashMap();
+  protected OLongHashSet     openSet              = new OLongHashSet();
 
-  protected Map<OrientVertex, Double>   gScore = new HashMap<OrientVertex, Double>();
-  protected Map<OrientVertex, Double>   fScore = new HashMap<OrientVertex, Double>();
+  protected OLongLongHashMap            gScore = new OLongLongHashMap();
+  protected OLongLongHashMap            fScore = new OLongLongHashMap();
   protected PriorityQueue<OrientVertex> open   = new PriorityQueue<OrientVertex>(1, new Comparator<OrientVertex>() {
 
     public int compare(OrientVertex nodeA, OrientVertex nodeB) {
-      return Double.compare(fScore.get(nodeA), fScore.get(nodeB));
+      return Double.compare(getScore(fScore, nodeA), getScore(fScore, nodeB));
     }
   });
 
@@ -108,15 +113,20 @@ public class OSQLFunctionAstar extends OSQLFunctionHeuristicPathFinderAbstract {
     OrientVertex start = paramSourceVertex;
     OrientVertex goal = paramDestinationVertex;
 
-    open.add(start);
+    final long goalId = ORecordId.toLong(goal.getIdentity());
 
     // The cost of going from start to start is zero.
-    gScore.put(start, 0.0);
+    setScore(gScore, start, 0.0);
     // For the first node, that value is completely heuristic.
-    fScore.put(start, getHeuristicCost(start, null, goal));
+    setScore(fScore, start, getHeuristicCost(start, null, goal));
+
+    open.add(start);
+    openSet.add(ORecordId.toLong(start.getIdentity()));
 
     while (!open.isEmpty()) {
-      OrientVertex current = open.poll();
+      final OrientVertex current = open.poll();
+      final long currentId = ORecordId.toLong(current.getIdentity());
+      openSet.remove(currentId);
 
       // we discussed about this feature in https://github.com/orientechnologies/orientdb/pull/6002#issuecomment-212492687
       if (paramEmptyIfMaxDepth == true && currentDepth >= paramMaxDepth) {
@@ -124,36 +134,39 @@ public class OSQLFunctionAstar extends OSQLFunctionHeuristicPathFinderAbstract {
         return getPath();
       }
       // if start and goal vertex is equal so return current path from  cameFrom hash map
-      if (current.getIdentity().equals(goal.getIdentity()) || currentDepth >= paramMaxDepth) {
-
-        while (current != null) {
-          route.add(0, current);
-          current = cameFrom.get(current);
-        }
+      if (currentId == goalId || currentDepth >= paramMaxDepth) {
+        buildRoute(current, graph);
         return getPath();
       }
 
-      closedSet.add(current);
+      closedSet.add(currentId);
       for (OrientEdge neighborEdge : getNeighborEdges(current)) {
 
-        OrientVertex neighbor = getNeighbor(current, neighborEdge, graph);
+        final OrientVertex neighbor = getNeighbor(current, neighborEdge, graph);
+        if (neighbor == null)
+          continue;
+
+        final long neighborId = ORecordId.toLong(neighbor.getIdentity());
         // Ignore the neighbor which is already evaluated.
-        if (closedSet.contains(neighbor)) {
+        if (closedSet.contains(neighborId)) {
           continue;
         }
         // The distance from start to a neighbor
-        double tentative_gScore = gScore.get(current) + getDistance(neighborEdge);
-        boolean contains = open.contains(neighbor);
-
-        if (!contains || tentative_gScore < gScore.get(neighbor)) {
-          gScore.put(neighbor, tentative_gScore);
-          fScore.put(neighbor, tentative_gScore + getHeuristicCost(neighbor, current, goal));
+        double tentative_gScore = getScore(gScore, current) + getDistance(neighborEdge);
+        boolean contains = openSet.contains(neighborId);
 
+        if (!contains || tentative_gScore < getScore(gScore, neighbor)) {
           if (contains) {
+            // REMOVE IT BEFORE CHANGING ITS SCORE, THE HEAP ORDER DEPENDS ON IT
             open.remove(neighbor);
           }
+
+          setScore(gScore, neighbor, tentative_gScore);
+          setScore(fScore, neighbor, tentative_gScore + getHeuristicCost(neighbor, current, goal));
+
           open.offer(neighbor);
-          cameFrom.put(neighbor, current);
+          openSet.add(neighborId);
+          cameFrom.put(neighborId, currentId);
         }
       }
 
@@ -165,6 +178,28 @@ public class OSQLFunctionAstar extends OSQLFunctionHeuristicPathFinderAbstract {
     return getPath();
   }
 
+  /**
+   * Fills the route walking back from the last vertex, loading only the vertices of the path.
+   */
+  private void buildRoute(final OrientVertex last, final OrientBaseGraph graph) {
+    route.add(0, last);
+
+    long id = ORecordId.toLong(last.getIdentity());
+    while (cameFrom.containsKey(id)) {
+      id = cameFrom.get(id, 0);
+      route.add(0, graph.getVertex(ORecordId.fromLong(id)));
+    }
+  }
+
+  private static double getScore(final OLongLongHashMap scores, final OrientVertex vertex) {
+    final long bits = scores.get(ORecordId.toLong(vertex.getIdentity()), Double.doubleToRawLongBits(Double.MAX_VALUE));
+    return Double.longBitsToDouble(bits);
+  }
+
+  private static void setScore(final OLongLongHashMap scores, final OrientVertex vertex, final double score) {
+    scores.put(ORecordId.toLong(vertex.getIdentity()), Double.doubleToRawLongBits(score));
+  }
+
   private OrientVertex getNeighbor(OrientVertex current, OrientEdge neighborEdge, OrientBaseGraph graph) {
     if (neighborEdge.getOutVertex().equals(current)) {
       return toVertex(neighborEdge.getInVertex(), graph);
@@ -36,6 +36,11 @@ public class OSQLFunctionBoth extends OSQLFunctionMove {
     super(NAME, 0, -1);
   }
 
+  @Override
+  protected Direction getBatchDirection() {
+    return Direction.BOTH;
+  }
+
   @Override
   protected Object move(final OrientBaseGraph graph, final OIdentifiable iRecord, final String[] iLabels) {
     return v2v(graph, iRecord, Direction.BOTH, iLabels);
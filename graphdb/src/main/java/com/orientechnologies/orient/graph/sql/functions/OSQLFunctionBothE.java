@@ -19,17 +19,20 @@
   */
 package com.orientechnologies.orient.graph.sql.functions;
 
+import com.orientechnologies.common.util.OSizeable;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
 
+import java.util.Collections;
+
 /**
  * Gets the incoming and outgoing Edges of current Vertex.
  * 
  * @author Luca Garulli (l.garulli--at--orientechnologies.com)
  * 
  */
-public class OSQLFunctionBothE extends OSQLFunctionMove {
+public class OSQLFunctionBothE extends OSQLFunctionMoveFiltered {
   public static final String NAME = "bothE";
 
   public OSQLFunctionBothE() {
@@ -40,4 +43,21 @@ public class OSQLFunctionBothE extends OSQLFunctionMove {
   protected Object move(final OrientBaseGraph graph, final OIdentifiable iRecord, final String[] iLabels) {
     return v2e(graph, iRecord, Direction.BOTH, iLabels);
   }
+
+  @Override
+  protected Object move(final OrientBaseGraph graph, final OIdentifiable iRecord, final String[] iLabels,
+      final Iterable<OIdentifiable> iPossibleResults) {
+    if (iPossibleResults == null)
+      return v2e(graph, iRecord, Direction.BOTH, iLabels);
+
+    if (!iPossibleResults.iterator().hasNext())
+      return Collections.emptyList();
+
+    final Object edges = v2e(graph, iRecord, Direction.BOTH, iLabels);
+    if (edges instanceof OSizeable && ((OSizeable) edges).size() > supernodeThreshold)
+      // CHECK THE FEW POSSIBLE EDGES INSTEAD OF BROWSING ALL THE EDGES OF THE SUPERNODE
+      return filterEdges(graph, iRecord, iPossibleResults, Direction.BOTH, iLabels);
+
+    return edges;
+  }
 }
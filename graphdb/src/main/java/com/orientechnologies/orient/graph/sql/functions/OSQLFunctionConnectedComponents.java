@@ -0,0 +1,66 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.orientechnologies.orient.graph.sql.functions;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.graph.analytics.OGraphAnalytics;
+import com.orientechnologies.orient.graph.analytics.OGraphSnapshot;
+import com.orientechnologies.orient.graph.analytics.OGraphSnapshotStore;
+
+import java.util.Map;
+
+/**
+ * Writes the weakly connected component of every vertex in a property, as the link to the vertex of the component with the lowest
+ * record id. The number of components is returned in the "components" field of the result.
+ *
+ * @see OGraphAnalytics#weaklyConnectedComponents()
+ */
+public class OSQLFunctionConnectedComponents extends OSQLFunctionGraphAnalyticsAbstract {
+  public static final String NAME = "connectedComponents";
+
+  public OSQLFunctionConnectedComponents() {
+    super(NAME);
+  }
+
+  @Override
+  protected OGraphSnapshotStore.OVertexValue compute(final OGraphSnapshot snapshot, final OGraphAnalytics analytics,
+      final Map<String, Object> options, final ODocument result) {
+    final int[] components = analytics.weaklyConnectedComponents();
+
+    int count = 0;
+    for (int vertex = 0; vertex < components.length; vertex++)
+      if (components[vertex] == vertex)
+        count++;
+    result.field("components", count);
+
+    return new OGraphSnapshotStore.OVertexValue() {
+      @Override
+      public Object get(final int vertex) {
+        return snapshot.getRecordId(components[vertex]);
+      }
+    };
+  }
+
+  public String getSyntax() {
+    return "connectedComponents(<vertexClass>, <edgeLabels>, <property> [, <options>])";
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+package com.orientechnologies.orient.graph.sql.functions;
+
+import com.orientechnologies.common.collection.OMultiValue;
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.command.OCommandExecutorAbstract;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunctionConfigurableAbstract;
+import com.orientechnologies.orient.graph.analytics.OGraphAnalytics;
+import com.orientechnologies.orient.graph.analytics.OGraphSnapshot;
+import com.orientechnologies.orient.graph.analytics.OGraphSnapshotStore;
+import com.orientechnologies.orient.graph.sql.OGraphCommandExecutorSQLFactory;
+import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientVertexType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base class of the functions which run a whole graph algorithm of {@link OGraphAnalytics}. The adjacency of the vertices of a
+ * class and of the edges with the given labels among them is copied in a {@link OGraphSnapshot}, the algorithm runs on it and
+ * the result of every vertex is written in a property of the vertex. The syntax is:
+ *
+ * <pre>
+ * &lt;function&gt;(&lt;vertexClass&gt;, &lt;edgeLabels&gt;, &lt;property&gt; [, &lt;options&gt;])
+ * </pre>
+ *
+ * where vertexClass is V and edgeLabels are all the labels when null, and options is a map that can contain parallelDegree (by
+ * default {@link OGlobalConfiguration#QUERY_PARALLEL_DEGREE}), batchSize (number of vertices updated by each transaction) and the
+ * options of the algorithm. The function returns a document with the statistics of the execution.
+ */
+public abstract class OSQLFunctionGraphAnalyticsAbstract extends OSQLFunctionConfigurableAbstract {
+  public static final String PARAM_PARALLEL_DEGREE = "parallelDegree";
+  public static final String PARAM_BATCH_SIZE      = "batchSize";
+
+  private static final int   DEFAULT_BATCH_SIZE    = 1000;
+
+  protected OSQLFunctionGraphAnalyticsAbstract(final String iName) {
+    super(iName, 3, 4);
+  }
+
+  public Object execute(Object iThis, final OIdentifiable iCurrentRecord, final Object iCurrentResult, final Object[] iParams,
+      final OCommandContext iContext) {
+
+    return OGraphCommandExecutorSQLFactory.runWithAnyGraph(new OGraphCommandExecutorSQLFactory.GraphCallBack<ODocument>() {
+      @Override
+      public ODocument call(final OrientBaseGraph graph) {
+        final String vertexClass = iParams[0] != null ? iParams[0].toString() : OrientVertexType.CLASS_NAME;
+        final String[] edgeLabels = getLabels(iParams[1]);
+
+        if (iParams[2] == null)
+          throw new OCommandExecutionException("The property to write the result of " + getName() + "() to is mandatory");
+        final String property = iParams[2].toString();
+
+        final Map<String, Object> options = getOptions(iParams.length > 3 ? iParams[3] : null);
+
+        final long start = System.currentTimeMillis();
+        final OGraphSnapshot snapshot = OGraphSnapshotStore.load(graph, vertexClass, edgeLabels);
+
+        if (!OCommandExecutorAbstract.checkInterruption(iContext))
+          return null;
+
+        final OGraphAnalytics analytics = new OGraphAnalytics(snapshot, getParallelDegree(graph, options));
+        final ODocument result = new ODocument().field("vertices", snapshot.getVertexCount()).field("edges",
+            snapshot.getEdgeCount());
+
+        final OGraphSnapshotStore.OVertexValue values = compute(snapshot, analytics, options, result);
+        result.field("iterations", analytics.getIterations());
+
+        if (!OCommandExecutorAbstract.checkInterruption(iContext))
+          return null;
+
+        final int batchSize = getInteger(options, PARAM_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        result.field("updated", OGraphSnapshotStore.store(graph, snapshot, property, values, batchSize));
+        result.field("elapsed", System.currentTimeMillis() - start);
+        return result;
+      }
+    });
+  }
+
+  /**
+   * Runs the algorithm and adds its statistics to the result.
+   *
+   * @return the value to write for every vertex
+   */
+  protected abstract OGraphSnapshotStore.OVertexValue compute(OGraphSnapshot snapshot, OGraphAnalytics analytics,
+      Map<String, Object> options, ODocument result);
+
+  protected static int getInteger(final Map<String, Object> options, final String name, final int defaultValue) {
+    final Object value = options.get(name);
+    if (value instanceof Number)
+      return ((Number) value).intValue();
+    if (value != null)
+      try {
+        return Integer.parseInt(value.toString());
+      } catch (NumberFormatException e) {
+        throw new OCommandExecutionException("Option '" + name + "' must be an integer, found: " + value);
+      }
+    return defaultValue;
+  }
+
+  protected static double getDouble(final Map<String, Object> options, final String name, final double defaultValue) {
+    final Object value = options.get(name);
+    if (value instanceof Number)
+      return ((Number) value).doubleValue();
+    if (value != null)
+      try {
+        return Double.parseDouble(value.toString());
+      } catch (NumberFormatException e) {
+        throw new OCommandExecutionException("Option '" + name + "' must be a number, found: " + value);
+      }
+    return defaultValue;
+  }
+
+  private static int getParallelDegree(final OrientBaseGraph graph, final Map<String, Object> options) {
+    final int degree = getInteger(options, PARAM_PARALLEL_DEGREE, graph.getRawGraph().getStorage().getConfiguration()
+        .getContextConfiguration().getValueAsInteger(OGlobalConfiguration.QUERY_PARALLEL_DEGREE));
+    return degree > 0 ? degree : Runtime.getRuntime().availableProcessors();
+  }
+
+  private static String[] getLabels(final Object labels) {
+    if (labels == null)
+      return new String[0];
+
+    final List<String> result = new ArrayList<String>();
+    if (OMultiValue.isMultiValue(labels)) {
+      for (Object label : OMultiValue.getMultiValueIterable(labels))
+        if (label != null)
+          result.add(label.toString());
+    } else
+      result.add(labels.toString());
+    return result.toArray(new String[result.size()]);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> getOptions(final Object options) {
+    if (options instanceof Map)
+      return (Map<String, Object>) options;
+    if (options instanceof OIdentifiable)
+      return ((ODocument) ((OIdentifiable) options).getRecord()).toMap();
+    return Collections.emptyMap();
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.orientechnologies.orient.graph.sql.functions;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.graph.analytics.OGraphAnalytics;
+import com.orientechnologies.orient.graph.analytics.OGraphSnapshot;
+import com.orientechnologies.orient.graph.analytics.OGraphSnapshotStore;
+
+import java.util.Map;
+
+/**
+ * Writes the community of every vertex found by label propagation in a property, as the link to a vertex of the community. The
+ * only option is maxIterations (10 by default), the number of communities is returned in the "communities" field of the result.
+ *
+ * @see OGraphAnalytics#labelPropagation(int)
+ */
+public class OSQLFunctionLabelPropagation extends OSQLFunctionGraphAnalyticsAbstract {
+  public static final String NAME = "labelPropagation";
+
+  public OSQLFunctionLabelPropagation() {
+    super(NAME);
+  }
+
+  @Override
+  protected OGraphSnapshotStore.OVertexValue compute(final OGraphSnapshot snapshot, final OGraphAnalytics analytics,
+      final Map<String, Object> options, final ODocument result) {
+    final int[] labels = analytics.labelPropagation(getInteger(options, "maxIterations", 10));
+
+    final boolean[] used = new boolean[labels.length];
+    int count = 0;
+    for (int label : labels)
+      if (!used[label]) {
+        used[label] = true;
+        count++;
+      }
+    result.field("communities", count);
+
+    return new OGraphSnapshotStore.OVertexValue() {
+      @Override
+      public Object get(final int vertex) {
+        return snapshot.getRecordId(labels[vertex]);
+      }
+    };
+  }
+
+  public String getSyntax() {
+    return "labelPropagation(<vertexClass>, <edgeLabels>, <property> [, { maxIterations: <n> }])";
+  }
+}
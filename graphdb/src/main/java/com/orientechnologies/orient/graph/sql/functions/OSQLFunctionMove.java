@@ -23,6 +23,7 @@ import com.orientechnologies.common.collection.OMultiValue;
 import com.orientechnologies.common.io.OIOUtils;
 import com.orientechnologies.common.util.OCallable;
 import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.command.OCommandExecutorAbstract;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.metadata.schema.OImmutableClass;
 import com.orientechnologies.orient.core.record.impl.ODocument;
@@ -35,8 +36,13 @@ import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
 import com.tinkerpop.blueprints.impls.orient.OrientEdge;
 import com.tinkerpop.blueprints.impls.orient.OrientVertex;
+import com.tinkerpop.blueprints.impls.orient.OrientVertexNeighbors;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -59,6 +65,14 @@ public abstract class OSQLFunctionMove extends OSQLFunctionConfigurableAbstract
 
   protected abstract Object move(final OrientBaseGraph graph, final OIdentifiable iRecord, final String[] iLabels);
 
+  /**
+   * Returns the direction of the functions that move from vertices to vertices, which expand all the current vertices in batches
+   * (see {@link OrientVertexNeighbors}). Null for the other functions, which move from every record on its own.
+   */
+  protected Direction getBatchDirection() {
+    return null;
+  }
+
   public String getSyntax() {
     return "Syntax error: " + name + "([<labels>])";
   }
@@ -81,6 +95,14 @@ public abstract class OSQLFunctionMove extends OSQLFunctionConfigurableAbstract
         else
           labels = null;
 
+        final Direction batchDirection = getBatchDirection();
+        if (batchDirection != null && (OMultiValue.isMultiValue(iThis) || iThis instanceof Iterator)) {
+          if (!OCommandExecutorAbstract.checkInterruption(iContext))
+            return null;
+
+          return OrientVertexNeighbors.getVertices(graph, getRecords(iThis), batchDirection, labels);
+        }
+
         return OSQLEngine.foreachRecord(new OCallable<Object, OIdentifiable>() {
           @Override
           public Object call(final OIdentifiable iArgument) {
@@ -96,16 +118,29 @@ public abstract class OSQLFunctionMove extends OSQLFunctionConfigurableAbstract
     final ODocument rec = iRecord.getRecord();
 
     OImmutableClass immutableClass = ODocumentInternal.getImmutableSchemaClass(rec);
-    if (immutableClass != null && immutableClass.isVertexType()) {
-      // VERTEX
-      final OrientVertex vertex = graph.getVertex(rec);
-      if (vertex != null)
-        return vertex.getVertices(iDirection, iLabels);
-    }
+    if (immutableClass != null && immutableClass.isVertexType())
+      // VERTEX: LOAD ITS EDGES AND NEIGHBORS IN BATCHES
+      return OrientVertexNeighbors.getVertices(graph, Collections.singletonList(rec), iDirection, iLabels);
 
     return null;
   }
 
+  /**
+   * Flattens the current records as {@link OSQLEngine#foreachRecord(OCallable, Object, OCommandContext)} would browse them.
+   */
+  private static List<OIdentifiable> getRecords(final Object iCurrent) {
+    final List<OIdentifiable> records = new ArrayList<OIdentifiable>();
+    for (Object o : OMultiValue.getMultiValueIterable(iCurrent, false)) {
+      if (OMultiValue.isMultiValue(o) || o instanceof Iterator) {
+        for (Object inner : OMultiValue.getMultiValueIterable(o, false))
+          if (inner instanceof OIdentifiable)
+            records.add((OIdentifiable) inner);
+      } else if (o instanceof OIdentifiable)
+        records.add((OIdentifiable) o);
+    }
+    return records;
+  }
+
   protected Object v2e(final OrientBaseGraph graph, final OIdentifiable iRecord, final Direction iDirection,
       final String[] iLabels) {
     final ODocument rec = iRecord.getRecord();
@@ -24,10 +24,25 @@ import com.orientechnologies.common.io.OIOUtils;
 import com.orientechnologies.common.util.OCallable;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OImmutableClass;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.ODocumentInternal;
 import com.orientechnologies.orient.core.sql.OSQLEngine;
 import com.orientechnologies.orient.core.sql.functions.OSQLFunctionFiltered;
 import com.orientechnologies.orient.graph.sql.OGraphCommandExecutorSQLFactory;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.impls.orient.OrientAdjacencyIndex;
 import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientEdge;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 
 /**
  * @author Luigi Dell'Aquila
@@ -47,6 +62,10 @@ public abstract class OSQLFunctionMoveFiltered extends OSQLFunctionMove implemen
   @Override
   public Object execute(final Object iThis, final OIdentifiable iCurrentRecord, final Object iCurrentResult,
       final Object[] iParameters, final Iterable<OIdentifiable> iPossibleResults, final OCommandContext iContext) {
+    if (iPossibleResults == null && getBatchDirection() != null)
+      // NOTHING TO FILTER: EXPAND ALL THE VERTICES IN BATCHES
+      return execute(iThis, iCurrentRecord, iCurrentResult, iParameters, iContext);
+
     return OGraphCommandExecutorSQLFactory.runWithAnyGraph(new OGraphCommandExecutorSQLFactory.GraphCallBack<Object>() {
       @Override
       public Object call(final OrientBaseGraph graph) {
@@ -75,4 +94,77 @@ public abstract class OSQLFunctionMoveFiltered extends OSQLFunctionMove implemen
   protected abstract Object move(OrientBaseGraph graph, OIdentifiable iArgument, String[] labels,
       Iterable<OIdentifiable> iPossibleResults);
 
+  /**
+   * Returns the vertices among the possible results connected to a vertex, found through the {@link OrientAdjacencyIndex} of the
+   * edge class on the connections, null if there is no such index.
+   */
+  protected Object fetchFromIndex(final OrientBaseGraph graph, final OIdentifiable iFrom, final Iterable<OIdentifiable> iTo,
+      final Direction iDirection, final String[] iEdgeTypes) {
+    final String edgeClassName;
+    if (iEdgeTypes == null)
+      edgeClassName = "E";
+    else if (iEdgeTypes.length == 1)
+      edgeClassName = iEdgeTypes[0];
+    else
+      return null;
+
+    final OClass edgeClass = graph.getRawGraph().getMetadata().getSchema().getClass(edgeClassName);
+    final String opposite = iDirection == Direction.OUT ? OrientBaseGraph.CONNECTION_IN : OrientBaseGraph.CONNECTION_OUT;
+    final OrientAdjacencyIndex index = OrientAdjacencyIndex.getIndex(edgeClass, iDirection, opposite, false);
+    if (index == null)
+      return null;
+
+    final Set<OIdentifiable> result = new HashSet<OIdentifiable>();
+    for (OIdentifiable to : iTo) {
+      final Iterator<OIdentifiable> edges = index.getEdges(iFrom, to);
+      while (edges != null && edges.hasNext()) {
+        final ODocument edge = edges.next().getRecord();
+        if (edge != null)
+          result.add((OIdentifiable) edge.rawField(opposite));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the edges among the possible results connected to a vertex, checking the connections of every possible edge instead of
+   * browsing all the edges of the vertex.
+   */
+  protected Object filterEdges(final OrientBaseGraph graph, final OIdentifiable iVertex, final Iterable<OIdentifiable> iEdges,
+      final Direction iDirection, final String[] iLabels) {
+    final List<Edge> result = new ArrayList<Edge>();
+    for (OIdentifiable candidate : iEdges) {
+      final ORecord record = candidate.getRecord();
+      if (!(record instanceof ODocument))
+        continue;
+
+      final ODocument document = (ODocument) record;
+      final OImmutableClass cls = ODocumentInternal.getImmutableSchemaClass(document);
+      if (cls == null || !cls.isEdgeType())
+        continue;
+
+      if ((iDirection != Direction.IN && isConnected(document, OrientBaseGraph.CONNECTION_OUT, iVertex))
+          || (iDirection != Direction.OUT && isConnected(document, OrientBaseGraph.CONNECTION_IN, iVertex))) {
+        final OrientEdge edge = graph.getEdge(document);
+        if (isLabeled(edge.getLabel(), iLabels))
+          result.add(edge);
+      }
+    }
+    return result;
+  }
+
+  private static boolean isConnected(final ODocument iEdge, final String iConnection, final OIdentifiable iVertex) {
+    final Object connected = iEdge.rawField(iConnection);
+    return connected instanceof OIdentifiable && ((OIdentifiable) connected).getIdentity().equals(iVertex.getIdentity());
+  }
+
+  private static boolean isLabeled(final String iLabel, final String[] iLabels) {
+    if (iLabels == null || iLabels.length == 0)
+      return true;
+    for (String label : iLabels)
+      if (label.equalsIgnoreCase(iLabel))
+        return true;
+    return false;
+  }
+
 }
\ No newline at end of file
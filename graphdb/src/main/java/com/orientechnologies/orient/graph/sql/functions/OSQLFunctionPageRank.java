@@ -0,0 +1,61 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.orientechnologies.orient.graph.sql.functions;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.graph.analytics.OGraphAnalytics;
+import com.orientechnologies.orient.graph.analytics.OGraphSnapshot;
+import com.orientechnologies.orient.graph.analytics.OGraphSnapshotStore;
+
+import java.util.Map;
+
+/**
+ * Writes the PageRank of every vertex in a property. Options are damping (0.85 by default), maxIterations (20 by default) and
+ * tolerance (0.0001 by default).
+ *
+ * @see OGraphAnalytics#pageRank(double, int, double)
+ */
+public class OSQLFunctionPageRank extends OSQLFunctionGraphAnalyticsAbstract {
+  public static final String NAME = "pageRank";
+
+  public OSQLFunctionPageRank() {
+    super(NAME);
+  }
+
+  @Override
+  protected OGraphSnapshotStore.OVertexValue compute(final OGraphSnapshot snapshot, final OGraphAnalytics analytics,
+      final Map<String, Object> options, final ODocument result) {
+    final double[] ranks = analytics.pageRank(getDouble(options, "damping", 0.85), getInteger(options, "maxIterations", 20),
+        getDouble(options, "tolerance", 0.0001));
+
+    return new OGraphSnapshotStore.OVertexValue() {
+      @Override
+      public Object get(final int vertex) {
+        return ranks[vertex];
+      }
+    };
+  }
+
+  public String getSyntax() {
+    return "pageRank(<vertexClass>, <edgeLabels>, <property> [, { damping: <d>, maxIterations: <n>, tolerance: <t> }])";
+  }
+}
@@ -19,12 +19,16 @@
  */
 package com.orientechnologies.orient.graph.sql.functions;
 
+import com.orientechnologies.common.collection.OLongArrayDeque;
+import com.orientechnologies.common.collection.OLongHashSet;
+import com.orientechnologies.common.collection.OLongLongHashMap;
 import com.orientechnologies.common.collection.OMultiValue;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.command.OCommandExecutorAbstract;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.exception.OCommandExecutionException;
 import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OSQLHelper;
@@ -35,16 +39,15 @@ import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
 import com.tinkerpop.blueprints.impls.orient.OrientVertex;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
- * Shortest path algorithm to find the shortest path from one node to another node in a directed graph.
+ * Shortest path algorithm to find the shortest path from one node to another node in a directed graph. The search runs on record ids
+ * packed in longs (see {@link ORecordId#toLong(ORID)}), so visited vertices cost a slot in a primitive array instead of a vertex
+ * object, a record id and a hash entry each.
  *
  * @author Luca Garulli (l.garulli--at--orientechnologies.com)
  */
@@ -59,25 +62,26 @@ public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
   }
 
   private class OShortestPathContext {
-    OrientVertex sourceVertex;
-    OrientVertex destinationVertex;
+    OrientBaseGraph graph;
+    OrientVertex    sourceVertex;
+    OrientVertex    destinationVertex;
     Direction directionLeft  = Direction.BOTH;
     Direction directionRight = Direction.BOTH;
 
     String   edgeType;
     String[] edgeTypeParam;
 
-    ArrayDeque<OrientVertex> queueLeft  = new ArrayDeque<OrientVertex>();
-    ArrayDeque<OrientVertex> queueRight = new ArrayDeque<OrientVertex>();
+    OLongArrayDeque queueLeft  = new OLongArrayDeque();
+    OLongArrayDeque queueRight = new OLongArrayDeque();
 
-    final Set<ORID> leftVisited  = new HashSet<ORID>();
-    final Set<ORID> rightVisited = new HashSet<ORID>();
+    final OLongHashSet leftVisited  = new OLongHashSet();
+    final OLongHashSet rightVisited = new OLongHashSet();
 
-    final Map<ORID, ORID> previouses = new HashMap<ORID, ORID>();
-    final Map<ORID, ORID> nexts      = new HashMap<ORID, ORID>();
+    final OLongLongHashMap previouses = new OLongLongHashMap();
+    final OLongLongHashMap nexts      = new OLongLongHashMap();
 
-    OrientVertex current;
-    OrientVertex currentRight;
+    long current;
+    long currentRight;
     public Integer maxDepth;
   }
 
@@ -90,6 +94,7 @@ public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
         final ORecord record = iCurrentRecord != null ? iCurrentRecord.getRecord() : null;
 
         final OShortestPathContext ctx = new OShortestPathContext();
+        ctx.graph = graph;
 
         Object source = iParams[0];
         if (OMultiValue.isMultiValue(source)) {
@@ -132,11 +137,13 @@ public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
           bindAdditionalParams(iParams[4], ctx);
         }
 
-        ctx.queueLeft.add(ctx.sourceVertex);
-        ctx.leftVisited.add(ctx.sourceVertex.getIdentity());
+        final long sourceId = ORecordId.toLong(ctx.sourceVertex.getIdentity());
+        ctx.queueLeft.addLast(sourceId);
+        ctx.leftVisited.add(sourceId);
 
-        ctx.queueRight.add(ctx.destinationVertex);
-        ctx.rightVisited.add(ctx.destinationVertex.getIdentity());
+        final long destinationId = ORecordId.toLong(ctx.destinationVertex.getIdentity());
+        ctx.queueRight.addLast(destinationId);
+        ctx.rightVisited.add(destinationId);
 
         int depth = 1;
         while (true) {
@@ -234,31 +241,21 @@ public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
   }
 
   protected List<ORID> walkLeft(final OSQLFunctionShortestPath.OShortestPathContext ctx) {
-    ArrayDeque<OrientVertex> nextLevelQueue = new ArrayDeque<OrientVertex>();
+    final OLongArrayDeque nextLevelQueue = new OLongArrayDeque();
     while (!ctx.queueLeft.isEmpty()) {
-      ctx.current = ctx.queueLeft.poll();
+      ctx.current = ctx.queueLeft.removeFirst();
 
-      Iterable<Vertex> neighbors;
-      if (ctx.edgeType == null) {
-        neighbors = ctx.current.getVertices(ctx.directionLeft);
-      } else {
-        neighbors = ctx.current.getVertices(ctx.directionLeft, ctx.edgeTypeParam);
-      }
-      for (Vertex neighbor : neighbors) {
-        final OrientVertex v = (OrientVertex) neighbor;
-        final ORID neighborIdentity = v.getIdentity();
+      for (Vertex neighbor : getNeighbors(ctx, ctx.current, ctx.directionLeft)) {
+        final long neighborIdentity = ORecordId.toLong(((OrientVertex) neighbor).getIdentity());
 
         if (ctx.rightVisited.contains(neighborIdentity)) {
-          ctx.previouses.put(neighborIdentity, ctx.current.getIdentity());
+          ctx.previouses.put(neighborIdentity, ctx.current);
           return computePath(ctx.previouses, ctx.nexts, neighborIdentity);
         }
-        if (!ctx.leftVisited.contains(neighborIdentity)) {
-          ctx.previouses.put(neighborIdentity, ctx.current.getIdentity());
-
-          nextLevelQueue.offer(v);
-          ctx.leftVisited.add(neighborIdentity);
+        if (ctx.leftVisited.add(neighborIdentity)) {
+          ctx.previouses.put(neighborIdentity, ctx.current);
+          nextLevelQueue.addLast(neighborIdentity);
         }
-
       }
     }
     ctx.queueLeft = nextLevelQueue;
@@ -266,56 +263,57 @@ public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
   }
 
   protected List<ORID> walkRight(final OSQLFunctionShortestPath.OShortestPathContext ctx) {
-    final ArrayDeque<OrientVertex> nextLevelQueue = new ArrayDeque<OrientVertex>();
-
+    final OLongArrayDeque nextLevelQueue = new OLongArrayDeque();
     while (!ctx.queueRight.isEmpty()) {
-      ctx.currentRight = ctx.queueRight.poll();
+      ctx.currentRight = ctx.queueRight.removeFirst();
 
-      Iterable<Vertex> neighbors;
-      if (ctx.edgeType == null) {
-        neighbors = ctx.currentRight.getVertices(ctx.directionRight);
-      } else {
-        neighbors = ctx.currentRight.getVertices(ctx.directionRight, ctx.edgeTypeParam);
-      }
-      for (Vertex neighbor : neighbors) {
-        final OrientVertex v = (OrientVertex) neighbor;
-        final ORID neighborIdentity = v.getIdentity();
+      for (Vertex neighbor : getNeighbors(ctx, ctx.currentRight, ctx.directionRight)) {
+        final long neighborIdentity = ORecordId.toLong(((OrientVertex) neighbor).getIdentity());
 
         if (ctx.leftVisited.contains(neighborIdentity)) {
-          ctx.nexts.put(neighborIdentity, ctx.currentRight.getIdentity());
+          ctx.nexts.put(neighborIdentity, ctx.currentRight);
           return computePath(ctx.previouses, ctx.nexts, neighborIdentity);
         }
-        if (!ctx.rightVisited.contains(neighborIdentity)) {
-
-          ctx.nexts.put(neighborIdentity, ctx.currentRight.getIdentity());
-
-          nextLevelQueue.offer(v);
-          ctx.rightVisited.add(neighborIdentity);
+        if (ctx.rightVisited.add(neighborIdentity)) {
+          ctx.nexts.put(neighborIdentity, ctx.currentRight);
+          nextLevelQueue.addLast(neighborIdentity);
         }
-
       }
     }
     ctx.queueRight = nextLevelQueue;
     return null;
   }
 
-  private List<ORID> computePath(final Map<ORID, ORID> leftDistances, final Map<ORID, ORID> rightDistances, final ORID neighbor) {
-    final List<ORID> result = new ArrayList<ORID>();
+  private Iterable<Vertex> getNeighbors(final OShortestPathContext ctx, final long vertexId, final Direction direction) {
+    final OrientVertex vertex = ctx.graph.getVertex(ORecordId.fromLong(vertexId));
+    if (vertex == null)
+      // DELETED IN THE MEANTIME
+      return Collections.emptyList();
+
+    if (ctx.edgeType == null)
+      return vertex.getVertices(direction);
+    return vertex.getVertices(direction, ctx.edgeTypeParam);
+  }
+
+  private List<ORID> computePath(final OLongLongHashMap leftDistances, final OLongLongHashMap rightDistances, final long neighbor) {
+    final OLongArrayDeque path = new OLongArrayDeque();
+    path.addLast(neighbor);
 
-    ORID current = neighbor;
-    while (current != null) {
-      result.add(0, current);
-      current = leftDistances.get(current);
+    long current = neighbor;
+    while (leftDistances.containsKey(current)) {
+      current = leftDistances.get(current, 0);
+      path.addFirst(current);
     }
 
     current = neighbor;
-    while (current != null) {
-      current = rightDistances.get(current);
-      if (current != null) {
-        result.add(current);
-      }
+    while (rightDistances.containsKey(current)) {
+      current = rightDistances.get(current, 0);
+      path.addLast(current);
     }
 
+    final List<ORID> result = new ArrayList<ORID>(path.size());
+    for (int i = 0; i < path.size(); i++)
+      result.add(ORecordId.fromLong(path.get(i)));
     return result;
   }
 }
@@ -0,0 +1,65 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.orientechnologies.orient.graph.sql.functions;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.graph.analytics.OGraphAnalytics;
+import com.orientechnologies.orient.graph.analytics.OGraphSnapshot;
+import com.orientechnologies.orient.graph.analytics.OGraphSnapshotStore;
+
+import java.util.Map;
+
+/**
+ * Writes the number of triangles every vertex is part of in a property. The total number of triangles of the graph is returned in
+ * the "triangles" field of the result.
+ *
+ * @see OGraphAnalytics#triangleCount()
+ */
+public class OSQLFunctionTriangleCount extends OSQLFunctionGraphAnalyticsAbstract {
+  public static final String NAME = "triangleCount";
+
+  public OSQLFunctionTriangleCount() {
+    super(NAME);
+  }
+
+  @Override
+  protected OGraphSnapshotStore.OVertexValue compute(final OGraphSnapshot snapshot, final OGraphAnalytics analytics,
+      final Map<String, Object> options, final ODocument result) {
+    final int[] triangles = analytics.triangleCount();
+
+    long total = 0;
+    for (int count : triangles)
+      total += count;
+    result.field("triangles", total / 3);
+
+    return new OGraphSnapshotStore.OVertexValue() {
+      @Override
+      public Object get(final int vertex) {
+        return triangles[vertex];
+      }
+    };
+  }
+
+  public String getSyntax() {
+    return "triangleCount(<vertexClass>, <edgeLabels>, <property> [, <options>])";
+  }
+}
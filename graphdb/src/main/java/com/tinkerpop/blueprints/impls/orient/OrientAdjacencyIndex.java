@@ -0,0 +1,180 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.tinkerpop.blueprints.impls.orient;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.index.OCompositeIndexDefinition;
+import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.tinkerpop.blueprints.Direction;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * (Blueprints Extension) Composite index of an edge class on a connection of the edges followed by another property, as
+ * <code>(out, in)</code> or <code>(out, since)</code>. The index keeps the edges of every vertex sorted by the second property,
+ * so checking whether two vertices are connected or browsing the edges of a vertex in a range of values costs O(log n) instead of
+ * a scan of the whole RidBag of the vertex. Lightweight edges are not indexed: the edges of a class with an adjacency index are
+ * always stored as documents, but the ones created as lightweight before the index are not found through it.
+ *
+ * @see OrientEdgeType#createAdjacencyIndex(Direction, String)
+ * @see OrientVertexQuery
+ */
+public class OrientAdjacencyIndex {
+  private final OIndex<?> index;
+  private final Direction direction;
+  private final String    property;
+
+  private OrientAdjacencyIndex(final OIndex<?> index, final Direction direction, final String property) {
+    this.index = index;
+    this.direction = direction;
+    this.property = property;
+  }
+
+  /**
+   * Returns the adjacency index of an edge class or of its super classes on the connection of a direction followed by a property,
+   * null if there is none.
+   *
+   * @param iEdgeClass
+   *          the edge class
+   * @param iDirection
+   *          OUT for the index on the <code>out</code> connection, that finds the outgoing edges of a vertex, IN for the one on the
+   *          <code>in</code> connection
+   * @param iProperty
+   *          the second field of the index
+   * @param iRange
+   *          true if the index must support range queries
+   */
+  public static OrientAdjacencyIndex getIndex(final OClass iEdgeClass, final Direction iDirection, final String iProperty,
+      final boolean iRange) {
+    if (iEdgeClass == null || iDirection == null || iDirection == Direction.BOTH || iProperty == null)
+      return null;
+
+    final String connection = getConnection(iDirection);
+    for (OIndex<?> index : iEdgeClass.getInvolvedIndexes(connection, iProperty)) {
+      if (!(index.getDefinition() instanceof OCompositeIndexDefinition))
+        continue;
+
+      final List<String> fields = index.getDefinition().getFields();
+      if ( !fields.get(0).equalsIgnoreCase(connection) || !fields.get(1).equalsIgnoreCase(iProperty))
+        continue;
+
+      // A PARTIAL KEY IS ALWAYS A RANGE
+      if ((iRange || fields.size() > 2) ? index.getInternal().hasRangeQuerySupport() : index.getInternal()
+          .canBeUsedInEqualityOperators())
+        return new OrientAdjacencyIndex(index, iDirection, iProperty);
+    }
+    return null;
+  }
+
+  public OIndex<?> getIndex() {
+    return index;
+  }
+
+  public Direction getDirection() {
+    return direction;
+  }
+
+  public String getProperty() {
+    return property;
+  }
+
+  /**
+   * Returns the edges of a vertex whose property is equal to a value, null if the value cannot be converted to a key of the index.
+   */
+  public Iterator<OIdentifiable> getEdges(final OIdentifiable iVertex, final Object iValue) {
+    final Object key = createKey(iVertex, iValue);
+    if (key == null)
+      return null;
+
+    if (index.getInternal().hasRangeQuerySupport())
+      return index.iterateEntriesBetween(key, true, key, true, true);
+
+    final Object result = index.get(key);
+    if (result == null)
+      return Collections.<OIdentifiable> emptyList().iterator();
+    if (result instanceof OIdentifiable)
+      return Collections.singleton((OIdentifiable) result).iterator();
+    return ((Collection<OIdentifiable>) result).iterator();
+  }
+
+  /**
+   * Returns the edges of a vertex whose property is in a range, sorted by the property, null if a bound cannot be converted to a
+   * key of the index.
+   *
+   * @param iVertex
+   *          the vertex on the connection of the index
+   * @param iFrom
+   *          lower bound, null for no lower bound
+   * @param iFromInclusive
+   *          true if the lower bound is part of the range
+   * @param iTo
+   *          upper bound, null for no upper bound
+   * @param iToInclusive
+   *          true if the upper bound is part of the range
+   */
+  public Iterator<OIdentifiable> getEdges(final OIdentifiable iVertex, final Object iFrom, final boolean iFromInclusive,
+      final Object iTo, final boolean iToInclusive) {
+    // A KEY WITH THE VERTEX ONLY STANDS FOR ALL ITS EDGES
+    final Object from = iFrom != null ? createKey(iVertex, iFrom) : createKey(iVertex);
+    final Object to = iTo != null ? createKey(iVertex, iTo) : createKey(iVertex);
+    if (from == null || to == null)
+      return null;
+
+    return index.iterateEntriesBetween(from, iFrom == null || iFromInclusive, to, iTo == null || iToInclusive, true);
+  }
+
+  @Override
+  public String toString() {
+    return index.getName();
+  }
+
+  private Object createKey(final Object... iParams) {
+    if (iParams[0] instanceof OIdentifiable)
+      iParams[0] = ((OIdentifiable) iParams[0]).getIdentity();
+    if (iParams.length > 1 && iParams[1] instanceof OIdentifiable)
+      iParams[1] = ((OIdentifiable) iParams[1]).getIdentity();
+
+    return ((OCompositeIndexDefinition) index.getDefinition()).createSingleValue(Arrays.asList(iParams));
+  }
+
+  /**
+   * Returns true if the edges of a class or of its super classes are in an adjacency index, so they cannot be lightweight.
+   */
+  static boolean hasIndexes(final OClass iEdgeClass) {
+    for (OIndex<?> index : iEdgeClass.getIndexes())
+      if (index.getDefinition() instanceof OCompositeIndexDefinition) {
+        final String field = index.getDefinition().getFields().get(0);
+        if (field.equalsIgnoreCase(OrientBaseGraph.CONNECTION_OUT) || field.equalsIgnoreCase(OrientBaseGraph.CONNECTION_IN))
+          return true;
+      }
+    return false;
+  }
+
+  static String getConnection(final Direction iDirection) {
+    return iDirection == Direction.OUT ? OrientBaseGraph.CONNECTION_OUT : OrientBaseGraph.CONNECTION_IN;
+  }
+}
@@ -23,6 +23,7 @@ package com.tinkerpop.blueprints.impls.orient;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBagPayloadSerializer;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
@@ -40,6 +41,8 @@ import java.util.*;
  * OrientDB Edge implementation of TinkerPop Blueprints standard. Edges can be classic or lightweight. Lightweight edges have no
  * properties and have no identity on database. Lightweight edges are created by default when an Edge is created without properties.
  * To disable this option execute this command against the database: <code>alter database custom useLightweightEdges=false</code>.
+ * Inline edges are lightweight edges whose properties are stored next to the links of the vertices, they are created when the edge
+ * class declares inline properties, see {@link OrientEdgeType#setInlineProperties(String)}.
  *
  * @author Luca Garulli (http://www.orientechnologies.com)
  */
@@ -50,6 +53,10 @@ public class OrientEdge extends OrientElement implements Edge {
   protected OIdentifiable vOut;
   protected OIdentifiable vIn;
   protected String        label;
+  /**
+   * Properties of an inline edge as stored next to the links of the vertices, null for the other edges.
+   */
+  protected byte[]        inlinePayload;
 
   /**
    * (Internal) Called by serialization
@@ -273,9 +280,14 @@ public class OrientEdge extends OrientElement implements Edge {
   public <T> T getProperty(final String key) {
     setCurrentGraphInThreadLocal();
 
-    if (rawElement == null)
+    if (rawElement == null) {
       // LIGHTWEIGHT EDGE
-      return null;
+      if (inlinePayload == null)
+        return null;
+
+      final ORidBagPayloadSerializer serializer = getInlineSerializer();
+      return serializer != null ? (T) serializer.get(inlinePayload, key) : null;
+    }
 
     return super.getProperty(key);
   }
@@ -284,6 +296,13 @@ public class OrientEdge extends OrientElement implements Edge {
     return rawElement == null;
   }
 
+  /**
+   * (Blueprints Extension) Returns true if the edge is lightweight and its properties are stored next to the links of the vertices.
+   */
+  public boolean isInline() {
+    return rawElement == null && inlinePayload != null;
+  }
+
   /**
    * Returns all the Property names as Set of String. out, in and label are not returned as properties even if are part of the
    * underlying document because are considered internal properties.
@@ -292,7 +311,7 @@ public class OrientEdge extends OrientElement implements Edge {
   public Set<String> getPropertyKeys() {
     if (rawElement == null)
       // LIGHTWEIGHT EDGE
-      return Collections.emptySet();
+      return inlinePayload != null ? new HashSet<String>(getInlineProperties().keySet()) : Collections.<String> emptySet();
 
     setCurrentGraphInThreadLocal();
 
@@ -309,7 +328,7 @@ public class OrientEdge extends OrientElement implements Edge {
   @Override
   public Map<String, Object> getProperties() {
     if (this.rawElement == null)
-      return null;
+      return inlinePayload != null ? getInlineProperties() : null;
     final ODocument raw = this.rawElement.getRecord();
     if (raw == null)
       return null;
@@ -336,9 +355,22 @@ public class OrientEdge extends OrientElement implements Edge {
   public void setProperty(final String key, final Object value) {
     setCurrentGraphInThreadLocal();
 
-    if (rawElement == null)
+    if (rawElement == null) {
       // LIGHTWEIGHT EDGE
+      if (inlinePayload != null) {
+        final ORidBagPayloadSerializer serializer = getInlineSerializer();
+        if (serializer != null && serializer.contains(key)) {
+          validateProperty(this, key, value);
+          try {
+            setInlinePayload(serializer.set(inlinePayload, key, value));
+            return;
+          } catch (IllegalArgumentException e) {
+            // THE VALUE DOES NOT FIT THE INLINE TYPE: STORE IT IN A REGULAR EDGE
+          }
+        }
+      }
       convertToDocument();
+    }
 
     super.setProperty(key, value);
   }
@@ -356,6 +388,16 @@ public class OrientEdge extends OrientElement implements Edge {
     if (rawElement != null)
       // NON LIGHTWEIGHT EDGE
       return super.removeProperty(key);
+
+    if (inlinePayload != null) {
+      final ORidBagPayloadSerializer serializer = getInlineSerializer();
+      if (serializer != null && serializer.contains(key)) {
+        final T old = (T) serializer.get(inlinePayload, key);
+        if (old != null)
+          setInlinePayload(serializer.set(inlinePayload, key, null));
+        return old;
+      }
+    }
     return null;
   }
 
@@ -427,6 +469,8 @@ public class OrientEdge extends OrientElement implements Edge {
       tmp.field(OrientBaseGraph.CONNECTION_OUT, vOut.getIdentity());
       if (label != null && settings != null && !settings.isUseClassForEdgeLabel())
         tmp.field(OrientEdge.LABEL_FIELD_NAME, label);
+      if (inlinePayload != null)
+        tmp.fields(getInlineProperties());
       return tmp;
     }
 
@@ -450,6 +494,8 @@ public class OrientEdge extends OrientElement implements Edge {
     final ODocument vInRecord = vIn.getRecord();
 
     final ODocument doc = createDocument(label);
+    if (inlinePayload != null)
+      doc.fields(getInlineProperties());
 
     doc.field(OrientBaseGraph.CONNECTION_OUT, settings.isKeepInMemoryReferences() ? vOutRecord.getIdentity() : vOutRecord);
     doc.field(OrientBaseGraph.CONNECTION_IN, settings.isKeepInMemoryReferences() ? vInRecord.getIdentity() : vInRecord);
@@ -474,6 +520,7 @@ public class OrientEdge extends OrientElement implements Edge {
     vOut = null;
     vIn = null;
     label = null;
+    inlinePayload = null;
   }
 
   /**
@@ -517,6 +564,47 @@ public class OrientEdge extends OrientElement implements Edge {
     return isLabeled(getLabel(), iLabels);
   }
 
+  private ORidBagPayloadSerializer getInlineSerializer() {
+    final OrientBaseGraph graph = getGraph();
+    if (graph == null || label == null)
+      return null;
+
+    return OrientEdgeType.getInlineSerializer(graph.getRawGraph().getMetadata().getImmutableSchemaSnapshot().getClass(label));
+  }
+
+  private Map<String, Object> getInlineProperties() {
+    final ORidBagPayloadSerializer serializer = inlinePayload != null ? getInlineSerializer() : null;
+    if (serializer == null)
+      return new HashMap<String, Object>();
+    return serializer.toMap(inlinePayload);
+  }
+
+  /**
+   * Replaces the payload stored next to the links of both vertices.
+   */
+  private void setInlinePayload(final byte[] payload) {
+    final OrientBaseGraph graph = checkIfAttached();
+    graph.autoStartTransaction();
+
+    final ODocument vOutRecord = vOut.getRecord();
+    final ODocument vInRecord = vIn.getRecord();
+    final boolean useVertexFieldsForEdgeLabels = settings.isUseVertexFieldsForEdgeLabels();
+
+    final Object outField = vOutRecord.rawField(OrientVertex.getConnectionFieldName(Direction.OUT, label,
+        useVertexFieldsForEdgeLabels));
+    if (outField instanceof ORidBag)
+      ((ORidBag) outField).setPayload(vInRecord, payload);
+    vOutRecord.save();
+
+    final Object inField = vInRecord.rawField(OrientVertex.getConnectionFieldName(Direction.IN, label,
+        useVertexFieldsForEdgeLabels));
+    if (inField instanceof ORidBag)
+      ((ORidBag) inField).setPayload(vOutRecord, payload);
+    vInRecord.save();
+
+    inlinePayload = payload;
+  }
+
   protected ODocument createDocument(final String iLabel) {
     final String className = getClassName(iLabel);
 
@@ -27,6 +27,7 @@ import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBagPayloadIterator;
 import com.orientechnologies.orient.core.iterator.OLazyWrapperIterator;
 import com.orientechnologies.orient.core.metadata.schema.OImmutableClass;
 import com.orientechnologies.orient.core.record.ORecord;
@@ -124,6 +125,9 @@ public class OrientEdgeIterator extends OLazyWrapperIterator<OrientEdge> {
       } else {
         edge = graph.getEdgeInstance(rec.getIdentity(), this.sourceVertex.getIdentity(), connection.getValue());
       }
+      if (iterator instanceof ORidBagPayloadIterator)
+        // INLINE EDGE: THE PROPERTIES ARE NEXT TO THE LINK JUST READ
+        edge.inlinePayload = ((ORidBagPayloadIterator) iterator).getPayload();
       if (newGraph) {
         graph.shutdown(false, false);
       }
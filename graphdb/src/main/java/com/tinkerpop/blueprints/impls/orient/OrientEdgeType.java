@@ -16,8 +16,14 @@
 
 package com.tinkerpop.blueprints.impls.orient;
 
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBagPayloadSerializer;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OImmutableClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.tinkerpop.blueprints.Direction;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Represents an Edge class.
@@ -27,6 +33,10 @@ import com.orientechnologies.orient.core.metadata.schema.OImmutableClass;
 public class OrientEdgeType extends OrientElementType {
   // Keeping the name in Immutable class because i cannot do the other way around
   public static final String CLASS_NAME = OClass.EDGE_CLASS_NAME;
+  public static final String INLINE_PROPERTIES = "inlineProperties";
+
+  private static final ConcurrentMap<String, ORidBagPayloadSerializer> INLINE_SERIALIZERS = new ConcurrentHashMap<String,
+      ORidBagPayloadSerializer>();
 
   public OrientEdgeType(final OrientBaseGraph graph, final OClass delegate) {
     super(graph, delegate);
@@ -56,6 +66,96 @@ public class OrientEdgeType extends OrientElementType {
     return this;
   }
 
+  /**
+   * (Blueprints Extension) Returns the definition of the inline properties, null if the edges of this class cannot be inline.
+   *
+   * @see #setInlineProperties(String)
+   */
+  public String getInlineProperties() {
+    return delegate.getCustom(INLINE_PROPERTIES);
+  }
+
+  /**
+   * (Blueprints Extension) Declares the properties that edges of this class can store inline, as in
+   * <code>weight:DOUBLE,since:DATETIME</code>. An edge whose properties are all among them is stored as a lightweight edge with
+   * the values next to the links of the vertices, so traversals can read them without loading any edge record. Only fixed size
+   * types are allowed, properties can be appended later without affecting the existing edges.
+   * <p>
+   * Edges are stored inline only while the ridbags of both vertices are embedded. When a ridbag reaches
+   * {@link com.orientechnologies.orient.core.config.OGlobalConfiguration#RID_BAG_EMBEDDED_TO_SBTREEBONSAI_THRESHOLD} its inline
+   * edges are converted to regular edges, so it can be converted to a tree.
+   * <p>
+   * The JSON format, used also by the database export, writes ridbags as lists of links without their payloads: the properties of
+   * inline edges are lost on export and import. Convert them with {@link OrientEdge#convertToDocument()} before exporting.
+   *
+   * @param iDefinition
+   *          comma separated list of name:TYPE, null to stop creating inline edges
+   */
+  public OrientEdgeType setInlineProperties(final String iDefinition) {
+    if (iDefinition != null)
+      // VALIDATE IT
+      new ORidBagPayloadSerializer(iDefinition);
+
+    delegate.setCustom(INLINE_PROPERTIES, iDefinition);
+    return this;
+  }
+
+  /**
+   * Returns the serializer of the inline properties of an edge class, null if it has none.
+   */
+  static ORidBagPayloadSerializer getInlineSerializer(final OClass iClass) {
+    final String definition = iClass != null ? iClass.getCustom(INLINE_PROPERTIES) : null;
+    if (definition == null)
+      return null;
+
+    ORidBagPayloadSerializer serializer = INLINE_SERIALIZERS.get(definition);
+    if (serializer == null) {
+      serializer = new ORidBagPayloadSerializer(definition);
+      final ORidBagPayloadSerializer found = INLINE_SERIALIZERS.putIfAbsent(definition, serializer);
+      if (found != null)
+        serializer = found;
+    }
+    return serializer;
+  }
+
+  /**
+   * (Blueprints Extension) Creates the adjacency indexes of the edges of this class on a connection followed by a property, as
+   * <code>Knows.out_since</code> on <code>(out, since)</code>, so the edges of a vertex can be looked up by the property without
+   * browsing them all. The <code>out</code> and <code>in</code> properties are created as LINK if missing. From now on the edges
+   * of this class are always stored as documents, because lightweight edges cannot be indexed.
+   *
+   * @param iDirection
+   *          OUT to index the outgoing edges of the vertices, IN for the incoming ones, BOTH for both
+   * @param iProperty
+   *          the property of the edges to sort them by, null for the opposite connection, that finds the edges between two
+   *          vertices
+   * @see OrientAdjacencyIndex
+   */
+  public OrientEdgeType createAdjacencyIndex(final Direction iDirection, final String iProperty) {
+    final Direction[] directions = iDirection == Direction.BOTH ? new Direction[] { Direction.OUT, Direction.IN }
+        : new Direction[] { iDirection };
+
+    for (Direction direction : directions) {
+      final String connection = OrientAdjacencyIndex.getConnection(direction);
+      final String property = iProperty != null ? iProperty : OrientAdjacencyIndex.getConnection(direction.opposite());
+      if (property.equalsIgnoreCase(connection))
+        throw new IllegalArgumentException("Cannot index the edges of class '" + getName() + "' on '" + connection + "' twice");
+
+      if (getProperty(connection) == null)
+        createProperty(connection, OType.LINK);
+      if (getProperty(property) == null) {
+        if (!property.equals(OrientBaseGraph.CONNECTION_OUT) && !property.equals(OrientBaseGraph.CONNECTION_IN))
+          throw new IllegalArgumentException("Property '" + property + "' is not defined in class '" + getName() + "'");
+        createProperty(property, OType.LINK);
+      }
+
+      final String indexName = getName() + "." + connection + "_" + property;
+      if (getClassIndex(indexName) == null)
+        createIndex(indexName, INDEX_TYPE.NOTUNIQUE, connection, property);
+    }
+    return this;
+  }
+
   @Override public boolean isEdgeType() {
     return true;
   }
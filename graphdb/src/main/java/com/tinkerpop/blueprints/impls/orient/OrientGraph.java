@@ -332,8 +332,11 @@ public class OrientGraph extends OrientTransactionalGraph {
       throw ExceptionFactory.edgeLabelCanNotBeNull();
 
     OrientEdge edge = null;
-    if (currentVertex.canCreateDynamicEdge(outDocument, inDocument, outFieldName, inFieldName, fields, label)) {
-      // CREATE A LIGHTWEIGHT DYNAMIC EDGE
+    final byte[] inlinePayload = currentVertex.getInlineEdgePayload(outDocument, inDocument, outFieldName, inFieldName, fields,
+        label);
+    if (inlinePayload != null
+        || currentVertex.canCreateDynamicEdge(outDocument, inDocument, outFieldName, inFieldName, fields, label)) {
+      // CREATE A LIGHTWEIGHT DYNAMIC EDGE, WITH ITS PROPERTIES STORED INLINE IF ANY
       from = currentVertex.rawElement;
       to = inDocument;
       if (edge == null) {
@@ -342,6 +345,7 @@ public class OrientGraph extends OrientTransactionalGraph {
         else
           edge = getEdgeInstance( from, to, label);
       }
+      edge.inlinePayload = inlinePayload;
     } else {
       if (edge == null) {
         // CREATE THE EDGE DOCUMENT TO STORE FIELDS TOO
@@ -366,15 +370,20 @@ public class OrientGraph extends OrientTransactionalGraph {
     }
 
     // OUT-VERTEX ---> IN-VERTEX/EDGE
-    currentVertex.createLink(this, outDocument, to, outFieldName);
+    currentVertex.createLink(this, outDocument, to, outFieldName, inlinePayload);
 
     // IN-VERTEX ---> OUT-VERTEX/EDGE
-    currentVertex.createLink(this, inDocument, from, inFieldName);
+    currentVertex.createLink(this, inDocument, from, inFieldName, inlinePayload);
     // THE DIRTY MANAGER MANAGE THE SAVE OF ALL LINKED ENTITIES.
     if (!edge.isLightweight())
       edge.save(iClusterName);
     else
       outDocument.save();
+
+    if (inlinePayload == null) {
+      OrientVertex.convertInlineEdges(this, outDocument, outFieldName, Direction.OUT, label);
+      OrientVertex.convertInlineEdges(this, inDocument, inFieldName, Direction.IN, label);
+    }
     return edge;
   }
 
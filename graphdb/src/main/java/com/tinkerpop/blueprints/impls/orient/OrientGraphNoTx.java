@@ -200,8 +200,12 @@ public class OrientGraphNoTx extends OrientBaseGraph {
 
         final ODocument edgeRecord;
         final boolean lightWeightEdge;
-        if (currentVertex.canCreateDynamicEdge(outDocument, inDocument, outFieldName, inFieldName, fields, label)) {
-          // CREATE A LIGHTWEIGHT DYNAMIC EDGE
+        // ON RETRY THE OUT VERTEX MAY ALREADY CONTAIN THE INLINE EDGE
+        final byte[] inlinePayload = edge != null ? edge.inlinePayload : currentVertex.getInlineEdgePayload(outDocument,
+            inDocument, outFieldName, inFieldName, fields, label);
+        if (inlinePayload != null
+            || currentVertex.canCreateDynamicEdge(outDocument, inDocument, outFieldName, inFieldName, fields, label)) {
+          // CREATE A LIGHTWEIGHT DYNAMIC EDGE, WITH ITS PROPERTIES STORED INLINE IF ANY
           lightWeightEdge = true;
           from = currentVertex.rawElement;
           to = inDocument;
@@ -211,6 +215,7 @@ public class OrientGraphNoTx extends OrientBaseGraph {
             else
               edge = graph.getEdgeInstance( from, to, label);
           }
+          edge.inlinePayload = inlinePayload;
           edgeRecord = null;
         } else {
           lightWeightEdge = false;
@@ -243,7 +248,7 @@ public class OrientGraphNoTx extends OrientBaseGraph {
 
         if (!outDocumentModified) {
           // OUT-VERTEX ---> IN-VERTEX/EDGE
-          currentVertex.createLink(graph, outDocument, to, outFieldName);
+          currentVertex.createLink(graph, outDocument, to, outFieldName, inlinePayload);
 
           if (graph != null) {
             outDocument.save();
@@ -252,7 +257,7 @@ public class OrientGraphNoTx extends OrientBaseGraph {
         }
 
         // IN-VERTEX ---> OUT-VERTEX/EDGE
-        currentVertex.createLink(graph, inDocument, from, inFieldName);
+        currentVertex.createLink(graph, inDocument, from, inFieldName, inlinePayload);
 
         if (graph != null)
           inDocument.save();
@@ -282,6 +287,14 @@ public class OrientGraphNoTx extends OrientBaseGraph {
         throw OException.wrapException(new OrientGraphModificationException("Error on addEdge in non tx environment"), e);
       }
     }
+
+    if (graph != null && edge != null && !edge.isInline()) {
+      final boolean useVertexFieldsForEdgeLabels = settings.isUseVertexFieldsForEdgeLabels();
+      OrientVertex.convertInlineEdges(graph, outDocument,
+          OrientVertex.getConnectionFieldName(Direction.OUT, label, useVertexFieldsForEdgeLabels), Direction.OUT, label);
+      OrientVertex.convertInlineEdges(graph, inDocument,
+          OrientVertex.getConnectionFieldName(Direction.IN, label, useVertexFieldsForEdgeLabels), Direction.IN, label);
+    }
     return edge;
   }
 
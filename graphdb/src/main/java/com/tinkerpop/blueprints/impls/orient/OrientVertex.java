@@ -25,11 +25,14 @@ import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.common.util.OPair;
 import com.orientechnologies.orient.core.command.OCommandPredicate;
 import com.orientechnologies.orient.core.command.traverse.OTraverse;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.record.OAutoConvertToRecord;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.db.record.ORecordLazyList;
 import com.orientechnologies.orient.core.db.record.ORecordLazyMultiValue;
 import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBagPayloadIterator;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBagPayloadSerializer;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.metadata.schema.*;
@@ -105,6 +108,15 @@ public class OrientVertex extends OrientElement implements OrientExtendedVertex
    */
   public static Object createLink(final OrientBaseGraph iGraph, final ODocument iFromVertex, final OIdentifiable iTo,
       final String iFieldName) {
+    return createLink(iGraph, iFromVertex, iTo, iFieldName, null);
+  }
+
+  /**
+   * (Internal only) Creates a link between a vertices and a Graph Element storing the payload of an inline edge next to it. The
+   * payload requires the field to be empty or to contain an embedded {@link ORidBag}.
+   */
+  public static Object createLink(final OrientBaseGraph iGraph, final ODocument iFromVertex, final OIdentifiable iTo,
+      final String iFieldName, final byte[] iPayload) {
     final Object out;
     OType outType = iFromVertex.fieldType(iFieldName);
     Object found = iFromVertex.field(iFieldName);
@@ -117,7 +129,7 @@ public class OrientVertex extends OrientElement implements OrientExtendedVertex
     final OType propType = prop != null && prop.getType() != OType.ANY ? prop.getType() : null;
 
     if (found == null) {
-      if (iGraph.isAutoScaleEdgeType() && (prop == null || propType == OType.LINK || "true"
+      if (iPayload == null && iGraph.isAutoScaleEdgeType() && (prop == null || propType == OType.LINK || "true"
           .equalsIgnoreCase(prop.getCustom(OrientVertexType.OrientVertexProperty.ORDERED)))) {
         // CREATE ONLY ONE LINK
         out = iTo;
@@ -130,7 +142,7 @@ public class OrientVertex extends OrientElement implements OrientExtendedVertex
         outType = OType.LINKLIST;
       } else if (propType == null || propType == OType.LINKBAG) {
         final ORidBag bag = new ORidBag();
-        bag.add(iTo);
+        bag.add(iTo, iPayload);
         out = bag;
         outType = OType.LINKBAG;
       } else
@@ -159,7 +171,7 @@ public class OrientVertex extends OrientElement implements OrientExtendedVertex
       // ADD THE LINK TO THE COLLECTION
       out = null;
 
-      ((ORidBag) found).add(iTo);
+      ((ORidBag) found).add(iTo, iPayload);
 
     } else if (found instanceof Collection<?>) {
       // USE THE FOUND COLLECTION
@@ -1128,6 +1140,136 @@ public class OrientVertex extends OrientElement implements OrientExtendedVertex
       iterable.add(toAdd);
   }
 
+  /**
+   * Returns the payload of an inline edge when the class of the edge declares inline properties, all the properties of the edge
+   * are among them and both vertices can store it in an embedded {@link ORidBag}, otherwise null.
+   *
+   * @see OrientEdgeType#setInlineProperties(String)
+   */
+  byte[] getInlineEdgePayload(final ODocument iFromVertex, final ODocument iToVertex, final String iOutFieldName,
+      final String iInFieldName, final Object[] fields, final String label) {
+
+    checkIfAttached();
+
+    if (label == null || !settings.isUseClassForEdgeLabel() || !settings.isUseVertexFieldsForEdgeLabels())
+      return null;
+
+    final OrientEdgeType edgeType = getGraph().getEdgeType(label);
+    final ORidBagPayloadSerializer serializer = OrientEdgeType.getInlineSerializer(edgeType);
+    if (serializer == null)
+      return null;
+
+    final Map<String, Object> properties = getEdgeProperties(fields);
+    if (properties == null)
+      return null;
+
+    for (String key : properties.keySet())
+      if (!serializer.contains(key))
+        return null;
+
+    // THE CONSTRAINTS OF THE EDGE CLASS CANNOT BE CHECKED WITHOUT A DOCUMENT
+    for (OProperty p : edgeType.properties())
+      if (p.isMandatory() || p.isNotNull() || !p.getOwnerClass().getInvolvedIndexes(p.getName()).isEmpty())
+        return null;
+    if (OrientAdjacencyIndex.hasIndexes(edgeType))
+      return null;
+
+    if (!canStoreInlineEdge(iFromVertex, iOutFieldName, iToVertex) || !canStoreInlineEdge(iToVertex, iInFieldName, iFromVertex))
+      return null;
+
+    try {
+      return serializer.serialize(properties);
+    } catch (IllegalArgumentException e) {
+      // VALUES THAT DO NOT FIT THE INLINE TYPES ARE STORED IN A REGULAR EDGE
+      return null;
+    }
+  }
+
+  private static boolean canStoreInlineEdge(final ODocument iVertex, final String iFieldName, final OIdentifiable iTarget) {
+    final Object found = iVertex.rawField(iFieldName);
+    if (found == null) {
+      final OClass cls = ODocumentInternal.getImmutableSchemaClass(iVertex);
+      final OProperty prop = cls != null ? cls.getProperty(iFieldName) : null;
+      if (prop != null && ((prop.getType() != OType.ANY && prop.getType() != OType.LINKBAG) || "true".equalsIgnoreCase(prop
+          .getCustom(OrientVertexType.OrientVertexProperty.ORDERED))))
+        return false;
+
+      // A NEW RIDBAG IS EMBEDDED UNLESS THE TREE IS ALWAYS USED
+      return OGlobalConfiguration.RID_BAG_EMBEDDED_TO_SBTREEBONSAI_THRESHOLD.getValueAsInteger() >= 0;
+    }
+
+    if (!(found instanceof ORidBag) || !((ORidBag) found).isEmbedded())
+      return false;
+
+    // THE BAG MUST STAY BELOW THE SIZE AT WHICH IT IS CONVERTED TO A TREE, WHICH CANNOT STORE PAYLOADS
+    if (((ORidBag) found).size() + 1 >= OGlobalConfiguration.RID_BAG_EMBEDDED_TO_SBTREEBONSAI_THRESHOLD.getValueAsInteger())
+      return false;
+
+    // A SECOND EDGE BETWEEN THE SAME VERTICES WOULD SHARE THE PAYLOAD OF THE FIRST ONE
+    return !((ORidBag) found).contains(iTarget);
+  }
+
+  /**
+   * Converts the inline edges of a connection field to regular edges once its {@link ORidBag} reaches the size at which it is
+   * converted to a tree, because the tree cannot store their payloads. The bag is converted when the vertex is saved.
+   *
+   * @param iDirection
+   *          direction of the connections stored in the field
+   */
+  static void convertInlineEdges(final OrientBaseGraph iGraph, final ODocument iVertex, final String iFieldName,
+      final Direction iDirection, final String iLabel) {
+    final Object found = iVertex.rawField(iFieldName);
+    if (!(found instanceof ORidBag)
+        || ((ORidBag) found).size() < OGlobalConfiguration.RID_BAG_EMBEDDED_TO_SBTREEBONSAI_THRESHOLD.getValueAsInteger()
+        || !((ORidBag) found).hasPayloads())
+      return;
+
+    // COLLECT THEM FIRST: THE CONVERSION CHANGES THE BAG
+    final List<OIdentifiable> targets = new ArrayList<OIdentifiable>();
+    final List<byte[]> payloads = new ArrayList<byte[]>();
+    for (Iterator<OIdentifiable> it = ((ORidBag) found).rawIterator(); it.hasNext();) {
+      final OIdentifiable target = it.next();
+      final byte[] payload = ((ORidBagPayloadIterator) it).getPayload();
+      if (payload != null) {
+        targets.add(target);
+        payloads.add(payload);
+      }
+    }
+
+    for (int i = 0; i < targets.size(); i++) {
+      final OrientEdge edge = iDirection == Direction.OUT ? iGraph.getEdgeInstance(iVertex, targets.get(i), iLabel) : iGraph
+          .getEdgeInstance(targets.get(i), iVertex, iLabel);
+      edge.inlinePayload = payloads.get(i);
+      edge.convertToDocument();
+    }
+  }
+
+  private static Map<String, Object> getEdgeProperties(final Object[] fields) {
+    final Map<String, Object> properties = new HashMap<String, Object>();
+    if (fields == null || fields.length == 0 || fields[0] == null)
+      return properties;
+
+    if (fields.length == 1) {
+      if (fields[0] instanceof Map<?, ?>) {
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) fields[0]).entrySet())
+          properties.put(entry.getKey().toString(), entry.getValue());
+      } else if (fields[0] instanceof Collection<?>) {
+        for (Object o : (Collection<?>) fields[0]) {
+          if (!(o instanceof OPair))
+            return null;
+          properties.put(((OPair<?, ?>) o).getKey().toString(), ((OPair<?, ?>) o).getValue());
+        }
+      } else
+        return null;
+    } else {
+      if (fields.length % 2 != 0)
+        return null;
+      for (int i = 0; i < fields.length; i += 2)
+        properties.put(fields[i].toString(), fields[i + 1]);
+    }
+    return properties;
+  }
+
   boolean canCreateDynamicEdge(final ODocument iFromVertex, final ODocument iToVertex, final String iOutFieldName,
       final String iInFieldName, final Object[] fields, final String label) {
 
@@ -1162,11 +1304,15 @@ public class OrientVertex extends OrientElement implements OrientExtendedVertex
       if (settings.isUseClassForEdgeLabel()) {
         // CHECK IF THE EDGE CLASS HAS SPECIAL CONSTRAINTS
         final OClass cls = graph.getEdgeType(label);
-        if (cls != null)
+        if (cls != null) {
           for (OProperty p : cls.properties()) {
             if (p.isMandatory() || p.isNotNull() || !p.getOwnerClass().getInvolvedIndexes(p.getName()).isEmpty())
               return false;
           }
+
+          if (OrientAdjacencyIndex.hasIndexes(cls))
+            return false;
+        }
       }
 
       // CAN USE DYNAMIC EDGES
@@ -0,0 +1,315 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.tinkerpop.blueprints.impls.orient;
+
+import com.orientechnologies.common.util.OPair;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ORecordLazyMultiValue;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OImmutableClass;
+import com.orientechnologies.orient.core.metadata.schema.OImmutableSchema;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.record.impl.ODocumentInternal;
+import com.tinkerpop.blueprints.Direction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * (Blueprints Extension) Expands the neighbors of many vertices at once. {@link OrientVertex#getVertices(Direction, String...)}
+ * loads every edge and every vertex while iterating, one record at a time. Here the connections of the vertices are collected
+ * first, then the records they point to are loaded in batches, which the storage reads sorted by position and page (see
+ * {@link ODatabaseDocumentTx#executeReadRecords(Set, boolean)}): one batch for the source vertices that are not loaded yet, one for
+ * the edges and one for the neighbor vertices. Lightweight edges point directly to vertices, which are recognized by the cluster of
+ * their record id.
+ * <p>
+ * The neighbors are expanded while they are browsed, at most
+ * {@link OGlobalConfiguration#SQL_GRAPH_NEIGHBORS_BATCH_SIZE} connections at a time, so the neighbors of a supernode are never
+ * all kept in memory. They are returned in the same order as {@link OrientVertex#getVertices(Direction, String...)} would return
+ * them, vertex after vertex.
+ */
+public class OrientVertexNeighbors implements Iterable<OrientVertex> {
+  private final OrientBaseGraph                   graph;
+  private final Iterable<? extends OIdentifiable> vertices;
+  private final Direction                         direction;
+  private final String[]                          labels;
+  private final int                               batchSize;
+
+  private OrientVertexNeighbors(final OrientBaseGraph graph, final Iterable<? extends OIdentifiable> vertices,
+      final Direction direction, final String[] labels, final int batchSize) {
+    this.graph = graph;
+    this.vertices = vertices;
+    this.direction = direction;
+    this.labels = labels;
+    this.batchSize = Math.max(batchSize, 1);
+  }
+
+  public static Iterable<OrientVertex> getVertices(final OrientBaseGraph graph, final Iterable<? extends OIdentifiable> iVertices,
+      final Direction iDirection, final String... iLabels) {
+    graph.setCurrentGraphInThreadLocal();
+
+    OrientBaseGraph.getEdgeClassNames(graph, iLabels);
+    OrientBaseGraph.encodeClassNames(iLabels);
+
+    return new OrientVertexNeighbors(graph, iVertices, iDirection, iLabels,
+        OGlobalConfiguration.SQL_GRAPH_NEIGHBORS_BATCH_SIZE.getValueAsInteger());
+  }
+
+  @Override
+  public Iterator<OrientVertex> iterator() {
+    return new NeighborIterator();
+  }
+
+  private class NeighborIterator implements Iterator<OrientVertex> {
+    private final ODatabaseDocumentTx               db             = graph.getRawGraph();
+    private final OImmutableSchema                  schema         = db.getMetadata().getImmutableSchemaSnapshot();
+    private final Iterator<? extends OIdentifiable> sources        = vertices.iterator();
+    private Iterator<ODocument>                     loadedSources  = Collections.<ODocument> emptyList().iterator();
+    private ODocument                               vertexRecord;
+    private OrientVertex                            vertex;
+    private String[]                                fieldNames;
+    private int                                     fieldIndex;
+    private Direction                               connectionDirection;
+    private Iterator<?>                             connections    = Collections.emptyList().iterator();
+    private Iterator<OrientVertex>                  neighbors      = Collections.<OrientVertex> emptyList().iterator();
+
+    @Override
+    public boolean hasNext() {
+      while (!neighbors.hasNext())
+        if (!expandNextBatch())
+          return false;
+      return true;
+    }
+
+    @Override
+    public OrientVertex next() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+      return neighbors.next();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Collects the next connections, up to the batch size, and loads their edges and neighbors.
+     *
+     * @return false if there are no more connections
+     */
+    private boolean expandNextBatch() {
+      // CONNECTED RECORDS IN ORDER, WITH THE DIRECTION OF THEIR CONNECTION
+      final List<OIdentifiable> connected = new ArrayList<OIdentifiable>();
+      final List<Direction> directions = new ArrayList<Direction>();
+      final List<OIdentifiable> edges = new ArrayList<OIdentifiable>();
+
+      while (connected.size() < batchSize) {
+        if (!connections.hasNext()) {
+          if (nextConnection())
+            continue;
+          break;
+        }
+
+        final Object item = connections.next();
+        if (!(item instanceof OIdentifiable))
+          continue;
+
+        final OIdentifiable identifiable = (OIdentifiable) item;
+        connected.add(identifiable);
+        directions.add(connectionDirection);
+
+        if (!isVertex(schema, identifiable))
+          edges.add(identifiable);
+      }
+
+      if (connected.isEmpty())
+        return false;
+
+      // LOAD ALL THE EDGES AT ONCE, THEN PICK THE VERTICES ON THE OTHER SIDE
+      final Map<ORID, ODocument> loadedEdges = new HashMap<ORID, ODocument>();
+      loadRecords(db, edges, loadedEdges);
+
+      final List<OIdentifiable> neighborIds = new ArrayList<OIdentifiable>(connected.size());
+      for (int i = 0; i < connected.size(); i++) {
+        final OIdentifiable identifiable = connected.get(i);
+        if (isVertex(schema, identifiable)) {
+          neighborIds.add(identifiable);
+          continue;
+        }
+
+        final ODocument record = identifiable instanceof ODocument ? (ODocument) identifiable : loadedEdges.get(identifiable
+            .getIdentity());
+        if (record == null)
+          // DELETED
+          continue;
+
+        final OImmutableClass cls = ODocumentInternal.getImmutableSchemaClass(record);
+        if (cls != null && cls.isVertexType())
+          neighborIds.add(record);
+        else if (cls != null && cls.isEdgeType()) {
+          if (graph.isUseVertexFieldsForEdgeLabels() || OrientEdge.isLabeled(OrientEdge.getRecordLabel(record), labels)) {
+            final OIdentifiable neighbor = OrientEdge.getConnection(record, directions.get(i).opposite());
+            if (neighbor != null)
+              neighborIds.add(neighbor);
+          }
+        } else
+          throw new IllegalStateException("Invalid content found between connections: " + record);
+      }
+
+      // LOAD ALL THE NEIGHBORS AT ONCE
+      final List<ODocument> records = loadRecords(db, neighborIds, null);
+      final List<OrientVertex> result = new ArrayList<OrientVertex>(records.size());
+      for (ODocument record : records)
+        result.add(graph.getVertex(record));
+
+      neighbors = result.iterator();
+      return true;
+    }
+
+    /**
+     * Moves to the next field of the current vertex, or of the next vertices, which connects them in the requested direction.
+     */
+    private boolean nextConnection() {
+      while (true) {
+        while (fieldNames != null && fieldIndex < fieldNames.length) {
+          final String fieldName = fieldNames[fieldIndex++];
+          final OPair<Direction, String> connection = vertex.getConnection(direction, fieldName, labels);
+          if (connection != null) {
+            connectionDirection = connection.getKey();
+            connections = getRawIterator(vertexRecord.rawField(fieldName));
+            return true;
+          }
+        }
+
+        if (!nextVertex())
+          return false;
+      }
+    }
+
+    private boolean nextVertex() {
+      while (true) {
+        if (!loadedSources.hasNext()) {
+          // LOAD THE NEXT SOURCE VERTICES IN ONE BATCH
+          final List<OIdentifiable> batch = new ArrayList<OIdentifiable>();
+          while (batch.size() < batchSize && sources.hasNext())
+            batch.add(sources.next());
+          if (batch.isEmpty())
+            return false;
+
+          loadedSources = loadRecords(db, batch, null).iterator();
+          continue;
+        }
+
+        final ODocument doc = loadedSources.next();
+        final OImmutableClass cls = ODocumentInternal.getImmutableSchemaClass(doc);
+        if (cls == null || !cls.isVertexType())
+          continue;
+
+        vertexRecord = doc;
+        vertex = graph.getVertex(doc);
+
+        fieldNames = null;
+        if (labels != null && labels.length > 0) {
+          fieldNames = vertex.getFieldNames(direction, labels);
+          if (fieldNames != null)
+            doc.deserializeFields(fieldNames);
+        }
+        if (fieldNames == null)
+          fieldNames = doc.fieldNames();
+        fieldIndex = 0;
+        return true;
+      }
+    }
+  }
+
+  private static boolean isVertex(final OImmutableSchema schema, final OIdentifiable identifiable) {
+    if (identifiable instanceof OrientVertex)
+      return true;
+
+    final OClass cls = identifiable instanceof ODocument ? ODocumentInternal.getImmutableSchemaClass((ODocument) identifiable)
+        : schema.getClassByClusterId(identifiable.getIdentity().getClusterId());
+    return cls != null && cls.isVertexType();
+  }
+
+  private static Iterator<?> getRawIterator(final Object fieldValue) {
+    if (fieldValue instanceof OIdentifiable)
+      return Collections.singleton(fieldValue).iterator();
+    if (fieldValue instanceof ORecordLazyMultiValue)
+      return ((ORecordLazyMultiValue) fieldValue).rawIterator();
+    if (fieldValue instanceof ORidBag)
+      return ((ORidBag) fieldValue).rawIterator();
+    if (fieldValue instanceof Collection<?>)
+      return ((Collection<?>) fieldValue).iterator();
+    return Collections.emptyList().iterator();
+  }
+
+  /**
+   * Returns the records in the same order, loading the ones which are not loaded yet in one batch and skipping the deleted ones.
+   *
+   * @param loaded if not null, collects the loaded records by identity
+   */
+  private static List<ODocument> loadRecords(final ODatabaseDocumentTx db, final Iterable<? extends OIdentifiable> iRecords,
+      final Map<ORID, ODocument> loaded) {
+    // THE ITERABLE COULD BE BROWSED ONLY ONCE
+    final List<OIdentifiable> identifiables = new ArrayList<OIdentifiable>();
+    final Set<ORecordId> toLoad = new HashSet<ORecordId>();
+    for (OIdentifiable identifiable : iRecords) {
+      final OIdentifiable record = identifiable instanceof OrientElement ? ((OrientElement) identifiable).rawElement : identifiable;
+      identifiables.add(record);
+      if (record != null && !(record instanceof ORecord) && record.getIdentity().isPersistent())
+        toLoad.add(new ORecordId(record.getIdentity()));
+    }
+
+    final Map<ORID, ODocument> records = loaded != null ? loaded : new HashMap<ORID, ODocument>();
+    if (!toLoad.isEmpty())
+      for (ORecord record : db.executeReadRecords(toLoad, false))
+        if (record instanceof ODocument)
+          records.put(record.getIdentity(), (ODocument) record);
+
+    final List<ODocument> result = new ArrayList<ODocument>(identifiables.size());
+    for (OIdentifiable record : identifiables) {
+      if (record instanceof ODocument)
+        result.add((ODocument) record);
+      else if (record != null) {
+        final ODocument doc = records.get(record.getIdentity());
+        if (doc != null)
+          result.add(doc);
+      }
+    }
+    return result;
+  }
+}
@@ -20,10 +20,28 @@
 
 package com.tinkerpop.blueprints.impls.orient;
 
+import com.orientechnologies.common.collection.OMultiCollectionIterator;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.iterator.OLazyWrapperIterator;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.DefaultVertexQuery;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 /**
- * OrientDB implementation for vertex centric queries.
+ * OrientDB implementation for vertex centric queries. When the edges of every label and direction of the query are in an
+ * {@link OrientAdjacencyIndex} on the property of one of the conditions, as <code>has("since", Compare.GREATER_THAN, 2010)</code>
+ * with an index on <code>(out, since)</code> or <code>has("in", otherVertex)</code> with an index on <code>(out, in)</code>, the
+ * edges are looked up in the indexes instead of browsing all the edges of the vertex.
  * 
  * @author Luca Garulli (http://www.orientechnologies.com)
  */
@@ -33,6 +51,24 @@ public class OrientVertexQuery extends DefaultVertexQuery {
     super(vertex);
   }
 
+  @Override
+  public Iterable<Edge> edges() {
+    final List<OIndexLookup> lookups = getIndexLookups();
+    if (lookups == null)
+      return super.edges();
+
+    return new OIndexedIterable<Edge>(lookups, false);
+  }
+
+  @Override
+  public Iterable<Vertex> vertices() {
+    final List<OIndexLookup> lookups = getIndexLookups();
+    if (lookups == null)
+      return super.vertices();
+
+    return new OIndexedIterable<Vertex>(lookups, true);
+  }
+
   /**
    * (Blueprints Extension) Counts the total items found. This method is more efficient than executing the query and browse the
    * returning Iterable.
@@ -49,7 +85,185 @@ public class OrientVertexQuery extends DefaultVertexQuery {
       return counter;
     }
 
+    final List<OIndexLookup> lookups = getIndexLookups();
+    if (lookups != null) {
+      // BROWSE THE EDGES FOUND IN THE INDEXES ONLY
+      long counter = 0;
+      for (Edge e : new OIndexedIterable<Edge>(lookups, false))
+        counter++;
+      return counter;
+    }
+
     // ITERATE EDGES TO MATCH CONDITIONS
     return super.count();
   }
+
+  /**
+   * Returns a lookup for every edge class and direction of the query, null if the edges of any of them can only be found by
+   * browsing the vertex.
+   */
+  private List<OIndexLookup> getIndexLookups() {
+    if (hasContainers.isEmpty())
+      return null;
+
+    final OrientBaseGraph graph = ((OrientVertex) vertex).getGraph();
+    if (graph == null || !graph.isUseClassForEdgeLabel())
+      return null;
+
+    final List<OClass> classes = new ArrayList<OClass>();
+    if (labels == null || labels.length == 0)
+      classes.add(graph.getEdgeBaseType());
+    else
+      for (String label : labels) {
+        final OClass cls = graph.getEdgeType(label);
+        if (cls == null)
+          return null;
+        classes.add(cls);
+      }
+
+    final Direction[] directions = direction == Direction.BOTH ? new Direction[] { Direction.OUT, Direction.IN }
+        : new Direction[] { direction };
+
+    final List<OIndexLookup> lookups = new ArrayList<OIndexLookup>();
+    for (OClass cls : classes)
+      for (Direction d : directions) {
+        final OIndexLookup lookup = getIndexLookup(cls, d);
+        if (lookup == null)
+          return null;
+        lookups.add(lookup);
+      }
+    return lookups;
+  }
+
+  private OIndexLookup getIndexLookup(final OClass iClass, final Direction iDirection) {
+    for (HasContainer has : hasContainers) {
+      if (has.value == null || !(has.predicate instanceof Compare) || has.predicate == Compare.NOT_EQUAL)
+        continue;
+
+      final boolean connection = has.key.equals(OrientBaseGraph.CONNECTION_OUT) || has.key.equals(OrientBaseGraph.CONNECTION_IN);
+      if (connection && (has.predicate != Compare.EQUAL || !(has.value instanceof OIdentifiable)))
+        // ONLY THE EDGES TO A VERTEX CAN BE LOOKED UP BY CONNECTION
+        continue;
+
+      final OrientAdjacencyIndex index = OrientAdjacencyIndex.getIndex(iClass, iDirection, has.key, has.predicate != Compare.EQUAL);
+      if (index == null)
+        continue;
+
+      // NARROW THE LOOKUP WITH ALL THE CONDITIONS ON THE SAME PROPERTY, ALL OF THEM ARE CHECKED AGAINST THE EDGES FOUND ANYWAY
+      final OIndexLookup lookup = new OIndexLookup(index);
+      for (HasContainer bound : hasContainers)
+        if (bound.key.equals(has.key) && bound.value != null && bound.predicate instanceof Compare)
+          lookup.addBound((Compare) bound.predicate, bound.value);
+      return lookup;
+    }
+    return null;
+  }
+
+  private static class OIndexLookup {
+    private final OrientAdjacencyIndex index;
+    private Object                     equal;
+    private Object                     from;
+    private boolean                    fromInclusive;
+    private Object                     to;
+    private boolean                    toInclusive;
+
+    private OIndexLookup(final OrientAdjacencyIndex index) {
+      this.index = index;
+    }
+
+    private void addBound(final Compare iCompare, final Object iValue) {
+      switch (iCompare) {
+      case EQUAL:
+        equal = iValue;
+        break;
+      case GREATER_THAN:
+      case GREATER_THAN_EQUAL:
+        if (from == null) {
+          from = iValue;
+          fromInclusive = iCompare == Compare.GREATER_THAN_EQUAL;
+        }
+        break;
+      case LESS_THAN:
+      case LESS_THAN_EQUAL:
+        if (to == null) {
+          to = iValue;
+          toInclusive = iCompare == Compare.LESS_THAN_EQUAL;
+        }
+        break;
+      }
+    }
+
+    private Iterator<OIdentifiable> execute(final OIdentifiable iVertex) {
+      if (equal != null)
+        return index.getEdges(iVertex, equal);
+      return index.getEdges(iVertex, from, fromInclusive, to, toInclusive);
+    }
+  }
+
+  private class OIndexedIterable<T extends Element> implements Iterable<T> {
+    private final List<OIndexLookup> lookups;
+    private final boolean            vertices;
+
+    private OIndexedIterable(final List<OIndexLookup> lookups, final boolean vertices) {
+      this.lookups = lookups;
+      this.vertices = vertices;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      final OrientBaseGraph graph = ((OrientVertex) vertex).getGraph();
+
+      final OMultiCollectionIterator<T> iterator = new OMultiCollectionIterator<T>();
+      for (OIndexLookup lookup : lookups) {
+        final Iterator<OIdentifiable> found = lookup.execute((OIdentifiable) vertex);
+        // A VALUE THAT CANNOT BE CONVERTED TO THE TYPE OF THE PROPERTY DOES NOT MATCH ANY EDGE
+        if (found != null)
+          iterator.add(new OIndexedIterator<T>(graph, found, lookup.index.getDirection(), vertices));
+      }
+
+      if (limit != Integer.MAX_VALUE)
+        iterator.setLimit(limit);
+      return iterator;
+    }
+  }
+
+  private class OIndexedIterator<T extends Element> extends OLazyWrapperIterator<T> {
+    private final OrientBaseGraph graph;
+    private final Direction       direction;
+    private final boolean         vertices;
+
+    private OIndexedIterator(final OrientBaseGraph graph, final Iterator<OIdentifiable> iterator, final Direction direction,
+        final boolean vertices) {
+      super(iterator);
+      this.graph = graph;
+      this.direction = direction;
+      this.vertices = vertices;
+    }
+
+    @Override
+    public boolean filter(final T iObject) {
+      // THE CONDITIONS ARE CHECKED AGAINST THE EDGE, ALSO WHEN THE VERTICES ARE RETURNED
+      return true;
+    }
+
+    @Override
+    public boolean canUseMultiValueDirectly() {
+      return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T createGraphElement(final Object iObject) {
+      final ORecord record = ((OIdentifiable) iObject).getRecord();
+      if (!(record instanceof ODocument))
+        return null;
+
+      final OrientEdge edge = graph.getEdge(record);
+      for (HasContainer has : hasContainers)
+        if (!has.isLegal(edge))
+          return null;
+
+      return (T) (vertices ? edge.getVertex(direction.opposite()) : edge);
+    }
+  }
 }
@@ -0,0 +1,112 @@
+package com.orientechnologies.orient.graph.analytics;
+
+import com.orientechnologies.orient.core.id.ORecordId;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OGraphAnalyticsTest {
+
+  @Test
+  public void testSnapshot() {
+    final OGraphSnapshot.Builder builder = new OGraphSnapshot.Builder();
+    builder.addEdge(rid(0), rid(1));
+    builder.addVertex(rid(0)).addVertex(rid(1)).addVertex(rid(2)).addVertex(rid(1));
+    builder.addEdge(rid(0), rid(1)).addEdge(rid(1), rid(1)).addEdge(rid(2), rid(0)).addEdge(rid(2), rid(3));
+
+    final OGraphSnapshot snapshot = builder.build();
+    assertEquals(3, snapshot.getVertexCount());
+    // THE EDGE TO THE MISSING VERTEX IS DROPPED
+    assertEquals(4, snapshot.getEdgeCount());
+    assertEquals(2, snapshot.getOutDegree(0));
+    assertEquals(3, snapshot.getInDegree(1));
+    assertEquals(1, snapshot.indexOf(rid(1)));
+    assertEquals(-1, snapshot.indexOf(rid(3)));
+    assertEquals(rid(2), snapshot.getRecordId(2));
+
+    assertArrayEquals(new int[] { 0, 2, 3, 4 }, snapshot.getUndirectedOffsets());
+    assertArrayEquals(new int[] { 1, 2, 0, 0 }, snapshot.getUndirectedTargets());
+  }
+
+  @Test
+  public void testPageRank() {
+    // CYCLE 0 -> 1 -> 2 -> 0 PLUS 3 -> 0 AND THE DANGLING VERTEX 4
+    final OGraphSnapshot snapshot = snapshot(5, 0, 1, 1, 2, 2, 0, 3, 0, 3, 4);
+
+    for (int parallelDegree = 1; parallelDegree <= 4; parallelDegree *= 2) {
+      final OGraphAnalytics analytics = new OGraphAnalytics(snapshot, parallelDegree);
+      final double[] ranks = analytics.pageRank(0.85, 200, 1e-9);
+
+      double sum = 0;
+      for (double rank : ranks)
+        sum += rank;
+      assertEquals(1.0, sum, 1e-6);
+      assertTrue(analytics.getIterations() < 200);
+
+      assertTrue(ranks[0] > ranks[1]);
+      assertTrue(ranks[3] < ranks[4]);
+      // 1 AND 2 ONLY RECEIVE THE WHOLE RANK OF 0 AND 1
+      assertEquals(ranks[1] - 0.85 * ranks[0], ranks[2] - 0.85 * ranks[1], 1e-6);
+    }
+  }
+
+  @Test
+  public void testPageRankOfLargeGraph() {
+    final int vertices = 20000;
+    final int[] edges = new int[vertices * 4];
+    for (int i = 0; i < vertices; i++) {
+      edges[i * 4] = i;
+      edges[i * 4 + 1] = (i + 1) % vertices;
+      edges[i * 4 + 2] = i;
+      edges[i * 4 + 3] = (int) ((i * 7919L) % vertices);
+    }
+    final OGraphSnapshot snapshot = snapshot(vertices, edges);
+
+    final double[] sequential = new OGraphAnalytics(snapshot, 1).pageRank(0.85, 30, 0);
+    final double[] parallel = new OGraphAnalytics(snapshot, 4).pageRank(0.85, 30, 0);
+    assertArrayEquals(sequential, parallel, 0);
+  }
+
+  @Test
+  public void testWeaklyConnectedComponents() {
+    final OGraphSnapshot snapshot = snapshot(7, 1, 0, 2, 1, 4, 3, 5, 5, 6, 4);
+
+    final int[] components = new OGraphAnalytics(snapshot, 2).weaklyConnectedComponents();
+    assertArrayEquals(new int[] { 0, 0, 0, 3, 3, 5, 3 }, components);
+  }
+
+  @Test
+  public void testLabelPropagation() {
+    // TWO CLIQUES OF 4 VERTICES JOINED BY THE EDGE 3 -> 4
+    final OGraphSnapshot snapshot = snapshot(8, 0, 1, 0, 2, 0, 3, 1, 2, 1, 3, 2, 3, 4, 5, 4, 6, 4, 7, 5, 6, 5, 7, 6, 7, 3, 4);
+
+    final OGraphAnalytics analytics = new OGraphAnalytics(snapshot, 2);
+    final int[] labels = analytics.labelPropagation(10);
+    assertArrayEquals(new int[] { 0, 0, 0, 0, 4, 4, 4, 4 }, labels);
+    assertTrue(analytics.getIterations() < 10);
+  }
+
+  @Test
+  public void testTriangleCount() {
+    // TRIANGLES 0-1-2 AND 0-2-3, WITH A PARALLEL EDGE, A REVERSED EDGE AND A SELF LOOP
+    final OGraphSnapshot snapshot = snapshot(5, 0, 1, 1, 2, 2, 0, 0, 3, 3, 2, 2, 3, 1, 0, 4, 4, 3, 4);
+
+    final int[] triangles = new OGraphAnalytics(snapshot, 2).triangleCount();
+    assertArrayEquals(new int[] { 2, 1, 2, 1, 0 }, triangles);
+  }
+
+  private static OGraphSnapshot snapshot(final int vertices, final int... edges) {
+    final OGraphSnapshot.Builder builder = new OGraphSnapshot.Builder();
+    for (int i = 0; i < vertices; i++)
+      builder.addVertex(rid(i));
+    for (int i = 0; i < edges.length; i += 2)
+      builder.addEdge(rid(edges[i]), rid(edges[i + 1]));
+    return builder.build();
+  }
+
+  private static ORecordId rid(final int position) {
+    return new ORecordId(9, position);
+  }
+}
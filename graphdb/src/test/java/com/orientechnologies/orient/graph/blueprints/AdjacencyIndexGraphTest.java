@@ -0,0 +1,112 @@
+package com.orientechnologies.orient.graph.blueprints;
+
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.orient.OrientAdjacencyIndex;
+import com.tinkerpop.blueprints.impls.orient.OrientEdge;
+import com.tinkerpop.blueprints.impls.orient.OrientEdgeType;
+import com.tinkerpop.blueprints.impls.orient.OrientGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientVertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class AdjacencyIndexGraphTest {
+  private OrientGraph    graph;
+  private OrientVertex   hub;
+  private OrientVertex[] friends = new OrientVertex[50];
+
+  @Before
+  public void setUp() {
+    graph = new OrientGraph("memory:" + AdjacencyIndexGraphTest.class.getSimpleName());
+    graph.createVertexType("Person");
+    final OrientEdgeType knows = graph.createEdgeType("Knows");
+    knows.createProperty("since", OType.INTEGER);
+    knows.createAdjacencyIndex(Direction.BOTH, "since").createAdjacencyIndex(Direction.OUT, null);
+
+    hub = graph.addVertex("class:Person", "name", "hub");
+    for (int i = 0; i < friends.length; i++) {
+      friends[i] = graph.addVertex("class:Person", "name", "p" + i);
+      hub.addEdge("Knows", friends[i], new Object[] { "since", i, "weight", i % 2 });
+    }
+    graph.commit();
+  }
+
+  @After
+  public void tearDown() {
+    graph.drop();
+  }
+
+  @Test
+  public void testIndexes() {
+    final OrientEdgeType knows = graph.getEdgeType("Knows");
+    assertNotNull(knows.getClassIndex("Knows.out_since"));
+    assertNotNull(knows.getClassIndex("Knows.in_since"));
+    assertNotNull(knows.getClassIndex("Knows.out_in"));
+
+    assertNotNull(OrientAdjacencyIndex.getIndex(knows, Direction.OUT, "since", true));
+    assertNotNull(OrientAdjacencyIndex.getIndex(knows, Direction.OUT, "in", false));
+    assertNull(OrientAdjacencyIndex.getIndex(knows, Direction.IN, "out", false));
+
+    // INDEXED EDGES CANNOT BE LIGHTWEIGHT
+    final OrientEdge edge = (OrientEdge) hub.addEdge("Knows", graph.addVertex("class:Person"));
+    assertFalse(edge.isLightweight());
+  }
+
+  @Test
+  public void testRange() {
+    final OrientVertex vertex = graph.getVertex(hub.getIdentity());
+
+    final List<Integer> since = new ArrayList<Integer>();
+    for (Edge edge : vertex.query().direction(Direction.OUT).labels("Knows").has("since", Compare.GREATER_THAN_EQUAL, 40)
+        .has("since", Compare.LESS_THAN, 45).edges())
+      since.add(edge.<Integer> getProperty("since"));
+    assertEquals(5, since.size());
+    for (int i = 0; i < since.size(); i++)
+      assertEquals(40 + i, since.get(i).intValue());
+
+    assertEquals(47, vertex.query().direction(Direction.OUT).labels("Knows").has("since", Compare.GREATER_THAN, 2).count());
+    assertEquals(3, vertex.query().direction(Direction.OUT).labels("Knows").has("since", Compare.LESS_THAN_EQUAL, 2).count());
+    assertEquals(2, vertex.query().direction(Direction.OUT).labels("Knows").has("since", Compare.LESS_THAN_EQUAL, 2).limit(2)
+        .count());
+
+    // THE CONDITIONS WITHOUT INDEX ARE CHECKED ON THE EDGES FOUND
+    assertEquals(2, vertex.query().direction(Direction.OUT).labels("Knows").has("since", Compare.GREATER_THAN, 45)
+        .has("weight", 1).count());
+
+    final Vertex friend = vertex.query().direction(Direction.OUT).labels("Knows").has("since", 7).vertices().iterator().next();
+    assertEquals(friends[7].getIdentity(), ((OrientVertex) friend).getIdentity());
+
+    final OrientVertex target = graph.getVertex(friends[3].getIdentity());
+    assertEquals(1, target.query().direction(Direction.IN).labels("Knows").has("since", 3).count());
+    assertEquals(0, target.query().direction(Direction.IN).labels("Knows").has("since", 4).count());
+    assertEquals(1, target.query().direction(Direction.BOTH).labels("Knows").has("since", 3).count());
+  }
+
+  @Test
+  public void testExistence() {
+    final OrientVertex vertex = graph.getVertex(hub.getIdentity());
+    final OrientVertex other = graph.addVertex("class:Person", "name", "other");
+    graph.commit();
+
+    assertEquals(1, vertex.query().direction(Direction.OUT).labels("Knows").has("in", friends[10]).count());
+    assertEquals(0, vertex.query().direction(Direction.OUT).labels("Knows").has("in", other).count());
+
+    // NEW EDGES ARE FOUND BEFORE THE COMMIT
+    vertex.addEdge("Knows", other, new Object[] { "since", 100 });
+    final Edge edge = vertex.query().direction(Direction.OUT).labels("Knows").has("in", other).edges().iterator().next();
+    assertEquals(100, edge.<Object> getProperty("since"));
+    assertEquals(1, vertex.query().direction(Direction.OUT).labels("Knows").has("since", Compare.GREATER_THAN, 49).count());
+  }
+}
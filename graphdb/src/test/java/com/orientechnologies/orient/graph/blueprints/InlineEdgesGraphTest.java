@@ -0,0 +1,136 @@
+package com.orientechnologies.orient.graph.blueprints;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.impls.orient.OrientEdge;
+import com.tinkerpop.blueprints.impls.orient.OrientGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientVertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class InlineEdgesGraphTest {
+  private OrientGraph graph;
+
+  @Before
+  public void setUp() {
+    graph = new OrientGraph("memory:" + InlineEdgesGraphTest.class.getSimpleName());
+    graph.createVertexType("Person");
+    graph.createEdgeType("Knows").setInlineProperties("weight:DOUBLE,since:DATETIME");
+  }
+
+  @After
+  public void tearDown() {
+    graph.drop();
+  }
+
+  @Test
+  public void testInlineEdge() {
+    OrientVertex luca = graph.addVertex("class:Person", "name", "Luca");
+    OrientVertex jay = graph.addVertex("class:Person", "name", "Jay");
+
+    final OrientEdge edge = luca.addEdge("Knows", jay, new Object[] { "weight", 0.5f, "since", new Date(1000) });
+    assertTrue(edge.isInline());
+    assertEquals(0.5d, edge.<Object> getProperty("weight"));
+    graph.commit();
+
+    // NO EDGE RECORD IS CREATED
+    assertEquals(0, graph.getRawGraph().countClass("Knows"));
+
+    luca = graph.getVertex(luca.getIdentity());
+    jay = graph.getVertex(jay.getIdentity());
+
+    final OrientEdge out = single(luca.getEdges(Direction.OUT, "Knows"));
+    assertTrue(out.isInline());
+    assertEquals(jay.getIdentity(), out.getInVertex().getIdentity());
+    assertEquals(0.5d, out.<Object> getProperty("weight"));
+    assertEquals(new Date(1000), out.getProperty("since"));
+    assertEquals(2, out.getPropertyKeys().size());
+
+    out.setProperty("weight", 2);
+    out.removeProperty("since");
+    graph.commit();
+
+    final OrientEdge in = single(graph.getVertex(jay.getIdentity()).getEdges(Direction.IN, "Knows"));
+    assertTrue(in.isInline());
+    assertEquals(2d, in.<Object> getProperty("weight"));
+    assertNull(in.getProperty("since"));
+    assertEquals(2d, single(graph.getVertex(luca.getIdentity()).getEdges(Direction.OUT, "Knows")).<Object> getProperty("weight"));
+  }
+
+  @Test
+  public void testConversionToRegularEdge() {
+    final OrientVertex luca = graph.addVertex("class:Person", "name", "Luca");
+    final OrientVertex jay = graph.addVertex("class:Person", "name", "Jay");
+    final OrientVertex tom = graph.addVertex("class:Person", "name", "Tom");
+
+    // A PROPERTY WHICH IS NOT INLINE FORCES A REGULAR EDGE
+    final OrientEdge regular = luca.addEdge("Knows", tom, new Object[] { "weight", 1, "note", "friends" });
+    assertFalse(regular.isLightweight());
+
+    luca.addEdge("Knows", jay, new Object[] { "weight", 3 });
+    graph.commit();
+    assertEquals(1, graph.getRawGraph().countClass("Knows"));
+
+    OrientEdge edge = single(graph.getVertex(jay.getIdentity()).getEdges(Direction.IN, "Knows"));
+    edge.setProperty("note", "colleagues");
+    graph.commit();
+    assertEquals(2, graph.getRawGraph().countClass("Knows"));
+
+    edge = single(graph.getVertex(jay.getIdentity()).getEdges(Direction.IN, "Knows"));
+    assertFalse(edge.isLightweight());
+    assertEquals(3d, edge.<Object> getProperty("weight"));
+    assertEquals("colleagues", edge.getProperty("note"));
+  }
+
+  @Test
+  public void testSupernodeConversion() {
+    final int threshold = OGlobalConfiguration.RID_BAG_EMBEDDED_TO_SBTREEBONSAI_THRESHOLD.getValueAsInteger();
+    OGlobalConfiguration.RID_BAG_EMBEDDED_TO_SBTREEBONSAI_THRESHOLD.setValue(10);
+    try {
+      final OrientVertex luca = graph.addVertex("class:Person", "name", "Luca");
+      for (int i = 0; i < 9; i++)
+        assertTrue(luca.addEdge("Knows", graph.addVertex("class:Person", "name", "p" + i), new Object[] { "weight", i })
+            .isInline());
+      graph.commit();
+      assertEquals(0, graph.getRawGraph().countClass("Knows"));
+
+      // THE BAG REACHES THE THRESHOLD: ALL ITS INLINE EDGES BECOME REGULAR
+      final OrientEdge last = luca.addEdge("Knows", graph.addVertex("class:Person", "name", "p9"), new Object[] { "weight", 9 });
+      assertFalse(last.isLightweight());
+      graph.commit();
+      assertEquals(10, graph.getRawGraph().countClass("Knows"));
+
+      final OrientVertex reloaded = graph.getVertex(luca.getIdentity());
+      assertFalse(((ORidBag) reloaded.getRecord().field("out_Knows")).isEmbedded());
+
+      double total = 0;
+      for (Edge e : reloaded.getEdges(Direction.OUT, "Knows")) {
+        final OrientEdge edge = (OrientEdge) e;
+        assertFalse(edge.isLightweight());
+        total += edge.<Number> getProperty("weight").doubleValue();
+      }
+      assertEquals(45d, total, 0);
+    } finally {
+      OGlobalConfiguration.RID_BAG_EMBEDDED_TO_SBTREEBONSAI_THRESHOLD.setValue(threshold);
+    }
+  }
+
+  private static OrientEdge single(final Iterable<Edge> edges) {
+    final Iterator<Edge> iterator = edges.iterator();
+    assertTrue(iterator.hasNext());
+    final OrientEdge edge = (OrientEdge) iterator.next();
+    assertFalse(iterator.hasNext());
+    return edge;
+  }
+}
@@ -1713,6 +1713,54 @@ public class OMatchStatementExecutionTest {
     assertEquals(1, result.size());
   }
 
+  @Test
+  public void testBoundEndpoints() {
+    // both ends have few candidates, so the path between them is reduced from both sides
+    List<ODocument> qResult = db.command(new OCommandSQL(
+        "match {class:Person, as:a, where:(name = 'n1')}.out('Friend'){as:b}.out('Friend'){as:c}.out('Friend'){class:Person, as:d, where:(name = 'n5')} return b.name as b, c.name as c"))
+        .execute();
+    assertEquals(1, qResult.size());
+    assertEquals("n2", qResult.get(0).field("b"));
+    assertEquals("n4", qResult.get(0).field("c"));
+
+    qResult = db.command(new OCommandSQL(
+        "match {class:Person, as:d, where:(name = 'n6')}.in('Friend'){as:c}.in('Friend'){as:b}.in('Friend'){class:Person, as:a, where:(name = 'n1')} return b.name as b, c.name as c"))
+        .execute();
+    assertEquals(1, qResult.size());
+    assertEquals("n2", qResult.get(0).field("b"));
+    assertEquals("n4", qResult.get(0).field("c"));
+
+    qResult = db.command(new OCommandSQL(
+        "match {class:Person, as:a, where:(name = 'n1')}.out('Friend'){as:b}.out('Friend'){class:Person, as:c, where:(name = 'n3')} return $matches"))
+        .execute();
+    assertEquals(0, qResult.size());
+  }
+
+  @Test
+  public void testBoundEndpointsBoth() {
+    List<ODocument> qResult = db.command(new OCommandSQL(
+        "match {class:Person, as:a, where:(name = 'n3')}.both('Friend'){as:b}.both('Friend'){as:c}.both('Friend'){class:Person, as:d, where:(name = 'n4')} return b.name as b, c.name as c"))
+        .execute();
+    assertEquals(1, qResult.size());
+    assertEquals("n1", qResult.get(0).field("b"));
+    assertEquals("n2", qResult.get(0).field("c"));
+  }
+
+  @Test
+  public void testSelectiveTarget() {
+    // the selective alias is the target of the edge, so matching starts from it and traverses the edge backwards
+    List<ODocument> qResult = db.command(new OCommandSQL(
+        "match {class:IndexedVertex, as:one}.out('IndexedEdge'){class:IndexedVertex, as:two, where:(uid = 1)} return one.uid as uid"))
+        .execute();
+    assertEquals(899, qResult.size());
+
+    qResult = db.command(new OCommandSQL(
+        "match {class:IndexedVertex, as:one}.out('IndexedEdge'){class:IndexedVertex, as:two, where:(uid = 5)} return one.uid as uid"))
+        .execute();
+    assertEquals(1, qResult.size());
+    assertEquals(0, qResult.get(0).field("uid"));
+  }
+
   private List<OIdentifiable> getManagedPathElements(String managerName) {
     StringBuilder query = new StringBuilder();
     query.append("  match {class:Employee, as:boss, where: (name = '" + managerName + "')}");
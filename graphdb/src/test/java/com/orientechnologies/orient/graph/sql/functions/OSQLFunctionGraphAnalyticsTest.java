@@ -0,0 +1,97 @@
+package com.orientechnologies.orient.graph.sql.functions;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.orient.OrientGraph;
+import com.tinkerpop.blueprints.impls.orient.OrientVertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OSQLFunctionGraphAnalyticsTest {
+  private OrientGraph    graph;
+  private OrientVertex[] people = new OrientVertex[6];
+
+  @Before
+  public void setUp() throws Exception {
+    graph = new OrientGraph("memory:" + OSQLFunctionGraphAnalyticsTest.class.getSimpleName());
+    graph.createVertexType("Person");
+    graph.createVertexType("City");
+    graph.createEdgeType("Knows");
+    graph.createEdgeType("Lives");
+
+    for (int i = 0; i < people.length; i++)
+      people[i] = graph.addVertex("class:Person", "name", "p" + i);
+    final OrientVertex city = graph.addVertex("class:City", "name", "c");
+
+    // TRIANGLE 0-1-2, PATH 3-4 AND THE SINGLE VERTEX 5
+    graph.addEdge(null, people[0], people[1], "Knows");
+    graph.addEdge(null, people[1], people[2], "Knows");
+    graph.addEdge(null, people[2], people[0], "Knows");
+    graph.addEdge(null, people[3], people[4], "Knows");
+    for (OrientVertex person : people)
+      graph.addEdge(null, person, city, "Lives");
+    graph.commit();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    graph.drop();
+  }
+
+  @Test
+  public void testConnectedComponents() {
+    final ODocument result = execute("select connectedComponents('Person', 'Knows', 'component')");
+    assertEquals(6, result.<Object> field("vertices"));
+    assertEquals(4, result.<Object> field("edges"));
+    assertEquals(3, result.<Object> field("components"));
+    assertEquals(6L, result.<Object> field("updated"));
+
+    reload();
+    assertEquals(people[0].getIdentity(), component(people[2]));
+    assertEquals(people[3].getIdentity(), component(people[4]));
+    assertEquals(people[5].getIdentity(), component(people[5]));
+  }
+
+  @Test
+  public void testPageRankAndTriangles() {
+    final ODocument pageRank = execute("select pageRank('Person', ['Knows'], 'rank', { 'maxIterations': 50, 'batchSize': 2 })");
+    assertTrue(pageRank.<Integer> field("iterations") <= 50);
+
+    final ODocument triangles = execute("select triangleCount('Person', 'Knows', 'triangles')");
+    assertEquals(1L, triangles.<Object> field("triangles"));
+
+    reload();
+    assertTrue(people[4].<Double> getProperty("rank") > people[3].<Double> getProperty("rank"));
+    assertEquals(1, people[0].<Object> getProperty("triangles"));
+    assertEquals(0, people[3].<Object> getProperty("triangles"));
+    assertNull(graph.getVerticesOfClass("City").iterator().next().getProperty("rank"));
+  }
+
+  @Test
+  public void testLabelPropagation() {
+    final ODocument result = execute("select labelPropagation('Person', 'Knows', 'community')");
+    assertEquals(3, result.<Object> field("communities"));
+  }
+
+  private ODocument execute(final String sql) {
+    final List<ODocument> result = graph.getRawGraph().command(new OCommandSQL(sql)).execute();
+    return result.get(0).field(result.get(0).fieldNames()[0]);
+  }
+
+  private Object component(final Vertex vertex) {
+    return ((OrientVertex) vertex).getRecord().rawField("component");
+  }
+
+  private void reload() {
+    for (int i = 0; i < people.length; i++)
+      people[i] = graph.getVertex(people[i].getIdentity());
+  }
+}
@@ -0,0 +1,116 @@
+package com.orientechnologies.orient.core.index.sbtree.local;
+
+import com.orientechnologies.common.serialization.types.OStringSerializer;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.OLinkSerializer;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.OLocalPaginatedStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link OSBTree} and {@link OPrefixSBTree} on string keys which share long common prefixes, which is the case
+ * when prefix compression of buckets is the most effective. Size of the tree file is printed at the end of each trial, lookups
+ * of existing keys are measured.
+ * <p>
+ * To run this benchmark run {@link org.openjdk.jmh.Main}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PrefixSBTreeBenchmark {
+  private static final String TREE_NAME  = "benchmarkTree";
+  private static final String EXTENSION  = ".bsb";
+  private static final int    KEYS_COUNT = 1000000;
+
+  private final Random random = new Random();
+
+  @State(Scope.Benchmark)
+  public static class FilledTree {
+    @Param({ "sbtree", "prefix" })
+    private String tree;
+
+    private ODatabaseDocumentTx                    db;
+    private OSBTreeAbstract<String, OIdentifiable> sbTree;
+
+    @Setup(Level.Trial)
+    public void up() {
+      OGlobalConfiguration.FILE_LOCK.setValue(Boolean.FALSE);
+
+      final String buildDirectory = System.getProperty("buildDirectory", ".");
+      db = new ODatabaseDocumentTx("plocal:" + buildDirectory + "/PrefixSBTreeBenchmark");
+      if (db.exists()) {
+        db.open("admin", "admin");
+        db.drop();
+      }
+
+      db.create();
+
+      final OLocalPaginatedStorage storage = (OLocalPaginatedStorage) db.getStorage();
+      if ("prefix".equals(tree)) {
+        final OPrefixSBTree<String, OIdentifiable> prefixTree = new OPrefixSBTree<String, OIdentifiable>(TREE_NAME, EXTENSION,
+            false, ".nbb", storage);
+        prefixTree.create(OLinkSerializer.INSTANCE, new OType[] { OType.STRING }, false);
+        sbTree = prefixTree;
+      } else {
+        final OSBTree<String, OIdentifiable> plainTree = new OSBTree<String, OIdentifiable>(TREE_NAME, EXTENSION, false, ".nbb",
+            storage);
+        plainTree.create(OStringSerializer.INSTANCE, OLinkSerializer.INSTANCE, new OType[] { OType.STRING }, 1, false);
+        sbTree = plainTree;
+      }
+
+      for (int i = 0; i < KEYS_COUNT; i++)
+        sbTree.put(key(i), new ORecordId(i % 32000, i));
+
+      sbTree.flush();
+
+      final File treeFile = new File(storage.getStoragePath(), TREE_NAME + EXTENSION);
+
+      System.out.println();
+      System.out.println("Tree '" + tree + "': " + sbTree.size() + " keys, tree file size " + treeFile.length() + " bytes");
+    }
+
+    @TearDown(Level.Trial)
+    public void down() {
+      db.activateOnCurrentThread();
+      sbTree.delete();
+      db.drop();
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void get_1thread(FilledTree filledTree) {
+    get(filledTree);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void get_8threads(FilledTree filledTree) {
+    get(filledTree);
+  }
+
+  private void get(FilledTree filledTree) {
+    filledTree.sbTree.get(key(random.nextInt(KEYS_COUNT)));
+  }
+
+  private static String key(int i) {
+    return "http://www.example.com/catalog/products/category-" + (i / 1000) + "/item-" + i;
+  }
+}
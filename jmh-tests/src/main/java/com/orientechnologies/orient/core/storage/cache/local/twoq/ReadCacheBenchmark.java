@@ -0,0 +1,125 @@
+package com.orientechnologies.orient.core.storage.cache.local.twoq;
+
+import com.orientechnologies.common.collection.closabledictionary.OClosableLinkedContainer;
+import com.orientechnologies.common.directmemory.OByteBufferPool;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.cache.OReadCache;
+import com.orientechnologies.orient.core.storage.cache.local.OWOWCache;
+import com.orientechnologies.orient.core.storage.fs.OFileClassic;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.OLocalPaginatedStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares throughput of load/release calls of {@link O2QCache} and {@link OPartitioned2QCache} when working set is a bit bigger
+ * than size of read cache, which is the case when single cache lock becomes main point of contention.
+ * <p>
+ * To run this benchmark run {@link org.openjdk.jmh.Main}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadCacheBenchmark {
+  private static final int PAGE_SIZE        = 4 * 1024;
+  private static final int CACHE_PAGES      = 16 * 1024;
+  private static final int WRITE_CACHE_SIZE = 4 * 1024 * PAGE_SIZE;
+
+  private final Random random = new Random();
+
+  @State(Scope.Benchmark)
+  public static class PreparedCache {
+    @Param({ "2q", "partitioned2q" })
+    private String cacheType;
+
+    /**
+     * Size of working set in percents of size of read cache.
+     */
+    @Param({ "90", "120" })
+    private int workingSetPercent;
+
+    private OLocalPaginatedStorage storage;
+    private OWOWCache              writeCache;
+    private OReadCache             readCache;
+    private long                   fileId;
+    private int                    pages;
+
+    private final OClosableLinkedContainer<Long, OFileClassic> files = new OClosableLinkedContainer<Long, OFileClassic>(1024);
+
+    @Setup(Level.Trial)
+    public void up() throws IOException {
+      OGlobalConfiguration.FILE_LOCK.setValue(Boolean.FALSE);
+      OGlobalConfiguration.STORAGE_KEEP_DISK_CACHE_STATE.setValue(Boolean.FALSE);
+
+      String buildDirectory = System.getProperty("buildDirectory", ".");
+      storage = (OLocalPaginatedStorage) Orient.instance().loadStorage("plocal:" + buildDirectory + "/ReadCacheBenchmark");
+      storage.create(null);
+      storage.close(true, false);
+
+      writeCache = new OWOWCache(false, PAGE_SIZE, new OByteBufferPool(PAGE_SIZE), -1, null, -1, WRITE_CACHE_SIZE,
+          WRITE_CACHE_SIZE + CACHE_PAGES * PAGE_SIZE, storage, false, files, 1);
+      writeCache.loadRegisteredFiles();
+
+      if ("partitioned2q".equals(cacheType))
+        readCache = new OPartitioned2QCache(CACHE_PAGES * PAGE_SIZE, PAGE_SIZE, false, 20,
+            Runtime.getRuntime().availableProcessors() << 1);
+      else
+        readCache = new O2QCache(CACHE_PAGES * PAGE_SIZE, PAGE_SIZE, false, 20);
+
+      fileId = readCache.addFile("readCacheBenchmark.tst", writeCache);
+      pages = CACHE_PAGES * workingSetPercent / 100;
+
+      for (int i = 0; i < pages; i++) {
+        final OCacheEntry cacheEntry = readCache.allocateNewPage(fileId, writeCache);
+        cacheEntry.markDirty();
+        readCache.release(cacheEntry, writeCache);
+      }
+
+      writeCache.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void down() throws IOException {
+      readCache.deleteStorage(writeCache);
+      files.clear();
+      storage.delete();
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void load_1thread(PreparedCache cache) throws IOException {
+    load(cache);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void load_8threads(PreparedCache cache) throws IOException {
+    load(cache);
+  }
+
+  @Benchmark
+  @Threads(32)
+  public void load_32threads(PreparedCache cache) throws IOException {
+    load(cache);
+  }
+
+  private void load(PreparedCache cache) throws IOException {
+    final OCacheEntry cacheEntry = cache.readCache.load(cache.fileId, random.nextInt(cache.pages), false, cache.writeCache, 1);
+    cache.readCache.release(cacheEntry, cache.writeCache);
+  }
+}
@@ -0,0 +1,122 @@
+package com.orientechnologies.orient.core.storage.impl.local.paginated;
+
+import com.orientechnologies.orient.core.compression.impl.OLZ4Compression;
+import com.orientechnologies.orient.core.compression.impl.ONothingCompression;
+import com.orientechnologies.orient.core.compression.impl.OSnappyCompression;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.OCluster;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares size of cluster on disk and throughput of reads of records from cluster for different compression methods. Cluster
+ * is filled by small documents with the same structure, which is the case when compression by dictionary is the most effective.
+ * Size of the cluster file and total size of stored records are printed at the end of each trial.
+ * <p>
+ * To run this benchmark run {@link org.openjdk.jmh.Main}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ClusterCompressionBenchmark {
+  private static final String CLUSTER_NAME    = "compressed";
+  private static final int    RECORDS_COUNT   = 200000;
+  private static final int    DICTIONARY_SIZE = 16 * 1024;
+
+  private final Random random = new Random();
+
+  @State(Scope.Benchmark)
+  public static class FilledCluster {
+    @Param({ ONothingCompression.NAME, OSnappyCompression.NAME, OLZ4Compression.NAME, "lz4-dictionary" })
+    private String compression;
+
+    private ODatabaseDocumentTx db;
+    private OCluster            cluster;
+
+    @Setup(Level.Trial)
+    public void up() throws IOException {
+      OGlobalConfiguration.FILE_LOCK.setValue(Boolean.FALSE);
+
+      final String buildDirectory = System.getProperty("buildDirectory", ".");
+      db = new ODatabaseDocumentTx("plocal:" + buildDirectory + "/ClusterCompressionBenchmark");
+      if (db.exists()) {
+        db.open("admin", "admin");
+        db.drop();
+      }
+
+      db.create();
+
+      final int clusterId = db.addCluster(CLUSTER_NAME);
+      cluster = db.getStorage().getClusterById(clusterId);
+
+      final boolean dictionary = "lz4-dictionary".equals(compression);
+      cluster.set(OCluster.ATTRIBUTES.COMPRESSION, dictionary ? OLZ4Compression.NAME : compression);
+
+      final Random random = new Random(42);
+      for (int i = 0; i < RECORDS_COUNT; i++) {
+        // dictionary is trained on the first part of the records
+        if (dictionary && i == RECORDS_COUNT / 10)
+          cluster.set(OCluster.ATTRIBUTES.COMPRESSION_DICTIONARY, DICTIONARY_SIZE);
+
+        final ODocument document = new ODocument();
+        document.field("name", "name" + random.nextInt(10000));
+        document.field("surname", "surname" + random.nextInt(10000));
+        document.field("city", "London");
+        document.field("street", "street" + random.nextInt(100));
+        document.field("age", random.nextInt(100));
+        document.field("rank", random.nextDouble());
+        document.field("notes", "This is just a note");
+
+        db.save(document, CLUSTER_NAME);
+      }
+
+      db.getStorage().synch();
+
+      final OLocalPaginatedStorage storage = (OLocalPaginatedStorage) db.getStorage();
+      final File clusterFile = new File(storage.getStoragePath(), CLUSTER_NAME + OPaginatedCluster.DEF_EXTENSION);
+
+      System.out.println();
+      System.out.println(
+          "Compression '" + compression + "': records size " + cluster.getRecordsSize() + " bytes, cluster file size " + clusterFile
+              .length() + " bytes");
+    }
+
+    @TearDown(Level.Trial)
+    public void down() {
+      db.activateOnCurrentThread();
+      db.drop();
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void read_1thread(FilledCluster filledCluster) throws IOException {
+    read(filledCluster);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void read_8threads(FilledCluster filledCluster) throws IOException {
+    read(filledCluster);
+  }
+
+  private void read(FilledCluster filledCluster) throws IOException {
+    filledCluster.cluster.readRecord(random.nextInt(RECORDS_COUNT), false);
+  }
+}
@@ -21,21 +21,30 @@ package com.orientechnologies.orient.server;
 
 import com.orientechnologies.common.exception.OException;
 import com.orientechnologies.common.exception.OSystemException;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
 import com.orientechnologies.orient.core.metadata.security.OToken;
+import com.orientechnologies.orient.core.sql.OSQLPreparedStatement;
 import com.orientechnologies.orient.enterprise.channel.binary.OChannelBinary;
 import com.orientechnologies.orient.enterprise.channel.binary.OTokenSecurityException;
 import com.orientechnologies.orient.server.config.OServerUserConfiguration;
 import com.orientechnologies.orient.server.network.protocol.ONetworkProtocol;
 import com.orientechnologies.orient.server.network.protocol.ONetworkProtocolData;
 import com.orientechnologies.orient.server.network.protocol.binary.ONetworkProtocolBinary;
+import com.orientechnologies.orient.server.network.protocol.binary.OServerQueryCursor;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.locks.Lock;
@@ -55,6 +64,8 @@ public class OClientConnection {
   private byte[]                             tokenBytes;
   private OToken                             token;
   private boolean                            disconnectOnAfter;
+  private final Map<Integer, OServerQueryCursor> queryCursors = new HashMap<Integer, OServerQueryCursor>();
+  private final Map<Integer, OSQLPreparedStatement> preparedStatements = new HashMap<Integer, OSQLPreparedStatement>();
 
   public OClientConnection(final int id, final ONetworkProtocol protocol) throws IOException {
     this.id = id;
@@ -64,6 +75,11 @@ public class OClientConnection {
   }
 
   public void close() {
+    closeQueryCursors();
+    synchronized (this) {
+      preparedStatements.clear();
+    }
+
     if (getDatabase() != null) {
       if (!getDatabase().isClosed()) {
         getDatabase().activateOnCurrentThread();
@@ -78,6 +94,77 @@ public class OClientConnection {
     }
   }
 
+  /**
+   * Keeps a query cursor until the client closes it, it expires or the session is closed.
+   *
+   * @throws OCommandExecutionException
+   *           if the session already keeps the maximum number of query cursors
+   */
+  public synchronized void addQueryCursor(final OServerQueryCursor cursor) {
+    final int max = OGlobalConfiguration.NETWORK_BINARY_MAX_QUERY_CURSORS.getValueAsInteger();
+    if (max > 0 && queryCursors.size() >= max)
+      throw new OCommandExecutionException("Cannot open a query cursor: the session already keeps " + max
+          + " query cursors. Close the unused ones or increase " + OGlobalConfiguration.NETWORK_BINARY_MAX_QUERY_CURSORS.getKey());
+
+    queryCursors.put(cursor.getId(), cursor);
+  }
+
+  public synchronized OServerQueryCursor getQueryCursor(final int id) {
+    return queryCursors.get(id);
+  }
+
+  public synchronized OServerQueryCursor removeQueryCursor(final int id) {
+    return queryCursors.remove(id);
+  }
+
+  /**
+   * Closes the query cursors not used by the client since more than the timeout.
+   */
+  public synchronized void closeExpiredQueryCursors(final long timeout) {
+    for (Iterator<OServerQueryCursor> it = queryCursors.values().iterator(); it.hasNext();) {
+      final OServerQueryCursor cursor = it.next();
+      if (cursor.isExpired(timeout)) {
+        it.remove();
+        cursor.close();
+      }
+    }
+  }
+
+  public void closeQueryCursors() {
+    final List<OServerQueryCursor> cursors;
+    synchronized (this) {
+      cursors = new ArrayList<OServerQueryCursor>(queryCursors.values());
+      queryCursors.clear();
+    }
+
+    for (OServerQueryCursor cursor : cursors)
+      cursor.close();
+  }
+
+  /**
+   * Keeps a prepared statement until the client closes it or the session is closed.
+   *
+   * @throws OCommandExecutionException
+   *           if the session already keeps the maximum number of prepared statements
+   */
+  public synchronized void addPreparedStatement(final OSQLPreparedStatement statement) {
+    final int max = OGlobalConfiguration.NETWORK_BINARY_MAX_PREPARED_STATEMENTS.getValueAsInteger();
+    if (max > 0 && preparedStatements.size() >= max)
+      throw new OCommandExecutionException("Cannot prepare statement '" + statement.getText() + "': the session already keeps "
+          + max + " prepared statements. Close the unused ones or increase "
+          + OGlobalConfiguration.NETWORK_BINARY_MAX_PREPARED_STATEMENTS.getKey());
+
+    preparedStatements.put(statement.getId(), statement);
+  }
+
+  public synchronized OSQLPreparedStatement getPreparedStatement(final int id) {
+    return preparedStatements.get(id);
+  }
+
+  public synchronized OSQLPreparedStatement removePreparedStatement(final int id) {
+    return preparedStatements.remove(id);
+  }
+
   /**
    * Acquires the connection. This is fundamental to manage concurrent requests using the same session id.
    */
@@ -85,6 +85,8 @@ public class OClientConnectionManager {
     while (iterator.hasNext()) {
       final Entry<Integer, OClientConnection> entry = iterator.next();
 
+      entry.getValue().closeExpiredQueryCursors(OGlobalConfiguration.NETWORK_BINARY_CURSOR_TIMEOUT.getValueAsLong());
+
       final Socket socket;
       if (entry.getValue().getProtocol() == null || entry.getValue().getProtocol().getChannel() == null)
         socket = null;
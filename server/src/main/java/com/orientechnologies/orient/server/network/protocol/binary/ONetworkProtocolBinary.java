@@ -76,7 +76,12 @@ import com.orientechnologies.orient.core.serialization.serializer.record.OSerial
 import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerSchemaAware2CSV;
 import com.orientechnologies.orient.core.serialization.serializer.record.string.ORecordSerializerStringAbstract;
 import com.orientechnologies.orient.core.serialization.serializer.stream.OStreamSerializerAnyStreamable;
+import com.orientechnologies.orient.core.sql.OCommandExecutorSQLDelegate;
+import com.orientechnologies.orient.core.sql.OCommandExecutorSQLSelect;
+import com.orientechnologies.orient.core.sql.OSQLPreparedStatement;
 import com.orientechnologies.orient.core.sql.query.OSQLAsynchQuery;
+import com.orientechnologies.orient.core.sql.query.OSQLPreparedQuery;
+import com.orientechnologies.orient.core.sql.query.OSQLQuery;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import com.orientechnologies.orient.core.storage.*;
 import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
@@ -597,6 +602,30 @@ public class ONetworkProtocolBinary extends ONetworkProtocol {
         command(connection);
         break;
 
+      case OChannelBinaryProtocol.REQUEST_QUERY_CURSOR_OPEN:
+        openQueryCursor(connection);
+        break;
+
+      case OChannelBinaryProtocol.REQUEST_QUERY_CURSOR_FETCH:
+        fetchQueryCursor(connection);
+        break;
+
+      case OChannelBinaryProtocol.REQUEST_QUERY_CURSOR_CLOSE:
+        closeQueryCursor(connection);
+        break;
+
+      case OChannelBinaryProtocol.REQUEST_STATEMENT_PREPARE:
+        prepareStatement(connection);
+        break;
+
+      case OChannelBinaryProtocol.REQUEST_STATEMENT_EXECUTE:
+        executePreparedStatement(connection);
+        break;
+
+      case OChannelBinaryProtocol.REQUEST_STATEMENT_CLOSE:
+        closePreparedStatement(connection);
+        break;
+
       case OChannelBinaryProtocol.REQUEST_TX_COMMIT:
         commit(connection);
         break;
@@ -1515,6 +1544,246 @@ public class ONetworkProtocolBinary extends ONetworkProtocol {
     }
   }
 
+  protected void openQueryCursor(OClientConnection connection) throws IOException {
+    setDataCommandInfo(connection, "Open query cursor");
+
+    final int pageSize = channel.readInt();
+
+    String dbSerializerName = connection.getDatabase().getSerializer().toString();
+    String name = getRecordSerializerName(connection);
+
+    if (!dbSerializerName.equals(name)) {
+      ORecordSerializer ser = ORecordSerializerFactory.instance().getFormat(name);
+      ONetworkThreadLocalSerializer.setNetworkSerializer(ser);
+    }
+    final OCommandRequestText command = (OCommandRequestText) OStreamSerializerAnyStreamable.INSTANCE
+        .fromStream(channel.readBytes());
+    ONetworkThreadLocalSerializer.setNetworkSerializer(null);
+
+    connection.getData().commandDetail = command.getText();
+
+    // THE QUERY IS EXECUTED DETACHED FROM THE REQUEST AND ITS RESULT IS CACHEABLE, SO IT MUST NOT CHANGE ANYTHING
+    if (!(command instanceof OSQLQuery))
+      throw new OCommandExecutionException("Only queries can be executed by a query cursor: " + command.getText());
+    final OCommandExecutorSQLDelegate executor = new OCommandExecutorSQLDelegate();
+    executor.parse(command);
+    if (!(executor.getDelegate() instanceof OCommandExecutorSQLSelect) || !executor.isIdempotent())
+      throw new OCommandExecutionException("Only SELECT queries can be executed by a query cursor: " + command.getText());
+
+    connection.closeExpiredQueryCursors(OGlobalConfiguration.NETWORK_BINARY_CURSOR_TIMEOUT.getValueAsLong());
+
+    final long serverTimeout = OGlobalConfiguration.COMMAND_TIMEOUT.getValueAsLong();
+    if (serverTimeout > 0 && command.getTimeoutTime() > serverTimeout)
+      // FORCE THE SERVER'S TIMEOUT
+      command.setTimeout(serverTimeout, command.getTimeoutStrategy());
+
+    if (!isConnectionAlive(connection))
+      return;
+
+    // REQUEST CAN'T MODIFY THE RESULT, SO IT'S CACHEABLE
+    command.setCacheableResult(true);
+
+    final OServerQueryCursor cursor = new OServerQueryCursor(command, pageSize);
+    connection.addQueryCursor(cursor);
+    try {
+      cursor.start(connection.getDatabase());
+    } catch (RuntimeException e) {
+      connection.removeQueryCursor(cursor.getId());
+      throw e;
+    }
+
+    sendQueryCursorPage(connection, cursor, pageSize, true);
+  }
+
+  protected void fetchQueryCursor(OClientConnection connection) throws IOException {
+    setDataCommandInfo(connection, "Fetch query cursor");
+
+    final int cursorId = channel.readInt();
+    final int pageSize = channel.readInt();
+
+    final OServerQueryCursor cursor = connection.getQueryCursor(cursorId);
+    if (cursor == null)
+      throw new OCommandExecutionException("Query cursor " + cursorId + " not found, it has been closed or it is expired");
+
+    if (!isConnectionAlive(connection))
+      return;
+
+    sendQueryCursorPage(connection, cursor, pageSize, false);
+  }
+
+  protected void closeQueryCursor(OClientConnection connection) throws IOException {
+    setDataCommandInfo(connection, "Close query cursor");
+
+    final OServerQueryCursor cursor = connection.removeQueryCursor(channel.readInt());
+    if (cursor != null)
+      cursor.close();
+
+    beginResponse();
+    try {
+      sendOk(connection, clientTxId);
+    } finally {
+      endResponse(connection);
+    }
+  }
+
+  protected void prepareStatement(OClientConnection connection) throws IOException {
+    setDataCommandInfo(connection, "Prepare statement");
+
+    final String text = channel.readString();
+    connection.getData().commandDetail = text;
+
+    // PARSE THE STATEMENT TO REPORT SYNTAX ERRORS TO THE CLIENT NOW RATHER THAN AT THE FIRST EXECUTION
+    final OCommandExecutorSQLDelegate executor = new OCommandExecutorSQLDelegate();
+    executor.parse(new OSQLSynchQuery<Object>(text));
+    if (!executor.isIdempotent())
+      throw new OCommandExecutionException("Only queries can be prepared: " + text);
+
+    final OSQLPreparedStatement statement = new OSQLPreparedStatement(text);
+    connection.addPreparedStatement(statement);
+
+    beginResponse();
+    try {
+      sendOk(connection, clientTxId);
+      channel.writeInt(statement.getId());
+    } finally {
+      endResponse(connection);
+    }
+  }
+
+  protected void executePreparedStatement(OClientConnection connection) throws IOException {
+    setDataCommandInfo(connection, "Execute prepared statement");
+
+    final int statementId = channel.readInt();
+
+    String dbSerializerName = connection.getDatabase().getSerializer().toString();
+    String name = getRecordSerializerName(connection);
+
+    if (!dbSerializerName.equals(name)) {
+      ORecordSerializer ser = ORecordSerializerFactory.instance().getFormat(name);
+      ONetworkThreadLocalSerializer.setNetworkSerializer(ser);
+    }
+    final OSQLSynchQuery<?> request = (OSQLSynchQuery<?>) OStreamSerializerAnyStreamable.INSTANCE.fromStream(channel.readBytes());
+    ONetworkThreadLocalSerializer.setNetworkSerializer(null);
+
+    final OSQLPreparedStatement statement = connection.getPreparedStatement(statementId);
+    if (statement == null)
+      throw new OCommandExecutionException("Prepared statement " + statementId + " not found, it has been closed");
+
+    // ONLY PARAMETERS AND OPTIONS OF THE EXECUTION ARE TAKEN FROM THE REQUEST, THE TEXT IS THE PREPARED ONE
+    final OSQLPreparedQuery<Object> command = new OSQLPreparedQuery<Object>(statement);
+    command.setFetchPlan(request.getFetchPlan());
+    command.setLimit(request.getLimit());
+    command.setTimeout(request.getTimeoutTime(), request.getTimeoutStrategy());
+    command.setUseCache(request.isUseCache());
+
+    final long serverTimeout = OGlobalConfiguration.COMMAND_TIMEOUT.getValueAsLong();
+    if (serverTimeout > 0 && command.getTimeoutTime() > serverTimeout)
+      // FORCE THE SERVER'S TIMEOUT
+      command.setTimeout(serverTimeout, command.getTimeoutStrategy());
+
+    connection.getData().commandDetail = statement.getText();
+
+    beginResponse();
+    try {
+      connection.getData().command = command;
+
+      if (!isConnectionAlive(connection))
+        return;
+
+      // REQUEST CAN'T MODIFY THE RESULT, SO IT'S CACHEABLE
+      command.setCacheableResult(true);
+
+      final OSyncCommandResultListener listener = new OSyncCommandResultListener(null);
+      final OCommandRequest commandImpl = connection.getDatabase().command(command);
+      listener.setFetchPlan(commandImpl.getFetchPlan());
+
+      final Map<Object, Object> params = request.getParameters();
+      final Object result = params == null ? commandImpl.execute() : commandImpl.execute(params);
+
+      // FETCHPLAN HAS TO BE ASSIGNED AGAIN, because it can be changed by SQL statement
+      listener.setFetchPlan(commandImpl.getFetchPlan());
+
+      sendOk(connection, clientTxId);
+      serializeValue(connection, listener, result, false, true);
+
+      // SEND FETCHED RECORDS TO LOAD IN CLIENT CACHE
+      for (ORecord rec : listener.getFetchedRecordsToSend()) {
+        channel.writeByte((byte) 2); // CLIENT CACHE RECORD. IT ISN'T PART OF THE RESULT SET
+        writeIdentifiable(connection, rec);
+      }
+
+      channel.writeByte((byte) 0); // NO MORE RECORDS
+    } finally {
+      connection.getData().command = null;
+      endResponse(connection);
+    }
+  }
+
+  protected void closePreparedStatement(OClientConnection connection) throws IOException {
+    setDataCommandInfo(connection, "Close prepared statement");
+
+    connection.removePreparedStatement(channel.readInt());
+
+    beginResponse();
+    try {
+      sendOk(connection, clientTxId);
+    } finally {
+      endResponse(connection);
+    }
+  }
+
+  /**
+   * Sends the next page of records of a query cursor, followed by the records to cache on the client because of the fetch plan and
+   * by a flag telling if the cursor has more records. The cursor is closed once it has no more records.
+   */
+  private void sendQueryCursorPage(final OClientConnection connection, final OServerQueryCursor cursor, final int pageSize,
+      final boolean includeId) throws IOException {
+    final List<OIdentifiable> page = new ArrayList<OIdentifiable>(Math.min(pageSize, 1000));
+    final boolean hasMore;
+    try {
+      hasMore = cursor.nextPage(page, pageSize);
+    } catch (RuntimeException e) {
+      connection.removeQueryCursor(cursor.getId());
+      cursor.close();
+      throw e;
+    }
+
+    if (!hasMore)
+      connection.removeQueryCursor(cursor.getId());
+
+    beginResponse();
+    try {
+      sendOk(connection, clientTxId);
+
+      if (includeId)
+        channel.writeInt(cursor.getId());
+
+      final OSyncCommandResultListener listener = new OSyncCommandResultListener(null);
+      listener.setFetchPlan(cursor.getFetchPlan());
+
+      for (OIdentifiable o : page) {
+        try {
+          listener.result(o);
+          channel.writeByte((byte) 1); // ONE MORE RECORD
+          writeIdentifiable(connection, o);
+        } catch (Exception e) {
+          OLogManager.instance().warn(this, "Cannot serialize record: " + o);
+        }
+      }
+
+      // SEND FETCHED RECORDS TO LOAD IN CLIENT CACHE
+      for (ORecord rec : listener.getFetchedRecordsToSend()) {
+        channel.writeByte((byte) 2); // CLIENT CACHE RECORD. IT ISN'T PART OF THE RESULT SET
+        writeIdentifiable(connection, rec);
+      }
+
+      channel.writeByte((byte) 0); // NO MORE RECORDS IN THIS PAGE
+      channel.writeByte((byte) (hasMore ? 1 : 0));
+    } finally {
+      endResponse(connection);
+    }
+  }
+
   public void serializeValue(final OClientConnection connection, final OAbstractCommandResultListener listener, Object result,
       boolean load, boolean isRecordResultSet) throws IOException {
     if (result == null) {
@@ -0,0 +1,274 @@
+/*
+ *
+ *  *  Copyright 2016 Orient Technologies LTD (info(at)orientechnologies.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientechnologies.com
+ *
+ */
+
+
+package com.orientechnologies.orient.server.network.protocol.binary;
+
+import com.orientechnologies.common.concur.lock.OInterruptedException;
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.command.OCommandRequest;
+import com.orientechnologies.orient.core.command.OCommandRequestText;
+import com.orientechnologies.orient.core.command.OCommandResultListener;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLAsynchQuery;
+import com.orientechnologies.orient.core.sql.query.OSQLQuery;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server side cursor of a query, which results are sent to the client one page at a time. The query is executed by a thread of a
+ * pool shared by all the cursors of the server against a copy of the database of the session. Records are passed to the network
+ * thread through a queue as big as one page, so the query is suspended as soon as the next page is ready, until the client asks
+ * for it. In this way the server never keeps more than two pages of records in memory, whatever the size of the result.
+ *
+ * @see com.orientechnologies.orient.enterprise.channel.binary.OChannelBinaryProtocol#REQUEST_QUERY_CURSOR_OPEN
+ */
+public class OServerQueryCursor {
+  private static final AtomicInteger serial = new AtomicInteger();
+  private static final Object        END    = new Object();
+  private static ThreadPoolExecutor   executor;
+
+  private final int                   id;
+  private final OCommandRequestText   command;
+  private final BlockingQueue<Object> queue;
+  private volatile String             fetchPlan;
+  private volatile boolean            closed;
+  private volatile Throwable          error;
+  private volatile long               lastAccess;
+  private volatile boolean            fetching;
+  private boolean                     finished;
+
+  public OServerQueryCursor(final OCommandRequestText command, final int pageSize) {
+    this.id = serial.incrementAndGet();
+    this.command = command;
+    this.fetchPlan = command.getFetchPlan();
+    this.queue = new ArrayBlockingQueue<Object>(Math.max(pageSize, 1));
+    this.lastAccess = System.currentTimeMillis();
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public String getFetchPlan() {
+    return fetchPlan;
+  }
+
+  /**
+   * Starts the execution of the query against a copy of the database.
+   *
+   * @throws OCommandExecutionException
+   *           if all the threads of the pool are running the queries of other cursors
+   */
+  public void start(final ODatabaseDocumentInternal database) {
+    final ODatabaseDocumentInternal db = database.copy();
+    database.activateOnCurrentThread();
+
+    try {
+      getExecutor().execute(new Runnable() {
+        @Override
+        public void run() {
+          db.activateOnCurrentThread();
+          try {
+            execute(db);
+          } catch (Throwable t) {
+            error = t;
+          } finally {
+            try {
+              db.close();
+            } catch (Exception e) {
+              OLogManager.instance().debug(this, "Error on closing the database of query cursor %d", e, id);
+            }
+            offer(END);
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      db.activateOnCurrentThread();
+      db.close();
+      database.activateOnCurrentThread();
+      throw OException.wrapException(new OCommandExecutionException("Cannot open a cursor for query '" + command.getText()
+          + "': the server already runs " + OGlobalConfiguration.NETWORK_BINARY_CURSOR_MAX_THREADS.getValueAsInteger()
+          + " query cursors. Close the unused ones or increase " + OGlobalConfiguration.NETWORK_BINARY_CURSOR_MAX_THREADS.getKey()),
+          e);
+    }
+  }
+
+  /**
+   * Waits for the next records of the query.
+   *
+   * @param page
+   *          Collects the records
+   * @param pageSize
+   *          Maximum number of records to collect
+   * @return true if the query can have more records after the collected ones
+   */
+  public boolean nextPage(final List<OIdentifiable> page, final int pageSize) {
+    lastAccess = System.currentTimeMillis();
+    fetching = true;
+
+    try {
+      while (!finished && page.size() < pageSize) {
+        // POLL RATHER THAN TAKE: THE CURSOR CAN BE CLOSED WHILE WAITING, AND ITS QUERY COULD NEVER SEND THE END
+        final Object next = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (closed)
+          throw new OCommandExecutionException("Query cursor " + id + " has been closed");
+
+        if (next == END)
+          finished = true;
+        else if (next != null)
+          page.add((OIdentifiable) next);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw OException.wrapException(new OInterruptedException("Interrupted while waiting for the results of query cursor " + id), e);
+    } finally {
+      lastAccess = System.currentTimeMillis();
+      fetching = false;
+    }
+
+    if (!finished && queue.peek() == END) {
+      queue.poll();
+      finished = true;
+    }
+
+    if (finished && error != null) {
+      if (error instanceof RuntimeException)
+        throw (RuntimeException) error;
+      throw OException.wrapException(new OCommandExecutionException("Error on executing query " + command.getText()), error);
+    }
+
+    return !finished;
+  }
+
+  /**
+   * @return true if the client did not ask for records since more than the timeout. A cursor that is collecting a page never
+   *         expires, however long its query takes to produce it
+   */
+  public boolean isExpired(final long timeout) {
+    return timeout > 0 && !fetching && System.currentTimeMillis() - lastAccess > timeout;
+  }
+
+  /**
+   * Stops the query and discards the records not sent yet. A thread waiting in {@link #nextPage(List, int)} is woken up and gets
+   * an error.
+   */
+  public void close() {
+    closed = true;
+    queue.clear();
+    // THE QUERY STOPS OFFERING RECORDS ONCE CLOSED: WAKE UP THE WAITING READER, IF ANY
+    queue.offer(END);
+  }
+
+  private static synchronized ThreadPoolExecutor getExecutor() {
+    if (executor == null) {
+      // NO QUEUE: A CURSOR IS REFUSED RATHER THAN WAITING FOR ANOTHER ONE TO BE CLOSED
+      executor = new ThreadPoolExecutor(0, OGlobalConfiguration.NETWORK_BINARY_CURSOR_MAX_THREADS.getValueAsInteger(), 60,
+          TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable r) {
+              final Thread thread = new Thread(r, "OrientDB query cursor #" + counter.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+    }
+    return executor;
+  }
+
+  private void execute(final ODatabaseDocumentInternal db) {
+    final OCommandResultListener listener = new OCommandResultListener() {
+      @Override
+      public boolean result(final Object iRecord) {
+        return offer(iRecord);
+      }
+
+      @Override
+      public void end() {
+      }
+
+      @Override
+      public Object getResult() {
+        return null;
+      }
+    };
+
+    OCommandRequestText request = command;
+    if (command instanceof OSQLSynchQuery) {
+      // CONVERT IT IN ASYNCHRONOUS QUERY
+      final OSQLAsynchQuery<Object> asynchQuery = new OSQLAsynchQuery<Object>(command.getText());
+      asynchQuery.setFetchPlan(command.getFetchPlan());
+      asynchQuery.setLimit(command.getLimit());
+      asynchQuery.setTimeout(command.getTimeoutTime(), command.getTimeoutStrategy());
+      asynchQuery.setUseCache(((OSQLSynchQuery) command).isUseCache());
+      request = asynchQuery;
+    }
+
+    if (!(request instanceof OSQLQuery))
+      throw new OCommandExecutionException("Only queries can be executed by a query cursor: " + command.getText());
+    request.setResultListener(listener);
+
+    final OCommandRequest commandImpl = db.command(request);
+    final Map<Object, Object> params = command.getParameters();
+
+    if (params == null)
+      commandImpl.execute();
+    else
+      commandImpl.execute(params);
+
+    // FETCHPLAN CAN BE CHANGED BY THE SQL STATEMENT
+    fetchPlan = commandImpl.getFetchPlan();
+  }
+
+  private boolean offer(Object record) {
+    if (record == null)
+      return !closed;
+
+    if (record != END && !(record instanceof OIdentifiable))
+      record = new ODocument().field("result", record);
+
+    try {
+      while (!closed) {
+        if (queue.offer(record, 100, TimeUnit.MILLISECONDS))
+          return true;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+}
@@ -0,0 +1,105 @@
+package com.orientechnologies.orient.server.network;
+
+import com.orientechnologies.orient.client.remote.OServerAdmin;
+import com.orientechnologies.orient.client.remote.OStorageRemote;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OSQLPreparedStatement;
+import com.orientechnologies.orient.core.sql.query.OSQLPreparedQuery;
+import com.orientechnologies.orient.server.OServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RemotePreparedStatementTest {
+  private static final String SERVER_DIRECTORY = "./target/db";
+  private static final int    RECORDS_COUNT    = 100;
+
+  private OServer             server;
+  private ODatabaseDocumentTx db;
+
+  @Before
+  public void before() throws Exception {
+    server = new OServer();
+    server.setServerRootDirectory(SERVER_DIRECTORY);
+    server.startup(getClass().getResourceAsStream("orientdb-server-config.xml"));
+    server.activate();
+
+    final OServerAdmin serverAdmin = new OServerAdmin("remote:localhost");
+    serverAdmin.connect("root", "D2AFD02F20640EC8B7A5140F34FCA49D2289DB1F0D0598BB9DE8AAA75A0792F3");
+    serverAdmin.createDatabase(RemotePreparedStatementTest.class.getSimpleName(), "document", "memory");
+
+    db = new ODatabaseDocumentTx("remote:localhost/" + RemotePreparedStatementTest.class.getSimpleName()).open("admin", "admin");
+    final OClass item = db.getMetadata().getSchema().createClass("Item");
+    item.createProperty("number", OType.INTEGER).createIndex(OClass.INDEX_TYPE.UNIQUE);
+    for (int i = 0; i < RECORDS_COUNT; i++)
+      db.save(new ODocument("Item").field("number", i).field("name", "item" + (i % 10)));
+  }
+
+  @After
+  public void after() {
+    db.close();
+    server.shutdown();
+    Orient.instance().startup();
+  }
+
+  @Test
+  public void testExecute() {
+    final OSQLPreparedStatement statement = new OSQLPreparedStatement("select from Item where number = ?");
+
+    for (int i = 0; i < 10; i++) {
+      final List<ODocument> result = db.query(new OSQLPreparedQuery<ODocument>(statement), i * 3);
+      Assert.assertEquals(1, result.size());
+      Assert.assertEquals(i * 3, ((Number) result.get(0).field("number")).intValue());
+    }
+
+    Assert.assertTrue(db.query(new OSQLPreparedQuery<ODocument>(statement), -1).isEmpty());
+  }
+
+  @Test
+  public void testNamedParameters() {
+    final OSQLPreparedStatement statement = new OSQLPreparedStatement(
+        "select number from Item where name = :name and number < :max order by number");
+
+    final Map<String, Object> params = new HashMap<String, Object>();
+    params.put("name", "item5");
+    params.put("max", 50);
+
+    final OSQLPreparedQuery<ODocument> query = new OSQLPreparedQuery<ODocument>(statement);
+    query.setLimit(3);
+    final List<ODocument> result = db.query(query, params);
+    Assert.assertEquals(3, result.size());
+    Assert.assertEquals(5, ((Number) result.get(0).field("number")).intValue());
+    Assert.assertEquals(25, ((Number) result.get(2).field("number")).intValue());
+  }
+
+  @Test
+  public void testClose() {
+    final OSQLPreparedStatement statement = new OSQLPreparedStatement("select from Item where number < ?");
+    Assert.assertEquals(10, db.query(new OSQLPreparedQuery<ODocument>(statement), 10).size());
+
+    storage().closePreparedStatement(statement);
+    storage().closePreparedStatement(statement);
+
+    // PREPARED AGAIN
+    Assert.assertEquals(20, db.query(new OSQLPreparedQuery<ODocument>(statement), 20).size());
+  }
+
+  @Test(expected = OCommandExecutionException.class)
+  public void testOnlyQueries() {
+    db.query(new OSQLPreparedQuery<ODocument>(new OSQLPreparedStatement("delete from Item")));
+  }
+
+  private OStorageRemote storage() {
+    return (OStorageRemote) db.getStorage().getUnderlying();
+  }
+}
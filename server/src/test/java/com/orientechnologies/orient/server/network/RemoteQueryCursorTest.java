@@ -0,0 +1,115 @@
+package com.orientechnologies.orient.server.network;
+
+import com.orientechnologies.orient.client.remote.ORemoteResultSet;
+import com.orientechnologies.orient.client.remote.OServerAdmin;
+import com.orientechnologies.orient.client.remote.OStorageRemote;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import com.orientechnologies.orient.server.OServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+public class RemoteQueryCursorTest {
+  private static final String SERVER_DIRECTORY = "./target/db";
+  private static final int    RECORDS_COUNT    = 2500;
+
+  private OServer             server;
+  private ODatabaseDocumentTx db;
+
+  @Before
+  public void before() throws Exception {
+    server = new OServer();
+    server.setServerRootDirectory(SERVER_DIRECTORY);
+    server.startup(getClass().getResourceAsStream("orientdb-server-config.xml"));
+    server.activate();
+
+    final OServerAdmin serverAdmin = new OServerAdmin("remote:localhost");
+    serverAdmin.connect("root", "D2AFD02F20640EC8B7A5140F34FCA49D2289DB1F0D0598BB9DE8AAA75A0792F3");
+    serverAdmin.createDatabase(RemoteQueryCursorTest.class.getSimpleName(), "document", "memory");
+
+    db = new ODatabaseDocumentTx("remote:localhost/" + RemoteQueryCursorTest.class.getSimpleName()).open("admin", "admin");
+    db.getMetadata().getSchema().createClass("Item");
+    for (int i = 0; i < RECORDS_COUNT; i++)
+      db.save(new ODocument("Item").field("number", i));
+  }
+
+  @After
+  public void after() {
+    db.close();
+    server.shutdown();
+    Orient.instance().startup();
+  }
+
+  @Test
+  public void testPages() {
+    final ORemoteResultSet<ODocument> result = storage()
+        .openQueryCursor(new OSQLSynchQuery<ODocument>("select from Item order by number"), 100);
+
+    Assert.assertEquals(result.currentSize(), 100);
+    Assert.assertFalse(result.isCompleted());
+
+    int expected = 0;
+    for (ODocument document : result) {
+      Assert.assertEquals(document.field("number"), expected++);
+      Assert.assertTrue(result.currentSize() <= 100);
+    }
+
+    Assert.assertEquals(expected, RECORDS_COUNT);
+    Assert.assertTrue(result.isCompleted());
+    Assert.assertEquals(result.size(), RECORDS_COUNT);
+
+    try {
+      result.get(0);
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      // EXPECTED: THE BROWSED PAGES HAVE BEEN RELEASED
+    }
+  }
+
+  @Test
+  public void testProjection() {
+    final ORemoteResultSet<ODocument> result = storage().openQueryCursor(
+        new OSQLSynchQuery<ODocument>("select number * 2 as twice from Item where number < 50 order by number"), 7);
+
+    Assert.assertEquals(result.get(49).field("twice"), 98);
+    Assert.assertEquals(result.size(), 50);
+  }
+
+  @Test
+  public void testClose() {
+    final ORemoteResultSet<ODocument> result = storage().openQueryCursor(new OSQLSynchQuery<ODocument>("select from Item"), 10);
+    Assert.assertEquals(result.currentSize(), 10);
+
+    result.close();
+    Assert.assertTrue(result.isCompleted());
+    Assert.assertEquals(result.size(), 10);
+
+    try {
+      storage().fetchQueryCursor(result.getCursorId(), 10, new ArrayList<OIdentifiable>(), new ArrayList<ORecord>());
+      Assert.fail();
+    } catch (OCommandExecutionException e) {
+      // EXPECTED
+    }
+
+    Assert.assertEquals(storage().openQueryCursor(new OSQLSynchQuery<ODocument>("select from Item"), 1000).size(),
+        RECORDS_COUNT);
+  }
+
+  @Test(expected = OCommandExecutionException.class)
+  public void testError() {
+    storage().openQueryCursor(new OSQLSynchQuery<ODocument>("select from NotExistent"), 10);
+  }
+
+  private OStorageRemote storage() {
+    return (OStorageRemote) db.getStorage().getUnderlying();
+  }
+}